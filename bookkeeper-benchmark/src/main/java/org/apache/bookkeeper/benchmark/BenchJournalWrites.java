@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.bookkeeper.bookie.BufferedChannel;
+import org.apache.bookkeeper.bookie.DirectBufferArena;
+import org.apache.bookkeeper.bookie.GatheringBufferedChannel;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the journal write paths: copying each record through the write buffer
+ * of a {@link BufferedChannel}, or staging the records of a batch in a
+ * {@link DirectBufferArena} and writing them with gathering writes.
+ *
+ * <p>
+ * Records are written the way the journal writes them (a 4 bytes length followed
+ * by the entry) and flushed every <i>batch</i> records. For each write path the
+ * benchmark reports the write calls issued to the file channel and the bytes
+ * copied per flushed batch, besides the write throughput.
+ * </p>
+ */
+public class BenchJournalWrites {
+    static Logger LOG = LoggerFactory.getLogger(BenchJournalWrites.class);
+
+    /**
+     * A file channel counting the write calls issued to the underlying channel.
+     */
+    static class CountingFileChannel extends FileChannel {
+        final FileChannel fc;
+        long numWriteCalls = 0L;
+
+        CountingFileChannel(FileChannel fc) {
+            this.fc = fc;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return fc.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return fc.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            ++numWriteCalls;
+            return fc.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            ++numWriteCalls;
+            return fc.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return fc.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            fc.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return fc.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            fc.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            fc.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return fc.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return fc.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return fc.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            ++numWriteCalls;
+            return fc.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return fc.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return fc.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return fc.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            fc.close();
+        }
+    }
+
+    static void runBenchmark(String name, File dir, boolean gathering, boolean direct,
+                             int numEntries, int entrySize, int batchSize, int writeBufferSize)
+            throws IOException {
+        File file = File.createTempFile("bench-journal-", ".txn", dir);
+        file.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        CountingFileChannel fc = new CountingFileChannel(raf.getChannel());
+        try {
+            BufferedChannel bc;
+            GatheringBufferedChannel gbc = null;
+            if (gathering) {
+                DirectBufferArena arena = new DirectBufferArena(writeBufferSize,
+                        (int) ((long) batchSize * (entrySize + 4) / writeBufferSize) + 2);
+                gbc = new GatheringBufferedChannel(fc, writeBufferSize, arena, Long.MAX_VALUE,
+                        NullStatsLogger.INSTANCE.getOpStatsLogger("write-calls"));
+                bc = gbc;
+            } else {
+                bc = new BufferedChannel(fc, writeBufferSize);
+            }
+
+            ByteBuffer[] entries = new ByteBuffer[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                entries[i] = direct ? ByteBuffer.allocateDirect(entrySize) : ByteBuffer.allocate(entrySize);
+            }
+            ByteBuffer lenBuff = ByteBuffer.allocate(4);
+
+            long numBatches = 0L;
+            long startTime = System.nanoTime();
+            for (int i = 0; i < numEntries; i++) {
+                ByteBuffer entry = entries[i % batchSize];
+                entry.clear();
+                entry.putLong(0, i);
+                lenBuff.clear();
+                lenBuff.putInt(entry.remaining());
+                lenBuff.flip();
+                bc.write(lenBuff);
+                bc.writeRetained(entry);
+                if ((i + 1) % batchSize == 0 || i == numEntries - 1) {
+                    bc.flush(false);
+                    ++numBatches;
+                }
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            // every byte goes through the write buffer of a buffered channel
+            long copiedBytes = null == gbc ? bc.position() : gbc.getNumCopiedBytes();
+
+            LOG.info("{} : {} entries of {} bytes in {} batches, {} MB/s, {} write calls per batch,"
+                    + " {} bytes copied per batch",
+                    new Object[] { name, numEntries, entrySize, numBatches,
+                                   String.format("%.2f", (bc.position() * 1000.0d) / elapsedNanos),
+                                   String.format("%.2f", (double) fc.numWriteCalls / numBatches),
+                                   copiedBytes / numBatches });
+        } finally {
+            fc.close();
+            raf.close();
+            file.delete();
+        }
+    }
+
+    /**
+     * @param args
+     */
+    public static void main(String[] args) throws ParseException, IOException {
+        Options options = new Options();
+        options.addOption("entries", true, "Number of entries to write (default 1000000)");
+        options.addOption("size", true, "Size of each entry, in bytes (default 1024)");
+        options.addOption("batch", true, "Number of entries per flushed batch (default 100)");
+        options.addOption("bufferSize", true, "Journal write buffer size, in bytes (default 65536)");
+        options.addOption("directory", true, "Directory to write journal files (default java.io.tmpdir)");
+        options.addOption("help", false, "This message");
+
+        CommandLineParser parser = new PosixParser();
+        CommandLine cmd = parser.parse(options, args);
+
+        if (cmd.hasOption("help")) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("BenchJournalWrites <options>", options);
+            System.exit(-1);
+        }
+
+        int numEntries = Integer.valueOf(cmd.getOptionValue("entries", "1000000"));
+        int entrySize = Integer.valueOf(cmd.getOptionValue("size", "1024"));
+        int batchSize = Integer.valueOf(cmd.getOptionValue("batch", "100"));
+        int writeBufferSize = Integer.valueOf(cmd.getOptionValue("bufferSize", "65536"));
+        File dir = new File(cmd.getOptionValue("directory", System.getProperty("java.io.tmpdir")));
+
+        // warm up
+        int warmUpEntries = Math.min(numEntries, 100000);
+        runBenchmark("warmup-buffered", dir, false, false, warmUpEntries, entrySize, batchSize, writeBufferSize);
+        runBenchmark("warmup-gathering", dir, true, false, warmUpEntries, entrySize, batchSize, writeBufferSize);
+
+        runBenchmark("buffered-heap", dir, false, false, numEntries, entrySize, batchSize, writeBufferSize);
+        runBenchmark("gathering-heap", dir, true, false, numEntries, entrySize, batchSize, writeBufferSize);
+        runBenchmark("buffered-direct", dir, false, true, numEntries, entrySize, batchSize, writeBufferSize);
+        runBenchmark("gathering-direct", dir, true, true, numEntries, entrySize, batchSize, writeBufferSize);
+    }
+}
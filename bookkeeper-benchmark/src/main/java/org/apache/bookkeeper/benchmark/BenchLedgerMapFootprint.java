@@ -0,0 +1,160 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.bookkeeper.util.ConcurrentLongHashSet;
+import org.apache.bookkeeper.util.ConcurrentLongLongHashMap;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the heap used by the bookie ledger tracking structures, with boxed
+ * keys and values or with primitive long maps and sets.
+ *
+ * <p>
+ * The benchmark builds the ledger sizes of <i>logs</i> entry logs, each one
+ * holding <i>ledgers</i> ledgers picked among <i>activeLedgers</i> ledgers,
+ * the way entry log metadata is kept by the garbage collector, and the set of
+ * active ledgers the way the ledger manager keeps it. It reports the heap
+ * retained by each layout, measured after full collections.
+ * </p>
+ */
+public class BenchLedgerMapFootprint {
+    static Logger LOG = LoggerFactory.getLogger(BenchLedgerMapFootprint.class);
+
+    static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // collect until the used heap is stable
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(100);
+            long newUsed = runtime.totalMemory() - runtime.freeMemory();
+            if (newUsed >= used) {
+                return newUsed;
+            }
+            used = newUsed;
+        }
+        return used;
+    }
+
+    static Object buildEntryLogMaps(boolean primitive, int numLogs, int numLedgers, int numActiveLedgers) {
+        Random r = new Random(numLogs);
+        Object[] logs = new Object[numLogs];
+        for (int i = 0; i < numLogs; i++) {
+            if (primitive) {
+                ConcurrentLongLongHashMap ledgersMap = new ConcurrentLongLongHashMap(16, 1);
+                for (int j = 0; j < numLedgers; j++) {
+                    ledgersMap.addAndGet(r.nextInt(numActiveLedgers), 1024 + r.nextInt(1024 * 1024));
+                }
+                logs[i] = ledgersMap;
+            } else {
+                ConcurrentHashMap<Long, Long> ledgersMap = new ConcurrentHashMap<Long, Long>();
+                for (int j = 0; j < numLedgers; j++) {
+                    long ledgerId = r.nextInt(numActiveLedgers);
+                    long size = 1024 + r.nextInt(1024 * 1024);
+                    Long ledgerSize = ledgersMap.get(ledgerId);
+                    ledgersMap.put(ledgerId, null == ledgerSize ? size : ledgerSize + size);
+                }
+                logs[i] = ledgersMap;
+            }
+        }
+        return logs;
+    }
+
+    static Object buildActiveLedgers(boolean primitive, int numActiveLedgers) {
+        if (primitive) {
+            ConcurrentLongHashSet activeLedgers = new ConcurrentLongHashSet();
+            for (long ledgerId = 0; ledgerId < numActiveLedgers; ledgerId++) {
+                activeLedgers.add(ledgerId);
+            }
+            return activeLedgers;
+        } else {
+            ConcurrentSkipListMap<Long, Boolean> activeLedgers = new ConcurrentSkipListMap<Long, Boolean>();
+            for (long ledgerId = 0; ledgerId < numActiveLedgers; ledgerId++) {
+                activeLedgers.put(ledgerId, true);
+            }
+            return activeLedgers;
+        }
+    }
+
+    static long measure(String name, boolean primitive, boolean entryLogs,
+                        int numLogs, int numLedgers, int numActiveLedgers) throws InterruptedException {
+        long before = usedHeap();
+        long startTime = System.nanoTime();
+        Object structure = entryLogs
+                ? buildEntryLogMaps(primitive, numLogs, numLedgers, numActiveLedgers)
+                : buildActiveLedgers(primitive, numActiveLedgers);
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000;
+        long retained = usedHeap() - before;
+        LOG.info("{} : {} bytes retained ({} MB), built in {} ms",
+                new Object[] { name, retained, retained / (1024 * 1024), elapsedMillis });
+        // keep the structure reachable until it is measured
+        if (null == structure) {
+            throw new IllegalStateException();
+        }
+        return retained;
+    }
+
+    /**
+     * @param args
+     */
+    public static void main(String[] args) throws ParseException, InterruptedException {
+        Options options = new Options();
+        options.addOption("logs", true, "Number of entry logs (default 20000)");
+        options.addOption("ledgers", true, "Number of ledgers per entry log (default 100)");
+        options.addOption("activeLedgers", true, "Number of active ledgers (default 100000)");
+        options.addOption("help", false, "This message");
+
+        CommandLineParser parser = new PosixParser();
+        CommandLine cmd = parser.parse(options, args);
+
+        if (cmd.hasOption("help")) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("BenchLedgerMapFootprint <options>", options);
+            System.exit(-1);
+        }
+
+        int numLogs = Integer.valueOf(cmd.getOptionValue("logs", "20000"));
+        int numLedgers = Integer.valueOf(cmd.getOptionValue("ledgers", "100"));
+        int numActiveLedgers = Integer.valueOf(cmd.getOptionValue("activeLedgers", "100000"));
+
+        long boxed = measure("entrylog-metadata-boxed", false, true, numLogs, numLedgers, numActiveLedgers);
+        long primitive = measure("entrylog-metadata-primitive", true, true, numLogs, numLedgers, numActiveLedgers);
+        LOG.info("entrylog-metadata : {} bytes per ledger boxed, {} bytes per ledger primitive",
+                boxed / ((long) numLogs * numLedgers), primitive / ((long) numLogs * numLedgers));
+
+        boxed = measure("active-ledgers-boxed", false, false, numLogs, numLedgers, numActiveLedgers);
+        primitive = measure("active-ledgers-primitive", true, false, numLogs, numLedgers, numActiveLedgers);
+        LOG.info("active-ledgers : {} bytes per ledger boxed, {} bytes per ledger primitive",
+                boxed / numActiveLedgers, primitive / numActiveLedgers);
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.bookkeeper.util.ConcurrentLongHashMap;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the cost of tracking the timeouts of outstanding requests, the way the
+ * per channel bookie client does it.
+ *
+ * <p>
+ * Each of <i>threads</i> threads issues requests, keeping <i>outstanding</i> of them
+ * pending and completing the oldest one before issuing a new one. Requests are either
+ * tracked in a map keyed by completion key objects with a timeout scheduled on a
+ * hashed wheel timer for each of them, or in a map keyed by primitive txnIds swept
+ * periodically by a single timer task. The benchmark reports the requests completed
+ * per second by each approach.
+ * </p>
+ */
+public class BenchRequestTimeouts {
+    static Logger LOG = LoggerFactory.getLogger(BenchRequestTimeouts.class);
+
+    static final long REQUEST_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Tracker of the outstanding requests.
+     */
+    interface RequestTracker {
+        void request(long txnId);
+        boolean complete(long txnId);
+        void shutdown();
+    }
+
+    static class Request {
+        final long txnId;
+        final long requestTimeNanos = System.nanoTime();
+        volatile Timeout timeout;
+
+        Request(long txnId) {
+            this.txnId = txnId;
+        }
+    }
+
+    /**
+     * A timeout scheduled on the timer for each request.
+     */
+    static class TimerTracker implements RequestTracker {
+        final ConcurrentHashMap<Key, Request> requests = new ConcurrentHashMap<Key, Request>();
+        final HashedWheelTimer timer = new HashedWheelTimer(100, TimeUnit.MILLISECONDS, 1024);
+
+        class Key implements TimerTask {
+            final long txnId;
+
+            Key(long txnId) {
+                this.txnId = txnId;
+            }
+
+            @Override
+            public boolean equals(Object obj) {
+                return obj instanceof Key && ((Key) obj).txnId == txnId;
+            }
+
+            @Override
+            public int hashCode() {
+                return (int) txnId;
+            }
+
+            @Override
+            public void run(Timeout timeout) {
+                if (!timeout.isCancelled()) {
+                    requests.remove(this);
+                }
+            }
+        }
+
+        @Override
+        public void request(long txnId) {
+            Key key = new Key(txnId);
+            Request request = new Request(txnId);
+            requests.put(key, request);
+            request.timeout = timer.newTimeout(key, REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public boolean complete(long txnId) {
+            Request request = requests.remove(new Key(txnId));
+            if (null == request) {
+                return false;
+            }
+            request.timeout.cancel();
+            return true;
+        }
+
+        @Override
+        public void shutdown() {
+            timer.stop();
+        }
+    }
+
+    /**
+     * A single periodic sweep of the requests.
+     */
+    static class SweepTracker implements RequestTracker, TimerTask,
+            ConcurrentLongHashMap.EntryProcessor<Request> {
+        final ConcurrentLongHashMap<Request> requests = new ConcurrentLongHashMap<Request>();
+        final HashedWheelTimer timer = new HashedWheelTimer(100, TimeUnit.MILLISECONDS, 1024);
+        long nowNanos;
+
+        SweepTracker() {
+            timer.newTimeout(this, REQUEST_TIMEOUT_MILLIS / 2, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void request(long txnId) {
+            requests.put(txnId, new Request(txnId));
+        }
+
+        @Override
+        public boolean complete(long txnId) {
+            return null != requests.remove(txnId);
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            nowNanos = System.nanoTime();
+            requests.forEach(this);
+            try {
+                timer.newTimeout(this, REQUEST_TIMEOUT_MILLIS / 2, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException ise) {
+                // stopped
+            }
+        }
+
+        @Override
+        public void process(long txnId, Request request) {
+            if (nowNanos - request.requestTimeNanos >= TimeUnit.MILLISECONDS.toNanos(REQUEST_TIMEOUT_MILLIS)) {
+                requests.remove(txnId, request);
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            timer.stop();
+        }
+    }
+
+    static double run(final RequestTracker tracker, int numThreads, final int numOutstanding,
+                      final long numRequests) throws InterruptedException {
+        final AtomicLong txnIdGenerator = new AtomicLong(0);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    long[] window = new long[numOutstanding];
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (long j = 0; j < numRequests; j++) {
+                        int slot = (int) (j % numOutstanding);
+                        if (j >= numOutstanding) {
+                            tracker.complete(window[slot]);
+                        }
+                        window[slot] = txnIdGenerator.incrementAndGet();
+                        tracker.request(window[slot]);
+                    }
+                    for (long txnId : window) {
+                        tracker.complete(txnId);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        tracker.shutdown();
+        return (double) numThreads * numRequests * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @param args
+     */
+    public static void main(String[] args) throws ParseException, InterruptedException {
+        Options options = new Options();
+        options.addOption("threads", true, "Number of threads issuing requests (default 4)");
+        options.addOption("outstanding", true, "Number of outstanding requests per thread (default 1000)");
+        options.addOption("requests", true, "Number of requests per thread (default 2000000)");
+        options.addOption("rounds", true, "Number of rounds, the first one warms up (default 3)");
+        options.addOption("help", false, "This message");
+
+        CommandLineParser parser = new PosixParser();
+        CommandLine cmd = parser.parse(options, args);
+
+        if (cmd.hasOption("help")) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("BenchRequestTimeouts <options>", options);
+            System.exit(-1);
+        }
+
+        int numThreads = Integer.valueOf(cmd.getOptionValue("threads", "4"));
+        int numOutstanding = Integer.valueOf(cmd.getOptionValue("outstanding", "1000"));
+        long numRequests = Long.valueOf(cmd.getOptionValue("requests", "2000000"));
+        int numRounds = Integer.valueOf(cmd.getOptionValue("rounds", "3"));
+
+        for (int round = 0; round < numRounds; round++) {
+            double timerRate = run(new TimerTracker(), numThreads, numOutstanding, numRequests);
+            double sweepRate = run(new SweepTracker(), numThreads, numOutstanding, numRequests);
+            LOG.info("Round {}{} : {} requests/sec with a timeout per request, {} requests/sec with a timeout sweep",
+                    new Object[] { round, 0 == round ? " (warm up)" : "", (long) timerRate, (long) sweepRate });
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.StatsLogger;
+
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
+
+/**
+ * Decides how long the journal groups entries before flushing them, and how
+ * large a group may grow, from the measured force write latency and entry
+ * arrival rate instead of fixed thresholds.
+ *
+ * <p>
+ * An add waits for its group to be flushed and then for the force write of
+ * the group, so the time left to group entries is the target add latency minus
+ * the force write latency. The force write latency is tracked as a smoothed
+ * mean plus four times its smoothed deviation, which approximates a high
+ * percentile of it. If less than one entry is expected to arrive in the time
+ * left, waiting doesn't group anything and entries are flushed as soon as the
+ * queue is empty. Otherwise a group is flushed once it holds the entries
+ * expected to arrive within the time left, or when its oldest entry has waited
+ * that long. The configured max group wait, max buffered entries and max buffered
+ * bytes bound the decisions.
+ * </p>
+ * <p>
+ * Arrivals are recorded and decisions are updated by the journal thread, force
+ * write latencies are recorded by the force write thread.
+ * </p>
+ */
+class AdaptiveGroupCommitPolicy {
+
+    // weight of new samples in the smoothed averages, as a shift
+    private static final int AVG_SHIFT = 3;
+    private static final int DEV_SHIFT = 2;
+    // number of deviations above the mean to estimate high percentiles
+    private static final int DEV_MULTIPLIER = 4;
+
+    private final long targetLatencyNanos;
+    private final long maxGroupWaitNanos;
+    private final long maxBufferedEntries;
+    private final long maxBufferedBytes;
+
+    // force write latency estimates, only updated by the force write thread
+    private volatile long avgForceWriteNanos = 0L;
+    private volatile long devForceWriteNanos = 0L;
+    private boolean forceWriteSampled = false;
+
+    // arrival estimates, only updated by the journal thread
+    private long lastArrivalNanos = -1L;
+    private volatile long avgInterArrivalNanos = -1L;
+    private volatile long avgEntrySize = 0L;
+
+    // decisions
+    private volatile long groupWaitNanos;
+    private volatile long bufferedEntriesThreshold;
+    private volatile long bufferedWritesThreshold;
+
+    /**
+     * Create an adaptive group commit policy.
+     *
+     * @param targetLatencyNanos
+     *          add latency the policy aims at.
+     * @param maxGroupWaitNanos
+     *          max time to wait for grouping entries.
+     * @param maxBufferedEntries
+     *          max number of entries in a group, zero or less if unbounded.
+     * @param maxBufferedBytes
+     *          max bytes in a group.
+     */
+    AdaptiveGroupCommitPolicy(long targetLatencyNanos,
+                              long maxGroupWaitNanos,
+                              long maxBufferedEntries,
+                              long maxBufferedBytes) {
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.maxGroupWaitNanos = Math.max(0L, maxGroupWaitNanos);
+        this.maxBufferedEntries = maxBufferedEntries > 0 ? maxBufferedEntries : Long.MAX_VALUE;
+        this.maxBufferedBytes = maxBufferedBytes;
+        // until anything is measured, don't wait
+        this.groupWaitNanos = 0L;
+        this.bufferedEntriesThreshold = 1L;
+        this.bufferedWritesThreshold = maxBufferedBytes;
+    }
+
+    /**
+     * Record the arrival of an entry.
+     *
+     * @param enqueueTimeNanos
+     *          time when the entry was added to the journal queue.
+     * @param entrySize
+     *          size of the entry.
+     */
+    void recordArrival(long enqueueTimeNanos, int entrySize) {
+        if (lastArrivalNanos >= 0) {
+            // an idle period only tells that nothing can be grouped
+            long interArrival = Math.min(targetLatencyNanos,
+                    Math.max(0L, enqueueTimeNanos - lastArrivalNanos));
+            long avg = avgInterArrivalNanos;
+            if (avg < 0) {
+                avgInterArrivalNanos = interArrival;
+            } else {
+                avgInterArrivalNanos = avg + ((interArrival - avg) >> AVG_SHIFT);
+            }
+        }
+        lastArrivalNanos = Math.max(lastArrivalNanos, enqueueTimeNanos);
+        long size = avgEntrySize;
+        avgEntrySize = 0 == size ? entrySize : size + ((entrySize - size) >> AVG_SHIFT);
+    }
+
+    /**
+     * Record the latency of a force write.
+     *
+     * @param latencyNanos
+     *          force write latency.
+     */
+    void recordForceWrite(long latencyNanos) {
+        if (!forceWriteSampled) {
+            avgForceWriteNanos = latencyNanos;
+            devForceWriteNanos = latencyNanos >> 1;
+            forceWriteSampled = true;
+            return;
+        }
+        long avg = avgForceWriteNanos;
+        long err = latencyNanos - avg;
+        avgForceWriteNanos = avg + (err >> AVG_SHIFT);
+        long dev = devForceWriteNanos;
+        devForceWriteNanos = dev + ((Math.abs(err) - dev) >> DEV_SHIFT);
+    }
+
+    /**
+     * Update the decisions from the current estimates.
+     */
+    void update() {
+        long waitNanos = Math.min(maxGroupWaitNanos,
+                Math.max(0L, targetLatencyNanos - getEstimatedForceWriteNanos()));
+        long interArrival = avgInterArrivalNanos;
+        long expectedEntries;
+        if (interArrival < 0) {
+            expectedEntries = 0L;
+        } else {
+            expectedEntries = waitNanos / Math.max(1L, interArrival);
+        }
+        if (expectedEntries < 1) {
+            // nothing would be grouped by waiting
+            groupWaitNanos = 0L;
+            bufferedEntriesThreshold = 1L;
+            bufferedWritesThreshold = maxBufferedBytes;
+            return;
+        }
+        long entries = Math.min(expectedEntries, maxBufferedEntries);
+        groupWaitNanos = waitNanos;
+        bufferedEntriesThreshold = entries;
+        bufferedWritesThreshold = Math.max(1L, Math.min(maxBufferedBytes, entries * (4 + avgEntrySize)));
+    }
+
+    /**
+     * @return estimated high percentile of the force write latency.
+     */
+    long getEstimatedForceWriteNanos() {
+        return avgForceWriteNanos + DEV_MULTIPLIER * devForceWriteNanos;
+    }
+
+    /**
+     * @return max time to wait for grouping entries.
+     */
+    long getGroupWaitNanos() {
+        return groupWaitNanos;
+    }
+
+    /**
+     * @return number of entries after which a group is flushed.
+     */
+    long getBufferedEntriesThreshold() {
+        return bufferedEntriesThreshold;
+    }
+
+    /**
+     * @return number of bytes after which a group is flushed.
+     */
+    long getBufferedWritesThreshold() {
+        return bufferedWritesThreshold;
+    }
+
+    /**
+     * @return estimated entry arrival rate, in entries per second.
+     */
+    long getArrivalRate() {
+        long interArrival = avgInterArrivalNanos;
+        if (interArrival < 0) {
+            return 0L;
+        }
+        return TimeUnit.SECONDS.toNanos(1) / Math.max(1L, interArrival);
+    }
+
+    /**
+     * Expose the decisions and estimates as gauges.
+     *
+     * @param statsLogger
+     *          stats logger to register gauges.
+     * @param journalIndex
+     *          index of the journal, appended to gauge names.
+     */
+    void registerGauges(StatsLogger statsLogger, int journalIndex) {
+        statsLogger.registerGauge(String.format("%s-%d", JOURNAL_GROUP_COMMIT_WAIT_MICROS, journalIndex),
+                new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return TimeUnit.NANOSECONDS.toMicros(getGroupWaitNanos());
+            }
+        });
+        statsLogger.registerGauge(String.format("%s-%d", JOURNAL_GROUP_COMMIT_BATCH_ENTRIES, journalIndex),
+                new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return getBufferedEntriesThreshold();
+            }
+        });
+        statsLogger.registerGauge(String.format("%s-%d", JOURNAL_GROUP_COMMIT_BATCH_BYTES, journalIndex),
+                new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return getBufferedWritesThreshold();
+            }
+        });
+        statsLogger.registerGauge(String.format("%s-%d", JOURNAL_GROUP_COMMIT_FORCE_WRITE_MICROS, journalIndex),
+                new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return TimeUnit.NANOSECONDS.toMicros(getEstimatedForceWriteNanos());
+            }
+        });
+        statsLogger.registerGauge(String.format("%s-%d", JOURNAL_GROUP_COMMIT_ARRIVAL_RATE, journalIndex),
+                new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return getArrivalRate();
+            }
+        });
+    }
+}
@@ -59,6 +59,12 @@ public interface BookKeeperServerStats {
     String READ_ENTRY_LONG_POLL_PRE_WAIT = "READ_ENTRY_LONG_POLL_PRE_WAIT";
     String READ_ENTRY_LONG_POLL_WAIT = "READ_ENTRY_LONG_POLL_WAIT";
     String READ_ENTRY_LONG_POLL_READ = "READ_ENTRY_LONG_POLL_READ";
+    String RANGE_READ_ENTRY_REQUEST = "RANGE_READ_ENTRY_REQUEST";
+    String RANGE_READ_ENTRY = "RANGE_READ_ENTRY";
+    String RANGE_ADD_ENTRY_REQUEST = "RANGE_ADD_ENTRY_REQUEST";
+    String RANGE_ADD_ENTRY = "RANGE_ADD_ENTRY";
+    String CHECK_ENTRIES_REQUEST = "CHECK_ENTRIES_REQUEST";
+    String CHECK_ENTRIES = "CHECK_ENTRIES";
 
     //
     // Bookie Stats (scoped under SERVER_SCOPE)
@@ -68,6 +74,7 @@ public interface BookKeeperServerStats {
     String BOOKIE_ADD_ENTRY = "BOOKIE_ADD_ENTRY";
     String BOOKIE_RECOVERY_ADD_ENTRY = "BOOKIE_RECOVERY_ADD_ENTRY";
     String BOOKIE_READ_ENTRY = "BOOKIE_READ_ENTRY";
+    String BOOKIE_CHECK_ENTRY = "BOOKIE_CHECK_ENTRY";
     String BOOKIE_READ_LAST_CONFIRMED = "BOOKIE_READ_LAST_CONFIRMED";
     String BOOKIE_ADD_ENTRY_BYTES = "BOOKIE_ADD_ENTRY_BYTES";
     String BOOKIE_READ_ENTRY_BYTES = "BOOKIE_READ_ENTRY_BYTES";
@@ -92,6 +99,9 @@ public interface BookKeeperServerStats {
     String JOURNAL_FLUSH_LATENCY = "JOURNAL_FLUSH_LATENCY";
     String JOURNAL_CREATION_LATENCY = "JOURNAL_CREATION_LATENCY";
     String JOURNAL_FLUSH_IN_MEM_ADD = "JOURNAL_FLUSH_IN_MEM_ADD";
+    String JOURNAL_QUEUE_DRAIN_BATCH_SIZE = "JOURNAL_QUEUE_DRAIN_BATCH_SIZE";
+    String JOURNAL_QUEUE_WAIT = "JOURNAL_QUEUE_WAIT";
+    String JOURNAL_GATHERING_WRITE_CALLS = "JOURNAL_GATHERING_WRITE_CALLS";
 
     // Counters
     String JOURNAL_WRITE_BYTES = "JOURNAL_WRITE_BYTES";
@@ -102,6 +112,18 @@ public interface BookKeeperServerStats {
     String JOURNAL_NUM_FLUSH_MAX_OUTSTANDING_BYTES = "JOURNAL_NUM_FLUSH_MAX_OUTSTANDING_BYTES";
     String JOURNAL_NUM_FLUSH_MAX_WAIT = "JOURNAL_NUM_FLUSH_MAX_WAIT";
 
+    // Gauges
+    String JOURNAL_GROUP_COMMIT_WAIT_MICROS = "JOURNAL_GROUP_COMMIT_WAIT_MICROS";
+    String JOURNAL_GROUP_COMMIT_BATCH_ENTRIES = "JOURNAL_GROUP_COMMIT_BATCH_ENTRIES";
+    String JOURNAL_GROUP_COMMIT_BATCH_BYTES = "JOURNAL_GROUP_COMMIT_BATCH_BYTES";
+    String JOURNAL_GROUP_COMMIT_FORCE_WRITE_MICROS = "JOURNAL_GROUP_COMMIT_FORCE_WRITE_MICROS";
+    String JOURNAL_GROUP_COMMIT_ARRIVAL_RATE = "JOURNAL_GROUP_COMMIT_ARRIVAL_RATE";
+    String JOURNAL_REPLAY_TIME_MS = "JOURNAL_REPLAY_TIME_MS";
+    String JOURNAL_REPLAY_ENTRIES = "JOURNAL_REPLAY_ENTRIES";
+    String JOURNAL_REPLAY_BYTES = "JOURNAL_REPLAY_BYTES";
+    String JOURNAL_REPLAY_ENTRIES_PER_SEC = "JOURNAL_REPLAY_ENTRIES_PER_SEC";
+    String JOURNAL_REPLAY_BYTES_PER_SEC = "JOURNAL_REPLAY_BYTES_PER_SEC";
+
     //
     // Ledger Storage Stats (scoped under SERVER_SCOPE)
     //
@@ -115,6 +137,9 @@ public interface BookKeeperServerStats {
     String SKIP_LIST_GET_ENTRY = "SKIP_LIST_GET_ENTRY";
     String SKIP_LIST_PUT_ENTRY = "SKIP_LIST_PUT_ENTRY";
     String SKIP_LIST_SNAPSHOT = "SKIP_LIST_SNAPSHOT";
+    String SKIP_LIST_FLUSH = "SKIP_LIST_FLUSH";
+    /** Ledger Index Stats **/
+    String LEDGER_INDEX_FLUSH = "LEDGER_INDEX_FLUSH";
     /** GC Stats **/
     String GC_NUM_LEDGERS_DELETED_PER_GC = "GC_NUM_LEDGERS_DELETED_PER_GC";
     String GC_NUM_ENTRYLOGS_DELETED_PER_COMPACTION = "GC_NUM_ENTRYLOGS_DELETED_PER_COMPACTION";
@@ -137,6 +162,18 @@ public interface BookKeeperServerStats {
     String INDEX_INMEM_ILLEGAL_STATE_DELETE = "INDEX_INMEM_ILLEGAL_STATE_DELETE";
     String BUFFERED_READER_NUM_READ_REQUESTS = "BUFFERED_READER_NUM_READ_REQUESTS";
     String BUFFERED_READER_NUM_READ_CACHE_HITS = "BUFFERED_READER_NUM_READ_CACHE_HITS";
+    /** Read Cache Counters **/
+    String READ_CACHE_HITS = "READ_CACHE_HITS";
+    String READ_CACHE_MISSES = "READ_CACHE_MISSES";
+    String READ_CACHE_EVICTED_ENTRIES = "READ_CACHE_EVICTED_ENTRIES";
+    /** Read Ahead Counters **/
+    String READ_AHEAD_NUM_READS = "READ_AHEAD_NUM_READS";
+    String READ_AHEAD_ENTRIES = "READ_AHEAD_ENTRIES";
+    String READ_AHEAD_HITS = "READ_AHEAD_HITS";
+    /** Entry Logger Counters **/
+    String ENTRYLOG_MMAP_READS = "ENTRYLOG_MMAP_READS";
+    String ENTRYLOG_MMAP_REGIONS_MAPPED = "ENTRYLOG_MMAP_REGIONS_MAPPED";
+    String ENTRYLOG_MMAP_REGIONS_EVICTED = "ENTRYLOG_MMAP_REGIONS_EVICTED";
     /** SkipList Related Counters **/
     String SKIP_LIST_FLUSH_BYTES = "SKIP_LIST_FLUSH_BYTES";
     String SKIP_LIST_THROTTLING = "SKIP_LIST_THROTTLING";
@@ -155,6 +192,15 @@ public interface BookKeeperServerStats {
     String NUM_PENDING_ENTRY_LOG_FILES = "NUM_PENDING_ENTRY_LOG_FILES";
     String LEAST_UNFLUSHED_ENTRYLOG_ID = "LEAST_UNFLUSHED_ENTRYLOG_ID";
     String CURRENT_ENTRYLOG_ID = "CURRENT_ENTRYLOG_ID";
+    String ENTRYLOG_MMAP_MAPPED_BYTES = "ENTRYLOG_MMAP_MAPPED_BYTES";
+    /** Read Cache Gauges **/
+    String READ_CACHE_SIZE = "READ_CACHE_SIZE";
+    String READ_CACHE_COUNT = "READ_CACHE_COUNT";
+    /** SkipList Gauges **/
+    String SKIP_LIST_PENDING_SNAPSHOTS = "SKIP_LIST_PENDING_SNAPSHOTS";
+    /** Ledger Index Gauges **/
+    String LEDGER_INDEX_NUM_RUNS = "LEDGER_INDEX_NUM_RUNS";
+    String LEDGER_INDEX_MEMTABLE_SIZE = "LEDGER_INDEX_MEMTABLE_SIZE";
     /** GC Gauges **/
     String GC_TOTAL_SCANNED_BYTES = "GC_TOTAL_SCANNED_BYTES";
     String GC_TOTAL_SCANNED_ENTRYLOG_FILES = "GC_TOTAL_SCANNED_ENTRYLOG_FILES";
@@ -32,6 +32,7 @@ import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Observable;
@@ -45,8 +46,11 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.bookkeeper.bookie.Journal.JournalScanner;
@@ -65,6 +69,8 @@ import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.util.DiskChecker;
 import org.apache.bookkeeper.util.IOUtils;
 import org.apache.bookkeeper.util.MathUtils;
+import org.apache.bookkeeper.util.OrderedSafeExecutor;
+import org.apache.bookkeeper.util.SafeRunnable;
 import org.apache.bookkeeper.zookeeper.BoundExponentialBackoffRetryPolicy;
 import org.apache.bookkeeper.zookeeper.ZooKeeperClient;
 import org.apache.commons.io.FileUtils;
@@ -95,19 +101,22 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
 
     static Logger LOG = LoggerFactory.getLogger(Bookie.class);
 
-    final File journalDirectory;
+    final File[] journalDirectories;
     final ServerConfiguration conf;
 
     SyncThread syncThread;
     LedgerManagerFactory activeLedgerManagerFactory;
     ActiveLedgerManager activeLedgerManager;
     LedgerStorage ledgerStorage;
-    Journal journal;
+    // journals of the bookie, entries are dispatched to journals by ledger id
+    final List<Journal> journals;
+    CheckpointSource checkpointSource;
 
     HandleFactory handles;
 
     static final long METAENTRY_ID_LEDGER_KEY = -0x1000;
     static final long METAENTRY_ID_FENCE_KEY  = -0x2000;
+    static final long JOURNAL_ALIVE_CHECK_INTERVAL_MS = 100;
 
     // ZK registration path for this bookie
     private final String bookieRegistrationPath;
@@ -139,9 +148,17 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
 
     // Expose Stats
     private final StatsLogger statsLogger;
+
+    // max bytes of journal records read but not replayed yet when replaying in parallel
+    static final int MAX_OUTSTANDING_REPLAY_BYTES = 64 * 1024 * 1024;
+    // journal replay figures, reported as gauges
+    private volatile long journalReplayTimeMs = 0L;
+    private final AtomicLong journalReplayEntries = new AtomicLong(0L);
+    private final AtomicLong journalReplayBytes = new AtomicLong(0L);
     private final OpStatsLogger addEntryStats;
     private final OpStatsLogger recoveryAddEntryStats;
     private final OpStatsLogger readEntryStats;
+    private final OpStatsLogger checkEntryStats;
     private final OpStatsLogger readLastConfirmedStats;
 
     public static class NoLedgerException extends IOException {
@@ -255,7 +272,9 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
             allLedgerDirs.addAll(indexDirsManager.getAllLedgerDirs());
         }
         if (zk == null) { // exists only for testing, just make sure directories are correct
-            checkDirectoryStructure(journalDirectory);
+            for (File journalDirectory : journalDirectories) {
+                checkDirectoryStructure(journalDirectory);
+            }
             for (File dir : allLedgerDirs) {
                     checkDirectoryStructure(dir);
             }
@@ -275,14 +294,16 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
                 newEnv = true;
             }
             List<File> missedCookieDirs = new ArrayList<File>();
-            checkDirectoryStructure(journalDirectory);
+            for (File journalDirectory : journalDirectories) {
+                checkDirectoryStructure(journalDirectory);
 
-            // try to read cookie from journal directory
-            try {
-                Cookie journalCookie = Cookie.readFromDirectory(journalDirectory);
-                journalCookie.verify(masterCookie);
-            } catch (FileNotFoundException fnf) {
-                missedCookieDirs.add(journalDirectory);
+                // try to read cookie from journal directory
+                try {
+                    Cookie journalCookie = Cookie.readFromDirectory(journalDirectory);
+                    journalCookie.verify(masterCookie);
+                } catch (FileNotFoundException fnf) {
+                    missedCookieDirs.add(journalDirectory);
+                }
             }
             for (File dir : allLedgerDirs) {
                 checkDirectoryStructure(dir);
@@ -302,7 +323,9 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
             if (newEnv) {
                 if (missedCookieDirs.size() > 0) {
                     LOG.debug("Directories missing cookie file are {}", missedCookieDirs);
-                    masterCookie.writeToDirectory(journalDirectory);
+                    for (File journalDirectory : journalDirectories) {
+                        masterCookie.writeToDirectory(journalDirectory);
+                    }
                     for (File dir : allLedgerDirs) {
                         masterCookie.writeToDirectory(dir);
                     }
@@ -395,7 +418,8 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
         this.bookieReadonlyRegistrationPath =
             this.bookieRegistrationPath + READONLY;
         this.conf = conf;
-        this.journalDirectory = getCurrentDirectory(conf.getJournalDir());
+        this.journalDirectories = getCurrentDirectories(conf.getJournalDirs());
+        this.journals = new ArrayList<Journal>(journalDirectories.length);
         this.ledgerDirsManager = new LedgerDirsManager(conf, conf.getLedgerDirs(),
                 statsLogger.scope(BOOKIE_SCOPE).scope(LD_LEDGER_SCOPE));
         File[] idxDirs = conf.getIndexDirs();
@@ -409,6 +433,7 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
         this.addEntryStats = statsLogger.getOpStatsLogger(BOOKIE_ADD_ENTRY);
         this.recoveryAddEntryStats = statsLogger.getOpStatsLogger(BOOKIE_RECOVERY_ADD_ENTRY);
         this.readEntryStats = statsLogger.getOpStatsLogger(BOOKIE_READ_ENTRY);
+        this.checkEntryStats = statsLogger.getOpStatsLogger(BOOKIE_CHECK_ENTRY);
         this.readLastConfirmedStats = statsLogger.getOpStatsLogger(BOOKIE_READ_LAST_CONFIRMED);
         // 1 : up, 0 : readonly, -1 : unregistered
         statsLogger.registerGauge(SERVER_STATUS,
@@ -423,6 +448,75 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
                         return zkRegistered.get() ? (readOnly.get() ? 0 : 1) : -1;
                     }
                 });
+        statsLogger.registerGauge(JOURNAL_REPLAY_TIME_MS,
+                new Gauge<Number>() {
+                    @Override
+                    public Number getDefaultValue() {
+                        return 0;
+                    }
+
+                    @Override
+                    public Number getSample() {
+                        return journalReplayTimeMs;
+                    }
+                });
+        statsLogger.registerGauge(JOURNAL_REPLAY_ENTRIES,
+                new Gauge<Number>() {
+                    @Override
+                    public Number getDefaultValue() {
+                        return 0;
+                    }
+
+                    @Override
+                    public Number getSample() {
+                        return journalReplayEntries.get();
+                    }
+                });
+        statsLogger.registerGauge(JOURNAL_REPLAY_BYTES,
+                new Gauge<Number>() {
+                    @Override
+                    public Number getDefaultValue() {
+                        return 0;
+                    }
+
+                    @Override
+                    public Number getSample() {
+                        return journalReplayBytes.get();
+                    }
+                });
+        statsLogger.registerGauge(JOURNAL_REPLAY_ENTRIES_PER_SEC,
+                new Gauge<Number>() {
+                    @Override
+                    public Number getDefaultValue() {
+                        return 0;
+                    }
+
+                    @Override
+                    public Number getSample() {
+                        return perSecond(journalReplayEntries.get(), journalReplayTimeMs);
+                    }
+                });
+        statsLogger.registerGauge(JOURNAL_REPLAY_BYTES_PER_SEC,
+                new Gauge<Number>() {
+                    @Override
+                    public Number getDefaultValue() {
+                        return 0;
+                    }
+
+                    @Override
+                    public Number getSample() {
+                        return perSecond(journalReplayBytes.get(), journalReplayTimeMs);
+                    }
+                });
+    }
+
+    @VisibleForTesting
+    long getJournalReplayEntries() {
+        return journalReplayEntries.get();
+    }
+
+    private static long perSecond(long count, long elapsedMs) {
+        return count * 1000 / Math.max(1L, elapsedMs);
     }
 
     private void checkDiskSpace() throws NoWritableLedgerDirException,
@@ -447,59 +541,192 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
         return Bookie.getBookieAddress(conf).toString();
     }
 
+    /**
+     * Get the journal that records the entries of the given ledger.
+     *
+     * @param ledgerId
+     *          ledger id
+     * @return journal
+     */
+    Journal getJournal(long ledgerId) {
+        return journals.get(MathUtils.signSafeMod(ledgerId, journals.size()));
+    }
+
+    /**
+     * Replay a journal record to the ledger storage.
+     *
+     * @param journalVersion
+     *          version of the journal holding the record
+     * @param recBuff
+     *          record, starting with its ledger id and entry id
+     */
+    private void replayJournalRecord(int journalVersion, ByteBuffer recBuff) throws IOException {
+        long ledgerId = recBuff.getLong();
+        long entryId = recBuff.getLong();
+        try {
+            LOG.debug("Replay journal - ledger id : {}, entry id : {}.", ledgerId, entryId);
+            if (entryId == METAENTRY_ID_LEDGER_KEY) {
+                if (journalVersion >= JournalChannel.V3) {
+                    int masterKeyLen = recBuff.getInt();
+                    byte[] masterKey = new byte[masterKeyLen];
+
+                    recBuff.get(masterKey);
+                    masterKeyCache.put(ledgerId, masterKey);
+                } else {
+                    throw new IOException("Invalid journal. Contains journalKey "
+                            + " but layout version (" + journalVersion
+                            + ") is too old to hold this");
+                }
+            } else if (entryId == METAENTRY_ID_FENCE_KEY) {
+                if (journalVersion >= JournalChannel.V4) {
+                    byte[] key = masterKeyCache.get(ledgerId);
+                    if (key == null) {
+                        key = ledgerStorage.readMasterKey(ledgerId);
+                    }
+                    LedgerDescriptor handle = handles.getHandle(ledgerId, key);
+                    handle.setFenced();
+                } else {
+                    throw new IOException("Invalid journal. Contains fenceKey "
+                            + " but layout version (" + journalVersion
+                            + ") is too old to hold this");
+                }
+            } else {
+                byte[] key = masterKeyCache.get(ledgerId);
+                if (key == null) {
+                    key = ledgerStorage.readMasterKey(ledgerId);
+                }
+                LedgerDescriptor handle = handles.getHandle(ledgerId, key);
+
+                recBuff.rewind();
+                handle.addEntry(recBuff);
+            }
+        } catch (NoLedgerException nsle) {
+            LOG.debug("Skip replaying entries of ledger {} since it was deleted.", ledgerId);
+        } catch (BookieException be) {
+            throw new IOException(be);
+        }
+    }
+
     void readJournal() throws IOException, BookieException {
         long startTs = MathUtils.now();
-        journal.replay(new JournalScanner() {
+        journalReplayEntries.set(0L);
+        journalReplayBytes.set(0L);
+        int numReplayThreads = conf.getNumJournalReplayThreads();
+        if (numReplayThreads > 1) {
+            readJournalInParallel(numReplayThreads);
+        } else {
+            JournalScanner scanner = new JournalScanner() {
+                @Override
+                public void process(int journalVersion, long offset, ByteBuffer recBuff) throws IOException {
+                    journalReplayEntries.incrementAndGet();
+                    journalReplayBytes.addAndGet(recBuff.remaining());
+                    replayJournalRecord(journalVersion, recBuff);
+                }
+            };
+            // entries of a ledger are always recorded in the same journal,
+            // so replaying journals one after another preserves the order per ledger
+            for (Journal journal : journals) {
+                journal.replay(scanner);
+            }
+        }
+        journalReplayTimeMs = MathUtils.now() - startTs;
+        LOG.info("Finished replaying journal in {} ms : {} entries ({} entries/s), {} bytes ({} bytes/s).",
+                new Object[] { journalReplayTimeMs,
+                               journalReplayEntries.get(), perSecond(journalReplayEntries.get(), journalReplayTimeMs),
+                               journalReplayBytes.get(), perSecond(journalReplayBytes.get(), journalReplayTimeMs) });
+    }
+
+    /**
+     * Replay the journals concurrently, one scanning thread per journal. The records
+     * are applied to the ledger storage by a pool of replay threads, the records of a
+     * ledger always by the same thread so they are applied in the order they were
+     * journaled. The scanners stop reading once the records not applied yet hold
+     * {@link #MAX_OUTSTANDING_REPLAY_BYTES}.
+     */
+    private void readJournalInParallel(int numReplayThreads) throws IOException {
+        final OrderedSafeExecutor replayExecutor = OrderedSafeExecutor.newBuilder()
+                .name("BookieJournalReplay").numThreads(numReplayThreads).build();
+        final Semaphore outstandingBytes = new Semaphore(MAX_OUTSTANDING_REPLAY_BYTES);
+        final AtomicReference<IOException> replayFailure = new AtomicReference<IOException>(null);
+        final JournalScanner scanner = new JournalScanner() {
             @Override
-            public void process(int journalVersion, long offset, ByteBuffer recBuff) throws IOException {
-                long ledgerId = recBuff.getLong();
-                long entryId = recBuff.getLong();
+            public void process(final int journalVersion, long offset, ByteBuffer recBuff) throws IOException {
+                IOException failure = replayFailure.get();
+                if (null != failure) {
+                    throw failure;
+                }
+                // the scanner reuses the record buffer
+                final ByteBuffer record = ByteBuffer.allocate(recBuff.remaining());
+                record.put(recBuff);
+                record.flip();
+                final int permits = Math.min(record.capacity(), MAX_OUTSTANDING_REPLAY_BYTES);
                 try {
-                    LOG.debug("Replay journal - ledger id : {}, entry id : {}.", ledgerId, entryId);
-                    if (entryId == METAENTRY_ID_LEDGER_KEY) {
-                        if (journalVersion >= JournalChannel.V3) {
-                            int masterKeyLen = recBuff.getInt();
-                            byte[] masterKey = new byte[masterKeyLen];
-
-                            recBuff.get(masterKey);
-                            masterKeyCache.put(ledgerId, masterKey);
-                        } else {
-                            throw new IOException("Invalid journal. Contains journalKey "
-                                    + " but layout version (" + journalVersion
-                                    + ") is too old to hold this");
-                        }
-                    } else if (entryId == METAENTRY_ID_FENCE_KEY) {
-                        if (journalVersion >= JournalChannel.V4) {
-                            byte[] key = masterKeyCache.get(ledgerId);
-                            if (key == null) {
-                                key = ledgerStorage.readMasterKey(ledgerId);
+                    outstandingBytes.acquire(permits);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while replaying journal", ie);
+                }
+                journalReplayEntries.incrementAndGet();
+                journalReplayBytes.addAndGet(record.remaining());
+                replayExecutor.submitOrdered(record.getLong(0), new SafeRunnable() {
+                    @Override
+                    public void safeRun() {
+                        try {
+                            if (null == replayFailure.get()) {
+                                replayJournalRecord(journalVersion, record);
                             }
-                            LedgerDescriptor handle = handles.getHandle(ledgerId, key);
-                            handle.setFenced();
-                        } else {
-                            throw new IOException("Invalid journal. Contains fenceKey "
-                                    + " but layout version (" + journalVersion
-                                    + ") is too old to hold this");
+                        } catch (IOException ioe) {
+                            replayFailure.compareAndSet(null, ioe);
+                        } catch (RuntimeException re) {
+                            replayFailure.compareAndSet(null, new IOException(re));
+                        } finally {
+                            outstandingBytes.release(permits);
                         }
-                    } else {
-                        byte[] key = masterKeyCache.get(ledgerId);
-                        if (key == null) {
-                            key = ledgerStorage.readMasterKey(ledgerId);
-                        }
-                        LedgerDescriptor handle = handles.getHandle(ledgerId, key);
+                    }
+                });
+            }
+        };
 
-                        recBuff.rewind();
-                        handle.addEntry(recBuff);
+        ExecutorService scanExecutor = Executors.newFixedThreadPool(journals.size(),
+                new ThreadFactoryBuilder().setNameFormat("BookieJournalScanner-%d").build());
+        try {
+            List<Future<Void>> scans = new ArrayList<Future<Void>>(journals.size());
+            for (final Journal journal : journals) {
+                scans.add(scanExecutor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        journal.replay(scanner);
+                        return null;
+                    }
+                }));
+            }
+            try {
+                for (Future<Void> scan : scans) {
+                    try {
+                        scan.get();
+                    } catch (ExecutionException ee) {
+                        if (ee.getCause() instanceof IOException) {
+                            replayFailure.compareAndSet(null, (IOException) ee.getCause());
+                        } else {
+                            replayFailure.compareAndSet(null, new IOException(ee.getCause()));
+                        }
                     }
-                } catch (NoLedgerException nsle) {
-                    LOG.debug("Skip replaying entries of ledger {} since it was deleted.", ledgerId);
-                } catch (BookieException be) {
-                    throw new IOException(be);
                 }
+                // wait until all the scanned records are replayed
+                outstandingBytes.acquire(MAX_OUTSTANDING_REPLAY_BYTES);
+                outstandingBytes.release(MAX_OUTSTANDING_REPLAY_BYTES);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while replaying journal", ie);
             }
-        });
-        long elapsedTs = MathUtils.now() - startTs;
-        LOG.info("Finished replaying journal in {} ms.", elapsedTs);
+        } finally {
+            scanExecutor.shutdown();
+            replayExecutor.shutdown();
+        }
+        IOException failure = replayFailure.get();
+        if (null != failure) {
+            throw failure;
+        }
     }
 
     public void initialize() throws IOException, KeeperException, InterruptedException, BookieException {
@@ -510,21 +737,33 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
         activeLedgerManagerFactory = LedgerManagerFactory.newLedgerManagerFactory(conf, this.zk);
         activeLedgerManager = activeLedgerManagerFactory.newActiveLedgerManager();
 
-        // instantiate the journal
-        journal = new Journal(conf, ledgerDirsManager, statsLogger);
+        // instantiate the journals
+        journals.clear();
+        File[] journalDirs = conf.getJournalDirs();
+        for (int i = 0; i < journalDirs.length; i++) {
+            journals.add(new Journal(i, journalDirs[i], conf, ledgerDirsManager, statsLogger));
+        }
+        if (journals.size() == 1) {
+            checkpointSource = journals.get(0);
+        } else {
+            checkpointSource = new CheckpointSourceList(journals);
+        }
 
         // Check the type of storage.
-        if (conf.getSortedLedgerStorageEnabled()) {
+        if (conf.getIndexedLedgerStorageEnabled()) {
+            ledgerStorage = new IndexedLedgerStorage(conf, activeLedgerManager,
+                ledgerDirsManager, indexDirsManager, checkpointSource, statsLogger);
+        } else if (conf.getSortedLedgerStorageEnabled()) {
             ledgerStorage = new SortedLedgerStorage(conf, activeLedgerManager,
-                ledgerDirsManager, indexDirsManager, journal, statsLogger);
+                ledgerDirsManager, indexDirsManager, checkpointSource, statsLogger);
         } else {
             ledgerStorage = new InterleavedLedgerStorage(conf, activeLedgerManager,
-                ledgerDirsManager, indexDirsManager, journal, statsLogger);
+                ledgerDirsManager, indexDirsManager, checkpointSource, statsLogger);
         }
         ledgerStorage.registerListener(this);
 
         // start sync thread
-        syncThread = new SyncThread(conf, getLedgerDirsListener(), ledgerStorage, journal);
+        syncThread = new SyncThread(conf, getLedgerDirsListener(), ledgerStorage, checkpointSource);
 
         handles = new HandleFactoryImpl(ledgerStorage, statsLogger);
 
@@ -555,7 +794,7 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
     @Override
     synchronized public void start() {
         setDaemon(true);
-        LOG.info("I'm starting a bookie with journal directory {}", journalDirectory.getName());
+        LOG.info("I'm starting a bookie with journal directories {}", Arrays.toString(journalDirectories));
         //Start DiskChecker thread
         ledgerDirsManager.start();
         if (indexDirsManager != ledgerDirsManager) {
@@ -962,12 +1201,14 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
 
     @Override
     public void run() {
-        // bookie thread wait for journal thread
+        // bookie thread wait for journal threads
         try {
-            // start journal
-            journal.start();
-            // wait until journal quits
-            journal.join();
+            // start journals
+            for (Journal journal : journals) {
+                journal.start();
+            }
+            // wait until any journal quits
+            waitForAnyJournalToQuit();
             LOG.info("Journal thread quits.");
         } catch (InterruptedException ie) {
             LOG.warn("Interrupted on running journal thread : ", ie);
@@ -982,6 +1223,17 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
         }
     }
 
+    private void waitForAnyJournalToQuit() throws InterruptedException {
+        while (true) {
+            for (Journal journal : journals) {
+                if (!journal.isAlive()) {
+                    return;
+                }
+            }
+            journals.get(0).join(JOURNAL_ALIVE_CHECK_INTERVAL_MS);
+        }
+    }
+
     // Triggering the Bookie shutdown in its own thread,
     // because shutdown can be called from sync thread which would be
     // interrupted by shutdown call.
@@ -1030,8 +1282,10 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
                     indexDirsManager.shutdown();
                 }
 
-                // Shutdown journal
-                journal.shutdown();
+                // Shutdown journals
+                for (Journal journal : journals) {
+                    journal.shutdown();
+                }
                 this.join();
 
                 // Shutdown the EntryLogger which has the GarbageCollector Thread running
@@ -1081,7 +1335,7 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
             bb.flip();
 
             if (null == masterKeyCache.putIfAbsent(ledgerId, masterKey)) {
-                journal.logAddEntry(bb, new NopWriteCallback(), null);
+                getJournal(ledgerId).logAddEntry(bb, new NopWriteCallback(), null);
             }
         }
         return l;
@@ -1105,7 +1359,7 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
 
         entry.rewind();
         LOG.trace("Adding {}@{}", entryId, ledgerId);
-        journal.logAddEntry(entry, cb, ctx);
+        getJournal(ledgerId).logAddEntry(entry, cb, ctx);
     }
 
     /**
@@ -1168,6 +1422,66 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
         }
     }
 
+    /**
+     * Add consecutive entries to a ledger. The entries are journaled as a group, and
+     * the callback is triggered for each of them once it is persisted.
+     *
+     * @param entries
+     *          entries to add, all of the same ledger.
+     * @param recoveryAdd
+     *          whether to add the entries even if the ledger is fenced.
+     * @return number of entries added, from the first one. Adding the entries after
+     *         them failed with an I/O error, their callback isn't triggered.
+     * @throws BookieException.LedgerFencedException if the ledger is fenced
+     */
+    public int addEntries(List<ByteBuffer> entries, boolean recoveryAdd, WriteCallback cb, Object ctx,
+                          byte[] masterKey) throws IOException, BookieException {
+        long requestNanos = MathUtils.nowInNano();
+        boolean success = false;
+        int numAdded = 0;
+        try {
+            LedgerDescriptor handle = getLedgerForEntry(entries.get(0), masterKey);
+            synchronized (handle) {
+                if (!recoveryAdd && handle.isFenced()) {
+                    throw BookieException
+                            .create(BookieException.Code.LedgerFencedException);
+                }
+                try {
+                    for (ByteBuffer entry : entries) {
+                        entry.rewind();
+                        handle.addEntry(entry);
+                        entry.rewind();
+                        numAdded++;
+                    }
+                } catch (IOException ioe) {
+                    if (0 == numAdded) {
+                        throw ioe;
+                    }
+                    LOG.error("Failed to add entry {} of {} entries to ledger {} : ",
+                              new Object[] { numAdded, entries.size(), handle.getLedgerId(), ioe });
+                    if (ioe instanceof NoWritableLedgerDirException) {
+                        transitionToReadOnlyMode();
+                    }
+                }
+                LOG.trace("Adding {} entries to ledger {}", numAdded, handle.getLedgerId());
+                getJournal(handle.getLedgerId()).logAddEntries(entries.subList(0, numAdded), cb, ctx);
+            }
+            success = true;
+        } catch (NoWritableLedgerDirException e) {
+            transitionToReadOnlyMode();
+            throw new IOException(e);
+        } finally {
+            long elapsedMicros = MathUtils.elapsedMicroSec(requestNanos);
+            OpStatsLogger stats = recoveryAdd ? recoveryAddEntryStats : addEntryStats;
+            if (success) {
+                stats.registerSuccessfulEvent(elapsedMicros);
+            } else {
+                stats.registerFailedEvent(elapsedMicros);
+            }
+        }
+        return numAdded;
+    }
+
     /**
      * Fences a ledger. From this point on, clients will be unable to
      * write to this ledger. Only recoveryAddEntry will be
@@ -1190,7 +1504,7 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
 
             FutureWriteCallback fwc = new FutureWriteCallback();
             LOG.debug("record fenced state for ledger {} in journal.", ledgerId);
-            journal.logAddEntry(bb, fwc, null);
+            getJournal(ledgerId).logAddEntry(bb, fwc, null);
             return fwc.getResult();
         } else {
             // already fenced
@@ -1220,6 +1534,29 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
         }
     }
 
+    /**
+     * Check whether an entry is stored by this bookie. Only the index is looked up,
+     * the entry itself isn't read from the entry logs.
+     */
+    public boolean entryExists(long ledgerId, long entryId)
+            throws IOException, NoLedgerException {
+        long requestNanos = MathUtils.nowInNano();
+        boolean success = false;
+        try {
+            LedgerDescriptor handle = handles.getReadOnlyHandle(ledgerId);
+            boolean exists = handle.entryExists(entryId);
+            success = true;
+            return exists;
+        } finally {
+            long elapsedMicros = MathUtils.elapsedMicroSec(requestNanos);
+            if (success) {
+                checkEntryStats.registerSuccessfulEvent(elapsedMicros);
+            } else {
+                checkEntryStats.registerFailedEvent(elapsedMicros);
+            }
+        }
+    }
+
     public long readLastAddConfirmed(long ledgerId) throws IOException {
         long requestNanos = MathUtils.nowInNano();
         boolean success = false;
@@ -1281,9 +1618,15 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
      */
     public static boolean format(ServerConfiguration conf,
             boolean isInteractive, boolean force) {
-        File journalDir = conf.getJournalDir();
-        if (journalDir.exists() && journalDir.isDirectory()
-                && journalDir.list().length != 0) {
+        File[] journalDirs = conf.getJournalDirs();
+        boolean journalDataExists = false;
+        for (File journalDir : journalDirs) {
+            if (journalDir.exists() && journalDir.isDirectory()
+                    && journalDir.list().length != 0) {
+                journalDataExists = true;
+            }
+        }
+        if (journalDataExists) {
             try {
                 boolean confirm = false;
                 if (!isInteractive) {
@@ -1308,9 +1651,11 @@ public class Bookie extends BookieCriticalThread implements LedgerStorageListene
                 return false;
             }
         }
-        if (!cleanDir(journalDir)) {
-            LOG.error("Formatting journal directory failed");
-            return false;
+        for (File journalDir : journalDirs) {
+            if (!cleanDir(journalDir)) {
+                LOG.error("Formatting journal directory " + journalDir + " failed");
+                return false;
+            }
         }
 
         File[] ledgerDirs = conf.getLedgerDirs();
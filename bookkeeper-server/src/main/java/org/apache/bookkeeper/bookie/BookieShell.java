@@ -23,9 +23,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Formatter;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -84,10 +86,10 @@ public class BookieShell implements Tool {
     final ServerConfiguration bkConf = new ServerConfiguration();
     File[] indexDirectories;
     File[] ledgerDirectories;
-    File journalDirectory;
+    File[] journalDirectories;
 
     EntryLogger entryLogger = null;
-    Journal journal = null;
+    List<Journal> journals = null;
     EntryFormatter formatter;
 
     int pageSize;
@@ -545,6 +547,7 @@ public class BookieShell implements Tool {
         ReadJournalCmd() {
             super(CMD_READJOURNAL);
             rjOpts.addOption("m", "msg", false, "Print message body");
+            rjOpts.addOption("dir", true, "Journal directory (needed if more than one journal configured)");
         }
 
         @Override
@@ -560,6 +563,19 @@ public class BookieShell implements Tool {
             if (cmdLine.hasOption("m")) {
                 printMsg = true;
             }
+            int journalIndex = 0;
+            if (cmdLine.hasOption("dir")) {
+                journalIndex = getJournalIndex(new File(cmdLine.getOptionValue("dir")));
+                if (journalIndex < 0) {
+                    System.err.println("ERROR: invalid journal directory " + cmdLine.getOptionValue("dir"));
+                    printUsage();
+                    return -1;
+                }
+            } else if (getJournals().size() > 1) {
+                System.err.println("ERROR: more than one journal configured, please specify the journal directory");
+                printUsage();
+                return -1;
+            }
             long journalId;
             try {
                 journalId = Long.parseLong(leftArgs[0]);
@@ -577,7 +593,7 @@ public class BookieShell implements Tool {
                 journalId = Long.parseLong(idString, 16);
             }
             // scan journal
-            scanJournal(journalId, printMsg);
+            scanJournal(journalIndex, journalId, printMsg);
             return 0;
         }
 
@@ -588,7 +604,7 @@ public class BookieShell implements Tool {
 
         @Override
         String getUsage() {
-            return "readjournal [-m] <journal_id | journal_file_name>";
+            return "readjournal [-m] [-dir <journal_dir>] <journal_id | journal_file_name>";
         }
 
         @Override
@@ -728,7 +744,7 @@ public class BookieShell implements Tool {
     @Override
     public void setConf(Configuration conf) throws Exception {
         bkConf.loadConf(conf);
-        journalDirectory = Bookie.getCurrentDirectory(bkConf.getJournalDir());
+        journalDirectories = Bookie.getCurrentDirectories(bkConf.getJournalDirs());
         ledgerDirectories = Bookie.getCurrentDirectories(bkConf.getLedgerDirs());
         File[] idxDirs = bkConf.getIndexDirs();
         indexDirectories = null != idxDirs ? Bookie.getCurrentDirectories(idxDirs) : ledgerDirectories;
@@ -746,7 +762,7 @@ public class BookieShell implements Tool {
         System.err.println("       recover      <bookieSrc> [bookieDest]");
         System.err.println("       ledger       [-meta] <ledger_id>");
         System.err.println("       readlog      [-msg] <entry_log_id|entry_log_file_name>");
-        System.err.println("       readjournal  [-msg] <journal_id|journal_file_name>");
+        System.err.println("       readjournal  [-msg] [-dir <journal_dir>] <journal_id|journal_file_name>");
         System.err.println("       autorecovery [-enable|-disable]");
         System.err.println("       lastmark");
         System.err.println("       help");
@@ -865,12 +881,35 @@ public class BookieShell implements Tool {
         return entryLogger.readEntry(ledgerId, entryId, position);
     }
 
-    private synchronized Journal getJournal() throws IOException {
-        if (null == journal) {
-            journal = new Journal(bkConf, new LedgerDirsManager(bkConf, bkConf.getLedgerDirs()),
-                    NullStatsLogger.INSTANCE);
+    private synchronized List<Journal> getJournals() throws IOException {
+        if (null == journals) {
+            LedgerDirsManager ledgerDirsManager = new LedgerDirsManager(bkConf, bkConf.getLedgerDirs());
+            File[] journalDirs = bkConf.getJournalDirs();
+            journals = new ArrayList<Journal>(journalDirs.length);
+            for (int i = 0; i < journalDirs.length; i++) {
+                journals.add(new Journal(i, journalDirs[i], bkConf, ledgerDirsManager,
+                        NullStatsLogger.INSTANCE));
+            }
+        }
+        return journals;
+    }
+
+    /**
+     * Get the index of the journal stored in the given directory.
+     *
+     * @param journalDir
+     *          Journal directory, with or without current dir
+     * @return index of the journal, or -1 if no journal is configured in this directory
+     */
+    private int getJournalIndex(File journalDir) {
+        File dir = journalDir.getAbsoluteFile();
+        for (int i = 0; i < journalDirectories.length; i++) {
+            File currentDir = journalDirectories[i].getAbsoluteFile();
+            if (currentDir.equals(dir) || currentDir.getParentFile().equals(dir)) {
+                return i;
+            }
         }
-        return journal;
+        return -1;
     }
 
     /**
@@ -882,7 +921,21 @@ public class BookieShell implements Tool {
      *          Journal File Scanner
      */
     protected void scanJournal(long journalId, JournalScanner scanner) throws IOException {
-        getJournal().scanJournal(journalId, 0L, scanner);
+        scanJournal(0, journalId, scanner);
+    }
+
+    /**
+     * Scan journal file of a given journal
+     *
+     * @param journalIndex
+     *          Index of the journal
+     * @param journalId
+     *          Journal File Id
+     * @param scanner
+     *          Journal File Scanner
+     */
+    protected void scanJournal(int journalIndex, long journalId, JournalScanner scanner) throws IOException {
+        getJournals().get(journalIndex).scanJournal(journalId, 0L, scanner);
     }
 
     ///
@@ -896,6 +949,10 @@ public class BookieShell implements Tool {
      *          Ledger Id
      */
     protected void readLedgerMeta(long ledgerId) throws Exception {
+        if (bkConf.getIndexedLedgerStorageEnabled()) {
+            readIndexedLedgerMeta(ledgerId);
+            return;
+        }
         System.out.println("===== LEDGER: " + ledgerId + " =====");
         FileInfo fi = getFileInfo(ledgerId);
         byte[] masterKey = fi.getMasterKey();
@@ -922,8 +979,13 @@ public class BookieShell implements Tool {
      * @throws IOException
      */
     protected void readLedgerIndexEntries(long ledgerId) throws IOException {
+        if (bkConf.getIndexedLedgerStorageEnabled()) {
+            readIndexedLedgerEntries(ledgerId);
+            return;
+        }
         System.out.println("===== LEDGER: " + ledgerId + " =====");
         FileInfo fi = getFileInfo(ledgerId);
+        EntryLocationFormat format = EntryLocationFormat.fromIndexHeaderVersion(fi.getHeaderVersion());
         long size = fi.size();
         System.out.println("size        : " + size);
         long curSize = 0;
@@ -941,8 +1003,8 @@ public class BookieShell implements Tool {
                     if (0 == offset) {
                         System.out.println("entry " + curEntry + "\t:\tN/A");
                     } else {
-                        long entryLogId = offset >> 32L;
-                        long pos = offset & 0xffffffffL;
+                        long entryLogId = format.getLogId(offset);
+                        long pos = format.getOffset(offset);
                         System.out.println("entry " + curEntry + "\t:\t(log:" + entryLogId + ", pos: " + pos + ", location: " + offset + ")");
                     }
                     ++curEntry;
@@ -961,11 +1023,72 @@ public class BookieShell implements Tool {
         }
     }
 
+    /**
+     * Read ledger meta from the ledger index of the indexed ledger storage.
+     *
+     * @param ledgerId
+     *          Ledger Id
+     */
+    private void readIndexedLedgerMeta(long ledgerId) throws IOException {
+        System.out.println("===== LEDGER: " + ledgerId + " =====");
+        LedgerIndex index = openLedgerIndex();
+        try {
+            byte[] metadata = index.get(LedgerIndex.METADATA_LEDGER_ID, ledgerId);
+            if (null == metadata) {
+                throw new FileNotFoundException("Ledger " + ledgerId + " not found in ledger index "
+                        + index.dir + ". It may be not flushed yet.");
+            }
+            IndexedLedgerCache.LedgerState state = IndexedLedgerCache.LedgerState.deserialize(ledgerId, metadata);
+            System.out.println("master key  : " + bytes2Hex(state.masterKey));
+            System.out.println("last entry  : " + index.getLastEntryId(ledgerId));
+            System.out.println("fenced      : " + state.isFenced());
+            Long lac = state.getLastAddConfirmed();
+            System.out.println("lac         : " + (null == lac ? "N/A" : lac));
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Read ledger index entries from the ledger index of the indexed ledger storage.
+     *
+     * @param ledgerId
+     *          Ledger Id
+     */
+    private void readIndexedLedgerEntries(long ledgerId) throws IOException {
+        System.out.println("===== LEDGER: " + ledgerId + " =====");
+        final EntryLocationFormat format = getEntryLocationFormat();
+        LedgerIndex index = openLedgerIndex();
+        try {
+            index.scan(ledgerId, 0L, ledgerId, Long.MAX_VALUE, new LedgerIndex.Scanner() {
+                @Override
+                public void process(long ledgerId, long entryId, byte[] value) throws IOException {
+                    long offset = IndexedLedgerCache.decodeLocation(value, format);
+                    long entryLogId = format.getLogId(offset);
+                    long pos = format.getOffset(offset);
+                    System.out.println("entry " + entryId + "\t:\t(log:" + entryLogId + ", pos: " + pos
+                            + ", location: " + offset + ")");
+                }
+            });
+        } finally {
+            index.close();
+        }
+    }
+
+    private LedgerIndex openLedgerIndex() throws IOException {
+        return IndexedLedgerCache.openIndex(bkConf, Arrays.asList(indexDirectories), true);
+    }
+
+    private EntryLocationFormat getEntryLocationFormat() {
+        return EntryLocationFormat.fromVersion(bkConf.getEntryLocationFormatVersion());
+    }
+
     protected void readEntry(long ledgerId, long entryId, long position, boolean printMsg) throws Exception {
-        System.out.println("Entry(lid=" + ledgerId + ", eid=" + entryId + "), logId=" + (position >> 32));
+        EntryLocationFormat format = getEntryLocationFormat();
+        System.out.println("Entry(lid=" + ledgerId + ", eid=" + entryId + "), logId=" + format.getLogId(position));
         byte[] data = readEntry(ledgerId, entryId, position);
         ByteBuffer entryBuf = ByteBuffer.wrap(data);
-        formatEntry(position & 0xffffffffL, entryBuf, printMsg);
+        formatEntry(format.getOffset(position), entryBuf, printMsg);
     }
 
     /**
@@ -998,9 +1121,10 @@ public class BookieShell implements Tool {
      * @param printMsg
      *          Whether printing the entry data.
      */
-    protected void scanJournal(long journalId, final boolean printMsg) throws Exception {
-        System.out.println("Scan journal " + journalId + " (" + Long.toHexString(journalId) + ".txn)");
-        scanJournal(journalId, new JournalScanner() {
+    protected void scanJournal(int journalIndex, long journalId, final boolean printMsg) throws Exception {
+        System.out.println("Scan journal " + journalId + " (" + Long.toHexString(journalId) + ".txn)"
+                + " in " + journalDirectories[journalIndex]);
+        scanJournal(journalIndex, journalId, new JournalScanner() {
             boolean printJournalVersion = false;
             @Override
             public void process(int journalVersion, long offset, ByteBuffer entry) throws IOException {
@@ -1017,8 +1141,11 @@ public class BookieShell implements Tool {
      * Print last log mark
      */
     protected void printLastLogMark() throws IOException {
-        LastLogMark lastLogMark = getJournal().getLastLogMark();
-        System.out.println(lastLogMark.getCurMark().toString());
+        for (Journal journal : getJournals()) {
+            LastLogMark lastLogMark = journal.getLastLogMark();
+            System.out.println("LastLogMark: Journal Dir - " + journal.getJournalDirectory()
+                    + ", " + lastLogMark.getCurMark().toString());
+        }
     }
 
     /**
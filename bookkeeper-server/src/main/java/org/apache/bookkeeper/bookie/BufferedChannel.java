@@ -91,6 +91,19 @@ public class BufferedChannel extends BufferedReadChannel {
         return flushes;
     }
 
+    /**
+     * Write all the data in src, which the caller promises not to modify until the
+     * next flush. Implementations may then keep a reference to src instead of copying
+     * it; this one copies it as {@link #write(ByteBuffer)} does.
+     *
+     * @param src The source ByteBuffer which contains the data to be written.
+     * @return number of flushes triggered by this write.
+     * @throws IOException if a write operation fails.
+     */
+    public int writeRetained(ByteBuffer src) throws IOException {
+        return write(src);
+    }
+
     /**
      * Get the position where the next write operation will begin writing from.
      * @return
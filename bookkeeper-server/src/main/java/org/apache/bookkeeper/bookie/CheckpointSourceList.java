@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A {@link CheckpointSource} composed of several checkpoint sources, used when
+ * the bookie runs multiple journals. A checkpoint of the list is the checkpoints
+ * of all its sources taken at the same time, and completing it completes each of
+ * them.
+ */
+public class CheckpointSourceList implements CheckpointSource {
+
+    private final List<? extends CheckpointSource> checkpointSources;
+
+    public CheckpointSourceList(List<? extends CheckpointSource> checkpointSources) {
+        Preconditions.checkArgument(!checkpointSources.isEmpty(), "No checkpoint source provided");
+        this.checkpointSources = Collections.unmodifiableList(checkpointSources);
+    }
+
+    @Override
+    public Checkpoint newCheckpoint() {
+        List<Checkpoint> checkpoints = new ArrayList<Checkpoint>(checkpointSources.size());
+        for (CheckpointSource source : checkpointSources) {
+            checkpoints.add(source.newCheckpoint());
+        }
+        return new CheckpointList(this, checkpoints);
+    }
+
+    @Override
+    public void checkpointComplete(Checkpoint checkpoint, boolean compact) throws IOException {
+        if (!(checkpoint instanceof CheckpointList)) {
+            return; // we didn't create this checkpoint, so dont do anything with it
+        }
+        CheckpointList checkpointList = (CheckpointList) checkpoint;
+        Preconditions.checkArgument(checkpointList.source == this,
+                "Checkpoint %s doesn't belong to this checkpoint source", checkpoint);
+        for (int i = 0; i < checkpointSources.size(); i++) {
+            checkpointSources.get(i).checkpointComplete(checkpointList.checkpoints.get(i), compact);
+        }
+    }
+
+    private static class CheckpointList implements Checkpoint {
+        final CheckpointSourceList source;
+        final List<Checkpoint> checkpoints;
+
+        CheckpointList(CheckpointSourceList source, List<Checkpoint> checkpoints) {
+            this.source = source;
+            this.checkpoints = checkpoints;
+        }
+
+        @Override
+        public int compareTo(Checkpoint o) {
+            if (o == Checkpoint.MAX) {
+                return -1;
+            } else if (o == Checkpoint.MIN) {
+                return 1;
+            }
+            List<Checkpoint> other = ((CheckpointList) o).checkpoints;
+            Preconditions.checkArgument(other.size() == checkpoints.size(),
+                    "Can't compare checkpoint lists of different sizes");
+            // checkpoints of a list are taken at the same time, so all the
+            // components move forward together.
+            for (int i = 0; i < checkpoints.size(); i++) {
+                int res = checkpoints.get(i).compareTo(other.get(i));
+                if (0 != res) {
+                    return res;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CheckpointList)) {
+                return false;
+            }
+            return 0 == compareTo((CheckpointList) o);
+        }
+
+        @Override
+        public int hashCode() {
+            return checkpoints.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return checkpoints.toString();
+        }
+    }
+}
@@ -47,6 +47,7 @@ import org.apache.bookkeeper.proto.DataFormats.CookieFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Joiner;
 import com.google.protobuf.TextFormat;
 
 import static org.apache.bookkeeper.util.BookKeeperConstants.*;
@@ -209,7 +210,13 @@ class Cookie {
         Cookie c = new Cookie();
         c.layoutVersion = CURRENT_COOKIE_LAYOUT_VERSION;
         c.bookieHost = Bookie.getBookieAddress(conf).toString();
-        c.journalDir = conf.getJournalDirName();
+        String[] journalDirs = conf.getJournalDirNames();
+        if (journalDirs.length == 1) {
+            c.journalDir = journalDirs[0];
+        } else {
+            // multiple journals are recorded as a comma separated list
+            c.journalDir = Joiner.on(',').join(journalDirs);
+        }
         StringBuilder b = new StringBuilder();
         String[] dirs = conf.getLedgerDirNames();
         b.append(dirs.length);
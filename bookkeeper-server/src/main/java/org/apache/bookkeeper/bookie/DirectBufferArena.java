@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A pool of fixed size direct buffer chunks.
+ *
+ * <p>
+ * Direct buffers are expensive to allocate and are only released by the
+ * garbage collector, so writers which need direct memory for a short time
+ * (e.g. to stage a batch of journal records for a gathering write) acquire
+ * chunks from the arena and release them once the data has reached the file.
+ * At most <i>maxPooledChunks</i> released chunks are kept around; chunks
+ * released beyond that are left to the garbage collector.
+ * </p>
+ * <p>
+ * The arena isn't thread safe. It is meant to be used by a single writer
+ * thread, like the journal thread.
+ * </p>
+ */
+public class DirectBufferArena {
+
+    private final int chunkSize;
+    private final int maxPooledChunks;
+    private final ArrayDeque<ByteBuffer> freeChunks;
+    private long numAllocatedChunks = 0L;
+
+    public DirectBufferArena(int chunkSize, int maxPooledChunks) {
+        Preconditions.checkArgument(chunkSize > 0, "Invalid chunk size : %s", chunkSize);
+        Preconditions.checkArgument(maxPooledChunks >= 0, "Invalid number of pooled chunks : %s",
+                maxPooledChunks);
+        this.chunkSize = chunkSize;
+        this.maxPooledChunks = maxPooledChunks;
+        this.freeChunks = new ArrayDeque<ByteBuffer>(maxPooledChunks);
+    }
+
+    /**
+     * Acquire a cleared chunk, allocating a new one if none is pooled.
+     *
+     * @return a direct buffer of {@link #getChunkSize()} bytes.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer chunk = freeChunks.poll();
+        if (null == chunk) {
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+            ++numAllocatedChunks;
+        }
+        chunk.clear();
+        return chunk;
+    }
+
+    /**
+     * Give a chunk back to the arena.
+     *
+     * @param chunk
+     *          chunk acquired from this arena.
+     */
+    public void release(ByteBuffer chunk) {
+        if (freeChunks.size() < maxPooledChunks) {
+            freeChunks.add(chunk);
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return number of chunks allocated by the arena so far.
+     */
+    public long getNumAllocatedChunks() {
+        return numAllocatedChunks;
+    }
+
+    /**
+     * @return number of chunks currently pooled.
+     */
+    public int getNumPooledChunks() {
+        return freeChunks.size();
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.IOException;
+
+import static org.apache.bookkeeper.util.BookKeeperConstants.MAX_LOG_SIZE_LIMIT;
+import static org.apache.bookkeeper.util.BookKeeperConstants.MAX_LOG_SIZE_LIMIT_V2;
+
+/**
+ * Format of the entry locations kept by the ledger index. A location packs the
+ * id of the entry log holding an entry with the offset of the entry in that log,
+ * in a single long.
+ *
+ * <ul>
+ * <li>V1: entry log id in the higher 32 bits, offset in the lower 32 bits. Entry
+ * logs are limited to 2GB.
+ * <li>V2: entry log id in the higher 24 bits, offset in the lower 40 bits. Entry
+ * logs can grow up to 1TB, and entry log ids wrap around after 2^24 logs.
+ * </ul>
+ *
+ * <p>
+ * Ledger index files record the format of their locations in their header
+ * version, so a bookie refuses index files of another format. They are converted
+ * with <code>FileSystemUpgrade --convertlocations</code>.
+ * </p>
+ */
+public enum EntryLocationFormat {
+    V1(1, 0, 32, Integer.MAX_VALUE, Integer.MAX_VALUE, MAX_LOG_SIZE_LIMIT),
+    V2(2, 1, 40, (1L << 24) - 1, (1L << 40) - 1, MAX_LOG_SIZE_LIMIT_V2);
+
+    final int version;
+    // version of the header of the ledger index files holding locations of this format
+    final int indexHeaderVersion;
+    final int offsetBits;
+    final long maxLogId;
+    // hard limit of the entry log size
+    final long maxLogSize;
+    // maximum configurable entry log size limit
+    final long maxLogSizeLimit;
+
+    private EntryLocationFormat(int version, int indexHeaderVersion, int offsetBits,
+                                long maxLogId, long maxLogSize, long maxLogSizeLimit) {
+        this.version = version;
+        this.indexHeaderVersion = indexHeaderVersion;
+        this.offsetBits = offsetBits;
+        this.maxLogId = maxLogId;
+        this.maxLogSize = maxLogSize;
+        this.maxLogSizeLimit = maxLogSizeLimit;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    boolean canEncode(long logId, long offset) {
+        return logId >= 0 && logId <= maxLogId && offset >= 0 && offset <= maxLogSize;
+    }
+
+    long toLocation(long logId, long offset) {
+        return (logId << offsetBits) | offset;
+    }
+
+    long getLogId(long location) {
+        return location >>> offsetBits;
+    }
+
+    long getOffset(long location) {
+        return location & ((1L << offsetBits) - 1);
+    }
+
+    /**
+     * Convert a location of this format to the format <i>target</i>.
+     *
+     * @throws IOException if the location can't be represented in the target format.
+     */
+    long convert(long location, EntryLocationFormat target) throws IOException {
+        if (this == target) {
+            return location;
+        }
+        long logId = getLogId(location);
+        long offset = getOffset(location);
+        if (!target.canEncode(logId, offset)) {
+            throw new IOException("Location (logId = " + logId + ", offset = " + offset
+                    + ") can't be represented in entry location format " + target);
+        }
+        return target.toLocation(logId, offset);
+    }
+
+    public static EntryLocationFormat fromVersion(int version) {
+        for (EntryLocationFormat format : values()) {
+            if (format.version == version) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown entry location format version " + version);
+    }
+
+    static EntryLocationFormat fromIndexHeaderVersion(int headerVersion) throws IOException {
+        for (EntryLocationFormat format : values()) {
+            if (format.indexHeaderVersion == headerVersion) {
+                return format;
+            }
+        }
+        throw new IOException("Incompatible ledger version " + headerVersion);
+    }
+}
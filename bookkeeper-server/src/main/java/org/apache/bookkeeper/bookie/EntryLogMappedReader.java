@@ -0,0 +1,323 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
+
+/**
+ * Read entries of sealed entry logs from memory mapped regions.
+ *
+ * <p>
+ * An entry log is mapped in regions of <i>regionSize</i> bytes, which are mapped
+ * on first access and kept in a LRU cache bounded by <i>cacheSize</i> mapped bytes.
+ * Entries are copied out of their region, so reading them doesn't involve any
+ * system call once their region is mapped. Entries spanning two regions, or
+ * beyond the end of the entry log when it was mapped, are not served by the
+ * reader.
+ * </p>
+ *
+ * <p>
+ * Only entry logs which are flushed and never written again must be read through
+ * the reader, since a region is mapped with the size of its entry log at mapping time.
+ * Regions are reference counted by the reads in progress, and unmapped once
+ * evicted from the cache, or once their entry log is removed, and no read uses
+ * them anymore, so mapped memory and removed entry logs aren't held until the
+ * regions are garbage collected.
+ * </p>
+ */
+class EntryLogMappedReader {
+
+    private final static Logger LOG = LoggerFactory.getLogger(EntryLogMappedReader.class);
+
+    private static class RegionKey {
+        final long logId;
+        final long regionId;
+
+        RegionKey(long logId, long regionId) {
+            this.logId = logId;
+            this.regionId = regionId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RegionKey)) {
+                return false;
+            }
+            RegionKey other = (RegionKey) o;
+            return logId == other.logId && regionId == other.regionId;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (logId * 31 + regionId);
+        }
+    }
+
+    /**
+     * A mapped region, referenced by the cache and by the reads in progress.
+     */
+    private static class Region {
+        final RegionKey key;
+        final MappedByteBuffer buffer;
+        // the reference of the cache, plus one per read in progress
+        final AtomicInteger refCount = new AtomicInteger(1);
+        volatile long lastAccess;
+
+        Region(RegionKey key, MappedByteBuffer buffer, long lastAccess) {
+            this.key = key;
+            this.buffer = buffer;
+            this.lastAccess = lastAccess;
+        }
+
+        /**
+         * @return false if the region is already unmapped.
+         */
+        boolean retain() {
+            while (true) {
+                int count = refCount.get();
+                if (count <= 0) {
+                    return false;
+                }
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (0 == refCount.decrementAndGet()) {
+                unmap(buffer);
+            }
+        }
+    }
+
+    private final long regionSize;
+    private final long cacheSize;
+    private final ConcurrentHashMap<RegionKey, Region> regions = new ConcurrentHashMap<RegionKey, Region>();
+    private final AtomicLong mappedBytes = new AtomicLong(0L);
+    // orders the accesses to the regions, to evict the least recently used one
+    private final AtomicLong accessClock = new AtomicLong(0L);
+    // serializes evictions
+    private final Object evictionLock = new Object();
+
+    private final Counter readCounter;
+    private final Counter mapCounter;
+    private final Counter evictionCounter;
+
+    EntryLogMappedReader(long regionSize, long cacheSize, StatsLogger statsLogger) {
+        this.regionSize = regionSize;
+        this.cacheSize = cacheSize;
+        this.readCounter = statsLogger.getCounter(ENTRYLOG_MMAP_READS);
+        this.mapCounter = statsLogger.getCounter(ENTRYLOG_MMAP_REGIONS_MAPPED);
+        this.evictionCounter = statsLogger.getCounter(ENTRYLOG_MMAP_REGIONS_EVICTED);
+        statsLogger.registerGauge(
+                ENTRYLOG_MMAP_MAPPED_BYTES,
+                new Gauge<Number>() {
+                    @Override
+                    public Number getDefaultValue() {
+                        return 0;
+                    }
+
+                    @Override
+                    public Number getSample() {
+                        return getMappedBytes();
+                    }
+                });
+    }
+
+    long getMappedBytes() {
+        return mappedBytes.get();
+    }
+
+    int getNumRegions() {
+        return regions.size();
+    }
+
+    /**
+     * Read the entry at position <i>pos</i> of entry log <i>logId</i>.
+     *
+     * @param logId
+     *          entry log id.
+     * @param fc
+     *          file channel of the entry log, used to map the region of the entry.
+     * @param pos
+     *          position of the entry, after its size.
+     * @return a read-only buffer holding a copy of the entry, or null if the entry
+     *         can't be read from a single mapped region.
+     * @throws IOException if the region can't be mapped.
+     */
+    ByteBuffer readEntry(long logId, FileChannel fc, long pos) throws IOException {
+        long sizePos = pos - 4;
+        long regionId = sizePos / regionSize;
+        Region region = getRegion(logId, regionId, fc);
+        if (null == region) {
+            return null;
+        }
+        try {
+            MappedByteBuffer buffer = region.buffer;
+            int regionPos = (int) (sizePos - regionId * regionSize);
+            if (regionPos + 4 > buffer.capacity()) {
+                return null;
+            }
+            int entrySize = buffer.getInt(regionPos);
+            if (entrySize < 0 || regionPos + 4L + entrySize > buffer.capacity()) {
+                // spans the next region, or is invalid and left to the caller to report
+                return null;
+            }
+            ByteBuffer entry = buffer.duplicate();
+            entry.position(regionPos + 4);
+            entry.limit(regionPos + 4 + entrySize);
+            byte[] data = new byte[entrySize];
+            entry.get(data);
+            readCounter.inc();
+            return ByteBuffer.wrap(data).asReadOnlyBuffer();
+        } finally {
+            region.release();
+        }
+    }
+
+    /**
+     * @return the region, retained for the caller, or null if the region is
+     *         beyond the end of the entry log.
+     */
+    private Region getRegion(long logId, long regionId, FileChannel fc) throws IOException {
+        RegionKey key = new RegionKey(logId, regionId);
+        while (true) {
+            Region region = regions.get(key);
+            if (null != region) {
+                if (region.retain()) {
+                    region.lastAccess = accessClock.incrementAndGet();
+                    return region;
+                }
+                // unmapped meanwhile
+                regions.remove(key, region);
+                continue;
+            }
+            long start = regionId * regionSize;
+            long size = Math.min(regionSize, fc.size() - start);
+            if (size <= 0) {
+                // not written yet when the entry log was mapped, left to positional reads
+                return null;
+            }
+            region = new Region(key, fc.map(FileChannel.MapMode.READ_ONLY, start, size),
+                    accessClock.incrementAndGet());
+            mapCounter.inc();
+            // retained for the caller
+            region.retain();
+            if (null != regions.putIfAbsent(key, region)) {
+                // mapped concurrently by another read
+                region.release();
+                region.release();
+                continue;
+            }
+            mappedBytes.addAndGet(size);
+            // the entry log may have been removed while mapping it
+            if (!fc.isOpen()) {
+                removeRegion(region);
+            }
+            evictRegions();
+            return region;
+        }
+    }
+
+    private void removeRegion(Region region) {
+        if (regions.remove(region.key, region)) {
+            mappedBytes.addAndGet(-region.buffer.capacity());
+            region.release();
+        }
+    }
+
+    private void evictRegions() {
+        synchronized (evictionLock) {
+            // keep the most recently mapped region, even if it exceeds the cache size alone
+            while (mappedBytes.get() > cacheSize && regions.size() > 1) {
+                Region lru = null;
+                for (Region region : regions.values()) {
+                    if (null == lru || region.lastAccess < lru.lastAccess) {
+                        lru = region;
+                    }
+                }
+                removeRegion(lru);
+                evictionCounter.inc();
+                LOG.debug("Evicted region {} of entry log {}.", lru.key.regionId, lru.key.logId);
+            }
+        }
+    }
+
+    /**
+     * Drop the regions of entry log <i>logId</i>.
+     */
+    void removeEntryLog(long logId) {
+        for (Region region : regions.values()) {
+            if (region.key.logId == logId) {
+                removeRegion(region);
+            }
+        }
+    }
+
+    /**
+     * Drop all the regions.
+     */
+    void close() {
+        for (Region region : regions.values()) {
+            removeRegion(region);
+        }
+    }
+
+    private static volatile boolean unmapSupported = true;
+
+    /**
+     * Unmap a region, rather than waiting for it to be garbage collected.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (!unmapSupported) {
+            return;
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (null != cleaner) {
+                Method cleanMethod = cleaner.getClass().getMethod("clean");
+                cleanMethod.setAccessible(true);
+                cleanMethod.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            LOG.warn("Could not unmap entry log regions explicitly, they are unmapped once garbage collected", e);
+            unmapSupported = false;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.bookkeeper.bookie.EntryLogMetadataManager.EntryLogMetadata;
+import org.apache.bookkeeper.util.ConcurrentLongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A persisted index of the metadata of the entry logs, so the metadata doesn't
+ * have to be read back from every entry log when a bookie restarts.
+ *
+ * <p>
+ * The index is an append only file of records. Each record either adds the
+ * metadata of an entry log (its total size and the size of each of its ledgers)
+ * or removes an entry log. Records are appended when entry logs are rotated,
+ * scanned, compacted or removed, and the file is rewritten with the live
+ * metadata only once most of it is made of obsolete records. A record is
+ * protected by a checksum, so a torn record at the end of the file, left by a
+ * crash, is dropped when the index is read.
+ * </p>
+ *
+ * <p>
+ * Metadata missing from the index (e.g. appends lost in a crash) is simply read
+ * from the entry logs again, and removals lost in a crash are detected by
+ * checking the entry logs which still exist when the index is loaded.
+ * </p>
+ */
+class EntryLogMetadataIndex implements Closeable {
+
+    private final static Logger LOG = LoggerFactory.getLogger(EntryLogMetadataIndex.class);
+
+    static final String INDEX_FILE = "entrylogs.meta";
+
+    static final int MAGIC = 0x424b454d; // 'BKEM'
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 8;
+
+    static final byte ADD_RECORD = 1;
+    static final byte REMOVE_RECORD = 2;
+
+    // payload length and checksum
+    static final int RECORD_HEADER_LENGTH = 8;
+    // record type, entry log id, total size and number of ledgers
+    static final int ADD_RECORD_LENGTH = 1 + 8 + 8 + 4;
+    static final int REMOVE_RECORD_LENGTH = 1 + 8;
+    static final int LEDGER_LENGTH = 8 + 8;
+
+    static final long DEFAULT_MIN_REWRITE_SIZE = 4 * 1024 * 1024;
+
+    private final File file;
+    private final long minRewriteSize;
+    private RandomAccessFile raf;
+    private FileChannel fc;
+    private long fileSize;
+    // size of the record holding the metadata of each live entry log
+    private final ConcurrentLongLongHashMap liveRecordSizes = new ConcurrentLongLongHashMap(1024, 1);
+    private long liveSize;
+
+    EntryLogMetadataIndex(File file) {
+        this(file, DEFAULT_MIN_REWRITE_SIZE);
+    }
+
+    EntryLogMetadataIndex(File file, long minRewriteSize) {
+        this.file = file;
+        this.minRewriteSize = minRewriteSize;
+    }
+
+    /**
+     * Find the index file in the given directories, or place a new one in the
+     * first directory.
+     */
+    static File getIndexFile(List<File> dirs) {
+        for (File dir : dirs) {
+            File file = new File(dir, INDEX_FILE);
+            if (file.exists()) {
+                return file;
+            }
+        }
+        return new File(dirs.get(0), INDEX_FILE);
+    }
+
+    /**
+     * Read the entry log metadata recorded in the index, and open the index
+     * for appending.
+     *
+     * @return metadata of the entry logs, by entry log id.
+     * @throws IOException
+     */
+    synchronized Map<Long, EntryLogMetadata> load() throws IOException {
+        Map<Long, EntryLogMetadata> metadatas = new HashMap<Long, EntryLogMetadata>();
+        long validSize = HEADER_LENGTH;
+        if (file.exists() && file.length() >= HEADER_LENGTH) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    LOG.warn("Ignoring entry log metadata index {} with an unknown header.", file);
+                    validSize = 0;
+                } else {
+                    validSize = readRecords(in, metadatas);
+                }
+            } finally {
+                in.close();
+            }
+        } else {
+            validSize = 0;
+        }
+
+        raf = new RandomAccessFile(file, "rw");
+        fc = raf.getChannel();
+        if (validSize < HEADER_LENGTH || validSize < fc.size()) {
+            if (validSize >= HEADER_LENGTH) {
+                LOG.warn("Truncating entry log metadata index {} from {} to {} bytes.",
+                         new Object[] { file, fc.size(), validSize });
+            } else {
+                metadatas.clear();
+                liveRecordSizes.clear();
+                liveSize = 0;
+                writeHeader(fc);
+                validSize = HEADER_LENGTH;
+            }
+            fc.truncate(validSize);
+        }
+        fileSize = validSize;
+        fc.position(fileSize);
+        LOG.info("Loaded the metadata of {} entry logs from {}.", metadatas.size(), file);
+        return metadatas;
+    }
+
+    private long readRecords(DataInputStream in, Map<Long, EntryLogMetadata> metadatas) throws IOException {
+        long validSize = HEADER_LENGTH;
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] payload;
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < REMOVE_RECORD_LENGTH || length > file.length()) {
+                    return validSize;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    return validSize;
+                }
+            } catch (EOFException eof) {
+                return validSize;
+            }
+            ByteBuffer record = ByteBuffer.wrap(payload);
+            byte type = record.get();
+            long entryLogId = record.getLong();
+            if (ADD_RECORD == type && payload.length >= ADD_RECORD_LENGTH) {
+                EntryLogMetadata metadata = new EntryLogMetadata(entryLogId);
+                long totalSize = record.getLong();
+                int numLedgers = record.getInt();
+                if (record.remaining() != numLedgers * LEDGER_LENGTH) {
+                    return validSize;
+                }
+                for (int i = 0; i < numLedgers; i++) {
+                    metadata.addLedgerSize(record.getLong(), record.getLong());
+                }
+                // the ledgers deleted from the entry log aren't recorded
+                metadata.totalSize = totalSize;
+                metadatas.put(entryLogId, metadata);
+                setLiveRecord(entryLogId, RECORD_HEADER_LENGTH + payload.length);
+            } else if (REMOVE_RECORD == type) {
+                metadatas.remove(entryLogId);
+                setLiveRecord(entryLogId, ConcurrentLongLongHashMap.NO_VALUE);
+            } else {
+                return validSize;
+            }
+            validSize += RECORD_HEADER_LENGTH + payload.length;
+        }
+    }
+
+    private void setLiveRecord(long entryLogId, long recordSize) {
+        long oldSize;
+        if (recordSize < 0) {
+            oldSize = liveRecordSizes.remove(entryLogId);
+        } else {
+            oldSize = liveRecordSizes.put(entryLogId, recordSize);
+            liveSize += recordSize;
+        }
+        if (oldSize > 0) {
+            liveSize -= oldSize;
+        }
+    }
+
+    private static void writeHeader(FileChannel fc) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += fc.write(header, position);
+        }
+    }
+
+    private static ByteBuffer serialize(EntryLogMetadata metadata) {
+        long[] ledgers = metadata.ledgersMap.keys();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + ADD_RECORD_LENGTH
+                                                + ledgers.length * LEDGER_LENGTH);
+        record.position(RECORD_HEADER_LENGTH);
+        record.put(ADD_RECORD);
+        record.putLong(metadata.entryLogId);
+        record.putLong(metadata.totalSize);
+        int numLedgersPosition = record.position();
+        record.putInt(0);
+        int numLedgers = 0;
+        for (long ledgerId : ledgers) {
+            long size = metadata.ledgersMap.get(ledgerId);
+            if (size < 0) {
+                // removed meanwhile
+                continue;
+            }
+            record.putLong(ledgerId);
+            record.putLong(size);
+            ++numLedgers;
+        }
+        record.putInt(numLedgersPosition, numLedgers);
+        return seal(record);
+    }
+
+    private static ByteBuffer serializeRemove(long entryLogId) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + REMOVE_RECORD_LENGTH);
+        record.position(RECORD_HEADER_LENGTH);
+        record.put(REMOVE_RECORD);
+        record.putLong(entryLogId);
+        return seal(record);
+    }
+
+    private static ByteBuffer seal(ByteBuffer record) {
+        int payloadLength = record.position() - RECORD_HEADER_LENGTH;
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_LENGTH, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private void append(ByteBuffer record) throws IOException {
+        if (null == fc) {
+            throw new IOException("Entry log metadata index " + file + " isn't open");
+        }
+        while (record.hasRemaining()) {
+            fileSize += fc.write(record);
+        }
+    }
+
+    /**
+     * Record the metadata of an entry log.
+     */
+    synchronized void addEntryLogMetadata(EntryLogMetadata metadata) throws IOException {
+        ByteBuffer record = serialize(metadata);
+        int recordSize = record.remaining();
+        append(record);
+        setLiveRecord(metadata.entryLogId, recordSize);
+    }
+
+    /**
+     * Record the removal of an entry log.
+     */
+    synchronized void removeEntryLogMetadata(long entryLogId) throws IOException {
+        if (!liveRecordSizes.containsKey(entryLogId)) {
+            return;
+        }
+        append(serializeRemove(entryLogId));
+        setLiveRecord(entryLogId, ConcurrentLongLongHashMap.NO_VALUE);
+    }
+
+    /**
+     * @return true if most of the index is made of obsolete records.
+     */
+    synchronized boolean needsRewrite() {
+        return fileSize > minRewriteSize && fileSize > 2 * (liveSize + HEADER_LENGTH);
+    }
+
+    /**
+     * Rewrite the index with the given live entry log metadata only.
+     */
+    synchronized void rewrite(Collection<EntryLogMetadata> metadatas) throws IOException {
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        RandomAccessFile tmpRaf = new RandomAccessFile(tmpFile, "rw");
+        ConcurrentLongLongHashMap newRecordSizes = new ConcurrentLongLongHashMap(
+                Math.max(1024, metadatas.size()), 1);
+        long newLiveSize = 0;
+        try {
+            FileChannel tmpFc = tmpRaf.getChannel();
+            tmpFc.truncate(0);
+            writeHeader(tmpFc);
+            tmpFc.position(HEADER_LENGTH);
+            for (EntryLogMetadata metadata : metadatas) {
+                ByteBuffer record = serialize(metadata);
+                newRecordSizes.put(metadata.entryLogId, record.remaining());
+                newLiveSize += record.remaining();
+                while (record.hasRemaining()) {
+                    tmpFc.write(record);
+                }
+            }
+            tmpFc.force(true);
+        } finally {
+            tmpRaf.close();
+        }
+        closeFile();
+        if (!tmpFile.renameTo(file)) {
+            throw new IOException("Failed to rename " + tmpFile + " to " + file);
+        }
+        raf = new RandomAccessFile(file, "rw");
+        fc = raf.getChannel();
+        fileSize = fc.size();
+        fc.position(fileSize);
+        liveRecordSizes.clear();
+        newRecordSizes.forEach(new ConcurrentLongLongHashMap.EntryProcessor() {
+            @Override
+            public void process(long entryLogId, long recordSize) {
+                liveRecordSizes.put(entryLogId, recordSize);
+            }
+        });
+        liveSize = newLiveSize;
+        LOG.info("Rewrote entry log metadata index {} with the metadata of {} entry logs.",
+                 file, metadatas.size());
+    }
+
+    @VisibleForTesting
+    synchronized long getFileSize() {
+        return fileSize;
+    }
+
+    private void closeFile() throws IOException {
+        if (null != fc) {
+            fc.force(true);
+            fc.close();
+            raf.close();
+            fc = null;
+            raf = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeFile();
+    }
+}
@@ -22,8 +22,13 @@ package org.apache.bookkeeper.bookie;
 
 import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.util.ConcurrentLongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -36,6 +41,8 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
  */
 class EntryLogMetadataManager {
 
+    private final static Logger LOG = LoggerFactory.getLogger(EntryLogMetadataManager.class);
+
     /**
      * Records the total size, remaining size and the set of ledgers that comprise a entry log.
      */
@@ -43,29 +50,25 @@ class EntryLogMetadataManager {
         final long entryLogId;
         long totalSize;
         long remainingSize;
-        final ConcurrentHashMap<Long, Long> ledgersMap;
+        // a metadata is kept for every entry log, so ledger sizes are kept unboxed
+        final ConcurrentLongLongHashMap ledgersMap;
 
         public EntryLogMetadata(long logId) {
             this.entryLogId = logId;
 
             totalSize = remainingSize = 0;
-            ledgersMap = new ConcurrentHashMap<Long, Long>();
+            ledgersMap = new ConcurrentLongLongHashMap(16, 1);
         }
 
         public void addLedgerSize(long ledgerId, long size) {
             totalSize += size;
             remainingSize += size;
-            Long ledgerSize = ledgersMap.get(ledgerId);
-            if (null == ledgerSize) {
-                ledgerSize = 0L;
-            }
-            ledgerSize += size;
-            ledgersMap.put(ledgerId, ledgerSize);
+            ledgersMap.addAndGet(ledgerId, size);
         }
 
         public void removeLedger(long ledgerId) {
-            Long size = ledgersMap.remove(ledgerId);
-            if (null == size) {
+            long size = ledgersMap.remove(ledgerId);
+            if (ConcurrentLongLongHashMap.NO_VALUE == size) {
                 return;
             }
             remainingSize -= size;
@@ -110,8 +113,15 @@ class EntryLogMetadataManager {
     private final AtomicLong totalSize = new AtomicLong(0L);
     private final ConcurrentMap<Long, EntryLogMetadata> entryLogMetadataMap =
             new ConcurrentHashMap<Long, EntryLogMetadata>();
+    // persisted index of the metadata, null if the metadata is only kept in memory
+    private volatile EntryLogMetadataIndex metadataIndex;
 
     EntryLogMetadataManager(StatsLogger statsLogger) {
+        this(null, statsLogger);
+    }
+
+    EntryLogMetadataManager(EntryLogMetadataIndex metadataIndex, StatsLogger statsLogger) {
+        this.metadataIndex = metadataIndex;
         statsLogger.registerGauge(
                 GC_TOTAL_SCANNED_BYTES,
                 new Gauge<Number>() {
@@ -140,6 +150,91 @@ class EntryLogMetadataManager {
                 });
     }
 
+    /**
+     * Load the entry log metadata persisted in the metadata index, if any.
+     *
+     * @param existingEntryLogs
+     *          entry logs which exist on disk. The metadata of other entry logs
+     *          is obsolete and dropped from the index.
+     */
+    void loadEntryLogMetadata(Set<Long> existingEntryLogs) {
+        EntryLogMetadataIndex index = metadataIndex;
+        if (null == index) {
+            return;
+        }
+        Map<Long, EntryLogMetadata> metadatas;
+        try {
+            metadatas = index.load();
+        } catch (IOException ioe) {
+            LOG.warn("Failed to load the entry log metadata index, entry logs will be scanned : ", ioe);
+            disableIndex(index);
+            return;
+        }
+        for (EntryLogMetadata metadata : metadatas.values()) {
+            if (existingEntryLogs.contains(metadata.entryLogId)) {
+                EntryLogMetadata oldMetadata = entryLogMetadataMap.put(metadata.entryLogId, metadata);
+                if (null != oldMetadata) {
+                    totalSize.addAndGet(-oldMetadata.totalSize);
+                }
+                totalSize.addAndGet(metadata.totalSize);
+            } else {
+                LOG.info("Entry log {} found in the metadata index doesn't exist anymore.", metadata.entryLogId);
+                removeFromIndex(metadata.entryLogId);
+            }
+        }
+    }
+
+    private void disableIndex(EntryLogMetadataIndex index) {
+        // metadata missing from the index is read from the entry logs again
+        metadataIndex = null;
+        try {
+            index.close();
+        } catch (IOException ioe) {
+            LOG.warn("Failed to close the entry log metadata index : ", ioe);
+        }
+    }
+
+    private void addToIndex(EntryLogMetadata metadata) {
+        EntryLogMetadataIndex index = metadataIndex;
+        if (null == index) {
+            return;
+        }
+        try {
+            index.addEntryLogMetadata(metadata);
+            if (index.needsRewrite()) {
+                index.rewrite(entryLogMetadataMap.values());
+            }
+        } catch (IOException ioe) {
+            LOG.warn("Failed to persist the metadata of entry log " + metadata.entryLogId
+                     + ", disabling the entry log metadata index : ", ioe);
+            disableIndex(index);
+        }
+    }
+
+    private void removeFromIndex(long entryLogId) {
+        EntryLogMetadataIndex index = metadataIndex;
+        if (null == index) {
+            return;
+        }
+        try {
+            index.removeEntryLogMetadata(entryLogId);
+        } catch (IOException ioe) {
+            LOG.warn("Failed to remove the metadata of entry log " + entryLogId
+                     + ", disabling the entry log metadata index : ", ioe);
+            disableIndex(index);
+        }
+    }
+
+    /**
+     * Close the metadata index.
+     */
+    void close() {
+        EntryLogMetadataIndex index = metadataIndex;
+        if (null != index) {
+            disableIndex(index);
+        }
+    }
+
     public Set<Long> getEntryLogs() {
         return entryLogMetadataMap.keySet();
     }
@@ -159,6 +254,7 @@ class EntryLogMetadataManager {
             totalSize.addAndGet(-oldMetadata.totalSize);
         }
         totalSize.addAndGet(metadata.totalSize);
+        addToIndex(metadata);
     }
 
     /**
@@ -183,6 +279,7 @@ class EntryLogMetadataManager {
         if (null != metadata) {
             totalSize.addAndGet(-metadata.totalSize);
         }
+        removeFromIndex(entryLogId);
     }
 
     /**
@@ -40,10 +40,11 @@ import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
@@ -55,6 +56,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.MapMaker;
@@ -66,11 +68,11 @@ import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.NullStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.util.IOUtils;
+import org.apache.bookkeeper.util.MathUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
-import static org.apache.bookkeeper.util.BookKeeperConstants.MAX_LOG_SIZE_LIMIT;
 
 /**
  * This class manages the writing of the bookkeeper entries. All the new
@@ -309,15 +311,18 @@ public class EntryLogger {
     private static class EntryLogWriteChannel extends BufferedChannel {
 
         private final long logId;
+        private final File logDir;
         private final EntryLogMetadata metadata;
 
         EntryLogWriteChannel(long logId,
+                             File logDir,
                              FileChannel fc,
                              int writeCapacity,
                              int readCapacity)
                 throws IOException {
             super(fc, writeCapacity, readCapacity);
             this.logId = logId;
+            this.logDir = logDir;
             this.metadata = new EntryLogMetadata(logId);
         }
 
@@ -325,6 +330,10 @@ public class EntryLogger {
             return logId;
         }
 
+        public File getLogDir() {
+            return logDir;
+        }
+
         public EntryLogMetadata getMetadata() {
             return metadata;
         }
@@ -344,7 +353,7 @@ public class EntryLogger {
             long startOffsetOfLedgerMapEntry = position();
 
             ByteBuffer buffer = ByteBuffer.allocate(MAX_LEDGERMAP_ENTRY_LENGTH);
-            Iterator<Map.Entry<Long, Long>> entryIterator = metadata.ledgersMap.entrySet().iterator();
+            long[] ledgers = metadata.ledgersMap.keys();
 
             int numEntries = 0;
 
@@ -353,8 +362,12 @@ public class EntryLogger {
             buffer.putLong(METADATA_LEDGERMAP_ENTRY);
             buffer.putInt(numEntries);
 
-            while (entryIterator.hasNext()) {
-                Map.Entry<Long, Long> entry = entryIterator.next();
+            for (long ledgerId : ledgers) {
+                long ledgerSize = metadata.ledgersMap.get(ledgerId);
+                if (ledgerSize < 0) {
+                    // removed meanwhile
+                    continue;
+                }
                 if (buffer.remaining() < LEDGER_MAP_ENTRY_LENGTH) {
                     int size = buffer.position();
                     buffer.flip();
@@ -369,11 +382,10 @@ public class EntryLogger {
                     buffer.putLong(INVALID_LID);
                     buffer.putLong(METADATA_LEDGERMAP_ENTRY);
                     buffer.putInt(numEntries);
-                } else {
-                    buffer.putLong(entry.getKey());
-                    buffer.putLong(entry.getValue());
-                    ++numEntries;
                 }
+                buffer.putLong(ledgerId);
+                buffer.putLong(ledgerSize);
+                ++numEntries;
             }
             int size = buffer.position();
             buffer.flip();
@@ -403,9 +415,31 @@ public class EntryLogger {
         }
     }
 
+    /**
+     * An entry log being written. Ledgers are mapped to the active entry logs
+     * by ledger id.
+     */
+    private static class ActiveEntryLog {
+        // directory to create the entry logs in, null for any writable ledger directory
+        final File preferredDir;
+        final AtomicBoolean shouldCreateNewEntryLog = new AtomicBoolean(false);
+        volatile EntryLogWriteChannel logChannel;
+        volatile File currentDir;
+
+        ActiveEntryLog(File preferredDir) {
+            this.preferredDir = preferredDir;
+        }
+    }
+
+    // directory of the most recently created entry log
     volatile File currentDir;
     private final LedgerDirsManager ledgerDirsManager;
-    private final AtomicBoolean shouldCreateNewEntryLog = new AtomicBoolean(false);
+    // a single active entry log, or one per ledger directory
+    private final ActiveEntryLog[] activeLogs;
+    // entries are added under the read lock, while the active entry logs are
+    // all rolled together under the write lock. so a rotation means that all the
+    // entries added before it are in rotated entry logs.
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
 
     private volatile long leastUnflushedLogId;
     private volatile long curLogId;
@@ -414,15 +448,18 @@ public class EntryLogger {
      */
     final long logSizeLimit;
     final boolean readLedgersMapEnabled;
+    // format of the locations returned by addEntry
+    final EntryLocationFormat locationFormat;
     final boolean writeLedgersMapEnabled;
     private List<EntryLogWriteChannel> logChannelsToFlush;
     private final AtomicInteger numPendingLogFilesToFlush = new AtomicInteger(0);
-    private volatile EntryLogWriteChannel logChannel;
     private final EntryLoggerAllocator entryLoggerAllocator;
     private final boolean entryLogPreAllocationEnabled;
 
     // Entry Log Metadata Management
     private final EntryLogMetadataManager entryLogMetadataManager;
+    // reader of the flushed entry logs, null if they are read with positional reads
+    private final EntryLogMappedReader mappedReader;
     private final CopyOnWriteArraySet<EntryLogListener> listeners
             = new CopyOnWriteArraySet<EntryLogListener>();
 
@@ -487,13 +524,34 @@ public class EntryLogger {
                        StatsLogger statsLogger)
             throws IOException {
         this.ledgerDirsManager = ledgerDirsManager;
+        if (conf.isEntryLogPerLedgerDirEnabled()) {
+            List<File> ledgerDirs = ledgerDirsManager.getAllLedgerDirs();
+            this.activeLogs = new ActiveEntryLog[ledgerDirs.size()];
+            for (int i = 0; i < activeLogs.length; i++) {
+                activeLogs[i] = new ActiveEntryLog(ledgerDirs.get(i));
+            }
+        } else {
+            this.activeLogs = new ActiveEntryLog[] { new ActiveEntryLog(null) };
+        }
         addListener(listener);
         // log size limit
-        this.logSizeLimit = Math.min(conf.getEntryLogSizeLimit(), MAX_LOG_SIZE_LIMIT);
+        this.locationFormat = EntryLocationFormat.fromVersion(conf.getEntryLocationFormatVersion());
+        this.logSizeLimit = Math.min(conf.getEntryLogSizeLimit(), locationFormat.maxLogSizeLimit);
         this.entryLogPreAllocationEnabled = conf.isEntryLogFilePreAllocationEnabled();
         this.writeLedgersMapEnabled = conf.isEntryLogWriteLedgersMapEnabled();
         this.readLedgersMapEnabled = conf.isEntryLogReadLedgersMapEnabled();
-        this.entryLogMetadataManager = new EntryLogMetadataManager(statsLogger);
+        EntryLogMetadataIndex metadataIndex = null;
+        if (conf.isEntryLogMetadataIndexEnabled()) {
+            metadataIndex = new EntryLogMetadataIndex(
+                    EntryLogMetadataIndex.getIndexFile(ledgerDirsManager.getAllLedgerDirs()));
+        }
+        this.entryLogMetadataManager = new EntryLogMetadataManager(metadataIndex, statsLogger);
+        if (conf.isEntryLogMmapReadEnabled()) {
+            this.mappedReader = new EntryLogMappedReader(conf.getEntryLogMmapRegionSize(),
+                    conf.getEntryLogMmapCacheSize(), statsLogger);
+        } else {
+            this.mappedReader = null;
+        }
 
         // Initialize the entry log header buffer. This cannot be a static object
         // since in our unit tests, we run multiple Bookies and thus EntryLoggers
@@ -516,6 +574,9 @@ public class EntryLogger {
         }
         this.leastUnflushedLogId = logId + 1;
         this.entryLoggerAllocator = new EntryLoggerAllocator(logId);
+        if (null != metadataIndex) {
+            entryLogMetadataManager.loadEntryLogMetadata(getEntryLogIds());
+        }
         this.serverCfg = conf;
         initialize();
 
@@ -571,9 +632,9 @@ public class EntryLogger {
     }
 
     /**
-     * If the log id of current writable channel is the same as entryLogId and the position
+     * If the log id of an active writable channel is the same as entryLogId and the position
      * we want to read might end up reading from a position in the write buffer of the
-     * buffered channel, route this read to the current logChannel. Else,
+     * buffered channel, route this read to that logChannel. Else,
      * read from the EntryLogReadChannel that is provided.
      * @param entryLogId
      * @param channel
@@ -585,14 +646,15 @@ public class EntryLogger {
     private int readFromLogChannel(long entryLogId, EntryLogReadChannel channel,
                                    ByteBuffer buff, long pos)
             throws IOException {
-        EntryLogWriteChannel bc = logChannel;
-        if (null != bc) {
-            if (entryLogId == bc.getLogId()) {
+        for (ActiveEntryLog activeLog : activeLogs) {
+            EntryLogWriteChannel bc = activeLog.logChannel;
+            if (null != bc && entryLogId == bc.getLogId()) {
                 synchronized (bc) {
                     if (pos + buff.remaining() >= bc.getFileChannelPosition()) {
                         return bc.read(buff, pos);
                     }
                 }
+                break;
             }
         }
         return channel.read(buff, pos);
@@ -600,8 +662,8 @@ public class EntryLogger {
 
     /**
      * A thread-local variable that wraps a mapping of log ids to bufferedchannels
-     * These channels should be used only for reading. logChannel is the one
-     * that is used for writes.
+     * These channels should be used only for reading. The channels of the active
+     * entry logs are the ones used for writes.
      */
     private final ThreadLocal<Map<Long, EntryLogReadChannel>> logid2channel
             = new ThreadLocal<Map<Long, EntryLogReadChannel>>() {
@@ -647,6 +709,10 @@ public class EntryLogger {
                 LOG.warn("Exception while closing channel for log file:" + logId);
             }
         }
+        // the file channel is closed first, so regions being mapped concurrently aren't cached
+        if (null != mappedReader) {
+            mappedReader.removeEntryLog(logId);
+        }
     }
 
     public EntryLogReadChannel getFromChannels(long logId) {
@@ -689,18 +755,14 @@ public class EntryLogger {
             public void diskFull(File disk) {
                 // If the current entry log disk is full, then create new entry
                 // log.
-                if (currentDir != null && currentDir.equals(disk)) {
-                    shouldCreateNewEntryLog.set(true);
-                }
+                requestNewEntryLog(disk);
             }
 
             @Override
             public void diskAlmostFull(File disk) {
                 // If the current entry log disk is almost full, then create new entry
                 // log.
-                if (currentDir != null && currentDir.equals(disk)) {
-                    shouldCreateNewEntryLog.set(true);
-                }
+                requestNewEntryLog(disk);
             }
 
             @Override
@@ -730,41 +792,86 @@ public class EntryLogger {
         };
     }
 
+    private void requestNewEntryLog(File disk) {
+        for (ActiveEntryLog activeLog : activeLogs) {
+            File dir = activeLog.currentDir;
+            if (dir != null && dir.equals(disk)) {
+                activeLog.shouldCreateNewEntryLog.set(true);
+            }
+        }
+    }
+
     /**
-     * Rolling a new log file to write.
+     * Rolling new log files to write.
      */
-    synchronized void rollLog() throws IOException {
-        createNewLog();
+    void rollLog() throws IOException {
+        rotationLock.writeLock().lock();
+        try {
+            createNewLog();
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
     }
 
     /**
-     * Creates a new log file
+     * Roll the active entry logs, unless entry log <i>logId</i> was already rolled.
+     */
+    private void rollLog(ActiveEntryLog activeLog, long logId) throws IOException {
+        rotationLock.writeLock().lock();
+        try {
+            EntryLogWriteChannel logChannel = activeLog.logChannel;
+            if (null == logChannel || logChannel.getLogId() == logId) {
+                createNewLog();
+            }
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Creates new log files for all the active entry logs.
      */
     void createNewLog() throws IOException {
+        boolean rotated = false;
+        for (ActiveEntryLog activeLog : activeLogs) {
+            rotated |= createNewLog(activeLog);
+        }
+        if (rotated) {
+            for (EntryLogListener listener : listeners) {
+                listener.onRotateEntryLog();
+            }
+        }
+    }
+
+    private boolean createNewLog(ActiveEntryLog activeLog) throws IOException {
+        activeLog.shouldCreateNewEntryLog.set(false);
         // first tried to create a new log channel. add current log channel to ToFlush list only when
         // there is a new log channel. it would prevent that a log channel is referenced by both
         // *logChannel* and *ToFlush* list.
+        EntryLogWriteChannel logChannel = activeLog.logChannel;
         if (null != logChannel) {
-            if (null == logChannelsToFlush) {
-                logChannelsToFlush = new LinkedList<EntryLogWriteChannel>();
-                numPendingLogFilesToFlush.set(0);
-            }
             // flush the internal buffer back to filesystem but not sync disk
             // so the readers could access the data from filesystem.
             logChannel.flush(false);
-            EntryLogWriteChannel newLogChannel = entryLoggerAllocator.createNewLog();
-            logChannelsToFlush.add(logChannel);
-            numPendingLogFilesToFlush.incrementAndGet();
-            LOG.info("Flushing entry logger {} back to filesystem, pending for syncing entry loggers : {}.",
-                    logChannel.getLogId(), logChannelsToFlush);
-            for (EntryLogListener listener : listeners) {
-                listener.onRotateEntryLog();
+        }
+        EntryLogWriteChannel newLogChannel = entryLoggerAllocator.createNewLog(activeLog.preferredDir);
+        synchronized (this) {
+            if (null != logChannel) {
+                if (null == logChannelsToFlush) {
+                    logChannelsToFlush = new LinkedList<EntryLogWriteChannel>();
+                    numPendingLogFilesToFlush.set(0);
+                }
+                logChannelsToFlush.add(logChannel);
+                numPendingLogFilesToFlush.incrementAndGet();
+                LOG.info("Flushing entry logger {} back to filesystem, pending for syncing entry loggers : {}.",
+                        logChannel.getLogId(), logChannelsToFlush);
             }
-            logChannel = newLogChannel;
-        } else {
-            logChannel = entryLoggerAllocator.createNewLog();
+            activeLog.logChannel = newLogChannel;
+            activeLog.currentDir = newLogChannel.getLogDir();
+            currentDir = newLogChannel.getLogDir();
+            curLogId = newLogChannel.getLogId();
         }
-        curLogId = logChannel.getLogId();
+        return null != logChannel;
     }
 
     /**
@@ -782,11 +889,15 @@ public class EntryLogger {
                     new ThreadFactoryBuilder().setNameFormat("EntryLoggerAllocator-%d").build());
         }
 
-        synchronized EntryLogWriteChannel createNewLog() throws IOException {
+        /**
+         * Create a new log, in <i>preferredDir</i> if it is writable. The logs
+         * with a preferred directory aren't pre-allocated.
+         */
+        synchronized EntryLogWriteChannel createNewLog(File preferredDir) throws IOException {
             EntryLogWriteChannel bc;
-            if (!entryLogPreAllocationEnabled || null == preallocation) {
+            if (!entryLogPreAllocationEnabled || null == preallocation || null != preferredDir) {
                 // initialization time to create a new log
-                bc = allocateNewLog();
+                bc = allocateNewLog(preferredDir);
             } else {
                 // has a preallocated entry log
                 try {
@@ -805,7 +916,7 @@ public class EntryLogger {
                 preallocation = allocatorExecutor.submit(new Callable<EntryLogWriteChannel>() {
                     @Override
                     public EntryLogWriteChannel call() throws IOException {
-                        return allocateNewLog();
+                        return allocateNewLog(null);
                     }
                 });
             }
@@ -816,7 +927,7 @@ public class EntryLogger {
         /**
          * Allocate a new log file.
          */
-        EntryLogWriteChannel allocateNewLog() throws IOException {
+        EntryLogWriteChannel allocateNewLog(File preferredDir) throws IOException {
             List<File> list = ledgerDirsManager.getWritableLedgerDirs();
 
             if (list.isEmpty()) {
@@ -824,10 +935,14 @@ public class EntryLogger {
             }
 
             Collections.shuffle(list);
+            // the new log is created in the last directory of the list
+            if (null != preferredDir && list.remove(preferredDir)) {
+                list.add(preferredDir);
+            }
             // It would better not to overwrite existing entry log files
             File newLogFile = null;
             do {
-                if (preallocatedLogId >= Integer.MAX_VALUE) {
+                if (preallocatedLogId >= locationFormat.maxLogId) {
                     preallocatedLogId = 0;
                 } else {
                     ++preallocatedLogId;
@@ -835,7 +950,6 @@ public class EntryLogger {
                 String logFileName = Long.toHexString(preallocatedLogId) + ".log";
                 for (File dir : list) {
                     newLogFile = new File(dir, logFileName);
-                    currentDir = dir;
                     if (newLogFile.exists()) {
                         LOG.warn("Found existed entry log " + newLogFile
                                + " when trying to create it as a new log.");
@@ -846,7 +960,8 @@ public class EntryLogger {
             } while (newLogFile == null);
 
             FileChannel channel = new RandomAccessFile(newLogFile, "rw").getChannel();
-            EntryLogWriteChannel logChannel = new EntryLogWriteChannel(preallocatedLogId, channel,
+            EntryLogWriteChannel logChannel = new EntryLogWriteChannel(preallocatedLogId,
+                    newLogFile.getParentFile(), channel,
                     serverCfg.getWriteBufferBytes(), serverCfg.getReadBufferBytes());
             logChannel.writeHeader((ByteBuffer) LOGFILE_HEADER.clear());
 
@@ -921,6 +1036,17 @@ public class EntryLogger {
             return id;
         }
         // read failed, scan the ledger directories to find biggest log id
+        List<Long> logs = listEntryLogIds(dir);
+        // no log file found in this directory
+        if (0 == logs.size()) {
+            return -1;
+        }
+        // order the collections
+        Collections.sort(logs);
+        return logs.get(logs.size() - 1);
+    }
+
+    private static List<Long> listEntryLogIds(File dir) {
         File[] logFiles = dir.listFiles(new FileFilter() {
             @Override
             public boolean accept(File file) {
@@ -928,6 +1054,9 @@ public class EntryLogger {
             }
         });
         List<Long> logs = new ArrayList<Long>();
+        if (null == logFiles) {
+            return logs;
+        }
         for (File lf : logFiles) {
             String idString = lf.getName().split("\\.")[0];
             try {
@@ -936,13 +1065,18 @@ public class EntryLogger {
             } catch (NumberFormatException nfe) {
             }
         }
-        // no log file found in this directory
-        if (0 == logs.size()) {
-            return -1;
+        return logs;
+    }
+
+    /**
+     * Get the ids of the entry logs in all the ledger directories.
+     */
+    private Set<Long> getEntryLogIds() {
+        Set<Long> logs = new HashSet<Long>();
+        for (File dir : ledgerDirsManager.getAllLedgerDirs()) {
+            logs.addAll(listEntryLogIds(dir));
         }
-        // order the collections
-        Collections.sort(logs);
-        return logs.get(logs.size() - 1);
+        return logs;
     }
 
     /**
@@ -1005,8 +1139,23 @@ public class EntryLogger {
             }
             LOG.info("Synced entry logger {} to disk.", channel.getLogId());
         }
-        // move the leastUnflushedLogId ptr
-        leastUnflushedLogId = flushedLogId + 1;
+        // move the leastUnflushedLogId ptr, which can't pass the active entry logs
+        // nor the entry logs rotated meanwhile
+        long leastUnflushed = flushedLogId + 1;
+        synchronized (this) {
+            if (null != logChannelsToFlush) {
+                for (EntryLogWriteChannel channel : logChannelsToFlush) {
+                    leastUnflushed = Math.min(leastUnflushed, channel.getLogId());
+                }
+            }
+            for (ActiveEntryLog activeLog : activeLogs) {
+                EntryLogWriteChannel channel = activeLog.logChannel;
+                if (null != channel) {
+                    leastUnflushed = Math.min(leastUnflushed, channel.getLogId());
+                }
+            }
+            leastUnflushedLogId = leastUnflushed;
+        }
     }
 
     void flush() throws IOException {
@@ -1014,10 +1163,20 @@ public class EntryLogger {
         flushCurrentLog();
     }
 
-    synchronized void flushCurrentLog() throws IOException {
-        if (logChannel != null) {
-            logChannel.flush(true);
-            LOG.info("Flush and sync current entry logger {}.", logChannel.getLogId());
+    void flushCurrentLog() throws IOException {
+        rotationLock.readLock().lock();
+        try {
+            for (ActiveEntryLog activeLog : activeLogs) {
+                synchronized (activeLog) {
+                    EntryLogWriteChannel logChannel = activeLog.logChannel;
+                    if (logChannel != null) {
+                        logChannel.flush(true);
+                        LOG.info("Flush and sync current entry logger {}.", logChannel.getLogId());
+                    }
+                }
+            }
+        } finally {
+            rotationLock.readLock().unlock();
         }
     }
 
@@ -1025,47 +1184,68 @@ public class EntryLogger {
         return addEntry(ledgerId, entry, true);
     }
 
-    synchronized long addEntry(long ledgerId, ByteBuffer entry, boolean rollLog) throws IOException {
+    long addEntry(long ledgerId, ByteBuffer entry, boolean rollLog) throws IOException {
+        ActiveEntryLog activeLog = activeLogs.length == 1
+                ? activeLogs[0] : activeLogs[MathUtils.signSafeMod(ledgerId, activeLogs.length)];
         int entrySize = entry.remaining() + 4;
-        boolean reachEntryLogLimit =
-                rollLog ? reachEntryLogLimit(entrySize) : reachEntryLogHardLimit(entrySize);
-        // Create new log if logSizeLimit reached or current disk is full
-        boolean createNewLog = shouldCreateNewEntryLog.get();
-        if (createNewLog || reachEntryLogLimit) {
-            createNewLog();
-
-            // Reset the flag
-            if (createNewLog) {
-                shouldCreateNewEntryLog.set(false);
+        while (true) {
+            long logIdToRoll;
+            rotationLock.readLock().lock();
+            try {
+                synchronized (activeLog) {
+                    EntryLogWriteChannel logChannel = activeLog.logChannel;
+                    boolean reachEntryLogLimit = rollLog
+                            ? reachEntryLogLimit(logChannel, entrySize) : reachEntryLogHardLimit(logChannel, entrySize);
+                    // Create new log if logSizeLimit reached or current disk is full
+                    if (!reachEntryLogLimit && !activeLog.shouldCreateNewEntryLog.get()) {
+                        ByteBuffer buff = ByteBuffer.allocate(4);
+                        buff.putInt(entry.remaining());
+                        buff.flip();
+                        logChannel.write(buff);
+
+                        int entryLength = entry.remaining() + 4;
+                        long pos = logChannel.position();
+                        logChannel.write(entry);
+                        logChannel.getMetadata().addLedgerSize(ledgerId, entryLength);
+                        return locationFormat.toLocation(logChannel.getLogId(), pos);
+                    }
+                    logIdToRoll = logChannel.getLogId();
+                }
+            } finally {
+                rotationLock.readLock().unlock();
             }
+            rollLog(activeLog, logIdToRoll);
         }
-        ByteBuffer buff = ByteBuffer.allocate(4);
-        buff.putInt(entry.remaining());
-        buff.flip();
-        logChannel.write(buff);
+    }
 
-        int entryLength = entry.remaining() + 4;
-        long pos = logChannel.position();
-        logChannel.write(entry);
-        logChannel.getMetadata().addLedgerSize(ledgerId, entryLength);
-        return (logChannel.getLogId() << 32L) | pos;
+    long logIdForOffset(long offset) {
+        return locationFormat.getLogId(offset);
     }
 
-    static long logIdForOffset(long offset) {
-        return offset >> 32L;
+    /**
+     * @return true if any active entry log would exceed the entry log size limit
+     *         after <i>size</i> more bytes.
+     */
+    boolean reachEntryLogLimit(long size) {
+        for (ActiveEntryLog activeLog : activeLogs) {
+            if (reachEntryLogLimit(activeLog.logChannel, size)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    synchronized boolean reachEntryLogLimit(long size) {
+    private boolean reachEntryLogLimit(EntryLogWriteChannel logChannel, long size) {
         return logChannel.position() + size > logSizeLimit;
     }
 
-    synchronized boolean reachEntryLogHardLimit(long size) {
-        return logChannel.position() + size > Integer.MAX_VALUE;
+    private boolean reachEntryLogHardLimit(EntryLogWriteChannel logChannel, long size) {
+        return logChannel.position() + size > locationFormat.maxLogSize;
     }
 
     byte[] readEntry(long ledgerId, long entryId, long location) throws IOException, Bookie.NoEntryException {
-        long entryLogId = location >> 32L;
-        long pos = location & 0xffffffffL;
+        long entryLogId = locationFormat.getLogId(location);
+        long pos = locationFormat.getOffset(location);
         ByteBuffer sizeBuff = ByteBuffer.allocate(4);
         pos -= 4; // we want to get the ledgerId and length to check
         EntryLogReadChannel fc;
@@ -1109,21 +1289,105 @@ public class EntryLogger {
                                               + pos + "("+rc+"!="+data.length+")", ledgerId, entryId);
         }
         buff.flip();
-        long thisLedgerId = buff.getLong();
+        checkEntry(buff, ledgerId, entryId, entryLogId, pos);
+        return data;
+    }
+
+    private static void checkEntry(ByteBuffer entry, long ledgerId, long entryId, long entryLogId, long pos)
+            throws IOException {
+        long thisLedgerId = entry.getLong(entry.position());
         if (thisLedgerId != ledgerId) {
             throw new IOException("problem found in " + entryLogId + "@" + entryId + " at position + " + pos + " entry belongs to " + thisLedgerId + " not " + ledgerId);
         }
-        long thisEntryId = buff.getLong();
+        long thisEntryId = entry.getLong(entry.position() + 8);
         if (thisEntryId != entryId) {
             throw new IOException("problem found in " + entryLogId + "@" + entryId + " at position + " + pos + " entry is " + thisEntryId + " not " + entryId);
         }
+    }
 
-        return data;
+    /**
+     * Read an entry into a buffer. The entries of flushed entry logs are read from
+     * memory mapped regions when enabled, otherwise entries are read like
+     * {@link #readEntry(long, long, long)}.
+     */
+    ByteBuffer readEntryBuffer(long ledgerId, long entryId, long location) throws IOException {
+        long entryLogId = locationFormat.getLogId(location);
+        // flushed entry logs are never written again, so their mapped regions are stable
+        if (null != mappedReader && entryLogId < leastUnflushedLogId) {
+            long pos = locationFormat.getOffset(location);
+            FileChannel fc;
+            try {
+                fc = getFileChannelForLogId(entryLogId);
+            } catch (FileNotFoundException fnfe) {
+                // reported by the regular read path
+                fc = null;
+            }
+            ByteBuffer entry = null == fc ? null : mappedReader.readEntry(entryLogId, fc, pos);
+            if (null != entry && entry.remaining() >= MIN_SANE_ENTRY_SIZE) {
+                checkEntry(entry, ledgerId, entryId, entryLogId, pos);
+                return entry;
+            }
+        }
+        return ByteBuffer.wrap(readEntry(ledgerId, entryId, location));
     }
 
-    private EntryLogReadChannel getChannelForLogId(long entryLogId) throws IOException {
-        EntryLogReadChannel fc = getFromChannels(entryLogId);
-        if (fc != null) {
+    /**
+     * Read entries of a ledger with a single read of their entry log. The entries
+     * must be in the same entry log, at increasing locations. The last location
+     * only bounds the read, its entry isn't read.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param firstEntryId
+     *          id of the entry at the first location, the next locations being
+     *          the locations of the next entries.
+     * @param locations
+     *          locations of the entries.
+     * @return the entries at all the locations but the last one, with null for the
+     *         entries which couldn't be read.
+     */
+    ByteBuffer[] readEntries(long ledgerId, long firstEntryId, long[] locations) throws IOException {
+        long entryLogId = locationFormat.getLogId(locations[0]);
+        long start = locationFormat.getOffset(locations[0]) - 4;
+        long end = locationFormat.getOffset(locations[locations.length - 1]) - 4;
+        ByteBuffer range = ByteBuffer.allocate((int) (end - start));
+        if (entryLogId < leastUnflushedLogId) {
+            // read flushed entry logs at once, rather than through the small read buffers
+            FileChannel fc = getFileChannelForLogId(entryLogId);
+            while (range.hasRemaining()) {
+                if (fc.read(range, start + range.position()) <= 0) {
+                    break;
+                }
+            }
+        } else {
+            readFromLogChannel(entryLogId, getChannelForLogId(entryLogId), range, start);
+        }
+        range.flip();
+        ByteBuffer[] entries = new ByteBuffer[locations.length - 1];
+        for (int i = 0; i < entries.length; i++) {
+            int sizePos = (int) (locationFormat.getOffset(locations[i]) - 4 - start);
+            if (sizePos + 4 > range.limit()) {
+                break;
+            }
+            int entrySize = range.getInt(sizePos);
+            if (entrySize < MIN_SANE_ENTRY_SIZE || sizePos + 4L + entrySize > range.limit()) {
+                continue;
+            }
+            ByteBuffer entry = range.duplicate();
+            entry.limit(sizePos + 4 + entrySize);
+            entry.position(sizePos + 4);
+            entry = entry.slice();
+            if (entry.getLong(0) != ledgerId || entry.getLong(8) != firstEntryId + i) {
+                continue;
+            }
+            entries[i] = entry;
+        }
+        return entries;
+    }
+
+    private FileChannel getFileChannelForLogId(long entryLogId) throws IOException {
+        FileChannel fc = logid2filechannel.get(entryLogId);
+        if (null != fc) {
             return fc;
         }
         File file = findFile(entryLogId);
@@ -1135,9 +1399,17 @@ public class EntryLogger {
             newFc.close();
             newFc = oldFc;
         }
+        return newFc;
+    }
+
+    private EntryLogReadChannel getChannelForLogId(long entryLogId) throws IOException {
+        EntryLogReadChannel fc = getFromChannels(entryLogId);
+        if (fc != null) {
+            return fc;
+        }
         // We set the position of the write buffer of this buffered channel to Long.MAX_VALUE
         // so that there are no overlaps with the write buffer while reading
-        fc = new EntryLogReadChannel(entryLogId, newFc, serverCfg.getReadBufferBytes());
+        fc = new EntryLogReadChannel(entryLogId, getFileChannelForLogId(entryLogId), serverCfg.getReadBufferBytes());
         putInChannels(entryLogId, fc);
         return fc;
     }
@@ -1318,9 +1590,11 @@ public class EntryLogger {
             }
             // clear the mapping, so we don't need to go through the channels again in finally block in normal case.
             logid2filechannel.clear();
-            // close current writing log file
-            closeFileChannel(logChannel);
-            logChannel = null;
+            // close current writing log files
+            for (ActiveEntryLog activeLog : activeLogs) {
+                closeFileChannel(activeLog.logChannel);
+                activeLog.logChannel = null;
+            }
         } catch (IOException ie) {
             // we have no idea how to avoid io exception during shutting down, so just ignore it
             LOG.error("Error flush entry log during shutting down, which may cause entry log corrupted.", ie);
@@ -1328,10 +1602,16 @@ public class EntryLogger {
             for (FileChannel fc : logid2filechannel.values()) {
                 IOUtils.close(LOG, fc);
             }
-            forceCloseFileChannel(logChannel);
+            for (ActiveEntryLog activeLog : activeLogs) {
+                forceCloseFileChannel(activeLog.logChannel);
+            }
         }
         // shutdown the pre-allocation thread
         entryLoggerAllocator.stop();
+        entryLogMetadataManager.close();
+        if (null != mappedReader) {
+            mappedReader.close();
+        }
     }
 
     private static void closeFileChannel(BufferedChannelBase channel) throws IOException {
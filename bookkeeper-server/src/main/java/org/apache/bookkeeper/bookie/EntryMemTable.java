@@ -23,6 +23,7 @@ import org.apache.bookkeeper.bookie.Bookie.NoLedgerException;
 import org.apache.bookkeeper.bookie.CheckpointSource.Checkpoint;
 import org.apache.bookkeeper.conf.ServerConfiguration;
 import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.OpStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.util.MathUtils;
@@ -31,7 +32,16 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.ConcurrentSkipListMap;
 
@@ -39,27 +49,59 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
 
 /**
  * The EntryMemTable holds in-memory representation to the entries not-yet flushed.
- * When asked to flush, current EntrySkipList is moved to snapshot and is cleared.
- * We continue to serve edits out of new EntrySkipList and backing snapshot until
+ * When asked to flush, current EntrySkipList is moved to the snapshots and is cleared.
+ * We continue to serve edits out of new EntrySkipList and backing snapshots until
  * flusher reports in that the flush succeeded. At that point we let the snapshot go.
+ * <p>
+ * Up to {@link ServerConfiguration#getSkipListMaxPendingSnapshots()} snapshots may wait
+ * for flushing. They are flushed one at a time, oldest first, while writers keep adding
+ * entries to the current set. Writers are only slowed down once the snapshots can't take
+ * more entries, at the measured flush rate.
+ * </p>
  */
 public class EntryMemTable {
     private static Logger Logger = LoggerFactory.getLogger(Journal.class);
 
     /**
-     * Entry skip list
+     * Entries added to the mem-table since a checkpoint.
      */
-    static class EntrySkipList extends ConcurrentSkipListMap<EntryKey, EntryKeyValue> {
+    static abstract class EntrySet {
         final Checkpoint cp;
-        static final EntrySkipList EMPTY_VALUE = new EntrySkipList(Checkpoint.MAX) {
+        static final EntrySet EMPTY_VALUE = new EntrySet(Checkpoint.MAX) {
             @Override
-            public boolean isEmpty() {
+            long add(long ledgerId, long entryId, ByteBuffer entry) {
+                throw new UnsupportedOperationException("Can't add entries to an empty set");
+            }
+
+            @Override
+            EntryKeyValue get(long ledgerId, long entryId) {
+                return null;
+            }
+
+            @Override
+            EntryKeyValue getLastEntry(long ledgerId) {
+                return null;
+            }
+
+            @Override
+            boolean isEmpty() {
                 return true;
             }
+
+            @Override
+            Iterator<EntryKeyValue> iterator() {
+                return Collections.<EntryKeyValue>emptyList().iterator();
+            }
         };
 
-        EntrySkipList(final Checkpoint cp) {
-            super(EntryKey.COMPARATOR);
+        // held while the set is flushed
+        final Object flushLock = new Object();
+        // set once a flusher picked the set
+        final AtomicBoolean claimed = new AtomicBoolean(false);
+        // set once the set is flushed, under the flush lock
+        boolean flushed = false;
+
+        EntrySet(final Checkpoint cp) {
             this.cp = cp;
         }
 
@@ -67,27 +109,120 @@ public class EntryMemTable {
             return this.cp.compareTo(cp);
         }
 
+        /**
+         * Add an entry if it isn't in the set yet.
+         *
+         * @return size of the added entry, 0 if it was already in the set.
+         */
+        abstract long add(long ledgerId, long entryId, ByteBuffer entry);
+
+        /**
+         * @return the entry with the given key, null if none found.
+         */
+        abstract EntryKeyValue get(long ledgerId, long entryId);
+
+        /**
+         * @return the entry with the highest entry id of the given ledger, null if none found.
+         */
+        abstract EntryKeyValue getLastEntry(long ledgerId);
+
+        abstract boolean isEmpty();
+
+        /**
+         * @return iterator over the entries ordered by ledger id and entry id.
+         */
+        abstract Iterator<EntryKeyValue> iterator();
+
+        /**
+         * Called once the set was flushed and no reader can get to it anymore,
+         * to reuse the resources it holds.
+         */
+        void release() {
+        }
+    }
+
+    /**
+     * Entry skip list, with entries copied into a {@link SkipListArena}.
+     */
+    static class EntrySkipList extends EntrySet {
+        final ConcurrentSkipListMap<EntryKey, EntryKeyValue> map =
+                new ConcurrentSkipListMap<EntryKey, EntryKeyValue>(EntryKey.COMPARATOR);
+        final SkipListArena allocator;
+
+        EntrySkipList(final Checkpoint cp, final ServerConfiguration conf) {
+            super(cp);
+            this.allocator = new SkipListArena(conf);
+        }
+
         @Override
-        public EntryKeyValue put(EntryKey k, EntryKeyValue v) {
-            return putIfAbsent(k, v);
+        long add(long ledgerId, long entryId, ByteBuffer entry) {
+            EntryKeyValue toAdd = cloneWithAllocator(ledgerId, entryId, entry);
+            if (map.putIfAbsent(toAdd, toAdd) == null) {
+                return toAdd.getLength();
+            }
+            return 0;
         }
 
         @Override
-        public EntryKeyValue putIfAbsent(EntryKey k, EntryKeyValue v) {
-            assert k.equals(v);
-            return super.putIfAbsent(v, v);
+        EntryKeyValue get(long ledgerId, long entryId) {
+            return map.get(new EntryKey(ledgerId, entryId));
         }
 
         @Override
-        public boolean equals(Object o) {
-            return this == o;
+        EntryKeyValue getLastEntry(long ledgerId) {
+            EntryKey result = map.floorKey(new EntryKey(ledgerId, Long.MAX_VALUE));
+            if (result == null || result.getLedgerId() != ledgerId) {
+                return null;
+            }
+            return (EntryKeyValue)result;
+        }
+
+        @Override
+        boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        Iterator<EntryKeyValue> iterator() {
+            return map.values().iterator();
+        }
+
+        private EntryKeyValue newEntry(long ledgerId, long entryId, final ByteBuffer entry) {
+            byte[] buf;
+            int offset = 0;
+            int length = entry.remaining();
+
+            if (entry.hasArray()) {
+                buf = entry.array();
+                offset = entry.arrayOffset();
+            }
+            else {
+                buf = new byte[length];
+                entry.get(buf);
+            }
+            return new EntryKeyValue(ledgerId, entryId, buf, offset, length);
+        }
+
+        private EntryKeyValue cloneWithAllocator(long ledgerId, long entryId, final ByteBuffer entry) {
+            int len = entry.remaining();
+            SkipListArena.MemorySlice alloc = allocator.allocateBytes(len);
+            if (alloc == null) {
+                // The allocation was too large, allocator decided
+                // not to do anything with it.
+                return newEntry(ledgerId, entryId, entry);
+            }
+
+            assert alloc.getData() != null;
+            entry.get(alloc.getData(), alloc.getOffset(), len);
+            return new EntryKeyValue(ledgerId, entryId, alloc.getData(), alloc.getOffset(), len);
         }
     }
 
-    volatile EntrySkipList kvmap;
+    volatile EntrySet kvmap;
 
-    // Snapshot of EntryMemTable.  Made for flusher.
-    volatile EntrySkipList snapshot;
+    // Snapshots of EntryMemTable, oldest first.  Made for flushers.
+    // Replaced rather than modified, under the write lock.
+    volatile List<EntrySet> snapshots;
 
     final ServerConfiguration conf;
     final CheckpointSource progress;
@@ -98,17 +233,31 @@ public class EntryMemTable {
     final AtomicLong size;
 
     final long skipListSizeLimit;
+    final int maxPendingSnapshots;
 
-    SkipListArena allocator;
+    // signaled when a snapshot is flushed
+    private final Lock flushCompletionLock = new ReentrantLock();
+    private final Condition flushCompleted = flushCompletionLock.newCondition();
+    // smoothed flush rate, in bytes per second
+    private volatile long flushBytesPerSec = 0L;
 
-    private EntrySkipList newSkipList() {
-        return new EntrySkipList(progress.newCheckpoint());
+    // max time a writer waits for a flush, when the flush rate is unknown
+    static final long MAX_THROTTLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Create the set holding the entries added after the current checkpoint.
+     * Called from the constructor, so implementations should only depend on
+     * {@link #conf} and {@link #progress}.
+     */
+    EntrySet newSkipList() {
+        return new EntrySkipList(progress.newCheckpoint(), conf);
     }
 
     // Stats
     private final OpStatsLogger snapshotStats;
     private final OpStatsLogger putEntryStats;
     private final OpStatsLogger getEntryStats;
+    private final OpStatsLogger flushStats;
     private final Counter flushBytesCounter;
     private final Counter throttlingCounter;
 
@@ -120,28 +269,44 @@ public class EntryMemTable {
                          final CheckpointSource progress,
                          final StatsLogger statsLogger) {
         this.progress = progress;
-        this.kvmap = newSkipList();
-        this.snapshot = EntrySkipList.EMPTY_VALUE;
         this.conf = conf;
+        this.kvmap = newSkipList();
+        this.snapshots = Collections.emptyList();
         this.size = new AtomicLong(0);
-        this.allocator = new SkipListArena(conf);
         // skip list size limit
         this.skipListSizeLimit = conf.getSkipListSizeLimit();
+        this.maxPendingSnapshots = Math.max(1, conf.getSkipListMaxPendingSnapshots());
 
         // Stats
         this.snapshotStats = statsLogger.getOpStatsLogger(SKIP_LIST_SNAPSHOT);
         this.putEntryStats = statsLogger.getOpStatsLogger(SKIP_LIST_PUT_ENTRY);
         this.getEntryStats = statsLogger.getOpStatsLogger(SKIP_LIST_GET_ENTRY);
+        this.flushStats = statsLogger.getOpStatsLogger(SKIP_LIST_FLUSH);
         this.flushBytesCounter = statsLogger.getCounter(SKIP_LIST_FLUSH_BYTES);
         this.throttlingCounter = statsLogger.getCounter(SKIP_LIST_THROTTLING);
+        statsLogger.registerGauge(SKIP_LIST_PENDING_SNAPSHOTS, new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return snapshots.size();
+            }
+        });
     }
 
     void dump() {
-        for (EntryKey key: this.kvmap.keySet()) {
-            Logger.info(key.toString());
+        Iterator<EntryKeyValue> iter = this.kvmap.iterator();
+        while (iter.hasNext()) {
+            Logger.info(iter.next().toString());
         }
-        for (EntryKey key: this.snapshot.keySet()) {
-            Logger.info(key.toString());
+        for (EntrySet snapshot : this.snapshots) {
+            iter = snapshot.iterator();
+            while (iter.hasNext()) {
+                Logger.info(iter.next().toString());
+            }
         }
     }
 
@@ -151,6 +316,7 @@ public class EntryMemTable {
 
     /**
      * Snapshot current EntryMemTable. if given <i>oldCp</i> is older than current checkpoint,
+     * or if there are already as many snapshots waiting for flush as allowed,
      * we don't do any snapshot. If snapshot happened, we return the checkpoint of the snapshot.
      *
      * @param oldCp
@@ -160,22 +326,22 @@ public class EntryMemTable {
      */
     Checkpoint snapshot(Checkpoint oldCp) throws IOException {
         Checkpoint cp = null;
-        // No-op if snapshot currently has entries
-        if (this.snapshot.isEmpty() &&
+        // No-op if too many snapshots are waiting for flush
+        if (this.snapshots.size() < maxPendingSnapshots &&
                 this.kvmap.compareTo(oldCp) < 0) {
             final long startTimeNanos = MathUtils.nowInNano();
             this.lock.writeLock().lock();
             try {
-                if (this.snapshot.isEmpty() && !this.kvmap.isEmpty()
+                if (this.snapshots.size() < maxPendingSnapshots && !this.kvmap.isEmpty()
                         && this.kvmap.compareTo(oldCp) < 0) {
-                    this.snapshot = this.kvmap;
+                    List<EntrySet> newSnapshots = new ArrayList<EntrySet>(this.snapshots);
+                    newSnapshots.add(this.kvmap);
+                    this.snapshots = Collections.unmodifiableList(newSnapshots);
                     this.kvmap = newSkipList();
                     // get the checkpoint of the memtable.
                     cp = this.kvmap.cp;
                     // Reset heap to not include any keys
                     this.size.set(0);
-                    // Reset allocator so we get a fresh buffer for the new EntryMemTable
-                    this.allocator = new SkipListArena(conf);
                 }
             } finally {
                 this.lock.writeLock().unlock();
@@ -191,10 +357,10 @@ public class EntryMemTable {
     }
 
     /**
-     * Flush snapshot and clear it.
+     * Flush all the snapshots and clear them.
      */
     long flush(final SkipListFlusher flusher) throws IOException {
-        return flushSnapshot(flusher, Checkpoint.MAX);
+        return flushSnapshots(flusher, Checkpoint.MAX);
     }
 
     /**
@@ -204,71 +370,144 @@ public class EntryMemTable {
      *          all data before this checkpoint need to be flushed.
      */
     public long flush(SkipListFlusher flusher, Checkpoint checkpoint) throws IOException {
-        long size = flushSnapshot(flusher, checkpoint);
+        long size = flushSnapshots(flusher, checkpoint);
         if (null != snapshot(checkpoint)) {
-            size += flushSnapshot(flusher, checkpoint);
+            size += flushSnapshots(flusher, checkpoint);
         }
         return size;
     }
 
     /**
-     * Flush snapshot and clear it iff its data is before checkpoint.
-     * Only this function change non-empty this.snapshot.
+     * Flush the oldest snapshot that no other flusher picked yet, if any.
+     * A snapshot picked by a checkpoint flush is skipped, so it isn't flushed twice.
+     *
+     * @return flushed size
+     */
+    long flushNextSnapshot(final SkipListFlusher flusher) throws IOException {
+        for (EntrySet keyValues : this.snapshots) {
+            if (keyValues.claimed.compareAndSet(false, true)) {
+                return flushSnapshot(flusher, keyValues);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Flush the snapshots whose data is before checkpoint, waiting for the ones
+     * other flushers are flushing.
      */
-    private long flushSnapshot(final SkipListFlusher flusher, Checkpoint checkpoint) throws IOException {
+    private long flushSnapshots(final SkipListFlusher flusher, Checkpoint checkpoint) throws IOException {
         long size = 0;
-        if (this.snapshot.compareTo(checkpoint) < 0) {
-            long ledger, ledgerGC = -1;
-            synchronized (this) {
-                EntrySkipList keyValues = this.snapshot;
-                if (keyValues.compareTo(checkpoint) < 0) {
-                    for (EntryKey key : keyValues.keySet()) {
-                        EntryKeyValue kv = (EntryKeyValue)key;
-                        size += kv.getLength();
-                        ledger = kv.getLedgerId();
-                        if (ledgerGC != ledger) {
-                            try {
-                                flusher.process(ledger, kv.getEntryId(), kv.getValueAsByteBuffer());
-                            } catch (NoLedgerException exception) {
-                                ledgerGC = ledger;
-                            }
+        for (EntrySet keyValues : this.snapshots) {
+            if (keyValues.compareTo(checkpoint) < 0) {
+                keyValues.claimed.set(true);
+                size += flushSnapshot(flusher, keyValues);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Flush a snapshot and clear it, unless it was already flushed.
+     * Only this function removes snapshots.
+     */
+    private long flushSnapshot(final SkipListFlusher flusher, final EntrySet keyValues) throws IOException {
+        long size = 0;
+        long ledger, ledgerGC = -1;
+        synchronized (keyValues.flushLock) {
+            if (keyValues.flushed) {
+                return 0;
+            }
+            final long startTimeNanos = MathUtils.nowInNano();
+            boolean success = false;
+            try {
+                Iterator<EntryKeyValue> iter = keyValues.iterator();
+                while (iter.hasNext()) {
+                    EntryKeyValue kv = iter.next();
+                    size += kv.getLength();
+                    ledger = kv.getLedgerId();
+                    if (ledgerGC != ledger) {
+                        try {
+                            flusher.process(ledger, kv.getEntryId(), kv.getValueAsByteBuffer());
+                        } catch (NoLedgerException exception) {
+                            ledgerGC = ledger;
                         }
                     }
-                    flushBytesCounter.add(size);
-                    clearSnapshot(keyValues);
+                }
+                success = true;
+            } finally {
+                long elapsedNanos = MathUtils.elapsedNanos(startTimeNanos);
+                if (success) {
+                    flushStats.registerSuccessfulEvent(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+                } else {
+                    flushStats.registerFailedEvent(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+                    // let another flusher retry it
+                    keyValues.claimed.set(false);
                 }
             }
+            flushBytesCounter.add(size);
+            updateFlushRate(size, MathUtils.elapsedNanos(startTimeNanos));
+            clearSnapshot(keyValues);
+            keyValues.flushed = true;
+            keyValues.release();
+        }
+        flushCompletionLock.lock();
+        try {
+            flushCompleted.signalAll();
+        } finally {
+            flushCompletionLock.unlock();
         }
-
         return size;
     }
 
+    private void updateFlushRate(long flushedBytes, long elapsedNanos) {
+        if (flushedBytes <= 0) {
+            return;
+        }
+        long rate = flushedBytes * TimeUnit.SECONDS.toNanos(1) / Math.max(1L, elapsedNanos);
+        long avg = flushBytesPerSec;
+        flushBytesPerSec = 0 == avg ? rate : avg + ((rate - avg) >> 2);
+    }
+
     /**
      * The passed snapshot was successfully persisted; it can be let go.
      * @param keyValues The snapshot to clean out.
      * @see {@link #snapshot()}
      */
-    private void clearSnapshot(final EntrySkipList keyValues) {
-        // Caller makes sure that keyValues not empty
-        assert !keyValues.isEmpty();
+    private void clearSnapshot(final EntrySet keyValues) {
         this.lock.writeLock().lock();
         try {
-            // create a new snapshot and let the old one go.
-            assert this.snapshot == keyValues;
-            this.snapshot = EntrySkipList.EMPTY_VALUE;
+            List<EntrySet> newSnapshots = new ArrayList<EntrySet>(this.snapshots);
+            boolean removed = newSnapshots.remove(keyValues);
+            assert removed;
+            this.snapshots = Collections.unmodifiableList(newSnapshots);
         } finally {
             this.lock.writeLock().unlock();
         }
     }
 
     /**
-     * Throttling writer w/ 1 ms delay
+     * Throttle a writer while the mem-table is over its size limit and the snapshots
+     * can't take its entries: the writer waits for a snapshot to be flushed, at most
+     * the time the flushers take to write as many bytes as it adds at the measured
+     * flush rate, so writers are slowed down to the flush rate rather than stopped.
      */
-    private void throttleWriters() {
+    private void throttleWriters(long entrySize) {
+        long rate = flushBytesPerSec;
+        long waitNanos = MAX_THROTTLE_WAIT_NANOS;
+        if (rate > 0) {
+            waitNanos = Math.min(waitNanos,
+                    Math.max(1L, entrySize) * TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+        flushCompletionLock.lock();
         try {
-            Thread.sleep(1);
+            if (this.snapshots.size() >= maxPendingSnapshots) {
+                flushCompleted.awaitNanos(waitNanos);
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } finally {
+            flushCompletionLock.unlock();
         }
         throttlingCounter.inc();
     }
@@ -287,14 +526,13 @@ public class EntryMemTable {
             if (null != cp) {
                 cb.onSizeLimitReached(cp);
             } else {
-                throttleWriters();
+                throttleWriters(entry.remaining());
             }
         }
 
         this.lock.readLock().lock();
         try {
-            EntryKeyValue toAdd = cloneWithAllocator(ledgerId, entryId, entry);
-            size = internalAdd(toAdd);
+            size = internalAdd(ledgerId, entryId, entry);
         } finally {
             this.lock.readLock().unlock();
         }
@@ -304,50 +542,18 @@ public class EntryMemTable {
     }
 
     /**
-    * Internal version of add() that doesn't clone KVs with the
-    * allocator, and doesn't take the lock.
+    * Internal version of add() that doesn't take the lock.
     *
     * Callers should ensure they already have the read lock taken
     */
-    private long internalAdd(final EntryKeyValue toAdd) throws IOException {
-        long sizeChange = 0;
-        if (kvmap.putIfAbsent(toAdd, toAdd) == null) {
-            sizeChange = toAdd.getLength();
+    private long internalAdd(long ledgerId, long entryId, final ByteBuffer entry) throws IOException {
+        long sizeChange = kvmap.add(ledgerId, entryId, entry);
+        if (sizeChange > 0) {
             size.addAndGet(sizeChange);
         }
         return sizeChange;
     }
 
-    private EntryKeyValue newEntry(long ledgerId, long entryId, final ByteBuffer entry) {
-        byte[] buf;
-        int offset = 0;
-        int length = entry.remaining();
-
-        if (entry.hasArray()) {
-            buf = entry.array();
-            offset = entry.arrayOffset();
-        }
-        else {
-            buf = new byte[length];
-            entry.get(buf);
-        }
-        return new EntryKeyValue(ledgerId, entryId, buf, offset, length);
-    }
-
-    private EntryKeyValue cloneWithAllocator(long ledgerId, long entryId, final ByteBuffer entry) {
-        int len = entry.remaining();
-        SkipListArena.MemorySlice alloc = allocator.allocateBytes(len);
-        if (alloc == null) {
-            // The allocation was too large, allocator decided
-            // not to do anything with it.
-            return newEntry(ledgerId, entryId, entry);
-        }
-
-        assert alloc.getData() != null;
-        entry.get(alloc.getData(), alloc.getOffset(), len);
-        return new EntryKeyValue(ledgerId, entryId, alloc.getData(), alloc.getOffset(), len);
-    }
-
     /**
      * Find the entry with given key
      * @param ledgerId
@@ -355,14 +561,14 @@ public class EntryMemTable {
      * @return the entry kv or null if none found.
      */
     public EntryKeyValue getEntry(long ledgerId, long entryId) throws IOException {
-        EntryKey key = new EntryKey(ledgerId, entryId);
         EntryKeyValue value = null;
         long startTimeNanos = MathUtils.nowInNano();
         this.lock.readLock().lock();
         try {
-            value = this.kvmap.get(key);
-            if (value == null) {
-                value = this.snapshot.get(key);
+            value = this.kvmap.get(ledgerId, entryId);
+            List<EntrySet> curSnapshots = this.snapshots;
+            for (int i = curSnapshots.size() - 1; value == null && i >= 0; i--) {
+                value = curSnapshots.get(i).get(ledgerId, entryId);
             }
         } finally {
             this.lock.readLock().unlock();
@@ -377,24 +583,20 @@ public class EntryMemTable {
      * @return the entry kv or null if none found.
      */
     public EntryKeyValue getLastEntry(long ledgerId) throws IOException {
-        EntryKey result = null;
-        EntryKey key = new EntryKey(ledgerId, Long.MAX_VALUE);
+        EntryKeyValue result = null;
         long startTimeNanos = MathUtils.nowInNano();
         this.lock.readLock().lock();
         try {
-            result = this.kvmap.floorKey(key);
-            if (result == null || result.getLedgerId() != ledgerId) {
-                result = this.snapshot.floorKey(key);
+            result = this.kvmap.getLastEntry(ledgerId);
+            List<EntrySet> curSnapshots = this.snapshots;
+            for (int i = curSnapshots.size() - 1; result == null && i >= 0; i--) {
+                result = curSnapshots.get(i).getLastEntry(ledgerId);
             }
         } finally {
             this.lock.readLock().unlock();
         }
         getEntryStats.registerSuccessfulEvent(MathUtils.elapsedMicroSec(startTimeNanos));
-
-        if (result == null || result.getLedgerId() != ledgerId) {
-            return null;
-        }
-        return (EntryKeyValue)result;
+        return result;
     }
 
     /**
@@ -409,6 +611,6 @@ public class EntryMemTable {
      * @return
      */
     boolean isEmpty() {
-        return size.get() == 0 && snapshot.isEmpty();
+        return size.get() == 0 && snapshots.isEmpty();
     }
 }
@@ -0,0 +1,172 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.util.ConcurrentLongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
+
+/**
+ * Read ahead the entries of ledgers scanned sequentially.
+ *
+ * <p>
+ * A ledger is considered scanned when an entry is read right after the previous
+ * entry of the ledger. When such a read misses the read cache, the entry and up to
+ * <i>window</i> following entries of the ledger are read from their entry log with
+ * a single read, as long as they follow each other in the same entry log within
+ * <i>maxBytes</i> bytes. The following entries are added to the read cache, where
+ * the next reads of the scan find them.
+ * </p>
+ */
+class EntryReadAhead {
+
+    private final static Logger LOG = LoggerFactory.getLogger(EntryReadAhead.class);
+
+    // the scans of ledgers which are not read anymore are forgotten beyond it
+    static final int MAX_TRACKED_LEDGERS = 100000;
+
+    private final EntryLogger entryLogger;
+    private final LedgerCache ledgerCache;
+    private final EntryReadCache readCache;
+    private final int window;
+    private final long maxBytes;
+
+    // last entry read of each ledger
+    private final ConcurrentLongLongHashMap lastReadEntries = new ConcurrentLongLongHashMap();
+    // last entry read ahead of each ledger
+    private final ConcurrentLongLongHashMap readAheadEntries = new ConcurrentLongLongHashMap();
+
+    private final Counter readAheadCounter;
+    private final Counter readAheadEntriesCounter;
+    private final Counter readAheadHitCounter;
+
+    EntryReadAhead(EntryLogger entryLogger, LedgerCache ledgerCache, EntryReadCache readCache,
+                   int window, long maxBytes, StatsLogger statsLogger) {
+        this.entryLogger = entryLogger;
+        this.ledgerCache = ledgerCache;
+        this.readCache = readCache;
+        this.window = window;
+        this.maxBytes = maxBytes;
+        this.readAheadCounter = statsLogger.getCounter(READ_AHEAD_NUM_READS);
+        this.readAheadEntriesCounter = statsLogger.getCounter(READ_AHEAD_ENTRIES);
+        this.readAheadHitCounter = statsLogger.getCounter(READ_AHEAD_HITS);
+    }
+
+    /**
+     * Record a read of an entry.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param entryId
+     *          entry id.
+     * @param cacheHit
+     *          whether the entry was found in the read cache.
+     * @return true if the read follows the previous read of the ledger.
+     */
+    boolean recordRead(long ledgerId, long entryId, boolean cacheHit) {
+        if (entryId < 0) {
+            // the last entry of a ledger without entries
+            return false;
+        }
+        if (lastReadEntries.size() > MAX_TRACKED_LEDGERS) {
+            lastReadEntries.clear();
+            readAheadEntries.clear();
+        }
+        long lastReadEntry = lastReadEntries.put(ledgerId, entryId);
+        boolean sequential = entryId > 0 && lastReadEntry == entryId - 1;
+        if (cacheHit && sequential && entryId <= readAheadEntries.get(ledgerId)) {
+            readAheadHitCounter.inc();
+        }
+        return sequential;
+    }
+
+    /**
+     * Read an entry and the following entries of its ledger, which are added to the
+     * read cache.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param entryId
+     *          entry id.
+     * @param location
+     *          location of the entry.
+     * @param cacheVersion
+     *          version of the read cache taken before looking up the entry.
+     * @return the entry, or null if it couldn't be read ahead.
+     */
+    ByteBuffer readAhead(long ledgerId, long entryId, long location, long cacheVersion) {
+        EntryLocationFormat format = entryLogger.locationFormat;
+        long logId = format.getLogId(location);
+        long startOffset = format.getOffset(location);
+        // the entry, the entries read ahead and the location bounding the read
+        long[] locations = new long[window + 2];
+        locations[0] = location;
+        int numLocations = 1;
+        long lastOffset = startOffset;
+        try {
+            while (numLocations < locations.length) {
+                long nextLocation = ledgerCache.getEntryOffset(ledgerId, entryId + numLocations);
+                long nextOffset = format.getOffset(nextLocation);
+                if (0 == nextLocation || format.getLogId(nextLocation) != logId
+                        || nextOffset <= lastOffset || nextOffset - startOffset > maxBytes) {
+                    break;
+                }
+                locations[numLocations++] = nextLocation;
+                lastOffset = nextOffset;
+            }
+        } catch (IOException ioe) {
+            // no more entries to read ahead
+        }
+        if (numLocations < 3) {
+            return null;
+        }
+        ByteBuffer[] entries;
+        try {
+            entries = entryLogger.readEntries(ledgerId, entryId, Arrays.copyOf(locations, numLocations));
+        } catch (IOException ioe) {
+            LOG.debug("Failed to read ahead entries of ledger {} from entry {} : ", new Object[] {
+                    ledgerId, entryId, ioe });
+            return null;
+        }
+        readAheadCounter.inc();
+        long lastEntryReadAhead = -1L;
+        for (int i = 1; i < entries.length; i++) {
+            if (null == entries[i]) {
+                break;
+            }
+            readCache.put(ledgerId, entryId + i, entries[i], cacheVersion);
+            lastEntryReadAhead = entryId + i;
+            readAheadEntriesCounter.inc();
+        }
+        if (lastEntryReadAhead >= 0) {
+            readAheadEntries.put(ledgerId, lastEntryReadAhead);
+        }
+        return entries[0];
+    }
+}
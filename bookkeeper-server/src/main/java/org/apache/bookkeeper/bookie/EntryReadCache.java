@@ -0,0 +1,335 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.bookkeeper.bookie.OffHeapEntryMemTable.EntryIndex;
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.StatsLogger;
+
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
+
+/**
+ * A size bounded cache of entries kept out of the java heap.
+ *
+ * <p>
+ * Entries are appended to a ring of direct memory segments, allocated once when
+ * the cache is created. When the current segment is full, the cache moves to the
+ * next segment of the ring, evicting all the entries of the oldest segment at
+ * once to reuse it. Each segment locates its entries through its own
+ * {@link EntryIndex}, so evicting a segment just resets its index and its free
+ * offset.
+ * </p>
+ * <p>
+ * Space is allocated in the current segment by bumping its free offset. Adds and
+ * gets share the lock of the segment they access, which only the eviction of the
+ * segment takes exclusively, so they don't wait for each other. Entries read
+ * from the cache are copied on the heap, since their segment is reused once
+ * evicted.
+ * </p>
+ * <p>
+ * The entries of a deleted ledger are hidden by {@link #invalidateLedger(long)}
+ * until their segments are evicted.
+ * </p>
+ */
+class EntryReadCache {
+
+    /**
+     * A segment of the cache, reused once evicted.
+     */
+    static final class Segment {
+        final ByteBuffer buffer;
+        volatile EntryIndex index = new EntryIndex();
+        final AtomicInteger nextFreeOffset = new AtomicInteger(0);
+        // ledgers deleted while the segment is in the cache
+        final Set<Long> invalidatedLedgers =
+                Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        // shared by adds and gets, exclusive to evict the segment
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        Segment(int segmentSize) {
+            this.buffer = ByteBuffer.allocateDirect(segmentSize);
+        }
+
+        /**
+         * @return the offset of the allocated space, or -1 if the segment is full.
+         */
+        int allocate(int len) {
+            while (true) {
+                int offset = nextFreeOffset.get();
+                if (offset + len > buffer.capacity()) {
+                    return -1;
+                }
+                if (nextFreeOffset.compareAndSet(offset, offset + len)) {
+                    return offset;
+                }
+            }
+        }
+
+        /**
+         * Drop all the entries of the segment.
+         *
+         * @return the number of entries dropped.
+         */
+        long evict() {
+            lock.writeLock().lock();
+            try {
+                long numEntries = index.size();
+                index = new EntryIndex();
+                nextFreeOffset.set(0);
+                invalidatedLedgers.clear();
+                return numEntries;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            return Math.min(nextFreeOffset.get(), buffer.capacity());
+        }
+    }
+
+    private final int segmentSize;
+    private final Segment[] segments;
+    private volatile int currentSegment = 0;
+    // serializes the moves to the next segment, and the invalidations
+    private final Object rotateLock = new Object();
+    // number of invalidations, so entries read before an invalidation aren't cached after it
+    private final AtomicLong version = new AtomicLong(0);
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictedEntriesCounter;
+
+    EntryReadCache(long cacheSize, int segmentSize, StatsLogger statsLogger) {
+        this.segmentSize = segmentSize;
+        // at least two segments, so the entries of the previous segment survive an eviction
+        int numSegments = (int) Math.max(2, (cacheSize + segmentSize - 1) / segmentSize);
+        this.segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+        this.hitCounter = statsLogger.getCounter(READ_CACHE_HITS);
+        this.missCounter = statsLogger.getCounter(READ_CACHE_MISSES);
+        this.evictedEntriesCounter = statsLogger.getCounter(READ_CACHE_EVICTED_ENTRIES);
+        statsLogger.registerGauge(
+                READ_CACHE_SIZE,
+                new Gauge<Number>() {
+                    @Override
+                    public Number getDefaultValue() {
+                        return 0;
+                    }
+
+                    @Override
+                    public Number getSample() {
+                        return size();
+                    }
+                });
+        statsLogger.registerGauge(
+                READ_CACHE_COUNT,
+                new Gauge<Number>() {
+                    @Override
+                    public Number getDefaultValue() {
+                        return 0;
+                    }
+
+                    @Override
+                    public Number getSample() {
+                        return count();
+                    }
+                });
+    }
+
+    /**
+     * Get the version of the cache, to be taken before looking up the location of
+     * an entry which is then read and added to the cache.
+     *
+     * @return the number of invalidations so far.
+     */
+    long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Add an entry to the cache. Entries larger than a segment are not cached.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param entryId
+     *          entry id.
+     * @param entry
+     *          entry data, which is left untouched.
+     * @return true if the entry was added, false if it was already cached or too large.
+     */
+    boolean put(long ledgerId, long entryId, ByteBuffer entry) {
+        return put(ledgerId, entryId, entry, version.get());
+    }
+
+    /**
+     * Add an entry to the cache, unless a ledger was invalidated since the given
+     * version was taken.
+     *
+     * @see #put(long, long, ByteBuffer)
+     */
+    boolean put(long ledgerId, long entryId, ByteBuffer entry, long expectedVersion) {
+        int len = entry.remaining();
+        if (len > segmentSize || null != findSegment(ledgerId, entryId)) {
+            return false;
+        }
+        while (true) {
+            int i = currentSegment;
+            Segment segment = segments[i];
+            segment.lock.readLock().lock();
+            try {
+                if (currentSegment != i) {
+                    // moved to the next segment meanwhile
+                    continue;
+                }
+                // checked after getting the segment, which is invalidated otherwise
+                if (expectedVersion != version.get()) {
+                    return false;
+                }
+                int offset = segment.allocate(len);
+                if (offset >= 0) {
+                    ByteBuffer dst = segment.buffer.duplicate();
+                    dst.position(offset);
+                    dst.put(entry.duplicate());
+                    // offset of the entry in its segment in the high 32 bits, length in the low 32 bits
+                    return segment.index.putIfAbsent(ledgerId, entryId, ((long) offset << 32) | len) < 0;
+                }
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+            nextSegment(i);
+        }
+    }
+
+    /**
+     * Move to the next segment, unless another add already moved past segment <i>i</i>.
+     */
+    private void nextSegment(int i) {
+        synchronized (rotateLock) {
+            if (currentSegment != i) {
+                return;
+            }
+            int next = (i + 1) % segments.length;
+            evictedEntriesCounter.add(segments[next].evict());
+            currentSegment = next;
+        }
+    }
+
+    /**
+     * @return the segment holding the entry, or null if the entry isn't cached.
+     */
+    private Segment findSegment(long ledgerId, long entryId) {
+        // look up the most recent segments first
+        int current = currentSegment;
+        for (int n = 0; n < segments.length; n++) {
+            Segment segment = segments[(current - n + segments.length) % segments.length];
+            if (segment.index.get(ledgerId, entryId) >= 0) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get an entry from the cache.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param entryId
+     *          entry id.
+     * @return a copy of the entry, or null if it isn't cached.
+     */
+    ByteBuffer get(long ledgerId, long entryId) {
+        Segment segment = findSegment(ledgerId, entryId);
+        if (null != segment) {
+            segment.lock.readLock().lock();
+            try {
+                // the segment may have been evicted since found
+                long location = segment.index.get(ledgerId, entryId);
+                if (location >= 0 && (segment.invalidatedLedgers.isEmpty()
+                        || !segment.invalidatedLedgers.contains(ledgerId))) {
+                    int offset = (int) (location >>> 32);
+                    int len = (int) location;
+                    ByteBuffer entry = segment.buffer.duplicate();
+                    entry.limit(offset + len);
+                    entry.position(offset);
+                    byte[] data = new byte[len];
+                    entry.get(data);
+                    hitCounter.inc();
+                    return ByteBuffer.wrap(data);
+                }
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        missCounter.inc();
+        return null;
+    }
+
+    /**
+     * Hide the cached entries of a deleted ledger, and prevent adds of entries
+     * read before the deletion.
+     *
+     * @param ledgerId
+     *          ledger id.
+     */
+    void invalidateLedger(long ledgerId) {
+        synchronized (rotateLock) {
+            version.incrementAndGet();
+            for (Segment segment : segments) {
+                segment.invalidatedLedgers.add(ledgerId);
+            }
+        }
+    }
+
+    /**
+     * @return number of bytes of the cached entries.
+     */
+    long size() {
+        long size = 0L;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return number of cached entries.
+     */
+    long count() {
+        long count = 0L;
+        for (Segment segment : segments) {
+            count += segment.index.size();
+        }
+        return count;
+    }
+}
@@ -47,7 +47,8 @@ import org.slf4j.LoggerFactory;
  * <b>Header</b> is formated as below:
  * <pre>&lt;magic bytes&gt;&lt;len of master key&gt;&lt;master key&gt;</pre>
  * <ul>
- * <li>magic bytes: 4 bytes, 'BKLE', version: 4 bytes
+ * <li>magic bytes: 4 bytes, 'BKLE', version: 4 bytes. The version tells the format of the
+ * entry locations recorded in the index pages, see {@link EntryLocationFormat}.
  * <li>len of master key: indicates length of master key. -1 means no master key stored in header.
  * <li>master key: master key
  * <li>state: bit map to indicate the state, 32 bits.
@@ -69,7 +70,8 @@ class FileInfo extends Observable {
      * The fingerprint of a ledger index file
      */
     static final public int signature = ByteBuffer.wrap("BKLE".getBytes(UTF_8)).getInt();
-    static final public int headerVersion = 0;
+    // accept the header version of any entry location format, when only reading
+    static final int ANY_HEADER_VERSION = -1;
 
     static final long START_OF_DATA = 1024;
     private long size;
@@ -86,14 +88,27 @@ class FileInfo extends Observable {
 
     // file access mode
     protected String mode;
+    private int headerVersion;
 
     public FileInfo(File lf, byte[] masterKey) throws IOException {
+        this(lf, masterKey, EntryLocationFormat.V1.indexHeaderVersion);
+    }
+
+    public FileInfo(File lf, byte[] masterKey, int headerVersion) throws IOException {
         this.lf = lf;
 
         this.masterKey = masterKey;
+        this.headerVersion = headerVersion;
         mode = "rw";
     }
 
+    /**
+     * @return the header version, which tells the format of the entry locations.
+     */
+    synchronized int getHeaderVersion() {
+        return headerVersion;
+    }
+
     synchronized Long getLastAddConfirmed() {
         return lac;
     }
@@ -153,8 +168,13 @@ class FileInfo extends Observable {
                 throw new IOException("Missing ledger signature");
             }
             int version = bb.getInt();
-            if (version != headerVersion) {
-                throw new IOException("Incompatible ledger version " + version);
+            if (ANY_HEADER_VERSION == headerVersion) {
+                // validate the version
+                EntryLocationFormat.fromIndexHeaderVersion(version);
+                headerVersion = version;
+            } else if (version != headerVersion) {
+                throw new IOException("Incompatible ledger version " + version + " of " + lf
+                        + ", expected " + headerVersion + ". Entry locations may need to be converted.");
             }
             int length = bb.getInt();
             if (length < 0) {
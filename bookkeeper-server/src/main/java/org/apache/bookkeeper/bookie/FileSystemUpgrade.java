@@ -37,13 +37,18 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Scanner;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import java.net.MalformedURLException;
 import org.apache.bookkeeper.conf.ServerConfiguration;
@@ -87,7 +92,7 @@ public class FileSystemUpgrade {
 
             public boolean accept(File dir, String name) {
                 if (name.endsWith(".txn") || name.endsWith(".log")
-                    || name.equals("lastId") || name.equals("lastMark")) {
+                    || name.equals("lastId") || name.startsWith("lastMark")) {
                     return true;
                 }
                 if (containsIndexFiles(dir, name)) {
@@ -99,7 +104,9 @@ public class FileSystemUpgrade {
 
     private static List<File> getAllDirectories(ServerConfiguration conf) {
         List<File> dirs = new ArrayList<File>();
-        dirs.add(conf.getJournalDir());
+        for (File d: conf.getJournalDirs()) {
+            dirs.add(d);
+        }
         for (File d: conf.getLedgerDirs()) {
             dirs.add(d);
         }
@@ -312,6 +319,225 @@ public class FileSystemUpgrade {
         LOG.info("Done");
     }
 
+    /**
+     * Convert the ledger index files of a bookie into the single ledger index used by
+     * {@link IndexedLedgerStorage}. The bookie must be stopped. Index files are kept, so
+     * the bookie can go back to its previous ledger storage as long as it didn't accept
+     * writes with the indexed ledger storage.
+     */
+    public static void convertToIndexedLedgerStorage(ServerConfiguration conf)
+            throws BookieException.UpgradeException {
+        LOG.info("Converting ledger index files...");
+        File[] idxDirs = conf.getIndexDirs();
+        File[] currentDirs = Bookie.getCurrentDirectories(null != idxDirs ? idxDirs : conf.getLedgerDirs());
+        try {
+            final LedgerIndex index = IndexedLedgerCache.openIndex(conf, Arrays.asList(currentDirs), false);
+            try {
+                int numLedgers = 0;
+                for (File d : currentDirs) {
+                    numLedgers += processIndexFiles(d, new IndexFileProcessor() {
+                        @Override
+                        public void process(long ledgerId, File file) throws IOException {
+                            convertIndexFile(ledgerId, file, index);
+                        }
+                    });
+                }
+                LOG.info("Converted index files of {} ledgers into {}", numLedgers, index.dir);
+            } finally {
+                // flushes the converted ledgers
+                index.close();
+            }
+        } catch (IOException ioe) {
+            LOG.error("Error converting ledger index files", ioe);
+            throw new BookieException.UpgradeException(ioe);
+        }
+        LOG.info("Done");
+    }
+
+    /**
+     * Processor of the ledger index files found under the index directories.
+     */
+    private static interface IndexFileProcessor {
+        void process(long ledgerId, File file) throws IOException;
+    }
+
+    private static int processIndexFiles(File dir, IndexFileProcessor processor) throws IOException {
+        int numLedgers = 0;
+        String[] files = dir.list();
+        if (null == files) {
+            return 0;
+        }
+        for (String f : files) {
+            File file = new File(dir, f);
+            if (f.endsWith(LedgerCacheImpl.IDX)) {
+                long ledgerId;
+                try {
+                    ledgerId = Long.parseLong(f.substring(0, f.length() - LedgerCacheImpl.IDX.length()), 16);
+                } catch (NumberFormatException nfe) {
+                    LOG.warn("Skipping unexpected index file {}", file);
+                    continue;
+                }
+                processor.process(ledgerId, file);
+                ++numLedgers;
+            } else if (file.isDirectory()) {
+                try {
+                    Long.parseLong(f, 16);
+                    numLedgers += processIndexFiles(file, processor);
+                } catch (NumberFormatException nfe) {
+                    // filename does not parse to a hex Long, so
+                    // it will not contain idx files. Ignoring
+                }
+            }
+        }
+        return numLedgers;
+    }
+
+    private static void convertIndexFile(long ledgerId, File file, LedgerIndex index) throws IOException {
+        FileInfo fi = new ReadOnlyFileInfo(file, null);
+        try {
+            fi.readHeader();
+            byte[] masterKey = fi.getMasterKey();
+            IndexedLedgerCache.LedgerState state =
+                    new IndexedLedgerCache.LedgerState(ledgerId, null == masterKey ? new byte[0] : masterKey);
+            if (fi.isFenced()) {
+                state.setFenced();
+            }
+            index.put(LedgerIndex.METADATA_LEDGER_ID, ledgerId, state.serialize());
+
+            // locations are stored in the format of the index file, the ledger storage converts them on read
+            EntryLocationFormat format = EntryLocationFormat.fromIndexHeaderVersion(fi.getHeaderVersion());
+            long size = fi.size();
+            ByteBuffer bb = ByteBuffer.allocate(64 * 1024);
+            long position = 0;
+            while (position < size) {
+                bb.clear();
+                int read = fi.read(bb, position, true);
+                if (read < LedgerEntryPage.getIndexEntrySize()) {
+                    break;
+                }
+                bb.flip();
+                while (bb.remaining() >= LedgerEntryPage.getIndexEntrySize()) {
+                    long offset = bb.getLong();
+                    if (0 != offset) {
+                        index.put(ledgerId, position / LedgerEntryPage.getIndexEntrySize(),
+                                  IndexedLedgerCache.encodeLocation(offset, format));
+                    }
+                    position += LedgerEntryPage.getIndexEntrySize();
+                }
+            }
+        } finally {
+            fi.close(false);
+        }
+    }
+
+    /**
+     * Convert the entry locations of the ledger index files of a bookie into the entry location
+     * format configured by {@link ServerConfiguration#getEntryLocationFormatVersion()}. The bookie
+     * must be stopped. Index files already in the configured format are left untouched, so the
+     * conversion can be run again if it is interrupted.
+     */
+    public static void convertLocations(ServerConfiguration conf)
+            throws BookieException.UpgradeException {
+        final EntryLocationFormat target = EntryLocationFormat.fromVersion(conf.getEntryLocationFormatVersion());
+        LOG.info("Converting entry locations of ledger index files to format {}...", target);
+        File[] idxDirs = conf.getIndexDirs();
+        File[] currentDirs = Bookie.getCurrentDirectories(null != idxDirs ? idxDirs : conf.getLedgerDirs());
+        try {
+            final AtomicInteger numConverted = new AtomicInteger(0);
+            int numLedgers = 0;
+            for (File d : currentDirs) {
+                numLedgers += processIndexFiles(d, new IndexFileProcessor() {
+                    @Override
+                    public void process(long ledgerId, File file) throws IOException {
+                        if (convertLocations(file, target)) {
+                            numConverted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            LOG.info("Converted entry locations of {} index files out of {}", numConverted.get(), numLedgers);
+        } catch (IOException ioe) {
+            LOG.error("Error converting entry locations of ledger index files", ioe);
+            throw new BookieException.UpgradeException(ioe);
+        }
+        LOG.info("Done");
+    }
+
+    /**
+     * Rewrite the entry locations of an index file into <i>target</i> format. The converted file is
+     * written aside and renamed over the index file once complete.
+     *
+     * @return true if the index file was converted, false if it was already in <i>target</i> format.
+     */
+    private static boolean convertLocations(File file, EntryLocationFormat target) throws IOException {
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        RandomAccessFile source = new RandomAccessFile(file, "r");
+        try {
+            FileChannel sourceChannel = source.getChannel();
+            ByteBuffer header = ByteBuffer.allocate((int) FileInfo.START_OF_DATA);
+            while (header.hasRemaining()) {
+                if (sourceChannel.read(header, header.position()) <= 0) {
+                    throw new IOException("Short header in index file " + file);
+                }
+            }
+            header.flip();
+            if (header.getInt() != FileInfo.signature) {
+                throw new IOException("Missing ledger signature in index file " + file);
+            }
+            EntryLocationFormat format = EntryLocationFormat.fromIndexHeaderVersion(header.getInt());
+            if (format == target) {
+                return false;
+            }
+            header.putInt(4, target.indexHeaderVersion);
+            header.rewind();
+
+            RandomAccessFile dest = new RandomAccessFile(tmpFile, "rw");
+            try {
+                FileChannel destChannel = dest.getChannel();
+                destChannel.truncate(0);
+                while (header.hasRemaining()) {
+                    destChannel.write(header);
+                }
+                ByteBuffer bb = ByteBuffer.allocate(64 * 1024);
+                long position = FileInfo.START_OF_DATA;
+                while (true) {
+                    bb.clear();
+                    int read = sourceChannel.read(bb, position);
+                    if (read <= 0) {
+                        break;
+                    }
+                    bb.flip();
+                    // locations are only converted once fully read
+                    bb.limit(bb.limit() - bb.limit() % LedgerEntryPage.getIndexEntrySize());
+                    if (!bb.hasRemaining()) {
+                        throw new IOException("Truncated entry location at " + position + " in index file " + file);
+                    }
+                    position += bb.remaining();
+                    while (bb.hasRemaining()) {
+                        long location = bb.getLong(bb.position());
+                        if (0 != location) {
+                            bb.putLong(bb.position(), format.convert(location, target));
+                        }
+                        bb.position(bb.position() + LedgerEntryPage.getIndexEntrySize());
+                    }
+                    bb.flip();
+                    while (bb.hasRemaining()) {
+                        destChannel.write(bb);
+                    }
+                }
+                destChannel.force(true);
+            } finally {
+                dest.close();
+            }
+        } finally {
+            source.close();
+        }
+        if (!tmpFile.renameTo(file)) {
+            throw new IOException("Failed to rename " + tmpFile + " to " + file);
+        }
+        return true;
+    }
+
     private static void printHelp(Options opts) {
         HelpFormatter hf = new HelpFormatter();
         hf.printHelp("FileSystemUpgrade [options]", opts);
@@ -329,6 +555,11 @@ public class FileSystemUpgrade {
         opts.addOption("u", "upgrade", false, "Upgrade bookie directories");
         opts.addOption("f", "finalize", false, "Finalize upgrade");
         opts.addOption("r", "rollback", false, "Rollback upgrade");
+        opts.addOption("i", "convertindex", false,
+                "Convert ledger index files for the indexed ledger storage, with the bookie stopped");
+        opts.addOption("l", "convertlocations", false,
+                "Convert entry locations of ledger index files to the configured entry location format,"
+                + " with the bookie stopped");
         opts.addOption("h", "help", false, "Print help message");
 
         BasicParser parser = new BasicParser();
@@ -363,8 +594,12 @@ public class FileSystemUpgrade {
             rollback(conf);
         } else if (cmdLine.hasOption("f")) {
             finalizeUpgrade(conf);
+        } else if (cmdLine.hasOption("i")) {
+            convertToIndexedLedgerStorage(conf);
+        } else if (cmdLine.hasOption("l")) {
+            convertLocations(conf);
         } else {
-            String err = "Must specify -upgrade, -finalize or -rollback";
+            String err = "Must specify -upgrade, -finalize, -rollback, -convertindex or -convertlocations";
             LOG.error(err);
             printHelp(opts);
             throw new IllegalArgumentException(err);
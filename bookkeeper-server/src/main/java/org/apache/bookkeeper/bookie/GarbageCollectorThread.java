@@ -28,12 +28,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -50,6 +48,7 @@ import org.apache.bookkeeper.stats.Counter;
 import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.OpStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.util.ConcurrentLongHashSet;
 import org.apache.bookkeeper.util.MathUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -175,7 +174,7 @@ public class GarbageCollectorThread extends BookieCriticalThread {
 
         final LinkedHashMap<Long, List<Offset>> offsetMap = new LinkedHashMap<Long, List<Offset>>();
         final AtomicBoolean isEntryLogRotated = new AtomicBoolean(false);
-        final Set<Long> deletedLedgers = new HashSet<Long>();
+        final ConcurrentLongHashSet deletedLedgers = new ConcurrentLongHashSet(16, 1);
 
         // Stats
         final Counter deletedEntryLogCounter;
@@ -261,7 +260,7 @@ public class GarbageCollectorThread extends BookieCriticalThread {
 
                 while (offsetIterator.hasNext()) {
                     Offset o = offsetIterator.next();
-                    long logId = EntryLogger.logIdForOffset(o.offset);
+                    long logId = entryLogger.logIdForOffset(o.offset);
                     if (logId >= entryLogger.getLeastUnflushedLogId()) {
                         if (forceRotateEntryLog) {
                             entryLogger.rollLog();
@@ -610,7 +609,7 @@ public class GarbageCollectorThread extends BookieCriticalThread {
     private boolean doGcEntryLog(long entryLogId, EntryLogMetadata meta) {
         double oldUsage = meta.getUsage();
         int numLedgersRemoved = 0;
-        for (Long entryLogLedger : meta.ledgersMap.keySet()) {
+        for (long entryLogLedger : meta.ledgersMap.keys()) {
             // Remove the entry log ledger from the set if it isn't active.
             if (!activeLedgerManager.containsActiveLedger(entryLogLedger)) {
                 meta.removeLedger(entryLogLedger);
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.bookkeeper.stats.OpStatsLogger;
+
+/**
+ * A {@link BufferedChannel} which stages writes in chunks of a {@link DirectBufferArena}
+ * and hands the whole pending batch to the file in scatter/gather
+ * {@link FileChannel#write(ByteBuffer[], int, int)} calls when flushed.
+ *
+ * <p>
+ * {@link #write(ByteBuffer)} copies the data into the arena once. Data written
+ * with {@link #writeRetained(ByteBuffer)} isn't copied at all if it is already in
+ * a direct buffer: the buffer is referenced by the pending batch until the next
+ * flush. Heap buffers are always copied, as the JDK would otherwise copy them again
+ * into temporary direct buffers for each write.
+ * </p>
+ * <p>
+ * Pending data is flushed automatically once it exceeds <i>maxPendingBytes</i>.
+ * </p>
+ */
+public class GatheringBufferedChannel extends BufferedChannel {
+
+    private final DirectBufferArena arena;
+    private final long maxPendingBytes;
+    // buffers to write on next flush, in file order
+    private final List<ByteBuffer> pendingBuffers = new ArrayList<ByteBuffer>();
+    // arena chunks referenced by pending buffers
+    private final List<ByteBuffer> pendingChunks = new ArrayList<ByteBuffer>();
+    private ByteBuffer currentChunk = null;
+    // start of the data of current chunk that isn't in pending buffers yet
+    private int currentSegmentStart = 0;
+    private long pendingBytes = 0L;
+
+    // Stats
+    private long numWriteCalls = 0L;
+    private long numFlushes = 0L;
+    private long numCopiedBytes = 0L;
+    private final OpStatsLogger writeCallsStats;
+
+    public GatheringBufferedChannel(FileChannel fc, int readCapacity,
+                                    DirectBufferArena arena, long maxPendingBytes,
+                                    OpStatsLogger writeCallsStats)
+            throws IOException {
+        // pending writes are staged in the arena, not in the write buffer
+        super(fc, 0, readCapacity);
+        this.arena = arena;
+        this.maxPendingBytes = maxPendingBytes;
+        this.writeCallsStats = writeCallsStats;
+    }
+
+    @Override
+    synchronized public int write(ByteBuffer src) throws IOException {
+        int copied = 0;
+        while (src.hasRemaining()) {
+            if (null == currentChunk) {
+                currentChunk = arena.acquire();
+                currentSegmentStart = 0;
+                pendingChunks.add(currentChunk);
+            } else if (!currentChunk.hasRemaining()) {
+                sealCurrentSegment();
+                currentChunk = null;
+                continue;
+            }
+            int toCopy = Math.min(src.remaining(), currentChunk.remaining());
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + toCopy);
+            currentChunk.put(slice);
+            src.position(src.position() + toCopy);
+            copied += toCopy;
+        }
+        numCopiedBytes += copied;
+        return addPending(copied);
+    }
+
+    @Override
+    synchronized public int writeRetained(ByteBuffer src) throws IOException {
+        if (!src.isDirect()) {
+            return write(src);
+        }
+        int len = src.remaining();
+        if (len == 0) {
+            return 0;
+        }
+        sealCurrentSegment();
+        pendingBuffers.add(src.slice());
+        src.position(src.limit());
+        return addPending(len);
+    }
+
+    private int addPending(int len) throws IOException {
+        position += len;
+        pendingBytes += len;
+        if (pendingBytes >= maxPendingBytes) {
+            flushPending();
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Add the data copied into current chunk since the last seal to the pending buffers.
+     */
+    private void sealCurrentSegment() {
+        if (null == currentChunk || currentChunk.position() == currentSegmentStart) {
+            return;
+        }
+        ByteBuffer segment = currentChunk.duplicate();
+        segment.limit(currentChunk.position());
+        segment.position(currentSegmentStart);
+        pendingBuffers.add(segment);
+        currentSegmentStart = currentChunk.position();
+    }
+
+    private void flushPending() throws IOException {
+        sealCurrentSegment();
+        if (!pendingBuffers.isEmpty()) {
+            ByteBuffer[] buffers = pendingBuffers.toArray(new ByteBuffer[pendingBuffers.size()]);
+            int idx = 0;
+            int writeCalls = 0;
+            while (idx < buffers.length) {
+                fileChannel.write(buffers, idx, buffers.length - idx);
+                ++writeCalls;
+                while (idx < buffers.length && !buffers[idx].hasRemaining()) {
+                    ++idx;
+                }
+            }
+            numWriteCalls += writeCalls;
+            ++numFlushes;
+            writeCallsStats.registerSuccessfulEvent(writeCalls);
+            pendingBuffers.clear();
+        }
+        for (ByteBuffer chunk : pendingChunks) {
+            arena.release(chunk);
+        }
+        pendingChunks.clear();
+        currentChunk = null;
+        currentSegmentStart = 0;
+        pendingBytes = 0L;
+        writeBufferStartPosition.set(fileChannel.position());
+    }
+
+    @Override
+    public void flush(boolean shouldForceWrite) throws IOException {
+        synchronized (this) {
+            flushPending();
+        }
+        if (shouldForceWrite) {
+            forceWrite(false);
+        }
+    }
+
+    @Override
+    synchronized public int read(ByteBuffer dest, long pos) throws IOException {
+        // make the pending data readable from the file
+        flushPending();
+        return super.read(dest, pos);
+    }
+
+    @Override
+    synchronized public void clear() {
+        super.clear();
+        pendingBuffers.clear();
+        for (ByteBuffer chunk : pendingChunks) {
+            arena.release(chunk);
+        }
+        pendingChunks.clear();
+        currentChunk = null;
+        currentSegmentStart = 0;
+        pendingBytes = 0L;
+    }
+
+    /**
+     * @return number of write calls issued to the file channel.
+     */
+    public synchronized long getNumWriteCalls() {
+        return numWriteCalls;
+    }
+
+    /**
+     * @return number of non empty batches flushed to the file channel.
+     */
+    public synchronized long getNumFlushes() {
+        return numFlushes;
+    }
+
+    /**
+     * @return number of bytes copied into the arena.
+     */
+    public synchronized long getNumCopiedBytes() {
+        return numCopiedBytes;
+    }
+}
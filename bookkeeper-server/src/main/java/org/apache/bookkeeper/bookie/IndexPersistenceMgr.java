@@ -143,7 +143,7 @@ public class IndexPersistenceMgr {
             if (null == lf) {
                 throw new Bookie.NoLedgerException(ledger);
             }
-            RefFileInfo newFi = new RefFileInfo(new FileInfo(lf, masterKey));
+            RefFileInfo newFi = new RefFileInfo(new FileInfo(lf, masterKey, indexHeaderVersion));
             RefFileInfo oldFi = fileInfoMap.putIfAbsent(ledger, newFi);
             if (null != oldFi) {
                 fi = oldFi;
@@ -178,6 +178,8 @@ public class IndexPersistenceMgr {
     // so LedgerManager has knowledge to garbage collect inactive/deleted ledgers
     final ActiveLedgerManager activeLedgerManager;
     private LedgerDirsManager ledgerDirsManager;
+    // header version of the index files, which depends on the entry location format
+    private final int indexHeaderVersion;
 
     // Stats
     final Counter evictedLedgerCounter;
@@ -189,6 +191,8 @@ public class IndexPersistenceMgr {
                                 LedgerDirsManager ledgerDirsManager,
                                 StatsLogger statsLogger) throws IOException {
         this.openFileLimit = conf.getOpenFileLimit();
+        this.indexHeaderVersion =
+                EntryLocationFormat.fromVersion(conf.getEntryLocationFormatVersion()).indexHeaderVersion;
         this.activeLedgerManager = activeLedgerManager;
         this.ledgerDirsManager = ledgerDirsManager;
         this.pageSize = pageSize;
@@ -279,7 +283,7 @@ public class IndexPersistenceMgr {
 
         // We don't have a ledger index file on disk, so create it.
         File lf = getNewLedgerIndexFile(ledger, null);
-        RefFileInfo fi = new RefFileInfo(new FileInfo(lf, masterKey));
+        RefFileInfo fi = new RefFileInfo(new FileInfo(lf, masterKey, indexHeaderVersion));
         RefFileInfo oldFi = fileInfoMap.putIfAbsent(ledger, fi);
         if (null != oldFi) {
             fi = oldFi;
@@ -0,0 +1,475 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.meta.ActiveLedgerManager;
+import org.apache.bookkeeper.stats.Gauge;
+import org.apache.bookkeeper.stats.OpStatsLogger;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.util.MathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
+
+/**
+ * A {@link LedgerCache} keeping the entry locations and the metadata of all the
+ * ledgers in a single {@link LedgerIndex}, so no file is created per ledger.
+ *
+ * <p>
+ * The metadata of recently used ledgers is cached. Changes to the fenced state
+ * and the master key are written to the index right away, while the last add
+ * confirmed is written when the cache is flushed or the ledger evicted.
+ * </p>
+ */
+class IndexedLedgerCache implements LedgerCache {
+    private final static Logger LOG = LoggerFactory.getLogger(IndexedLedgerCache.class);
+
+    static final String INDEX_DIR = "ledgerindex";
+
+    final LedgerIndex index;
+    final EntryLocationFormat locationFormat;
+    final ActiveLedgerManager activeLedgerManager;
+    final Cache<Long, LedgerState> ledgerStates;
+    final CopyOnWriteArraySet<LedgerStorageListener> listeners;
+
+    // Stats
+    final OpStatsLogger flushStats;
+
+    public IndexedLedgerCache(ServerConfiguration conf,
+                              ActiveLedgerManager activeLedgerManager,
+                              LedgerDirsManager indexDirsManager,
+                              StatsLogger statsLogger) throws IOException {
+        this.activeLedgerManager = activeLedgerManager;
+        this.locationFormat = EntryLocationFormat.fromVersion(conf.getEntryLocationFormatVersion());
+        this.index = openIndex(conf, indexDirsManager.getAllLedgerDirs(), false);
+        this.listeners = new CopyOnWriteArraySet<LedgerStorageListener>();
+        int concurrencyLevel = Math.max(1, Math.max(conf.getNumAddWorkerThreads(), conf.getNumReadWorkerThreads()));
+        this.ledgerStates = CacheBuilder.newBuilder()
+                .concurrencyLevel(concurrencyLevel)
+                .maximumSize(conf.getLedgerIndexMetadataCacheSize())
+                .removalListener(new RemovalListener<Long, LedgerState>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<Long, LedgerState> notification) {
+                        if (notification.wasEvicted()) {
+                            onEviction(notification.getValue());
+                        }
+                    }
+                })
+                .build();
+
+        // Make the ledgers known to the garbage collector.
+        index.scan(LedgerIndex.METADATA_LEDGER_ID, 0L, LedgerIndex.METADATA_LEDGER_ID, Long.MAX_VALUE,
+                new LedgerIndex.Scanner() {
+                    @Override
+                    public void process(long ledgerId, long entryId, byte[] value) {
+                        IndexedLedgerCache.this.activeLedgerManager.addActiveLedger(entryId, true);
+                    }
+                });
+
+        // Stats
+        this.flushStats = statsLogger.getOpStatsLogger(LEDGER_INDEX_FLUSH);
+        statsLogger.registerGauge(LEDGER_INDEX_NUM_RUNS, new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return index.getNumRuns();
+            }
+        });
+        statsLogger.registerGauge(LEDGER_INDEX_MEMTABLE_SIZE, new Gauge<Number>() {
+            @Override
+            public Number getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Number getSample() {
+                return index.getMemTableSize();
+            }
+        });
+    }
+
+    /**
+     * Find the ledger index among the given index directories.
+     *
+     * @return the existing ledger index directory, or the one to create in the
+     *         first index directory.
+     */
+    static File getIndexDirectory(List<File> indexDirs) {
+        for (File dir : indexDirs) {
+            File indexDir = new File(dir, INDEX_DIR);
+            if (indexDir.isDirectory()) {
+                return indexDir;
+            }
+        }
+        return new File(indexDirs.get(0), INDEX_DIR);
+    }
+
+    static LedgerIndex openIndex(ServerConfiguration conf, List<File> indexDirs, boolean readOnly)
+            throws IOException {
+        return new LedgerIndex(getIndexDirectory(indexDirs), conf.getLedgerIndexBlockSize(),
+                conf.getLedgerIndexMemTableSizeLimit(), conf.getLedgerIndexMaxRuns(), readOnly);
+    }
+
+    /**
+     * Encode a location. V1 locations are kept as is, locations of other formats
+     * are prefixed by their format version, so the index may hold locations of
+     * several formats.
+     */
+    static byte[] encodeLocation(long location, EntryLocationFormat format) {
+        if (EntryLocationFormat.V1 == format) {
+            return ByteBuffer.allocate(8).putLong(location).array();
+        }
+        return ByteBuffer.allocate(9).put((byte) format.version).putLong(location).array();
+    }
+
+    /**
+     * Decode a location, converting it to the given format.
+     */
+    static long decodeLocation(byte[] value, EntryLocationFormat format) throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(value);
+        EntryLocationFormat valueFormat = EntryLocationFormat.V1;
+        if (value.length > 8) {
+            try {
+                valueFormat = EntryLocationFormat.fromVersion(bb.get());
+            } catch (IllegalArgumentException iae) {
+                throw new IOException(iae.getMessage());
+            }
+        }
+        return valueFormat.convert(bb.getLong(), format);
+    }
+
+    private void onEviction(LedgerState state) {
+        try {
+            persistLastAddConfirmed(state);
+        } catch (IOException ioe) {
+            LOG.warn("Failed to write the metadata of evicted ledger {}, the last add confirmed"
+                    + " will be read from its last entry", state.ledgerId, ioe);
+        }
+        // let long poll readers wait on the reloaded state
+        state.notifyLastAddConfirmed(Long.MAX_VALUE);
+    }
+
+    private void persistLastAddConfirmed(LedgerState state) throws IOException {
+        byte[] metadata = state.serializeIfLacDirty();
+        if (null != metadata) {
+            index.put(LedgerIndex.METADATA_LEDGER_ID, state.ledgerId, metadata);
+        }
+    }
+
+    /**
+     * Get the metadata of a ledger, creating the ledger if a master key is given.
+     */
+    LedgerState getLedgerState(final long ledgerId, final byte[] masterKey) throws IOException {
+        try {
+            return ledgerStates.get(ledgerId, new Callable<LedgerState>() {
+                @Override
+                public LedgerState call() throws IOException {
+                    byte[] metadata = index.get(LedgerIndex.METADATA_LEDGER_ID, ledgerId);
+                    if (null != metadata) {
+                        return LedgerState.deserialize(ledgerId, metadata);
+                    }
+                    if (null == masterKey) {
+                        throw new Bookie.NoLedgerException(ledgerId);
+                    }
+                    LedgerState state = new LedgerState(ledgerId, masterKey);
+                    index.put(LedgerIndex.METADATA_LEDGER_ID, ledgerId, state.serialize());
+                    LOG.debug("New ledger {} added to the ledger index", ledgerId);
+                    activeLedgerManager.addActiveLedger(ledgerId, true);
+                    return state;
+                }
+            });
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
+            }
+            throw new IOException("Failed to load metadata of ledger " + ledgerId, ee);
+        } catch (UncheckedExecutionException uee) {
+            if (uee.getCause() instanceof IOException) {
+                throw (IOException) uee.getCause();
+            }
+            throw new IOException("Failed to load metadata of ledger " + ledgerId, uee);
+        }
+    }
+
+    @Override
+    public void registerListener(LedgerStorageListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public boolean setFenced(long ledgerId) throws IOException {
+        boolean fenced = false;
+        while (true) {
+            LedgerState state = getLedgerState(ledgerId, null);
+            if (state.setFenced()) {
+                fenced = true;
+                index.put(LedgerIndex.METADATA_LEDGER_ID, ledgerId, state.serialize());
+            }
+            // the state may have been evicted and reloaded before the fence was written
+            if (state == ledgerStates.getIfPresent(ledgerId)) {
+                return fenced;
+            }
+        }
+    }
+
+    @Override
+    public boolean isFenced(long ledgerId) throws IOException {
+        return getLedgerState(ledgerId, null).isFenced();
+    }
+
+    @Override
+    public void setMasterKey(long ledgerId, byte[] masterKey) throws IOException {
+        getLedgerState(ledgerId, masterKey);
+    }
+
+    @Override
+    public byte[] readMasterKey(long ledgerId) throws IOException, BookieException {
+        return getLedgerState(ledgerId, null).masterKey;
+    }
+
+    @Override
+    public boolean ledgerExists(long ledgerId) throws IOException {
+        try {
+            getLedgerState(ledgerId, null);
+            return true;
+        } catch (Bookie.NoLedgerException nle) {
+            return false;
+        }
+    }
+
+    @Override
+    public void putEntryOffset(long ledger, long entry, long offset) throws IOException {
+        // fail on unknown or deleted ledgers, as index files do
+        getLedgerState(ledger, null);
+        index.put(ledger, entry, encodeLocation(offset, locationFormat));
+    }
+
+    @Override
+    public long getEntryOffset(long ledger, long entry) throws IOException {
+        byte[] value = index.get(ledger, entry);
+        if (null == value) {
+            // distinguish a missing entry from a missing ledger
+            getLedgerState(ledger, null);
+            return 0L;
+        }
+        return decodeLocation(value, locationFormat);
+    }
+
+    @Override
+    public void flushLedger(boolean doAll) throws IOException {
+        long startTimeNanos = MathUtils.nowInNano();
+        for (LedgerState state : ledgerStates.asMap().values()) {
+            persistLastAddConfirmed(state);
+        }
+        if (doAll || index.getMemTableSize() > index.memTableSizeLimit) {
+            index.flush();
+        }
+        flushStats.registerSuccessfulEvent(MathUtils.elapsedMicroSec(startTimeNanos));
+    }
+
+    @Override
+    public long getLastEntry(long ledgerId) throws IOException {
+        getLedgerState(ledgerId, null);
+        return index.getLastEntryId(ledgerId);
+    }
+
+    @Override
+    public Long getLastAddConfirmed(long ledgerId) throws IOException {
+        return getLedgerState(ledgerId, null).getLastAddConfirmed();
+    }
+
+    @Override
+    public long updateLastAddConfirmed(long ledgerId, long lac) throws IOException {
+        return getLedgerState(ledgerId, null).setLastAddConfirmed(lac);
+    }
+
+    @Override
+    public Observable waitForLastAddConfirmedUpdate(long ledgerId, long previoisLAC, Observer observer)
+            throws IOException {
+        return getLedgerState(ledgerId, null).waitForLastAddConfirmedUpdate(previoisLAC, observer);
+    }
+
+    /**
+     * This method is called whenever a ledger is deleted by the BookKeeper Client
+     * and we want to remove all relevant data for it stored in the LedgerCache.
+     */
+    @Override
+    public void deleteLedger(long ledgerId) throws IOException {
+        LOG.debug("Deleting ledgerId: {}", ledgerId);
+        LedgerState state = ledgerStates.getIfPresent(ledgerId);
+        ledgerStates.invalidate(ledgerId);
+        index.deleteLedger(ledgerId);
+        if (null != state) {
+            state.close();
+        }
+        activeLedgerManager.removeActiveLedger(ledgerId);
+
+        // when a ledger is deleted, notify by listeners
+        for (LedgerStorageListener listener : listeners) {
+            listener.onLedgerDeleted(ledgerId);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (LedgerState state : ledgerStates.asMap().values()) {
+                persistLastAddConfirmed(state);
+                state.close();
+            }
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Metadata of a ledger: its master key, fenced state and last add confirmed.
+     */
+    static class LedgerState extends Observable {
+        static final int STATE_FENCED_BIT = 0x1;
+        static final int STATE_LAC_BIT = 0x2;
+
+        final long ledgerId;
+        final byte[] masterKey;
+        private boolean fenced = false;
+        private Long lac = null;
+        private boolean lacDirty = false;
+        private boolean closed = false;
+
+        LedgerState(long ledgerId, byte[] masterKey) {
+            this.ledgerId = ledgerId;
+            this.masterKey = masterKey;
+        }
+
+        /**
+         * Serialized as state bits, last add confirmed, master key length and master key.
+         */
+        synchronized byte[] serialize() {
+            int stateBits = (fenced ? STATE_FENCED_BIT : 0) | (null != lac ? STATE_LAC_BIT : 0);
+            ByteBuffer bb = ByteBuffer.allocate(4 + 8 + 4 + masterKey.length);
+            bb.putInt(stateBits);
+            bb.putLong(null != lac ? lac : 0L);
+            bb.putInt(masterKey.length);
+            bb.put(masterKey);
+            lacDirty = false;
+            return bb.array();
+        }
+
+        synchronized byte[] serializeIfLacDirty() {
+            return lacDirty ? serialize() : null;
+        }
+
+        static LedgerState deserialize(long ledgerId, byte[] metadata) {
+            ByteBuffer bb = ByteBuffer.wrap(metadata);
+            int stateBits = bb.getInt();
+            long lac = bb.getLong();
+            byte[] masterKey = new byte[bb.getInt()];
+            bb.get(masterKey);
+            LedgerState state = new LedgerState(ledgerId, masterKey);
+            state.fenced = (stateBits & STATE_FENCED_BIT) == STATE_FENCED_BIT;
+            if ((stateBits & STATE_LAC_BIT) == STATE_LAC_BIT) {
+                state.lac = lac;
+            }
+            return state;
+        }
+
+        synchronized boolean isFenced() {
+            return fenced;
+        }
+
+        /**
+         * @return true if set fence succeed, otherwise false when it was already fenced.
+         */
+        boolean setFenced() {
+            boolean returnVal = false;
+            synchronized (this) {
+                if (!fenced) {
+                    fenced = true;
+                    setChanged();
+                    returnVal = true;
+                }
+            }
+            notifyObservers(new LastAddConfirmedUpdateNotification(Long.MAX_VALUE));
+            return returnVal;
+        }
+
+        synchronized Long getLastAddConfirmed() {
+            return lac;
+        }
+
+        long setLastAddConfirmed(long lac) {
+            long lacToReturn;
+            synchronized (this) {
+                if (null == this.lac || this.lac < lac) {
+                    this.lac = lac;
+                    lacDirty = true;
+                    setChanged();
+                }
+                lacToReturn = this.lac;
+            }
+            notifyObservers(new LastAddConfirmedUpdateNotification(lacToReturn));
+            return lacToReturn;
+        }
+
+        synchronized Observable waitForLastAddConfirmedUpdate(long previousLAC, Observer observer) {
+            if ((null != lac && lac > previousLAC) || closed || fenced) {
+                return null;
+            }
+            addObserver(observer);
+            return this;
+        }
+
+        void notifyLastAddConfirmed(long lac) {
+            synchronized (this) {
+                setChanged();
+            }
+            notifyObservers(new LastAddConfirmedUpdateNotification(lac));
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            notifyLastAddConfirmed(Long.MAX_VALUE);
+        }
+    }
+}
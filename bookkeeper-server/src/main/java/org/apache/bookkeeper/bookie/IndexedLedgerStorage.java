@@ -0,0 +1,48 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.IOException;
+
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.meta.ActiveLedgerManager;
+import org.apache.bookkeeper.stats.StatsLogger;
+
+/**
+ * A {@link SortedLedgerStorage} keeping the entry locations and the metadata of
+ * all the ledgers in a single sorted {@link LedgerIndex}, instead of an index file
+ * per ledger. It suits bookies holding many small ledgers, which would otherwise
+ * run out of file handles and inodes, and spread their index updates over many
+ * files.
+ */
+public class IndexedLedgerStorage extends SortedLedgerStorage {
+
+    public IndexedLedgerStorage(ServerConfiguration conf,
+                                ActiveLedgerManager activeLedgerManager,
+                                LedgerDirsManager ledgerDirsManager,
+                                LedgerDirsManager indexDirsManager,
+                                final CheckpointSource checkpointSource,
+                                StatsLogger statsLogger)
+            throws IOException {
+        super(conf, activeLedgerManager, ledgerDirsManager, indexDirsManager, checkpointSource, statsLogger,
+              new IndexedLedgerCache(conf, activeLedgerManager, indexDirsManager, statsLogger));
+    }
+}
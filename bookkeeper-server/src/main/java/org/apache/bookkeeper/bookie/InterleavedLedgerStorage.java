@@ -84,6 +84,11 @@ class InterleavedLedgerStorage implements LedgerStorage, EntryLogListener {
     // this indicates that a write has happened since the last flush
     private volatile boolean somethingWritten = false;
 
+    // cache of the entries recently written to and read from the entry logs, null if disabled
+    final EntryReadCache readCache;
+    // read ahead of sequentially read ledgers into the read cache, null if disabled
+    final EntryReadAhead readAhead;
+
     // Stats
     final OpStatsLogger getOffsetStats;
     final OpStatsLogger getEntryStats;
@@ -95,9 +100,21 @@ class InterleavedLedgerStorage implements LedgerStorage, EntryLogListener {
                                     CheckpointSource checkpointSource,
                                     StatsLogger statsLogger)
             throws IOException {
+        this(conf, activeLedgerManager, ledgerDirsManager, indexDirsManager, checkpointSource, statsLogger,
+             new LedgerCacheImpl(conf, activeLedgerManager, indexDirsManager, statsLogger));
+    }
+
+    protected InterleavedLedgerStorage(ServerConfiguration conf,
+                                       ActiveLedgerManager activeLedgerManager,
+                                       LedgerDirsManager ledgerDirsManager,
+                                       LedgerDirsManager indexDirsManager,
+                                       CheckpointSource checkpointSource,
+                                       StatsLogger statsLogger,
+                                       LedgerCache ledgerCache)
+            throws IOException {
         this.checkpointSource = checkpointSource;
         entryLogger = new EntryLogger(conf, ledgerDirsManager, this, statsLogger);
-        ledgerCache = new LedgerCacheImpl(conf, activeLedgerManager, indexDirsManager, statsLogger);
+        this.ledgerCache = ledgerCache;
         gcThread = new GarbageCollectorThread(conf, ledgerCache, entryLogger, this,
                 activeLedgerManager, statsLogger);
         this.ledgerDirsManager = ledgerDirsManager;
@@ -105,6 +122,29 @@ class InterleavedLedgerStorage implements LedgerStorage, EntryLogListener {
         // Stats
         this.getEntryStats = statsLogger.getOpStatsLogger(STORAGE_GET_ENTRY);
         this.getOffsetStats = statsLogger.getOpStatsLogger(STORAGE_GET_OFFSET);
+        if (conf.getReadCacheSize() > 0) {
+            final EntryReadCache cache =
+                    new EntryReadCache(conf.getReadCacheSize(), conf.getReadCacheSegmentSize(), statsLogger);
+            // the garbage collector deletes ledgers through the ledger cache
+            ledgerCache.registerListener(new LedgerStorageListener() {
+                @Override
+                public void onLedgerDeleted(long ledgerId) {
+                    cache.invalidateLedger(ledgerId);
+                }
+            });
+            this.readCache = cache;
+        } else {
+            this.readCache = null;
+        }
+        if (conf.getReadAheadEntries() > 0 && null != readCache) {
+            this.readAhead = new EntryReadAhead(entryLogger, ledgerCache, readCache,
+                    conf.getReadAheadEntries(), conf.getReadAheadMaxBytes(), statsLogger);
+        } else {
+            if (conf.getReadAheadEntries() > 0) {
+                LOG.warn("Read ahead is disabled since it needs the read cache to be enabled.");
+            }
+            this.readAhead = null;
+        }
     }
 
     @Override
@@ -256,6 +296,20 @@ class InterleavedLedgerStorage implements LedgerStorage, EntryLogListener {
             entryId = ledgerCache.getLastEntry(ledgerId);
         }
 
+        boolean sequentialRead = false;
+        // taken before looking up the entry, so entries of a ledger deleted meanwhile aren't cached
+        long cacheVersion = 0L;
+        if (null != readCache) {
+            cacheVersion = readCache.getVersion();
+            ByteBuffer cachedEntry = readCache.get(ledgerId, entryId);
+            if (null != readAhead) {
+                sequentialRead = readAhead.recordRead(ledgerId, entryId, null != cachedEntry);
+            }
+            if (null != cachedEntry) {
+                return cachedEntry;
+            }
+        }
+
         long startTimeNanos = MathUtils.nowInNano();
         long offset = ledgerCache.getEntryOffset(ledgerId, entryId);
         getOffsetStats.registerSuccessfulEvent(MathUtils.elapsedMicroSec(startTimeNanos));
@@ -264,9 +318,18 @@ class InterleavedLedgerStorage implements LedgerStorage, EntryLogListener {
             return null;
         }
         startTimeNanos = MathUtils.nowInNano();
-        byte[] retBytes = entryLogger.readEntry(ledgerId, entryId, offset);
+        ByteBuffer retBuffer = null;
+        if (sequentialRead) {
+            retBuffer = readAhead.readAhead(ledgerId, entryId, offset, cacheVersion);
+        }
+        if (null == retBuffer) {
+            retBuffer = entryLogger.readEntryBuffer(ledgerId, entryId, offset);
+        }
         getEntryStats.registerSuccessfulEvent(MathUtils.elapsedMicroSec(startTimeNanos));
-        return ByteBuffer.wrap(retBytes);
+        if (null != readCache) {
+            readCache.put(ledgerId, entryId, retBuffer, cacheVersion);
+        }
+        return retBuffer;
     }
 
     @Override
@@ -278,6 +341,14 @@ class InterleavedLedgerStorage implements LedgerStorage, EntryLogListener {
         return buffToRet;
     }
 
+    @Override
+    public boolean entryExists(long ledgerId, long entryId) throws IOException {
+        long startTimeNanos = MathUtils.nowInNano();
+        long offset = ledgerCache.getEntryOffset(ledgerId, entryId);
+        getOffsetStats.registerSuccessfulEvent(MathUtils.elapsedMicroSec(startTimeNanos));
+        return offset != 0;
+    }
+
     private void flushOptional(boolean force, boolean isCheckPointFlush)
             throws IOException {
         boolean flushFailed = false;
@@ -347,6 +418,9 @@ class InterleavedLedgerStorage implements LedgerStorage, EntryLogListener {
          */
         somethingWritten = true;
 
+        // entries are cached once added to the entry log, which consumes the buffer
+        ByteBuffer entryToCache = null == readCache ? null : entry.duplicate();
+
         /*
          * Log the entry
          */
@@ -356,6 +430,10 @@ class InterleavedLedgerStorage implements LedgerStorage, EntryLogListener {
          * Set offset of entry id to be the current ledger position
          */
         ledgerCache.putEntryOffset(ledgerId, entryId, pos);
+
+        if (null != entryToCache) {
+            readCache.put(ledgerId, entryId, entryToCache);
+        }
     }
 
     @Override
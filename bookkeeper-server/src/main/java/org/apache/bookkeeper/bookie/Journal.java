@@ -28,14 +28,16 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Stopwatch;
 import org.apache.bookkeeper.bookie.LedgerDirsManager.NoWritableLedgerDirException;
 import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.proto.BookieProtocol;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
 import org.apache.bookkeeper.stats.Counter;
 import org.apache.bookkeeper.stats.OpStatsLogger;
@@ -45,6 +47,7 @@ import org.apache.bookkeeper.util.DaemonThreadFactory;
 import org.apache.bookkeeper.util.IOUtils;
 import org.apache.bookkeeper.util.MathUtils;
 import org.apache.bookkeeper.util.OrderedSafeExecutor;
+import org.apache.bookkeeper.util.RingBufferBlockingQueue;
 import org.apache.bookkeeper.util.SafeRunnable;
 import org.apache.bookkeeper.util.ZeroBuffer;
 import org.slf4j.Logger;
@@ -165,7 +168,7 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
             List<File> writableLedgerDirs = ledgerDirsManager
                     .getWritableLedgerDirs();
             for (File dir : writableLedgerDirs) {
-                File file = new File(dir, "lastMark");
+                File file = new File(dir, lastMarkFileName);
                 FileOutputStream fos = null;
                 try {
                     fos = new FileOutputStream(file);
@@ -194,7 +197,7 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
             ByteBuffer bb = ByteBuffer.wrap(buff);
             LogMark mark = new LogMark();
             for(File dir: ledgerDirsManager.getAllLedgerDirs()) {
-                File file = new File(dir, "lastMark");
+                File file = new File(dir, lastMarkFileName);
                 try {
                     FileInputStream fis = new FileInputStream(file);
                     try {
@@ -263,40 +266,71 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
     }
 
     /**
-     * Journal Entry to Record
+     * Journal Entry to Record.
+     *
+     * <p>Queue entries are recycled to the pool of the journal once the write
+     * callback is triggered, so they shouldn't be referenced after that.</p>
      */
     private static class QueueEntry extends SafeRunnable {
-        final ByteBuffer entry;
-        final long ledgerId;
-        final long entryId;
-        final WriteCallback cb;
-        final Object ctx;
-        final long enqueueTime;
-        final OpStatsLogger addLatencyStats;
-
-        QueueEntry(ByteBuffer entry,
-                   long ledgerId, long entryId,
-                   WriteCallback cb,
-                   Object ctx,
-                   long enqueueTime,
-                   OpStatsLogger addLatencyStats) {
-            this.entry = entry.duplicate();
-            this.cb = cb;
-            this.ctx = ctx;
-            this.ledgerId = ledgerId;
-            this.entryId = entryId;
-            this.enqueueTime = enqueueTime;
-            this.addLatencyStats = addLatencyStats;
+        ByteBuffer entry;
+        long ledgerId;
+        long entryId;
+        WriteCallback cb;
+        Object ctx;
+        long enqueueTime;
+        OpStatsLogger addLatencyStats;
+        // next entry of the group this entry was queued with, written right after it
+        QueueEntry next;
+        // pool to recycle this entry, null if pooling is disabled
+        BlockingQueue<QueueEntry> pool;
+
+        static QueueEntry create(BlockingQueue<QueueEntry> pool,
+                                 ByteBuffer entry,
+                                 long ledgerId, long entryId,
+                                 WriteCallback cb,
+                                 Object ctx,
+                                 long enqueueTime,
+                                 OpStatsLogger addLatencyStats) {
+            QueueEntry qe = null == pool ? null : pool.poll();
+            if (null == qe) {
+                qe = new QueueEntry();
+                qe.pool = pool;
+            }
+            qe.entry = entry.duplicate();
+            qe.cb = cb;
+            qe.ctx = ctx;
+            qe.ledgerId = ledgerId;
+            qe.entryId = entryId;
+            qe.enqueueTime = enqueueTime;
+            qe.addLatencyStats = addLatencyStats;
+            qe.next = null;
+            return qe;
+        }
+
+        private void recycle() {
+            if (null == pool) {
+                return;
+            }
+            entry = null;
+            cb = null;
+            ctx = null;
+            addLatencyStats = null;
+            // drop the entry if the pool is already full
+            pool.offer(this);
         }
 
         @Override
         public void safeRun() {
-            this.addLatencyStats.registerSuccessfulEvent(
-                    MathUtils.elapsedMicroSec(enqueueTime));
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Acknowledge Ledger: {}, Entry: {}", ledgerId, entryId);
+            try {
+                this.addLatencyStats.registerSuccessfulEvent(
+                        MathUtils.elapsedMicroSec(enqueueTime));
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Acknowledge Ledger: {}, Entry: {}", ledgerId, entryId);
+                }
+                cb.writeComplete(0, ledgerId, entryId, null, ctx);
+            } finally {
+                recycle();
             }
-            cb.writeComplete(0, ledgerId, entryId, null, ctx);
         }
 
         @Override
@@ -307,7 +341,7 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
 
     private class ForceWriteRequest {
         private final JournalChannel logFile;
-        private final LinkedList<QueueEntry> forceWriteWaiters;
+        private final List<QueueEntry> forceWriteWaiters;
         private boolean shouldClose;
         private final boolean isMarker;
         private final long startFlushPosition;
@@ -318,7 +352,7 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
                           long logId,
                           long startFlushPosition,
                           long endFlushPosition,
-                          LinkedList<QueueEntry> forceWriteWaiters,
+                          List<QueueEntry> forceWriteWaiters,
                           boolean shouldClose,
                           boolean isMarker) {
             this.forceWriteWaiters = forceWriteWaiters;
@@ -340,12 +374,16 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
 
             try {
                 if (shouldForceWrite) {
+                    long startTimeNanos = MathUtils.nowInNano();
                     if (enableGroupForceWrites) {
                         this.logFile.forceWrite(false);
                     } else {
                         this.logFile.syncRangeOrForceWrite(this.startFlushPosition,
                             this.endFlushPosition - this.startFlushPosition);
                     }
+                    if (null != groupCommitPolicy) {
+                        groupCommitPolicy.recordForceWrite(MathUtils.elapsedNanos(startTimeNanos));
+                    }
                 }
                 lastLogMark.setCurLogMark(this.logId, this.endFlushPosition);
 
@@ -360,7 +398,8 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
         }
 
         void callback() {
-            for (QueueEntry e : this.forceWriteWaiters) {
+            for (int i = 0; i < this.forceWriteWaiters.size(); i++) {
+                QueueEntry e = this.forceWriteWaiters.get(i);
                 if (null != e.ctx) {
                     cbThreadPool.submitOrdered(e.ctx, e);
                 } else {
@@ -397,7 +436,7 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
         Thread threadToNotifyOnEx;
         // make flush interval as a parameter
         public ForceWriteThread(Thread threadToNotifyOnEx) {
-            super("ForceWriteThread");
+            super("ForceWriteThread-" + journalIndex);
             this.threadToNotifyOnEx = threadToNotifyOnEx;
         }
 
@@ -496,16 +535,23 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
 
     final static long MB = 1024 * 1024L;
     final static int KB = 1024;
+    final static String LAST_MARK_FILENAME = "lastMark";
     // max journal file size
     final long maxJournalSize;
     // pre-allocation size for the journal files
     final long journalPreAllocSize;
     // write buffer size for the journal files
     final int journalWriteBufferSize;
+    // read buffer size to scan the journal files
+    final int journalReadBufferSize;
     // number journal files kept before marked journal
     final int maxBackupJournals;
 
+    // index of the journal when bookie runs multiple journals
+    final int journalIndex;
     final File journalDirectory;
+    // name of the file that persists the last log mark of this journal in ledger dirs
+    final String lastMarkFileName;
     final ServerConfiguration conf;
     final ForceWriteThread forceWriteThread;
     // should we group force writes
@@ -524,6 +570,12 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
     private final int journalAlignmentSize;
     // journal format version to write
     private final int journalFormatVersionToWrite;
+    // arena to stage journal writes for gathering writes, null if disabled
+    private final DirectBufferArena writeArena;
+    // max bytes staged in the arena before they are written to the journal file
+    private final long maxPendingWriteBytes;
+    // policy adapting the group commit thresholds, null if they are fixed
+    private final AdaptiveGroupCommitPolicy groupCommitPolicy;
 
     private final LastLogMark lastLogMark = new LastLogMark(0, 0);
 
@@ -533,7 +585,11 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
     private final OrderedSafeExecutor cbThreadPool;
 
     // journal entry queue to commit
-    final LinkedBlockingQueue<QueueEntry> queue = new LinkedBlockingQueue<QueueEntry>();
+    final BlockingQueue<QueueEntry> queue;
+    // pool of queue entries, null if pooling is disabled
+    private final BlockingQueue<QueueEntry> queueEntryPool;
+    // entries drained from the queue but not written yet, only accessed by the journal thread
+    private final ArrayDeque<QueueEntry> drainedEntries = new ArrayDeque<QueueEntry>();
     final LinkedBlockingQueue<ForceWriteRequest> forceWriteRequests = new LinkedBlockingQueue<ForceWriteRequest>();
 
     volatile boolean running = true;
@@ -555,17 +611,45 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
     final OpStatsLogger journalForceWriteBatchEntriesStats;
     final OpStatsLogger journalForceWriteBatchBytesStats;
     final OpStatsLogger journalForceWriteGroupingStats;
+    final OpStatsLogger journalQueueDrainBatchStats;
+    final OpStatsLogger journalQueueWaitStats;
 
     public Journal(ServerConfiguration conf,
                    LedgerDirsManager ledgerDirsManager,
                    StatsLogger statsLogger) {
-        super("BookieJournal-" + conf.getBookiePort());
+        this(0, conf.getJournalDirs()[0], conf, ledgerDirsManager, statsLogger);
+    }
+
+    /**
+     * Create a journal writing to <i>journalDir</i>.
+     *
+     * @param journalIndex
+     *          index of the journal among all the journals of the bookie.
+     * @param journalDir
+     *          journal directory (without current dir).
+     * @param conf
+     *          server configuration.
+     * @param ledgerDirsManager
+     *          ledger dirs manager used to persist last log mark.
+     * @param statsLogger
+     *          stats logger.
+     */
+    public Journal(int journalIndex,
+                   File journalDir,
+                   ServerConfiguration conf,
+                   LedgerDirsManager ledgerDirsManager,
+                   StatsLogger statsLogger) {
+        super("BookieJournal-" + conf.getBookiePort() + "-" + journalIndex);
+        this.journalIndex = journalIndex;
         this.ledgerDirsManager = ledgerDirsManager;
         this.conf = conf;
-        this.journalDirectory = Bookie.getCurrentDirectory(conf.getJournalDir());
+        this.journalDirectory = Bookie.getCurrentDirectory(journalDir);
+        // keep the original file name for the first journal to be compatible with single journal layout
+        this.lastMarkFileName = 0 == journalIndex ? LAST_MARK_FILENAME : LAST_MARK_FILENAME + "." + journalIndex;
         this.maxJournalSize = conf.getMaxJournalSizeMB() * MB;
         this.journalPreAllocSize = conf.getJournalPreAllocSizeMB() * MB;
         this.journalWriteBufferSize = conf.getJournalWriteBufferSizeKB() * KB;
+        this.journalReadBufferSize = conf.getJournalReadBufferSizeKB() * KB;
         this.maxBackupJournals = conf.getMaxBackupJournals();
         this.enableGroupForceWrites = conf.getJournalAdaptiveGroupWrites();
         this.forceWriteThread = new ForceWriteThread(this);
@@ -574,8 +658,16 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
         this.bufferedEntriesThreshold = conf.getJournalBufferedEntriesThreshold();
         this.journalAlignmentSize = conf.getJournalAlignmentSize();
         this.journalFormatVersionToWrite = conf.getJournalFormatVersionToWrite();
+        this.maxPendingWriteBytes = Math.max(bufferedWritesThreshold, journalWriteBufferSize);
+        if (conf.getJournalGatheringWriteEnabled()) {
+            // pool enough chunks to stage a whole batch, the arena is only used by the journal thread
+            int maxPooledChunks = (int) (maxPendingWriteBytes / journalWriteBufferSize) + 2;
+            this.writeArena = new DirectBufferArena(journalWriteBufferSize, maxPooledChunks);
+        } else {
+            this.writeArena = null;
+        }
         this.cbThreadPool = OrderedSafeExecutor.newBuilder()
-                .name("BookieJournal")
+                .name("BookieJournal-" + journalIndex)
                 .numThreads(conf.getNumJournalCallbackThreads())
                 .statsLogger(Stats.get().getStatsLogger("journal"))
                 .threadFactory(new DaemonThreadFactory())
@@ -586,6 +678,25 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
         this.flushWhenQueueEmpty = maxGroupWaitInNanos <= 0 || conf.getJournalFlushWhenQueueEmpty();
 
         this.removePagesFromCache = conf.getJournalRemovePagesFromCache();
+        if (conf.getJournalRingBufferQueueEnabled()) {
+            this.queue = new RingBufferBlockingQueue<QueueEntry>(conf.getJournalRingBufferQueueCapacity());
+        } else {
+            this.queue = new LinkedBlockingQueue<QueueEntry>();
+        }
+        int queueEntryPoolSize = conf.getJournalQueueEntryPoolSize();
+        if (queueEntryPoolSize > 0) {
+            this.queueEntryPool = new RingBufferBlockingQueue<QueueEntry>(queueEntryPoolSize);
+        } else {
+            this.queueEntryPool = null;
+        }
+        if (conf.getJournalAdaptiveGroupCommitEnabled()) {
+            this.groupCommitPolicy = new AdaptiveGroupCommitPolicy(
+                    TimeUnit.MILLISECONDS.toNanos(conf.getJournalGroupCommitTargetLatencyMSec()),
+                    maxGroupWaitInNanos, bufferedEntriesThreshold, bufferedWritesThreshold);
+            this.groupCommitPolicy.registerGauges(statsLogger, journalIndex);
+        } else {
+            this.groupCommitPolicy = null;
+        }
         // read last log mark
         lastLogMark.readLog();
         LOG.debug("Last Log Mark : {}", lastLogMark.getCurMark());
@@ -606,12 +717,21 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
         journalForceWriteBatchEntriesStats = statsLogger.getOpStatsLogger(JOURNAL_FORCE_WRITE_BATCH_ENTRIES);
         journalForceWriteBatchBytesStats = statsLogger.getOpStatsLogger(JOURNAL_FORCE_WRITE_BATCH_BYTES);
         journalForceWriteGroupingStats = statsLogger.getOpStatsLogger(JOURNAL_FORCE_WRITE_GROUPING_COUNT);
+        journalQueueDrainBatchStats = statsLogger.getOpStatsLogger(JOURNAL_QUEUE_DRAIN_BATCH_SIZE);
+        journalQueueWaitStats = statsLogger.getOpStatsLogger(JOURNAL_QUEUE_WAIT);
     }
 
     LastLogMark getLastLogMark() {
         return lastLogMark;
     }
 
+    /**
+     * @return journal directory (current dir) of this journal.
+     */
+    File getJournalDirectory() {
+        return journalDirectory;
+    }
+
     /**
      * Application tried to schedule a checkpoint. After all the txns added
      * before checkpoint are persisted, a <i>checkpoint</i> will be returned
@@ -665,21 +785,16 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
      */
     public void scanJournal(long journalId, long journalPos, JournalScanner scanner)
         throws IOException {
-        JournalChannel recLog;
-        if (journalPos <= 0) {
-            recLog = new JournalChannel(journalDirectory, journalId,
-                    journalPreAllocSize, journalWriteBufferSize, statsLogger);
-        } else {
-            recLog = new JournalChannel(journalDirectory, journalId,
-                    journalPreAllocSize, journalWriteBufferSize, journalPos, statsLogger);
-        }
+        JournalChannel recLog = new JournalChannel(journalDirectory, journalId,
+                journalPreAllocSize, journalWriteBufferSize, journalReadBufferSize,
+                journalPos <= 0 ? JournalChannel.START_OF_FILE : journalPos, statsLogger);
         int journalVersion = recLog.getFormatVersion();
         try {
             ByteBuffer lenBuff = ByteBuffer.allocate(4);
             ByteBuffer recBuff = ByteBuffer.allocate(64*1024);
             while(true) {
                 // entry start offset
-                long offset = recLog.fc.position();
+                long offset = recLog.readPosition();
                 // start reading entry
                 lenBuff.clear();
                 fullRead(recLog, lenBuff);
@@ -758,9 +873,6 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
             }
         }
         LOG.debug("Try to relay journal logs : {}", logs);
-        // TODO: When reading in the journal logs that need to be synced, we
-        // should use BufferedChannels instead to minimize the amount of
-        // system calls done.
         for(Long id: logs) {
             long logPosition = 0L;
             if(id == markedLog.getLogFileId()) {
@@ -778,7 +890,66 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
         long entryId = entry.getLong();
         entry.rewind();
         journalQueueSizeGauge.inc();
-        queue.add(new QueueEntry(entry, ledgerId, entryId, cb, ctx, MathUtils.nowInNano(), journalAddLatencyStats));
+        QueueEntry qe = QueueEntry.create(queueEntryPool, entry, ledgerId, entryId, cb, ctx,
+                MathUtils.nowInNano(), journalAddLatencyStats);
+        try {
+            queue.put(qe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            journalQueueSizeGauge.dec();
+            LOG.warn("Interrupted while adding entry {}@{} to journal", entryId, ledgerId);
+            try {
+                cb.writeComplete(BookieProtocol.EIO, ledgerId, entryId, null, ctx);
+            } finally {
+                // the entry never reached the journal thread, so return it to the pool here
+                qe.recycle();
+            }
+        }
+    }
+
+    /**
+     * record add entry operations of a group of entries in journal. The entries
+     * are queued at once, and written one after the other.
+     */
+    public void logAddEntries(List<ByteBuffer> entries, WriteCallback cb, Object ctx) {
+        long enqueueTime = MathUtils.nowInNano();
+        QueueEntry head = null;
+        QueueEntry tail = null;
+        for (ByteBuffer entry : entries) {
+            long ledgerId = entry.getLong();
+            long entryId = entry.getLong();
+            entry.rewind();
+            QueueEntry qe = QueueEntry.create(queueEntryPool, entry, ledgerId, entryId, cb, ctx,
+                    enqueueTime, journalAddLatencyStats);
+            if (null == head) {
+                head = qe;
+            } else {
+                tail.next = qe;
+            }
+            tail = qe;
+        }
+        if (null == head) {
+            return;
+        }
+        journalQueueSizeGauge.add(entries.size());
+        try {
+            queue.put(head);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            journalQueueSizeGauge.add(-entries.size());
+            LOG.warn("Interrupted while adding {} entries from {}@{} to journal",
+                     new Object[] { entries.size(), head.entryId, head.ledgerId });
+            QueueEntry qe = head;
+            while (null != qe) {
+                QueueEntry next = qe.next;
+                try {
+                    cb.writeComplete(BookieProtocol.EIO, qe.ledgerId, qe.entryId, null, ctx);
+                } finally {
+                    qe.recycle();
+                }
+                qe = next;
+            }
+        }
     }
 
     /**
@@ -790,6 +961,44 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
         return queue.size();
     }
 
+    /**
+     * Poll the next entry to write. Entries are drained from the journal queue
+     * in batches, so the journal thread contends with the adding threads once
+     * per batch instead of once per entry.
+     *
+     * @param block
+     *          whether to block until an entry is available.
+     * @param waitNanos
+     *          max time to wait for an entry if not blocking.
+     * @return next entry to write, or null if no entry is available.
+     */
+    private QueueEntry pollEntry(boolean block, long waitNanos) throws InterruptedException {
+        QueueEntry qe = drainedEntries.poll();
+        if (null != qe) {
+            return qe;
+        }
+        int numDrained = queue.drainTo(drainedEntries);
+        if (0 == numDrained) {
+            if (!block && waitNanos <= 0) {
+                return null;
+            }
+            long startNanos = MathUtils.nowInNano();
+            if (block) {
+                qe = queue.take();
+            } else {
+                qe = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+            }
+            journalQueueWaitStats.registerSuccessfulEvent(MathUtils.elapsedMicroSec(startNanos));
+            if (null == qe) {
+                return null;
+            }
+            drainedEntries.add(qe);
+            numDrained = 1 + queue.drainTo(drainedEntries);
+        }
+        journalQueueDrainBatchStats.registerSuccessfulEvent(numDrained);
+        return drainedEntries.poll();
+    }
+
     /**
      * A thread used for persisting journal entries to journal files.
      *
@@ -807,7 +1016,7 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
      */
     @Override
     public void run() {
-        LinkedList<QueueEntry> toFlush = new LinkedList<QueueEntry>();
+        List<QueueEntry> toFlush = new ArrayList<QueueEntry>();
         ByteBuffer lenBuff = ByteBuffer.allocate(4);
         ByteBuffer paddingBuff = ByteBuffer.allocate(2 * journalAlignmentSize);
         ZeroBuffer.put(paddingBuff);
@@ -840,6 +1049,8 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
                                         journalAlignmentSize,
                                         removePagesFromCache,
                                         journalFormatVersionToWrite,
+                                        writeArena,
+                                        maxPendingWriteBytes,
                                         statsLogger);
                     journalCreationLatencyStats.registerSuccessfulEvent(
                             journalCreationWatcher.stop().elapsed(TimeUnit.MICROSECONDS));
@@ -851,21 +1062,31 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
 
                 if (qe == null) {
                     if (toFlush.isEmpty()) {
-                        qe = queue.take();
+                        qe = pollEntry(true, 0L);
                     } else {
-                        long pollWaitTimeNanos = maxGroupWaitInNanos - MathUtils.elapsedNanos(toFlush.getFirst().enqueueTime);
-                        if (flushWhenQueueEmpty || pollWaitTimeNanos < 0) {
+                        long groupWaitNanos = maxGroupWaitInNanos;
+                        long entriesThreshold = bufferedEntriesThreshold;
+                        long writesThreshold = bufferedWritesThreshold;
+                        boolean flushWhenEmpty = flushWhenQueueEmpty;
+                        if (null != groupCommitPolicy) {
+                            groupWaitNanos = groupCommitPolicy.getGroupWaitNanos();
+                            entriesThreshold = groupCommitPolicy.getBufferedEntriesThreshold();
+                            writesThreshold = groupCommitPolicy.getBufferedWritesThreshold();
+                            flushWhenEmpty |= groupWaitNanos <= 0;
+                        }
+                        long pollWaitTimeNanos = groupWaitNanos - MathUtils.elapsedNanos(toFlush.get(0).enqueueTime);
+                        if (flushWhenEmpty || pollWaitTimeNanos < 0) {
                             pollWaitTimeNanos = 0;
                         }
-                        qe = queue.poll(pollWaitTimeNanos, TimeUnit.NANOSECONDS);
+                        qe = pollEntry(false, pollWaitTimeNanos);
                         boolean shouldFlush = false;
                         // We should issue a forceWrite if any of the three conditions below holds good
                         // 1. If the oldest pending entry has been pending for longer than the max wait time
-                        if (maxGroupWaitInNanos > 0 && !groupWhenTimeout
-                                && (MathUtils.elapsedNanos(toFlush.getFirst().enqueueTime) > maxGroupWaitInNanos)) {
+                        if (groupWaitNanos > 0 && !groupWhenTimeout
+                                && (MathUtils.elapsedNanos(toFlush.get(0).enqueueTime) > groupWaitNanos)) {
                             groupWhenTimeout = true;
-                        } else if (maxGroupWaitInNanos > 0 && groupWhenTimeout && qe != null
-                                && MathUtils.elapsedNanos(qe.enqueueTime) < maxGroupWaitInNanos) {
+                        } else if (groupWaitNanos > 0 && groupWhenTimeout && qe != null
+                                && MathUtils.elapsedNanos(qe.enqueueTime) < groupWaitNanos) {
                             // when group timeout, it would be better to look forward, as there might be lots of entries already timeout
                             // due to a previous slow write (writing to filesystem which impacted by force write).
                             // Group those entries in the queue
@@ -875,8 +1096,8 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
                             shouldFlush = true;
                             journalFlushMaxWaitCounter.inc();
                         } else if (qe != null &&
-                                ((bufferedEntriesThreshold > 0 && toFlush.size() > bufferedEntriesThreshold) ||
-                                 (bc.position() > lastFlushPosition + bufferedWritesThreshold))) {
+                                ((entriesThreshold > 0 && toFlush.size() > entriesThreshold) ||
+                                 (bc.position() > lastFlushPosition + writesThreshold))) {
                             // 2. If we have buffered more than the buffWriteThreshold or bufferedEntriesThreshold
                             shouldFlush = true;
                             journalFlushMaxOutstandingBytesCounter.inc();
@@ -889,7 +1110,7 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
                             journalFlushEmptyQueueCounter.inc();
                         }
 
-                        // toFlush is non null and not empty so should be safe to access getFirst
+                        // toFlush is non null and not empty so should be safe to access the first entry
                         if (shouldFlush) {
                             long prevFlushPosition = lastFlushPosition;
 
@@ -919,8 +1140,11 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
 
                             forceWriteRequests.put(new ForceWriteRequest(logFile, logId, prevFlushPosition,
                                     lastFlushPosition, toFlush, (lastFlushPosition > maxJournalSize), false));
-                            toFlush = new LinkedList<QueueEntry>();
+                            toFlush = new ArrayList<QueueEntry>();
                             batchSize = 0L;
+                            if (null != groupCommitPolicy) {
+                                groupCommitPolicy.update();
+                            }
                             // check whether journal file is over file limit
                             if (bc.position() > maxJournalSize) {
                                 logFile = null;
@@ -940,6 +1164,9 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
                 }
                 journalWriteBytesCounter.add(qe.entry.remaining());
                 journalQueueSizeGauge.dec();
+                if (null != groupCommitPolicy) {
+                    groupCommitPolicy.recordArrival(qe.enqueueTime, qe.entry.remaining());
+                }
 
                 batchSize += (4 + qe.entry.remaining());
 
@@ -950,20 +1177,22 @@ class Journal extends BookieCriticalThread implements CheckpointSource {
                 // preAlloc based on size
                 logFile.preAllocIfNeeded(4 + qe.entry.remaining(), journalAllocationWatcher);
 
-                //
-                // we should be doing the following, but then we run out of
-                // direct byte buffers
-                // logFile.write(new ByteBuffer[] { lenBuff, qe.entry });
+                // the entry isn't touched until its force write completes, so
+                // with gathering writes it is written without being copied if
+                // it is in a direct buffer.
                 int flushes = 0;
                 flushes += bc.write(lenBuff);
-                flushes += bc.write(qe.entry);
+                flushes += bc.writeRetained(qe.entry);
 
                 journalMemAddFlushTimesStats.registerSuccessfulEvent(flushes);
                 journalMemAddLatencyStats.registerSuccessfulEvent(
                         MathUtils.elapsedMicroSec(qe.enqueueTime));
 
                 toFlush.add(qe);
-                qe = null;
+                // the next entry of the group is written right away
+                QueueEntry next = qe.next;
+                qe.next = null;
+                qe = next;
             }
             logFile.close();
             logFile = null;
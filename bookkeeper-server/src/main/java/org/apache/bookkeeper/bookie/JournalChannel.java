@@ -63,7 +63,7 @@ class JournalChannel implements Closeable {
     final byte[] MAGIC_WORD = "BKLG".getBytes(UTF_8);
 
     final static int SECTOR_SIZE = 512;
-    private final static int START_OF_FILE = -12345;
+    final static int START_OF_FILE = -12345;
     private static long CACHE_DROP_LAG_BYTES = 8 * 1024 * 1024;
 
     // No header
@@ -87,6 +87,8 @@ class JournalChannel implements Closeable {
     private final int journalAlignSize;
     private final boolean fRemoveFromPageCache;
     public final ByteBuffer zeros;
+    // buffer for sequential reads when scanning the journal, null if reads go to the file
+    private final ByteBuffer readBuffer;
 
     // The position of the file channel's last drop position
     private long lastDropPosition = 0L;
@@ -111,7 +113,17 @@ class JournalChannel implements Closeable {
     JournalChannel(File journalDirectory, long logId,
                    long preAllocSize, int writeBufferSize, long position, StatsLogger statsLogger)
             throws IOException {
-         this(journalDirectory, logId, preAllocSize, writeBufferSize, SECTOR_SIZE, position, false, V5, statsLogger);
+         this(journalDirectory, logId, preAllocSize, writeBufferSize, 0, position, statsLogger);
+    }
+
+    // Open journal for scanning starting from given position, reading the file
+    // sequentially in chunks of readBufferSize bytes if it is positive.
+    JournalChannel(File journalDirectory, long logId,
+                   long preAllocSize, int writeBufferSize, int readBufferSize, long position,
+                   StatsLogger statsLogger)
+            throws IOException {
+         this(journalDirectory, logId, preAllocSize, writeBufferSize, readBufferSize, SECTOR_SIZE,
+              position, false, V5, null, 0L, statsLogger);
     }
 
     // Open journal to write
@@ -120,7 +132,18 @@ class JournalChannel implements Closeable {
                    boolean fRemoveFromPageCache, int formatVersionToWrite,
                    StatsLogger statsLogger) throws IOException {
         this(journalDirectory, logId, preAllocSize, writeBufferSize, journalAlignSize,
-             START_OF_FILE, fRemoveFromPageCache, formatVersionToWrite, statsLogger);
+             fRemoveFromPageCache, formatVersionToWrite, null, 0L, statsLogger);
+    }
+
+    // Open journal to write, staging writes in the given arena if not null
+    JournalChannel(File journalDirectory, long logId,
+                   long preAllocSize, int writeBufferSize, int journalAlignSize,
+                   boolean fRemoveFromPageCache, int formatVersionToWrite,
+                   DirectBufferArena writeArena, long maxPendingWriteBytes,
+                   StatsLogger statsLogger) throws IOException {
+        this(journalDirectory, logId, preAllocSize, writeBufferSize, 0, journalAlignSize,
+             START_OF_FILE, fRemoveFromPageCache, formatVersionToWrite,
+             writeArena, maxPendingWriteBytes, statsLogger);
     }
 
     /**
@@ -134,6 +157,8 @@ class JournalChannel implements Closeable {
      *          pre allocation size.
      * @param writeBufferSize
      *          write buffer size.
+     * @param readBufferSize
+     *          read buffer size to scan an existing journal, 0 to read the file directly.
      * @param journalAlignSize
      *          size to align journal writes.
      * @param position
@@ -142,6 +167,10 @@ class JournalChannel implements Closeable {
      *          whether to remove cached pages from page cache.
      * @param formatVersionToWrite
      *          format version to write
+     * @param writeArena
+     *          arena to stage writes for gathering writes, null to use a write buffer.
+     * @param maxPendingWriteBytes
+     *          max bytes staged in the arena before they are written to the file.
      * @param statsLogger
                 stats logger to record stats
      * @throws IOException
@@ -150,10 +179,13 @@ class JournalChannel implements Closeable {
                            long logId,
                            long preAllocSize,
                            int writeBufferSize,
+                           int readBufferSize,
                            int journalAlignSize,
                            long position,
                            boolean fRemoveFromPageCache,
                            int formatVersionToWrite,
+                           DirectBufferArena writeArena,
+                           long maxPendingWriteBytes,
                            StatsLogger statsLogger)
             throws IOException {
         this.journalAlignSize = journalAlignSize;
@@ -191,7 +223,13 @@ class JournalChannel implements Closeable {
             bb.clear();
             fc.write(bb);
 
-            bc = new BufferedChannel(fc, writeBufferSize);
+            if (null != writeArena) {
+                bc = new GatheringBufferedChannel(fc, writeBufferSize, writeArena, maxPendingWriteBytes,
+                        statsLogger.getOpStatsLogger(JOURNAL_GATHERING_WRITE_CALLS));
+            } else {
+                bc = new BufferedChannel(fc, writeBufferSize);
+            }
+            readBuffer = null;
 
             // sync the file
             // syncRangeOrForceWrite(0, HEADER_SIZE);
@@ -200,6 +238,12 @@ class JournalChannel implements Closeable {
             fd = NativeIO.getSysFileDescriptor(randomAccessFile.getFD());
             fc = randomAccessFile.getChannel();
             bc = null; // readonly
+            if (readBufferSize > 0) {
+                readBuffer = ByteBuffer.allocateDirect(readBufferSize);
+                readBuffer.limit(0);
+            } else {
+                readBuffer = null;
+            }
 
             ByteBuffer bb = ByteBuffer.allocate(VERSION_HEADER_SIZE);
             int c = fc.read(bb);
@@ -293,7 +337,38 @@ class JournalChannel implements Closeable {
 
     int read(ByteBuffer dst)
             throws IOException {
-        return fc.read(dst);
+        if (null == readBuffer) {
+            return fc.read(dst);
+        }
+        int total = 0;
+        while (dst.hasRemaining()) {
+            if (!readBuffer.hasRemaining()) {
+                readBuffer.clear();
+                int rc = fc.read(readBuffer);
+                readBuffer.flip();
+                if (rc <= 0) {
+                    return total > 0 ? total : rc;
+                }
+            }
+            int bytesToCopy = Math.min(dst.remaining(), readBuffer.remaining());
+            ByteBuffer src = readBuffer.duplicate();
+            src.limit(src.position() + bytesToCopy);
+            dst.put(src);
+            readBuffer.position(readBuffer.position() + bytesToCopy);
+            total += bytesToCopy;
+        }
+        return total;
+    }
+
+    /**
+     * @return position of the next byte to read.
+     */
+    long readPosition() throws IOException {
+        long position = fc.position();
+        if (null != readBuffer) {
+            position -= readBuffer.remaining();
+        }
+        return position;
     }
 
     public void close() throws IOException {
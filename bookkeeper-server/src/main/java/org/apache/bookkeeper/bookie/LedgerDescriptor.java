@@ -65,6 +65,7 @@ public abstract class LedgerDescriptor {
 
     abstract long addEntry(ByteBuffer entry) throws IOException;
     abstract ByteBuffer readEntry(long entryId) throws IOException;
+    abstract boolean entryExists(long entryId) throws IOException;
     abstract long getLastAddConfirmed() throws IOException;
     abstract Observable waitForLastAddConfirmedUpdate(long previoisLAC, Observer observer) throws IOException;
 }
@@ -133,6 +133,11 @@ public class LedgerDescriptorImpl extends LedgerDescriptor {
         }
     }
 
+    @Override
+    boolean entryExists(long entryId) throws IOException {
+        return ledgerStorage.entryExists(ledgerId, entryId);
+    }
+
     @Override
     long getLastAddConfirmed() throws IOException {
         return ledgerStorage.getLastAddConfirmed(ledgerId);
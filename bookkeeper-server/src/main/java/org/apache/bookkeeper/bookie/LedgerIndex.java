@@ -0,0 +1,1120 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+/**
+ * A sorted key-value index shared by all the ledgers of a bookie, kept in a
+ * single directory whatever the number of ledgers.
+ *
+ * <p>
+ * Keys are (ledger id, entry id) pairs. Updates go to a mem-table, which is
+ * written as an immutable sorted run file when the index is flushed. A run is
+ * made of blocks of records sorted by key, followed by the first key of each
+ * block, so a lookup reads at most one block per run. Lookups check the
+ * mem-table and then the runs from the newest to the oldest. The newest runs
+ * are merged together once there are more than <i>maxRuns</i> of them.
+ * </p>
+ * <p>
+ * A full mem-table is written and runs are merged by a background thread, so
+ * updates only wait when the background thread falls behind: when the
+ * mem-table grows to twice its size limit while the previous one is still
+ * being written, or when there are more than twice <i>maxRuns</i> runs.
+ * </p>
+ * <p>
+ * Ledger metadata lives in the same index, under the ledger id
+ * {@link #METADATA_LEDGER_ID} and the ledger id as entry id, so listing the
+ * ledgers only reads the head of the index. Deleting a ledger records its id
+ * under {@link #DELETED_LEDGER_ID}: the records of the ledger are dropped when
+ * runs are merged, and the deletion once all the runs are merged into one.
+ * Ledger ids are never reused, so a deleted ledger never gets records again.
+ * </p>
+ */
+class LedgerIndex implements Closeable {
+    private final static Logger LOG = LoggerFactory.getLogger(LedgerIndex.class);
+
+    static final long METADATA_LEDGER_ID = -1L;
+    static final long DELETED_LEDGER_ID = -2L;
+
+    static final String RUN_SUFFIX = ".run";
+    static final String TMP_SUFFIX = ".tmp";
+
+    static final int MAGIC = ByteBuffer.wrap("BKLI".getBytes(UTF_8)).getInt();
+    // ledger id, entry id and value length precede each value
+    static final int RECORD_HEADER_SIZE = 8 + 8 + 4;
+    // first ledger id, first entry id, offset and length of a block
+    static final int BLOCK_INDEX_ENTRY_SIZE = 8 + 8 + 8 + 4;
+    // index offset, number of blocks, number of records, last ledger id, last entry id, magic
+    static final int FOOTER_SIZE = 8 + 4 + 8 + 8 + 8 + 4;
+    // rough heap footprint of a mem-table mapping, besides its value
+    static final int MEMTABLE_ENTRY_OVERHEAD = 96;
+
+    static final byte[] EMPTY_VALUE = new byte[0];
+
+    /**
+     * Callback of index scans.
+     */
+    interface Scanner {
+        void process(long ledgerId, long entryId, byte[] value) throws IOException;
+    }
+
+    final File dir;
+    final boolean readOnly;
+    final int blockSize;
+    final long memTableSizeLimit;
+    final int maxRuns;
+
+    private volatile ConcurrentSkipListMap<Key, byte[]> memTable = newMemTable();
+    private final AtomicLong memTableSize = new AtomicLong(0);
+    // mem-table being written as a run, still visible to readers
+    private volatile ConcurrentSkipListMap<Key, byte[]> flushingMemTable = null;
+    // guards the swap of the mem-table against concurrent updates
+    private final ReentrantReadWriteLock memTableLock = new ReentrantReadWriteLock();
+    // newest first
+    private volatile List<SortedRun> runs;
+    private final Set<Long> deletedLedgers =
+            Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    // serializes flushes, and the updates of the runs
+    private final Object flushLock = new Object();
+    private long nextRunId;
+    private volatile boolean closed = false;
+
+    // writes full mem-tables and merges runs, null if read only
+    private final ExecutorService backgroundExecutor;
+    private final AtomicBoolean flushPending = new AtomicBoolean(false);
+    private final AtomicBoolean mergePending = new AtomicBoolean(false);
+    // last failure of the background thread, reported to throttled updates
+    private volatile IOException backgroundFailure = null;
+    // notified when the background thread completed some work
+    private final Object backgroundLock = new Object();
+
+    LedgerIndex(File dir, int blockSize, long memTableSizeLimit, int maxRuns, boolean readOnly)
+            throws IOException {
+        this.dir = dir;
+        this.readOnly = readOnly;
+        this.blockSize = blockSize;
+        this.memTableSizeLimit = memTableSizeLimit;
+        this.maxRuns = Math.max(1, maxRuns);
+        if (!readOnly && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create ledger index directory " + dir);
+        }
+        this.runs = Collections.unmodifiableList(openRuns());
+        long lastRunId = -1L;
+        for (SortedRun run : runs) {
+            lastRunId = Math.max(lastRunId, run.lastRunId);
+        }
+        this.nextRunId = lastRunId + 1;
+        if (readOnly) {
+            this.backgroundExecutor = null;
+        } else {
+            this.backgroundExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("LedgerIndexFlusher-%d").setDaemon(true).build());
+        }
+        scan(DELETED_LEDGER_ID, Long.MIN_VALUE, DELETED_LEDGER_ID, Long.MAX_VALUE, new Scanner() {
+            @Override
+            public void process(long ledgerId, long entryId, byte[] value) {
+                deletedLedgers.add(entryId);
+            }
+        });
+        LOG.info("Opened ledger index {} with {} runs and {} deleted ledgers pending compaction",
+                new Object[] { dir, runs.size(), deletedLedgers.size() });
+    }
+
+    private static ConcurrentSkipListMap<Key, byte[]> newMemTable() {
+        return new ConcurrentSkipListMap<Key, byte[]>();
+    }
+
+    /**
+     * Open the runs of the index directory, dropping leftovers of interrupted
+     * flushes and runs already merged into another run.
+     */
+    private List<SortedRun> openRuns() throws IOException {
+        File[] files = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File d, String name) {
+                return name.endsWith(RUN_SUFFIX) || name.endsWith(TMP_SUFFIX);
+            }
+        });
+        List<long[]> ranges = new ArrayList<long[]>();
+        List<File> runFiles = new ArrayList<File>();
+        for (File f : null == files ? new File[0] : files) {
+            if (f.getName().endsWith(TMP_SUFFIX)) {
+                if (!readOnly && !f.delete()) {
+                    LOG.warn("Could not delete incomplete ledger index run {}", f);
+                }
+                continue;
+            }
+            long[] range = parseRunName(f.getName());
+            if (null == range) {
+                LOG.warn("Ignoring unexpected file {} in ledger index directory", f);
+                continue;
+            }
+            ranges.add(range);
+            runFiles.add(f);
+        }
+        List<SortedRun> opened = new ArrayList<SortedRun>();
+        for (int i = 0; i < runFiles.size(); i++) {
+            boolean merged = false;
+            for (int j = 0; j < runFiles.size(); j++) {
+                if (i != j && ranges.get(j)[0] <= ranges.get(i)[0] && ranges.get(i)[1] <= ranges.get(j)[1]) {
+                    merged = true;
+                    break;
+                }
+            }
+            if (merged) {
+                // the merged run was written but the inputs were not deleted yet
+                if (!readOnly && !runFiles.get(i).delete()) {
+                    LOG.warn("Could not delete merged ledger index run {}", runFiles.get(i));
+                }
+                continue;
+            }
+            opened.add(new SortedRun(runFiles.get(i), ranges.get(i)[0], ranges.get(i)[1]));
+        }
+        Collections.sort(opened, new Comparator<SortedRun>() {
+            @Override
+            public int compare(SortedRun r1, SortedRun r2) {
+                return r1.lastRunId == r2.lastRunId ? 0 : (r1.lastRunId > r2.lastRunId ? -1 : 1);
+            }
+        });
+        return opened;
+    }
+
+    static String getRunName(long firstRunId, long lastRunId) {
+        return Long.toHexString(firstRunId) + "-" + Long.toHexString(lastRunId) + RUN_SUFFIX;
+    }
+
+    static long[] parseRunName(String name) {
+        if (!name.endsWith(RUN_SUFFIX)) {
+            return null;
+        }
+        String[] parts = name.substring(0, name.length() - RUN_SUFFIX.length()).split("-");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new long[] { Long.parseLong(parts[0], 16), Long.parseLong(parts[1], 16) };
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    private static int compare(long ledgerId1, long entryId1, long ledgerId2, long entryId2) {
+        if (ledgerId1 != ledgerId2) {
+            return ledgerId1 < ledgerId2 ? -1 : 1;
+        }
+        if (entryId1 != entryId2) {
+            return entryId1 < entryId2 ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /**
+     * @return true if the record belongs to a deleted ledger.
+     */
+    private boolean isDeleted(long ledgerId, long entryId) {
+        if (DELETED_LEDGER_ID == ledgerId) {
+            return false;
+        }
+        return deletedLedgers.contains(METADATA_LEDGER_ID == ledgerId ? entryId : ledgerId);
+    }
+
+    private void checkWritable() throws IOException {
+        if (readOnly) {
+            throw new IOException("Ledger index " + dir + " is opened read only");
+        }
+        if (closed) {
+            throw new IOException("Ledger index " + dir + " is closed");
+        }
+    }
+
+    /**
+     * Get the value of a key.
+     *
+     * @return the value, or null if the key doesn't exist.
+     */
+    byte[] get(long ledgerId, long entryId) throws IOException {
+        if (isDeleted(ledgerId, entryId)) {
+            return null;
+        }
+        Key key = new Key(ledgerId, entryId);
+        byte[] value = memTable.get(key);
+        if (null != value) {
+            return value;
+        }
+        ConcurrentSkipListMap<Key, byte[]> flushing = flushingMemTable;
+        if (null != flushing && null != (value = flushing.get(key))) {
+            return value;
+        }
+        int attempts = 0;
+        while (true) {
+            List<SortedRun> current = runs;
+            try {
+                for (SortedRun run : current) {
+                    value = run.get(ledgerId, entryId);
+                    if (null != value) {
+                        return value;
+                    }
+                }
+                return null;
+            } catch (ClosedChannelException cce) {
+                // a run was merged away, or its channel closed by an interrupted reader
+                if (Thread.currentThread().isInterrupted() || ++attempts > 3) {
+                    throw cce;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the highest entry id of a ledger.
+     *
+     * @return the highest entry id of the ledger, or -1 if it has no entries.
+     */
+    long getLastEntryId(long ledgerId) throws IOException {
+        if (isDeleted(ledgerId, 0L)) {
+            return -1L;
+        }
+        long lastEntryId = Math.max(lastEntryId(memTable, ledgerId), lastEntryId(flushingMemTable, ledgerId));
+        int attempts = 0;
+        while (true) {
+            List<SortedRun> current = runs;
+            try {
+                long lastInRuns = -1L;
+                for (SortedRun run : current) {
+                    lastInRuns = Math.max(lastInRuns, run.getLastEntryId(ledgerId));
+                }
+                return Math.max(lastEntryId, lastInRuns);
+            } catch (ClosedChannelException cce) {
+                if (Thread.currentThread().isInterrupted() || ++attempts > 3) {
+                    throw cce;
+                }
+            }
+        }
+    }
+
+    private static long lastEntryId(ConcurrentSkipListMap<Key, byte[]> table, long ledgerId) {
+        if (null == table) {
+            return -1L;
+        }
+        Key key = table.floorKey(new Key(ledgerId, Long.MAX_VALUE));
+        if (null == key || key.ledgerId != ledgerId || key.entryId < 0) {
+            return -1L;
+        }
+        return key.entryId;
+    }
+
+    /**
+     * Set the value of a key. The mem-table is flushed in the background when
+     * it reaches its size limit.
+     */
+    void put(long ledgerId, long entryId, byte[] value) throws IOException {
+        checkWritable();
+        long size;
+        memTableLock.readLock().lock();
+        try {
+            memTable.put(new Key(ledgerId, entryId), value);
+            size = memTableSize.addAndGet(MEMTABLE_ENTRY_OVERHEAD + value.length);
+        } finally {
+            memTableLock.readLock().unlock();
+        }
+        if (size > memTableSizeLimit) {
+            scheduleFlush();
+            if (isBehind()) {
+                throttle();
+            }
+        }
+    }
+
+    /**
+     * @return true if the background thread fell behind the updates.
+     */
+    private boolean isBehind() {
+        return memTableSize.get() > 2 * memTableSizeLimit || runs.size() > 2 * maxRuns;
+    }
+
+    /**
+     * Wait until the background thread catches up with the updates.
+     */
+    private void throttle() throws IOException {
+        synchronized (backgroundLock) {
+            while (!closed && isBehind()) {
+                IOException failure = backgroundFailure;
+                if (null != failure) {
+                    backgroundFailure = null;
+                    throw failure;
+                }
+                scheduleFlush();
+                scheduleMerge();
+                try {
+                    backgroundLock.wait(100);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for ledger index " + dir + " to flush", ie);
+                }
+            }
+        }
+    }
+
+    private void backgroundWorkDone(IOException failure) {
+        synchronized (backgroundLock) {
+            if (null != failure) {
+                backgroundFailure = failure;
+            }
+            backgroundLock.notifyAll();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            backgroundExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    flushPending.set(false);
+                    IOException failure = null;
+                    try {
+                        flushMemTable();
+                    } catch (IOException ioe) {
+                        LOG.error("Could not flush ledger index " + dir, ioe);
+                        failure = ioe;
+                    }
+                    backgroundWorkDone(failure);
+                    scheduleMerge();
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            // the index is being closed, which flushes it
+            flushPending.set(false);
+        }
+    }
+
+    private void scheduleMerge() {
+        if (runs.size() <= maxRuns || !mergePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            backgroundExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    mergePending.set(false);
+                    IOException failure = null;
+                    try {
+                        while (runs.size() > maxRuns) {
+                            mergeRuns(pickRunsToMerge(runs));
+                            backgroundWorkDone(null);
+                        }
+                    } catch (IOException ioe) {
+                        LOG.error("Could not merge the runs of ledger index " + dir, ioe);
+                        failure = ioe;
+                    }
+                    backgroundWorkDone(failure);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            mergePending.set(false);
+        }
+    }
+
+    /**
+     * Delete all the records of a ledger, including its metadata.
+     */
+    void deleteLedger(long ledgerId) throws IOException {
+        checkWritable();
+        deletedLedgers.add(ledgerId);
+        memTableLock.readLock().lock();
+        try {
+            memTable.subMap(new Key(ledgerId, Long.MIN_VALUE), true, new Key(ledgerId, Long.MAX_VALUE), true).clear();
+            memTable.remove(new Key(METADATA_LEDGER_ID, ledgerId));
+            memTable.put(new Key(DELETED_LEDGER_ID, ledgerId), EMPTY_VALUE);
+            memTableSize.addAndGet(MEMTABLE_ENTRY_OVERHEAD);
+        } finally {
+            memTableLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scan the records between two keys, both included, in key order.
+     * Records of deleted ledgers are skipped.
+     */
+    void scan(long fromLedgerId, long fromEntryId, long toLedgerId, long toEntryId, Scanner scanner)
+            throws IOException {
+        Key from = new Key(fromLedgerId, fromEntryId);
+        Key to = new Key(toLedgerId, toEntryId);
+        List<RecordIterator> sources = new ArrayList<RecordIterator>();
+        sources.add(new MemTableIterator(memTable.subMap(from, true, to, true)));
+        ConcurrentSkipListMap<Key, byte[]> flushing = flushingMemTable;
+        if (null != flushing) {
+            sources.add(new MemTableIterator(flushing.subMap(from, true, to, true)));
+        }
+        for (SortedRun run : runs) {
+            sources.add(run.iterator(fromLedgerId, fromEntryId, toLedgerId, toEntryId));
+        }
+        MergingIterator iterator = new MergingIterator(sources);
+        while (iterator.next()) {
+            if (!isDeleted(iterator.ledgerId, iterator.entryId)) {
+                scanner.process(iterator.ledgerId, iterator.entryId, iterator.value);
+            }
+        }
+    }
+
+    /**
+     * Write the mem-table as a new run. Runs are merged in the background if
+     * there are too many of them.
+     */
+    void flush() throws IOException {
+        checkWritable();
+        flushMemTable();
+        scheduleMerge();
+    }
+
+    private void flushMemTable() throws IOException {
+        synchronized (flushLock) {
+            ConcurrentSkipListMap<Key, byte[]> toFlush = null;
+            memTableLock.writeLock().lock();
+            try {
+                if (!memTable.isEmpty()) {
+                    toFlush = memTable;
+                    flushingMemTable = toFlush;
+                    memTable = newMemTable();
+                    memTableSize.set(0);
+                }
+            } finally {
+                memTableLock.writeLock().unlock();
+            }
+            if (null != toFlush) {
+                long runId = nextRunId++;
+                SortedRun run;
+                try {
+                    run = writeRun(runId, runId, new MemTableIterator(toFlush), false, null);
+                } catch (IOException ioe) {
+                    // keep the records, except those updated since the mem-table was swapped
+                    memTableLock.readLock().lock();
+                    try {
+                        for (Map.Entry<Key, byte[]> entry : toFlush.entrySet()) {
+                            if (null == memTable.putIfAbsent(entry.getKey(), entry.getValue())) {
+                                memTableSize.addAndGet(MEMTABLE_ENTRY_OVERHEAD + entry.getValue().length);
+                            }
+                        }
+                    } finally {
+                        memTableLock.readLock().unlock();
+                    }
+                    flushingMemTable = null;
+                    throw ioe;
+                }
+                if (null != run) {
+                    List<SortedRun> newRuns = new ArrayList<SortedRun>(runs.size() + 1);
+                    newRuns.add(run);
+                    newRuns.addAll(runs);
+                    runs = Collections.unmodifiableList(newRuns);
+                }
+                flushingMemTable = null;
+            }
+        }
+    }
+
+    /**
+     * Pick the number of newest runs to merge: runs are merged as long as they
+     * are not much smaller than the next older run, so the sizes of the runs
+     * grow geometrically and every record is rewritten a few times only.
+     */
+    static int pickRunsToMerge(List<SortedRun> current) {
+        int numRuns = 2;
+        long mergedSize = current.get(0).size() + current.get(1).size();
+        while (numRuns < current.size() && 2 * mergedSize >= current.get(numRuns).size()) {
+            mergedSize += current.get(numRuns).size();
+            ++numRuns;
+        }
+        return numRuns;
+    }
+
+    /**
+     * Merge the newest runs. Runs flushed meanwhile are kept ahead of the merged run.
+     */
+    private void mergeRuns(int numRuns) throws IOException {
+        List<SortedRun> current = runs;
+        List<SortedRun> toMerge = current.subList(0, numRuns);
+        boolean fullMerge = numRuns == current.size();
+        List<RecordIterator> sources = new ArrayList<RecordIterator>(numRuns);
+        for (SortedRun run : toMerge) {
+            sources.add(run.iterator(Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE));
+        }
+        List<Long> droppedDeletions = new ArrayList<Long>();
+        SortedRun merged = writeRun(toMerge.get(numRuns - 1).firstRunId, toMerge.get(0).lastRunId,
+                new MergingIterator(sources), fullMerge, droppedDeletions);
+
+        synchronized (flushLock) {
+            List<SortedRun> latest = runs;
+            int flushed = latest.size() - current.size();
+            List<SortedRun> newRuns = new ArrayList<SortedRun>(latest.size() - numRuns + 1);
+            newRuns.addAll(latest.subList(0, flushed));
+            if (null != merged) {
+                newRuns.add(merged);
+            }
+            newRuns.addAll(latest.subList(flushed + numRuns, latest.size()));
+            runs = Collections.unmodifiableList(newRuns);
+            for (Long ledgerId : droppedDeletions) {
+                if (flushed > 0) {
+                    // the runs flushed meanwhile may hold records of the ledger, keep the deletion
+                    memTableLock.readLock().lock();
+                    try {
+                        if (null == memTable.putIfAbsent(new Key(DELETED_LEDGER_ID, ledgerId), EMPTY_VALUE)) {
+                            memTableSize.addAndGet(MEMTABLE_ENTRY_OVERHEAD);
+                        }
+                    } finally {
+                        memTableLock.readLock().unlock();
+                    }
+                } else if (!memTable.containsKey(new Key(DELETED_LEDGER_ID, ledgerId))) {
+                    // no older record of the ledger is left
+                    deletedLedgers.remove(ledgerId);
+                }
+            }
+        }
+        for (SortedRun run : toMerge) {
+            run.delete();
+        }
+        LOG.info("Merged {} ledger index runs into {}", numRuns, merged);
+    }
+
+    /**
+     * Write the records of an iterator as a run, skipping records of deleted ledgers.
+     *
+     * @param dropDeletions
+     *          whether to drop the deletion of ledgers, once no older run is left
+     * @param droppedDeletions
+     *          collects the ledgers whose deletion was dropped
+     * @return the new run, or null if all the records were skipped.
+     */
+    private SortedRun writeRun(long firstRunId, long lastRunId, RecordIterator iterator,
+                               boolean dropDeletions, List<Long> droppedDeletions) throws IOException {
+        String name = getRunName(firstRunId, lastRunId);
+        File tmpFile = new File(dir, name + TMP_SUFFIX);
+        File runFile = new File(dir, name);
+        FileOutputStream fos = new FileOutputStream(tmpFile);
+        boolean success = false;
+        long numRecords = 0;
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 64 * 1024));
+            List<long[]> blocks = new ArrayList<long[]>();
+            long offset = 0;
+            long blockStart = -1;
+            long lastLedgerId = 0;
+            long lastEntryId = 0;
+            while (iterator.next()) {
+                long ledgerId = iterator.ledgerId;
+                long entryId = iterator.entryId;
+                if (isDeleted(ledgerId, entryId)) {
+                    continue;
+                }
+                if (dropDeletions && DELETED_LEDGER_ID == ledgerId) {
+                    droppedDeletions.add(entryId);
+                    continue;
+                }
+                if (blockStart < 0 || offset - blockStart >= blockSize) {
+                    if (blockStart >= 0) {
+                        blocks.get(blocks.size() - 1)[3] = offset - blockStart;
+                    }
+                    blockStart = offset;
+                    blocks.add(new long[] { ledgerId, entryId, offset, 0 });
+                }
+                out.writeLong(ledgerId);
+                out.writeLong(entryId);
+                out.writeInt(iterator.value.length);
+                out.write(iterator.value);
+                offset += RECORD_HEADER_SIZE + iterator.value.length;
+                lastLedgerId = ledgerId;
+                lastEntryId = entryId;
+                ++numRecords;
+            }
+            if (0 == numRecords) {
+                out.close();
+                return null;
+            }
+            blocks.get(blocks.size() - 1)[3] = offset - blockStart;
+            for (long[] block : blocks) {
+                out.writeLong(block[0]);
+                out.writeLong(block[1]);
+                out.writeLong(block[2]);
+                out.writeInt((int) block[3]);
+            }
+            out.writeLong(offset);
+            out.writeInt(blocks.size());
+            out.writeLong(numRecords);
+            out.writeLong(lastLedgerId);
+            out.writeLong(lastEntryId);
+            out.writeInt(MAGIC);
+            out.flush();
+            fos.getChannel().force(true);
+            out.close();
+            if (!tmpFile.renameTo(runFile)) {
+                throw new IOException("Could not rename " + tmpFile + " to " + runFile);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                fos.close();
+                if (!tmpFile.delete() && tmpFile.exists()) {
+                    LOG.warn("Could not delete ledger index run {}", tmpFile);
+                }
+            }
+        }
+        return new SortedRun(runFile, firstRunId, lastRunId);
+    }
+
+    @VisibleForTesting
+    int getNumRuns() {
+        return runs.size();
+    }
+
+    @VisibleForTesting
+    int getNumDeletedLedgers() {
+        return deletedLedgers.size();
+    }
+
+    long getMemTableSize() {
+        return memTableSize.get();
+    }
+
+    /**
+     * Wait for the runs scheduled to be merged.
+     */
+    @VisibleForTesting
+    void waitForMerges() throws IOException {
+        try {
+            backgroundExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for ledger index " + dir + " merges", ie);
+        } catch (ExecutionException ee) {
+            throw new IOException(ee.getCause());
+        }
+        IOException failure = backgroundFailure;
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Flush the index, unless opened read only, and close it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (!readOnly) {
+                flush();
+            }
+        } finally {
+            if (null != backgroundExecutor) {
+                // let the pending merges complete
+                backgroundExecutor.shutdown();
+                try {
+                    if (!backgroundExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                        LOG.warn("Timed out waiting for ledger index {} to merge its runs", dir);
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    backgroundExecutor.shutdownNow();
+                }
+            }
+            closed = true;
+            for (SortedRun run : runs) {
+                run.close();
+            }
+        }
+    }
+
+    /**
+     * A (ledger id, entry id) key of the mem-table.
+     */
+    static final class Key implements Comparable<Key> {
+        final long ledgerId;
+        final long entryId;
+
+        Key(long ledgerId, long entryId) {
+            this.ledgerId = ledgerId;
+            this.entryId = entryId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return compare(ledgerId, entryId, other.ledgerId, other.entryId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return ledgerId == other.ledgerId && entryId == other.entryId;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (ledgerId * 13 ^ entryId * 17);
+        }
+    }
+
+    /**
+     * Iterates over records in key order. The current record is valid after
+     * {@link #next()} returned true.
+     */
+    static abstract class RecordIterator {
+        long ledgerId;
+        long entryId;
+        byte[] value;
+
+        /**
+         * Move to the next record.
+         *
+         * @return false if there are no more records.
+         */
+        abstract boolean next() throws IOException;
+    }
+
+    static class MemTableIterator extends RecordIterator {
+        final Iterator<Map.Entry<Key, byte[]>> iterator;
+
+        MemTableIterator(Map<Key, byte[]> table) {
+            this.iterator = table.entrySet().iterator();
+        }
+
+        @Override
+        boolean next() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            Map.Entry<Key, byte[]> entry = iterator.next();
+            ledgerId = entry.getKey().ledgerId;
+            entryId = entry.getKey().entryId;
+            value = entry.getValue();
+            return true;
+        }
+    }
+
+    /**
+     * Merges iterators ordered from the newest to the oldest: the newest
+     * value of a key hides the older ones.
+     */
+    static class MergingIterator extends RecordIterator {
+        final RecordIterator[] sources;
+        final boolean[] valid;
+        boolean started = false;
+
+        MergingIterator(List<RecordIterator> sources) {
+            this.sources = sources.toArray(new RecordIterator[sources.size()]);
+            this.valid = new boolean[this.sources.length];
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (!started) {
+                for (int i = 0; i < sources.length; i++) {
+                    valid[i] = sources[i].next();
+                }
+                started = true;
+            }
+            int min = -1;
+            for (int i = 0; i < sources.length; i++) {
+                if (valid[i] && (min < 0 || compare(sources[i].ledgerId, sources[i].entryId,
+                        sources[min].ledgerId, sources[min].entryId) < 0)) {
+                    min = i;
+                }
+            }
+            if (min < 0) {
+                return false;
+            }
+            ledgerId = sources[min].ledgerId;
+            entryId = sources[min].entryId;
+            value = sources[min].value;
+            for (int i = min; i < sources.length; i++) {
+                if (valid[i] && sources[i].ledgerId == ledgerId && sources[i].entryId == entryId) {
+                    valid[i] = sources[i].next();
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * An immutable run of records sorted by key.
+     */
+    static class SortedRun {
+        final File file;
+        final long firstRunId;
+        final long lastRunId;
+        private FileChannel channel;
+        private boolean released = false;
+
+        // first key, offset and length of each block
+        final long[] blockLedgerIds;
+        final long[] blockEntryIds;
+        final long[] blockOffsets;
+        final int[] blockLengths;
+        final long numRecords;
+        final long lastLedgerId;
+        final long lastEntryId;
+
+        SortedRun(File file, long firstRunId, long lastRunId) throws IOException {
+            this.file = file;
+            this.firstRunId = firstRunId;
+            this.lastRunId = lastRunId;
+            this.channel = new RandomAccessFile(file, "r").getChannel();
+            boolean success = false;
+            try {
+                long size = channel.size();
+                if (size < FOOTER_SIZE) {
+                    throw new IOException("Ledger index run " + file + " is too short : " + size);
+                }
+                ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+                readFully(channel, footer, size - FOOTER_SIZE);
+                footer.flip();
+                long indexOffset = footer.getLong();
+                int numBlocks = footer.getInt();
+                numRecords = footer.getLong();
+                lastLedgerId = footer.getLong();
+                lastEntryId = footer.getLong();
+                if (MAGIC != footer.getInt()
+                        || indexOffset + (long) numBlocks * BLOCK_INDEX_ENTRY_SIZE + FOOTER_SIZE != size) {
+                    throw new IOException("Ledger index run " + file + " is corrupted");
+                }
+                ByteBuffer index = ByteBuffer.allocate(numBlocks * BLOCK_INDEX_ENTRY_SIZE);
+                readFully(channel, index, indexOffset);
+                index.flip();
+                blockLedgerIds = new long[numBlocks];
+                blockEntryIds = new long[numBlocks];
+                blockOffsets = new long[numBlocks];
+                blockLengths = new int[numBlocks];
+                for (int i = 0; i < numBlocks; i++) {
+                    blockLedgerIds[i] = index.getLong();
+                    blockEntryIds[i] = index.getLong();
+                    blockOffsets[i] = index.getLong();
+                    blockLengths[i] = index.getInt();
+                }
+                success = true;
+            } finally {
+                if (!success) {
+                    channel.close();
+                }
+            }
+        }
+
+        long size() {
+            return file.length();
+        }
+
+        private synchronized FileChannel getChannel() throws IOException {
+            if (released) {
+                throw new ClosedChannelException();
+            }
+            if (!channel.isOpen()) {
+                // closed by an interrupted reader
+                channel = new RandomAccessFile(file, "r").getChannel();
+            }
+            return channel;
+        }
+
+        private static void readFully(FileChannel fc, ByteBuffer buf, long position) throws IOException {
+            while (buf.hasRemaining()) {
+                int read = fc.read(buf, position);
+                if (read < 0) {
+                    throw new ShortReadException("Short read at " + position + " of ledger index run");
+                }
+                position += read;
+            }
+        }
+
+        /**
+         * @return the index of the last block whose first key is not greater
+         *         than the given key, -1 if none.
+         */
+        private int findBlock(long ledgerId, long entryId) {
+            int lo = 0;
+            int hi = blockLedgerIds.length - 1;
+            int found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(blockLedgerIds[mid], blockEntryIds[mid], ledgerId, entryId) <= 0) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        private ByteBuffer readBlock(int block) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(blockLengths[block]);
+            readFully(getChannel(), buf, blockOffsets[block]);
+            buf.flip();
+            return buf;
+        }
+
+        byte[] get(long ledgerId, long entryId) throws IOException {
+            if (compare(ledgerId, entryId, lastLedgerId, lastEntryId) > 0) {
+                return null;
+            }
+            int block = findBlock(ledgerId, entryId);
+            if (block < 0) {
+                return null;
+            }
+            ByteBuffer buf = readBlock(block);
+            while (buf.hasRemaining()) {
+                long recLedgerId = buf.getLong();
+                long recEntryId = buf.getLong();
+                int len = buf.getInt();
+                int c = compare(recLedgerId, recEntryId, ledgerId, entryId);
+                if (0 == c) {
+                    byte[] value = new byte[len];
+                    buf.get(value);
+                    return value;
+                } else if (c > 0) {
+                    return null;
+                }
+                buf.position(buf.position() + len);
+            }
+            return null;
+        }
+
+        long getLastEntryId(long ledgerId) throws IOException {
+            int block = findBlock(ledgerId, Long.MAX_VALUE);
+            if (block < 0) {
+                return -1L;
+            }
+            ByteBuffer buf = readBlock(block);
+            long lastEntryId = -1L;
+            while (buf.hasRemaining()) {
+                long recLedgerId = buf.getLong();
+                long recEntryId = buf.getLong();
+                int len = buf.getInt();
+                if (recLedgerId > ledgerId) {
+                    break;
+                }
+                if (recLedgerId == ledgerId && recEntryId >= 0) {
+                    lastEntryId = recEntryId;
+                }
+                buf.position(buf.position() + len);
+            }
+            return lastEntryId;
+        }
+
+        RecordIterator iterator(final long fromLedgerId, final long fromEntryId,
+                                final long toLedgerId, final long toEntryId) {
+            final int firstBlock = Math.max(0, findBlock(fromLedgerId, fromEntryId));
+            return new RecordIterator() {
+                int nextBlock = firstBlock;
+                ByteBuffer buf = null;
+                boolean done = blockLedgerIds.length == 0;
+
+                @Override
+                boolean next() throws IOException {
+                    while (!done) {
+                        if (null == buf || !buf.hasRemaining()) {
+                            if (nextBlock >= blockLedgerIds.length
+                                    || compare(blockLedgerIds[nextBlock], blockEntryIds[nextBlock],
+                                               toLedgerId, toEntryId) > 0) {
+                                done = true;
+                                break;
+                            }
+                            buf = readBlock(nextBlock++);
+                        }
+                        ledgerId = buf.getLong();
+                        entryId = buf.getLong();
+                        value = new byte[buf.getInt()];
+                        buf.get(value);
+                        if (compare(ledgerId, entryId, toLedgerId, toEntryId) > 0) {
+                            done = true;
+                            break;
+                        }
+                        if (compare(ledgerId, entryId, fromLedgerId, fromEntryId) >= 0) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized void close() throws IOException {
+            released = true;
+            channel.close();
+        }
+
+        /**
+         * Close the run and delete its file, once merged into another run.
+         */
+        void delete() throws IOException {
+            close();
+            if (!file.delete()) {
+                LOG.warn("Could not delete merged ledger index run {}", file);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return file.getName() + "(records=" + numRecords + ")";
+        }
+    }
+}
@@ -107,6 +107,19 @@ interface LedgerStorage {
      */
     ByteBuffer getEntry(long ledgerId, long entryId) throws IOException;
 
+    /**
+     * Whether an entry is stored, looking it up in the index only,
+     * without reading it from the entry logs.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param entryId
+     *          entry id.
+     * @return true if the entry is stored, false otherwise.
+     * @throws IOException
+     */
+    boolean entryExists(long ledgerId, long entryId) throws IOException;
+
     /**
      * Get last add confirmed.
      *
@@ -0,0 +1,553 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.bookkeeper.bookie.CheckpointSource.Checkpoint;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.stats.StatsLogger;
+
+/**
+ * An {@link EntryMemTable} keeping the entries out of the java heap.
+ *
+ * <p>
+ * Entries are appended, after their ledger id, entry id and length, to direct
+ * memory slabs of {@link ServerConfiguration#getSkipListArenaChunkSize()} bytes.
+ * Entries larger than {@link ServerConfiguration#getSkipListArenaMaxAllocSize()}
+ * get a dedicated buffer. Entries are located through hash tables made of
+ * primitive arrays, so the mem-table only holds a few large objects on the heap
+ * whatever the number of entries, and entries are sorted when they are flushed.
+ * </p>
+ * <p>
+ * Slabs are reused: once a snapshot is flushed and cleared, its slabs go back to
+ * a pool bounded by the slabs of one full mem-table, which the next sets allocate
+ * from. Entries read from the mem-table are therefore copied to the heap under the
+ * mem-table lock, so no reader refers to a slab once its snapshot is cleared; only
+ * the flusher iterates over slices of the slabs. Dedicated buffers of oversized
+ * entries aren't pooled.
+ * </p>
+ */
+public class OffHeapEntryMemTable extends EntryMemTable {
+
+    // lazily created, since the super constructor creates the first set
+    private DirectBufferArena slabPool;
+
+    public OffHeapEntryMemTable(final ServerConfiguration conf,
+                                final CheckpointSource progress,
+                                final StatsLogger statsLogger) {
+        super(conf, progress, statsLogger);
+    }
+
+    synchronized DirectBufferArena getSlabPool() {
+        if (null == slabPool) {
+            int slabSize = conf.getSkipListArenaChunkSize();
+            long maxPooledSlabs = conf.getSkipListSizeLimit() / slabSize + 1;
+            slabPool = new DirectBufferArena(slabSize, (int) Math.min(Integer.MAX_VALUE, maxPooledSlabs));
+        }
+        return slabPool;
+    }
+
+    @Override
+    EntrySet newSkipList() {
+        return new DirectEntrySet(progress.newCheckpoint(), getSlabPool(), conf.getSkipListArenaMaxAllocSize());
+    }
+
+    /**
+     * An entry whose value is a slice of a direct memory slab.
+     */
+    static class DirectEntryKeyValue extends EntryKeyValue {
+        private final ByteBuffer value;
+
+        DirectEntryKeyValue(long ledgerId, long entryId, ByteBuffer value) {
+            super(ledgerId, entryId, null, 0, value.remaining());
+            this.value = value;
+        }
+
+        /**
+         * @return a copy of the value on the heap.
+         */
+        @Override
+        public byte[] getBuffer() {
+            byte[] bytes = new byte[getLength()];
+            value.duplicate().get(bytes);
+            return bytes;
+        }
+
+        /**
+         * @return the value, without copying it.
+         */
+        @Override
+        public ByteBuffer getValueAsByteBuffer() {
+            return value.duplicate();
+        }
+
+        @Override
+        int writeToByteBuffer(ByteBuffer dst) {
+            if (dst.remaining() < getLength()) {
+                throw new IllegalArgumentException("Buffer size " + dst.remaining() + " < " + getLength());
+            }
+            dst.put(value.duplicate());
+            return getLength();
+        }
+    }
+
+    /**
+     * Hash table from a (ledger id, entry id) key to a non negative long value.
+     *
+     * <p>
+     * The table is split in sections, each one an open addressing table with linear
+     * probing. Writers lock the section of their key. Readers don't lock: a slot is
+     * published by writing its value after its key, and a resized table is only
+     * published once it is filled, so a reader sees either a complete slot or none.
+     * Keys are never removed.
+     * </p>
+     */
+    static class EntryIndex {
+        static final long NO_VALUE = -1L;
+
+        private static final int NUM_SECTIONS = 16;
+        private static final int INITIAL_SECTION_CAPACITY = 64;
+
+        private final Section[] sections;
+
+        EntryIndex() {
+            sections = new Section[NUM_SECTIONS];
+            for (int i = 0; i < NUM_SECTIONS; i++) {
+                sections[i] = new Section(INITIAL_SECTION_CAPACITY);
+            }
+        }
+
+        private static int hash(long ledgerId, long entryId) {
+            long h = (ledgerId * 31 + entryId) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private Section getSection(int hash) {
+            // the upper bits of the hash pick the section, the lower bits the slot
+            return sections[(hash >>> 28) & (NUM_SECTIONS - 1)];
+        }
+
+        /**
+         * @return the value of the given key, {@link #NO_VALUE} if none.
+         */
+        long get(long ledgerId, long entryId) {
+            int h = hash(ledgerId, entryId);
+            return getSection(h).get(ledgerId, entryId, h);
+        }
+
+        /**
+         * Set the value of the given key unless it already has one.
+         *
+         * @return the current value of the key, {@link #NO_VALUE} if the value was set.
+         */
+        long putIfAbsent(long ledgerId, long entryId, long value) {
+            int h = hash(ledgerId, entryId);
+            return getSection(h).put(ledgerId, entryId, value, h, false);
+        }
+
+        /**
+         * Set the value of the given key if it is higher than its current value.
+         */
+        void putIfGreater(long ledgerId, long entryId, long value) {
+            int h = hash(ledgerId, entryId);
+            getSection(h).put(ledgerId, entryId, value, h, true);
+        }
+
+        int size() {
+            int size = 0;
+            for (Section section : sections) {
+                size += section.size;
+            }
+            return size;
+        }
+
+        /**
+         * Copy the keys and values to the given arrays, sorted by ledger id and entry id.
+         *
+         * @return the number of keys copied, at most the length of the arrays.
+         */
+        int sortedCopy(long[] ledgerIds, long[] entryIds, long[] values) {
+            int n = 0;
+            for (Section section : sections) {
+                AtomicLongArray table = section.table;
+                for (int i = 0; i < table.length() && n < values.length; i += 3) {
+                    long v = table.get(i + 2);
+                    if (0 != v) {
+                        ledgerIds[n] = table.get(i);
+                        entryIds[n] = table.get(i + 1);
+                        values[n] = v - 1;
+                        ++n;
+                    }
+                }
+            }
+            sort(ledgerIds, entryIds, values, 0, n - 1);
+            return n;
+        }
+
+        private static final class Section {
+            // slot i holds ledger id at 3i, entry id at 3i + 1 and value + 1 at 3i + 2,
+            // the value being 0 while the slot is free
+            private volatile AtomicLongArray table;
+            private volatile int size = 0;
+
+            Section(int capacity) {
+                table = new AtomicLongArray(3 * capacity);
+            }
+
+            private static int findSlot(AtomicLongArray table, long ledgerId, long entryId, int hash) {
+                int mask = table.length() / 3 - 1;
+                int slot = hash & mask;
+                while (0 != table.get(3 * slot + 2)
+                        && (table.get(3 * slot) != ledgerId || table.get(3 * slot + 1) != entryId)) {
+                    slot = (slot + 1) & mask;
+                }
+                return slot;
+            }
+
+            long get(long ledgerId, long entryId, int hash) {
+                AtomicLongArray t = table;
+                return t.get(3 * findSlot(t, ledgerId, entryId, hash) + 2) - 1;
+            }
+
+            synchronized long put(long ledgerId, long entryId, long value, int hash, boolean ifGreater) {
+                AtomicLongArray t = table;
+                int slot = findSlot(t, ledgerId, entryId, hash);
+                long current = t.get(3 * slot + 2) - 1;
+                if (NO_VALUE != current) {
+                    if (ifGreater && value > current) {
+                        t.set(3 * slot + 2, value + 1);
+                    }
+                    return current;
+                }
+                int capacity = t.length() / 3;
+                if (size + 1 > (capacity >> 1) + (capacity >> 2)) {
+                    t = rehash(t, capacity << 1);
+                    slot = findSlot(t, ledgerId, entryId, hash);
+                }
+                t.lazySet(3 * slot, ledgerId);
+                t.lazySet(3 * slot + 1, entryId);
+                // publish the slot
+                t.set(3 * slot + 2, value + 1);
+                ++size;
+                return NO_VALUE;
+            }
+
+            private AtomicLongArray rehash(AtomicLongArray oldTable, int capacity) {
+                AtomicLongArray newTable = new AtomicLongArray(3 * capacity);
+                for (int i = 0; i < oldTable.length(); i += 3) {
+                    long v = oldTable.get(i + 2);
+                    if (0 != v) {
+                        long ledgerId = oldTable.get(i);
+                        long entryId = oldTable.get(i + 1);
+                        int slot = findSlot(newTable, ledgerId, entryId, hash(ledgerId, entryId));
+                        newTable.lazySet(3 * slot, ledgerId);
+                        newTable.lazySet(3 * slot + 1, entryId);
+                        newTable.lazySet(3 * slot + 2, v);
+                    }
+                }
+                // readers switch to the new table once it is complete
+                table = newTable;
+                return newTable;
+            }
+        }
+
+        private static int compare(long[] ledgerIds, long[] entryIds, int i, int j) {
+            if (ledgerIds[i] != ledgerIds[j]) {
+                return ledgerIds[i] < ledgerIds[j] ? -1 : 1;
+            }
+            if (entryIds[i] != entryIds[j]) {
+                return entryIds[i] < entryIds[j] ? -1 : 1;
+            }
+            return 0;
+        }
+
+        private static void swap(long[] ledgerIds, long[] entryIds, long[] values, int i, int j) {
+            long t = ledgerIds[i]; ledgerIds[i] = ledgerIds[j]; ledgerIds[j] = t;
+            t = entryIds[i]; entryIds[i] = entryIds[j]; entryIds[j] = t;
+            t = values[i]; values[i] = values[j]; values[j] = t;
+        }
+
+        private static void sort(long[] ledgerIds, long[] entryIds, long[] values, int lo, int hi) {
+            while (lo < hi) {
+                if (hi - lo < 16) {
+                    // insertion sort for small ranges
+                    for (int i = lo + 1; i <= hi; i++) {
+                        for (int j = i; j > lo && compare(ledgerIds, entryIds, j - 1, j) > 0; j--) {
+                            swap(ledgerIds, entryIds, values, j - 1, j);
+                        }
+                    }
+                    return;
+                }
+                // entries are mostly added in order, so partition around the middle one
+                swap(ledgerIds, entryIds, values, (lo + hi) >>> 1, hi);
+                int p = lo;
+                for (int i = lo; i < hi; i++) {
+                    if (compare(ledgerIds, entryIds, i, hi) < 0) {
+                        swap(ledgerIds, entryIds, values, i, p++);
+                    }
+                }
+                swap(ledgerIds, entryIds, values, p, hi);
+                // recurse into the smaller side to bound the stack depth
+                if (p - lo < hi - p) {
+                    sort(ledgerIds, entryIds, values, lo, p - 1);
+                    lo = p + 1;
+                } else {
+                    sort(ledgerIds, entryIds, values, p + 1, hi);
+                    hi = p - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * A direct memory slab, allocated from by bumping its free offset.
+     */
+    static final class Slab {
+        final ByteBuffer buffer;
+        final int index;
+        // whether the buffer comes from the slab pool
+        final boolean pooled;
+        final AtomicInteger nextFreeOffset = new AtomicInteger(0);
+
+        Slab(ByteBuffer buffer, int index, boolean pooled) {
+            this.buffer = buffer;
+            this.index = index;
+            this.pooled = pooled;
+        }
+
+        /**
+         * @return offset of the allocated space, -1 if the slab is full.
+         */
+        int allocate(int size) {
+            while (true) {
+                int offset = nextFreeOffset.get();
+                if (offset + size > buffer.capacity()) {
+                    return -1;
+                }
+                if (nextFreeOffset.compareAndSet(offset, offset + size)) {
+                    return offset;
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries stored in direct memory slabs.
+     *
+     * <p>
+     * Adding threads allocate space for their entries concurrently, and copy them
+     * without holding any lock. An entry is published by putting its location in the
+     * entry index once it is copied, so readers only ever see complete entries.
+     * </p>
+     */
+    static class DirectEntrySet extends EntrySet {
+        // ledger id, entry id and length precede each entry in its slab
+        static final int HEADER_SIZE = 8 + 8 + 4;
+
+        // shared by the sets of a mem-table, used under its own lock
+        final DirectBufferArena slabPool;
+        final int slabSize;
+        final int maxAlloc;
+        // slabs by index, replaced by a larger copy under the slab lock when full
+        volatile AtomicReferenceArray<Slab> slabs = new AtomicReferenceArray<Slab>(16);
+        int numSlabs = 0;
+        final Object slabLock = new Object();
+        // slab the entries are currently allocated from
+        final AtomicReference<Slab> curSlab = new AtomicReference<Slab>(null);
+        // (ledger id, entry id) to slab index in the high 32 bits, offset in the slab in the low 32 bits
+        final EntryIndex locations = new EntryIndex();
+        // (ledger id, 0) to the highest entry id of the ledger
+        final EntryIndex lastEntries = new EntryIndex();
+
+        DirectEntrySet(final Checkpoint cp, DirectBufferArena slabPool, int maxAlloc) {
+            super(cp);
+            this.slabPool = slabPool;
+            this.slabSize = slabPool.getChunkSize();
+            this.maxAlloc = maxAlloc;
+        }
+
+        /**
+         * @param size
+         *          size of a dedicated buffer, or -1 for a pooled slab.
+         */
+        private Slab newSlab(int size) {
+            synchronized (slabLock) {
+                AtomicReferenceArray<Slab> curSlabs = slabs;
+                if (numSlabs == curSlabs.length()) {
+                    AtomicReferenceArray<Slab> newSlabs = new AtomicReferenceArray<Slab>(2 * numSlabs);
+                    for (int i = 0; i < numSlabs; i++) {
+                        newSlabs.lazySet(i, curSlabs.get(i));
+                    }
+                    curSlabs = newSlabs;
+                }
+                Slab slab;
+                if (size < 0) {
+                    ByteBuffer buffer;
+                    synchronized (slabPool) {
+                        buffer = slabPool.acquire();
+                    }
+                    slab = new Slab(buffer, numSlabs, true);
+                } else {
+                    slab = new Slab(ByteBuffer.allocateDirect(size), numSlabs, false);
+                }
+                curSlabs.set(numSlabs++, slab);
+                slabs = curSlabs;
+                return slab;
+            }
+        }
+
+        /**
+         * Allocate space for a record.
+         *
+         * @return location of the allocated space.
+         */
+        private long allocate(int recordSize) {
+            if (recordSize - HEADER_SIZE > maxAlloc || recordSize > slabSize) {
+                // large entries don't waste the space left in the current slab
+                return (long) newSlab(recordSize).index << 32;
+            }
+            while (true) {
+                Slab slab = curSlab.get();
+                if (null != slab) {
+                    int offset = slab.allocate(recordSize);
+                    if (offset >= 0) {
+                        return ((long) slab.index << 32) | offset;
+                    }
+                }
+                // only one thread replaces the full slab, the others retry in the new one
+                synchronized (curSlab) {
+                    if (curSlab.get() == slab) {
+                        curSlab.set(newSlab(-1));
+                    }
+                }
+            }
+        }
+
+        @Override
+        long add(long ledgerId, long entryId, ByteBuffer entry) {
+            if (EntryIndex.NO_VALUE != locations.get(ledgerId, entryId)) {
+                return 0;
+            }
+            int len = entry.remaining();
+            long location = allocate(HEADER_SIZE + len);
+            ByteBuffer record = slabs.get((int) (location >>> 32)).buffer.duplicate();
+            record.position((int) location);
+            record.putLong(ledgerId).putLong(entryId).putInt(len);
+            record.put(entry);
+
+            // a concurrent add of the same entry may win, wasting the space copied into
+            if (EntryIndex.NO_VALUE != locations.putIfAbsent(ledgerId, entryId, location)) {
+                return 0;
+            }
+            lastEntries.putIfGreater(ledgerId, 0L, entryId);
+            return len;
+        }
+
+        private DirectEntryKeyValue read(long location) {
+            ByteBuffer slab = slabs.get((int) (location >>> 32)).buffer;
+            int offset = (int) location;
+            long ledgerId = slab.getLong(offset);
+            long entryId = slab.getLong(offset + 8);
+            int len = slab.getInt(offset + 16);
+            ByteBuffer value = slab.duplicate();
+            value.limit(offset + HEADER_SIZE + len);
+            value.position(offset + HEADER_SIZE);
+            return new DirectEntryKeyValue(ledgerId, entryId, value.slice());
+        }
+
+        @Override
+        EntryKeyValue get(long ledgerId, long entryId) {
+            long location = locations.get(ledgerId, entryId);
+            if (EntryIndex.NO_VALUE == location) {
+                return null;
+            }
+            // the slab may be reused once the set is released, so don't hand out a slice
+            DirectEntryKeyValue kv = read(location);
+            return new EntryKeyValue(kv.getLedgerId(), kv.getEntryId(), kv.getBuffer());
+        }
+
+        @Override
+        EntryKeyValue getLastEntry(long ledgerId) {
+            // the last entry id is only set once the entry is published
+            long lastEntryId = lastEntries.get(ledgerId, 0L);
+            if (EntryIndex.NO_VALUE == lastEntryId) {
+                return null;
+            }
+            return get(ledgerId, lastEntryId);
+        }
+
+        @Override
+        boolean isEmpty() {
+            return 0 == locations.size();
+        }
+
+        @Override
+        void release() {
+            synchronized (slabLock) {
+                synchronized (slabPool) {
+                    for (int i = 0; i < numSlabs; i++) {
+                        Slab slab = slabs.get(i);
+                        if (slab.pooled) {
+                            slabPool.release(slab.buffer);
+                        }
+                        slabs.set(i, null);
+                    }
+                }
+                numSlabs = 0;
+                curSlab.set(null);
+            }
+        }
+
+        @Override
+        Iterator<EntryKeyValue> iterator() {
+            int size = locations.size();
+            final long[] sortedLocations = new long[size];
+            final int numEntries = locations.sortedCopy(new long[size], new long[size], sortedLocations);
+            return new Iterator<EntryKeyValue>() {
+                int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < numEntries;
+                }
+
+                @Override
+                public EntryKeyValue next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return read(sortedLocations[next++]);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("remove");
+                }
+            };
+        }
+    }
+}
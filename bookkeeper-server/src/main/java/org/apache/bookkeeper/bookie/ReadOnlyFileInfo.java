@@ -37,7 +37,7 @@ import org.slf4j.LoggerFactory;
 class ReadOnlyFileInfo extends FileInfo {
 
     public ReadOnlyFileInfo(File lf, byte[] masterKey) throws IOException {
-        super(lf, masterKey);
+        super(lf, masterKey, ANY_HEADER_VERSION);
         mode = "r";
     }
 
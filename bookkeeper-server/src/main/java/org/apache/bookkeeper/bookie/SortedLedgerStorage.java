@@ -45,6 +45,10 @@ public class SortedLedgerStorage extends InterleavedLedgerStorage
 
     private final EntryMemTable memTable;
     private final ScheduledExecutorService scheduler;
+    // snapshots are flushed one at a time: the roll after a flush is decided on the
+    // current log id before and after it, and rolls all the active entry logs, so it
+    // must not overlap another flush still writing into them
+    private final Object snapshotFlushLock = new Object();
 
     // Stats
     private final Counter memtableReadEntryCounter;
@@ -59,8 +63,25 @@ public class SortedLedgerStorage extends InterleavedLedgerStorage
                                final CheckpointSource checkpointSource,
                                StatsLogger statsLogger)
                                        throws IOException {
-        super(conf, activeLedgerManager, ledgerDirsManager, indexDirsManager, checkpointSource, statsLogger);
-        this.memTable = new EntryMemTable(conf, checkpointSource, statsLogger);
+        this(conf, activeLedgerManager, ledgerDirsManager, indexDirsManager, checkpointSource, statsLogger,
+             new LedgerCacheImpl(conf, activeLedgerManager, indexDirsManager, statsLogger));
+    }
+
+    protected SortedLedgerStorage(ServerConfiguration conf,
+                                  ActiveLedgerManager activeLedgerManager,
+                                  LedgerDirsManager ledgerDirsManager,
+                                  LedgerDirsManager indexDirsManager,
+                                  final CheckpointSource checkpointSource,
+                                  StatsLogger statsLogger,
+                                  LedgerCache ledgerCache)
+                                          throws IOException {
+        super(conf, activeLedgerManager, ledgerDirsManager, indexDirsManager, checkpointSource, statsLogger,
+              ledgerCache);
+        if (conf.isEntryMemTableOffHeapEnabled()) {
+            this.memTable = new OffHeapEntryMemTable(conf, checkpointSource, statsLogger);
+        } else {
+            this.memTable = new EntryMemTable(conf, checkpointSource, statsLogger);
+        }
         this.scheduler = Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder()
                         .setThreadFactory(new DaemonThreadFactory((Thread.NORM_PRIORITY + Thread.MAX_PRIORITY)/2))
@@ -165,6 +186,18 @@ public class SortedLedgerStorage extends InterleavedLedgerStorage
         return buffToRet;
     }
 
+    @Override
+    public boolean entryExists(long ledgerId, long entryId) throws IOException {
+        if (super.entryExists(ledgerId, entryId)) {
+            return true;
+        }
+        if (null != memTable.getEntry(ledgerId, entryId)) {
+            return true;
+        }
+        // The entry might have been flushed since we last checked, so query the ledger cache again.
+        return super.entryExists(ledgerId, entryId);
+    }
+
     @Override
     public Checkpoint checkpoint(final Checkpoint checkpoint) throws IOException {
         Checkpoint lastCheckpoint = checkpointHolder.getLastCheckpoint();
@@ -172,7 +205,9 @@ public class SortedLedgerStorage extends InterleavedLedgerStorage
         if (lastCheckpoint.compareTo(checkpoint) > 0) {
             return lastCheckpoint;
         }
-        memTable.flush(this, checkpoint);
+        synchronized (snapshotFlushLock) {
+            memTable.flush(this, checkpoint);
+        }
         return super.checkpoint(checkpoint);
     }
 
@@ -184,7 +219,9 @@ public class SortedLedgerStorage extends InterleavedLedgerStorage
 
     @Override
     public void flush() throws IOException {
-        memTable.flush(this, Checkpoint.MAX);
+        synchronized (snapshotFlushLock) {
+            memTable.flush(this, Checkpoint.MAX);
+        }
         super.flush();
     }
 
@@ -206,16 +243,18 @@ public class SortedLedgerStorage extends InterleavedLedgerStorage
             public void run() {
                 try {
                     LOG.info("Started flushing mem table before checkpoint {}.", cp);
-                    long logIdBeforeFlush = entryLogger.getCurLogId();
-                    memTable.flush(SortedLedgerStorage.this);
-                    long logIdAfterFlush = entryLogger.getCurLogId();
-                    // in any case that an entry log reach the limit, we rolled the log and start checkpointing.
-                    // if a memory table is flushed spanning over two entry log files, we also roll log. this is
-                    // for performance consideration: since we don't wanna checkpoint a new log file that ledger
-                    // storage is writing to.
-                    if (entryLogger.reachEntryLogLimit(0) || logIdAfterFlush != logIdBeforeFlush) {
-                        entryLogger.rollLog();
-                        LOG.info("Rolling entry logger since it reached size limitation.");
+                    synchronized (snapshotFlushLock) {
+                        long logIdBeforeFlush = entryLogger.getCurLogId();
+                        memTable.flushNextSnapshot(SortedLedgerStorage.this);
+                        long logIdAfterFlush = entryLogger.getCurLogId();
+                        // in any case that an entry log reach the limit, we rolled the log and start checkpointing.
+                        // if a memory table is flushed spanning over two entry log files, we also roll log. this is
+                        // for performance consideration: since we don't wanna checkpoint a new log file that ledger
+                        // storage is writing to.
+                        if (entryLogger.reachEntryLogLimit(0) || logIdAfterFlush != logIdBeforeFlush) {
+                            entryLogger.rollLog();
+                            LOG.info("Rolling entry logger since it reached size limitation.");
+                        }
                     }
                 } catch (IOException e) {
                     // TODO: if we failed to flush data, we should switch the bookie back to readonly mode
@@ -69,15 +69,19 @@ public interface BookKeeperClientStats {
 
     public final static String CHANNEL_ADD_ENTRY = "ADD_ENTRY";
     public final static String CHANNEL_ADD_ENTRY_BYTES = "ADD_ENTRY_BYTES";
+    public final static String CHANNEL_RANGE_ADD_ENTRY = "RANGE_ADD_ENTRY";
     public final static String CHANNEL_NETTY_TIMEOUT_ADD_ENTRY = "NETTY_TIMEOUT_ADD_ENTRY";
     public final static String CHANNEL_READ_ENTRY = "READ_ENTRY";
     public final static String CHANNEL_READ_ENTRY_AND_FENCE = "READ_ENTRY_AND_FENCE";
     public final static String CHANNEL_READ_ENTRY_LONG_POLL = "READ_ENTRY_LONG_POLL";
+    public final static String CHANNEL_RANGE_READ_ENTRY = "RANGE_READ_ENTRY";
+    public final static String CHANNEL_CHECK_ENTRIES = "CHECK_ENTRIES";
     public final static String CHANNEL_READ_LONG_POLL_RESPONSE = "READ_LONG_POLL_RESPONSE";
     public final static String CHANNEL_NETTY_TIMEOUT_READ_ENTRY = "NETTY_TIMEOUT_READ_ENTRY";
     public final static String CHANNEL_CONNECT = "CHANNEL_CONNECT";
     public final static String CHANNEL_WRITE = "CHANNEL_WRITE";
     public final static String CHANNEL_WRITE_DISPATCH = "CHANNEL_WRITE_DISPATCH";
+    public final static String CHANNEL_REQUESTS_PER_FLUSH = "CHANNEL_REQUESTS_PER_FLUSH";
     public final static String CHANNEL_RESPONSE = "CHANNEL_RESPONSE";
 
 }
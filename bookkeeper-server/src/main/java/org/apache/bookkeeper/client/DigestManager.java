@@ -50,6 +50,30 @@ abstract class DigestManager {
     }
 
     abstract void update(byte[] data, int offset, int length);
+
+    /**
+     * Update the digest with <i>length</i> bytes of <i>buffer</i> from <i>index</i>,
+     * reading them in place when the buffer is backed by arrays.
+     */
+    void update(ChannelBuffer buffer, int index, int length) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + index, length);
+            return;
+        }
+        byte[] chunk = null;
+        for (ByteBuffer component : buffer.toByteBuffers(index, length)) {
+            if (component.hasArray()) {
+                update(component.array(), component.arrayOffset() + component.position(), component.remaining());
+            } else {
+                if (null == chunk || chunk.length < component.remaining()) {
+                    chunk = new byte[component.remaining()];
+                }
+                int chunkLength = component.remaining();
+                component.duplicate().get(chunk, 0, chunkLength);
+                update(chunk, 0, chunkLength);
+            }
+        }
+    }
     abstract byte[] getValueAndReset();
 
     final int macCodeLength;
@@ -113,7 +137,6 @@ abstract class DigestManager {
     private void verifyDigest(long entryId, ChannelBuffer dataReceived, boolean skipEntryIdCheck)
             throws BKDigestMatchException {
 
-        ByteBuffer dataReceivedBuffer = dataReceived.toByteBuffer();
         byte[] digest;
 
         if ((METADATA_LENGTH + macCodeLength) > dataReceived.readableBytes()) {
@@ -123,10 +146,11 @@ abstract class DigestManager {
                     this.getClass().getName(), dataReceived.readableBytes());
             throw new BKDigestMatchException();
         }
-        update(dataReceivedBuffer.array(), dataReceivedBuffer.position(), METADATA_LENGTH);
+        int readerIndex = dataReceived.readerIndex();
+        update(dataReceived, readerIndex, METADATA_LENGTH);
 
         int offset = METADATA_LENGTH + macCodeLength;
-        update(dataReceivedBuffer.array(), dataReceivedBuffer.position() + offset, dataReceived.readableBytes() - offset);
+        update(dataReceived, readerIndex + offset, dataReceived.readableBytes() - offset);
         digest = getValueAndReset();
 
         for (int i = 0; i < digest.length; i++) {
@@ -20,8 +20,10 @@
 package org.apache.bookkeeper.client;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -42,7 +44,12 @@ import org.slf4j.LoggerFactory;
 public class LedgerChecker {
     private static Logger LOG = LoggerFactory.getLogger(LedgerChecker.class);
 
+    // maximum number of entries checked by a single existence check request
+    final static int MAX_ENTRIES_PER_CHECK = 4096;
+
     public final BookieClient bookieClient;
+    // fraction of the entries of a fragment sampled on each bookie, if positive
+    private final double samplingDensity;
 
     static class InvalidFragmentException extends Exception {
         private static final long serialVersionUID = 1467201276417062353L;
@@ -81,6 +88,7 @@ public class LedgerChecker {
 
     public LedgerChecker(BookKeeper bkc) {
         bookieClient = bkc.getBookieClient();
+        samplingDensity = bkc.getConf().getLedgerCheckEntrySamplingDensity();
     }
 
     /**
@@ -191,7 +199,16 @@ public class LedgerChecker {
             throw new InvalidFragmentException();
         }
 
-        if (firstStored == lastStored) {
+        if (samplingDensity > 0) {
+            List<Long> entriesToCheck = sampleStoredEntries(fragment, bookieIndex, firstStored, lastStored);
+            ReadManyEntriesCallback manycb = new ReadManyEntriesCallback(entriesToCheck.size(),
+                    fragment, cb);
+            for (int i = 0; i < entriesToCheck.size(); i += MAX_ENTRIES_PER_CHECK) {
+                bookieClient.checkEntries(bookie, fragment.getLedgerId(),
+                        entriesToCheck.subList(i, Math.min(i + MAX_ENTRIES_PER_CHECK, entriesToCheck.size())),
+                        manycb, null);
+            }
+        } else if (firstStored == lastStored) {
             ReadManyEntriesCallback manycb = new ReadManyEntriesCallback(1,
                     fragment, cb);
             bookieClient.readEntry(bookie, fragment
@@ -205,6 +222,54 @@ public class LedgerChecker {
         }
     }
 
+    /**
+     * Sample the entries stored by a bookie in a ledger fragment: its first and last
+     * entries, and the sampling density of its entries in between.
+     *
+     * @param fragment
+     *          ledger fragment
+     * @param bookieIndex
+     *          bookie index in the fragment
+     * @param firstStored
+     *          first entry stored by the bookie in the fragment
+     * @param lastStored
+     *          last entry stored by the bookie in the fragment
+     * @return the sampled entries, in order.
+     */
+    private List<Long> sampleStoredEntries(LedgerFragment fragment, int bookieIndex,
+                                           long firstStored, long lastStored) {
+        List<Long> entries = new ArrayList<Long>();
+        entries.add(firstStored);
+        // the entries of the bookie are striped over the entries of the fragment,
+        // so sample the fragment and move each sample to the next entry of the bookie
+        long step = Math.max(1L, Math.min(lastStored - firstStored, (long) Math.ceil(1 / samplingDensity)));
+        for (long entryId = firstStored + step; entryId < lastStored; entryId += step) {
+            while (entryId < lastStored && !fragment.isStoredEntry(entryId, bookieIndex)) {
+                entryId++;
+            }
+            if (entryId < lastStored) {
+                entries.add(entryId);
+            }
+        }
+        if (lastStored != firstStored) {
+            entries.add(lastStored);
+        }
+        return entries;
+    }
+
+    /**
+     * Check whether an entry exists on a bookie, with an existence check if the
+     * entries are sampled, or by reading it otherwise.
+     */
+    private void probeEntry(BookieSocketAddress bookie, long ledgerId, long entryId,
+                            ReadEntryCallback cb) {
+        if (samplingDensity > 0) {
+            bookieClient.checkEntries(bookie, ledgerId, Collections.singletonList(entryId), cb, null);
+        } else {
+            bookieClient.readEntry(bookie, ledgerId, entryId, cb, null);
+        }
+    }
+
     /**
      * Callback for checking whether an entry exists or not.
      * It is used to differentiate the cases where it has been written
@@ -336,8 +401,7 @@ public class LedgerChecker {
 
                 for (int bi : lh.getDistributionSchedule().getWriteSet(entryToRead)) {
                     BookieSocketAddress addr = curEnsemble.get(bi);
-                    bookieClient.readEntry(addr, lh.getId(),
-                                           entryToRead, eecb, null);
+                    probeEntry(addr, lh.getId(), entryToRead, eecb);
                 }
                 return;
             } else {
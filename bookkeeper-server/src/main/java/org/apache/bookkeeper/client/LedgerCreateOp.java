@@ -79,6 +79,7 @@ class LedgerCreateOp implements GenericCallback<Long> {
                    byte[] passwd, CreateCallback cb, Object ctx) {
         this.bk = bk;
         this.metadata = new LedgerMetadata(ensembleSize, writeQuorumSize, ackQuorumSize, digestType, passwd);
+        this.metadata.setMetadataFormatVersion(bk.getConf().getLedgerMetadataFormatVersion());
         this.digestType = digestType;
         this.passwd = passwd;
         this.cb = cb;
@@ -202,6 +202,18 @@ public class LedgerFragment {
         return LedgerHandle.INVALID_ENTRY_ID;
     }
 
+    /**
+     * Whether the entry is stored by the bookie at the given index of the ensemble.
+     *
+     * @param entryId
+     *          entry id.
+     * @param bookieIndex
+     *          the bookie index in the ensemble.
+     */
+    boolean isStoredEntry(long entryId, int bookieIndex) {
+        return schedule.hasEntry(entryId, bookieIndex);
+    }
+
     /**
      * Gets the ensemble of fragment
      *
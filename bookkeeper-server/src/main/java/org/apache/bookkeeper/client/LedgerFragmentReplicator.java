@@ -20,6 +20,8 @@
 package org.apache.bookkeeper.client;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -35,6 +37,7 @@ import org.apache.bookkeeper.net.BookieSocketAddress;
 import org.apache.bookkeeper.proto.BookieProtocol;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.MultiCallback;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
 import org.apache.bookkeeper.util.OrderedSafeExecutor.OrderedSafeGenericCallback;
 import org.apache.zookeeper.AsyncCallback;
@@ -61,7 +64,8 @@ public class LedgerFragmentReplicator {
     private void replicateFragmentInternal(final LedgerHandle lh,
             final LedgerFragment lf,
             final AsyncCallback.VoidCallback ledgerFragmentMcb,
-            final Set<BookieSocketAddress> newBookies) throws InterruptedException {
+            final Set<BookieSocketAddress> newBookies,
+            final List<BookieSocketAddress> bulkCopySources) throws InterruptedException {
         if (!lf.isClosed()) {
             LOG.error("Trying to replicate an unclosed fragment;"
                       + " This is not safe {}", lf);
@@ -90,6 +94,12 @@ public class LedgerFragmentReplicator {
             return;
         }
 
+        if (!bulkCopySources.isEmpty()) {
+            new BulkFragmentCopy(lh, startEntryId, endEntryId, bulkCopySources, newBookies,
+                    ledgerFragmentMcb).copyNextChunks();
+            return;
+        }
+
         /*
          * Add all the entries to entriesToReplicate list from
          * firstStoredEntryId to lastStoredEntryID.
@@ -119,7 +129,11 @@ public class LedgerFragmentReplicator {
      * max entries up to the configured value of rereplicationEntryBatchSize and
      * then it re-replicates that batched entry fragments one by one. After
      * re-replication of all batched entry fragments, it will update the
-     * ensemble info with new Bookie once
+     * ensemble info with new Bookie once.
+     *
+     * If bulk copy is enabled and every bookie of the fragment's ensemble stores
+     * all its entries, the whole fragment is instead copied in chunks from a
+     * surviving bookie of the ensemble, see {@link BulkFragmentCopy}.
      *
      * @param lh
      *            LedgerHandle for the ledger
@@ -136,6 +150,12 @@ public class LedgerFragmentReplicator {
             final AsyncCallback.VoidCallback ledgerFragmentMcb,
             final Set<BookieSocketAddress> targetBookieAddresses)
             throws InterruptedException {
+        List<BookieSocketAddress> bulkCopySources = getBulkCopySources(lh, lf, targetBookieAddresses);
+        if (!bulkCopySources.isEmpty()) {
+            LOG.info("Copying fragment {} in bulk from bookies {}.", lf, bulkCopySources);
+            replicateFragmentInternal(lh, lf, ledgerFragmentMcb, targetBookieAddresses, bulkCopySources);
+            return;
+        }
         Set<LedgerFragment> partionedFragments = splitIntoSubFragments(lh, lf,
                 bkc.getConf().getRereplicationEntryBatchSize());
         LOG.info("Replicating fragment {} in {} sub fragments.",
@@ -165,7 +185,7 @@ public class LedgerFragmentReplicator {
                                 }
                             }
 
-                        }, targetBookieAddresses);
+                        }, targetBookieAddresses, Collections.<BookieSocketAddress>emptyList());
             } catch (InterruptedException e) {
                 ledgerFragmentMcb.processResult(
                         BKException.Code.InterruptedException, null, null);
@@ -176,6 +196,29 @@ public class LedgerFragmentReplicator {
         }
     }
 
+    /**
+     * Get the bookies a fragment could be copied in bulk from: the bookies of its
+     * ensemble other than the failed ones and the new ones. Bulk copy requires
+     * every bookie of the ensemble to store all the entries of the fragment, so no
+     * bookie is returned for striped ledgers, or if bulk copy is disabled.
+     */
+    private List<BookieSocketAddress> getBulkCopySources(LedgerHandle lh, LedgerFragment lf,
+            Set<BookieSocketAddress> targetBookieAddresses) {
+        List<BookieSocketAddress> sources = new ArrayList<BookieSocketAddress>();
+        LedgerMetadata metadata = lh.getLedgerMetadata();
+        if (bkc.getConf().getRereplicationBulkCopyEntries() <= 1
+                || metadata.getEnsembleSize() != metadata.getWriteQuorumSize()) {
+            return sources;
+        }
+        for (int i = 0; i < metadata.getEnsembleSize(); i++) {
+            BookieSocketAddress bookie = lf.getAddress(i);
+            if (!lf.getBookiesIndexes().contains(i) && !targetBookieAddresses.contains(bookie)) {
+                sources.add(bookie);
+            }
+        }
+        return sources;
+    }
+
     /**
      * Split the full fragment into batched entry fragments by keeping
      * rereplicationEntryBatchSize of entries in each one and can treat them as
@@ -297,6 +340,207 @@ public class LedgerFragmentReplicator {
         }, null);
     }
 
+    /**
+     * Bulk copy of the entries of a fragment to the new bookies.
+     *
+     * <p>
+     * The entries are copied in chunks of consecutive entries: each chunk is read
+     * from a surviving bookie with a single range read, the digest of each of its
+     * entries is verified, and the entries are written as read to each new bookie
+     * with a single range add. At most <i>rereplicationBulkCopyOutstandingChunks</i>
+     * chunks are copied at the same time, which bounds the entries held in memory.
+     * A chunk which can't be read from any of the surviving bookies, or which fails
+     * to be written, is recovered entry by entry.
+     * </p>
+     */
+    private class BulkFragmentCopy {
+        final LedgerHandle lh;
+        final long lastEntryId;
+        final List<BookieSocketAddress> sources;
+        final Set<BookieSocketAddress> targets;
+        final AsyncCallback.VoidCallback ledgerFragmentMcb;
+        final int chunkSize;
+        final int maxOutstandingChunks;
+
+        long nextEntryId;
+        int numOutstandingChunks = 0;
+        boolean completed = false;
+
+        BulkFragmentCopy(LedgerHandle lh, long firstEntryId, long lastEntryId,
+                         List<BookieSocketAddress> sources, Set<BookieSocketAddress> targets,
+                         AsyncCallback.VoidCallback ledgerFragmentMcb) {
+            this.lh = lh;
+            this.nextEntryId = firstEntryId;
+            this.lastEntryId = lastEntryId;
+            this.sources = sources;
+            this.targets = targets;
+            this.ledgerFragmentMcb = ledgerFragmentMcb;
+            this.chunkSize = bkc.getConf().getRereplicationBulkCopyEntries();
+            this.maxOutstandingChunks = Math.max(1, bkc.getConf().getRereplicationBulkCopyOutstandingChunks());
+        }
+
+        void copyNextChunks() {
+            List<Chunk> chunks = new ArrayList<Chunk>();
+            boolean done = false;
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                while (numOutstandingChunks < maxOutstandingChunks && nextEntryId <= lastEntryId) {
+                    int numEntries = (int) Math.min(chunkSize, lastEntryId - nextEntryId + 1);
+                    chunks.add(new Chunk(nextEntryId, numEntries));
+                    nextEntryId += numEntries;
+                    ++numOutstandingChunks;
+                }
+                if (numOutstandingChunks == 0) {
+                    completed = done = true;
+                }
+            }
+            if (done) {
+                ledgerFragmentMcb.processResult(BKException.Code.OK, null, null);
+                return;
+            }
+            for (Chunk chunk : chunks) {
+                chunk.read(0);
+            }
+        }
+
+        void chunkComplete(int rc) {
+            synchronized (this) {
+                --numOutstandingChunks;
+                if (BKException.Code.OK != rc) {
+                    if (completed) {
+                        return;
+                    }
+                    completed = true;
+                }
+            }
+            if (BKException.Code.OK != rc) {
+                ledgerFragmentMcb.processResult(rc, null, null);
+            } else {
+                copyNextChunks();
+            }
+        }
+
+        class Chunk implements ReadEntryCallback, WriteCallback {
+            final long firstEntryId;
+            final int numEntries;
+            final ChannelBuffer[] entries;
+
+            int sourceIndex;
+            int numPending;
+            int rc;
+
+            Chunk(long firstEntryId, int numEntries) {
+                this.firstEntryId = firstEntryId;
+                this.numEntries = numEntries;
+                this.entries = new ChannelBuffer[numEntries];
+            }
+
+            void read(int sourceIndex) {
+                synchronized (this) {
+                    this.sourceIndex = sourceIndex;
+                    this.numPending = numEntries;
+                    this.rc = BKException.Code.OK;
+                }
+                bkc.getBookieClient().readEntries(sources.get(sourceIndex), lh.getId(), firstEntryId,
+                        numEntries, this, null);
+            }
+
+            @Override
+            public void readEntryComplete(int rc, long ledgerId, long entryId, ChannelBuffer buffer, Object ctx) {
+                if (BKException.Code.OK == rc) {
+                    try {
+                        lh.getDigestManager().verifyDigestAndReturnData(entryId, buffer.duplicate());
+                    } catch (BKException.BKDigestMatchException e) {
+                        rc = BKException.Code.DigestMatchException;
+                    }
+                }
+                int readRc;
+                int readSourceIndex;
+                synchronized (this) {
+                    if (BKException.Code.OK == rc) {
+                        entries[(int) (entryId - firstEntryId)] = buffer;
+                    } else if (BKException.Code.OK == this.rc) {
+                        this.rc = rc;
+                    }
+                    if (--numPending > 0) {
+                        return;
+                    }
+                    readRc = this.rc;
+                    readSourceIndex = sourceIndex;
+                }
+                if (BKException.Code.OK == readRc) {
+                    write();
+                } else if (readSourceIndex + 1 < sources.size()) {
+                    LOG.info("Failed to read entries [{}, {}] of ledger {} from bookie {} : rc = {}, trying next bookie.",
+                             new Object[] { firstEntryId, firstEntryId + numEntries - 1, lh.getId(),
+                                            sources.get(readSourceIndex), readRc });
+                    read(readSourceIndex + 1);
+                } else {
+                    LOG.warn("Failed to read entries [{}, {}] of ledger {} in bulk : rc = {}, recovering them one by one.",
+                             new Object[] { firstEntryId, firstEntryId + numEntries - 1, lh.getId(), readRc });
+                    recoverEntryByEntry();
+                }
+            }
+
+            void write() {
+                synchronized (this) {
+                    numPending = numEntries * targets.size();
+                }
+                for (BookieSocketAddress target : targets) {
+                    // each write consumes its own view of the entries
+                    List<ChannelBuffer> toSend = new ArrayList<ChannelBuffer>(numEntries);
+                    for (ChannelBuffer entry : entries) {
+                        toSend.add(entry.duplicate());
+                    }
+                    bkc.getBookieClient().addEntries(target, lh.getId(), lh.getLedgerKey(), firstEntryId,
+                            toSend, this, null, BookieProtocol.FLAG_RECOVERY_ADD);
+                }
+            }
+
+            @Override
+            public void writeComplete(int rc, long ledgerId, long entryId, BookieSocketAddress addr, Object ctx) {
+                int writeRc;
+                synchronized (this) {
+                    if (BKException.Code.OK != rc && BKException.Code.OK == this.rc) {
+                        this.rc = rc;
+                    }
+                    if (--numPending > 0) {
+                        return;
+                    }
+                    writeRc = this.rc;
+                }
+                if (BKException.Code.OK == writeRc) {
+                    Arrays.fill(entries, null);
+                    chunkComplete(BKException.Code.OK);
+                } else {
+                    LOG.warn("Failed to write entries [{}, {}] of ledger {} in bulk : rc = {}, recovering them one by one.",
+                             new Object[] { firstEntryId, firstEntryId + numEntries - 1, lh.getId(), writeRc });
+                    recoverEntryByEntry();
+                }
+            }
+
+            void recoverEntryByEntry() {
+                Arrays.fill(entries, null);
+                MultiCallback entriesMcb = new MultiCallback(numEntries, new AsyncCallback.VoidCallback() {
+                    @Override
+                    public void processResult(int rc, String path, Object ctx) {
+                        chunkComplete(rc);
+                    }
+                }, null, BKException.Code.OK, BKException.Code.LedgerRecoveryException);
+                try {
+                    for (long entryId = firstEntryId; entryId < firstEntryId + numEntries; entryId++) {
+                        recoverLedgerFragmentEntry(entryId, lh, entriesMcb, targets);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    chunkComplete(BKException.Code.InterruptedException);
+                }
+            }
+        }
+    }
+
     /**
      * Callback for recovery of a single ledger fragment. Once the fragment has
      * had all entries replicated, update the ensemble in zookeeper. Once
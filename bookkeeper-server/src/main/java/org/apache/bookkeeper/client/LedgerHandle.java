@@ -103,6 +103,15 @@ public class LedgerHandle {
     final Counter numPendingAddsGauge;
     final OpStatsLogger numSubmittedPerCallbackStatsLogger;
 
+    // Range adds: adds queued by the main worker thread until no more add is waiting to be run
+    final static int RANGE_ADD_MAX_BYTES = 512 * 1024; // stays well below the max frame size of the bookies
+    final int rangeAddMaxEntries;
+    final AtomicInteger numAddsToRun = new AtomicInteger(0);
+    final List<PendingAddOp> queuedAddOps = new ArrayList<PendingAddOp>();
+    final List<ChannelBuffer> queuedAddBuffers = new ArrayList<ChannelBuffer>();
+    final List<Integer> queuedAddLengths = new ArrayList<Integer>();
+    int queuedAddBytes = 0;
+
     LedgerHandle(BookKeeper bk, long ledgerId, LedgerMetadata metadata,
                  DigestType digestType, byte[] password)
             throws GeneralSecurityException, NumberFormatException {
@@ -121,6 +130,7 @@ public class LedgerHandle {
         this.ledgerId = ledgerId;
 
         this.throttler = RateLimiter.create(bk.getConf().getThrottleValue());
+        this.rangeAddMaxEntries = bk.getConf().getRangeAddMaxEntries();
 
         macManager = DigestManager.instantiate(ledgerId, password, digestType);
         this.ledgerKey = MacDigestManager.genDigest("ledger", password);
@@ -522,7 +532,9 @@ public class LedgerHandle {
     private void doAsyncReadEntries(long firstEntry, long lastEntry,
                                     ReadCallback cb, Object ctx) {
         new PendingReadOp(this, bk.scheduler, firstEntry, lastEntry, cb, ctx)
-                .enablePiggybackLAC(true).initiate();
+                .enablePiggybackLAC(true)
+                .rangeReadMaxEntries(bk.getConf().getRangeReadMaxEntries())
+                .initiate();
     }
     /**
      * Add entry synchronously to an open ledger.
@@ -665,13 +677,26 @@ public class LedgerHandle {
             return;
         }
 
+        numAddsToRun.incrementAndGet();
         try {
             bk.mainWorkerPool.submitOrdered(ledgerId, new SafeRunnable() {
                 @Override
                 public void safeRun() {
+                    int numAddsLeft = numAddsToRun.decrementAndGet();
                     ChannelBuffer toSend = macManager.computeDigestAndPackageForSending(
                                                entryId, getLastAddConfirmed(), currentLength, data, offset, length);
-                    op.initiate(toSend, length);
+                    if (rangeAddMaxEntries <= 1) {
+                        op.initiate(toSend, length);
+                        return;
+                    }
+                    queuedAddOps.add(op);
+                    queuedAddBuffers.add(toSend);
+                    queuedAddLengths.add(length);
+                    queuedAddBytes += toSend.readableBytes();
+                    if (numAddsLeft == 0 || queuedAddOps.size() >= rangeAddMaxEntries
+                            || queuedAddBytes >= RANGE_ADD_MAX_BYTES) {
+                        sendQueuedAddOps();
+                    }
                 }
                 @Override
                 public String toString() {
@@ -679,10 +704,47 @@ public class LedgerHandle {
                 }
             });
         } catch (RejectedExecutionException e) {
+            numAddsToRun.decrementAndGet();
             op.submitCallback(bk.getReturnRc(BKException.Code.InterruptedException));
         }
     }
 
+    /**
+     * Send the add operations queued to be sent with range add requests. Each bookie
+     * receives one request per run of consecutive entries it stores.
+     *
+     * Must be called from the main worker thread of the ledger.
+     */
+    private void sendQueuedAddOps() {
+        for (int i = 0; i < queuedAddOps.size(); i++) {
+            queuedAddOps.get(i).initiateWithoutSending(queuedAddBuffers.get(i), queuedAddLengths.get(i));
+        }
+        for (int bookieIndex = 0; bookieIndex < metadata.getEnsembleSize(); bookieIndex++) {
+            List<PendingAddOp> range = new ArrayList<PendingAddOp>(queuedAddOps.size());
+            for (PendingAddOp op : queuedAddOps) {
+                boolean storedByBookie = distributionSchedule.getWriteSet(op.entryId).contains(bookieIndex);
+                if (!range.isEmpty()) {
+                    PendingAddOp last = range.get(range.size() - 1);
+                    if (!storedByBookie || op.entryId != last.entryId + 1
+                            || op.isRecoveryAdd != last.isRecoveryAdd) {
+                        PendingAddOp.sendWriteRequests(range, bookieIndex);
+                        range = new ArrayList<PendingAddOp>(queuedAddOps.size());
+                    }
+                }
+                if (storedByBookie) {
+                    range.add(op);
+                }
+            }
+            if (!range.isEmpty()) {
+                PendingAddOp.sendWriteRequests(range, bookieIndex);
+            }
+        }
+        queuedAddOps.clear();
+        queuedAddBuffers.clear();
+        queuedAddLengths.clear();
+        queuedAddBytes = 0;
+    }
+
     synchronized void updateLastConfirmed(long lac, long len) {
         if (lac > lastAddConfirmed) {
             lastAddConfirmed = lac;
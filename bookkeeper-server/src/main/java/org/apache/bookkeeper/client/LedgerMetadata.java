@@ -38,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.TextFormat;
 
 import static com.google.common.base.Charsets.UTF_8;
@@ -61,8 +62,14 @@ public class LedgerMetadata {
 
     public static final int LOWEST_COMPAT_METADATA_FORMAT_VERSION = 0;
     public static final int CURRENT_METADATA_FORMAT_VERSION = 2;
+    public static final int BINARY_METADATA_FORMAT_VERSION = 3;
+    public static final int HIGHEST_COMPAT_METADATA_FORMAT_VERSION = BINARY_METADATA_FORMAT_VERSION;
     public static final String VERSION_KEY = "BookieMetadataFormatVersion";
 
+    // header preceding the protobuf encoded metadata in the binary format
+    private static final byte[] BINARY_VERSION_HEADER =
+            (VERSION_KEY + tSplitter + BINARY_METADATA_FORMAT_VERSION + lSplitter).getBytes(UTF_8);
+
     private int metadataFormatVersion = 0;
 
     private int ensembleSize;
@@ -104,7 +111,7 @@ public class LedgerMetadata {
     /**
      * Copy Constructor.
      */
-    LedgerMetadata(LedgerMetadata other) {
+    public LedgerMetadata(LedgerMetadata other) {
         this.ensembleSize = other.ensembleSize;
         this.writeQuorumSize = other.writeQuorumSize;
         this.ackQuorumSize = other.ackQuorumSize;
@@ -130,6 +137,23 @@ public class LedgerMetadata {
         this.hasPassword = false;
     }
 
+    /**
+     * Set the format version used to serialize this metadata.
+     *
+     * @param metadataFormatVersion
+     *          metadata format version, between 1 and {@link #HIGHEST_COMPAT_METADATA_FORMAT_VERSION}.
+     */
+    void setMetadataFormatVersion(int metadataFormatVersion) {
+        if (metadataFormatVersion < 1 || metadataFormatVersion > HIGHEST_COMPAT_METADATA_FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported metadata format version " + metadataFormatVersion);
+        }
+        this.metadataFormatVersion = metadataFormatVersion;
+    }
+
+    int getMetadataFormatVersion() {
+        return metadataFormatVersion;
+    }
+
     /**
      * Get the Map of bookie ensembles for the various ledger fragments
      * that make up the ledger.
@@ -255,6 +279,26 @@ public class LedgerMetadata {
         if (metadataFormatVersion == 1) {
             return serializeVersion1();
         }
+        LedgerMetadataFormat data = buildMetadataFormat();
+        if (metadataFormatVersion == BINARY_METADATA_FORMAT_VERSION) {
+            byte[] bytes = new byte[BINARY_VERSION_HEADER.length + data.getSerializedSize()];
+            System.arraycopy(BINARY_VERSION_HEADER, 0, bytes, 0, BINARY_VERSION_HEADER.length);
+            CodedOutputStream out = CodedOutputStream.newInstance(bytes, BINARY_VERSION_HEADER.length,
+                    bytes.length - BINARY_VERSION_HEADER.length);
+            try {
+                data.writeTo(out);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to serialize ledger metadata", e);
+            }
+            out.checkNoSpaceLeft();
+            return bytes;
+        }
+        String s = toText(data, CURRENT_METADATA_FORMAT_VERSION);
+        LOG.debug("Serialized config: {}", s);
+        return s.getBytes(UTF_8);
+    }
+
+    private LedgerMetadataFormat buildMetadataFormat() {
         LedgerMetadataFormat.Builder builder = LedgerMetadataFormat.newBuilder();
         builder.setQuorumSize(writeQuorumSize).setAckQuorumSize(ackQuorumSize)
             .setEnsembleSize(ensembleSize).setLength(length)
@@ -272,12 +316,14 @@ public class LedgerMetadata {
             }
             builder.addSegment(segmentBuilder.build());
         }
+        return builder.build();
+    }
 
+    private static String toText(LedgerMetadataFormat data, int formatVersion) {
         StringBuilder s = new StringBuilder();
-        s.append(VERSION_KEY).append(tSplitter).append(CURRENT_METADATA_FORMAT_VERSION).append(lSplitter);
-        s.append(TextFormat.printToString(builder.build()));
-        LOG.debug("Serialized config: {}", s);
-        return s.toString().getBytes(UTF_8);
+        s.append(VERSION_KEY).append(tSplitter).append(formatVersion).append(lSplitter);
+        s.append(TextFormat.printToString(data));
+        return s.toString();
     }
 
     private byte[] serializeVersion1() {
@@ -319,6 +365,14 @@ public class LedgerMetadata {
         LedgerMetadata lc = new LedgerMetadata();
         lc.version = version;
 
+        // binary metadata is parsed straight from the bytes, without decoding them as text
+        if (isBinaryFormat(bytes)) {
+            lc.metadataFormatVersion = BINARY_METADATA_FORMAT_VERSION;
+            LedgerMetadataFormat.Builder builder = LedgerMetadataFormat.newBuilder();
+            builder.mergeFrom(bytes, BINARY_VERSION_HEADER.length, bytes.length - BINARY_VERSION_HEADER.length);
+            return populate(lc, buildFormat(builder));
+        }
+
         String config = new String(bytes, UTF_8);
 
         LOG.debug("Parsing Config: {}", config);
@@ -341,9 +395,9 @@ public class LedgerMetadata {
         }
 
         if (lc.metadataFormatVersion < LOWEST_COMPAT_METADATA_FORMAT_VERSION
-            || lc.metadataFormatVersion > CURRENT_METADATA_FORMAT_VERSION) {
+            || lc.metadataFormatVersion > HIGHEST_COMPAT_METADATA_FORMAT_VERSION) {
             throw new IOException("Metadata version not compatible. Expected between "
-                    + LOWEST_COMPAT_METADATA_FORMAT_VERSION + " and " + CURRENT_METADATA_FORMAT_VERSION
+                    + LOWEST_COMPAT_METADATA_FORMAT_VERSION + " and " + HIGHEST_COMPAT_METADATA_FORMAT_VERSION
                                   + ", but got " + lc.metadataFormatVersion);
         }
 
@@ -358,7 +412,29 @@ public class LedgerMetadata {
         LedgerMetadataFormat.Builder builder = LedgerMetadataFormat.newBuilder();
 
         TextFormat.merge((CharSequence) CharBuffer.wrap(configBuffer), builder);
-        LedgerMetadataFormat data = builder.build();
+        return populate(lc, buildFormat(builder));
+    }
+
+    private static boolean isBinaryFormat(byte[] bytes) {
+        if (bytes.length < BINARY_VERSION_HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < BINARY_VERSION_HEADER.length; i++) {
+            if (bytes[i] != BINARY_VERSION_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LedgerMetadataFormat buildFormat(LedgerMetadataFormat.Builder builder) throws IOException {
+        if (!builder.isInitialized()) {
+            throw new IOException("Invalid metadata. Required fields missing");
+        }
+        return builder.build();
+    }
+
+    private static LedgerMetadata populate(LedgerMetadata lc, LedgerMetadataFormat data) throws IOException {
         lc.writeQuorumSize = data.getQuorumSize();
         if (data.hasAckQuorumSize()) {
             lc.ackQuorumSize = data.getAckQuorumSize();
@@ -508,8 +584,14 @@ public class LedgerMetadata {
 
     @Override
     public String toString() {
+        String meta;
+        if (metadataFormatVersion == BINARY_METADATA_FORMAT_VERSION) {
+            meta = toText(buildMetadataFormat(), metadataFormatVersion);
+        } else {
+            meta = new String(serialize(), UTF_8);
+        }
         StringBuilder sb = new StringBuilder();
-        sb.append("(meta:").append(new String(serialize(), UTF_8)).append(", version:").append(version).append(")");
+        sb.append("(meta:").append(meta).append(", version:").append(version).append(")");
         return sb.toString();
     }
 
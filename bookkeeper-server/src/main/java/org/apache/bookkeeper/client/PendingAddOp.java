@@ -17,6 +17,8 @@
  */
 package org.apache.bookkeeper.client;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableMap;
@@ -148,16 +150,56 @@ class PendingAddOp implements WriteCallback, TimerTask {
         sendWriteRequest(bookieIndex);
     }
 
+    /**
+     * Send the write requests of consecutive add operations to a bookie with a single
+     * range add request.
+     *
+     * @param ops
+     *          initiated add operations of consecutive entries, sharing the same flags.
+     * @param bookieIndex
+     *          index of the bookie in the ensemble.
+     */
+    static void sendWriteRequests(final List<PendingAddOp> ops, int bookieIndex) {
+        final PendingAddOp firstOp = ops.get(0);
+        if (ops.size() == 1) {
+            firstOp.sendWriteRequest(bookieIndex);
+            return;
+        }
+        LedgerHandle lh = firstOp.lh;
+        int flags = firstOp.isRecoveryAdd ? BookieProtocol.FLAG_RECOVERY_ADD : BookieProtocol.FLAG_NONE;
+        List<ChannelBuffer> toSend = new ArrayList<ChannelBuffer>(ops.size());
+        for (PendingAddOp op : ops) {
+            toSend.add(op.toSend);
+        }
+        lh.bk.bookieClient.addEntries(lh.metadata.currentEnsemble.get(bookieIndex), lh.ledgerId, lh.ledgerKey,
+                firstOp.entryId, toSend, new WriteCallback() {
+                    @Override
+                    public void writeComplete(int rc, long ledgerId, long entryId, BookieSocketAddress addr,
+                                              Object ctx) {
+                        ops.get((int) (entryId - firstOp.entryId)).writeComplete(rc, ledgerId, entryId, addr, ctx);
+                    }
+                }, bookieIndex, flags);
+    }
+
     void initiate(ChannelBuffer toSend, int entryLength) {
+        initiateWithoutSending(toSend, entryLength);
+        for (int bookieIndex : lh.distributionSchedule.getWriteSet(entryId)) {
+            sendWriteRequest(bookieIndex);
+        }
+    }
+
+    /**
+     * Initiate the operation, leaving it to the caller to send its write requests.
+     *
+     * @see #sendWriteRequests(List, int)
+     */
+    void initiateWithoutSending(ChannelBuffer toSend, int entryLength) {
         if (timeoutSec > 0) {
             this.timeout = lh.bk.bookieClient.scheduleTimeout(this, timeoutSec, TimeUnit.SECONDS);
         }
         this.requestTimeNanos = MathUtils.nowInNano();
         this.toSend = toSend;
         this.entryLength = entryLength;
-        for (int bookieIndex : lh.distributionSchedule.getWriteSet(entryId)) {
-            sendWriteRequest(bookieIndex);
-        }
     }
 
     @Override
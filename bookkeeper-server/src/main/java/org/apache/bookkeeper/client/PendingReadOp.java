@@ -21,6 +21,7 @@
 package org.apache.bookkeeper.client;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Enumeration;
 import java.util.List;
@@ -67,6 +68,7 @@ class PendingReadOp  implements Enumeration<LedgerEntry>, ReadEntryCallback {
     final int maxMissedReadsAllowed;
     boolean parallelRead = false;
     boolean enablePiggybackLAC = true;
+    int rangeReadMaxEntries = 1;
     final AtomicBoolean complete = new AtomicBoolean(false);
 
     abstract class LedgerEntryRequest extends LedgerEntry implements SpeculativeRequestExectuor {
@@ -78,7 +80,8 @@ class PendingReadOp  implements Enumeration<LedgerEntry>, ReadEntryCallback {
         int numMissedEntryReads = 0;
 
         final ArrayList<BookieSocketAddress> ensemble;
-        final List<Integer> writeSet;
+        // the read sequence of the entry, which a range read may reorder before the first read
+        List<Integer> writeSet;
 
         LedgerEntryRequest(ArrayList<BookieSocketAddress> ensemble, long lId, long eId) {
             super(lId, eId);
@@ -350,6 +353,22 @@ class PendingReadOp  implements Enumeration<LedgerEntry>, ReadEntryCallback {
             sendNextRead();
         }
 
+        /**
+         * Record that the first read of the entry was sent to <i>bookieIndex</i> as part
+         * of a range read, which moves the bookie first in the read sequence of the entry.
+         *
+         * @param bookieIndex
+         *          bookie index the range read was sent to.
+         */
+        synchronized void rangeReadSentTo(int bookieIndex) {
+            List<Integer> newWriteSet = new ArrayList<Integer>(writeSet);
+            newWriteSet.remove(Integer.valueOf(bookieIndex));
+            newWriteSet.add(0, bookieIndex);
+            writeSet = newWriteSet;
+            sentReplicas.set(0);
+            nextReplicaIndexToReadFrom = 1;
+        }
+
         synchronized BookieSocketAddress sendNextRead() {
             if (nextReplicaIndexToReadFrom >= getLedgerMetadata().getWriteQuorumSize()) {
                 // we are done, the read has failed from all replicas, just fail the
@@ -451,6 +470,15 @@ class PendingReadOp  implements Enumeration<LedgerEntry>, ReadEntryCallback {
         return this;
     }
 
+    /**
+     * Read up to <i>maxEntries</i> consecutive entries stored by a same bookie with a
+     * single range read request. Only applies to sequential reads.
+     */
+    PendingReadOp rangeReadMaxEntries(int maxEntries) {
+        this.rangeReadMaxEntries = maxEntries;
+        return this;
+    }
+
     public void initiate() {
         long nextEnsembleChange = startEntryId, i = startEntryId;
         this.requestTimeNanos = MathUtils.nowInNano();
@@ -471,12 +499,57 @@ class PendingReadOp  implements Enumeration<LedgerEntry>, ReadEntryCallback {
             i++;
         } while (i <= endEntryId);
         // read the entries.
-        for (LedgerEntryRequest entry : seq) {
-            entry.read();
-            if (!parallelRead && lh.bk.getReadSpeculativeRequestPolicy().isPresent()) {
-                lh.bk.getReadSpeculativeRequestPolicy().get().initiateSpeculativeRequest(scheduler, entry);
+        LedgerEntryRequest[] entries = seq.toArray(new LedgerEntryRequest[seq.size()]);
+        int numRead;
+        for (int start = 0; start < entries.length; start += numRead) {
+            if (!parallelRead && rangeReadMaxEntries > 1) {
+                numRead = readRange(entries, start);
+            } else {
+                entries[start].read();
+                numRead = 1;
+            }
+            for (int j = start; j < start + numRead; j++) {
+                if (!parallelRead && lh.bk.getReadSpeculativeRequestPolicy().isPresent()) {
+                    lh.bk.getReadSpeculativeRequestPolicy().get().initiateSpeculativeRequest(scheduler, entries[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read entry <i>entries[start]</i> and the entries following it which are stored by
+     * the first bookie it reads from, with a single range read request.
+     *
+     * @return number of entries read.
+     */
+    private int readRange(LedgerEntryRequest[] entries, int start) {
+        LedgerEntryRequest first = entries[start];
+        int bookieIndex = first.writeSet.get(0);
+        int end = start + 1;
+        // entries of a same ensemble share the ensemble of the metadata
+        while (end < entries.length && end - start < rangeReadMaxEntries
+                && entries[end].ensemble == first.ensemble
+                && entries[end].writeSet.contains(bookieIndex)) {
+            end++;
+        }
+        if (end - start == 1) {
+            first.read();
+            return 1;
+        }
+        List<LedgerEntryRequest> range = Arrays.asList(entries).subList(start, end);
+        for (LedgerEntryRequest entry : range) {
+            ((SequenceReadRequest) entry).rangeReadSentTo(bookieIndex);
+        }
+        try {
+            sendRangeReadTo(bookieIndex, first.ensemble.get(bookieIndex), range);
+        } catch (InterruptedException ie) {
+            LOG.error("Interrupted reading entries " + range, ie);
+            Thread.currentThread().interrupt();
+            for (LedgerEntryRequest entry : range) {
+                entry.fail(BKException.Code.InterruptedException);
             }
         }
+        return end - start;
     }
 
     private static class ReadContext implements ReadEntryCallbackCtx {
@@ -502,6 +575,47 @@ class PendingReadOp  implements Enumeration<LedgerEntry>, ReadEntryCallback {
         }
     }
 
+    /**
+     * Context of a range read, whose callback is invoked once per entry of the range.
+     */
+    private static class RangeReadContext implements ReadEntryCallbackCtx {
+        final int bookieIndex;
+        final BookieSocketAddress to;
+        final List<LedgerEntryRequest> entries;
+        long lac = LedgerHandle.INVALID_ENTRY_ID;
+
+        RangeReadContext(int bookieIndex, BookieSocketAddress to, List<LedgerEntryRequest> entries) {
+            this.bookieIndex = bookieIndex;
+            this.to = to;
+            this.entries = entries;
+        }
+
+        ReadContext getReadContext(long entryId) {
+            ReadContext rctx = new ReadContext(bookieIndex, to,
+                    entries.get((int) (entryId - entries.get(0).entryId)));
+            rctx.setLastAddConfirmed(lac);
+            return rctx;
+        }
+
+        @Override
+        public void setLastAddConfirmed(long lac) {
+            this.lac = lac;
+        }
+
+        @Override
+        public long getLastAddConfirmed() {
+            return lac;
+        }
+    }
+
+    void sendRangeReadTo(int bookieIndex, BookieSocketAddress to, List<LedgerEntryRequest> entries)
+            throws InterruptedException {
+        lh.throttler.acquire(entries.size());
+
+        lh.bk.bookieClient.readEntries(to, lh.ledgerId, entries.get(0).entryId, entries.size(),
+                                       this, new RangeReadContext(bookieIndex, to, entries));
+    }
+
     void sendReadTo(int bookieIndex, BookieSocketAddress to, LedgerEntryRequest entry) throws InterruptedException {
         lh.throttler.acquire();
 
@@ -511,7 +625,12 @@ class PendingReadOp  implements Enumeration<LedgerEntry>, ReadEntryCallback {
 
     @Override
     public void readEntryComplete(int rc, long ledgerId, final long entryId, final ChannelBuffer buffer, Object ctx) {
-        final ReadContext rctx = (ReadContext)ctx;
+        final ReadContext rctx;
+        if (ctx instanceof RangeReadContext) {
+            rctx = ((RangeReadContext) ctx).getReadContext(entryId);
+        } else {
+            rctx = (ReadContext) ctx;
+        }
         final LedgerEntryRequest entry = rctx.entry;
 
         if (rc != BKException.Code.OK) {
@@ -56,7 +56,11 @@ public abstract class AbstractConfiguration extends CompositeConfiguration {
     protected final static String ZK_LEDGERS_ROOT_PATH = "zkLedgersRootPath";
     protected final static String ZK_REQUEST_RATE_LIMIT = "zkRequestRateLimit";
     protected final static String REREPLICATION_ENTRY_BATCH_SIZE = "rereplicationEntryBatchSize";
+    protected final static String REREPLICATION_BULK_COPY_ENTRIES = "rereplicationBulkCopyEntries";
+    protected final static String REREPLICATION_BULK_COPY_OUTSTANDING_CHUNKS = "rereplicationBulkCopyOutstandingChunks";
+    protected final static String LEDGER_CHECK_ENTRY_SAMPLING_DENSITY = "ledgerCheckEntrySamplingDensity";
     protected final static String ASYNC_PROCESS_LEDGERS_CONCURRENCY = "asyncProcessLedgersConcurrency";
+    protected final static String LEDGER_METADATA_CACHE_MAX_SIZE = "ledgerMetadataCacheMaxSize";
 
     protected AbstractConfiguration() {
         super();
@@ -216,6 +220,64 @@ public abstract class AbstractConfiguration extends CompositeConfiguration {
         return getLong(REREPLICATION_ENTRY_BATCH_SIZE, 10);
     }
 
+    /**
+     * Set the number of entries copied in one chunk when re-replicating a
+     * fragment in bulk. A fragment whose entries are all stored by each bookie
+     * of its ensemble is then copied chunk by chunk from a surviving bookie to
+     * the new bookie, with one range read and one range add per chunk, instead
+     * of entry by entry. Bulk copy requires the bookies to support range reads
+     * and range adds. A value less than or equal to 1 disables bulk copy.
+     */
+    public void setRereplicationBulkCopyEntries(int numEntries) {
+        setProperty(REREPLICATION_BULK_COPY_ENTRIES, numEntries);
+    }
+
+    /**
+     * Get the number of entries copied in one chunk when re-replicating a
+     * fragment in bulk. Default is 0, which disables bulk copy.
+     */
+    public int getRereplicationBulkCopyEntries() {
+        return getInt(REREPLICATION_BULK_COPY_ENTRIES, 0);
+    }
+
+    /**
+     * Set the maximum number of chunks of a fragment being copied at the same
+     * time when re-replicating it in bulk. It bounds the entries held in memory
+     * by the copy.
+     */
+    public void setRereplicationBulkCopyOutstandingChunks(int numChunks) {
+        setProperty(REREPLICATION_BULK_COPY_OUTSTANDING_CHUNKS, numChunks);
+    }
+
+    /**
+     * Get the maximum number of chunks of a fragment being copied at the same
+     * time when re-replicating it in bulk. Default is 4.
+     */
+    public int getRereplicationBulkCopyOutstandingChunks() {
+        return getInt(REREPLICATION_BULK_COPY_OUTSTANDING_CHUNKS, 4);
+    }
+
+    /**
+     * Set the density of the entries sampled by the ledger checker when verifying
+     * that a bookie stores its entries of a fragment. With a positive density, the
+     * checker probes the first and last entries of the bookie in the fragment, and
+     * this fraction of its entries in between, with existence checks which only
+     * look the entries up in the bookie index. A density of 1 probes every entry.
+     * With a density less than or equal to 0, the checker reads the first and the
+     * last entries instead. Existence checks require the bookies to support them.
+     */
+    public void setLedgerCheckEntrySamplingDensity(double density) {
+        setProperty(LEDGER_CHECK_ENTRY_SAMPLING_DENSITY, density);
+    }
+
+    /**
+     * Get the density of the entries sampled by the ledger checker. Default is 0,
+     * which reads the first and the last entries instead of sampling.
+     */
+    public double getLedgerCheckEntrySamplingDensity() {
+        return getDouble(LEDGER_CHECK_ENTRY_SAMPLING_DENSITY, 0);
+    }
+
     /**
      * Set the concurrency to run processing ledgers. This is a limit on how many
      * {@link org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.Processor}s could
@@ -237,6 +299,29 @@ public abstract class AbstractConfiguration extends CompositeConfiguration {
         return getInt(ASYNC_PROCESS_LEDGERS_CONCURRENCY, 1);
     }
 
+    /**
+     * Set the maximum number of parsed ledger metadata kept by the zookeeper based
+     * ledger managers. A cached metadata is reused while its znode version is
+     * unchanged, which saves parsing it again. If it is set to less than or equal
+     * to zero, ledger metadata is not cached.
+     *
+     * @param maxSize
+     *          maximum number of cached ledger metadata.
+     */
+    public void setLedgerMetadataCacheMaxSize(int maxSize) {
+        setProperty(LEDGER_METADATA_CACHE_MAX_SIZE, maxSize);
+    }
+
+    /**
+     * Get the maximum number of parsed ledger metadata kept by the zookeeper based
+     * ledger managers.
+     *
+     * @return maximum number of cached ledger metadata.
+     */
+    public int getLedgerMetadataCacheMaxSize() {
+        return getInt(LEDGER_METADATA_CACHE_MAX_SIZE, 10000);
+    }
+
     @Deprecated
     public void setFeature(String configProperty, Feature feature) {
         setProperty(configProperty, feature);
@@ -24,6 +24,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.bookkeeper.client.BookKeeper.DigestType;
 import org.apache.bookkeeper.client.EnsemblePlacementPolicy;
+import org.apache.bookkeeper.client.LedgerMetadata;
 import org.apache.bookkeeper.client.RackawareEnsemblePlacementPolicy;
 import org.apache.bookkeeper.util.BookKeeperConstants;
 import org.apache.bookkeeper.util.ReflectionUtils;
@@ -59,6 +60,8 @@ public class ClientConfiguration extends AbstractConfiguration {
     protected final static String CLIENT_WRITEBUFFER_HIGH_WATER_MARK = "clientWriteBufferHighWaterMark";
     protected final static String NUM_CHANNELS_PER_BOOKIE = "numChannelsPerBookie";
     protected final static String WRITE_TO_CHANNEL_ASYNC = "writeRequestToChannelAsync";
+    protected final static String MAX_REQUESTS_PER_FLUSH = "maxRequestsPerFlush";
+    protected final static String ENABLE_BODY_FRAMING = "enableBodyFraming";
     // Read Parameters
     protected final static String READ_TIMEOUT = "readTimeout";
     protected final static String SPECULATIVE_READ_TIMEOUT = "speculativeReadTimeout";
@@ -70,8 +73,10 @@ public class ClientConfiguration extends AbstractConfiguration {
     protected final static String SPECULATIVE_READ_LAC_TIMEOUT_BACKOFF_MULTIPLIER = "speculativeReadLACTimeoutBackoffMultiplier";
     protected final static String ENABLE_PARALLEL_RECOVERY_READ = "enableParallelRecoveryRead";
     protected final static String RECOVERY_READ_BATCH_SIZE = "recoveryReadBatchSize";
+    protected final static String RANGE_READ_MAX_ENTRIES = "rangeReadMaxEntries";
     // Add Parameters
     protected final static String DELAY_ENSEMBLE_CHANGE = "delayEnsembleChange";
+    protected final static String RANGE_ADD_MAX_ENTRIES = "rangeAddMaxEntries";
     // Timeout Setting
     protected final static String ADD_ENTRY_TIMEOUT_SEC = "addEntryTimeoutSec";
     protected final static String ADD_ENTRY_QUORUM_TIMEOUT_SEC = "addEntryQuorumTimeoutSec";
@@ -100,6 +105,9 @@ public class ClientConfiguration extends AbstractConfiguration {
     // Names of dynamic features
     protected final static String DISABLE_ENSEMBLE_CHANGE_FEATURE_NAME = "disableEnsembleChangeFeatureName";
 
+    // Ledger Metadata Settings
+    protected final static String LEDGER_METADATA_FORMAT_VERSION = "ledgerMetadataFormatVersion";
+
     /**
      * Construct a default client-side configuration
      */
@@ -359,6 +367,59 @@ public class ClientConfiguration extends AbstractConfiguration {
         return this;
     }
 
+    /**
+     * Get the maximum number of requests flushed to a channel with a single write.
+     *
+     * Requests are queued per channel and flushed by the thread which queued the first
+     * of them (or by an executor thread if requests are written to the channel
+     * asynchronously), coalescing the requests queued in the meantime into single writes
+     * of up to this number of requests. Setting it to 1 writes each request on its own.
+     *
+     * @return maximum number of requests per flush.
+     */
+    public int getMaxRequestsPerFlush() {
+        return getInt(MAX_REQUESTS_PER_FLUSH, 64);
+    }
+
+    /**
+     * Set the maximum number of requests flushed to a channel with a single write.
+     * @see #getMaxRequestsPerFlush()
+     *
+     * @param maxRequests
+     *          maximum number of requests per flush.
+     * @return client configuration.
+     */
+    public ClientConfiguration setMaxRequestsPerFlush(int maxRequests) {
+        setProperty(MAX_REQUESTS_PER_FLUSH, maxRequests);
+        return this;
+    }
+
+    /**
+     * Whether to frame entry bodies apart from the v3 protocol messages.
+     *
+     * When enabled, the entry bodies of add requests and read responses travel as
+     * buffers following the protobuf messages, rather than as bytes fields copied in
+     * and out of them. The bookies should all support body framing before enabling it.
+     *
+     * @return whether to frame entry bodies apart from the protocol messages.
+     */
+    public boolean getEnableBodyFraming() {
+        return getBoolean(ENABLE_BODY_FRAMING, false);
+    }
+
+    /**
+     * Enable/Disable framing entry bodies apart from the v3 protocol messages.
+     *
+     * @see #getEnableBodyFraming()
+     * @param enabled
+     *          flag to enable/disable body framing.
+     * @return client configuration.
+     */
+    public ClientConfiguration setEnableBodyFraming(boolean enabled) {
+        setProperty(ENABLE_BODY_FRAMING, enabled);
+        return this;
+    }
+
     /**
      * Get zookeeper servers to connect
      *
@@ -503,19 +564,27 @@ public class ClientConfiguration extends AbstractConfiguration {
 
     /**
      * Get the interval between successive executions of the PerChannelBookieClient's
-     * TimeoutTask. This value is in milliseconds. Every X milliseconds, the timeout task
-     * will be executed and it will error out entries that have timed out.
+     * timeout sweep. This value is in milliseconds. Every X milliseconds, the sweep
+     * goes through the outstanding requests of the channel and errors out the ones
+     * that have timed out, so a request may time out up to X milliseconds late.
      *
-     * We do it more aggressive to not accumulate pending requests due to slow responses.
-     * @return
+     * By default, it is the tick duration of the timeout timer, see
+     * {@link #getTimeoutTimerTickDurationMs()}.
+     *
+     * @return timeout sweep interval in milliseconds.
      */
-    @Deprecated
     public long getTimeoutTaskIntervalMillis() {
-        return getLong(TIMEOUT_TASK_INTERVAL_MILLIS,
-                TimeUnit.SECONDS.toMillis(Math.min(getAddEntryTimeout(), getReadEntryTimeout())) / 2);
+        return getLong(TIMEOUT_TASK_INTERVAL_MILLIS, getTimeoutTimerTickDurationMs());
     }
 
-    @Deprecated
+    /**
+     * Set the interval between successive timeout sweeps of the PerChannelBookieClient.
+     * @see #getTimeoutTaskIntervalMillis()
+     *
+     * @param timeoutMillis
+     *          timeout sweep interval in milliseconds.
+     * @return client configuration.
+     */
     public ClientConfiguration setTimeoutTaskIntervalMillis(long timeoutMillis) {
         setProperty(TIMEOUT_TASK_INTERVAL_MILLIS, Long.toString(timeoutMillis));
         return this;
@@ -879,6 +948,61 @@ public class ClientConfiguration extends AbstractConfiguration {
         return this;
     }
 
+    /**
+     * Get the maximum number of entries read with a single range read request.
+     *
+     * When reading a sequence of entries, consecutive entries stored by the bookie
+     * the first of them is read from are read from that bookie with one range read
+     * request, rather than one read request per entry. The bookies should all support
+     * range reads before enabling them. The default value is 1, which disables range reads.
+     *
+     * @return max number of entries per range read.
+     */
+    public int getRangeReadMaxEntries() {
+        return getInt(RANGE_READ_MAX_ENTRIES, 1);
+    }
+
+    /**
+     * Set the maximum number of entries read with a single range read request.
+     *
+     * @see #getRangeReadMaxEntries()
+     * @param maxEntries
+     *          max number of entries per range read.
+     * @return client configuration.
+     */
+    public ClientConfiguration setRangeReadMaxEntries(int maxEntries) {
+        setProperty(RANGE_READ_MAX_ENTRIES, maxEntries);
+        return this;
+    }
+
+    /**
+     * Get the maximum number of entries written with a single range add request.
+     *
+     * Entries added to a ledger while previous adds are still waiting to be sent are
+     * coalesced, and consecutive entries stored by the same bookie are sent to it with
+     * one range add request, which the bookie journals as a single group. The bookies
+     * should all support range adds before enabling them. The default value is 1, which
+     * disables range adds.
+     *
+     * @return max number of entries per range add.
+     */
+    public int getRangeAddMaxEntries() {
+        return getInt(RANGE_ADD_MAX_ENTRIES, 1);
+    }
+
+    /**
+     * Set the maximum number of entries written with a single range add request.
+     *
+     * @see #getRangeAddMaxEntries()
+     * @param maxEntries
+     *          max number of entries per range add.
+     * @return client configuration.
+     */
+    public ClientConfiguration setRangeAddMaxEntries(int maxEntries) {
+        setProperty(RANGE_ADD_MAX_ENTRIES, maxEntries);
+        return this;
+    }
+
     /**
      * Whether to enable per host stats?
      *
@@ -1030,4 +1154,28 @@ public class ClientConfiguration extends AbstractConfiguration {
         setProperty(DISABLE_ENSEMBLE_CHANGE_FEATURE_NAME, disableEnsembleChangeFeatureName);
         return this;
     }
+
+    /**
+     * Get the metadata format version used to store the metadata of new ledgers.
+     *
+     * @return metadata format version of new ledgers.
+     */
+    public int getLedgerMetadataFormatVersion() {
+        return getInt(LEDGER_METADATA_FORMAT_VERSION, LedgerMetadata.CURRENT_METADATA_FORMAT_VERSION);
+    }
+
+    /**
+     * Set the metadata format version used to store the metadata of new ledgers.
+     * {@link LedgerMetadata#BINARY_METADATA_FORMAT_VERSION} stores the metadata as
+     * binary protobuf, which is smaller and cheaper to parse than the default text
+     * format, but could only be read by clients and bookies that support it.
+     *
+     * @param version
+     *          metadata format version of new ledgers.
+     * @return client configuration.
+     */
+    public ClientConfiguration setLedgerMetadataFormatVersion(int version) {
+        setProperty(LEDGER_METADATA_FORMAT_VERSION, version);
+        return this;
+    }
 }
@@ -26,6 +26,7 @@ import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.lang.StringUtils;
 
 import static org.apache.bookkeeper.util.BookKeeperConstants.MAX_LOG_SIZE_LIMIT;
+import static org.apache.bookkeeper.util.BookKeeperConstants.MAX_LOG_SIZE_LIMIT_V2;
 
 /**
  * Configuration manages server-side settings
@@ -36,6 +37,16 @@ public class ServerConfiguration extends AbstractConfiguration {
     protected final static String ENTRY_LOG_FILE_PREALLOCATION_ENABLED = "entryLogFilePreallocationEnabled";
     protected final static String ENTRY_LOG_WRITE_LEDGERSMAP_ENABLED = "entryLogWriteLedgersMapEnabled";
     protected final static String ENTRY_LOG_READ_LEDGERSMAP_ENABLED = "entryLogReadLedgersMapEnabled";
+    protected final static String ENTRY_LOG_METADATA_INDEX_ENABLED = "entryLogMetadataIndexEnabled";
+    protected final static String ENTRY_LOG_PER_LEDGER_DIR_ENABLED = "entryLogPerLedgerDirEnabled";
+    protected final static String ENTRY_LOCATION_FORMAT_VERSION = "entryLocationFormatVersion";
+    protected final static String ENTRY_LOG_MMAP_READ_ENABLED = "entryLogMmapReadEnabled";
+    protected final static String ENTRY_LOG_MMAP_REGION_SIZE = "entryLogMmapRegionSize";
+    protected final static String ENTRY_LOG_MMAP_CACHE_SIZE = "entryLogMmapCacheSize";
+    protected final static String READ_CACHE_SIZE = "readCacheSizeBytes";
+    protected final static String READ_CACHE_SEGMENT_SIZE = "readCacheSegmentSizeBytes";
+    protected final static String READ_AHEAD_ENTRIES = "readAheadEntries";
+    protected final static String READ_AHEAD_MAX_BYTES = "readAheadMaxBytes";
     protected final static String MINOR_COMPACTION_INTERVAL = "minorCompactionInterval";
     protected final static String MINOR_COMPACTION_THRESHOLD = "minorCompactionThreshold";
     protected final static String MAJOR_COMPACTION_INTERVAL = "majorCompactionInterval";
@@ -74,9 +85,18 @@ public class ServerConfiguration extends AbstractConfiguration {
     protected final static String JOURNAL_ALIGNMENT_SIZE = "journalAlignmentSize";
     protected final static String NUM_JOURNAL_CALLBACK_THREADS = "numJournalCallbackThreads";
     protected final static String JOURNAL_FORMAT_VERSION_TO_WRITE = "journalFormatVersionToWrite";
+    protected final static String JOURNAL_RING_BUFFER_QUEUE_ENABLED = "journalRingBufferQueueEnabled";
+    protected final static String JOURNAL_RING_BUFFER_QUEUE_CAPACITY = "journalRingBufferQueueCapacity";
+    protected final static String JOURNAL_QUEUE_ENTRY_POOL_SIZE = "journalQueueEntryPoolSize";
+    protected final static String JOURNAL_GATHERING_WRITE_ENABLED = "journalGatheringWriteEnabled";
+    protected final static String JOURNAL_ADAPTIVE_GROUP_COMMIT_ENABLED = "journalAdaptiveGroupCommitEnabled";
+    protected final static String JOURNAL_GROUP_COMMIT_TARGET_LATENCY_MSEC = "journalGroupCommitTargetLatencyMSec";
+    protected final static String JOURNAL_READ_BUFFER_SIZE = "journalReadBufferSizeKB";
+    protected final static String NUM_JOURNAL_REPLAY_THREADS = "numJournalReplayThreads";
     // Bookie Parameters
     protected final static String BOOKIE_PORT = "bookiePort";
     protected final static String JOURNAL_DIR = "journalDirectory";
+    protected final static String JOURNAL_DIRS = "journalDirectories";
     protected final static String LEDGER_DIRS = "ledgerDirectories";
     protected final static String INDEX_DIRS = "indexDirectories";
     // NIO Parameters
@@ -90,6 +110,10 @@ public class ServerConfiguration extends AbstractConfiguration {
     // Statistics Parameters
     protected final static String ENABLE_STATISTICS = "enableStatistics";
     protected final static String OPEN_LEDGER_REREPLICATION_GRACE_PERIOD = "openLedgerRereplicationGracePeriod";
+    protected final static String REPLICATION_MAX_INFLIGHT_LEDGERS = "replicationMaxInflightLedgers";
+    protected final static String REPLICATION_MAX_INFLIGHT_FRAGMENTS = "replicationMaxInflightFragments";
+    protected final static String REPLICATION_PREFETCH_LEDGERS = "replicationPrefetchLedgers";
+    protected final static String REPLICATION_RATE_BY_BYTES = "replicationRateByBytes";
     //ReadOnly mode support on all disk full
     protected final static String READ_ONLY_MODE_ENABLED = "readOnlyModeEnabled";
     protected final static String DISK_USAGE_THRESHOLD = "diskUsageThreshold";
@@ -105,6 +129,9 @@ public class ServerConfiguration extends AbstractConfiguration {
     protected final static String NUM_READ_WORKER_THREADS = "numReadWorkerThreads";
     protected final static String NUM_LONG_POLL_WORKER_THREADS = "numLongPollWorkerThreads";
 
+    // Range read parameters
+    protected final static String SERVER_RANGE_READ_MAX_ENTRIES = "serverRangeReadMaxEntries";
+
     // Long poll parameters
     protected final static String REQUEST_TIMER_TICK_DURATION_MILLISEC = "requestTimerTickDurationMs";
     protected final static String REQUEST_TIMER_NO_OF_TICKS = "requestTimerNumTicks";
@@ -122,6 +149,13 @@ public class ServerConfiguration extends AbstractConfiguration {
     protected final static String SKIP_LIST_SIZE_LIMIT = "skipListSizeLimit";
     protected final static String SKIP_LIST_CHUNK_SIZE_ENTRY = "skipListArenaChunkSize";
     protected final static String SKIP_LIST_MAX_ALLOC_ENTRY = "skipListArenaMaxAllocSize";
+    protected final static String ENTRY_MEM_TABLE_OFF_HEAP_ENABLED = "entryMemTableOffHeapEnabled";
+    protected final static String SKIP_LIST_MAX_PENDING_SNAPSHOTS = "skipListMaxPendingSnapshots";
+    protected final static String INDEXED_LEDGER_STORAGE_ENABLED = "indexedLedgerStorageEnabled";
+    protected final static String LEDGER_INDEX_BLOCK_SIZE = "ledgerIndexBlockSize";
+    protected final static String LEDGER_INDEX_MEMTABLE_SIZE_LIMIT = "ledgerIndexMemTableSizeLimit";
+    protected final static String LEDGER_INDEX_MAX_RUNS = "ledgerIndexMaxRuns";
+    protected final static String LEDGER_INDEX_METADATA_CACHE_SIZE = "ledgerIndexMetadataCacheSize";
     protected final static String LISTENING_INTERFACE = "listeningInterface";
     protected final static String ALLOW_LOOPBACK = "allowLoopback";
 
@@ -226,6 +260,232 @@ public class ServerConfiguration extends AbstractConfiguration {
         return this;
     }
 
+    /**
+     * Is the entry log metadata index enabled? When enabled, the metadata of
+     * the entry logs is persisted in the ledger directory, so the garbage
+     * collector doesn't scan all the entry logs again when the bookie restarts.
+     *
+     * @return true if the entry log metadata index is enabled. otherwise false.
+     */
+    public boolean isEntryLogMetadataIndexEnabled() {
+        return this.getBoolean(ENTRY_LOG_METADATA_INDEX_ENABLED, false);
+    }
+
+    /**
+     * Enable/Disable the entry log metadata index.
+     *
+     * @param enabled
+     *          flag to enable/disable the entry log metadata index.
+     * @return server configuration
+     */
+    public ServerConfiguration setEntryLogMetadataIndexEnabled(boolean enabled) {
+        this.setProperty(ENTRY_LOG_METADATA_INDEX_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Is an active entry log written per ledger directory? When enabled, the
+     * bookie writes one entry log per ledger directory concurrently, ledgers
+     * being mapped to the entry logs by ledger id. Otherwise, a single entry log
+     * is written at a time.
+     *
+     * @return true if an entry log is written per ledger directory. otherwise false.
+     */
+    public boolean isEntryLogPerLedgerDirEnabled() {
+        return this.getBoolean(ENTRY_LOG_PER_LEDGER_DIR_ENABLED, false);
+    }
+
+    /**
+     * Enable/Disable writing an active entry log per ledger directory.
+     *
+     * @param enabled
+     *          flag to enable/disable an active entry log per ledger directory.
+     * @return server configuration
+     */
+    public ServerConfiguration setEntryLogPerLedgerDirEnabled(boolean enabled) {
+        this.setProperty(ENTRY_LOG_PER_LEDGER_DIR_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Get the version of the format of the entry locations kept by the ledger
+     * index. Version 1 limits entry logs to 2GB, version 2 allows entry logs up
+     * to 1TB. Existing ledger index files have to be converted with
+     * FileSystemUpgrade when the version changes.
+     *
+     * @return entry location format version
+     */
+    public int getEntryLocationFormatVersion() {
+        return this.getInt(ENTRY_LOCATION_FORMAT_VERSION, 1);
+    }
+
+    /**
+     * Set the version of the format of the entry locations kept by the ledger index.
+     *
+     * @param version
+     *          entry location format version
+     * @return server configuration
+     */
+    public ServerConfiguration setEntryLocationFormatVersion(int version) {
+        this.setProperty(ENTRY_LOCATION_FORMAT_VERSION, version);
+        return this;
+    }
+
+    /**
+     * Are the entries of flushed entry logs read from memory mapped regions of
+     * the entry logs? Otherwise they are read with positional reads.
+     *
+     * @return true if entries of flushed entry logs are read from memory mapped regions.
+     */
+    public boolean isEntryLogMmapReadEnabled() {
+        return this.getBoolean(ENTRY_LOG_MMAP_READ_ENABLED, false);
+    }
+
+    /**
+     * Enable/Disable reading entries of flushed entry logs from memory mapped regions.
+     *
+     * @param enabled
+     *          flag to enable/disable memory mapped reads.
+     * @return server configuration
+     */
+    public ServerConfiguration setEntryLogMmapReadEnabled(boolean enabled) {
+        this.setProperty(ENTRY_LOG_MMAP_READ_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Get the size of the regions in which entry logs are memory mapped.
+     *
+     * @return size of the memory mapped regions, in bytes.
+     */
+    public long getEntryLogMmapRegionSize() {
+        return this.getLong(ENTRY_LOG_MMAP_REGION_SIZE, 64 * 1024 * 1024L);
+    }
+
+    /**
+     * Set the size of the regions in which entry logs are memory mapped.
+     *
+     * @param regionSize
+     *          size of the memory mapped regions, in bytes.
+     * @return server configuration
+     */
+    public ServerConfiguration setEntryLogMmapRegionSize(long regionSize) {
+        this.setProperty(ENTRY_LOG_MMAP_REGION_SIZE, regionSize);
+        return this;
+    }
+
+    /**
+     * Get the maximum number of bytes of entry logs kept memory mapped. The least
+     * recently used regions are dropped beyond it.
+     *
+     * @return maximum number of memory mapped bytes.
+     */
+    public long getEntryLogMmapCacheSize() {
+        return this.getLong(ENTRY_LOG_MMAP_CACHE_SIZE, 1024 * 1024 * 1024L);
+    }
+
+    /**
+     * Set the maximum number of bytes of entry logs kept memory mapped.
+     *
+     * @param cacheSize
+     *          maximum number of memory mapped bytes.
+     * @return server configuration
+     */
+    public ServerConfiguration setEntryLogMmapCacheSize(long cacheSize) {
+        this.setProperty(ENTRY_LOG_MMAP_CACHE_SIZE, cacheSize);
+        return this;
+    }
+
+    /**
+     * Get the size of the read cache of the ledger storage, which keeps recently
+     * written and read entries out of the java heap. The read cache is disabled
+     * when the size is 0.
+     *
+     * @return read cache size, in bytes.
+     */
+    public long getReadCacheSize() {
+        return this.getLong(READ_CACHE_SIZE, 0L);
+    }
+
+    /**
+     * Set the size of the read cache of the ledger storage.
+     *
+     * @param cacheSize
+     *          read cache size, in bytes. 0 disables the read cache.
+     * @return server configuration
+     */
+    public ServerConfiguration setReadCacheSize(long cacheSize) {
+        this.setProperty(READ_CACHE_SIZE, cacheSize);
+        return this;
+    }
+
+    /**
+     * Get the size of the segments of the read cache. Entries are evicted from the
+     * read cache a segment at a time, and entries larger than a segment are not cached.
+     *
+     * @return read cache segment size, in bytes.
+     */
+    public int getReadCacheSegmentSize() {
+        return this.getInt(READ_CACHE_SEGMENT_SIZE, 64 * 1024 * 1024);
+    }
+
+    /**
+     * Set the size of the segments of the read cache.
+     *
+     * @param segmentSize
+     *          read cache segment size, in bytes.
+     * @return server configuration
+     */
+    public ServerConfiguration setReadCacheSegmentSize(int segmentSize) {
+        this.setProperty(READ_CACHE_SEGMENT_SIZE, segmentSize);
+        return this;
+    }
+
+    /**
+     * Get the number of entries read ahead into the read cache when a ledger is
+     * read sequentially. Read ahead is disabled when it is 0, or when the read
+     * cache is disabled.
+     *
+     * @return number of entries read ahead.
+     */
+    public int getReadAheadEntries() {
+        return this.getInt(READ_AHEAD_ENTRIES, 0);
+    }
+
+    /**
+     * Set the number of entries read ahead when a ledger is read sequentially.
+     *
+     * @param numEntries
+     *          number of entries read ahead. 0 disables read ahead.
+     * @return server configuration
+     */
+    public ServerConfiguration setReadAheadEntries(int numEntries) {
+        this.setProperty(READ_AHEAD_ENTRIES, numEntries);
+        return this;
+    }
+
+    /**
+     * Get the maximum number of bytes of entry log read at once to read ahead
+     * entries. Entries beyond it are not read ahead.
+     *
+     * @return maximum number of bytes read ahead.
+     */
+    public long getReadAheadMaxBytes() {
+        return this.getLong(READ_AHEAD_MAX_BYTES, 4 * 1024 * 1024L);
+    }
+
+    /**
+     * Set the maximum number of bytes of entry log read at once to read ahead entries.
+     *
+     * @param maxBytes
+     *          maximum number of bytes read ahead.
+     * @return server configuration
+     */
+    public ServerConfiguration setReadAheadMaxBytes(long maxBytes) {
+        this.setProperty(READ_AHEAD_MAX_BYTES, maxBytes);
+        return this;
+    }
+
 
     /**
      * Get Garbage collection wait time
@@ -453,6 +713,62 @@ public class ServerConfiguration extends AbstractConfiguration {
         return this.getInt(JOURNAL_WRITE_BUFFER_SIZE, 64);
     }
 
+    /**
+     * Set the size of the write buffers used for the journal
+     *
+     * @param bufferSizeKB
+     *          journal write buffer size in KB
+     * @return server configuration
+     */
+    public ServerConfiguration setJournalWriteBufferSizeKB(int bufferSizeKB) {
+        this.setProperty(JOURNAL_WRITE_BUFFER_SIZE, bufferSizeKB);
+        return this;
+    }
+
+    /**
+     * Size of the read buffers used to scan journal files when replaying them
+     *
+     * @return journal read buffer size in KB
+     */
+    public int getJournalReadBufferSizeKB() {
+        return this.getInt(JOURNAL_READ_BUFFER_SIZE, 1024);
+    }
+
+    /**
+     * Set the size of the read buffers used to scan journal files when replaying them
+     *
+     * @param bufferSizeKB
+     *          journal read buffer size in KB, 0 to read journal files directly
+     * @return server configuration
+     */
+    public ServerConfiguration setJournalReadBufferSizeKB(int bufferSizeKB) {
+        this.setProperty(JOURNAL_READ_BUFFER_SIZE, bufferSizeKB);
+        return this;
+    }
+
+    /**
+     * Get the number of threads applying replayed journal entries to the ledger
+     * storage on startup. Entries of a ledger are always applied by the same thread.
+     * If more than one, the journals are also scanned concurrently.
+     *
+     * @return number of journal replay threads
+     */
+    public int getNumJournalReplayThreads() {
+        return this.getInt(NUM_JOURNAL_REPLAY_THREADS, 1);
+    }
+
+    /**
+     * Set the number of threads applying replayed journal entries to the ledger storage.
+     *
+     * @param numThreads
+     *          number of journal replay threads
+     * @return server configuration
+     */
+    public ServerConfiguration setNumJournalReplayThreads(int numThreads) {
+        this.setProperty(NUM_JOURNAL_REPLAY_THREADS, numThreads);
+        return this;
+    }
+
     /**
      * Max number of older journal files kept
      *
@@ -518,6 +834,95 @@ public class ServerConfiguration extends AbstractConfiguration {
         return this;
     }
 
+    /**
+     * Whether the journal uses a lock-free ring buffer to queue entries to
+     * write, instead of an unbounded linked blocking queue.
+     *
+     * @return true if the ring buffer queue is enabled.
+     */
+    public boolean getJournalRingBufferQueueEnabled() {
+        return this.getBoolean(JOURNAL_RING_BUFFER_QUEUE_ENABLED, false);
+    }
+
+    /**
+     * Enable/Disable the ring buffer journal queue.
+     *
+     * @param enabled
+     *          flag to enable/disable the ring buffer journal queue.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalRingBufferQueueEnabled(boolean enabled) {
+        this.setProperty(JOURNAL_RING_BUFFER_QUEUE_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Get the capacity of the ring buffer journal queue. Adds block once the
+     * journal falls behind by this number of entries.
+     *
+     * @return capacity of the ring buffer journal queue.
+     */
+    public int getJournalRingBufferQueueCapacity() {
+        return this.getInt(JOURNAL_RING_BUFFER_QUEUE_CAPACITY, 64 * 1024);
+    }
+
+    /**
+     * Set the capacity of the ring buffer journal queue.
+     *
+     * @param capacity
+     *          capacity of the ring buffer journal queue.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalRingBufferQueueCapacity(int capacity) {
+        this.setProperty(JOURNAL_RING_BUFFER_QUEUE_CAPACITY, capacity);
+        return this;
+    }
+
+    /**
+     * Get the max number of journal queue entries kept for reuse. Zero
+     * disables pooling.
+     *
+     * @return size of the journal queue entry pool.
+     */
+    public int getJournalQueueEntryPoolSize() {
+        return this.getInt(JOURNAL_QUEUE_ENTRY_POOL_SIZE, 0);
+    }
+
+    /**
+     * Set the max number of journal queue entries kept for reuse.
+     *
+     * @param poolSize
+     *          size of the journal queue entry pool.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalQueueEntryPoolSize(int poolSize) {
+        this.setProperty(JOURNAL_QUEUE_ENTRY_POOL_SIZE, poolSize);
+        return this;
+    }
+
+    /**
+     * Should the journal stage its writes in pooled direct buffers and write
+     * each flushed batch with gathering writes, instead of copying entries
+     * through its write buffer?
+     *
+     * @return true if gathering writes are enabled.
+     */
+    public boolean getJournalGatheringWriteEnabled() {
+        return this.getBoolean(JOURNAL_GATHERING_WRITE_ENABLED, false);
+    }
+
+    /**
+     * Enable or disable gathering writes in the journal.
+     *
+     * @param enabled
+     *          flag to enable/disable gathering writes.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalGatheringWriteEnabled(boolean enabled) {
+        this.setProperty(JOURNAL_GATHERING_WRITE_ENABLED, enabled);
+        return this;
+    }
+
     /**
      * Get bookie port that bookie server listen on
      *
@@ -583,6 +988,49 @@ public class ServerConfiguration extends AbstractConfiguration {
         return new File(journalDirName);
     }
 
+    /**
+     * Get dir names to store journal files. Each journal directory is
+     * served by its own journal thread.
+     *
+     * <p>If <i>journalDirectories</i> isn't provided, it falls back to the
+     * single <i>journalDirectory</i>.</p>
+     *
+     * @return journal dir names
+     */
+    public String[] getJournalDirNames() {
+        String[] journalDirs = this.getStringArray(JOURNAL_DIRS);
+        if ((null == journalDirs) || (0 == journalDirs.length)) {
+            return new String[] { getJournalDirName() };
+        }
+        return journalDirs;
+    }
+
+    /**
+     * Set dir names to store journal files.
+     *
+     * @param journalDirs
+     *          Dir names to store journal files
+     * @return server configuration
+     */
+    public ServerConfiguration setJournalDirsName(String[] journalDirs) {
+        this.setProperty(JOURNAL_DIRS, journalDirs);
+        return this;
+    }
+
+    /**
+     * Get dirs to store journal files.
+     *
+     * @return journal dirs
+     */
+    public File[] getJournalDirs() {
+        String[] journalDirNames = getJournalDirNames();
+        File[] journalDirs = new File[journalDirNames.length];
+        for (int i = 0; i < journalDirNames.length; i++) {
+            journalDirs[i] = new File(journalDirNames[i]);
+        }
+        return journalDirs;
+    }
+
     /**
      * Get dir names to store ledger data
      *
@@ -937,6 +1385,106 @@ public class ServerConfiguration extends AbstractConfiguration {
         return getLong(OPEN_LEDGER_REREPLICATION_GRACE_PERIOD, 30000);
     }
 
+    /**
+     * Get the maximum number of ledgers the replication worker replicates at
+     * the same time.
+     *
+     * @return max number of ledgers being replicated at the same time.
+     */
+    public int getReplicationMaxInflightLedgers() {
+        return getInt(REPLICATION_MAX_INFLIGHT_LEDGERS, 1);
+    }
+
+    /**
+     * Set the maximum number of ledgers the replication worker replicates at
+     * the same time.
+     *
+     * @param maxLedgers
+     *          max number of ledgers being replicated at the same time.
+     * @return server configuration
+     */
+    public ServerConfiguration setReplicationMaxInflightLedgers(int maxLedgers) {
+        setProperty(REPLICATION_MAX_INFLIGHT_LEDGERS, maxLedgers);
+        return this;
+    }
+
+    /**
+     * Get the maximum number of fragments of a ledger the replication worker
+     * replicates at the same time.
+     *
+     * @return max number of fragments of a ledger being replicated at the same time.
+     */
+    public int getReplicationMaxInflightFragments() {
+        return getInt(REPLICATION_MAX_INFLIGHT_FRAGMENTS, 1);
+    }
+
+    /**
+     * Set the maximum number of fragments of a ledger the replication worker
+     * replicates at the same time.
+     *
+     * @param maxFragments
+     *          max number of fragments of a ledger being replicated at the same time.
+     * @return server configuration
+     */
+    public ServerConfiguration setReplicationMaxInflightFragments(int maxFragments) {
+        setProperty(REPLICATION_MAX_INFLIGHT_FRAGMENTS, maxFragments);
+        return this;
+    }
+
+    /**
+     * Get the number of under replicated ledgers the replication worker locks
+     * and queues in advance, on top of the ledgers being replicated.
+     *
+     * The queued ledgers are replicated by priority, the ledgers having the
+     * fewest remaining replicas of a fragment first. Default is 0, ledgers are
+     * replicated in the order they are picked.
+     *
+     * @return number of ledgers queued in advance.
+     */
+    public int getReplicationPrefetchLedgers() {
+        return getInt(REPLICATION_PREFETCH_LEDGERS, 0);
+    }
+
+    /**
+     * Set the number of under replicated ledgers the replication worker locks
+     * and queues in advance.
+     *
+     * @see #getReplicationPrefetchLedgers()
+     * @param numLedgers
+     *          number of ledgers queued in advance.
+     * @return server configuration
+     */
+    public ServerConfiguration setReplicationPrefetchLedgers(int numLedgers) {
+        setProperty(REPLICATION_PREFETCH_LEDGERS, numLedgers);
+        return this;
+    }
+
+    /**
+     * Get the rate, in bytes per second, at which the replication worker
+     * replicates fragments, across all the ledgers it replicates. The bytes of
+     * a fragment are estimated from the length of its ledger. Default is 0,
+     * which doesn't limit the rate.
+     *
+     * @return replication rate in bytes per second.
+     */
+    public long getReplicationRateByBytes() {
+        return getLong(REPLICATION_RATE_BY_BYTES, 0);
+    }
+
+    /**
+     * Set the rate, in bytes per second, at which the replication worker
+     * replicates fragments.
+     *
+     * @see #getReplicationRateByBytes()
+     * @param rate
+     *          replication rate in bytes per second.
+     * @return server configuration
+     */
+    public ServerConfiguration setReplicationRateByBytes(long rate) {
+        setProperty(REPLICATION_RATE_BY_BYTES, rate);
+        return this;
+    }
+
     /**
      * Set the number of threads that would handle write requests.
      *
@@ -996,6 +1544,30 @@ public class ServerConfiguration extends AbstractConfiguration {
         return getInt(NUM_READ_WORKER_THREADS, 20);
     }
 
+    /**
+     * Get the maximum number of entries a client may read with a single range read
+     * request. Larger range reads are rejected with EBADREQ, so the clients must not
+     * be configured with a larger <i>rangeReadMaxEntries</i>.
+     *
+     * @return max number of entries per range read request.
+     */
+    public int getServerRangeReadMaxEntries() {
+        return getInt(SERVER_RANGE_READ_MAX_ENTRIES, 1000);
+    }
+
+    /**
+     * Set the maximum number of entries a client may read with a single range read request.
+     *
+     * @see #getServerRangeReadMaxEntries()
+     * @param maxEntries
+     *          max number of entries per range read request.
+     * @return server configuration
+     */
+    public ServerConfiguration setServerRangeReadMaxEntries(int maxEntries) {
+        setProperty(SERVER_RANGE_READ_MAX_ENTRIES, maxEntries);
+        return this;
+    }
+
     /**
      * Set the tick duration in milliseconds
      *
@@ -1137,6 +1709,164 @@ public class ServerConfiguration extends AbstractConfiguration {
         return getInt(SKIP_LIST_MAX_ALLOC_ENTRY, 128 * 1024);
     }
 
+    /**
+     * Check if the mem-table of the sorted ledger storage keeps entries in direct
+     * memory instead of the java heap (default false). Direct memory slabs use the
+     * arena chunk size, entries larger than the arena max allocation size get a
+     * slab of their own.
+     *
+     * @return true if the mem-table is off heap
+     */
+    public boolean isEntryMemTableOffHeapEnabled() {
+        return getBoolean(ENTRY_MEM_TABLE_OFF_HEAP_ENABLED, false);
+    }
+
+    /**
+     * Set whether the mem-table of the sorted ledger storage keeps entries in direct memory.
+     *
+     * @param enabled
+     *          flag to keep the mem-table off heap
+     * @return server configuration object.
+     */
+    public ServerConfiguration setEntryMemTableOffHeapEnabled(boolean enabled) {
+        setProperty(ENTRY_MEM_TABLE_OFF_HEAP_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Get the max number of skip list snapshots waiting to be flushed (default 2).
+     * Writers are throttled once the skip list reaches its size limit and can't
+     * be snapshotted because of this limit.
+     *
+     * @return max number of pending skip list snapshots
+     */
+    public int getSkipListMaxPendingSnapshots() {
+        return getInt(SKIP_LIST_MAX_PENDING_SNAPSHOTS, 2);
+    }
+
+    /**
+     * Set the max number of skip list snapshots waiting to be flushed.
+     *
+     * @param maxPendingSnapshots
+     *          max number of pending skip list snapshots
+     * @return server configuration object.
+     */
+    public ServerConfiguration setSkipListMaxPendingSnapshots(int maxPendingSnapshots) {
+        setProperty(SKIP_LIST_MAX_PENDING_SNAPSHOTS, maxPendingSnapshots);
+        return this;
+    }
+
+    /**
+     * Set indexed ledger storage enabled or not. The indexed ledger storage keeps
+     * the entry locations and the metadata of all the ledgers in a single index,
+     * instead of an index file per ledger.
+     *
+     * @param enabled
+     * @return server configuration object.
+     */
+    public ServerConfiguration setIndexedLedgerStorageEnabled(boolean enabled) {
+        setProperty(INDEXED_LEDGER_STORAGE_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Check if indexed ledger storage enabled (default false). It takes
+     * precedence over {@link #getSortedLedgerStorageEnabled()}.
+     *
+     * @return true if indexed ledger storage is enabled
+     */
+    public boolean getIndexedLedgerStorageEnabled() {
+        return getBoolean(INDEXED_LEDGER_STORAGE_ENABLED, false);
+    }
+
+    /**
+     * Get the size of the blocks of the ledger index runs (default 4KB).
+     * A lookup reads one block per run.
+     *
+     * @return ledger index block size
+     */
+    public int getLedgerIndexBlockSize() {
+        return getInt(LEDGER_INDEX_BLOCK_SIZE, 4096);
+    }
+
+    /**
+     * Set the size of the blocks of the ledger index runs.
+     *
+     * @param blockSize
+     *          ledger index block size
+     * @return server configuration object.
+     */
+    public ServerConfiguration setLedgerIndexBlockSize(int blockSize) {
+        setProperty(LEDGER_INDEX_BLOCK_SIZE, blockSize);
+        return this;
+    }
+
+    /**
+     * Get the size of the ledger index mem-table above which it is flushed
+     * to a new run (default 64MB).
+     *
+     * @return ledger index mem-table size limit
+     */
+    public long getLedgerIndexMemTableSizeLimit() {
+        return getLong(LEDGER_INDEX_MEMTABLE_SIZE_LIMIT, 64 * 1024 * 1024L);
+    }
+
+    /**
+     * Set the size of the ledger index mem-table above which it is flushed.
+     *
+     * @param sizeLimit
+     *          ledger index mem-table size limit
+     * @return server configuration object.
+     */
+    public ServerConfiguration setLedgerIndexMemTableSizeLimit(long sizeLimit) {
+        setProperty(LEDGER_INDEX_MEMTABLE_SIZE_LIMIT, sizeLimit);
+        return this;
+    }
+
+    /**
+     * Get the max number of ledger index runs, above which runs are merged (default 8).
+     *
+     * @return max number of ledger index runs
+     */
+    public int getLedgerIndexMaxRuns() {
+        return getInt(LEDGER_INDEX_MAX_RUNS, 8);
+    }
+
+    /**
+     * Set the max number of ledger index runs, above which runs are merged.
+     *
+     * @param maxRuns
+     *          max number of ledger index runs
+     * @return server configuration object.
+     */
+    public ServerConfiguration setLedgerIndexMaxRuns(int maxRuns) {
+        setProperty(LEDGER_INDEX_MAX_RUNS, maxRuns);
+        return this;
+    }
+
+    /**
+     * Get the max number of ledgers whose metadata is cached by the indexed
+     * ledger storage (default 100000).
+     *
+     * @return ledger metadata cache size
+     */
+    public int getLedgerIndexMetadataCacheSize() {
+        return getInt(LEDGER_INDEX_METADATA_CACHE_SIZE, 100000);
+    }
+
+    /**
+     * Set the max number of ledgers whose metadata is cached by the indexed
+     * ledger storage.
+     *
+     * @param cacheSize
+     *          ledger metadata cache size
+     * @return server configuration object.
+     */
+    public ServerConfiguration setLedgerIndexMetadataCacheSize(int cacheSize) {
+        setProperty(LEDGER_INDEX_METADATA_CACHE_SIZE, cacheSize);
+        return this;
+    }
+
     /**
      * Validate the configuration.
      * @throws ConfigurationException
@@ -1145,8 +1875,20 @@ public class ServerConfiguration extends AbstractConfiguration {
         if (getSkipListArenaChunkSize() < getSkipListArenaMaxAllocSize()) {
             throw new ConfigurationException("Arena max allocation size should be smaller than the chunk size.");
         }
-        if (getEntryLogSizeLimit() > MAX_LOG_SIZE_LIMIT) {
-            throw new ConfigurationException("Entry log file size should not be larger than " + MAX_LOG_SIZE_LIMIT);
+        if (isEntryLogMmapReadEnabled()
+                && (getEntryLogMmapRegionSize() <= 0 || getEntryLogMmapRegionSize() > Integer.MAX_VALUE)) {
+            throw new ConfigurationException("Entry log mmap region size should be positive and smaller than 2GB.");
+        }
+        if (getReadAheadMaxBytes() <= 0 || getReadAheadMaxBytes() > Integer.MAX_VALUE) {
+            throw new ConfigurationException("Read ahead max bytes should be positive and smaller than 2GB.");
+        }
+        if (getEntryLocationFormatVersion() != 1 && getEntryLocationFormatVersion() != 2) {
+            throw new ConfigurationException("Unknown entry location format version "
+                    + getEntryLocationFormatVersion());
+        }
+        long maxLogSizeLimit = getEntryLocationFormatVersion() == 1 ? MAX_LOG_SIZE_LIMIT : MAX_LOG_SIZE_LIMIT_V2;
+        if (getEntryLogSizeLimit() > maxLogSizeLimit) {
+            throw new ConfigurationException("Entry log file size should not be larger than " + maxLogSizeLimit);
         }
     }
 
@@ -1260,6 +2002,51 @@ public class ServerConfiguration extends AbstractConfiguration {
         return getBoolean(JOURNAL_FLUSH_WHEN_QUEUE_EMPTY, false);
     }
 
+    /**
+     * Should the journal adapt the group wait and the group size to the measured
+     * force write latency and entry arrival rate? If enabled, the max group wait,
+     * buffered writes threshold and buffered entries threshold only bound the
+     * adapted values.
+     *
+     * @return whether adaptive group commit is enabled.
+     */
+    public boolean getJournalAdaptiveGroupCommitEnabled() {
+        return getBoolean(JOURNAL_ADAPTIVE_GROUP_COMMIT_ENABLED, false);
+    }
+
+    /**
+     * Enable/disable adaptive group commit in the journal.
+     *
+     * @param enabled
+     *          flag to enable/disable adaptive group commit.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalAdaptiveGroupCommitEnabled(boolean enabled) {
+        setProperty(JOURNAL_ADAPTIVE_GROUP_COMMIT_ENABLED, enabled);
+        return this;
+    }
+
+    /**
+     * Add latency the adaptive group commit aims at.
+     *
+     * @return target add latency in milliseconds.
+     */
+    public long getJournalGroupCommitTargetLatencyMSec() {
+        return getLong(JOURNAL_GROUP_COMMIT_TARGET_LATENCY_MSEC, 10);
+    }
+
+    /**
+     * Set the add latency the adaptive group commit aims at.
+     *
+     * @param targetLatencyMSec
+     *          target add latency in milliseconds.
+     * @return server configuration.
+     */
+    public ServerConfiguration setJournalGroupCommitTargetLatencyMSec(long targetLatencyMSec) {
+        setProperty(JOURNAL_GROUP_COMMIT_TARGET_LATENCY_MSEC, targetLatencyMSec);
+        return this;
+    }
+
     /**
      * Should we remove pages from page cache after force write
      *
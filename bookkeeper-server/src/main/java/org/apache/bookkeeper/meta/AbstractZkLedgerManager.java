@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -31,6 +30,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.bookkeeper.client.BKException;
 import org.apache.bookkeeper.client.LedgerMetadata;
@@ -39,6 +40,7 @@ import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.LedgerMetadataListener;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.MultiCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.Processor;
+import org.apache.bookkeeper.util.ConcurrentLongHashSet;
 import org.apache.bookkeeper.versioning.Version;
 import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.AsyncCallback.DataCallback;
@@ -70,11 +72,13 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
     protected final String ledgerRootPath;
     protected final int asyncProcessLedgersConcurrency;
 
-    // A sorted map to stored all active ledger ids
-    protected final SnapshotMap<Long, Boolean> activeLedgers;
+    // A set to store all active ledger ids
+    protected final ConcurrentLongHashSet activeLedgers;
     // ledger metadata listeners
     protected final ConcurrentMap<Long, Set<LedgerMetadataListener>> listeners =
             new ConcurrentHashMap<Long, Set<LedgerMetadataListener>>();
+    // parsed ledger metadata, which is only reused while its znode version is unchanged
+    protected final Cache<Long, LedgerMetadata> metadataCache;
     // we use this to prevent long stack chains from building up in callbacks
     protected final ScheduledExecutorService scheduler;
     protected final ReentrantReadWriteLock closeLock;
@@ -155,7 +159,13 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
         this.zk = zk;
         this.ledgerRootPath = conf.getZkLedgersRootPath();
         this.asyncProcessLedgersConcurrency = conf.getAsyncProcessLedgersConcurrency();
-        this.activeLedgers = new SnapshotMap<Long, Boolean>();
+        this.activeLedgers = new ConcurrentLongHashSet();
+        if (conf.getLedgerMetadataCacheMaxSize() > 0) {
+            this.metadataCache = CacheBuilder.newBuilder()
+                    .maximumSize(conf.getLedgerMetadataCacheMaxSize()).build();
+        } else {
+            this.metadataCache = null;
+        }
         this.scheduler = Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder().setNameFormat("bkc-zkledgermanager-%d").build()
         );
@@ -181,6 +191,45 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
      */
     protected abstract long getLedgerId(String ledgerPath) throws IOException;
 
+    /**
+     * Get a copy of the cached metadata of a ledger, if it was cached at the given
+     * znode version.
+     *
+     * @param ledgerId
+     *          Ledger ID
+     * @param znodeVersion
+     *          Current znode version of the ledger metadata
+     * @return copy of the cached metadata, or null if there is no metadata cached at this version
+     */
+    protected LedgerMetadata getCachedMetadata(long ledgerId, int znodeVersion) {
+        if (null == metadataCache) {
+            return null;
+        }
+        LedgerMetadata cached = metadataCache.getIfPresent(ledgerId);
+        if (null == cached || ((ZkVersion) cached.getVersion()).getZnodeVersion() != znodeVersion) {
+            return null;
+        }
+        // callers modify the metadata they get, so they never share the cached instance
+        LedgerMetadata metadata = new LedgerMetadata(cached);
+        metadata.setVersion(new ZkVersion(znodeVersion));
+        return metadata;
+    }
+
+    protected void cacheMetadata(long ledgerId, LedgerMetadata metadata, int znodeVersion) {
+        if (null == metadataCache) {
+            return;
+        }
+        LedgerMetadata cached = new LedgerMetadata(metadata);
+        cached.setVersion(new ZkVersion(znodeVersion));
+        metadataCache.put(ledgerId, cached);
+    }
+
+    protected void invalidateCachedMetadata(long ledgerId) {
+        if (null != metadataCache) {
+            metadataCache.invalidate(ledgerId);
+        }
+    }
+
     protected void submitTask(Runnable runnable) {
         closeLock.readLock().lock();
         try {
@@ -231,6 +280,7 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
         }
         switch (event.getType()) {
         case NodeDeleted:
+            invalidateCachedMetadata(ledgerId);
             Set<LedgerMetadataListener> listenerSet = listeners.remove(ledgerId);
             if (null != listenerSet) {
                 LOG.debug("Removed ledger metadata listeners on ledger {} : {}",
@@ -241,6 +291,7 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
             }
             break;
         case NodeDataChanged:
+            invalidateCachedMetadata(ledgerId);
             new ReadLedgerMetadataTask(ledgerId).run();
             break;
         default:
@@ -255,6 +306,10 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
             @Override
             public void processResult(int rc, String path, Object ctx) {
                 int bkRc;
+                if (rc == KeeperException.Code.NONODE.intValue()
+                        || rc == KeeperException.Code.OK.intValue()) {
+                    invalidateCachedMetadata(ledgerId);
+                }
                 if (rc == KeeperException.Code.NONODE.intValue()) {
                     LOG.warn("Ledger node does not exist in ZooKeeper: ledgerId={}", ledgerId);
                     bkRc = BKException.Code.NoSuchLedgerExistsException;
@@ -280,21 +335,41 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
     @Override
     public void registerLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener) {
         if (null != listener) {
-            LOG.info("Registered ledger metadata listener {} on ledger {}.", listener, ledgerId);
-            Set<LedgerMetadataListener> listenerSet = listeners.get(ledgerId);
-            if (listenerSet == null) {
-                Set<LedgerMetadataListener> newListenerSet = new HashSet<LedgerMetadataListener>();
-                Set<LedgerMetadataListener> oldListenerSet = listeners.putIfAbsent(ledgerId, newListenerSet);
-                if (null != oldListenerSet) {
-                    listenerSet = oldListenerSet;
-                } else {
-                    listenerSet = newListenerSet;
+            addListener(ledgerId, listener);
+            new ReadLedgerMetadataTask(ledgerId).run();
+        }
+    }
+
+    @Override
+    public void registerLedgerMetadataListener(final long ledgerId, final LedgerMetadataListener listener,
+                                               final GenericCallback<LedgerMetadata> readCb) {
+        addListener(ledgerId, listener);
+        // the read sets the watch notifying the listeners of the following changes
+        readLedgerMetadata(ledgerId, new GenericCallback<LedgerMetadata>() {
+            @Override
+            public void operationComplete(int rc, LedgerMetadata result) {
+                if (BKException.Code.OK != rc) {
+                    unregisterLedgerMetadataListener(ledgerId, listener);
                 }
+                readCb.operationComplete(rc, result);
             }
-            synchronized (listenerSet) {
-                listenerSet.add(listener);
+        }, this);
+    }
+
+    private void addListener(long ledgerId, LedgerMetadataListener listener) {
+        LOG.debug("Registered ledger metadata listener {} on ledger {}.", listener, ledgerId);
+        Set<LedgerMetadataListener> listenerSet = listeners.get(ledgerId);
+        if (listenerSet == null) {
+            Set<LedgerMetadataListener> newListenerSet = new HashSet<LedgerMetadataListener>();
+            Set<LedgerMetadataListener> oldListenerSet = listeners.putIfAbsent(ledgerId, newListenerSet);
+            if (null != oldListenerSet) {
+                listenerSet = oldListenerSet;
+            } else {
+                listenerSet = newListenerSet;
             }
-            new ReadLedgerMetadataTask(ledgerId).run();
+        }
+        synchronized (listenerSet) {
+            listenerSet.add(listener);
         }
     }
 
@@ -304,7 +379,7 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
         if (listenerSet != null) {
             synchronized (listenerSet) {
                 if (listenerSet.remove(listener)) {
-                    LOG.info("Unregistered ledger metadata listener {} on ledger {}.", listener, ledgerId);
+                    LOG.debug("Unregistered ledger metadata listener {} on ledger {}.", listener, ledgerId);
                 }
                 if (listenerSet.isEmpty()) {
                     listeners.remove(ledgerId, listenerSet);
@@ -345,13 +420,16 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
                     return;
                 }
 
-                LedgerMetadata metadata;
-                try {
-                    metadata = LedgerMetadata.parseConfig(data, new ZkVersion(stat.getVersion()));
-                } catch (IOException e) {
-                    LOG.error("Could not parse ledger metadata for ledger {} : {}", ledgerId, e.getMessage());
-                    readCb.operationComplete(BKException.Code.ZKException, null);
-                    return;
+                LedgerMetadata metadata = getCachedMetadata(ledgerId, stat.getVersion());
+                if (null == metadata) {
+                    try {
+                        metadata = LedgerMetadata.parseConfig(data, new ZkVersion(stat.getVersion()));
+                    } catch (IOException e) {
+                        LOG.error("Could not parse ledger metadata for ledger {} : {}", ledgerId, e.getMessage());
+                        readCb.operationComplete(BKException.Code.ZKException, null);
+                        return;
+                    }
+                    cacheMetadata(ledgerId, metadata, stat.getVersion());
                 }
                 readCb.operationComplete(BKException.Code.OK, metadata);
             }
@@ -373,10 +451,12 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
             @Override
             public void processResult(int rc, String path, Object ctx, Stat stat) {
                 if (KeeperException.Code.BadVersion == rc) {
+                    invalidateCachedMetadata(ledgerId);
                     cb.operationComplete(BKException.Code.MetadataVersionException, null);
                 } else if (KeeperException.Code.OK.intValue() == rc) {
                     // update metadata version
                     metadata.setVersion(zv.setZnodeVersion(stat.getVersion()));
+                    cacheMetadata(ledgerId, metadata, stat.getVersion());
                     cb.operationComplete(BKException.Code.OK, null);
                 } else {
                     LOG.warn("Conditional update ledger {}'s metadata failed: rc = {}",
@@ -604,6 +684,9 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
         } finally {
             closeLock.writeLock().unlock();
         }
+        if (null != metadataCache) {
+            metadataCache.invalidateAll();
+        }
         try {
             scheduler.shutdown();
         } catch (Exception e) {
@@ -613,7 +696,7 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
 
     @Override
     public void addActiveLedger(long ledgerId, boolean active) {
-        activeLedgers.put(ledgerId, active);
+        activeLedgers.add(ledgerId);
     }
 
     @Override
@@ -623,7 +706,7 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
 
     @Override
     public boolean containsActiveLedger(long ledgerId) {
-        return activeLedgers.containsKey(ledgerId);
+        return activeLedgers.contains(ledgerId);
     }
 
     /**
@@ -632,16 +715,21 @@ public abstract class AbstractZkLedgerManager implements LedgerManager, ActiveLe
      * @param gc
      *          Garbage collector to do garbage collection when found inactive/deleted ledgers
      * @param bkActiveLedgers
-     *          Active ledgers hosted in bookie server
+     *          Snapshot of the active ledgers hosted in bookie server
+     * @param fromIndex
+     *          Index of the first ledger of the snapshot to check
+     * @param toIndex
+     *          Index after the last ledger of the snapshot to check
      * @param zkAllLedgers
      *          All ledgers stored in zookeeper
      */
-    void doGc(GarbageCollector gc, Map<Long, Boolean> bkActiveLedgers, Set<Long> zkAllLedgers) {
+    void doGc(GarbageCollector gc, long[] bkActiveLedgers, int fromIndex, int toIndex, Set<Long> zkAllLedgers) {
         // remove any active ledgers that doesn't exist in zk
-        for (Long bkLid : bkActiveLedgers.keySet()) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            long bkLid = bkActiveLedgers[i];
             if (!zkAllLedgers.contains(bkLid)) {
                 // remove it from current active ledger
-                bkActiveLedgers.remove(bkLid);
+                activeLedgers.remove(bkLid);
                 gc.gc(bkLid);
             }
         }
@@ -78,6 +78,22 @@ public class CleanupLedgerManager implements LedgerManager {
         underlying.registerLedgerMetadataListener(ledgerId, listener);
     }
 
+    @Override
+    public void registerLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener,
+                                               GenericCallback<LedgerMetadata> readCb) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                readCb.operationComplete(BKException.Code.ClientClosedException, null);
+                return;
+            }
+            underlying.registerLedgerMetadataListener(ledgerId, listener,
+                    new CleanupGenericCallback<LedgerMetadata>(readCb));
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
     @Override
     public void unregisterLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener) {
         underlying.unregisterLedgerMetadataListener(ledgerId, listener);
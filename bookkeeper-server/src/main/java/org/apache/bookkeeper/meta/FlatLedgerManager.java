@@ -19,7 +19,7 @@ package org.apache.bookkeeper.meta;
  */
 
 import java.io.IOException;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Set;
 
 import org.apache.bookkeeper.client.BKException;
@@ -146,13 +146,13 @@ public class FlatLedgerManager extends AbstractZkLedgerManager {
         }
         try {
             // create a snapshot first
-            Map<Long, Boolean> bkActiveLedgers = activeLedgers.snapshot();
+            long[] bkActiveLedgers = activeLedgers.items();
             Set<Long> zkActiveLedgers = getLedgersInSingleNode(ledgerRootPath);
             if (LOG.isDebugEnabled()) {
                 LOG.debug("All active ledgers from ZK: {}. Current active ledgers from Bookie: {}.",
-                    zkActiveLedgers, bkActiveLedgers.keySet());
+                    zkActiveLedgers, Arrays.toString(bkActiveLedgers));
             }
-            doGc(gc, bkActiveLedgers, zkActiveLedgers);
+            doGc(gc, bkActiveLedgers, 0, bkActiveLedgers.length, zkActiveLedgers);
         } catch (IOException ie) {
             LOG.warn("Error during garbage collecting ledgers from " + ledgerRootPath, ie);
         } catch (InterruptedException inte) {
@@ -21,9 +21,8 @@ package org.apache.bookkeeper.meta;
 import java.io.IOException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
 import java.util.Set;
-import java.util.Map;
-import java.util.NavigableMap;
 import java.util.List;
 
 import org.apache.bookkeeper.client.LedgerMetadata;
@@ -324,8 +323,9 @@ public class HierarchicalLedgerManager extends AbstractZkLedgerManager {
             LOG.warn("Skip garbage collecting ledgers because there is no ZooKeeper handle.");
             return;
         }
-        // create a snapshot before garbage collection
-        NavigableMap<Long, Boolean> snapshot = activeLedgers.snapshot();
+        // create a sorted snapshot before garbage collection
+        long[] snapshot = activeLedgers.items();
+        Arrays.sort(snapshot);
         try {
             List<String> l1Nodes = zk.getChildren(ledgerRootPath, null);
             for (String l1Node : l1Nodes) {
@@ -357,12 +357,12 @@ public class HierarchicalLedgerManager extends AbstractZkLedgerManager {
      * @param level2
      *          2nd level node name
      * @param snapshot
-     *          Snapshot of the active ledgers map.
+     *          Sorted snapshot of the active ledgers.
      * @throws IOException
      * @throws InterruptedException
      */
     void doGcByLevel(GarbageCollector gc, final String level1, final String level2,
-                     NavigableMap snapshot)
+                     long[] snapshot)
         throws IOException, InterruptedException {
 
         StringBuilder nodeBuilder = new StringBuilder();
@@ -374,13 +374,32 @@ public class HierarchicalLedgerManager extends AbstractZkLedgerManager {
         // get hosted ledgers in /level1/level2
         long startLedgerId = getStartLedgerIdByLevel(level1, level2);
         long endLedgerId = getEndLedgerIdByLevel(level1, level2);
-        Map<Long, Boolean> bkActiveLedgers = snapshot.subMap(startLedgerId, true, endLedgerId, true);
+        int fromIndex = lowerBound(snapshot, startLedgerId);
+        int toIndex = lowerBound(snapshot, endLedgerId + 1);
         if (LOG.isDebugEnabled()) {
             LOG.debug("For hash node: " + level1 + "/" + level2 + ": All active ledgers from ZK: "
-                      + zkActiveLedgers + ". Current active ledgers from Bookie: "+ bkActiveLedgers);
+                      + zkActiveLedgers + ". Current active ledgers from Bookie: "
+                      + Arrays.toString(Arrays.copyOfRange(snapshot, fromIndex, toIndex)));
         }
 
-        doGc(gc, bkActiveLedgers, zkActiveLedgers);
+        doGc(gc, snapshot, fromIndex, toIndex, zkActiveLedgers);
+    }
+
+    /**
+     * @return the index of the first ledger of the sorted array not lower than <i>ledgerId</i>.
+     */
+    private static int lowerBound(long[] sortedLedgers, long ledgerId) {
+        int low = 0;
+        int high = sortedLedgers.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedLedgers[mid] < ledgerId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
     }
 
     /**
@@ -87,6 +87,22 @@ public interface LedgerManager extends Closeable {
      */
     public abstract void registerLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener);
 
+    /**
+     * Register the ledger metadata <i>listener</i> on <i>ledgerId</i>, and read the
+     * metadata of the ledger. The metadata read is returned to <i>readCb</i> rather
+     * than to the listener, which is notified of the changes following that read.
+     * The listener is unregistered if the metadata can't be read.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param listener
+     *          listener.
+     * @param readCb
+     *          callback when read ledger metadata.
+     */
+    public abstract void registerLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener,
+                                                        GenericCallback<LedgerMetadata> readCb);
+
     /**
      * Unregister the ledger metadata <i>listener</i> on <i>ledgerId</i>.
      *
@@ -65,6 +65,13 @@ public class TimedLedgerManager implements LedgerManager {
         underlying.registerLedgerMetadataListener(ledgerId, listener);
     }
 
+    @Override
+    public void registerLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener,
+                                               GenericCallback<LedgerMetadata> readCb) {
+        underlying.registerLedgerMetadataListener(ledgerId, listener,
+                new TimedGenericCallback<LedgerMetadata>(readCb, BKException.Code.OK, readStats));
+    }
+
     @Override
     public void unregisterLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener) {
         underlying.unregisterLedgerMetadataListener(ledgerId, listener);
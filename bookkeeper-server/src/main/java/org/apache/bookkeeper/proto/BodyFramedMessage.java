@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.proto;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.google.protobuf.MessageLite;
+
+/**
+ * A version 3 protocol message whose entry bodies are framed apart from it.
+ *
+ * <p>
+ * The protobuf message carries the header and the metadata of a request or a response,
+ * with its body fields left empty, while the entry bodies travel as channel buffers
+ * following it in the same frame. The bodies are composed into the outgoing frame and
+ * sliced out of the incoming one, rather than copied in and out of protobuf byte strings.
+ * </p>
+ *
+ * @see BookieProtoEncoding
+ */
+class BodyFramedMessage<M extends MessageLite> {
+
+    private final M message;
+    private final List<ChannelBuffer> bodies;
+
+    BodyFramedMessage(M message) {
+        this(message, Collections.<ChannelBuffer>emptyList());
+    }
+
+    BodyFramedMessage(M message, List<ChannelBuffer> bodies) {
+        this.message = message;
+        this.bodies = bodies;
+    }
+
+    M getMessage() {
+        return message;
+    }
+
+    /**
+     * @return entry bodies of the message, in the order of the entries of the message.
+     */
+    List<ChannelBuffer> getBodies() {
+        return bodies;
+    }
+
+    @Override
+    public String toString() {
+        return message + " with " + bodies.size() + " bodies";
+    }
+}
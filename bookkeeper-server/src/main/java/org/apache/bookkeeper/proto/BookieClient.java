@@ -48,6 +48,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
@@ -236,6 +237,49 @@ public class BookieClient implements PerChannelBookieClientFactory {
         }
     }
 
+    /**
+     * Add consecutive entries of a ledger with a single range add request. The
+     * callback is invoked once per entry.
+     */
+    public void addEntries(final BookieSocketAddress addr,
+                           final long ledgerId,
+                           final byte[] masterKey,
+                           final long firstEntryId,
+                           final List<ChannelBuffer> toSend,
+                           final WriteCallback cb,
+                           final Object ctx,
+                           final int options) {
+        closeLock.readLock().lock();
+        try {
+            final PerChannelBookieClientPool client = lookupClient(addr, firstEntryId);
+            if (client == null) {
+                completeWrites(BKException.Code.BookieHandleNotAvailableException,
+                               ledgerId, firstEntryId, toSend.size(), addr, cb, ctx);
+                return;
+            }
+
+            client.obtain(new GenericCallback<PerChannelBookieClient>() {
+                @Override
+                public void operationComplete(final int rc, PerChannelBookieClient pcbc) {
+                    if (rc != BKException.Code.OK) {
+                        completeWrites(rc, ledgerId, firstEntryId, toSend.size(), addr, cb, ctx);
+                        return;
+                    }
+                    pcbc.addEntries(ledgerId, masterKey, firstEntryId, toSend, cb, ctx, options);
+                }
+            });
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void completeWrites(int rc, long ledgerId, long firstEntryId, int numEntries,
+                                BookieSocketAddress addr, WriteCallback cb, Object ctx) {
+        for (int i = 0; i < numEntries; i++) {
+            completeWrite(rc, ledgerId, firstEntryId + i, addr, cb, ctx);
+        }
+    }
+
     private void completeRead(final int rc,
                               final long ledgerId,
                               final long entryId,
@@ -315,6 +359,91 @@ public class BookieClient implements PerChannelBookieClientFactory {
         }
     }
 
+    public void readEntries(final BookieSocketAddress addr,
+                            final long ledgerId,
+                            final long firstEntryId,
+                            final int numEntries,
+                            final ReadEntryCallback cb,
+                            final Object ctx) {
+        closeLock.readLock().lock();
+        try {
+            final PerChannelBookieClientPool client = lookupClient(addr, firstEntryId);
+            if (client == null) {
+                completeReads(BKException.Code.BookieHandleNotAvailableException,
+                              ledgerId, firstEntryId, numEntries, cb, ctx);
+                return;
+            }
+
+            client.obtain(new GenericCallback<PerChannelBookieClient>() {
+                @Override
+                public void operationComplete(final int rc, PerChannelBookieClient pcbc) {
+
+                    if (rc != BKException.Code.OK) {
+                        completeReads(rc, ledgerId, firstEntryId, numEntries, cb, ctx);
+                        return;
+                    }
+                    pcbc.readEntries(ledgerId, firstEntryId, numEntries, cb, ctx);
+                }
+            });
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether the entries <i>entryIds</i> of ledger <i>ledgerId</i> are stored by
+     * bookie <i>addr</i>, looking them up in its index only. The callback is invoked once
+     * per entry, without entry data.
+     *
+     * @see PerChannelBookieClient#checkEntries(long, List, ReadEntryCallback, Object)
+     */
+    public void checkEntries(final BookieSocketAddress addr,
+                             final long ledgerId,
+                             final List<Long> entryIds,
+                             final ReadEntryCallback cb,
+                             final Object ctx) {
+        if (entryIds.isEmpty()) {
+            return;
+        }
+        closeLock.readLock().lock();
+        try {
+            final PerChannelBookieClientPool client = lookupClient(addr, entryIds.get(0));
+            if (client == null) {
+                completeChecks(BKException.Code.BookieHandleNotAvailableException,
+                               ledgerId, entryIds, cb, ctx);
+                return;
+            }
+
+            client.obtain(new GenericCallback<PerChannelBookieClient>() {
+                @Override
+                public void operationComplete(final int rc, PerChannelBookieClient pcbc) {
+
+                    if (rc != BKException.Code.OK) {
+                        completeChecks(rc, ledgerId, entryIds, cb, ctx);
+                        return;
+                    }
+                    pcbc.checkEntries(ledgerId, entryIds, cb, ctx);
+                }
+            });
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void completeChecks(int rc, long ledgerId, List<Long> entryIds,
+                                ReadEntryCallback cb, Object ctx) {
+        for (long entryId : entryIds) {
+            completeRead(rc, ledgerId, entryId, null, cb, ctx);
+        }
+    }
+
+    private void completeReads(int rc, long ledgerId, long firstEntryId, int numEntries,
+                               ReadEntryCallback cb, Object ctx) {
+        for (int i = 0; i < numEntries; i++) {
+            completeRead(rc, ledgerId, firstEntryId + i, null, cb, ctx);
+        }
+    }
+
     public void readEntryWaitForLACUpdate(final BookieSocketAddress addr,
                                           final long ledgerId,
                                           final long entryId,
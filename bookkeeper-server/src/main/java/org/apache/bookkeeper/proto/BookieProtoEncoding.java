@@ -20,21 +20,28 @@
  */
 package org.apache.bookkeeper.proto;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.bookkeeper.proto.BookieProtocol.PacketHeader;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.Response;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBufferFactory;
 import org.jboss.netty.buffer.ChannelBufferInputStream;
+import org.jboss.netty.buffer.ChannelBufferOutputStream;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.frame.LengthFieldPrepender;
 import org.jboss.netty.handler.codec.oneone.OneToOneDecoder;
 import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
 
 public class BookieProtoEncoding {
     static final Logger LOG = LoggerFactory.getLogger(BookieProtoEncoding.class);
@@ -44,6 +51,13 @@ public class BookieProtoEncoding {
     static final EnDecoder REQ_V3 = new RequestEnDecoderV3();
     static final EnDecoder REP_V3 = new ResponseEnDecoderV3();
 
+    /**
+     * First byte of a frame holding a {@link BodyFramedMessage}. A version 3 protobuf
+     * message starts with the tag of its header, and a pre-v3 packet with its protocol
+     * version, so neither of them starts with this byte.
+     */
+    static final byte BODY_FRAMED_V3 = (byte) 0xb3;
+
     public static interface EnDecoder {
         /**
          * Decode a <i>packet</i> into an object.
@@ -201,15 +215,81 @@ public class BookieProtoEncoding {
 
     }
 
+    static boolean isBodyFramed(ChannelBuffer packet) {
+        return packet.readable() && BODY_FRAMED_V3 == packet.getByte(packet.readerIndex());
+    }
+
+    /**
+     * Encode a body framed message. The frame is laid out as:
+     * <pre>
+     * BODY_FRAMED_V3 | message size | message | number of bodies | size of each body | bodies
+     * </pre>
+     * The bodies are composed into the frame without being copied.
+     */
+    static ChannelBuffer encodeBodyFramed(BodyFramedMessage<?> msg, ChannelBufferFactory factory)
+            throws IOException {
+        MessageLite message = msg.getMessage();
+        List<ChannelBuffer> bodies = msg.getBodies();
+        int messageSize = message.getSerializedSize();
+        ChannelBuffer header = factory.getBuffer(1 + 4 + messageSize + 4 + 4 * bodies.size());
+        header.writeByte(BODY_FRAMED_V3);
+        header.writeInt(messageSize);
+        message.writeTo(new ChannelBufferOutputStream(header));
+        header.writeInt(bodies.size());
+        for (ChannelBuffer body : bodies) {
+            header.writeInt(body.readableBytes());
+        }
+        ChannelBuffer[] buffers = new ChannelBuffer[bodies.size() + 1];
+        buffers[0] = header;
+        for (int i = 0; i < bodies.size(); i++) {
+            buffers[i + 1] = bodies.get(i);
+        }
+        return ChannelBuffers.wrappedBuffer(buffers);
+    }
+
+    /**
+     * Read the message of a body framed packet, leaving the packet at its bodies.
+     *
+     * @see #encodeBodyFramed(BodyFramedMessage, ChannelBufferFactory)
+     */
+    static ChannelBufferInputStream readBodyFramedMessage(ChannelBuffer packet) {
+        packet.skipBytes(1);
+        int messageSize = packet.readInt();
+        return new ChannelBufferInputStream(packet.readSlice(messageSize));
+    }
+
+    /**
+     * Slice the bodies of a body framed packet, whose message was read already.
+     */
+    static List<ChannelBuffer> readBodies(ChannelBuffer packet) {
+        int numBodies = packet.readInt();
+        int[] bodySizes = new int[numBodies];
+        for (int i = 0; i < numBodies; i++) {
+            bodySizes[i] = packet.readInt();
+        }
+        List<ChannelBuffer> bodies = new ArrayList<ChannelBuffer>(numBodies);
+        for (int bodySize : bodySizes) {
+            bodies.add(packet.readSlice(bodySize));
+        }
+        return bodies;
+    }
+
     static class RequestEnDecoderV3 implements EnDecoder {
 
         @Override
         public Object decode(ChannelBuffer packet) throws Exception {
+            if (isBodyFramed(packet)) {
+                Request request = Request.parseFrom(readBodyFramedMessage(packet));
+                return new BodyFramedMessage<Request>(request, readBodies(packet));
+            }
             return Request.parseFrom(new ChannelBufferInputStream(packet));
         }
 
         @Override
         public Object encode(Object msg, ChannelBufferFactory factory) throws Exception {
+            if (msg instanceof BodyFramedMessage) {
+                return encodeBodyFramed((BodyFramedMessage<?>) msg, factory);
+            }
             Request request = (Request) msg;
             return ChannelBuffers.wrappedBuffer(request.toByteArray());
         }
@@ -220,11 +300,18 @@ public class BookieProtoEncoding {
 
         @Override
         public Object decode(ChannelBuffer packet) throws Exception {
+            if (isBodyFramed(packet)) {
+                Response response = Response.parseFrom(readBodyFramedMessage(packet));
+                return new BodyFramedMessage<Response>(response, readBodies(packet));
+            }
             return Response.parseFrom(new ChannelBufferInputStream(packet));
         }
 
         @Override
         public Object encode(Object msg, ChannelBufferFactory factory) throws Exception {
+            if (msg instanceof BodyFramedMessage) {
+                return encodeBodyFramed((BodyFramedMessage<?>) msg, factory);
+            }
             Response response = (Response) msg;
             return ChannelBuffers.wrappedBuffer(response.toByteArray());
         }
@@ -239,7 +326,14 @@ public class BookieProtoEncoding {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Encode request {} to channel {}.", msg, channel);
             }
-            if (msg instanceof BookkeeperProtocol.Request) {
+            if (msg instanceof CoalescedRequests) {
+                List<Object> requests = ((CoalescedRequests) msg).getMessages();
+                List<Object> encoded = new ArrayList<Object>(requests.size());
+                for (Object request : requests) {
+                    encoded.add(encode(ctx, channel, request));
+                }
+                return new CoalescedRequests(encoded);
+            } else if (msg instanceof BookkeeperProtocol.Request || msg instanceof BodyFramedMessage) {
                 return REQ_V3.encode(msg, ctx.getChannel().getConfig().getBufferFactory());
             } else if (msg instanceof BookieProtocol.Request) {
                 return REQ_PREV3.encode(msg, ctx.getChannel().getConfig().getBufferFactory());
@@ -250,6 +344,31 @@ public class BookieProtoEncoding {
         }
     }
 
+    /**
+     * Length field prepender which also frames each of {@link CoalescedRequests encoded
+     * coalesced requests}, composing the frames into a single buffer.
+     */
+    public static class CoalescedLengthFieldPrepender extends LengthFieldPrepender {
+
+        public CoalescedLengthFieldPrepender(int lengthFieldLength) {
+            super(lengthFieldLength);
+        }
+
+        @Override
+        protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg)
+                throws Exception {
+            if (!(msg instanceof CoalescedRequests)) {
+                return super.encode(ctx, channel, msg);
+            }
+            List<Object> requests = ((CoalescedRequests) msg).getMessages();
+            ChannelBuffer[] frames = new ChannelBuffer[requests.size()];
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = (ChannelBuffer) super.encode(ctx, channel, requests.get(i));
+            }
+            return ChannelBuffers.wrappedBuffer(frames);
+        }
+    }
+
     public static class RequestDecoder extends OneToOneDecoder {
         @Override
         public Object decode(ChannelHandlerContext ctx, Channel channel, Object msg)
@@ -283,7 +402,7 @@ public class BookieProtoEncoding {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Encode response {} to channel {}.", msg, channel);
             }
-            if (msg instanceof Response) {
+            if (msg instanceof Response || msg instanceof BodyFramedMessage) {
                 return REP_V3.encode(msg, ctx.getChannel().getConfig().getBufferFactory());
             } else if (msg instanceof BookieProtocol.Response) {
                 return REP_PREV3.encode(msg, ctx.getChannel().getConfig().getBufferFactory());
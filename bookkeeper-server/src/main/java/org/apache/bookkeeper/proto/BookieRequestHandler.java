@@ -82,7 +82,8 @@ class BookieRequestHandler extends SimpleChannelHandler {
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
         Object event = e.getMessage();
-        if (!(event instanceof BookkeeperProtocol.Request || event instanceof BookieProtocol.Request)) {
+        if (!(event instanceof BookkeeperProtocol.Request || event instanceof BookieProtocol.Request
+                || event instanceof BodyFramedMessage)) {
             ctx.sendUpstream(e);
             return;
         }
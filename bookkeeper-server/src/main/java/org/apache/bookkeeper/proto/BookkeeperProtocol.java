@@ -176,12 +176,14 @@ public final class BookkeeperProtocol {
     ADD_ENTRY(1, 2),
     RANGE_READ_ENTRY(2, 3),
     RANGE_ADD_ENTRY(3, 4),
+    CHECK_ENTRIES(4, 5),
     ;
     
     public static final int READ_ENTRY_VALUE = 1;
     public static final int ADD_ENTRY_VALUE = 2;
     public static final int RANGE_READ_ENTRY_VALUE = 3;
     public static final int RANGE_ADD_ENTRY_VALUE = 4;
+    public static final int CHECK_ENTRIES_VALUE = 5;
     
     
     public final int getNumber() { return value; }
@@ -192,6 +194,7 @@ public final class BookkeeperProtocol {
         case 2: return ADD_ENTRY;
         case 3: return RANGE_READ_ENTRY;
         case 4: return RANGE_ADD_ENTRY;
+        case 5: return CHECK_ENTRIES;
         default: return null;
       }
     }
@@ -222,7 +225,7 @@ public final class BookkeeperProtocol {
     }
     
     private static final OperationType[] VALUES = {
-      READ_ENTRY, ADD_ENTRY, RANGE_READ_ENTRY, RANGE_ADD_ENTRY, 
+      READ_ENTRY, ADD_ENTRY, RANGE_READ_ENTRY, RANGE_ADD_ENTRY, CHECK_ENTRIES, 
     };
     
     public static OperationType valueOf(
@@ -756,6 +759,16 @@ public final class BookkeeperProtocol {
     boolean hasAddRequest();
     org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest getAddRequest();
     org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequestOrBuilder getAddRequestOrBuilder();
+    
+    // optional .RangeAddRequest rangeAddRequest = 102;
+    boolean hasRangeAddRequest();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest getRangeAddRequest();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequestOrBuilder getRangeAddRequestOrBuilder();
+    
+    // optional .CheckEntriesRequest checkEntriesRequest = 103;
+    boolean hasCheckEntriesRequest();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest getCheckEntriesRequest();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequestOrBuilder getCheckEntriesRequestOrBuilder();
   }
   public static final class Request extends
       com.google.protobuf.GeneratedMessage
@@ -825,10 +838,38 @@ public final class BookkeeperProtocol {
       return addRequest_;
     }
     
+    // optional .RangeAddRequest rangeAddRequest = 102;
+    public static final int RANGEADDREQUEST_FIELD_NUMBER = 102;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest rangeAddRequest_;
+    public boolean hasRangeAddRequest() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest getRangeAddRequest() {
+      return rangeAddRequest_;
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequestOrBuilder getRangeAddRequestOrBuilder() {
+      return rangeAddRequest_;
+    }
+    
+    // optional .CheckEntriesRequest checkEntriesRequest = 103;
+    public static final int CHECKENTRIESREQUEST_FIELD_NUMBER = 103;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest checkEntriesRequest_;
+    public boolean hasCheckEntriesRequest() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest getCheckEntriesRequest() {
+      return checkEntriesRequest_;
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequestOrBuilder getCheckEntriesRequestOrBuilder() {
+      return checkEntriesRequest_;
+    }
+    
     private void initFields() {
       header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
       readRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadRequest.getDefaultInstance();
       addRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.getDefaultInstance();
+      rangeAddRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.getDefaultInstance();
+      checkEntriesRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.getDefaultInstance();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -855,6 +896,18 @@ public final class BookkeeperProtocol {
           return false;
         }
       }
+      if (hasRangeAddRequest()) {
+        if (!getRangeAddRequest().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      if (hasCheckEntriesRequest()) {
+        if (!getCheckEntriesRequest().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
       memoizedIsInitialized = 1;
       return true;
     }
@@ -871,6 +924,12 @@ public final class BookkeeperProtocol {
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
         output.writeMessage(101, addRequest_);
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeMessage(102, rangeAddRequest_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeMessage(103, checkEntriesRequest_);
+      }
       getUnknownFields().writeTo(output);
     }
     
@@ -892,6 +951,14 @@ public final class BookkeeperProtocol {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(101, addRequest_);
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(102, rangeAddRequest_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(103, checkEntriesRequest_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -1011,6 +1078,8 @@ public final class BookkeeperProtocol {
           getHeaderFieldBuilder();
           getReadRequestFieldBuilder();
           getAddRequestFieldBuilder();
+          getRangeAddRequestFieldBuilder();
+          getCheckEntriesRequestFieldBuilder();
         }
       }
       private static Builder create() {
@@ -1037,6 +1106,18 @@ public final class BookkeeperProtocol {
           addRequestBuilder_.clear();
         }
         bitField0_ = (bitField0_ & ~0x00000004);
+        if (rangeAddRequestBuilder_ == null) {
+          rangeAddRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.getDefaultInstance();
+        } else {
+          rangeAddRequestBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000008);
+        if (checkEntriesRequestBuilder_ == null) {
+          checkEntriesRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.getDefaultInstance();
+        } else {
+          checkEntriesRequestBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000010);
         return this;
       }
       
@@ -1099,6 +1180,22 @@ public final class BookkeeperProtocol {
         } else {
           result.addRequest_ = addRequestBuilder_.build();
         }
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        if (rangeAddRequestBuilder_ == null) {
+          result.rangeAddRequest_ = rangeAddRequest_;
+        } else {
+          result.rangeAddRequest_ = rangeAddRequestBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        if (checkEntriesRequestBuilder_ == null) {
+          result.checkEntriesRequest_ = checkEntriesRequest_;
+        } else {
+          result.checkEntriesRequest_ = checkEntriesRequestBuilder_.build();
+        }
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -1124,6 +1221,12 @@ public final class BookkeeperProtocol {
         if (other.hasAddRequest()) {
           mergeAddRequest(other.getAddRequest());
         }
+        if (other.hasRangeAddRequest()) {
+          mergeRangeAddRequest(other.getRangeAddRequest());
+        }
+        if (other.hasCheckEntriesRequest()) {
+          mergeCheckEntriesRequest(other.getCheckEntriesRequest());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -1149,6 +1252,18 @@ public final class BookkeeperProtocol {
             return false;
           }
         }
+        if (hasRangeAddRequest()) {
+          if (!getRangeAddRequest().isInitialized()) {
+            
+            return false;
+          }
+        }
+        if (hasCheckEntriesRequest()) {
+          if (!getCheckEntriesRequest().isInitialized()) {
+            
+            return false;
+          }
+        }
         return true;
       }
       
@@ -1202,6 +1317,24 @@ public final class BookkeeperProtocol {
               setAddRequest(subBuilder.buildPartial());
               break;
             }
+            case 818: {
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.newBuilder();
+              if (hasRangeAddRequest()) {
+                subBuilder.mergeFrom(getRangeAddRequest());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setRangeAddRequest(subBuilder.buildPartial());
+              break;
+            }
+            case 826: {
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.newBuilder();
+              if (hasCheckEntriesRequest()) {
+                subBuilder.mergeFrom(getCheckEntriesRequest());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setCheckEntriesRequest(subBuilder.buildPartial());
+              break;
+            }
           }
         }
       }
@@ -1478,6 +1611,186 @@ public final class BookkeeperProtocol {
         return addRequestBuilder_;
       }
       
+      // optional .RangeAddRequest rangeAddRequest = 102;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest rangeAddRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequestOrBuilder> rangeAddRequestBuilder_;
+      public boolean hasRangeAddRequest() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest getRangeAddRequest() {
+        if (rangeAddRequestBuilder_ == null) {
+          return rangeAddRequest_;
+        } else {
+          return rangeAddRequestBuilder_.getMessage();
+        }
+      }
+      public Builder setRangeAddRequest(org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest value) {
+        if (rangeAddRequestBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          rangeAddRequest_ = value;
+          onChanged();
+        } else {
+          rangeAddRequestBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      public Builder setRangeAddRequest(
+          org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.Builder builderForValue) {
+        if (rangeAddRequestBuilder_ == null) {
+          rangeAddRequest_ = builderForValue.build();
+          onChanged();
+        } else {
+          rangeAddRequestBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      public Builder mergeRangeAddRequest(org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest value) {
+        if (rangeAddRequestBuilder_ == null) {
+          if (((bitField0_ & 0x00000008) == 0x00000008) &&
+              rangeAddRequest_ != org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.getDefaultInstance()) {
+            rangeAddRequest_ =
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.newBuilder(rangeAddRequest_).mergeFrom(value).buildPartial();
+          } else {
+            rangeAddRequest_ = value;
+          }
+          onChanged();
+        } else {
+          rangeAddRequestBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      public Builder clearRangeAddRequest() {
+        if (rangeAddRequestBuilder_ == null) {
+          rangeAddRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.getDefaultInstance();
+          onChanged();
+        } else {
+          rangeAddRequestBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.Builder getRangeAddRequestBuilder() {
+        bitField0_ |= 0x00000008;
+        onChanged();
+        return getRangeAddRequestFieldBuilder().getBuilder();
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequestOrBuilder getRangeAddRequestOrBuilder() {
+        if (rangeAddRequestBuilder_ != null) {
+          return rangeAddRequestBuilder_.getMessageOrBuilder();
+        } else {
+          return rangeAddRequest_;
+        }
+      }
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequestOrBuilder> 
+          getRangeAddRequestFieldBuilder() {
+        if (rangeAddRequestBuilder_ == null) {
+          rangeAddRequestBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequestOrBuilder>(
+                  rangeAddRequest_,
+                  getParentForChildren(),
+                  isClean());
+          rangeAddRequest_ = null;
+        }
+        return rangeAddRequestBuilder_;
+      }
+      
+      // optional .CheckEntriesRequest checkEntriesRequest = 103;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest checkEntriesRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequestOrBuilder> checkEntriesRequestBuilder_;
+      public boolean hasCheckEntriesRequest() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest getCheckEntriesRequest() {
+        if (checkEntriesRequestBuilder_ == null) {
+          return checkEntriesRequest_;
+        } else {
+          return checkEntriesRequestBuilder_.getMessage();
+        }
+      }
+      public Builder setCheckEntriesRequest(org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest value) {
+        if (checkEntriesRequestBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          checkEntriesRequest_ = value;
+          onChanged();
+        } else {
+          checkEntriesRequestBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
+      public Builder setCheckEntriesRequest(
+          org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.Builder builderForValue) {
+        if (checkEntriesRequestBuilder_ == null) {
+          checkEntriesRequest_ = builderForValue.build();
+          onChanged();
+        } else {
+          checkEntriesRequestBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
+      public Builder mergeCheckEntriesRequest(org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest value) {
+        if (checkEntriesRequestBuilder_ == null) {
+          if (((bitField0_ & 0x00000010) == 0x00000010) &&
+              checkEntriesRequest_ != org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.getDefaultInstance()) {
+            checkEntriesRequest_ =
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.newBuilder(checkEntriesRequest_).mergeFrom(value).buildPartial();
+          } else {
+            checkEntriesRequest_ = value;
+          }
+          onChanged();
+        } else {
+          checkEntriesRequestBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
+      public Builder clearCheckEntriesRequest() {
+        if (checkEntriesRequestBuilder_ == null) {
+          checkEntriesRequest_ = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.getDefaultInstance();
+          onChanged();
+        } else {
+          checkEntriesRequestBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000010);
+        return this;
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.Builder getCheckEntriesRequestBuilder() {
+        bitField0_ |= 0x00000010;
+        onChanged();
+        return getCheckEntriesRequestFieldBuilder().getBuilder();
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequestOrBuilder getCheckEntriesRequestOrBuilder() {
+        if (checkEntriesRequestBuilder_ != null) {
+          return checkEntriesRequestBuilder_.getMessageOrBuilder();
+        } else {
+          return checkEntriesRequest_;
+        }
+      }
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequestOrBuilder> 
+          getCheckEntriesRequestFieldBuilder() {
+        if (checkEntriesRequestBuilder_ == null) {
+          checkEntriesRequestBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequestOrBuilder>(
+                  checkEntriesRequest_,
+                  getParentForChildren(),
+                  isClean());
+          checkEntriesRequest_ = null;
+        }
+        return checkEntriesRequestBuilder_;
+      }
+      
       // @@protoc_insertion_point(builder_scope:Request)
     }
     
@@ -1515,6 +1828,10 @@ public final class BookkeeperProtocol {
     // optional int64 timeOut = 5;
     boolean hasTimeOut();
     long getTimeOut();
+    
+    // optional int32 numEntries = 6;
+    boolean hasNumEntries();
+    int getNumEntries();
   }
   public static final class ReadRequest extends
       com.google.protobuf.GeneratedMessage
@@ -1674,6 +1991,16 @@ public final class BookkeeperProtocol {
       return timeOut_;
     }
     
+    // optional int32 numEntries = 6;
+    public static final int NUMENTRIES_FIELD_NUMBER = 6;
+    private int numEntries_;
+    public boolean hasNumEntries() {
+      return ((bitField0_ & 0x00000040) == 0x00000040);
+    }
+    public int getNumEntries() {
+      return numEntries_;
+    }
+    
     private void initFields() {
       flag_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadRequest.Flag.FENCE_LEDGER;
       ledgerId_ = 0L;
@@ -1681,6 +2008,7 @@ public final class BookkeeperProtocol {
       masterKey_ = com.google.protobuf.ByteString.EMPTY;
       previousLAC_ = 0L;
       timeOut_ = 0L;
+      numEntries_ = 0;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -1717,6 +2045,9 @@ public final class BookkeeperProtocol {
       if (((bitField0_ & 0x00000020) == 0x00000020)) {
         output.writeInt64(5, timeOut_);
       }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        output.writeInt32(6, numEntries_);
+      }
       if (((bitField0_ & 0x00000001) == 0x00000001)) {
         output.writeEnum(100, flag_.getNumber());
       }
@@ -1749,6 +2080,10 @@ public final class BookkeeperProtocol {
         size += com.google.protobuf.CodedOutputStream
           .computeInt64Size(5, timeOut_);
       }
+      if (((bitField0_ & 0x00000040) == 0x00000040)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(6, numEntries_);
+      }
       if (((bitField0_ & 0x00000001) == 0x00000001)) {
         size += com.google.protobuf.CodedOutputStream
           .computeEnumSize(100, flag_.getNumber());
@@ -1889,6 +2224,8 @@ public final class BookkeeperProtocol {
         bitField0_ = (bitField0_ & ~0x00000010);
         timeOut_ = 0L;
         bitField0_ = (bitField0_ & ~0x00000020);
+        numEntries_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000040);
         return this;
       }
       
@@ -1951,6 +2288,10 @@ public final class BookkeeperProtocol {
           to_bitField0_ |= 0x00000020;
         }
         result.timeOut_ = timeOut_;
+        if (((from_bitField0_ & 0x00000040) == 0x00000040)) {
+          to_bitField0_ |= 0x00000040;
+        }
+        result.numEntries_ = numEntries_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -1985,6 +2326,9 @@ public final class BookkeeperProtocol {
         if (other.hasTimeOut()) {
           setTimeOut(other.getTimeOut());
         }
+        if (other.hasNumEntries()) {
+          setNumEntries(other.getNumEntries());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -2049,6 +2393,11 @@ public final class BookkeeperProtocol {
               timeOut_ = input.readInt64();
               break;
             }
+            case 48: {
+              bitField0_ |= 0x00000040;
+              numEntries_ = input.readInt32();
+              break;
+            }
             case 800: {
               int rawValue = input.readEnum();
               org.apache.bookkeeper.proto.BookkeeperProtocol.ReadRequest.Flag value = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadRequest.Flag.valueOf(rawValue);
@@ -2198,6 +2547,27 @@ public final class BookkeeperProtocol {
         return this;
       }
       
+      // optional int32 numEntries = 6;
+      private int numEntries_ ;
+      public boolean hasNumEntries() {
+        return ((bitField0_ & 0x00000040) == 0x00000040);
+      }
+      public int getNumEntries() {
+        return numEntries_;
+      }
+      public Builder setNumEntries(int value) {
+        bitField0_ |= 0x00000040;
+        numEntries_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearNumEntries() {
+        bitField0_ = (bitField0_ & ~0x00000040);
+        numEntries_ = 0;
+        onChanged();
+        return this;
+      }
+      
       // @@protoc_insertion_point(builder_scope:ReadRequest)
     }
     
@@ -2888,141 +3258,137 @@ public final class BookkeeperProtocol {
     // @@protoc_insertion_point(class_scope:AddRequest)
   }
   
-  public interface ResponseOrBuilder
+  public interface RangeAddRequestOrBuilder
       extends com.google.protobuf.MessageOrBuilder {
     
-    // required .BKPacketHeader header = 1;
-    boolean hasHeader();
-    org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader getHeader();
-    org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder getHeaderOrBuilder();
+    // optional .AddRequest.Flag flag = 100;
+    boolean hasFlag();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag getFlag();
     
-    // required .StatusCode status = 2;
-    boolean hasStatus();
-    org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus();
+    // required int64 ledgerId = 1;
+    boolean hasLedgerId();
+    long getLedgerId();
     
-    // optional .ReadResponse readResponse = 100;
-    boolean hasReadResponse();
-    org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse getReadResponse();
-    org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder getReadResponseOrBuilder();
+    // required int64 firstEntryId = 2;
+    boolean hasFirstEntryId();
+    long getFirstEntryId();
     
-    // optional .AddResponse addResponse = 101;
-    boolean hasAddResponse();
-    org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse getAddResponse();
-    org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder getAddResponseOrBuilder();
+    // required bytes masterKey = 3;
+    boolean hasMasterKey();
+    com.google.protobuf.ByteString getMasterKey();
+    
+    // repeated bytes body = 4;
+    java.util.List<com.google.protobuf.ByteString> getBodyList();
+    int getBodyCount();
+    com.google.protobuf.ByteString getBody(int index);
   }
-  public static final class Response extends
+  public static final class RangeAddRequest extends
       com.google.protobuf.GeneratedMessage
-      implements ResponseOrBuilder {
-    // Use Response.newBuilder() to construct.
-    private Response(Builder builder) {
+      implements RangeAddRequestOrBuilder {
+    // Use RangeAddRequest.newBuilder() to construct.
+    private RangeAddRequest(Builder builder) {
       super(builder);
     }
-    private Response(boolean noInit) {}
+    private RangeAddRequest(boolean noInit) {}
     
-    private static final Response defaultInstance;
-    public static Response getDefaultInstance() {
+    private static final RangeAddRequest defaultInstance;
+    public static RangeAddRequest getDefaultInstance() {
       return defaultInstance;
     }
     
-    public Response getDefaultInstanceForType() {
+    public RangeAddRequest getDefaultInstanceForType() {
       return defaultInstance;
     }
     
     public static final com.google.protobuf.Descriptors.Descriptor
         getDescriptor() {
-      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_Response_descriptor;
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_RangeAddRequest_descriptor;
     }
     
     protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
         internalGetFieldAccessorTable() {
-      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_Response_fieldAccessorTable;
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_RangeAddRequest_fieldAccessorTable;
     }
     
     private int bitField0_;
-    // required .BKPacketHeader header = 1;
-    public static final int HEADER_FIELD_NUMBER = 1;
-    private org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader header_;
-    public boolean hasHeader() {
+    // optional .AddRequest.Flag flag = 100;
+    public static final int FLAG_FIELD_NUMBER = 100;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag flag_;
+    public boolean hasFlag() {
       return ((bitField0_ & 0x00000001) == 0x00000001);
     }
-    public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader getHeader() {
-      return header_;
-    }
-    public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder getHeaderOrBuilder() {
-      return header_;
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag getFlag() {
+      return flag_;
     }
     
-    // required .StatusCode status = 2;
-    public static final int STATUS_FIELD_NUMBER = 2;
-    private org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode status_;
-    public boolean hasStatus() {
+    // required int64 ledgerId = 1;
+    public static final int LEDGERID_FIELD_NUMBER = 1;
+    private long ledgerId_;
+    public boolean hasLedgerId() {
       return ((bitField0_ & 0x00000002) == 0x00000002);
     }
-    public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus() {
-      return status_;
+    public long getLedgerId() {
+      return ledgerId_;
     }
     
-    // optional .ReadResponse readResponse = 100;
-    public static final int READRESPONSE_FIELD_NUMBER = 100;
-    private org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse readResponse_;
-    public boolean hasReadResponse() {
+    // required int64 firstEntryId = 2;
+    public static final int FIRSTENTRYID_FIELD_NUMBER = 2;
+    private long firstEntryId_;
+    public boolean hasFirstEntryId() {
       return ((bitField0_ & 0x00000004) == 0x00000004);
     }
-    public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse getReadResponse() {
-      return readResponse_;
-    }
-    public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder getReadResponseOrBuilder() {
-      return readResponse_;
+    public long getFirstEntryId() {
+      return firstEntryId_;
     }
     
-    // optional .AddResponse addResponse = 101;
-    public static final int ADDRESPONSE_FIELD_NUMBER = 101;
-    private org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse addResponse_;
-    public boolean hasAddResponse() {
+    // required bytes masterKey = 3;
+    public static final int MASTERKEY_FIELD_NUMBER = 3;
+    private com.google.protobuf.ByteString masterKey_;
+    public boolean hasMasterKey() {
       return ((bitField0_ & 0x00000008) == 0x00000008);
     }
-    public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse getAddResponse() {
-      return addResponse_;
+    public com.google.protobuf.ByteString getMasterKey() {
+      return masterKey_;
     }
-    public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder getAddResponseOrBuilder() {
-      return addResponse_;
+    
+    // repeated bytes body = 4;
+    public static final int BODY_FIELD_NUMBER = 4;
+    private java.util.List<com.google.protobuf.ByteString> body_;
+    public java.util.List<com.google.protobuf.ByteString>
+        getBodyList() {
+      return body_;
+    }
+    public int getBodyCount() {
+      return body_.size();
+    }
+    public com.google.protobuf.ByteString getBody(int index) {
+      return body_.get(index);
     }
     
     private void initFields() {
-      header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
-      status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
-      readResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
-      addResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
+      flag_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag.RECOVERY_ADD;
+      ledgerId_ = 0L;
+      firstEntryId_ = 0L;
+      masterKey_ = com.google.protobuf.ByteString.EMPTY;
+      body_ = java.util.Collections.emptyList();;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
       byte isInitialized = memoizedIsInitialized;
       if (isInitialized != -1) return isInitialized == 1;
       
-      if (!hasHeader()) {
+      if (!hasLedgerId()) {
         memoizedIsInitialized = 0;
         return false;
       }
-      if (!hasStatus()) {
+      if (!hasFirstEntryId()) {
         memoizedIsInitialized = 0;
         return false;
       }
-      if (!getHeader().isInitialized()) {
+      if (!hasMasterKey()) {
         memoizedIsInitialized = 0;
         return false;
       }
-      if (hasReadResponse()) {
-        if (!getReadResponse().isInitialized()) {
-          memoizedIsInitialized = 0;
-          return false;
-        }
-      }
-      if (hasAddResponse()) {
-        if (!getAddResponse().isInitialized()) {
-          memoizedIsInitialized = 0;
-          return false;
-        }
-      }
       memoizedIsInitialized = 1;
       return true;
     }
@@ -3030,17 +3396,20 @@ public final class BookkeeperProtocol {
     public void writeTo(com.google.protobuf.CodedOutputStream output)
                         throws java.io.IOException {
       getSerializedSize();
-      if (((bitField0_ & 0x00000001) == 0x00000001)) {
-        output.writeMessage(1, header_);
-      }
       if (((bitField0_ & 0x00000002) == 0x00000002)) {
-        output.writeEnum(2, status_.getNumber());
+        output.writeInt64(1, ledgerId_);
       }
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
-        output.writeMessage(100, readResponse_);
+        output.writeInt64(2, firstEntryId_);
       }
       if (((bitField0_ & 0x00000008) == 0x00000008)) {
-        output.writeMessage(101, addResponse_);
+        output.writeBytes(3, masterKey_);
+      }
+      for (int i = 0; i < body_.size(); i++) {
+        output.writeBytes(4, body_.get(i));
+      }
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeEnum(100, flag_.getNumber());
       }
       getUnknownFields().writeTo(output);
     }
@@ -3051,21 +3420,30 @@ public final class BookkeeperProtocol {
       if (size != -1) return size;
     
       size = 0;
-      if (((bitField0_ & 0x00000001) == 0x00000001)) {
-        size += com.google.protobuf.CodedOutputStream
-          .computeMessageSize(1, header_);
-      }
       if (((bitField0_ & 0x00000002) == 0x00000002)) {
         size += com.google.protobuf.CodedOutputStream
-          .computeEnumSize(2, status_.getNumber());
+          .computeInt64Size(1, ledgerId_);
       }
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
         size += com.google.protobuf.CodedOutputStream
-          .computeMessageSize(100, readResponse_);
+          .computeInt64Size(2, firstEntryId_);
       }
       if (((bitField0_ & 0x00000008) == 0x00000008)) {
         size += com.google.protobuf.CodedOutputStream
-          .computeMessageSize(101, addResponse_);
+          .computeBytesSize(3, masterKey_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < body_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeBytesSizeNoTag(body_.get(i));
+        }
+        size += dataSize;
+        size += 1 * getBodyList().size();
+      }
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(100, flag_.getNumber());
       }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
@@ -3079,41 +3457,41 @@ public final class BookkeeperProtocol {
       return super.writeReplace();
     }
     
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseFrom(
         com.google.protobuf.ByteString data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseFrom(
         com.google.protobuf.ByteString data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(byte[] data)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseFrom(byte[] data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseFrom(
         byte[] data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(java.io.InputStream input)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseFrom(java.io.InputStream input)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseDelimitedFrom(java.io.InputStream input)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseDelimitedFrom(java.io.InputStream input)
         throws java.io.IOException {
       Builder builder = newBuilder();
       if (builder.mergeDelimitedFrom(input)) {
@@ -3122,7 +3500,7 @@ public final class BookkeeperProtocol {
         return null;
       }
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseDelimitedFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseDelimitedFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
@@ -3133,12 +3511,12 @@ public final class BookkeeperProtocol {
         return null;
       }
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseFrom(
         com.google.protobuf.CodedInputStream input)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest parseFrom(
         com.google.protobuf.CodedInputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
@@ -3148,7 +3526,7 @@ public final class BookkeeperProtocol {
     
     public static Builder newBuilder() { return Builder.create(); }
     public Builder newBuilderForType() { return newBuilder(); }
-    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.Response prototype) {
+    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest prototype) {
       return newBuilder().mergeFrom(prototype);
     }
     public Builder toBuilder() { return newBuilder(this); }
@@ -3161,18 +3539,18 @@ public final class BookkeeperProtocol {
     }
     public static final class Builder extends
         com.google.protobuf.GeneratedMessage.Builder<Builder>
-       implements org.apache.bookkeeper.proto.BookkeeperProtocol.ResponseOrBuilder {
+       implements org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequestOrBuilder {
       public static final com.google.protobuf.Descriptors.Descriptor
           getDescriptor() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_Response_descriptor;
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_RangeAddRequest_descriptor;
       }
       
       protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
           internalGetFieldAccessorTable() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_Response_fieldAccessorTable;
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_RangeAddRequest_fieldAccessorTable;
       }
       
-      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.Response.newBuilder()
+      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.newBuilder()
       private Builder() {
         maybeForceBuilderInitialization();
       }
@@ -3183,9 +3561,6 @@ public final class BookkeeperProtocol {
       }
       private void maybeForceBuilderInitialization() {
         if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
-          getHeaderFieldBuilder();
-          getReadResponseFieldBuilder();
-          getAddResponseFieldBuilder();
         }
       }
       private static Builder create() {
@@ -3194,26 +3569,16 @@ public final class BookkeeperProtocol {
       
       public Builder clear() {
         super.clear();
-        if (headerBuilder_ == null) {
-          header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
-        } else {
-          headerBuilder_.clear();
-        }
+        flag_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag.RECOVERY_ADD;
         bitField0_ = (bitField0_ & ~0x00000001);
-        status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+        ledgerId_ = 0L;
         bitField0_ = (bitField0_ & ~0x00000002);
-        if (readResponseBuilder_ == null) {
-          readResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
-        } else {
-          readResponseBuilder_.clear();
-        }
+        firstEntryId_ = 0L;
         bitField0_ = (bitField0_ & ~0x00000004);
-        if (addResponseBuilder_ == null) {
-          addResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
-        } else {
-          addResponseBuilder_.clear();
-        }
+        masterKey_ = com.google.protobuf.ByteString.EMPTY;
         bitField0_ = (bitField0_ & ~0x00000008);
+        body_ = java.util.Collections.emptyList();;
+        bitField0_ = (bitField0_ & ~0x00000010);
         return this;
       }
       
@@ -3223,24 +3588,24 @@ public final class BookkeeperProtocol {
       
       public com.google.protobuf.Descriptors.Descriptor
           getDescriptorForType() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.Response.getDescriptor();
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.getDescriptor();
       }
       
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.Response getDefaultInstanceForType() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.Response.getDefaultInstance();
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest getDefaultInstanceForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.getDefaultInstance();
       }
       
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.Response build() {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.Response result = buildPartial();
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest build() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest result = buildPartial();
         if (!result.isInitialized()) {
           throw newUninitializedMessageException(result);
         }
         return result;
       }
       
-      private org.apache.bookkeeper.proto.BookkeeperProtocol.Response buildParsed()
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest buildParsed()
           throws com.google.protobuf.InvalidProtocolBufferException {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.Response result = buildPartial();
+        org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest result = buildPartial();
         if (!result.isInitialized()) {
           throw newUninitializedMessageException(
             result).asInvalidProtocolBufferException();
@@ -3248,95 +3613,86 @@ public final class BookkeeperProtocol {
         return result;
       }
       
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.Response buildPartial() {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.Response result = new org.apache.bookkeeper.proto.BookkeeperProtocol.Response(this);
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest buildPartial() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest result = new org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest(this);
         int from_bitField0_ = bitField0_;
         int to_bitField0_ = 0;
         if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
           to_bitField0_ |= 0x00000001;
         }
-        if (headerBuilder_ == null) {
-          result.header_ = header_;
-        } else {
-          result.header_ = headerBuilder_.build();
-        }
+        result.flag_ = flag_;
         if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
           to_bitField0_ |= 0x00000002;
         }
-        result.status_ = status_;
+        result.ledgerId_ = ledgerId_;
         if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
           to_bitField0_ |= 0x00000004;
         }
-        if (readResponseBuilder_ == null) {
-          result.readResponse_ = readResponse_;
-        } else {
-          result.readResponse_ = readResponseBuilder_.build();
-        }
+        result.firstEntryId_ = firstEntryId_;
         if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
           to_bitField0_ |= 0x00000008;
         }
-        if (addResponseBuilder_ == null) {
-          result.addResponse_ = addResponse_;
-        } else {
-          result.addResponse_ = addResponseBuilder_.build();
+        result.masterKey_ = masterKey_;
+        if (((bitField0_ & 0x00000010) == 0x00000010)) {
+          body_ = java.util.Collections.unmodifiableList(body_);
+          bitField0_ = (bitField0_ & ~0x00000010);
         }
+        result.body_ = body_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
       }
       
       public Builder mergeFrom(com.google.protobuf.Message other) {
-        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.Response) {
-          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.Response)other);
+        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest) {
+          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest)other);
         } else {
           super.mergeFrom(other);
           return this;
         }
       }
       
-      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.Response other) {
-        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.Response.getDefaultInstance()) return this;
-        if (other.hasHeader()) {
-          mergeHeader(other.getHeader());
+      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest other) {
+        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.getDefaultInstance()) return this;
+        if (other.hasFlag()) {
+          setFlag(other.getFlag());
         }
-        if (other.hasStatus()) {
-          setStatus(other.getStatus());
+        if (other.hasLedgerId()) {
+          setLedgerId(other.getLedgerId());
         }
-        if (other.hasReadResponse()) {
-          mergeReadResponse(other.getReadResponse());
+        if (other.hasFirstEntryId()) {
+          setFirstEntryId(other.getFirstEntryId());
         }
-        if (other.hasAddResponse()) {
-          mergeAddResponse(other.getAddResponse());
+        if (other.hasMasterKey()) {
+          setMasterKey(other.getMasterKey());
+        }
+        if (!other.body_.isEmpty()) {
+          if (body_.isEmpty()) {
+            body_ = other.body_;
+            bitField0_ = (bitField0_ & ~0x00000010);
+          } else {
+            ensureBodyIsMutable();
+            body_.addAll(other.body_);
+          }
+          onChanged();
         }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
       
       public final boolean isInitialized() {
-        if (!hasHeader()) {
+        if (!hasLedgerId()) {
           
           return false;
         }
-        if (!hasStatus()) {
+        if (!hasFirstEntryId()) {
           
           return false;
         }
-        if (!getHeader().isInitialized()) {
+        if (!hasMasterKey()) {
           
           return false;
         }
-        if (hasReadResponse()) {
-          if (!getReadResponse().isInitialized()) {
-            
-            return false;
-          }
-        }
-        if (hasAddResponse()) {
-          if (!getAddResponse().isInitialized()) {
-            
-            return false;
-          }
-        }
         return true;
       }
       
@@ -3363,42 +3719,35 @@ public final class BookkeeperProtocol {
               }
               break;
             }
-            case 10: {
-              org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.newBuilder();
-              if (hasHeader()) {
-                subBuilder.mergeFrom(getHeader());
-              }
-              input.readMessage(subBuilder, extensionRegistry);
-              setHeader(subBuilder.buildPartial());
+            case 8: {
+              bitField0_ |= 0x00000002;
+              ledgerId_ = input.readInt64();
               break;
             }
             case 16: {
-              int rawValue = input.readEnum();
-              org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.valueOf(rawValue);
-              if (value == null) {
-                unknownFields.mergeVarintField(2, rawValue);
-              } else {
-                bitField0_ |= 0x00000002;
-                status_ = value;
-              }
+              bitField0_ |= 0x00000004;
+              firstEntryId_ = input.readInt64();
               break;
             }
-            case 802: {
-              org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.newBuilder();
-              if (hasReadResponse()) {
-                subBuilder.mergeFrom(getReadResponse());
-              }
-              input.readMessage(subBuilder, extensionRegistry);
-              setReadResponse(subBuilder.buildPartial());
+            case 26: {
+              bitField0_ |= 0x00000008;
+              masterKey_ = input.readBytes();
               break;
             }
-            case 810: {
-              org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.newBuilder();
-              if (hasAddResponse()) {
-                subBuilder.mergeFrom(getAddResponse());
+            case 34: {
+              ensureBodyIsMutable();
+              body_.add(input.readBytes());
+              break;
+            }
+            case 800: {
+              int rawValue = input.readEnum();
+              org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag value = org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(100, rawValue);
+              } else {
+                bitField0_ |= 0x00000001;
+                flag_ = value;
               }
-              input.readMessage(subBuilder, extensionRegistry);
-              setAddResponse(subBuilder.buildPartial());
               break;
             }
           }
@@ -3407,312 +3756,2891 @@ public final class BookkeeperProtocol {
       
       private int bitField0_;
       
-      // required .BKPacketHeader header = 1;
-      private org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
-      private com.google.protobuf.SingleFieldBuilder<
-          org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder> headerBuilder_;
-      public boolean hasHeader() {
+      // optional .AddRequest.Flag flag = 100;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag flag_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag.RECOVERY_ADD;
+      public boolean hasFlag() {
         return ((bitField0_ & 0x00000001) == 0x00000001);
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader getHeader() {
-        if (headerBuilder_ == null) {
-          return header_;
-        } else {
-          return headerBuilder_.getMessage();
-        }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag getFlag() {
+        return flag_;
       }
-      public Builder setHeader(org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader value) {
-        if (headerBuilder_ == null) {
-          if (value == null) {
-            throw new NullPointerException();
-          }
-          header_ = value;
-          onChanged();
-        } else {
-          headerBuilder_.setMessage(value);
+      public Builder setFlag(org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag value) {
+        if (value == null) {
+          throw new NullPointerException();
         }
         bitField0_ |= 0x00000001;
+        flag_ = value;
+        onChanged();
         return this;
       }
-      public Builder setHeader(
-          org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder builderForValue) {
-        if (headerBuilder_ == null) {
-          header_ = builderForValue.build();
-          onChanged();
-        } else {
-          headerBuilder_.setMessage(builderForValue.build());
-        }
-        bitField0_ |= 0x00000001;
+      public Builder clearFlag() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        flag_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Flag.RECOVERY_ADD;
+        onChanged();
         return this;
       }
-      public Builder mergeHeader(org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader value) {
-        if (headerBuilder_ == null) {
-          if (((bitField0_ & 0x00000001) == 0x00000001) &&
-              header_ != org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance()) {
-            header_ =
-              org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.newBuilder(header_).mergeFrom(value).buildPartial();
-          } else {
-            header_ = value;
-          }
-          onChanged();
-        } else {
-          headerBuilder_.mergeFrom(value);
-        }
-        bitField0_ |= 0x00000001;
-        return this;
+      
+      // required int64 ledgerId = 1;
+      private long ledgerId_ ;
+      public boolean hasLedgerId() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
       }
-      public Builder clearHeader() {
-        if (headerBuilder_ == null) {
-          header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
-          onChanged();
-        } else {
-          headerBuilder_.clear();
-        }
-        bitField0_ = (bitField0_ & ~0x00000001);
+      public long getLedgerId() {
+        return ledgerId_;
+      }
+      public Builder setLedgerId(long value) {
+        bitField0_ |= 0x00000002;
+        ledgerId_ = value;
+        onChanged();
         return this;
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder getHeaderBuilder() {
-        bitField0_ |= 0x00000001;
+      public Builder clearLedgerId() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        ledgerId_ = 0L;
         onChanged();
-        return getHeaderFieldBuilder().getBuilder();
+        return this;
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder getHeaderOrBuilder() {
-        if (headerBuilder_ != null) {
-          return headerBuilder_.getMessageOrBuilder();
-        } else {
-          return header_;
-        }
+      
+      // required int64 firstEntryId = 2;
+      private long firstEntryId_ ;
+      public boolean hasFirstEntryId() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
       }
-      private com.google.protobuf.SingleFieldBuilder<
-          org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder> 
-          getHeaderFieldBuilder() {
-        if (headerBuilder_ == null) {
-          headerBuilder_ = new com.google.protobuf.SingleFieldBuilder<
-              org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder>(
-                  header_,
-                  getParentForChildren(),
-                  isClean());
-          header_ = null;
-        }
-        return headerBuilder_;
+      public long getFirstEntryId() {
+        return firstEntryId_;
+      }
+      public Builder setFirstEntryId(long value) {
+        bitField0_ |= 0x00000004;
+        firstEntryId_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearFirstEntryId() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        firstEntryId_ = 0L;
+        onChanged();
+        return this;
       }
       
-      // required .StatusCode status = 2;
-      private org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
-      public boolean hasStatus() {
-        return ((bitField0_ & 0x00000002) == 0x00000002);
+      // required bytes masterKey = 3;
+      private com.google.protobuf.ByteString masterKey_ = com.google.protobuf.ByteString.EMPTY;
+      public boolean hasMasterKey() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus() {
-        return status_;
+      public com.google.protobuf.ByteString getMasterKey() {
+        return masterKey_;
       }
-      public Builder setStatus(org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value) {
+      public Builder setMasterKey(com.google.protobuf.ByteString value) {
         if (value == null) {
-          throw new NullPointerException();
-        }
-        bitField0_ |= 0x00000002;
-        status_ = value;
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000008;
+        masterKey_ = value;
         onChanged();
         return this;
       }
-      public Builder clearStatus() {
-        bitField0_ = (bitField0_ & ~0x00000002);
-        status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+      public Builder clearMasterKey() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        masterKey_ = getDefaultInstance().getMasterKey();
         onChanged();
         return this;
       }
       
-      // optional .ReadResponse readResponse = 100;
-      private org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse readResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
-      private com.google.protobuf.SingleFieldBuilder<
-          org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder> readResponseBuilder_;
-      public boolean hasReadResponse() {
-        return ((bitField0_ & 0x00000004) == 0x00000004);
+      // repeated bytes body = 4;
+      private java.util.List<com.google.protobuf.ByteString> body_ = java.util.Collections.emptyList();;
+      private void ensureBodyIsMutable() {
+        if (!((bitField0_ & 0x00000010) == 0x00000010)) {
+          body_ = new java.util.ArrayList<com.google.protobuf.ByteString>(body_);
+          bitField0_ |= 0x00000010;
+         }
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse getReadResponse() {
-        if (readResponseBuilder_ == null) {
-          return readResponse_;
-        } else {
-          return readResponseBuilder_.getMessage();
-        }
+      public java.util.List<com.google.protobuf.ByteString>
+          getBodyList() {
+        return java.util.Collections.unmodifiableList(body_);
       }
-      public Builder setReadResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse value) {
-        if (readResponseBuilder_ == null) {
-          if (value == null) {
-            throw new NullPointerException();
-          }
-          readResponse_ = value;
-          onChanged();
-        } else {
-          readResponseBuilder_.setMessage(value);
-        }
-        bitField0_ |= 0x00000004;
-        return this;
+      public int getBodyCount() {
+        return body_.size();
       }
-      public Builder setReadResponse(
-          org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder builderForValue) {
-        if (readResponseBuilder_ == null) {
-          readResponse_ = builderForValue.build();
-          onChanged();
-        } else {
-          readResponseBuilder_.setMessage(builderForValue.build());
-        }
-        bitField0_ |= 0x00000004;
+      public com.google.protobuf.ByteString getBody(int index) {
+        return body_.get(index);
+      }
+      public Builder setBody(
+          int index, com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureBodyIsMutable();
+        body_.set(index, value);
+        onChanged();
         return this;
       }
-      public Builder mergeReadResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse value) {
-        if (readResponseBuilder_ == null) {
-          if (((bitField0_ & 0x00000004) == 0x00000004) &&
-              readResponse_ != org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance()) {
-            readResponse_ =
-              org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.newBuilder(readResponse_).mergeFrom(value).buildPartial();
-          } else {
-            readResponse_ = value;
-          }
-          onChanged();
-        } else {
-          readResponseBuilder_.mergeFrom(value);
-        }
-        bitField0_ |= 0x00000004;
+      public Builder addBody(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureBodyIsMutable();
+        body_.add(value);
+        onChanged();
         return this;
       }
-      public Builder clearReadResponse() {
-        if (readResponseBuilder_ == null) {
-          readResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
-          onChanged();
-        } else {
-          readResponseBuilder_.clear();
-        }
-        bitField0_ = (bitField0_ & ~0x00000004);
+      public Builder addAllBody(
+          java.lang.Iterable<? extends com.google.protobuf.ByteString> values) {
+        ensureBodyIsMutable();
+        super.addAll(values, body_);
+        onChanged();
         return this;
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder getReadResponseBuilder() {
-        bitField0_ |= 0x00000004;
+      public Builder clearBody() {
+        body_ = java.util.Collections.emptyList();;
+        bitField0_ = (bitField0_ & ~0x00000010);
         onChanged();
-        return getReadResponseFieldBuilder().getBuilder();
+        return this;
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder getReadResponseOrBuilder() {
-        if (readResponseBuilder_ != null) {
-          return readResponseBuilder_.getMessageOrBuilder();
-        } else {
-          return readResponse_;
-        }
+      
+      // @@protoc_insertion_point(builder_scope:RangeAddRequest)
+    }
+    
+    static {
+      defaultInstance = new RangeAddRequest(true);
+      defaultInstance.initFields();
+    }
+    
+    // @@protoc_insertion_point(class_scope:RangeAddRequest)
+  }
+  
+  public interface CheckEntriesRequestOrBuilder
+      extends com.google.protobuf.MessageOrBuilder {
+    
+    // required int64 ledgerId = 1;
+    boolean hasLedgerId();
+    long getLedgerId();
+    
+    // repeated int64 entryId = 2;
+    java.util.List<java.lang.Long> getEntryIdList();
+    int getEntryIdCount();
+    long getEntryId(int index);
+  }
+  public static final class CheckEntriesRequest extends
+      com.google.protobuf.GeneratedMessage
+      implements CheckEntriesRequestOrBuilder {
+    // Use CheckEntriesRequest.newBuilder() to construct.
+    private CheckEntriesRequest(Builder builder) {
+      super(builder);
+    }
+    private CheckEntriesRequest(boolean noInit) {}
+    
+    private static final CheckEntriesRequest defaultInstance;
+    public static CheckEntriesRequest getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public CheckEntriesRequest getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_CheckEntriesRequest_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_CheckEntriesRequest_fieldAccessorTable;
+    }
+    
+    private int bitField0_;
+    // required int64 ledgerId = 1;
+    public static final int LEDGERID_FIELD_NUMBER = 1;
+    private long ledgerId_;
+    public boolean hasLedgerId() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    public long getLedgerId() {
+      return ledgerId_;
+    }
+    
+    // repeated int64 entryId = 2;
+    public static final int ENTRYID_FIELD_NUMBER = 2;
+    private java.util.List<java.lang.Long> entryId_;
+    public java.util.List<java.lang.Long>
+        getEntryIdList() {
+      return entryId_;
+    }
+    public int getEntryIdCount() {
+      return entryId_.size();
+    }
+    public long getEntryId(int index) {
+      return entryId_.get(index);
+    }
+    
+    private void initFields() {
+      ledgerId_ = 0L;
+      entryId_ = java.util.Collections.emptyList();;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized != -1) return isInitialized == 1;
+      
+      if (!hasLedgerId()) {
+        memoizedIsInitialized = 0;
+        return false;
       }
-      private com.google.protobuf.SingleFieldBuilder<
-          org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder> 
-          getReadResponseFieldBuilder() {
-        if (readResponseBuilder_ == null) {
-          readResponseBuilder_ = new com.google.protobuf.SingleFieldBuilder<
-              org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder>(
-                  readResponse_,
-                  getParentForChildren(),
-                  isClean());
-          readResponse_ = null;
+      memoizedIsInitialized = 1;
+      return true;
+    }
+    
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeInt64(1, ledgerId_);
+      }
+      for (int i = 0; i < entryId_.size(); i++) {
+        output.writeInt64(2, entryId_.get(i));
+      }
+      getUnknownFields().writeTo(output);
+    }
+    
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+    
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(1, ledgerId_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < entryId_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt64SizeNoTag(entryId_.get(i));
+        }
+        size += dataSize;
+        size += 1 * getEntryIdList().size();
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+    
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+    
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input, extensionRegistry)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+    
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder>
+       implements org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequestOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_CheckEntriesRequest_descriptor;
+      }
+      
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_CheckEntriesRequest_fieldAccessorTable;
+      }
+      
+      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+      
+      private Builder(BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+      
+      public Builder clear() {
+        super.clear();
+        ledgerId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        entryId_ = java.util.Collections.emptyList();;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.getDescriptor();
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest getDefaultInstanceForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.getDefaultInstance();
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest build() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+      
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return result;
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest buildPartial() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest result = new org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.ledgerId_ = ledgerId_;
+        if (((bitField0_ & 0x00000002) == 0x00000002)) {
+          entryId_ = java.util.Collections.unmodifiableList(entryId_);
+          bitField0_ = (bitField0_ & ~0x00000002);
+        }
+        result.entryId_ = entryId_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest) {
+          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest other) {
+        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.getDefaultInstance()) return this;
+        if (other.hasLedgerId()) {
+          setLedgerId(other.getLedgerId());
+        }
+        if (!other.entryId_.isEmpty()) {
+          if (entryId_.isEmpty()) {
+            entryId_ = other.entryId_;
+            bitField0_ = (bitField0_ & ~0x00000002);
+          } else {
+            ensureEntryIdIsMutable();
+            entryId_.addAll(other.entryId_);
+          }
+          onChanged();
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public final boolean isInitialized() {
+        if (!hasLedgerId()) {
+          
+          return false;
+        }
+        return true;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              onChanged();
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                onChanged();
+                return this;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              ledgerId_ = input.readInt64();
+              break;
+            }
+            case 16: {
+              ensureEntryIdIsMutable();
+              entryId_.add(input.readInt64());
+              break;
+            }
+            case 18: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              while (input.getBytesUntilLimit() > 0) {
+                addEntryId(input.readInt64());
+              }
+              input.popLimit(limit);
+              break;
+            }
+          }
+        }
+      }
+      
+      private int bitField0_;
+      
+      // required int64 ledgerId = 1;
+      private long ledgerId_ ;
+      public boolean hasLedgerId() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      public long getLedgerId() {
+        return ledgerId_;
+      }
+      public Builder setLedgerId(long value) {
+        bitField0_ |= 0x00000001;
+        ledgerId_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearLedgerId() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        ledgerId_ = 0L;
+        onChanged();
+        return this;
+      }
+      
+      // repeated int64 entryId = 2;
+      private java.util.List<java.lang.Long> entryId_ = java.util.Collections.emptyList();;
+      private void ensureEntryIdIsMutable() {
+        if (!((bitField0_ & 0x00000002) == 0x00000002)) {
+          entryId_ = new java.util.ArrayList<java.lang.Long>(entryId_);
+          bitField0_ |= 0x00000002;
+         }
+      }
+      public java.util.List<java.lang.Long>
+          getEntryIdList() {
+        return java.util.Collections.unmodifiableList(entryId_);
+      }
+      public int getEntryIdCount() {
+        return entryId_.size();
+      }
+      public long getEntryId(int index) {
+        return entryId_.get(index);
+      }
+      public Builder setEntryId(
+          int index, long value) {
+        ensureEntryIdIsMutable();
+        entryId_.set(index, value);
+        onChanged();
+        return this;
+      }
+      public Builder addEntryId(long value) {
+        ensureEntryIdIsMutable();
+        entryId_.add(value);
+        onChanged();
+        return this;
+      }
+      public Builder addAllEntryId(
+          java.lang.Iterable<? extends java.lang.Long> values) {
+        ensureEntryIdIsMutable();
+        super.addAll(values, entryId_);
+        onChanged();
+        return this;
+      }
+      public Builder clearEntryId() {
+        entryId_ = java.util.Collections.emptyList();;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        onChanged();
+        return this;
+      }
+      
+      // @@protoc_insertion_point(builder_scope:CheckEntriesRequest)
+    }
+    
+    static {
+      defaultInstance = new CheckEntriesRequest(true);
+      defaultInstance.initFields();
+    }
+    
+    // @@protoc_insertion_point(class_scope:CheckEntriesRequest)
+  }
+  
+  public interface ResponseOrBuilder
+      extends com.google.protobuf.MessageOrBuilder {
+    
+    // required .BKPacketHeader header = 1;
+    boolean hasHeader();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader getHeader();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder getHeaderOrBuilder();
+    
+    // required .StatusCode status = 2;
+    boolean hasStatus();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus();
+    
+    // optional .ReadResponse readResponse = 100;
+    boolean hasReadResponse();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse getReadResponse();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder getReadResponseOrBuilder();
+    
+    // optional .AddResponse addResponse = 101;
+    boolean hasAddResponse();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse getAddResponse();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder getAddResponseOrBuilder();
+    
+    // optional .RangeAddResponse rangeAddResponse = 102;
+    boolean hasRangeAddResponse();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse getRangeAddResponse();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponseOrBuilder getRangeAddResponseOrBuilder();
+    
+    // optional .CheckEntriesResponse checkEntriesResponse = 103;
+    boolean hasCheckEntriesResponse();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse getCheckEntriesResponse();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponseOrBuilder getCheckEntriesResponseOrBuilder();
+  }
+  public static final class Response extends
+      com.google.protobuf.GeneratedMessage
+      implements ResponseOrBuilder {
+    // Use Response.newBuilder() to construct.
+    private Response(Builder builder) {
+      super(builder);
+    }
+    private Response(boolean noInit) {}
+    
+    private static final Response defaultInstance;
+    public static Response getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public Response getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_Response_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_Response_fieldAccessorTable;
+    }
+    
+    private int bitField0_;
+    // required .BKPacketHeader header = 1;
+    public static final int HEADER_FIELD_NUMBER = 1;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader header_;
+    public boolean hasHeader() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader getHeader() {
+      return header_;
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder getHeaderOrBuilder() {
+      return header_;
+    }
+    
+    // required .StatusCode status = 2;
+    public static final int STATUS_FIELD_NUMBER = 2;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode status_;
+    public boolean hasStatus() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus() {
+      return status_;
+    }
+    
+    // optional .ReadResponse readResponse = 100;
+    public static final int READRESPONSE_FIELD_NUMBER = 100;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse readResponse_;
+    public boolean hasReadResponse() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse getReadResponse() {
+      return readResponse_;
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder getReadResponseOrBuilder() {
+      return readResponse_;
+    }
+    
+    // optional .AddResponse addResponse = 101;
+    public static final int ADDRESPONSE_FIELD_NUMBER = 101;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse addResponse_;
+    public boolean hasAddResponse() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse getAddResponse() {
+      return addResponse_;
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder getAddResponseOrBuilder() {
+      return addResponse_;
+    }
+    
+    // optional .RangeAddResponse rangeAddResponse = 102;
+    public static final int RANGEADDRESPONSE_FIELD_NUMBER = 102;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse rangeAddResponse_;
+    public boolean hasRangeAddResponse() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse getRangeAddResponse() {
+      return rangeAddResponse_;
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponseOrBuilder getRangeAddResponseOrBuilder() {
+      return rangeAddResponse_;
+    }
+    
+    // optional .CheckEntriesResponse checkEntriesResponse = 103;
+    public static final int CHECKENTRIESRESPONSE_FIELD_NUMBER = 103;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse checkEntriesResponse_;
+    public boolean hasCheckEntriesResponse() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse getCheckEntriesResponse() {
+      return checkEntriesResponse_;
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponseOrBuilder getCheckEntriesResponseOrBuilder() {
+      return checkEntriesResponse_;
+    }
+    
+    private void initFields() {
+      header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
+      status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+      readResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
+      addResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
+      rangeAddResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.getDefaultInstance();
+      checkEntriesResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.getDefaultInstance();
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized != -1) return isInitialized == 1;
+      
+      if (!hasHeader()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasStatus()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!getHeader().isInitialized()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (hasReadResponse()) {
+        if (!getReadResponse().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      if (hasAddResponse()) {
+        if (!getAddResponse().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      if (hasRangeAddResponse()) {
+        if (!getRangeAddResponse().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      if (hasCheckEntriesResponse()) {
+        if (!getCheckEntriesResponse().isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+    
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeMessage(1, header_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeEnum(2, status_.getNumber());
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeMessage(100, readResponse_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeMessage(101, addResponse_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeMessage(102, rangeAddResponse_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeMessage(103, checkEntriesResponse_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+    
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+    
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(1, header_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(2, status_.getNumber());
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(100, readResponse_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(101, addResponse_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(102, rangeAddResponse_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(103, checkEntriesResponse_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+    
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+    
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input, extensionRegistry)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.Response parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.Response prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+    
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder>
+       implements org.apache.bookkeeper.proto.BookkeeperProtocol.ResponseOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_Response_descriptor;
+      }
+      
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_Response_fieldAccessorTable;
+      }
+      
+      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.Response.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+      
+      private Builder(BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getHeaderFieldBuilder();
+          getReadResponseFieldBuilder();
+          getAddResponseFieldBuilder();
+          getRangeAddResponseFieldBuilder();
+          getCheckEntriesResponseFieldBuilder();
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+      
+      public Builder clear() {
+        super.clear();
+        if (headerBuilder_ == null) {
+          header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
+        } else {
+          headerBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000001);
+        status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        if (readResponseBuilder_ == null) {
+          readResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
+        } else {
+          readResponseBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000004);
+        if (addResponseBuilder_ == null) {
+          addResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
+        } else {
+          addResponseBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000008);
+        if (rangeAddResponseBuilder_ == null) {
+          rangeAddResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.getDefaultInstance();
+        } else {
+          rangeAddResponseBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000010);
+        if (checkEntriesResponseBuilder_ == null) {
+          checkEntriesResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.getDefaultInstance();
+        } else {
+          checkEntriesResponseBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000020);
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.Response.getDescriptor();
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.Response getDefaultInstanceForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.Response.getDefaultInstance();
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.Response build() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.Response result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+      
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.Response buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.Response result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return result;
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.Response buildPartial() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.Response result = new org.apache.bookkeeper.proto.BookkeeperProtocol.Response(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        if (headerBuilder_ == null) {
+          result.header_ = header_;
+        } else {
+          result.header_ = headerBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.status_ = status_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        if (readResponseBuilder_ == null) {
+          result.readResponse_ = readResponse_;
+        } else {
+          result.readResponse_ = readResponseBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        if (addResponseBuilder_ == null) {
+          result.addResponse_ = addResponse_;
+        } else {
+          result.addResponse_ = addResponseBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        if (rangeAddResponseBuilder_ == null) {
+          result.rangeAddResponse_ = rangeAddResponse_;
+        } else {
+          result.rangeAddResponse_ = rangeAddResponseBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        if (checkEntriesResponseBuilder_ == null) {
+          result.checkEntriesResponse_ = checkEntriesResponse_;
+        } else {
+          result.checkEntriesResponse_ = checkEntriesResponseBuilder_.build();
+        }
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.Response) {
+          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.Response)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.Response other) {
+        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.Response.getDefaultInstance()) return this;
+        if (other.hasHeader()) {
+          mergeHeader(other.getHeader());
+        }
+        if (other.hasStatus()) {
+          setStatus(other.getStatus());
+        }
+        if (other.hasReadResponse()) {
+          mergeReadResponse(other.getReadResponse());
+        }
+        if (other.hasAddResponse()) {
+          mergeAddResponse(other.getAddResponse());
+        }
+        if (other.hasRangeAddResponse()) {
+          mergeRangeAddResponse(other.getRangeAddResponse());
+        }
+        if (other.hasCheckEntriesResponse()) {
+          mergeCheckEntriesResponse(other.getCheckEntriesResponse());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public final boolean isInitialized() {
+        if (!hasHeader()) {
+          
+          return false;
+        }
+        if (!hasStatus()) {
+          
+          return false;
+        }
+        if (!getHeader().isInitialized()) {
+          
+          return false;
+        }
+        if (hasReadResponse()) {
+          if (!getReadResponse().isInitialized()) {
+            
+            return false;
+          }
+        }
+        if (hasAddResponse()) {
+          if (!getAddResponse().isInitialized()) {
+            
+            return false;
+          }
+        }
+        if (hasRangeAddResponse()) {
+          if (!getRangeAddResponse().isInitialized()) {
+            
+            return false;
+          }
+        }
+        if (hasCheckEntriesResponse()) {
+          if (!getCheckEntriesResponse().isInitialized()) {
+            
+            return false;
+          }
+        }
+        return true;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              onChanged();
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                onChanged();
+                return this;
+              }
+              break;
+            }
+            case 10: {
+              org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.newBuilder();
+              if (hasHeader()) {
+                subBuilder.mergeFrom(getHeader());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setHeader(subBuilder.buildPartial());
+              break;
+            }
+            case 16: {
+              int rawValue = input.readEnum();
+              org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(2, rawValue);
+              } else {
+                bitField0_ |= 0x00000002;
+                status_ = value;
+              }
+              break;
+            }
+            case 802: {
+              org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.newBuilder();
+              if (hasReadResponse()) {
+                subBuilder.mergeFrom(getReadResponse());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setReadResponse(subBuilder.buildPartial());
+              break;
+            }
+            case 810: {
+              org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.newBuilder();
+              if (hasAddResponse()) {
+                subBuilder.mergeFrom(getAddResponse());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setAddResponse(subBuilder.buildPartial());
+              break;
+            }
+            case 818: {
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.newBuilder();
+              if (hasRangeAddResponse()) {
+                subBuilder.mergeFrom(getRangeAddResponse());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setRangeAddResponse(subBuilder.buildPartial());
+              break;
+            }
+            case 826: {
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.Builder subBuilder = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.newBuilder();
+              if (hasCheckEntriesResponse()) {
+                subBuilder.mergeFrom(getCheckEntriesResponse());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setCheckEntriesResponse(subBuilder.buildPartial());
+              break;
+            }
+          }
+        }
+      }
+      
+      private int bitField0_;
+      
+      // required .BKPacketHeader header = 1;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder> headerBuilder_;
+      public boolean hasHeader() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader getHeader() {
+        if (headerBuilder_ == null) {
+          return header_;
+        } else {
+          return headerBuilder_.getMessage();
+        }
+      }
+      public Builder setHeader(org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader value) {
+        if (headerBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          header_ = value;
+          onChanged();
+        } else {
+          headerBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000001;
+        return this;
+      }
+      public Builder setHeader(
+          org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder builderForValue) {
+        if (headerBuilder_ == null) {
+          header_ = builderForValue.build();
+          onChanged();
+        } else {
+          headerBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000001;
+        return this;
+      }
+      public Builder mergeHeader(org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader value) {
+        if (headerBuilder_ == null) {
+          if (((bitField0_ & 0x00000001) == 0x00000001) &&
+              header_ != org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance()) {
+            header_ =
+              org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.newBuilder(header_).mergeFrom(value).buildPartial();
+          } else {
+            header_ = value;
+          }
+          onChanged();
+        } else {
+          headerBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000001;
+        return this;
+      }
+      public Builder clearHeader() {
+        if (headerBuilder_ == null) {
+          header_ = org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.getDefaultInstance();
+          onChanged();
+        } else {
+          headerBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000001);
+        return this;
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder getHeaderBuilder() {
+        bitField0_ |= 0x00000001;
+        onChanged();
+        return getHeaderFieldBuilder().getBuilder();
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder getHeaderOrBuilder() {
+        if (headerBuilder_ != null) {
+          return headerBuilder_.getMessageOrBuilder();
+        } else {
+          return header_;
+        }
+      }
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder> 
+          getHeaderFieldBuilder() {
+        if (headerBuilder_ == null) {
+          headerBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeader.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.BKPacketHeaderOrBuilder>(
+                  header_,
+                  getParentForChildren(),
+                  isClean());
+          header_ = null;
+        }
+        return headerBuilder_;
+      }
+      
+      // required .StatusCode status = 2;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+      public boolean hasStatus() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus() {
+        return status_;
+      }
+      public Builder setStatus(org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000002;
+        status_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearStatus() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+        onChanged();
+        return this;
+      }
+      
+      // optional .ReadResponse readResponse = 100;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse readResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder> readResponseBuilder_;
+      public boolean hasReadResponse() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse getReadResponse() {
+        if (readResponseBuilder_ == null) {
+          return readResponse_;
+        } else {
+          return readResponseBuilder_.getMessage();
+        }
+      }
+      public Builder setReadResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse value) {
+        if (readResponseBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          readResponse_ = value;
+          onChanged();
+        } else {
+          readResponseBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000004;
+        return this;
+      }
+      public Builder setReadResponse(
+          org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder builderForValue) {
+        if (readResponseBuilder_ == null) {
+          readResponse_ = builderForValue.build();
+          onChanged();
+        } else {
+          readResponseBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000004;
+        return this;
+      }
+      public Builder mergeReadResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse value) {
+        if (readResponseBuilder_ == null) {
+          if (((bitField0_ & 0x00000004) == 0x00000004) &&
+              readResponse_ != org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance()) {
+            readResponse_ =
+              org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.newBuilder(readResponse_).mergeFrom(value).buildPartial();
+          } else {
+            readResponse_ = value;
+          }
+          onChanged();
+        } else {
+          readResponseBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000004;
+        return this;
+      }
+      public Builder clearReadResponse() {
+        if (readResponseBuilder_ == null) {
+          readResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
+          onChanged();
+        } else {
+          readResponseBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000004);
+        return this;
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder getReadResponseBuilder() {
+        bitField0_ |= 0x00000004;
+        onChanged();
+        return getReadResponseFieldBuilder().getBuilder();
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder getReadResponseOrBuilder() {
+        if (readResponseBuilder_ != null) {
+          return readResponseBuilder_.getMessageOrBuilder();
+        } else {
+          return readResponse_;
+        }
+      }
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder> 
+          getReadResponseFieldBuilder() {
+        if (readResponseBuilder_ == null) {
+          readResponseBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder>(
+                  readResponse_,
+                  getParentForChildren(),
+                  isClean());
+          readResponse_ = null;
+        }
+        return readResponseBuilder_;
+      }
+      
+      // optional .AddResponse addResponse = 101;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse addResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder> addResponseBuilder_;
+      public boolean hasAddResponse() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse getAddResponse() {
+        if (addResponseBuilder_ == null) {
+          return addResponse_;
+        } else {
+          return addResponseBuilder_.getMessage();
+        }
+      }
+      public Builder setAddResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse value) {
+        if (addResponseBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          addResponse_ = value;
+          onChanged();
+        } else {
+          addResponseBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      public Builder setAddResponse(
+          org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder builderForValue) {
+        if (addResponseBuilder_ == null) {
+          addResponse_ = builderForValue.build();
+          onChanged();
+        } else {
+          addResponseBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      public Builder mergeAddResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse value) {
+        if (addResponseBuilder_ == null) {
+          if (((bitField0_ & 0x00000008) == 0x00000008) &&
+              addResponse_ != org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance()) {
+            addResponse_ =
+              org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.newBuilder(addResponse_).mergeFrom(value).buildPartial();
+          } else {
+            addResponse_ = value;
+          }
+          onChanged();
+        } else {
+          addResponseBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      public Builder clearAddResponse() {
+        if (addResponseBuilder_ == null) {
+          addResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
+          onChanged();
+        } else {
+          addResponseBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder getAddResponseBuilder() {
+        bitField0_ |= 0x00000008;
+        onChanged();
+        return getAddResponseFieldBuilder().getBuilder();
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder getAddResponseOrBuilder() {
+        if (addResponseBuilder_ != null) {
+          return addResponseBuilder_.getMessageOrBuilder();
+        } else {
+          return addResponse_;
+        }
+      }
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder> 
+          getAddResponseFieldBuilder() {
+        if (addResponseBuilder_ == null) {
+          addResponseBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder>(
+                  addResponse_,
+                  getParentForChildren(),
+                  isClean());
+          addResponse_ = null;
+        }
+        return addResponseBuilder_;
+      }
+      
+      // optional .RangeAddResponse rangeAddResponse = 102;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse rangeAddResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponseOrBuilder> rangeAddResponseBuilder_;
+      public boolean hasRangeAddResponse() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse getRangeAddResponse() {
+        if (rangeAddResponseBuilder_ == null) {
+          return rangeAddResponse_;
+        } else {
+          return rangeAddResponseBuilder_.getMessage();
+        }
+      }
+      public Builder setRangeAddResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse value) {
+        if (rangeAddResponseBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          rangeAddResponse_ = value;
+          onChanged();
+        } else {
+          rangeAddResponseBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
+      public Builder setRangeAddResponse(
+          org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.Builder builderForValue) {
+        if (rangeAddResponseBuilder_ == null) {
+          rangeAddResponse_ = builderForValue.build();
+          onChanged();
+        } else {
+          rangeAddResponseBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
+      public Builder mergeRangeAddResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse value) {
+        if (rangeAddResponseBuilder_ == null) {
+          if (((bitField0_ & 0x00000010) == 0x00000010) &&
+              rangeAddResponse_ != org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.getDefaultInstance()) {
+            rangeAddResponse_ =
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.newBuilder(rangeAddResponse_).mergeFrom(value).buildPartial();
+          } else {
+            rangeAddResponse_ = value;
+          }
+          onChanged();
+        } else {
+          rangeAddResponseBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000010;
+        return this;
+      }
+      public Builder clearRangeAddResponse() {
+        if (rangeAddResponseBuilder_ == null) {
+          rangeAddResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.getDefaultInstance();
+          onChanged();
+        } else {
+          rangeAddResponseBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000010);
+        return this;
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.Builder getRangeAddResponseBuilder() {
+        bitField0_ |= 0x00000010;
+        onChanged();
+        return getRangeAddResponseFieldBuilder().getBuilder();
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponseOrBuilder getRangeAddResponseOrBuilder() {
+        if (rangeAddResponseBuilder_ != null) {
+          return rangeAddResponseBuilder_.getMessageOrBuilder();
+        } else {
+          return rangeAddResponse_;
+        }
+      }
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponseOrBuilder> 
+          getRangeAddResponseFieldBuilder() {
+        if (rangeAddResponseBuilder_ == null) {
+          rangeAddResponseBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponseOrBuilder>(
+                  rangeAddResponse_,
+                  getParentForChildren(),
+                  isClean());
+          rangeAddResponse_ = null;
+        }
+        return rangeAddResponseBuilder_;
+      }
+      
+      // optional .CheckEntriesResponse checkEntriesResponse = 103;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse checkEntriesResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponseOrBuilder> checkEntriesResponseBuilder_;
+      public boolean hasCheckEntriesResponse() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse getCheckEntriesResponse() {
+        if (checkEntriesResponseBuilder_ == null) {
+          return checkEntriesResponse_;
+        } else {
+          return checkEntriesResponseBuilder_.getMessage();
+        }
+      }
+      public Builder setCheckEntriesResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse value) {
+        if (checkEntriesResponseBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          checkEntriesResponse_ = value;
+          onChanged();
+        } else {
+          checkEntriesResponseBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000020;
+        return this;
+      }
+      public Builder setCheckEntriesResponse(
+          org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.Builder builderForValue) {
+        if (checkEntriesResponseBuilder_ == null) {
+          checkEntriesResponse_ = builderForValue.build();
+          onChanged();
+        } else {
+          checkEntriesResponseBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000020;
+        return this;
+      }
+      public Builder mergeCheckEntriesResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse value) {
+        if (checkEntriesResponseBuilder_ == null) {
+          if (((bitField0_ & 0x00000020) == 0x00000020) &&
+              checkEntriesResponse_ != org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.getDefaultInstance()) {
+            checkEntriesResponse_ =
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.newBuilder(checkEntriesResponse_).mergeFrom(value).buildPartial();
+          } else {
+            checkEntriesResponse_ = value;
+          }
+          onChanged();
+        } else {
+          checkEntriesResponseBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000020;
+        return this;
+      }
+      public Builder clearCheckEntriesResponse() {
+        if (checkEntriesResponseBuilder_ == null) {
+          checkEntriesResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.getDefaultInstance();
+          onChanged();
+        } else {
+          checkEntriesResponseBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000020);
+        return this;
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.Builder getCheckEntriesResponseBuilder() {
+        bitField0_ |= 0x00000020;
+        onChanged();
+        return getCheckEntriesResponseFieldBuilder().getBuilder();
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponseOrBuilder getCheckEntriesResponseOrBuilder() {
+        if (checkEntriesResponseBuilder_ != null) {
+          return checkEntriesResponseBuilder_.getMessageOrBuilder();
+        } else {
+          return checkEntriesResponse_;
+        }
+      }
+      private com.google.protobuf.SingleFieldBuilder<
+          org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponseOrBuilder> 
+          getCheckEntriesResponseFieldBuilder() {
+        if (checkEntriesResponseBuilder_ == null) {
+          checkEntriesResponseBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponseOrBuilder>(
+                  checkEntriesResponse_,
+                  getParentForChildren(),
+                  isClean());
+          checkEntriesResponse_ = null;
+        }
+        return checkEntriesResponseBuilder_;
+      }
+      
+      // @@protoc_insertion_point(builder_scope:Response)
+    }
+    
+    static {
+      defaultInstance = new Response(true);
+      defaultInstance.initFields();
+    }
+    
+    // @@protoc_insertion_point(class_scope:Response)
+  }
+  
+  public interface ReadResponseOrBuilder
+      extends com.google.protobuf.MessageOrBuilder {
+    
+    // required .StatusCode status = 1;
+    boolean hasStatus();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus();
+    
+    // required int64 ledgerId = 2;
+    boolean hasLedgerId();
+    long getLedgerId();
+    
+    // required int64 entryId = 3;
+    boolean hasEntryId();
+    long getEntryId();
+    
+    // optional bytes body = 4;
+    boolean hasBody();
+    com.google.protobuf.ByteString getBody();
+    
+    // optional int64 maxLAC = 5;
+    boolean hasMaxLAC();
+    long getMaxLAC();
+    
+    // optional int64 lacUpdateTimestamp = 6;
+    boolean hasLacUpdateTimestamp();
+    long getLacUpdateTimestamp();
+  }
+  public static final class ReadResponse extends
+      com.google.protobuf.GeneratedMessage
+      implements ReadResponseOrBuilder {
+    // Use ReadResponse.newBuilder() to construct.
+    private ReadResponse(Builder builder) {
+      super(builder);
+    }
+    private ReadResponse(boolean noInit) {}
+    
+    private static final ReadResponse defaultInstance;
+    public static ReadResponse getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public ReadResponse getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_ReadResponse_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_ReadResponse_fieldAccessorTable;
+    }
+    
+    private int bitField0_;
+    // required .StatusCode status = 1;
+    public static final int STATUS_FIELD_NUMBER = 1;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode status_;
+    public boolean hasStatus() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus() {
+      return status_;
+    }
+    
+    // required int64 ledgerId = 2;
+    public static final int LEDGERID_FIELD_NUMBER = 2;
+    private long ledgerId_;
+    public boolean hasLedgerId() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    public long getLedgerId() {
+      return ledgerId_;
+    }
+    
+    // required int64 entryId = 3;
+    public static final int ENTRYID_FIELD_NUMBER = 3;
+    private long entryId_;
+    public boolean hasEntryId() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    public long getEntryId() {
+      return entryId_;
+    }
+    
+    // optional bytes body = 4;
+    public static final int BODY_FIELD_NUMBER = 4;
+    private com.google.protobuf.ByteString body_;
+    public boolean hasBody() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    public com.google.protobuf.ByteString getBody() {
+      return body_;
+    }
+    
+    // optional int64 maxLAC = 5;
+    public static final int MAXLAC_FIELD_NUMBER = 5;
+    private long maxLAC_;
+    public boolean hasMaxLAC() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    public long getMaxLAC() {
+      return maxLAC_;
+    }
+    
+    // optional int64 lacUpdateTimestamp = 6;
+    public static final int LACUPDATETIMESTAMP_FIELD_NUMBER = 6;
+    private long lacUpdateTimestamp_;
+    public boolean hasLacUpdateTimestamp() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+    public long getLacUpdateTimestamp() {
+      return lacUpdateTimestamp_;
+    }
+    
+    private void initFields() {
+      status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+      ledgerId_ = 0L;
+      entryId_ = 0L;
+      body_ = com.google.protobuf.ByteString.EMPTY;
+      maxLAC_ = 0L;
+      lacUpdateTimestamp_ = 0L;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized != -1) return isInitialized == 1;
+      
+      if (!hasStatus()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasLedgerId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasEntryId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+    
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeEnum(1, status_.getNumber());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeInt64(2, ledgerId_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeInt64(3, entryId_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeBytes(4, body_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeInt64(5, maxLAC_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeInt64(6, lacUpdateTimestamp_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+    
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+    
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(1, status_.getNumber());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(2, ledgerId_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(3, entryId_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(4, body_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(5, maxLAC_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(6, lacUpdateTimestamp_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+    
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+    
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input, extensionRegistry)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+    
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder>
+       implements org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_ReadResponse_descriptor;
+      }
+      
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_ReadResponse_fieldAccessorTable;
+      }
+      
+      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+      
+      private Builder(BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+      
+      public Builder clear() {
+        super.clear();
+        status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        ledgerId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        entryId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        body_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        maxLAC_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        lacUpdateTimestamp_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDescriptor();
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse getDefaultInstanceForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse build() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+      
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return result;
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse buildPartial() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse result = new org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.status_ = status_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.ledgerId_ = ledgerId_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.entryId_ = entryId_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.body_ = body_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.maxLAC_ = maxLAC_;
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        result.lacUpdateTimestamp_ = lacUpdateTimestamp_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse) {
+          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse other) {
+        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance()) return this;
+        if (other.hasStatus()) {
+          setStatus(other.getStatus());
+        }
+        if (other.hasLedgerId()) {
+          setLedgerId(other.getLedgerId());
+        }
+        if (other.hasEntryId()) {
+          setEntryId(other.getEntryId());
+        }
+        if (other.hasBody()) {
+          setBody(other.getBody());
+        }
+        if (other.hasMaxLAC()) {
+          setMaxLAC(other.getMaxLAC());
+        }
+        if (other.hasLacUpdateTimestamp()) {
+          setLacUpdateTimestamp(other.getLacUpdateTimestamp());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public final boolean isInitialized() {
+        if (!hasStatus()) {
+          
+          return false;
+        }
+        if (!hasLedgerId()) {
+          
+          return false;
+        }
+        if (!hasEntryId()) {
+          
+          return false;
+        }
+        return true;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              onChanged();
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                onChanged();
+                return this;
+              }
+              break;
+            }
+            case 8: {
+              int rawValue = input.readEnum();
+              org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(1, rawValue);
+              } else {
+                bitField0_ |= 0x00000001;
+                status_ = value;
+              }
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              ledgerId_ = input.readInt64();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              entryId_ = input.readInt64();
+              break;
+            }
+            case 34: {
+              bitField0_ |= 0x00000008;
+              body_ = input.readBytes();
+              break;
+            }
+            case 40: {
+              bitField0_ |= 0x00000010;
+              maxLAC_ = input.readInt64();
+              break;
+            }
+            case 48: {
+              bitField0_ |= 0x00000020;
+              lacUpdateTimestamp_ = input.readInt64();
+              break;
+            }
+          }
+        }
+      }
+      
+      private int bitField0_;
+      
+      // required .StatusCode status = 1;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+      public boolean hasStatus() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus() {
+        return status_;
+      }
+      public Builder setStatus(org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000001;
+        status_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearStatus() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+        onChanged();
+        return this;
+      }
+      
+      // required int64 ledgerId = 2;
+      private long ledgerId_ ;
+      public boolean hasLedgerId() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      public long getLedgerId() {
+        return ledgerId_;
+      }
+      public Builder setLedgerId(long value) {
+        bitField0_ |= 0x00000002;
+        ledgerId_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearLedgerId() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        ledgerId_ = 0L;
+        onChanged();
+        return this;
+      }
+      
+      // required int64 entryId = 3;
+      private long entryId_ ;
+      public boolean hasEntryId() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      public long getEntryId() {
+        return entryId_;
+      }
+      public Builder setEntryId(long value) {
+        bitField0_ |= 0x00000004;
+        entryId_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearEntryId() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        entryId_ = 0L;
+        onChanged();
+        return this;
+      }
+      
+      // optional bytes body = 4;
+      private com.google.protobuf.ByteString body_ = com.google.protobuf.ByteString.EMPTY;
+      public boolean hasBody() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      public com.google.protobuf.ByteString getBody() {
+        return body_;
+      }
+      public Builder setBody(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000008;
+        body_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearBody() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        body_ = getDefaultInstance().getBody();
+        onChanged();
+        return this;
+      }
+      
+      // optional int64 maxLAC = 5;
+      private long maxLAC_ ;
+      public boolean hasMaxLAC() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      public long getMaxLAC() {
+        return maxLAC_;
+      }
+      public Builder setMaxLAC(long value) {
+        bitField0_ |= 0x00000010;
+        maxLAC_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearMaxLAC() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        maxLAC_ = 0L;
+        onChanged();
+        return this;
+      }
+      
+      // optional int64 lacUpdateTimestamp = 6;
+      private long lacUpdateTimestamp_ ;
+      public boolean hasLacUpdateTimestamp() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+      public long getLacUpdateTimestamp() {
+        return lacUpdateTimestamp_;
+      }
+      public Builder setLacUpdateTimestamp(long value) {
+        bitField0_ |= 0x00000020;
+        lacUpdateTimestamp_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearLacUpdateTimestamp() {
+        bitField0_ = (bitField0_ & ~0x00000020);
+        lacUpdateTimestamp_ = 0L;
+        onChanged();
+        return this;
+      }
+      
+      // @@protoc_insertion_point(builder_scope:ReadResponse)
+    }
+    
+    static {
+      defaultInstance = new ReadResponse(true);
+      defaultInstance.initFields();
+    }
+    
+    // @@protoc_insertion_point(class_scope:ReadResponse)
+  }
+  
+  public interface AddResponseOrBuilder
+      extends com.google.protobuf.MessageOrBuilder {
+    
+    // required .StatusCode status = 1;
+    boolean hasStatus();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus();
+    
+    // required int64 ledgerId = 2;
+    boolean hasLedgerId();
+    long getLedgerId();
+    
+    // required int64 entryId = 3;
+    boolean hasEntryId();
+    long getEntryId();
+  }
+  public static final class AddResponse extends
+      com.google.protobuf.GeneratedMessage
+      implements AddResponseOrBuilder {
+    // Use AddResponse.newBuilder() to construct.
+    private AddResponse(Builder builder) {
+      super(builder);
+    }
+    private AddResponse(boolean noInit) {}
+    
+    private static final AddResponse defaultInstance;
+    public static AddResponse getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public AddResponse getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_AddResponse_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_AddResponse_fieldAccessorTable;
+    }
+    
+    private int bitField0_;
+    // required .StatusCode status = 1;
+    public static final int STATUS_FIELD_NUMBER = 1;
+    private org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode status_;
+    public boolean hasStatus() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus() {
+      return status_;
+    }
+    
+    // required int64 ledgerId = 2;
+    public static final int LEDGERID_FIELD_NUMBER = 2;
+    private long ledgerId_;
+    public boolean hasLedgerId() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    public long getLedgerId() {
+      return ledgerId_;
+    }
+    
+    // required int64 entryId = 3;
+    public static final int ENTRYID_FIELD_NUMBER = 3;
+    private long entryId_;
+    public boolean hasEntryId() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    public long getEntryId() {
+      return entryId_;
+    }
+    
+    private void initFields() {
+      status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+      ledgerId_ = 0L;
+      entryId_ = 0L;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized != -1) return isInitialized == 1;
+      
+      if (!hasStatus()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasLedgerId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasEntryId()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+    
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeEnum(1, status_.getNumber());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeInt64(2, ledgerId_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeInt64(3, entryId_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+    
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+    
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(1, status_.getNumber());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(2, ledgerId_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(3, entryId_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+    
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+    
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input, extensionRegistry)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+    
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder>
+       implements org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_AddResponse_descriptor;
+      }
+      
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_AddResponse_fieldAccessorTable;
+      }
+      
+      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+      
+      private Builder(BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+      
+      public Builder clear() {
+        super.clear();
+        status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        ledgerId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        entryId_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDescriptor();
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse getDefaultInstanceForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse build() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+      
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return result;
+      }
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse buildPartial() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse result = new org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.status_ = status_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.ledgerId_ = ledgerId_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.entryId_ = entryId_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse) {
+          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse other) {
+        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance()) return this;
+        if (other.hasStatus()) {
+          setStatus(other.getStatus());
+        }
+        if (other.hasLedgerId()) {
+          setLedgerId(other.getLedgerId());
+        }
+        if (other.hasEntryId()) {
+          setEntryId(other.getEntryId());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public final boolean isInitialized() {
+        if (!hasStatus()) {
+          
+          return false;
+        }
+        if (!hasLedgerId()) {
+          
+          return false;
+        }
+        if (!hasEntryId()) {
+          
+          return false;
+        }
+        return true;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              onChanged();
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                onChanged();
+                return this;
+              }
+              break;
+            }
+            case 8: {
+              int rawValue = input.readEnum();
+              org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(1, rawValue);
+              } else {
+                bitField0_ |= 0x00000001;
+                status_ = value;
+              }
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              ledgerId_ = input.readInt64();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              entryId_ = input.readInt64();
+              break;
+            }
+          }
         }
-        return readResponseBuilder_;
       }
       
-      // optional .AddResponse addResponse = 101;
-      private org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse addResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
-      private com.google.protobuf.SingleFieldBuilder<
-          org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder> addResponseBuilder_;
-      public boolean hasAddResponse() {
-        return ((bitField0_ & 0x00000008) == 0x00000008);
+      private int bitField0_;
+      
+      // required .StatusCode status = 1;
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+      public boolean hasStatus() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse getAddResponse() {
-        if (addResponseBuilder_ == null) {
-          return addResponse_;
-        } else {
-          return addResponseBuilder_.getMessage();
-        }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getStatus() {
+        return status_;
       }
-      public Builder setAddResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse value) {
-        if (addResponseBuilder_ == null) {
-          if (value == null) {
-            throw new NullPointerException();
-          }
-          addResponse_ = value;
-          onChanged();
-        } else {
-          addResponseBuilder_.setMessage(value);
+      public Builder setStatus(org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value) {
+        if (value == null) {
+          throw new NullPointerException();
         }
-        bitField0_ |= 0x00000008;
+        bitField0_ |= 0x00000001;
+        status_ = value;
+        onChanged();
         return this;
       }
-      public Builder setAddResponse(
-          org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder builderForValue) {
-        if (addResponseBuilder_ == null) {
-          addResponse_ = builderForValue.build();
-          onChanged();
-        } else {
-          addResponseBuilder_.setMessage(builderForValue.build());
-        }
-        bitField0_ |= 0x00000008;
+      public Builder clearStatus() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
+        onChanged();
         return this;
       }
-      public Builder mergeAddResponse(org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse value) {
-        if (addResponseBuilder_ == null) {
-          if (((bitField0_ & 0x00000008) == 0x00000008) &&
-              addResponse_ != org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance()) {
-            addResponse_ =
-              org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.newBuilder(addResponse_).mergeFrom(value).buildPartial();
-          } else {
-            addResponse_ = value;
-          }
-          onChanged();
-        } else {
-          addResponseBuilder_.mergeFrom(value);
-        }
-        bitField0_ |= 0x00000008;
-        return this;
+      
+      // required int64 ledgerId = 2;
+      private long ledgerId_ ;
+      public boolean hasLedgerId() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
       }
-      public Builder clearAddResponse() {
-        if (addResponseBuilder_ == null) {
-          addResponse_ = org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
-          onChanged();
-        } else {
-          addResponseBuilder_.clear();
-        }
-        bitField0_ = (bitField0_ & ~0x00000008);
+      public long getLedgerId() {
+        return ledgerId_;
+      }
+      public Builder setLedgerId(long value) {
+        bitField0_ |= 0x00000002;
+        ledgerId_ = value;
+        onChanged();
         return this;
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder getAddResponseBuilder() {
-        bitField0_ |= 0x00000008;
+      public Builder clearLedgerId() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        ledgerId_ = 0L;
         onChanged();
-        return getAddResponseFieldBuilder().getBuilder();
+        return this;
       }
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder getAddResponseOrBuilder() {
-        if (addResponseBuilder_ != null) {
-          return addResponseBuilder_.getMessageOrBuilder();
-        } else {
-          return addResponse_;
-        }
+      
+      // required int64 entryId = 3;
+      private long entryId_ ;
+      public boolean hasEntryId() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
       }
-      private com.google.protobuf.SingleFieldBuilder<
-          org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder> 
-          getAddResponseFieldBuilder() {
-        if (addResponseBuilder_ == null) {
-          addResponseBuilder_ = new com.google.protobuf.SingleFieldBuilder<
-              org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder, org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder>(
-                  addResponse_,
-                  getParentForChildren(),
-                  isClean());
-          addResponse_ = null;
-        }
-        return addResponseBuilder_;
+      public long getEntryId() {
+        return entryId_;
+      }
+      public Builder setEntryId(long value) {
+        bitField0_ |= 0x00000004;
+        entryId_ = value;
+        onChanged();
+        return this;
+      }
+      public Builder clearEntryId() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        entryId_ = 0L;
+        onChanged();
+        return this;
       }
       
-      // @@protoc_insertion_point(builder_scope:Response)
+      // @@protoc_insertion_point(builder_scope:AddResponse)
     }
     
     static {
-      defaultInstance = new Response(true);
+      defaultInstance = new AddResponse(true);
       defaultInstance.initFields();
     }
     
-    // @@protoc_insertion_point(class_scope:Response)
+    // @@protoc_insertion_point(class_scope:AddResponse)
   }
   
-  public interface ReadResponseOrBuilder
+  public interface RangeAddResponseOrBuilder
       extends com.google.protobuf.MessageOrBuilder {
     
     // required .StatusCode status = 1;
@@ -3723,48 +6651,41 @@ public final class BookkeeperProtocol {
     boolean hasLedgerId();
     long getLedgerId();
     
-    // required int64 entryId = 3;
-    boolean hasEntryId();
-    long getEntryId();
-    
-    // optional bytes body = 4;
-    boolean hasBody();
-    com.google.protobuf.ByteString getBody();
-    
-    // optional int64 maxLAC = 5;
-    boolean hasMaxLAC();
-    long getMaxLAC();
+    // required int64 firstEntryId = 3;
+    boolean hasFirstEntryId();
+    long getFirstEntryId();
     
-    // optional int64 lacUpdateTimestamp = 6;
-    boolean hasLacUpdateTimestamp();
-    long getLacUpdateTimestamp();
+    // repeated .StatusCode entryStatus = 4;
+    java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> getEntryStatusList();
+    int getEntryStatusCount();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getEntryStatus(int index);
   }
-  public static final class ReadResponse extends
+  public static final class RangeAddResponse extends
       com.google.protobuf.GeneratedMessage
-      implements ReadResponseOrBuilder {
-    // Use ReadResponse.newBuilder() to construct.
-    private ReadResponse(Builder builder) {
+      implements RangeAddResponseOrBuilder {
+    // Use RangeAddResponse.newBuilder() to construct.
+    private RangeAddResponse(Builder builder) {
       super(builder);
     }
-    private ReadResponse(boolean noInit) {}
+    private RangeAddResponse(boolean noInit) {}
     
-    private static final ReadResponse defaultInstance;
-    public static ReadResponse getDefaultInstance() {
+    private static final RangeAddResponse defaultInstance;
+    public static RangeAddResponse getDefaultInstance() {
       return defaultInstance;
     }
     
-    public ReadResponse getDefaultInstanceForType() {
+    public RangeAddResponse getDefaultInstanceForType() {
       return defaultInstance;
     }
     
     public static final com.google.protobuf.Descriptors.Descriptor
         getDescriptor() {
-      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_ReadResponse_descriptor;
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_RangeAddResponse_descriptor;
     }
     
     protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
         internalGetFieldAccessorTable() {
-      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_ReadResponse_fieldAccessorTable;
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_RangeAddResponse_fieldAccessorTable;
     }
     
     private int bitField0_;
@@ -3788,53 +6709,34 @@ public final class BookkeeperProtocol {
       return ledgerId_;
     }
     
-    // required int64 entryId = 3;
-    public static final int ENTRYID_FIELD_NUMBER = 3;
-    private long entryId_;
-    public boolean hasEntryId() {
+    // required int64 firstEntryId = 3;
+    public static final int FIRSTENTRYID_FIELD_NUMBER = 3;
+    private long firstEntryId_;
+    public boolean hasFirstEntryId() {
       return ((bitField0_ & 0x00000004) == 0x00000004);
     }
-    public long getEntryId() {
-      return entryId_;
-    }
-    
-    // optional bytes body = 4;
-    public static final int BODY_FIELD_NUMBER = 4;
-    private com.google.protobuf.ByteString body_;
-    public boolean hasBody() {
-      return ((bitField0_ & 0x00000008) == 0x00000008);
-    }
-    public com.google.protobuf.ByteString getBody() {
-      return body_;
+    public long getFirstEntryId() {
+      return firstEntryId_;
     }
     
-    // optional int64 maxLAC = 5;
-    public static final int MAXLAC_FIELD_NUMBER = 5;
-    private long maxLAC_;
-    public boolean hasMaxLAC() {
-      return ((bitField0_ & 0x00000010) == 0x00000010);
-    }
-    public long getMaxLAC() {
-      return maxLAC_;
+    // repeated .StatusCode entryStatus = 4;
+    public static final int ENTRYSTATUS_FIELD_NUMBER = 4;
+    private java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> entryStatus_;
+    public java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> getEntryStatusList() {
+      return entryStatus_;
     }
-    
-    // optional int64 lacUpdateTimestamp = 6;
-    public static final int LACUPDATETIMESTAMP_FIELD_NUMBER = 6;
-    private long lacUpdateTimestamp_;
-    public boolean hasLacUpdateTimestamp() {
-      return ((bitField0_ & 0x00000020) == 0x00000020);
+    public int getEntryStatusCount() {
+      return entryStatus_.size();
     }
-    public long getLacUpdateTimestamp() {
-      return lacUpdateTimestamp_;
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getEntryStatus(int index) {
+      return entryStatus_.get(index);
     }
     
     private void initFields() {
       status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
       ledgerId_ = 0L;
-      entryId_ = 0L;
-      body_ = com.google.protobuf.ByteString.EMPTY;
-      maxLAC_ = 0L;
-      lacUpdateTimestamp_ = 0L;
+      firstEntryId_ = 0L;
+      entryStatus_ = java.util.Collections.emptyList();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -3849,7 +6751,7 @@ public final class BookkeeperProtocol {
         memoizedIsInitialized = 0;
         return false;
       }
-      if (!hasEntryId()) {
+      if (!hasFirstEntryId()) {
         memoizedIsInitialized = 0;
         return false;
       }
@@ -3867,16 +6769,10 @@ public final class BookkeeperProtocol {
         output.writeInt64(2, ledgerId_);
       }
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
-        output.writeInt64(3, entryId_);
-      }
-      if (((bitField0_ & 0x00000008) == 0x00000008)) {
-        output.writeBytes(4, body_);
-      }
-      if (((bitField0_ & 0x00000010) == 0x00000010)) {
-        output.writeInt64(5, maxLAC_);
+        output.writeInt64(3, firstEntryId_);
       }
-      if (((bitField0_ & 0x00000020) == 0x00000020)) {
-        output.writeInt64(6, lacUpdateTimestamp_);
+      for (int i = 0; i < entryStatus_.size(); i++) {
+        output.writeEnum(4, entryStatus_.get(i).getNumber());
       }
       getUnknownFields().writeTo(output);
     }
@@ -3897,19 +6793,16 @@ public final class BookkeeperProtocol {
       }
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
         size += com.google.protobuf.CodedOutputStream
-          .computeInt64Size(3, entryId_);
-      }
-      if (((bitField0_ & 0x00000008) == 0x00000008)) {
-        size += com.google.protobuf.CodedOutputStream
-          .computeBytesSize(4, body_);
-      }
-      if (((bitField0_ & 0x00000010) == 0x00000010)) {
-        size += com.google.protobuf.CodedOutputStream
-          .computeInt64Size(5, maxLAC_);
+          .computeInt64Size(3, firstEntryId_);
       }
-      if (((bitField0_ & 0x00000020) == 0x00000020)) {
-        size += com.google.protobuf.CodedOutputStream
-          .computeInt64Size(6, lacUpdateTimestamp_);
+      {
+        int dataSize = 0;
+        for (int i = 0; i < entryStatus_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeEnumSizeNoTag(entryStatus_.get(i).getNumber());
+        }
+        size += dataSize;
+        size += 1 * entryStatus_.size();
       }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
@@ -3923,41 +6816,41 @@ public final class BookkeeperProtocol {
       return super.writeReplace();
     }
     
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseFrom(
         com.google.protobuf.ByteString data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseFrom(
         com.google.protobuf.ByteString data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(byte[] data)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseFrom(byte[] data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseFrom(
         byte[] data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(java.io.InputStream input)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseFrom(java.io.InputStream input)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseDelimitedFrom(java.io.InputStream input)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseDelimitedFrom(java.io.InputStream input)
         throws java.io.IOException {
       Builder builder = newBuilder();
       if (builder.mergeDelimitedFrom(input)) {
@@ -3966,7 +6859,7 @@ public final class BookkeeperProtocol {
         return null;
       }
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseDelimitedFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseDelimitedFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
@@ -3977,12 +6870,12 @@ public final class BookkeeperProtocol {
         return null;
       }
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseFrom(
         com.google.protobuf.CodedInputStream input)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse parseFrom(
         com.google.protobuf.CodedInputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
@@ -3992,7 +6885,7 @@ public final class BookkeeperProtocol {
     
     public static Builder newBuilder() { return Builder.create(); }
     public Builder newBuilderForType() { return newBuilder(); }
-    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse prototype) {
+    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse prototype) {
       return newBuilder().mergeFrom(prototype);
     }
     public Builder toBuilder() { return newBuilder(this); }
@@ -4005,18 +6898,18 @@ public final class BookkeeperProtocol {
     }
     public static final class Builder extends
         com.google.protobuf.GeneratedMessage.Builder<Builder>
-       implements org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponseOrBuilder {
+       implements org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponseOrBuilder {
       public static final com.google.protobuf.Descriptors.Descriptor
           getDescriptor() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_ReadResponse_descriptor;
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_RangeAddResponse_descriptor;
       }
       
       protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
           internalGetFieldAccessorTable() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_ReadResponse_fieldAccessorTable;
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_RangeAddResponse_fieldAccessorTable;
       }
       
-      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.newBuilder()
+      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.newBuilder()
       private Builder() {
         maybeForceBuilderInitialization();
       }
@@ -4039,14 +6932,10 @@ public final class BookkeeperProtocol {
         bitField0_ = (bitField0_ & ~0x00000001);
         ledgerId_ = 0L;
         bitField0_ = (bitField0_ & ~0x00000002);
-        entryId_ = 0L;
+        firstEntryId_ = 0L;
         bitField0_ = (bitField0_ & ~0x00000004);
-        body_ = com.google.protobuf.ByteString.EMPTY;
+        entryStatus_ = java.util.Collections.emptyList();
         bitField0_ = (bitField0_ & ~0x00000008);
-        maxLAC_ = 0L;
-        bitField0_ = (bitField0_ & ~0x00000010);
-        lacUpdateTimestamp_ = 0L;
-        bitField0_ = (bitField0_ & ~0x00000020);
         return this;
       }
       
@@ -4056,33 +6945,33 @@ public final class BookkeeperProtocol {
       
       public com.google.protobuf.Descriptors.Descriptor
           getDescriptorForType() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDescriptor();
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.getDescriptor();
       }
       
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse getDefaultInstanceForType() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance();
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse getDefaultInstanceForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.getDefaultInstance();
       }
       
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse build() {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse result = buildPartial();
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse build() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse result = buildPartial();
         if (!result.isInitialized()) {
           throw newUninitializedMessageException(result);
         }
         return result;
       }
       
-      private org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse buildParsed()
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse buildParsed()
           throws com.google.protobuf.InvalidProtocolBufferException {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse result = buildPartial();
+        org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse result = buildPartial();
         if (!result.isInitialized()) {
           throw newUninitializedMessageException(
             result).asInvalidProtocolBufferException();
         }
         return result;
       }
-      
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse buildPartial() {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse result = new org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse(this);
+      
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse buildPartial() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse result = new org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse(this);
         int from_bitField0_ = bitField0_;
         int to_bitField0_ = 0;
         if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
@@ -4096,52 +6985,46 @@ public final class BookkeeperProtocol {
         if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
           to_bitField0_ |= 0x00000004;
         }
-        result.entryId_ = entryId_;
-        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
-          to_bitField0_ |= 0x00000008;
-        }
-        result.body_ = body_;
-        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
-          to_bitField0_ |= 0x00000010;
-        }
-        result.maxLAC_ = maxLAC_;
-        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
-          to_bitField0_ |= 0x00000020;
+        result.firstEntryId_ = firstEntryId_;
+        if (((bitField0_ & 0x00000008) == 0x00000008)) {
+          entryStatus_ = java.util.Collections.unmodifiableList(entryStatus_);
+          bitField0_ = (bitField0_ & ~0x00000008);
         }
-        result.lacUpdateTimestamp_ = lacUpdateTimestamp_;
+        result.entryStatus_ = entryStatus_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
       }
       
       public Builder mergeFrom(com.google.protobuf.Message other) {
-        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse) {
-          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse)other);
+        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse) {
+          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse)other);
         } else {
           super.mergeFrom(other);
           return this;
         }
       }
       
-      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse other) {
-        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.getDefaultInstance()) return this;
+      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse other) {
+        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.getDefaultInstance()) return this;
         if (other.hasStatus()) {
           setStatus(other.getStatus());
         }
         if (other.hasLedgerId()) {
           setLedgerId(other.getLedgerId());
         }
-        if (other.hasEntryId()) {
-          setEntryId(other.getEntryId());
-        }
-        if (other.hasBody()) {
-          setBody(other.getBody());
-        }
-        if (other.hasMaxLAC()) {
-          setMaxLAC(other.getMaxLAC());
+        if (other.hasFirstEntryId()) {
+          setFirstEntryId(other.getFirstEntryId());
         }
-        if (other.hasLacUpdateTimestamp()) {
-          setLacUpdateTimestamp(other.getLacUpdateTimestamp());
+        if (!other.entryStatus_.isEmpty()) {
+          if (entryStatus_.isEmpty()) {
+            entryStatus_ = other.entryStatus_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureEntryStatusIsMutable();
+            entryStatus_.addAll(other.entryStatus_);
+          }
+          onChanged();
         }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
@@ -4156,7 +7039,7 @@ public final class BookkeeperProtocol {
           
           return false;
         }
-        if (!hasEntryId()) {
+        if (!hasFirstEntryId()) {
           
           return false;
         }
@@ -4204,22 +7087,32 @@ public final class BookkeeperProtocol {
             }
             case 24: {
               bitField0_ |= 0x00000004;
-              entryId_ = input.readInt64();
+              firstEntryId_ = input.readInt64();
               break;
             }
-            case 34: {
-              bitField0_ |= 0x00000008;
-              body_ = input.readBytes();
-              break;
-            }
-            case 40: {
-              bitField0_ |= 0x00000010;
-              maxLAC_ = input.readInt64();
+            case 32: {
+              int rawValue = input.readEnum();
+              org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(4, rawValue);
+              } else {
+                addEntryStatus(value);
+              }
               break;
             }
-            case 48: {
-              bitField0_ |= 0x00000020;
-              lacUpdateTimestamp_ = input.readInt64();
+            case 34: {
+              int length = input.readRawVarint32();
+              int oldLimit = input.pushLimit(length);
+              while(input.getBytesUntilLimit() > 0) {
+                int rawValue = input.readEnum();
+                org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.valueOf(rawValue);
+                if (value == null) {
+                  unknownFields.mergeVarintField(4, rawValue);
+                } else {
+                  addEntryStatus(value);
+                }
+              }
+              input.popLimit(oldLimit);
               break;
             }
           }
@@ -4273,105 +7166,90 @@ public final class BookkeeperProtocol {
         return this;
       }
       
-      // required int64 entryId = 3;
-      private long entryId_ ;
-      public boolean hasEntryId() {
+      // required int64 firstEntryId = 3;
+      private long firstEntryId_ ;
+      public boolean hasFirstEntryId() {
         return ((bitField0_ & 0x00000004) == 0x00000004);
       }
-      public long getEntryId() {
-        return entryId_;
+      public long getFirstEntryId() {
+        return firstEntryId_;
       }
-      public Builder setEntryId(long value) {
+      public Builder setFirstEntryId(long value) {
         bitField0_ |= 0x00000004;
-        entryId_ = value;
+        firstEntryId_ = value;
         onChanged();
         return this;
       }
-      public Builder clearEntryId() {
+      public Builder clearFirstEntryId() {
         bitField0_ = (bitField0_ & ~0x00000004);
-        entryId_ = 0L;
+        firstEntryId_ = 0L;
         onChanged();
         return this;
       }
       
-      // optional bytes body = 4;
-      private com.google.protobuf.ByteString body_ = com.google.protobuf.ByteString.EMPTY;
-      public boolean hasBody() {
-        return ((bitField0_ & 0x00000008) == 0x00000008);
-      }
-      public com.google.protobuf.ByteString getBody() {
-        return body_;
-      }
-      public Builder setBody(com.google.protobuf.ByteString value) {
-        if (value == null) {
-    throw new NullPointerException();
-  }
-  bitField0_ |= 0x00000008;
-        body_ = value;
-        onChanged();
-        return this;
+      // repeated .StatusCode entryStatus = 4;
+      private java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> entryStatus_ =
+        java.util.Collections.emptyList();
+      private void ensureEntryStatusIsMutable() {
+        if (!((bitField0_ & 0x00000008) == 0x00000008)) {
+          entryStatus_ = new java.util.ArrayList<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode>(entryStatus_);
+          bitField0_ |= 0x00000008;
+        }
       }
-      public Builder clearBody() {
-        bitField0_ = (bitField0_ & ~0x00000008);
-        body_ = getDefaultInstance().getBody();
-        onChanged();
-        return this;
+      public java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> getEntryStatusList() {
+        return java.util.Collections.unmodifiableList(entryStatus_);
       }
-      
-      // optional int64 maxLAC = 5;
-      private long maxLAC_ ;
-      public boolean hasMaxLAC() {
-        return ((bitField0_ & 0x00000010) == 0x00000010);
+      public int getEntryStatusCount() {
+        return entryStatus_.size();
       }
-      public long getMaxLAC() {
-        return maxLAC_;
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getEntryStatus(int index) {
+        return entryStatus_.get(index);
       }
-      public Builder setMaxLAC(long value) {
-        bitField0_ |= 0x00000010;
-        maxLAC_ = value;
+      public Builder setEntryStatus(
+          int index, org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureEntryStatusIsMutable();
+        entryStatus_.set(index, value);
         onChanged();
         return this;
       }
-      public Builder clearMaxLAC() {
-        bitField0_ = (bitField0_ & ~0x00000010);
-        maxLAC_ = 0L;
+      public Builder addEntryStatus(org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureEntryStatusIsMutable();
+        entryStatus_.add(value);
         onChanged();
         return this;
       }
-      
-      // optional int64 lacUpdateTimestamp = 6;
-      private long lacUpdateTimestamp_ ;
-      public boolean hasLacUpdateTimestamp() {
-        return ((bitField0_ & 0x00000020) == 0x00000020);
-      }
-      public long getLacUpdateTimestamp() {
-        return lacUpdateTimestamp_;
-      }
-      public Builder setLacUpdateTimestamp(long value) {
-        bitField0_ |= 0x00000020;
-        lacUpdateTimestamp_ = value;
+      public Builder addAllEntryStatus(
+          java.lang.Iterable<? extends org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> values) {
+        ensureEntryStatusIsMutable();
+        super.addAll(values, entryStatus_);
         onChanged();
         return this;
       }
-      public Builder clearLacUpdateTimestamp() {
-        bitField0_ = (bitField0_ & ~0x00000020);
-        lacUpdateTimestamp_ = 0L;
+      public Builder clearEntryStatus() {
+        entryStatus_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
         onChanged();
         return this;
       }
       
-      // @@protoc_insertion_point(builder_scope:ReadResponse)
+      // @@protoc_insertion_point(builder_scope:RangeAddResponse)
     }
     
     static {
-      defaultInstance = new ReadResponse(true);
+      defaultInstance = new RangeAddResponse(true);
       defaultInstance.initFields();
     }
     
-    // @@protoc_insertion_point(class_scope:ReadResponse)
+    // @@protoc_insertion_point(class_scope:RangeAddResponse)
   }
   
-  public interface AddResponseOrBuilder
+  public interface CheckEntriesResponseOrBuilder
       extends com.google.protobuf.MessageOrBuilder {
     
     // required .StatusCode status = 1;
@@ -4382,36 +7260,37 @@ public final class BookkeeperProtocol {
     boolean hasLedgerId();
     long getLedgerId();
     
-    // required int64 entryId = 3;
-    boolean hasEntryId();
-    long getEntryId();
+    // repeated .StatusCode entryStatus = 3;
+    java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> getEntryStatusList();
+    int getEntryStatusCount();
+    org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getEntryStatus(int index);
   }
-  public static final class AddResponse extends
+  public static final class CheckEntriesResponse extends
       com.google.protobuf.GeneratedMessage
-      implements AddResponseOrBuilder {
-    // Use AddResponse.newBuilder() to construct.
-    private AddResponse(Builder builder) {
+      implements CheckEntriesResponseOrBuilder {
+    // Use CheckEntriesResponse.newBuilder() to construct.
+    private CheckEntriesResponse(Builder builder) {
       super(builder);
     }
-    private AddResponse(boolean noInit) {}
+    private CheckEntriesResponse(boolean noInit) {}
     
-    private static final AddResponse defaultInstance;
-    public static AddResponse getDefaultInstance() {
+    private static final CheckEntriesResponse defaultInstance;
+    public static CheckEntriesResponse getDefaultInstance() {
       return defaultInstance;
     }
     
-    public AddResponse getDefaultInstanceForType() {
+    public CheckEntriesResponse getDefaultInstanceForType() {
       return defaultInstance;
     }
     
     public static final com.google.protobuf.Descriptors.Descriptor
         getDescriptor() {
-      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_AddResponse_descriptor;
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_CheckEntriesResponse_descriptor;
     }
     
     protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
         internalGetFieldAccessorTable() {
-      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_AddResponse_fieldAccessorTable;
+      return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_CheckEntriesResponse_fieldAccessorTable;
     }
     
     private int bitField0_;
@@ -4435,20 +7314,23 @@ public final class BookkeeperProtocol {
       return ledgerId_;
     }
     
-    // required int64 entryId = 3;
-    public static final int ENTRYID_FIELD_NUMBER = 3;
-    private long entryId_;
-    public boolean hasEntryId() {
-      return ((bitField0_ & 0x00000004) == 0x00000004);
+    // repeated .StatusCode entryStatus = 3;
+    public static final int ENTRYSTATUS_FIELD_NUMBER = 3;
+    private java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> entryStatus_;
+    public java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> getEntryStatusList() {
+      return entryStatus_;
     }
-    public long getEntryId() {
-      return entryId_;
+    public int getEntryStatusCount() {
+      return entryStatus_.size();
+    }
+    public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getEntryStatus(int index) {
+      return entryStatus_.get(index);
     }
     
     private void initFields() {
       status_ = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.EOK;
       ledgerId_ = 0L;
-      entryId_ = 0L;
+      entryStatus_ = java.util.Collections.emptyList();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -4463,10 +7345,6 @@ public final class BookkeeperProtocol {
         memoizedIsInitialized = 0;
         return false;
       }
-      if (!hasEntryId()) {
-        memoizedIsInitialized = 0;
-        return false;
-      }
       memoizedIsInitialized = 1;
       return true;
     }
@@ -4480,8 +7358,8 @@ public final class BookkeeperProtocol {
       if (((bitField0_ & 0x00000002) == 0x00000002)) {
         output.writeInt64(2, ledgerId_);
       }
-      if (((bitField0_ & 0x00000004) == 0x00000004)) {
-        output.writeInt64(3, entryId_);
+      for (int i = 0; i < entryStatus_.size(); i++) {
+        output.writeEnum(3, entryStatus_.get(i).getNumber());
       }
       getUnknownFields().writeTo(output);
     }
@@ -4500,9 +7378,14 @@ public final class BookkeeperProtocol {
         size += com.google.protobuf.CodedOutputStream
           .computeInt64Size(2, ledgerId_);
       }
-      if (((bitField0_ & 0x00000004) == 0x00000004)) {
-        size += com.google.protobuf.CodedOutputStream
-          .computeInt64Size(3, entryId_);
+      {
+        int dataSize = 0;
+        for (int i = 0; i < entryStatus_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeEnumSizeNoTag(entryStatus_.get(i).getNumber());
+        }
+        size += dataSize;
+        size += 1 * entryStatus_.size();
       }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
@@ -4516,41 +7399,41 @@ public final class BookkeeperProtocol {
       return super.writeReplace();
     }
     
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseFrom(
         com.google.protobuf.ByteString data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseFrom(
         com.google.protobuf.ByteString data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(byte[] data)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseFrom(byte[] data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseFrom(
         byte[] data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return newBuilder().mergeFrom(data, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(java.io.InputStream input)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseFrom(java.io.InputStream input)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input, extensionRegistry)
                .buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseDelimitedFrom(java.io.InputStream input)
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseDelimitedFrom(java.io.InputStream input)
         throws java.io.IOException {
       Builder builder = newBuilder();
       if (builder.mergeDelimitedFrom(input)) {
@@ -4559,7 +7442,7 @@ public final class BookkeeperProtocol {
         return null;
       }
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseDelimitedFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseDelimitedFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
@@ -4570,12 +7453,12 @@ public final class BookkeeperProtocol {
         return null;
       }
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseFrom(
         com.google.protobuf.CodedInputStream input)
         throws java.io.IOException {
       return newBuilder().mergeFrom(input).buildParsed();
     }
-    public static org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse parseFrom(
+    public static org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse parseFrom(
         com.google.protobuf.CodedInputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
@@ -4585,7 +7468,7 @@ public final class BookkeeperProtocol {
     
     public static Builder newBuilder() { return Builder.create(); }
     public Builder newBuilderForType() { return newBuilder(); }
-    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse prototype) {
+    public static Builder newBuilder(org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse prototype) {
       return newBuilder().mergeFrom(prototype);
     }
     public Builder toBuilder() { return newBuilder(this); }
@@ -4598,18 +7481,18 @@ public final class BookkeeperProtocol {
     }
     public static final class Builder extends
         com.google.protobuf.GeneratedMessage.Builder<Builder>
-       implements org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponseOrBuilder {
+       implements org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponseOrBuilder {
       public static final com.google.protobuf.Descriptors.Descriptor
           getDescriptor() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_AddResponse_descriptor;
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_CheckEntriesResponse_descriptor;
       }
       
       protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
           internalGetFieldAccessorTable() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_AddResponse_fieldAccessorTable;
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.internal_static_CheckEntriesResponse_fieldAccessorTable;
       }
       
-      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.newBuilder()
+      // Construct using org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.newBuilder()
       private Builder() {
         maybeForceBuilderInitialization();
       }
@@ -4632,7 +7515,7 @@ public final class BookkeeperProtocol {
         bitField0_ = (bitField0_ & ~0x00000001);
         ledgerId_ = 0L;
         bitField0_ = (bitField0_ & ~0x00000002);
-        entryId_ = 0L;
+        entryStatus_ = java.util.Collections.emptyList();
         bitField0_ = (bitField0_ & ~0x00000004);
         return this;
       }
@@ -4643,24 +7526,24 @@ public final class BookkeeperProtocol {
       
       public com.google.protobuf.Descriptors.Descriptor
           getDescriptorForType() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDescriptor();
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.getDescriptor();
       }
       
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse getDefaultInstanceForType() {
-        return org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance();
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse getDefaultInstanceForType() {
+        return org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.getDefaultInstance();
       }
       
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse build() {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse result = buildPartial();
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse build() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse result = buildPartial();
         if (!result.isInitialized()) {
           throw newUninitializedMessageException(result);
         }
         return result;
       }
       
-      private org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse buildParsed()
+      private org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse buildParsed()
           throws com.google.protobuf.InvalidProtocolBufferException {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse result = buildPartial();
+        org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse result = buildPartial();
         if (!result.isInitialized()) {
           throw newUninitializedMessageException(
             result).asInvalidProtocolBufferException();
@@ -4668,8 +7551,8 @@ public final class BookkeeperProtocol {
         return result;
       }
       
-      public org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse buildPartial() {
-        org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse result = new org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse(this);
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse buildPartial() {
+        org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse result = new org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse(this);
         int from_bitField0_ = bitField0_;
         int to_bitField0_ = 0;
         if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
@@ -4680,34 +7563,42 @@ public final class BookkeeperProtocol {
           to_bitField0_ |= 0x00000002;
         }
         result.ledgerId_ = ledgerId_;
-        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
-          to_bitField0_ |= 0x00000004;
+        if (((bitField0_ & 0x00000004) == 0x00000004)) {
+          entryStatus_ = java.util.Collections.unmodifiableList(entryStatus_);
+          bitField0_ = (bitField0_ & ~0x00000004);
         }
-        result.entryId_ = entryId_;
+        result.entryStatus_ = entryStatus_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
       }
       
       public Builder mergeFrom(com.google.protobuf.Message other) {
-        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse) {
-          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse)other);
+        if (other instanceof org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse) {
+          return mergeFrom((org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse)other);
         } else {
           super.mergeFrom(other);
           return this;
         }
       }
       
-      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse other) {
-        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.getDefaultInstance()) return this;
+      public Builder mergeFrom(org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse other) {
+        if (other == org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.getDefaultInstance()) return this;
         if (other.hasStatus()) {
           setStatus(other.getStatus());
         }
         if (other.hasLedgerId()) {
           setLedgerId(other.getLedgerId());
         }
-        if (other.hasEntryId()) {
-          setEntryId(other.getEntryId());
+        if (!other.entryStatus_.isEmpty()) {
+          if (entryStatus_.isEmpty()) {
+            entryStatus_ = other.entryStatus_;
+            bitField0_ = (bitField0_ & ~0x00000004);
+          } else {
+            ensureEntryStatusIsMutable();
+            entryStatus_.addAll(other.entryStatus_);
+          }
+          onChanged();
         }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
@@ -4722,10 +7613,6 @@ public final class BookkeeperProtocol {
           
           return false;
         }
-        if (!hasEntryId()) {
-          
-          return false;
-        }
         return true;
       }
       
@@ -4769,8 +7656,28 @@ public final class BookkeeperProtocol {
               break;
             }
             case 24: {
-              bitField0_ |= 0x00000004;
-              entryId_ = input.readInt64();
+              int rawValue = input.readEnum();
+              org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.valueOf(rawValue);
+              if (value == null) {
+                unknownFields.mergeVarintField(3, rawValue);
+              } else {
+                addEntryStatus(value);
+              }
+              break;
+            }
+            case 26: {
+              int length = input.readRawVarint32();
+              int oldLimit = input.pushLimit(length);
+              while(input.getBytesUntilLimit() > 0) {
+                int rawValue = input.readEnum();
+                org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value = org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode.valueOf(rawValue);
+                if (value == null) {
+                  unknownFields.mergeVarintField(3, rawValue);
+                } else {
+                  addEntryStatus(value);
+                }
+              }
+              input.popLimit(oldLimit);
               break;
             }
           }
@@ -4824,36 +7731,66 @@ public final class BookkeeperProtocol {
         return this;
       }
       
-      // required int64 entryId = 3;
-      private long entryId_ ;
-      public boolean hasEntryId() {
-        return ((bitField0_ & 0x00000004) == 0x00000004);
+      // repeated .StatusCode entryStatus = 3;
+      private java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> entryStatus_ =
+        java.util.Collections.emptyList();
+      private void ensureEntryStatusIsMutable() {
+        if (!((bitField0_ & 0x00000004) == 0x00000004)) {
+          entryStatus_ = new java.util.ArrayList<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode>(entryStatus_);
+          bitField0_ |= 0x00000004;
+        }
       }
-      public long getEntryId() {
-        return entryId_;
+      public java.util.List<org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> getEntryStatusList() {
+        return java.util.Collections.unmodifiableList(entryStatus_);
       }
-      public Builder setEntryId(long value) {
-        bitField0_ |= 0x00000004;
-        entryId_ = value;
+      public int getEntryStatusCount() {
+        return entryStatus_.size();
+      }
+      public org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode getEntryStatus(int index) {
+        return entryStatus_.get(index);
+      }
+      public Builder setEntryStatus(
+          int index, org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureEntryStatusIsMutable();
+        entryStatus_.set(index, value);
         onChanged();
         return this;
       }
-      public Builder clearEntryId() {
+      public Builder addEntryStatus(org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureEntryStatusIsMutable();
+        entryStatus_.add(value);
+        onChanged();
+        return this;
+      }
+      public Builder addAllEntryStatus(
+          java.lang.Iterable<? extends org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode> values) {
+        ensureEntryStatusIsMutable();
+        super.addAll(values, entryStatus_);
+        onChanged();
+        return this;
+      }
+      public Builder clearEntryStatus() {
+        entryStatus_ = java.util.Collections.emptyList();
         bitField0_ = (bitField0_ & ~0x00000004);
-        entryId_ = 0L;
         onChanged();
         return this;
       }
       
-      // @@protoc_insertion_point(builder_scope:AddResponse)
+      // @@protoc_insertion_point(builder_scope:CheckEntriesResponse)
     }
     
     static {
-      defaultInstance = new AddResponse(true);
+      defaultInstance = new CheckEntriesResponse(true);
       defaultInstance.initFields();
     }
     
-    // @@protoc_insertion_point(class_scope:AddResponse)
+    // @@protoc_insertion_point(class_scope:CheckEntriesResponse)
   }
   
   private static com.google.protobuf.Descriptors.Descriptor
@@ -4876,6 +7813,16 @@ public final class BookkeeperProtocol {
   private static
     com.google.protobuf.GeneratedMessage.FieldAccessorTable
       internal_static_AddRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_RangeAddRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_RangeAddRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_CheckEntriesRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_CheckEntriesRequest_fieldAccessorTable;
   private static com.google.protobuf.Descriptors.Descriptor
     internal_static_Response_descriptor;
   private static
@@ -4891,6 +7838,16 @@ public final class BookkeeperProtocol {
   private static
     com.google.protobuf.GeneratedMessage.FieldAccessorTable
       internal_static_AddResponse_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_RangeAddResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_RangeAddResponse_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_CheckEntriesResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_CheckEntriesResponse_fieldAccessorTable;
   
   public static com.google.protobuf.Descriptors.FileDescriptor
       getDescriptor() {
@@ -4903,36 +7860,52 @@ public final class BookkeeperProtocol {
       "\n\'src/main/proto/BookkeeperProtocol.prot" +
       "o\"e\n\016BKPacketHeader\022!\n\007version\030\001 \002(\0162\020.P" +
       "rotocolVersion\022!\n\toperation\030\002 \002(\0162\016.Oper" +
-      "ationType\022\r\n\005txnId\030\003 \002(\004\"n\n\007Request\022\037\n\006h" +
-      "eader\030\001 \002(\0132\017.BKPacketHeader\022!\n\013readRequ" +
-      "est\030d \001(\0132\014.ReadRequest\022\037\n\naddRequest\030e " +
-      "\001(\0132\013.AddRequest\"\271\001\n\013ReadRequest\022\037\n\004flag" +
-      "\030d \001(\0162\021.ReadRequest.Flag\022\020\n\010ledgerId\030\001 " +
-      "\002(\003\022\017\n\007entryId\030\002 \002(\003\022\021\n\tmasterKey\030\003 \001(\014\022" +
-      "\023\n\013previousLAC\030\004 \001(\003\022\017\n\007timeOut\030\005 \001(\003\"-\n",
-      "\004Flag\022\020\n\014FENCE_LEDGER\020\001\022\023\n\017ENTRY_PIGGYBA" +
-      "CK\020\002\"\212\001\n\nAddRequest\022\036\n\004flag\030d \001(\0162\020.AddR" +
-      "equest.Flag\022\020\n\010ledgerId\030\001 \002(\003\022\017\n\007entryId" +
-      "\030\002 \002(\003\022\021\n\tmasterKey\030\003 \002(\014\022\014\n\004body\030\004 \002(\014\"" +
-      "\030\n\004Flag\022\020\n\014RECOVERY_ADD\020\001\"\220\001\n\010Response\022\037" +
-      "\n\006header\030\001 \002(\0132\017.BKPacketHeader\022\033\n\006statu" +
-      "s\030\002 \002(\0162\013.StatusCode\022#\n\014readResponse\030d \001" +
-      "(\0132\r.ReadResponse\022!\n\013addResponse\030e \001(\0132\014" +
-      ".AddResponse\"\210\001\n\014ReadResponse\022\033\n\006status\030" +
-      "\001 \002(\0162\013.StatusCode\022\020\n\010ledgerId\030\002 \002(\003\022\017\n\007",
-      "entryId\030\003 \002(\003\022\014\n\004body\030\004 \001(\014\022\016\n\006maxLAC\030\005 " +
-      "\001(\003\022\032\n\022lacUpdateTimestamp\030\006 \001(\003\"M\n\013AddRe" +
-      "sponse\022\033\n\006status\030\001 \002(\0162\013.StatusCode\022\020\n\010l" +
-      "edgerId\030\002 \002(\003\022\017\n\007entryId\030\003 \002(\003*F\n\017Protoc" +
-      "olVersion\022\017\n\013VERSION_ONE\020\001\022\017\n\013VERSION_TW" +
-      "O\020\002\022\021\n\rVERSION_THREE\020\003*\206\001\n\nStatusCode\022\007\n" +
-      "\003EOK\020\000\022\016\n\tENOLEDGER\020\222\003\022\r\n\010ENOENTRY\020\223\003\022\014\n" +
-      "\007EBADREQ\020\224\003\022\010\n\003EIO\020\365\003\022\010\n\003EUA\020\366\003\022\020\n\013EBADV" +
-      "ERSION\020\367\003\022\014\n\007EFENCED\020\370\003\022\016\n\tEREADONLY\020\371\003*" +
-      "Y\n\rOperationType\022\016\n\nREAD_ENTRY\020\001\022\r\n\tADD_",
-      "ENTRY\020\002\022\024\n\020RANGE_READ_ENTRY\020\003\022\023\n\017RANGE_A" +
-      "DD_ENTRY\020\004B\037\n\033org.apache.bookkeeper.prot" +
-      "oH\001"
+      "ationType\022\r\n\005txnId\030\003 \002(\004\"\314\001\n\007Request\022\037\n\006" +
+      "header\030\001 \002(\0132\017.BKPacketHeader\022!\n\013readReq" +
+      "uest\030d \001(\0132\014.ReadRequest\022\037\n\naddRequest\030e" +
+      " \001(\0132\013.AddRequest\022)\n\017rangeAddRequest\030f \001" +
+      "(\0132\020.RangeAddRequest\0221\n\023checkEntriesRequ" +
+      "est\030g \001(\0132\024.CheckEntriesRequest\"\315\001\n\013Read" +
+      "Request\022\037\n\004flag\030d \001(\0162\021.ReadRequest.Flag",
+      "\022\020\n\010ledgerId\030\001 \002(\003\022\017\n\007entryId\030\002 \002(\003\022\021\n\tm" +
+      "asterKey\030\003 \001(\014\022\023\n\013previousLAC\030\004 \001(\003\022\017\n\007t" +
+      "imeOut\030\005 \001(\003\022\022\n\nnumEntries\030\006 \001(\005\"-\n\004Flag" +
+      "\022\020\n\014FENCE_LEDGER\020\001\022\023\n\017ENTRY_PIGGYBACK\020\002\"" +
+      "\212\001\n\nAddRequest\022\036\n\004flag\030d \001(\0162\020.AddReques" +
+      "t.Flag\022\020\n\010ledgerId\030\001 \002(\003\022\017\n\007entryId\030\002 \002(" +
+      "\003\022\021\n\tmasterKey\030\003 \002(\014\022\014\n\004body\030\004 \002(\014\"\030\n\004Fl" +
+      "ag\022\020\n\014RECOVERY_ADD\020\001\"z\n\017RangeAddRequest\022" +
+      "\036\n\004flag\030d \001(\0162\020.AddRequest.Flag\022\020\n\010ledge" +
+      "rId\030\001 \002(\003\022\024\n\014firstEntryId\030\002 \002(\003\022\021\n\tmaste",
+      "rKey\030\003 \002(\014\022\014\n\004body\030\004 \003(\014\"8\n\023CheckEntries" +
+      "Request\022\020\n\010ledgerId\030\001 \002(\003\022\017\n\007entryId\030\002 \003" +
+      "(\003\"\362\001\n\010Response\022\037\n\006header\030\001 \002(\0132\017.BKPack" +
+      "etHeader\022\033\n\006status\030\002 \002(\0162\013.StatusCode\022#\n" +
+      "\014readResponse\030d \001(\0132\r.ReadResponse\022!\n\013ad" +
+      "dResponse\030e \001(\0132\014.AddResponse\022+\n\020rangeAd" +
+      "dResponse\030f \001(\0132\021.RangeAddResponse\0223\n\024ch" +
+      "eckEntriesResponse\030g \001(\0132\025.CheckEntriesR" +
+      "esponse\"\210\001\n\014ReadResponse\022\033\n\006status\030\001 \002(\016" +
+      "2\013.StatusCode\022\020\n\010ledgerId\030\002 \002(\003\022\017\n\007entry",
+      "Id\030\003 \002(\003\022\014\n\004body\030\004 \001(\014\022\016\n\006maxLAC\030\005 \001(\003\022\032" +
+      "\n\022lacUpdateTimestamp\030\006 \001(\003\"M\n\013AddRespons" +
+      "e\022\033\n\006status\030\001 \002(\0162\013.StatusCode\022\020\n\010ledger" +
+      "Id\030\002 \002(\003\022\017\n\007entryId\030\003 \002(\003\"y\n\020RangeAddRes" +
+      "ponse\022\033\n\006status\030\001 \002(\0162\013.StatusCode\022\020\n\010le" +
+      "dgerId\030\002 \002(\003\022\024\n\014firstEntryId\030\003 \002(\003\022 \n\013en" +
+      "tryStatus\030\004 \003(\0162\013.StatusCode\"g\n\024CheckEnt" +
+      "riesResponse\022\033\n\006status\030\001 \002(\0162\013.StatusCod" +
+      "e\022\020\n\010ledgerId\030\002 \002(\003\022 \n\013entryStatus\030\003 \003(\016" +
+      "2\013.StatusCode*F\n\017ProtocolVersion\022\017\n\013VERS",
+      "ION_ONE\020\001\022\017\n\013VERSION_TWO\020\002\022\021\n\rVERSION_TH" +
+      "REE\020\003*\206\001\n\nStatusCode\022\007\n\003EOK\020\000\022\016\n\tENOLEDG" +
+      "ER\020\222\003\022\r\n\010ENOENTRY\020\223\003\022\014\n\007EBADREQ\020\224\003\022\010\n\003EI" +
+      "O\020\365\003\022\010\n\003EUA\020\366\003\022\020\n\013EBADVERSION\020\367\003\022\014\n\007EFEN" +
+      "CED\020\370\003\022\016\n\tEREADONLY\020\371\003*l\n\rOperationType\022" +
+      "\016\n\nREAD_ENTRY\020\001\022\r\n\tADD_ENTRY\020\002\022\024\n\020RANGE_" +
+      "READ_ENTRY\020\003\022\023\n\017RANGE_ADD_ENTRY\020\004\022\021\n\rCHE" +
+      "CK_ENTRIES\020\005B\037\n\033org.apache.bookkeeper.pr" +
+      "otoH\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -4952,7 +7925,7 @@ public final class BookkeeperProtocol {
           internal_static_Request_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_Request_descriptor,
-              new java.lang.String[] { "Header", "ReadRequest", "AddRequest", },
+              new java.lang.String[] { "Header", "ReadRequest", "AddRequest", "RangeAddRequest", "CheckEntriesRequest", },
               org.apache.bookkeeper.proto.BookkeeperProtocol.Request.class,
               org.apache.bookkeeper.proto.BookkeeperProtocol.Request.Builder.class);
           internal_static_ReadRequest_descriptor =
@@ -4960,7 +7933,7 @@ public final class BookkeeperProtocol {
           internal_static_ReadRequest_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_ReadRequest_descriptor,
-              new java.lang.String[] { "Flag", "LedgerId", "EntryId", "MasterKey", "PreviousLAC", "TimeOut", },
+              new java.lang.String[] { "Flag", "LedgerId", "EntryId", "MasterKey", "PreviousLAC", "TimeOut", "NumEntries", },
               org.apache.bookkeeper.proto.BookkeeperProtocol.ReadRequest.class,
               org.apache.bookkeeper.proto.BookkeeperProtocol.ReadRequest.Builder.class);
           internal_static_AddRequest_descriptor =
@@ -4971,16 +7944,32 @@ public final class BookkeeperProtocol {
               new java.lang.String[] { "Flag", "LedgerId", "EntryId", "MasterKey", "Body", },
               org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.class,
               org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest.Builder.class);
-          internal_static_Response_descriptor =
+          internal_static_RangeAddRequest_descriptor =
             getDescriptor().getMessageTypes().get(4);
+          internal_static_RangeAddRequest_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_RangeAddRequest_descriptor,
+              new java.lang.String[] { "Flag", "LedgerId", "FirstEntryId", "MasterKey", "Body", },
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.class,
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest.Builder.class);
+          internal_static_CheckEntriesRequest_descriptor =
+            getDescriptor().getMessageTypes().get(5);
+          internal_static_CheckEntriesRequest_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_CheckEntriesRequest_descriptor,
+              new java.lang.String[] { "LedgerId", "EntryId", },
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.class,
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest.Builder.class);
+          internal_static_Response_descriptor =
+            getDescriptor().getMessageTypes().get(6);
           internal_static_Response_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_Response_descriptor,
-              new java.lang.String[] { "Header", "Status", "ReadResponse", "AddResponse", },
+              new java.lang.String[] { "Header", "Status", "ReadResponse", "AddResponse", "RangeAddResponse", "CheckEntriesResponse", },
               org.apache.bookkeeper.proto.BookkeeperProtocol.Response.class,
               org.apache.bookkeeper.proto.BookkeeperProtocol.Response.Builder.class);
           internal_static_ReadResponse_descriptor =
-            getDescriptor().getMessageTypes().get(5);
+            getDescriptor().getMessageTypes().get(7);
           internal_static_ReadResponse_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_ReadResponse_descriptor,
@@ -4988,13 +7977,29 @@ public final class BookkeeperProtocol {
               org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.class,
               org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse.Builder.class);
           internal_static_AddResponse_descriptor =
-            getDescriptor().getMessageTypes().get(6);
+            getDescriptor().getMessageTypes().get(8);
           internal_static_AddResponse_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_AddResponse_descriptor,
               new java.lang.String[] { "Status", "LedgerId", "EntryId", },
               org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.class,
               org.apache.bookkeeper.proto.BookkeeperProtocol.AddResponse.Builder.class);
+          internal_static_RangeAddResponse_descriptor =
+            getDescriptor().getMessageTypes().get(9);
+          internal_static_RangeAddResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_RangeAddResponse_descriptor,
+              new java.lang.String[] { "Status", "LedgerId", "FirstEntryId", "EntryStatus", },
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.class,
+              org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse.Builder.class);
+          internal_static_CheckEntriesResponse_descriptor =
+            getDescriptor().getMessageTypes().get(10);
+          internal_static_CheckEntriesResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_CheckEntriesResponse_descriptor,
+              new java.lang.String[] { "Status", "LedgerId", "EntryStatus", },
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.class,
+              org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse.Builder.class);
           return null;
         }
       };
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.proto;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.bookkeeper.bookie.Bookie;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.CheckEntriesResponse;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Response;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.util.MathUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
+
+/**
+ * Processor handling check entries request.
+ *
+ * <p>
+ * Each entry of the request is looked up in the ledger index, without reading it
+ * from the entry logs. A single response carries whether each entry is stored.
+ * </p>
+ */
+class CheckEntriesProcessorV3 extends PacketProcessorBaseV3 {
+    private final static Logger logger = LoggerFactory.getLogger(CheckEntriesProcessorV3.class);
+
+    private final long startTimeNanos;
+
+    CheckEntriesProcessorV3(Request request, List<ChannelBuffer> requestBodies, Channel channel, Bookie bookie,
+                            StatsLogger statsLogger) {
+        super(request, requestBodies, channel, bookie, statsLogger);
+        this.startTimeNanos = MathUtils.nowInNano();
+    }
+
+    private CheckEntriesResponse getCheckEntriesResponse() {
+        CheckEntriesRequest checkRequest = request.getCheckEntriesRequest();
+        long ledgerId = checkRequest.getLedgerId();
+        CheckEntriesResponse.Builder checkResponse = CheckEntriesResponse.newBuilder()
+                .setLedgerId(ledgerId);
+
+        if (!isVersionCompatible()) {
+            return checkResponse.setStatus(StatusCode.EBADVERSION).build();
+        }
+
+        StatusCode status = StatusCode.EOK;
+        try {
+            for (long entryId : checkRequest.getEntryIdList()) {
+                if (bookie.entryExists(ledgerId, entryId)) {
+                    checkResponse.addEntryStatus(StatusCode.EOK);
+                } else {
+                    checkResponse.addEntryStatus(StatusCode.ENOENTRY);
+                }
+            }
+        } catch (Bookie.NoLedgerException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("No ledger found while checking entries of ledger: " + ledgerId, e);
+            }
+            status = StatusCode.ENOLEDGER;
+        } catch (IOException e) {
+            logger.error("IOException while checking entries of ledger: " + ledgerId, e);
+            status = StatusCode.EIO;
+        }
+        if (StatusCode.EOK != status) {
+            checkResponse.clearEntryStatus();
+        }
+        return checkResponse.setStatus(status).build();
+    }
+
+    @Override
+    public void safeRun() {
+        CheckEntriesResponse checkResponse = getCheckEntriesResponse();
+        StatusCode status = checkResponse.getStatus();
+        if (StatusCode.EOK == status) {
+            statsLogger.getOpStatsLogger(CHECK_ENTRIES)
+                    .registerSuccessfulEvent(MathUtils.elapsedMicroSec(startTimeNanos));
+        } else {
+            statsLogger.getOpStatsLogger(CHECK_ENTRIES)
+                    .registerFailedEvent(MathUtils.elapsedMicroSec(startTimeNanos));
+        }
+        Response.Builder response = Response.newBuilder()
+                .setHeader(getHeader())
+                .setStatus(status)
+                .setCheckEntriesResponse(checkResponse);
+        sendResponse(status, statsLogger.getOpStatsLogger(CHECK_ENTRIES_REQUEST), response.build());
+    }
+}
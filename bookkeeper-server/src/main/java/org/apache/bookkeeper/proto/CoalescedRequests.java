@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.proto;
+
+import java.util.List;
+
+/**
+ * Requests written to a channel with a single write.
+ *
+ * <p>
+ * The requests are encoded by the request encoder into a list of buffers, one per
+ * request, which the {@link BookieProtoEncoding.CoalescedLengthFieldPrepender} frames
+ * one by one into a single buffer. The bookie reads them as if they were written
+ * separately.
+ * </p>
+ */
+class CoalescedRequests {
+
+    private final List<Object> messages;
+
+    CoalescedRequests(List<Object> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * @return the requests, or their encoded buffers once encoded, in the order they are written.
+     */
+    List<Object> getMessages() {
+        return messages;
+    }
+
+    @Override
+    public String toString() {
+        return messages.size() + " coalesced requests";
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
 import org.apache.bookkeeper.stats.StatsLogger;
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.Timeout;
@@ -33,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.concurrent.ExecutorService;
@@ -60,13 +62,14 @@ class LongPollReadEntryProcessorV3 extends ReadEntryProcessorV3 implements Obser
     private boolean shouldReadEntry = false;
 
     LongPollReadEntryProcessorV3(Request request,
+                                 List<ChannelBuffer> requestBodies,
                                  Channel channel,
                                  Bookie bookie,
                                  ExecutorService fenceThreadPool,
                                  ExecutorService longPollThreadPool,
                                  HashedWheelTimer requestTimer,
                                  StatsLogger statsLogger) {
-        super(request, channel, bookie, fenceThreadPool, statsLogger);
+        super(request, requestBodies, channel, bookie, fenceThreadPool, statsLogger);
         this.previousLAC = readRequest.getPreviousLAC();
         this.longPollThreadPool = longPollThreadPool;
         this.requestTimer = requestTimer;
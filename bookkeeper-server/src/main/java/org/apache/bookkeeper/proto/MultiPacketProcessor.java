@@ -28,9 +28,11 @@ import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.util.MonitoredThreadPoolExecutor;
 import org.apache.bookkeeper.util.OrderedSafeExecutor;
 import org.apache.bookkeeper.util.SafeRunnable;
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.util.HashedWheelTimer;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -141,6 +143,14 @@ public class MultiPacketProcessor implements RequestProcessor {
      */
     @Override
     public void processRequest(Object msg, Channel channel) {
+        // The entry bodies of a body framed request are passed to its processor,
+        // which body frames the responses as well.
+        List<ChannelBuffer> bodies = null;
+        if (msg instanceof BodyFramedMessage) {
+            BodyFramedMessage<?> framedMsg = (BodyFramedMessage<?>) msg;
+            bodies = framedMsg.getBodies();
+            msg = framedMsg.getMessage();
+        }
         // If we can decode this packet as a Request protobuf packet, process
         // it as a version 3 packet. Else, just use the old protocol.
         if (msg instanceof Request) {
@@ -149,22 +159,35 @@ public class MultiPacketProcessor implements RequestProcessor {
             BKPacketHeader header = request.getHeader();
             switch (header.getOperation()) {
             case ADD_ENTRY:
-                processAddRequest(channel, new WriteEntryProcessorV3(request, channel, bookie, statsLogger));
+                processAddRequest(channel, new WriteEntryProcessorV3(request, bodies, channel, bookie, statsLogger));
                 break;
             case READ_ENTRY:
                 ExecutorService fenceThreadPool =
                         null == readThreadPool ? null : readThreadPool.chooseThread(channel);
                 if (RequestUtils.isLongPollReadRequest(request.getReadRequest())) {
                     LongPollReadEntryProcessorV3 readProcessor =
-                            new LongPollReadEntryProcessorV3(request, channel, bookie, fenceThreadPool,
+                            new LongPollReadEntryProcessorV3(request, bodies, channel, bookie, fenceThreadPool,
                                     longPollThreadPool, requestTimer, statsLogger);
                     processLongPollReadRequest(readProcessor);
                 } else {
                     ReadEntryProcessorV3 readProcessor =
-                            new ReadEntryProcessorV3(request, channel, bookie, fenceThreadPool, statsLogger);
+                            new ReadEntryProcessorV3(request, bodies, channel, bookie, fenceThreadPool, statsLogger);
                     processReadRequest(channel, readProcessor);
                 }
                 break;
+            case RANGE_ADD_ENTRY:
+                processAddRequest(channel, new RangeWriteEntryProcessorV3(request, bodies, channel, bookie,
+                        statsLogger));
+                break;
+            case RANGE_READ_ENTRY:
+                processReadRequest(channel, new RangeReadEntryProcessorV3(request, bodies, channel, bookie,
+                        null == readThreadPool ? null : readThreadPool.chooseThread(channel),
+                        serverCfg.getServerRangeReadMaxEntries(), statsLogger));
+                break;
+            case CHECK_ENTRIES:
+                processReadRequest(channel, new CheckEntriesProcessorV3(request, bodies, channel, bookie,
+                        statsLogger));
+                break;
             default:
                 Response.Builder response = Response.newBuilder().setHeader(request.getHeader())
                         .setStatus(StatusCode.EBADREQ);
@@ -1,5 +1,6 @@
 package org.apache.bookkeeper.proto;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Stopwatch;
@@ -16,6 +17,7 @@ import org.apache.bookkeeper.proto.BookkeeperProtocol.ProtocolVersion;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
@@ -25,6 +27,8 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
 abstract class PacketProcessorBaseV3 extends SafeRunnable {
     private final static Logger logger = LoggerFactory.getLogger(PacketProcessorBaseV3.class);
     final Request request;
+    // entry bodies framed apart from the request, null if the request isn't body framed
+    final List<ChannelBuffer> requestBodies;
     final Channel channel;
     final Bookie  bookie;
     final OpStatsLogger channelWriteOpStatsLogger;
@@ -32,10 +36,12 @@ abstract class PacketProcessorBaseV3 extends SafeRunnable {
     protected final StatsLogger statsLogger;
 
     PacketProcessorBaseV3(Request request,
+                          List<ChannelBuffer> requestBodies,
                           Channel channel,
                           Bookie bookie,
                           StatsLogger statsLogger) {
         this.request = request;
+        this.requestBodies = requestBodies;
         this.channel = channel;
         this.bookie = bookie;
         this.statsLogger = statsLogger;
@@ -43,9 +49,10 @@ abstract class PacketProcessorBaseV3 extends SafeRunnable {
         this.enqueueStopwatch = Stopwatch.createStarted();
     }
 
-    protected void sendResponse(final StatusCode code, final OpStatsLogger statsLogger, Object response) {
+    protected ChannelFuture sendResponse(final StatusCode code, final OpStatsLogger statsLogger, Object response) {
         final Stopwatch writeStopwatch = Stopwatch.createStarted();
-        channel.write(response).addListener(new ChannelFutureListener() {
+        ChannelFuture writeFuture = channel.write(response);
+        writeFuture.addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture channelFuture) throws Exception {
 
@@ -64,6 +71,15 @@ abstract class PacketProcessorBaseV3 extends SafeRunnable {
                 }
             }
         });
+        return writeFuture;
+    }
+
+    /**
+     * @return whether the responses to the request should be body framed.
+     * @see BodyFramedMessage
+     */
+    protected boolean isBodyFramed() {
+        return null != requestBodies;
     }
 
     protected boolean isVersionCompatible() {
@@ -31,6 +31,7 @@ import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.*;
 import org.apache.bookkeeper.stats.NullStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.util.ConcurrentLongHashMap;
 import org.apache.bookkeeper.util.MathUtils;
 import org.apache.bookkeeper.util.OrderedSafeExecutor;
 import org.apache.bookkeeper.util.SafeRunnable;
@@ -52,7 +53,6 @@ import org.jboss.netty.channel.SimpleChannelHandler;
 import org.jboss.netty.channel.socket.ClientSocketChannelFactory;
 import org.jboss.netty.handler.codec.frame.CorruptedFrameException;
 import org.jboss.netty.handler.codec.frame.LengthFieldBasedFrameDecoder;
-import org.jboss.netty.handler.codec.frame.LengthFieldPrepender;
 import org.jboss.netty.handler.codec.frame.TooLongFrameException;
 import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.Timeout;
@@ -63,12 +63,14 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class manages all details of connection to a particular bookie. It also
@@ -81,23 +83,46 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
 
     private final static Logger LOG = LoggerFactory.getLogger(PerChannelBookieClient.class);
     public static final int MAX_FRAME_LENGTH = 2 * 1024 * 1024; // 2M
+    private static final List<ChannelBuffer> NO_BODIES = Collections.emptyList();
     private final static long SECOND_MICROS = TimeUnit.SECONDS.toMicros(1);
-    // TODO: txnId generator per bookie?
-    public static final AtomicLong txnIdGenerator = new AtomicLong(0);
 
     // stats logger for 'pre' stage: complection key is removed from map (either response arrived or timeout)
     private final StatsLogger preStatsLogger;
     // stats logger for 'callback' stage: callback is triggered
     private final StatsLogger statsLogger;
     /**
-     * Maps a completion key to a completion object that is of the respective completion type.
+     * Maps the txnId of an outstanding request to a completion object that is of the respective
+     * completion type. The requests are timed out by a single periodic sweep of this table.
      */
-    private final ConcurrentMap<CompletionKey, CompletionValue> completionObjects = new ConcurrentHashMap<CompletionKey, CompletionValue>();
+    private final ConcurrentLongHashMap<CompletionValue> completionObjects = new ConcurrentLongHashMap<CompletionValue>();
 
     final BookieSocketAddress addr;
     final ClientSocketChannelFactory channelFactory;
     final OrderedSafeExecutor executor;
     final HashedWheelTimer requestTimer;
+    private final long timeoutSweepIntervalMillis;
+
+    // txnIds only need to be unique among the requests of a channel
+    private final AtomicLong txnIdGenerator = new AtomicLong(0);
+
+    // Requests queued to be flushed to the channel. The request which makes the number of
+    // queued requests go from zero to one flushes them, along with the requests queued
+    // while it does so.
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<PendingWrite>();
+    private final AtomicInteger numPendingWrites = new AtomicInteger(0);
+    private final int maxRequestsPerFlush;
+    private final SafeRunnable flushTask = new SafeRunnable() {
+        @Override
+        public void safeRun() {
+            flushPendingWrites();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ChannelFlush(Addr=%s, HashCode=%h)",
+                                 addr, System.identityHashCode(PerChannelBookieClient.this));
+        }
+    };
 
     private volatile Queue<GenericCallback<PerChannelBookieClient>> pendingOps =
             new ArrayDeque<GenericCallback<PerChannelBookieClient>>();
@@ -108,8 +133,9 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
     }
 
     volatile ConnectionState state;
-    final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
     private final ClientConfiguration conf;
+    // whether to frame the entry bodies apart from the protobuf requests
+    private final boolean bodyFramed;
 
     public PerChannelBookieClient(OrderedSafeExecutor executor, ClientSocketChannelFactory channelFactory,
                                 BookieSocketAddress addr) {
@@ -120,6 +146,8 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
                                   ClientSocketChannelFactory channelFactory, BookieSocketAddress addr,
                                   HashedWheelTimer requestTimer, StatsLogger parentStatsLogger, Optional<String> networkLocation) {
         this.conf = conf;
+        this.bodyFramed = conf.getEnableBodyFraming();
+        this.maxRequestsPerFlush = Math.max(1, conf.getMaxRequestsPerFlush());
         this.addr = addr;
         this.executor = executor;
         this.channelFactory = channelFactory;
@@ -127,32 +155,73 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         this.statsLogger = getPerChannelBookieClientStatsLogger("", conf, addr, parentStatsLogger, networkLocation);
         this.preStatsLogger = getPerChannelBookieClientStatsLogger("pre", conf, addr, parentStatsLogger, networkLocation);
         this.requestTimer = requestTimer;
+        long sweepIntervalMillis = conf.getTimeoutTaskIntervalMillis();
+        this.timeoutSweepIntervalMillis = sweepIntervalMillis > 0 ?
+                sweepIntervalMillis : conf.getTimeoutTimerTickDurationMs();
+        scheduleTimeoutSweep();
+    }
+
+    /**
+     * Get the completion of the outstanding request <i>txnId</i>, if it is a request
+     * of the given type.
+     *
+     * @return the completion, or null if there is none.
+     */
+    private CompletionValue getCompletion(long txnId, OperationType operationType) {
+        CompletionValue value = completionObjects.get(txnId);
+        if (null == value || value.operationType != operationType) {
+            return null;
+        }
+        return value;
     }
 
-    private CompletionValue removeCompletionKey(CompletionKey key, boolean completed) {
-        CompletionValue value = completionObjects.remove(key);
-        if (completed && null != value) {
+    /**
+     * Remove the completion of an outstanding request.
+     *
+     * @return true if the completion was removed, false if it was already completed,
+     *         errored out or timed out.
+     */
+    private boolean removeCompletion(CompletionValue value, boolean completed) {
+        if (!completionObjects.remove(value.txnId, value)) {
+            return false;
+        }
+        if (completed) {
             long elapsedMicros = MathUtils.elapsedMicroSec(value.requestTimeNanos);
-            if (OperationType.ADD_ENTRY == key.operationType && elapsedMicros > SECOND_MICROS) {
+            if (OperationType.ADD_ENTRY == value.operationType && elapsedMicros > SECOND_MICROS) {
                 LOG.warn("ADD(txn={}, entry=({}, {})) takes too long {} micros to complete.",
-                         new Object[] { key.txnId, value.ledgerId, value.entryId, elapsedMicros });
+                         new Object[] { value.txnId, value.ledgerId, value.entryId, elapsedMicros });
             }
             this.preStatsLogger.getOpStatsLogger(value.op).registerSuccessfulEvent(elapsedMicros);
         }
-        return value;
+        return true;
+    }
+
+    /**
+     * Register the completion of a request about to be sent.
+     *
+     * <p>
+     * {@link #close()} marks the client closed before erroring out the outstanding
+     * requests, so a request registered while the client is being closed is either
+     * errored out by it, or sees the client closed and is errored out here.
+     * </p>
+     *
+     * @return false if the client is closed, the completion is then errored out.
+     */
+    private boolean registerCompletion(CompletionValue completion) {
+        completionObjects.put(completion.txnId, completion);
+        if (ConnectionState.CLOSED == state) {
+            errorOut(completion, BKException.Code.ClientClosedException);
+            return false;
+        }
+        return true;
     }
 
     private void completeOperation(GenericCallback<PerChannelBookieClient> op,
                                    int rc, PerChannelBookieClient client) {
-        closeLock.readLock().lock();
-        try {
-            if (ConnectionState.CLOSED == state) {
-                op.operationComplete(BKException.Code.ClientClosedException, client);
-            } else {
-                op.operationComplete(rc, client);
-            }
-        } finally {
-            closeLock.readLock().unlock();
+        if (ConnectionState.CLOSED == state) {
+            op.operationComplete(BKException.Code.ClientClosedException, client);
+        } else {
+            op.operationComplete(rc, client);
         }
     }
 
@@ -286,6 +355,17 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         int UnknownError = -2;
     }
 
+    private static String getBasicInfoFromRequests(List<PendingWrite> writes) {
+        if (1 == writes.size()) {
+            return getBasicInfoFromRequest(writes.get(0).request);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (PendingWrite write : writes) {
+            sb.append(sb.length() == 0 ? "[" : ", ").append(getBasicInfoFromRequest(write.request));
+        }
+        return sb.append("]").toString();
+    }
+
     private static String getBasicInfoFromRequest(Request request) {
         StringBuilder sb = new StringBuilder("request(txn=")
                 .append(request.getHeader().getTxnId())
@@ -303,78 +383,126 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
     }
 
     /**
-     * Write to channel, invoking the write call directly.
+     * A request queued to be written to a channel.
+     */
+    private static class PendingWrite {
+        final Channel channel;
+        final Request request;
+        final Object msg;
+        final GenericCallback<Void> cb;
+        final long enqueueTimeNanos;
+
+        PendingWrite(Channel channel, Request request, Object msg, GenericCallback<Void> cb) {
+            this.channel = channel;
+            this.request = request;
+            this.msg = msg;
+            this.cb = cb;
+            this.enqueueTimeNanos = MathUtils.nowInNano();
+        }
+    }
+
+    /**
+     * Queue a request to be written to the channel. The request is flushed, possibly
+     * along with other queued requests, by the calling thread, or via the executor if
+     * requests are written to the channel asynchronously.
      *
      * @param channel
      * @param request
+     * @param bodies entry bodies of the request, written apart from it if bodies are framed
      * @param cb
      */
-    private void writeRequestToChannelDirect(final Channel channel, final Request request,
-                                             final GenericCallback<Void> cb) {
-        final long writeStartNanos = MathUtils.nowInNano();
+    private void writeRequestToChannel(final Channel channel, final Request request,
+                                       final List<ChannelBuffer> bodies,
+                                       final GenericCallback<Void> cb) {
+        Object msg = request;
+        if (bodyFramed) {
+            msg = new BodyFramedMessage<Request>(request, bodies);
+        }
+        pendingWrites.add(new PendingWrite(channel, request, msg, cb));
+        if (0 == numPendingWrites.getAndIncrement()) {
+            if (conf.getWriteToChannelAsync()) {
+                executor.submit(flushTask);
+            } else {
+                flushPendingWrites();
+            }
+        }
+    }
+
+    /**
+     * Flush the queued requests, until no request is queued anymore. Consecutive requests
+     * to the same channel are coalesced into writes of up to {@link #maxRequestsPerFlush}
+     * requests.
+     */
+    private void flushPendingWrites() {
+        int numToFlush = numPendingWrites.get();
+        while (numToFlush > 0) {
+            // the requests are queued before they are counted, so at least numToFlush are queued
+            List<PendingWrite> writes = new ArrayList<PendingWrite>(Math.min(numToFlush, maxRequestsPerFlush));
+            for (int i = 0; i < numToFlush; i++) {
+                PendingWrite write = pendingWrites.poll();
+                if (!writes.isEmpty() && (writes.size() >= maxRequestsPerFlush
+                                          || writes.get(0).channel != write.channel)) {
+                    writeToChannel(writes);
+                    writes = new ArrayList<PendingWrite>(Math.min(numToFlush - i, maxRequestsPerFlush));
+                }
+                writes.add(write);
+            }
+            writeToChannel(writes);
+            numToFlush = numPendingWrites.addAndGet(-numToFlush);
+        }
+    }
+
+    /**
+     * Write requests to their channel with a single write.
+     */
+    private void writeToChannel(final List<PendingWrite> writes) {
+        final Channel channel = writes.get(0).channel;
+        statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_REQUESTS_PER_FLUSH)
+                .registerSuccessfulEvent(writes.size());
         try {
-            channel.write(request).addListener(new ChannelFutureListener() {
+            Object msg;
+            if (1 == writes.size()) {
+                msg = writes.get(0).msg;
+            } else {
+                List<Object> msgs = new ArrayList<Object>(writes.size());
+                for (PendingWrite write : writes) {
+                    msgs.add(write.msg);
+                }
+                msg = new CoalescedRequests(msgs);
+            }
+            channel.write(msg).addListener(new ChannelFutureListener() {
                 @Override
                 public void operationComplete(ChannelFuture channelFuture) throws Exception {
                     if (!channelFuture.isSuccess()) {
-                        statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_WRITE)
-                                .registerFailedEvent(MathUtils.elapsedMicroSec(writeStartNanos));
+                        int rc;
                         if (channelFuture.getCause() instanceof ClosedChannelException) {
-                            cb.operationComplete(ChannelRequestCompletionCode.ChannelClosedException, null);
+                            rc = ChannelRequestCompletionCode.ChannelClosedException;
                         } else {
-                            LOG.warn("Writing a request: {} to channel {} failed : cause = {}",
-                                    new Object[] { getBasicInfoFromRequest(request), channel,
+                            LOG.warn("Writing requests: {} to channel {} failed : cause = {}",
+                                    new Object[] { getBasicInfoFromRequests(writes), channel,
                                             channelFuture.getCause().getMessage() });
-                            cb.operationComplete(ChannelRequestCompletionCode.UnknownError, null);
+                            rc = ChannelRequestCompletionCode.UnknownError;
+                        }
+                        for (PendingWrite write : writes) {
+                            statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_WRITE)
+                                    .registerFailedEvent(MathUtils.elapsedMicroSec(write.enqueueTimeNanos));
+                            write.cb.operationComplete(rc, null);
                         }
                     } else {
-                        statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_WRITE)
-                                .registerSuccessfulEvent(MathUtils.elapsedMicroSec(writeStartNanos));
-                        cb.operationComplete(ChannelRequestCompletionCode.OK, null);
+                        for (PendingWrite write : writes) {
+                            statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_WRITE)
+                                    .registerSuccessfulEvent(MathUtils.elapsedMicroSec(write.enqueueTimeNanos));
+                            write.cb.operationComplete(ChannelRequestCompletionCode.OK, null);
+                        }
                     }
                 }
             });
         } catch (Throwable t) {
-            LOG.warn("Writing a request:{} to channel:{} failed : ",
-                    new Object[] { getBasicInfoFromRequest(request), channel, t });
-            cb.operationComplete(-1, null);
-        }
-    }
-
-    /**
-     * Write to channel, invoking the write call via the executor.
-     *
-     * @param channel
-     * @param request
-     * @param cb
-     */
-    private void writeRequestToChannelAsync(final Channel channel, final Request request,
-                                            final GenericCallback<Void> cb) {
-        executor.submit(new SafeRunnable() {
-            @Override
-            public void safeRun() {
-                writeRequestToChannelDirect(channel, request, cb);
-            }
-            @Override
-            public String toString() {
-                return String.format("ChannelWrite(Txn=%d, Type=%s, Addr=%s, HashCode=%h, Request=%s)",
-                    request.getHeader().getTxnId(), request.getHeader().getOperation(), addr,
-                    System.identityHashCode(PerChannelBookieClient.this), request);
+            LOG.warn("Writing requests:{} to channel:{} failed : ",
+                    new Object[] { getBasicInfoFromRequests(writes), channel, t });
+            for (PendingWrite write : writes) {
+                write.cb.operationComplete(-1, null);
             }
-        });
-    }
-
-    /**
-     * @param channel
-     * @param request
-     * @param cb
-     */
-    private void writeRequestToChannel(final Channel channel, final Request request,
-                                       final GenericCallback<Void> cb) {
-        if (conf.getWriteToChannelAsync()) {
-            writeRequestToChannelAsync(channel, request, cb);
-        } else {
-            writeRequestToChannelDirect(channel, request, cb);
         }
     }
 
@@ -383,10 +511,11 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
 
         final long txnId = getTxnId();
         final int entrySize = toSend.readableBytes();
-        final CompletionKey completionKey = new CompletionKey(txnId, OperationType.ADD_ENTRY);
-        completionObjects.put(completionKey,
-                new AddCompletion(statsLogger, cb, ctx, ledgerId, entryId,
-                                  scheduleTimeout(completionKey, conf.getAddEntryTimeout()), entrySize));
+        final CompletionValue completion = new AddCompletion(statsLogger, txnId, cb, ctx, ledgerId, entryId,
+                                                             getTimeoutNanos(conf.getAddEntryTimeout()), entrySize);
+        if (!registerCompletion(completion)) {
+            return;
+        }
 
         // Build the request and calculate the total size to be included in the packet.
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
@@ -397,8 +526,12 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         AddRequest.Builder addBuilder = AddRequest.newBuilder()
                 .setLedgerId(ledgerId)
                 .setEntryId(entryId)
-                .setMasterKey(ByteString.copyFrom(masterKey))
-                .setBody(ByteString.copyFrom(toSend.toByteBuffer()));
+                .setMasterKey(ByteString.copyFrom(masterKey));
+        if (bodyFramed) {
+            addBuilder.setBody(ByteString.EMPTY);
+        } else {
+            addBuilder.setBody(ByteString.copyFrom(toSend.toByteBuffer()));
+        }
 
         if (((short)options & BookieProtocol.FLAG_RECOVERY_ADD) == BookieProtocol.FLAG_RECOVERY_ADD) {
             addBuilder.setFlag(AddRequest.Flag.RECOVERY_ADD);
@@ -411,16 +544,16 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
 
         final Channel c = channel;
         if (c == null) {
-            errorOutAddKey(completionKey);
+            errorOutAdd(completion, BKException.Code.BookieHandleNotAvailableException);
             return;
         }
 
         final long writeStartNanos = MathUtils.nowInNano();
-        writeRequestToChannel(c, addRequest, new GenericCallback<Void>() {
+        writeRequestToChannel(c, addRequest, Collections.singletonList(toSend), new GenericCallback<Void>() {
             @Override
             public void operationComplete(int rc, Void result) {
                 if (rc != 0) {
-                    errorOutAddKey(completionKey);
+                    errorOutAdd(completion, BKException.Code.BookieHandleNotAvailableException);
                 } else {
                     // Success
                     if (LOG.isDebugEnabled()) {
@@ -434,6 +567,85 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
                 .registerSuccessfulEvent(MathUtils.elapsedMicroSec(writeStartNanos));
     }
 
+    /**
+     * Add consecutive entries of ledger <i>ledgerId</i> from entry <i>firstEntryId</i>,
+     * with a single range add request. The callback is invoked once per entry.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param masterKey
+     *          master key of the ledger.
+     * @param firstEntryId
+     *          first entry of the range.
+     * @param toSend
+     *          entries of the range, packaged for sending.
+     * @param cb
+     *          callback invoked for each entry of the range.
+     * @param ctx
+     *          callback context.
+     * @param options
+     *          add options.
+     */
+    public void addEntries(final long ledgerId, byte[] masterKey, final long firstEntryId, List<ChannelBuffer> toSend,
+                           WriteCallback cb, Object ctx, final int options) {
+        final long txnId = getTxnId();
+        final int numEntries = toSend.size();
+        final CompletionValue completion = new RangeAddCompletion(statsLogger, txnId, cb, ctx, ledgerId,
+                firstEntryId, numEntries, getTimeoutNanos(conf.getAddEntryTimeout()));
+        if (!registerCompletion(completion)) {
+            return;
+        }
+
+        BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
+                .setVersion(ProtocolVersion.VERSION_THREE)
+                .setOperation(OperationType.RANGE_ADD_ENTRY)
+                .setTxnId(txnId);
+
+        RangeAddRequest.Builder addBuilder = RangeAddRequest.newBuilder()
+                .setLedgerId(ledgerId)
+                .setFirstEntryId(firstEntryId)
+                .setMasterKey(ByteString.copyFrom(masterKey));
+        if (!bodyFramed) {
+            for (ChannelBuffer entry : toSend) {
+                addBuilder.addBody(ByteString.copyFrom(entry.toByteBuffer()));
+            }
+        }
+
+        if (((short)options & BookieProtocol.FLAG_RECOVERY_ADD) == BookieProtocol.FLAG_RECOVERY_ADD) {
+            addBuilder.setFlag(AddRequest.Flag.RECOVERY_ADD);
+        }
+
+        final Request addRequest = Request.newBuilder()
+                .setHeader(headerBuilder)
+                .setRangeAddRequest(addBuilder)
+                .build();
+
+        final Channel c = channel;
+        if (c == null) {
+            errorOutAdd(completion, BKException.Code.BookieHandleNotAvailableException);
+            return;
+        }
+
+        final long writeStartNanos = MathUtils.nowInNano();
+        writeRequestToChannel(c, addRequest, toSend, new GenericCallback<Void>() {
+            @Override
+            public void operationComplete(int rc, Void result) {
+                if (rc != 0) {
+                    errorOutAdd(completion, BKException.Code.BookieHandleNotAvailableException);
+                } else {
+                    // Success
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Successfully wrote request for adding entries: [{}, {}] ledger-id: {} bookie: {}",
+                                  new Object[] { firstEntryId, firstEntryId + numEntries - 1, ledgerId,
+                                                 channel.getRemoteAddress() });
+                    }
+                }
+            }
+        });
+        statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_WRITE_DISPATCH)
+                .registerSuccessfulEvent(MathUtils.elapsedMicroSec(writeStartNanos));
+    }
+
     public void readEntryWaitForLACUpdate(final long ledgerId, final long entryId, final long previousLAC, final long timeOutInMillis, final boolean piggyBackEntry, ReadEntryCallback cb, Object ctx) {
         readEntryInternal(ledgerId, entryId, previousLAC, timeOutInMillis,
             piggyBackEntry, BookKeeperClientStats.CHANNEL_READ_ENTRY_LONG_POLL, cb, ctx);
@@ -448,11 +660,6 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
                                   final Long timeOutInMillis, final boolean piggyBackEntry,
                                   final String op, ReadEntryCallback cb, Object ctx) {
         final long txnId = getTxnId();
-        final CompletionKey completionKey = new CompletionKey(txnId, OperationType.READ_ENTRY);
-        completionObjects.put(completionKey,
-                new ReadCompletion(statsLogger, op, cb, ctx, ledgerId, entryId,
-                                   scheduleTimeout(completionKey, conf.getReadEntryTimeout())));
-
         // Build the request and calculate the total size to be included in the packet.
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
                 .setVersion(ProtocolVersion.VERSION_THREE)
@@ -489,6 +696,12 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
             readBuilder = readBuilder.setFlag(ReadRequest.Flag.ENTRY_PIGGYBACK);
         }
 
+        final CompletionValue completion = new ReadCompletion(statsLogger, txnId, op, cb, ctx, ledgerId, entryId,
+                                                              getTimeoutNanos(conf.getReadEntryTimeout()));
+        if (!registerCompletion(completion)) {
+            return;
+        }
+
         final Request readRequest = Request.newBuilder()
                 .setHeader(headerBuilder)
                 .setReadRequest(readBuilder)
@@ -496,15 +709,15 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
 
         final Channel c = channel;
         if (c == null) {
-            errorOutReadKey(completionKey);
+            errorOutRead(completion, BKException.Code.BookieHandleNotAvailableException);
             return;
         }
 
-        writeRequestToChannel(channel, readRequest, new GenericCallback<Void>() {
+        writeRequestToChannel(c, readRequest, NO_BODIES, new GenericCallback<Void>() {
             @Override
             public void operationComplete(int rc, Void result) {
                 if (rc != 0) {
-                    errorOutReadKey(completionKey);
+                    errorOutRead(completion, BKException.Code.BookieHandleNotAvailableException);
                 } else {
                     // Success
                     if (LOG.isDebugEnabled()) {
@@ -516,14 +729,137 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         });
     }
 
+    /**
+     * Read <i>numEntries</i> entries of ledger <i>ledgerId</i> from entry <i>firstEntryId</i>,
+     * with a single range read request. The callback is invoked once per entry, in the
+     * order of the entries.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param firstEntryId
+     *          first entry of the range.
+     * @param numEntries
+     *          number of entries of the range.
+     * @param cb
+     *          callback invoked for each entry of the range.
+     * @param ctx
+     *          callback context.
+     */
+    public void readEntries(final long ledgerId, final long firstEntryId, final int numEntries,
+                            ReadEntryCallback cb, Object ctx) {
+        final long txnId = getTxnId();
+        final CompletionValue completion = new RangeReadCompletion(statsLogger, txnId, cb, ctx, ledgerId,
+                firstEntryId, numEntries, getTimeoutNanos(conf.getReadEntryTimeout()));
+        if (!registerCompletion(completion)) {
+            return;
+        }
+
+        BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
+                .setVersion(ProtocolVersion.VERSION_THREE)
+                .setOperation(OperationType.RANGE_READ_ENTRY)
+                .setTxnId(txnId);
+
+        ReadRequest.Builder readBuilder = ReadRequest.newBuilder()
+                .setLedgerId(ledgerId)
+                .setEntryId(firstEntryId)
+                .setNumEntries(numEntries);
+
+        final Request readRequest = Request.newBuilder()
+                .setHeader(headerBuilder)
+                .setReadRequest(readBuilder)
+                .build();
+
+        final Channel c = channel;
+        if (c == null) {
+            errorOutRead(completion, BKException.Code.BookieHandleNotAvailableException);
+            return;
+        }
+
+        writeRequestToChannel(c, readRequest, NO_BODIES, new GenericCallback<Void>() {
+            @Override
+            public void operationComplete(int rc, Void result) {
+                if (rc != 0) {
+                    errorOutRead(completion, BKException.Code.BookieHandleNotAvailableException);
+                } else {
+                    // Success
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Successfully wrote request for reading entries: [" + firstEntryId + ", "
+                                + (firstEntryId + numEntries - 1) + "] ledger-id: " + ledgerId
+                                + " bookie: " + c.getRemoteAddress());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Check whether the entries <i>entryIds</i> of ledger <i>ledgerId</i> are stored by the
+     * bookie, with a single request looking them up in the bookie index only. The callback
+     * is invoked once per entry, without entry data: with OK if the entry is stored, with
+     * {@link BKException.Code#NoSuchEntryException} if it is not.
+     *
+     * @param ledgerId
+     *          ledger id.
+     * @param entryIds
+     *          entries to check.
+     * @param cb
+     *          callback invoked for each entry.
+     * @param ctx
+     *          callback context.
+     */
+    public void checkEntries(final long ledgerId, final List<Long> entryIds, ReadEntryCallback cb, Object ctx) {
+        final long txnId = getTxnId();
+        final CompletionValue completion = new CheckEntriesCompletion(statsLogger, txnId, cb, ctx, ledgerId,
+                entryIds, getTimeoutNanos(conf.getReadEntryTimeout()));
+        if (!registerCompletion(completion)) {
+            return;
+        }
+
+        BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
+                .setVersion(ProtocolVersion.VERSION_THREE)
+                .setOperation(OperationType.CHECK_ENTRIES)
+                .setTxnId(txnId);
+
+        CheckEntriesRequest.Builder checkBuilder = CheckEntriesRequest.newBuilder()
+                .setLedgerId(ledgerId)
+                .addAllEntryId(entryIds);
+
+        final Request checkRequest = Request.newBuilder()
+                .setHeader(headerBuilder)
+                .setCheckEntriesRequest(checkBuilder)
+                .build();
+
+        final Channel c = channel;
+        if (c == null) {
+            errorOutRead(completion, BKException.Code.BookieHandleNotAvailableException);
+            return;
+        }
+
+        writeRequestToChannel(c, checkRequest, NO_BODIES, new GenericCallback<Void>() {
+            @Override
+            public void operationComplete(int rc, Void result) {
+                if (rc != 0) {
+                    errorOutRead(completion, BKException.Code.BookieHandleNotAvailableException);
+                } else {
+                    // Success
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Successfully wrote request for checking {} entries of ledger-id: {} bookie: {}",
+                                  new Object[] { entryIds.size(), ledgerId, c.getRemoteAddress() });
+                    }
+                }
+            }
+        });
+    }
+
     public void readEntryAndFenceLedger(final long ledgerId, byte[] masterKey, final long entryId,
                                           ReadEntryCallback cb, Object ctx) {
         final long txnId = getTxnId();
-        final CompletionKey completionKey = new CompletionKey(txnId, OperationType.READ_ENTRY);
-        completionObjects.put(completionKey,
-            new ReadCompletion(statsLogger, BookKeeperClientStats.CHANNEL_READ_ENTRY_AND_FENCE,
-                               cb, ctx, ledgerId, entryId,
-                               scheduleTimeout(completionKey, conf.getReadEntryTimeout())));
+        final CompletionValue completion = new ReadCompletion(statsLogger, txnId,
+                BookKeeperClientStats.CHANNEL_READ_ENTRY_AND_FENCE, cb, ctx, ledgerId, entryId,
+                getTimeoutNanos(conf.getReadEntryTimeout()));
+        if (!registerCompletion(completion)) {
+            return;
+        }
 
         BKPacketHeader.Builder headerBuilder = BKPacketHeader.newBuilder()
                 .setVersion(ProtocolVersion.VERSION_THREE)
@@ -543,15 +879,15 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
 
         final Channel c = channel;
         if (c == null) {
-            errorOutReadKey(completionKey);
+            errorOutRead(completion, BKException.Code.BookieHandleNotAvailableException);
             return;
         }
 
-        writeRequestToChannel(c, readRequest, new GenericCallback<Void>() {
+        writeRequestToChannel(c, readRequest, NO_BODIES, new GenericCallback<Void>() {
             @Override
             public void operationComplete(int rc, Void result) {
                 if (rc != 0) {
-                    errorOutReadKey(completionKey);
+                    errorOutRead(completion, BKException.Code.BookieHandleNotAvailableException);
                 } else {
                     // Success
                     if (LOG.isDebugEnabled()) {
@@ -584,16 +920,11 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
 
     public void close(boolean wait) {
         LOG.info("Closing the per channel bookie client for {}", addr);
-        closeLock.writeLock().lock();
-        try {
-            if (ConnectionState.CLOSED == state) {
-                return;
-            }
-            state = ConnectionState.CLOSED;
-            errorOutOutstandingEntries(BKException.Code.ClientClosedException);
-        } finally {
-            closeLock.writeLock().unlock();
+        if (ConnectionState.CLOSED == state) {
+            return;
         }
+        state = ConnectionState.CLOSED;
+        errorOutOutstandingEntries(BKException.Code.ClientClosedException);
         closeInternal(true, wait);
     }
 
@@ -620,15 +951,22 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         }
     }
 
-    void errorOutReadKey(final CompletionKey key) {
-        errorOutReadKey(key, BKException.Code.BookieHandleNotAvailableException);
-    }
-
-    void errorOutReadKey(final CompletionKey key, final int rc) {
-        final ReadCompletion readCompletion = (ReadCompletion)removeCompletionKey(key, false);
-        if (null == readCompletion) {
-            return;
+    /**
+     * @return true if the read was still outstanding and is errored out.
+     */
+    boolean errorOutRead(final CompletionValue completionValue, final int rc) {
+        if (!removeCompletion(completionValue, false)) {
+            return false;
         }
+        if (completionValue instanceof RangeReadCompletion) {
+            errorOutRangeRead((RangeReadCompletion) completionValue, rc);
+            return true;
+        }
+        if (completionValue instanceof CheckEntriesCompletion) {
+            errorOutCheckEntries((CheckEntriesCompletion) completionValue, rc);
+            return true;
+        }
+        final ReadCompletion readCompletion = (ReadCompletion) completionValue;
         executor.submitOrdered(readCompletion.ledgerId, new SafeRunnable() {
             @Override
             public void safeRun() {
@@ -646,21 +984,70 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
 
             @Override
             public String toString() {
-                return String.format("ErrorOutReadKey(%s, lid=%d, eid=%d)",
-                                     key, readCompletion.ledgerId, readCompletion.entryId);
+                return String.format("ErrorOutReadKey(TxnId(%d), lid=%d, eid=%d)",
+                                     readCompletion.txnId, readCompletion.ledgerId, readCompletion.entryId);
             }
         });
+        return true;
     }
 
-    void errorOutAddKey(final CompletionKey key) {
-        errorOutAddKey(key, BKException.Code.BookieHandleNotAvailableException);
+    private void errorOutRangeRead(final RangeReadCompletion rrc, final int rc) {
+        // entries which already got their response are completed by them
+        final long firstEntryId = rrc.takeRemaining();
+        if (firstEntryId > rrc.lastEntryId) {
+            return;
+        }
+        executor.submitOrdered(rrc.ledgerId, new SafeRunnable() {
+            @Override
+            public void safeRun() {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Could not read entries: [{}, {}] ledger-id: {} bookie: {}",
+                              new Object[] { firstEntryId, rrc.lastEntryId, rrc.ledgerId, addr });
+                }
+                for (long entryId = firstEntryId; entryId <= rrc.lastEntryId; entryId++) {
+                    rrc.cb.readEntryComplete(rc, rrc.ledgerId, entryId, null, rrc.ctx);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return String.format("ErrorOutRangeRead(TxnId(%d), lid=%d, eid=[%d, %d])",
+                                     rrc.txnId, rrc.ledgerId, firstEntryId, rrc.lastEntryId);
+            }
+        });
     }
 
-    void errorOutAddKey(final CompletionKey key, final int rc) {
-        final AddCompletion ac = (AddCompletion)removeCompletionKey(key, false);
-        if (null == ac) {
-            return;
+    private void errorOutCheckEntries(final CheckEntriesCompletion cec, final int rc) {
+        executor.submitOrdered(cec.ledgerId, new SafeRunnable() {
+            @Override
+            public void safeRun() {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Could not check {} entries of ledger-id: {} bookie: {}",
+                              new Object[] { cec.entryIds.size(), cec.ledgerId, addr });
+                }
+                cec.complete(rc, null);
+            }
+
+            @Override
+            public String toString() {
+                return String.format("ErrorOutCheckEntries(TxnId(%d), lid=%d, numEntries=%d)",
+                                     cec.txnId, cec.ledgerId, cec.entryIds.size());
+            }
+        });
+    }
+
+    /**
+     * @return true if the add was still outstanding and is errored out.
+     */
+    boolean errorOutAdd(final CompletionValue completionValue, final int rc) {
+        if (!removeCompletion(completionValue, false)) {
+            return false;
         }
+        if (completionValue instanceof RangeAddCompletion) {
+            errorOutRangeAdd((RangeAddCompletion) completionValue, rc);
+            return true;
+        }
+        final AddCompletion ac = (AddCompletion) completionValue;
         executor.submitOrdered(ac.ledgerId, new SafeRunnable() {
             @Override
             public void safeRun() {
@@ -680,8 +1067,28 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
 
             @Override
             public String toString() {
-                return String.format("ErrorOutAddKey(%s, lid=%d, eid=%d)",
-                                     key, ac.ledgerId, ac.entryId);
+                return String.format("ErrorOutAddKey(TxnId(%d), lid=%d, eid=%d)",
+                                     ac.txnId, ac.ledgerId, ac.entryId);
+            }
+        });
+        return true;
+    }
+
+    private void errorOutRangeAdd(final RangeAddCompletion rac, final int rc) {
+        executor.submitOrdered(rac.ledgerId, new SafeRunnable() {
+            @Override
+            public void safeRun() {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Could not write request for adding entries: [{}, {}] ledger-id: {} bookie: {}",
+                              new Object[] { rac.entryId, rac.entryId + rac.numEntries - 1, rac.ledgerId, addr });
+                }
+                rac.complete(rc, null, addr);
+            }
+
+            @Override
+            public String toString() {
+                return String.format("ErrorOutRangeAdd(TxnId(%d), lid=%d, eid=[%d, %d])",
+                                     rac.txnId, rac.ledgerId, rac.entryId, rac.entryId + rac.numEntries - 1);
             }
         });
     }
@@ -693,24 +1100,33 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
      * here.
      */
 
-    void errorOutOutstandingEntries(int rc) {
-
-        // DO NOT rewrite these using Map.Entry iterations. We want to iterate
-        // on keys and see if we are successfully able to remove the key from
-        // the map. Because the add and the read methods also do the same thing
-        // in case they get a write failure on the socket. Make sure that the
-        // callback is invoked in the thread responsible for the ledger.
-        for (CompletionKey key : completionObjects.keySet()) {
-            switch (key.operationType) {
-                case ADD_ENTRY:
-                    errorOutAddKey(key, rc);
-                    break;
-                case READ_ENTRY:
-                    errorOutReadKey(key, rc);
-                    break;
-                default:
-                    break;
+    void errorOutOutstandingEntries(final int rc) {
+
+        // Each completion is errored out only if we are successfully able to
+        // remove it from the map, because the add and the read methods, the
+        // responses and the timeout sweep also do the same thing. Make sure
+        // that the callback is invoked in the thread responsible for the ledger.
+        completionObjects.forEach(new ConcurrentLongHashMap.EntryProcessor<CompletionValue>() {
+            @Override
+            public void process(long txnId, CompletionValue completionValue) {
+                errorOut(completionValue, rc);
             }
+        });
+    }
+
+    private void errorOut(CompletionValue completionValue, int rc) {
+        switch (completionValue.operationType) {
+            case ADD_ENTRY:
+            case RANGE_ADD_ENTRY:
+                errorOutAdd(completionValue, rc);
+                break;
+            case READ_ENTRY:
+            case RANGE_READ_ENTRY:
+            case CHECK_ENTRIES:
+                errorOutRead(completionValue, rc);
+                break;
+            default:
+                break;
         }
     }
 
@@ -725,7 +1141,7 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         ChannelPipeline pipeline = Channels.pipeline();
 
         pipeline.addLast("lengthbasedframedecoder", new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0, 4, 0, 4));
-        pipeline.addLast("lengthprepender", new LengthFieldPrepender(4));
+        pipeline.addLast("lengthprepender", new BookieProtoEncoding.CoalescedLengthFieldPrepender(4));
         pipeline.addLast("protobufdecoder", new BookieProtoEncoding.ResponseDecoder());
         pipeline.addLast("protobufencoder", new BookieProtoEncoding.RequestEncoder());
         pipeline.addLast("mainhandler", this);
@@ -791,17 +1207,50 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
      */
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
-        if (!(e.getMessage() instanceof Response)) {
+        Object msg = e.getMessage();
+        // the entry body of a body framed response is passed along with it
+        ChannelBuffer body = null;
+        if (msg instanceof BodyFramedMessage) {
+            BodyFramedMessage<?> framedMsg = (BodyFramedMessage<?>) msg;
+            if (!framedMsg.getBodies().isEmpty()) {
+                body = framedMsg.getBodies().get(0);
+            }
+            msg = framedMsg.getMessage();
+        }
+        if (!(msg instanceof Response)) {
             ctx.sendUpstream(e);
             return;
         }
 
-        final Response response = (Response) e.getMessage();
+        final Response response = (Response) msg;
+        final ChannelBuffer responseBody = body;
         final BKPacketHeader header = response.getHeader();
 
-        final CompletionValue completionValue = removeCompletionKey(newCompletionKey(header.getTxnId(),
-                header.getOperation()), true);
+        final CompletionValue completionValue = getCompletion(header.getTxnId(), header.getOperation());
+        final boolean expected;
         if (null == completionValue) {
+            expected = false;
+        } else if (OperationType.RANGE_READ_ENTRY == header.getOperation() && !response.hasReadResponse()) {
+            // the bookie rejected the whole range, e.g. it doesn't support range reads
+            Integer rc = statusCodeToExceptionCode(response.getStatus());
+            errorOutRead(completionValue, null == rc ? BKException.Code.ReadException : rc);
+            return;
+        } else if (OperationType.RANGE_ADD_ENTRY == header.getOperation() && !response.hasRangeAddResponse()) {
+            // the bookie rejected the whole range, e.g. it doesn't support range adds
+            Integer rc = statusCodeToExceptionCode(response.getStatus());
+            errorOutAdd(completionValue, null == rc ? BKException.Code.WriteException : rc);
+            return;
+        } else if (OperationType.CHECK_ENTRIES == header.getOperation() && !response.hasCheckEntriesResponse()) {
+            // the bookie rejected the whole request, e.g. it doesn't support existence checks
+            Integer rc = statusCodeToExceptionCode(response.getStatus());
+            errorOutRead(completionValue, null == rc ? BKException.Code.ReadException : rc);
+            return;
+        } else if (OperationType.RANGE_READ_ENTRY == header.getOperation()) {
+            expected = takeRangeReadResponse((RangeReadCompletion) completionValue, response.getReadResponse());
+        } else {
+            expected = removeCompletion(completionValue, true);
+        }
+        if (!expected) {
             // Unexpected response, so log it. The txnId should have been present.
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Unexpected response received from bookie : " + addr + " for type : " + header.getOperation() +
@@ -822,7 +1271,16 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
                             handleAddResponse(response.getAddResponse(), completionValue);
                             break;
                         case READ_ENTRY:
-                            handleReadResponse(response.getReadResponse(), completionValue);
+                            handleReadResponse(response.getReadResponse(), responseBody, completionValue);
+                            break;
+                        case RANGE_READ_ENTRY:
+                            handleRangeReadResponse(response.getReadResponse(), responseBody, completionValue);
+                            break;
+                        case RANGE_ADD_ENTRY:
+                            handleRangeAddResponse(response.getRangeAddResponse(), completionValue);
+                            break;
+                        case CHECK_ENTRIES:
+                            handleCheckEntriesResponse(response.getCheckEntriesResponse(), completionValue);
                             break;
                         default:
                             LOG.error("Unexpected response, type:{} received from bookie:{}, ignoring",
@@ -841,6 +1299,22 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         }
     }
 
+    /**
+     * Take the response of an entry of a range read. The completion of the range read
+     * is removed once all the entries of the range got their response.
+     *
+     * @return false if the response is unexpected.
+     */
+    private boolean takeRangeReadResponse(RangeReadCompletion rrc, ReadResponse response) {
+        if (!rrc.takeResponse(response.getEntryId(), StatusCode.EOK == response.getStatus())) {
+            return false;
+        }
+        if (rrc.isDone()) {
+            removeCompletion(rrc, true);
+        }
+        return true;
+    }
+
     /**
      * Note : Response handler functions for different types of responses follow. One function for each type of response.
      */
@@ -872,7 +1346,60 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         ac.cb.writeComplete(rcToRet, ledgerId, entryId, addr, ac.ctx);
     }
 
-    void handleReadResponse(ReadResponse response, CompletionValue completionValue) {
+    void handleRangeAddResponse(RangeAddResponse response, CompletionValue completionValue) {
+        RangeAddCompletion rac = (RangeAddCompletion) completionValue;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Got response for range add request from bookie: " + addr + " for ledger: "
+                      + response.getLedgerId() + " entries: " + response.getFirstEntryId() + " + "
+                      + response.getEntryStatusCount() + " rc: " + response.getStatus());
+        }
+        // an entry without status failed with the status of the whole range
+        int[] rcs = new int[rac.numEntries];
+        for (int i = 0; i < rac.numEntries; i++) {
+            StatusCode status = i < response.getEntryStatusCount() ? response.getEntryStatus(i) : response.getStatus();
+            Integer rcToRet = statusCodeToExceptionCode(status);
+            if (null == rcToRet) {
+                rcToRet = BKException.Code.WriteException;
+            }
+            rcs[i] = rcToRet;
+        }
+        rac.complete(BKException.Code.OK, rcs, addr);
+    }
+
+    void handleCheckEntriesResponse(CheckEntriesResponse response, CompletionValue completionValue) {
+        CheckEntriesCompletion cec = (CheckEntriesCompletion) completionValue;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Got response for check entries request from bookie: " + addr + " for ledger: "
+                      + response.getLedgerId() + " entries: " + response.getEntryStatusCount()
+                      + " rc: " + response.getStatus());
+        }
+        // an entry without status failed with the status of the whole request
+        int numEntries = cec.entryIds.size();
+        int[] rcs = new int[numEntries];
+        for (int i = 0; i < numEntries; i++) {
+            StatusCode status = i < response.getEntryStatusCount() ? response.getEntryStatus(i) : response.getStatus();
+            Integer rcToRet = statusCodeToExceptionCode(status);
+            if (null == rcToRet) {
+                rcToRet = BKException.Code.ReadException;
+            }
+            rcs[i] = rcToRet;
+        }
+        cec.complete(BKException.Code.OK, rcs);
+    }
+
+    /**
+     * Handle a read response.
+     *
+     * @param response
+     *          read response.
+     * @param body
+     *          entry body framed apart from the response, or null if the response carries it.
+     * @param completionValue
+     *          completion of the read.
+     */
+    void handleReadResponse(ReadResponse response, ChannelBuffer body, CompletionValue completionValue) {
 
         // The completion value should always be an instance of a ReadCompletion object when we reach here.
         ReadCompletion rc = (ReadCompletion)completionValue;
@@ -882,7 +1409,9 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         StatusCode status = response.getStatus();
         ChannelBuffer buffer = ChannelBuffers.buffer(0);
 
-        if (response.hasBody()) {
+        if (null != body) {
+            buffer = body;
+        } else if (response.hasBody()) {
             buffer = ChannelBuffers.copiedBuffer(response.getBody().asReadOnlyByteBuffer());
         }
 
@@ -918,50 +1447,75 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         rc.cb.readEntryComplete(rcToRet, ledgerId, entryId, buffer.slice(), rc.ctx);
     }
 
+    void handleRangeReadResponse(ReadResponse response, ChannelBuffer body, CompletionValue completionValue) {
+        handleReadResponse(response, body, completionValue);
+        if (StatusCode.EOK != response.getStatus()) {
+            // the bookie stopped streaming the range at this entry, so fail the following entries
+            RangeReadCompletion rrc = (RangeReadCompletion) completionValue;
+            Integer rcToRet = statusCodeToExceptionCode(response.getStatus());
+            if (null == rcToRet) {
+                rcToRet = BKException.Code.ReadException;
+            }
+            for (long entryId = response.getEntryId() + 1; entryId <= rrc.lastEntryId; entryId++) {
+                rrc.cb.readEntryComplete(rcToRet, rrc.ledgerId, entryId, null, rrc.ctx);
+            }
+        }
+    }
+
     /**
      * Note : All completion objects follow. There should be a completion object for each different request type.
      */
 
     static abstract class CompletionValue {
         private final String op;
+        final long txnId;
+        final OperationType operationType;
         public final Object ctx;
         // The ledgerId and entryId values are passed to the callbacks in case of a timeout.
         // TODO: change the callback signatures to remove these.
         protected final long ledgerId;
         protected final long entryId;
         protected final long requestTimeNanos;
-        protected final Timeout timeout;
+        // the request times out once the time passes this deadline
+        protected final long timeoutAtNanos;
 
-        public CompletionValue(String op,
+        public CompletionValue(String op, long txnId, OperationType operationType,
                                Object ctx, long ledgerId, long entryId,
-                               Timeout timeout) {
+                               long timeoutNanos) {
             this.op = op;
+            this.txnId = txnId;
+            this.operationType = operationType;
             this.ctx = ctx;
             this.ledgerId = ledgerId;
             this.entryId = entryId;
             this.requestTimeNanos = MathUtils.nowInNano();
-            this.timeout = timeout;
+            this.timeoutAtNanos = requestTimeNanos + timeoutNanos;
         }
 
-        void cancelTimeout() {
-            if (null != timeout) {
-                timeout.cancel();
-            }
+        boolean isTimedOut(long nowNanos) {
+            return nowNanos - timeoutAtNanos >= 0;
         }
     }
 
     static class ReadCompletion extends CompletionValue {
         final ReadEntryCallback cb;
 
-        public ReadCompletion(final StatsLogger statsLogger, final String statsOp,
+        public ReadCompletion(final StatsLogger statsLogger, final long txnId, final String statsOp,
                               final ReadEntryCallback originalCallback,
                               final Object originalCtx, final long ledgerId, final long entryId,
-                              final Timeout timeout) {
-            super(statsOp, originalCtx, ledgerId, entryId, timeout);
+                              final long timeoutNanos) {
+            this(statsLogger, txnId, OperationType.READ_ENTRY, statsOp, originalCallback, originalCtx,
+                 ledgerId, entryId, timeoutNanos);
+        }
+
+        ReadCompletion(final StatsLogger statsLogger, final long txnId, final OperationType operationType,
+                       final String statsOp, final ReadEntryCallback originalCallback,
+                       final Object originalCtx, final long ledgerId, final long entryId,
+                       final long timeoutNanos) {
+            super(statsOp, txnId, operationType, originalCtx, ledgerId, entryId, timeoutNanos);
             this.cb = new ReadEntryCallback() {
                 @Override
                 public void readEntryComplete(int rc, long ledgerId, long entryId, ChannelBuffer buffer, Object ctx) {
-                    cancelTimeout();
                     if (rc != BKException.Code.OK) {
                         statsLogger.getOpStatsLogger(statsOp)
                             .registerFailedEvent(MathUtils.elapsedMicroSec(requestTimeNanos));
@@ -975,17 +1529,63 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         }
     }
 
+    static class RangeReadCompletion extends ReadCompletion {
+        final long lastEntryId;
+        // next entry expected to get its response, entries are streamed back in order
+        private long nextEntryId;
+
+        public RangeReadCompletion(final StatsLogger statsLogger, final long txnId,
+                                   final ReadEntryCallback originalCallback,
+                                   final Object originalCtx, final long ledgerId, final long firstEntryId,
+                                   final int numEntries, final long timeoutNanos) {
+            // the timeout covers the whole range
+            super(statsLogger, txnId, OperationType.RANGE_READ_ENTRY, BookKeeperClientStats.CHANNEL_RANGE_READ_ENTRY,
+                  originalCallback, originalCtx, ledgerId, firstEntryId, timeoutNanos);
+            this.lastEntryId = firstEntryId + numEntries - 1;
+            this.nextEntryId = firstEntryId;
+        }
+
+        /**
+         * Take the response of entry <i>entryId</i>. A failed entry is the last response
+         * of the range.
+         *
+         * @return false if the response is unexpected.
+         */
+        synchronized boolean takeResponse(long entryId, boolean success) {
+            if (entryId != nextEntryId) {
+                return false;
+            }
+            nextEntryId = success ? entryId + 1 : lastEntryId + 1;
+            return true;
+        }
+
+        synchronized boolean isDone() {
+            return nextEntryId > lastEntryId;
+        }
+
+        /**
+         * Take the entries which didn't get their response yet.
+         *
+         * @return the first of these entries.
+         */
+        synchronized long takeRemaining() {
+            long firstEntryId = nextEntryId;
+            nextEntryId = lastEntryId + 1;
+            return firstEntryId;
+        }
+    }
+
     static class AddCompletion extends CompletionValue {
         final WriteCallback cb;
 
-        public AddCompletion(final StatsLogger statsLogger, final WriteCallback originalCallback,
+        public AddCompletion(final StatsLogger statsLogger, final long txnId, final WriteCallback originalCallback,
                              final Object originalCtx, final long ledgerId, final long entryId,
-                             final Timeout timeout, final int entrySize) {
-            super(BookKeeperClientStats.CHANNEL_ADD_ENTRY, originalCtx, ledgerId, entryId, timeout);
+                             final long timeoutNanos, final int entrySize) {
+            super(BookKeeperClientStats.CHANNEL_ADD_ENTRY, txnId, OperationType.ADD_ENTRY, originalCtx,
+                  ledgerId, entryId, timeoutNanos);
             this.cb = new WriteCallback() {
                 @Override
                 public void writeComplete(int rc, long ledgerId, long entryId, BookieSocketAddress addr, Object ctx) {
-                    cancelTimeout();
                     if (rc != BKException.Code.OK) {
                         statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_ADD_ENTRY)
                             .registerFailedEvent(MathUtils.elapsedMicroSec(requestTimeNanos));
@@ -1003,69 +1603,152 @@ public class PerChannelBookieClient extends SimpleChannelHandler implements Chan
         }
     }
 
-    /**
-     * Note : Code related to completion keys follows.
-     */
-
-    CompletionKey newCompletionKey(long txnId, OperationType operationType) {
-        return new CompletionKey(txnId, operationType);
-    }
+    static class RangeAddCompletion extends CompletionValue {
+        final WriteCallback cb;
+        final int numEntries;
+        final StatsLogger statsLogger;
+
+        public RangeAddCompletion(final StatsLogger statsLogger, final long txnId,
+                                  final WriteCallback originalCallback,
+                                  final Object originalCtx, final long ledgerId, final long firstEntryId,
+                                  final int numEntries, final long timeoutNanos) {
+            super(BookKeeperClientStats.CHANNEL_RANGE_ADD_ENTRY, txnId, OperationType.RANGE_ADD_ENTRY, originalCtx,
+                  ledgerId, firstEntryId, timeoutNanos);
+            this.cb = originalCallback;
+            this.numEntries = numEntries;
+            this.statsLogger = statsLogger;
+        }
 
-    Timeout scheduleTimeout(CompletionKey key, long timeout) {
-        if (null != requestTimer) {
-            return requestTimer.newTimeout(key, timeout, TimeUnit.SECONDS);
-        } else {
-            return null;
+        /**
+         * Complete the entries of the range.
+         *
+         * @param rc
+         *          return code of the entries, if <i>rcs</i> is null.
+         * @param rcs
+         *          return code of each entry of the range.
+         * @param addr
+         *          bookie address.
+         */
+        void complete(int rc, int[] rcs, BookieSocketAddress addr) {
+            boolean success = true;
+            for (int i = 0; i < numEntries; i++) {
+                success &= BKException.Code.OK == (null == rcs ? rc : rcs[i]);
+            }
+            if (success) {
+                statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_RANGE_ADD_ENTRY)
+                    .registerSuccessfulEvent(MathUtils.elapsedMicroSec(requestTimeNanos));
+            } else {
+                statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_RANGE_ADD_ENTRY)
+                    .registerFailedEvent(MathUtils.elapsedMicroSec(requestTimeNanos));
+            }
+            for (int i = 0; i < numEntries; i++) {
+                cb.writeComplete(null == rcs ? rc : rcs[i], ledgerId, entryId + i, addr, ctx);
+            }
         }
     }
 
-    class CompletionKey implements TimerTask {
-        final long txnId;
-        final OperationType operationType;
-        final long requestAt;
-
-        CompletionKey(long txnId, OperationType operationType) {
-            this.txnId = txnId;
-            this.operationType = operationType;
-            this.requestAt = MathUtils.nowInNano();
+    static class CheckEntriesCompletion extends CompletionValue {
+        final ReadEntryCallback cb;
+        final List<Long> entryIds;
+        final StatsLogger statsLogger;
+
+        public CheckEntriesCompletion(final StatsLogger statsLogger, final long txnId,
+                                      final ReadEntryCallback originalCallback,
+                                      final Object originalCtx, final long ledgerId, final List<Long> entryIds,
+                                      final long timeoutNanos) {
+            super(BookKeeperClientStats.CHANNEL_CHECK_ENTRIES, txnId, OperationType.CHECK_ENTRIES, originalCtx,
+                  ledgerId, entryIds.isEmpty() ? BookieProtocol.INVALID_ENTRY_ID : entryIds.get(0), timeoutNanos);
+            this.cb = originalCallback;
+            this.entryIds = entryIds;
+            this.statsLogger = statsLogger;
         }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (!(obj instanceof CompletionKey)) {
-                return false;
+        /**
+         * Complete the checked entries.
+         *
+         * @param rc
+         *          return code of the entries, if <i>rcs</i> is null.
+         * @param rcs
+         *          return code of each checked entry.
+         */
+        void complete(int rc, int[] rcs) {
+            boolean success = null != rcs || BKException.Code.OK == rc;
+            if (success) {
+                statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_CHECK_ENTRIES)
+                    .registerSuccessfulEvent(MathUtils.elapsedMicroSec(requestTimeNanos));
+            } else {
+                statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_CHECK_ENTRIES)
+                    .registerFailedEvent(MathUtils.elapsedMicroSec(requestTimeNanos));
+            }
+            for (int i = 0; i < entryIds.size(); i++) {
+                cb.readEntryComplete(null == rcs ? rc : rcs[i], ledgerId, entryIds.get(i), null, ctx);
             }
-            CompletionKey that = (CompletionKey) obj;
-            return this.txnId == that.txnId && this.operationType == that.operationType;
         }
+    }
 
-        @Override
-        public int hashCode() {
-            return ((int) txnId);
-        }
+    /**
+     * Note : Code related to request timeouts follows.
+     */
 
-        @Override
-        public String toString() {
-            return String.format("TxnId(%d), OperationType(%s)", txnId, operationType);
-        }
+    private static long getTimeoutNanos(long timeoutSec) {
+        return TimeUnit.SECONDS.toNanos(timeoutSec);
+    }
 
-        private long elapsedTimeMicros() {
-            return MathUtils.elapsedMicroSec(requestAt);
+    /**
+     * Schedule the next timeout sweep of the outstanding requests. Requests don't time
+     * out if the client has no request timer, and the sweeps stop once the client is closed.
+     */
+    private void scheduleTimeoutSweep() {
+        if (null == requestTimer || ConnectionState.CLOSED == state) {
+            return;
+        }
+        try {
+            requestTimer.newTimeout(new TimeoutSweep(), timeoutSweepIntervalMillis, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException ise) {
+            // the timer is stopped, the bookie client is being closed
+            LOG.debug("Request timer is stopped, no more timeout sweeps for bookie {}", addr);
         }
+    }
+
+    /**
+     * Periodic sweep erroring out the outstanding requests which have timed out,
+     * rather than a timeout scheduled on the request timer for each request.
+     */
+    class TimeoutSweep implements TimerTask, ConcurrentLongHashMap.EntryProcessor<CompletionValue> {
+        private long nowNanos;
 
         @Override
         public void run(Timeout timeout) throws Exception {
-            if (timeout.isCancelled()) {
+            try {
+                if (!completionObjects.isEmpty()) {
+                    nowNanos = MathUtils.nowInNano();
+                    completionObjects.forEach(this);
+                }
+            } catch (Throwable t) {
+                LOG.error("Failed to sweep timed out requests to bookie {} : ", addr, t);
+            } finally {
+                scheduleTimeoutSweep();
+            }
+        }
+
+        @Override
+        public void process(long txnId, CompletionValue completionValue) {
+            if (!completionValue.isTimedOut(nowNanos)) {
                 return;
             }
-            if (OperationType.ADD_ENTRY == operationType) {
-                errorOutAddKey(this);
-                statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_NETTY_TIMEOUT_ADD_ENTRY)
-                        .registerSuccessfulEvent(elapsedTimeMicros());
+            long elapsedMicros = MathUtils.elapsedMicroSec(completionValue.requestTimeNanos);
+            // a response may complete the request meanwhile, it didn't time out then
+            if (OperationType.ADD_ENTRY == completionValue.operationType
+                    || OperationType.RANGE_ADD_ENTRY == completionValue.operationType) {
+                if (errorOutAdd(completionValue, BKException.Code.BookieHandleNotAvailableException)) {
+                    statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_NETTY_TIMEOUT_ADD_ENTRY)
+                            .registerSuccessfulEvent(elapsedMicros);
+                }
             } else {
-                errorOutReadKey(this);
-                statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_NETTY_TIMEOUT_READ_ENTRY)
-                        .registerSuccessfulEvent(elapsedTimeMicros());
+                if (errorOutRead(completionValue, BKException.Code.BookieHandleNotAvailableException)) {
+                    statsLogger.getOpStatsLogger(BookKeeperClientStats.CHANNEL_NETTY_TIMEOUT_READ_ENTRY)
+                            .registerSuccessfulEvent(elapsedMicros);
+                }
             }
         }
     }
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.proto;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Stopwatch;
+
+import org.apache.bookkeeper.bookie.Bookie;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.ReadResponse;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
+import org.apache.bookkeeper.stats.OpStatsLogger;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
+
+/**
+ * Processor handling range read entry request.
+ *
+ * <p>
+ * The entries of the range are streamed back in order, one response per entry.
+ * Streaming stops at the first entry which can't be read: its response is the
+ * last one of the range, and the client fails the following entries with the
+ * same status.
+ * </p>
+ * <p>
+ * Ranges larger than {@link org.apache.bookkeeper.conf.ServerConfiguration#getServerRangeReadMaxEntries()}
+ * are rejected. Streaming pauses while the channel isn't writable, until the responses
+ * already queued are written, so a slow client doesn't pile the range up in memory.
+ * </p>
+ */
+class RangeReadEntryProcessorV3 extends ReadEntryProcessorV3 {
+
+    private final static Logger logger = LoggerFactory.getLogger(RangeReadEntryProcessorV3.class);
+
+    // how long streaming waits for a client which doesn't read its responses
+    private final static long MAX_UNWRITABLE_WAIT_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final int numEntries;
+    private final int maxEntries;
+    private final OpStatsLogger rangeReadStats;
+
+    RangeReadEntryProcessorV3(Request request,
+                              List<ChannelBuffer> requestBodies,
+                              Channel channel,
+                              Bookie bookie,
+                              ExecutorService fenceThreadPool,
+                              int maxEntries,
+                              StatsLogger statsLogger) {
+        super(request, requestBodies, channel, bookie, fenceThreadPool, statsLogger);
+        this.numEntries = readRequest.getNumEntries();
+        this.maxEntries = maxEntries;
+        this.rangeReadStats = statsLogger.getOpStatsLogger(RANGE_READ_ENTRY);
+    }
+
+    @Override
+    protected void executeOp() {
+        // fencing and long polling only apply to single entry reads
+        if (numEntries <= 0 || numEntries > maxEntries
+                || RequestUtils.isFenceRequest(readRequest) || readRequest.hasPreviousLAC()) {
+            logger.error("Invalid range read request of {} entries from entry {} of ledger {}",
+                         new Object[] { numEntries, entryId, ledgerId });
+            sendResponse(ReadResponse.newBuilder()
+                    .setLedgerId(ledgerId)
+                    .setEntryId(entryId)
+                    .setStatus(StatusCode.EBADREQ)
+                    .build());
+            return;
+        }
+        Stopwatch startTimeSw = Stopwatch.createStarted();
+        StatusCode status = StatusCode.EOK;
+        ChannelFuture lastWrite = null;
+        for (int i = 0; i < numEntries && StatusCode.EOK == status; i++) {
+            // once the last response is written, the responses queued before it are too
+            if (null != lastWrite && !channel.isWritable()
+                    && !lastWrite.awaitUninterruptibly(MAX_UNWRITABLE_WAIT_MS)) {
+                // don't hold the read thread any longer, the client times out the remaining entries
+                logger.warn("Stopped streaming entries of ledger {} at entry {} to {}, which doesn't read them",
+                            new Object[] { ledgerId, entryId + i, channel.getRemoteAddress() });
+                status = StatusCode.EIO;
+                break;
+            }
+            if (!channel.isConnected()) {
+                // nobody is waiting for the remaining entries
+                status = StatusCode.EIO;
+                break;
+            }
+            ReadResponse readResponse = getReadResponse(entryId + i);
+            status = readResponse.getStatus();
+            lastWrite = sendResponse(readResponse);
+        }
+        registerEvent(StatusCode.EOK != status, rangeReadStats, startTimeSw);
+    }
+}
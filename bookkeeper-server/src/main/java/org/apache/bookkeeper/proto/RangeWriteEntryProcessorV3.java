@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.proto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.bookkeeper.bookie.Bookie;
+import org.apache.bookkeeper.bookie.BookieException;
+import org.apache.bookkeeper.net.BookieSocketAddress;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.AddRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddRequest;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.RangeAddResponse;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Request;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.Response;
+import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
+import org.apache.bookkeeper.stats.StatsLogger;
+import org.apache.bookkeeper.util.MathUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
+
+/**
+ * Processor handling range add entry request.
+ *
+ * <p>
+ * The consecutive entries of the request are added to the ledger and journaled as
+ * a single group. Once all of them are persisted or failed, a single response
+ * carries the status of each entry.
+ * </p>
+ */
+class RangeWriteEntryProcessorV3 extends PacketProcessorBaseV3 {
+    private final static Logger logger = LoggerFactory.getLogger(RangeWriteEntryProcessorV3.class);
+
+    private final long startTimeNanos;
+    private final long ledgerId;
+    private final long firstEntryId;
+    private final StatusCode[] entryStatus;
+    // entries not persisted or failed yet
+    private final AtomicInteger numPendingEntries;
+
+    RangeWriteEntryProcessorV3(Request request, List<ChannelBuffer> requestBodies, Channel channel, Bookie bookie,
+                               StatsLogger statsLogger) {
+        super(request, requestBodies, channel, bookie, statsLogger);
+        this.startTimeNanos = MathUtils.nowInNano();
+        RangeAddRequest addRequest = request.getRangeAddRequest();
+        this.ledgerId = addRequest.getLedgerId();
+        this.firstEntryId = addRequest.getFirstEntryId();
+        this.entryStatus = new StatusCode[isBodyFramed() ? requestBodies.size() : addRequest.getBodyCount()];
+        this.numPendingEntries = new AtomicInteger(entryStatus.length);
+    }
+
+    private static StatusCode toStatusCode(int rc) {
+        switch (rc) {
+            case BookieProtocol.EOK:
+                return StatusCode.EOK;
+            case BookieProtocol.EIO:
+                return StatusCode.EIO;
+            default:
+                return StatusCode.EUA;
+        }
+    }
+
+    /**
+     * Complete the entries from <i>fromIndex</i> (inclusive) to <i>toIndex</i> (exclusive)
+     * with the given status, and send the response once no entry is pending anymore.
+     */
+    private void completeEntries(int fromIndex, int toIndex, StatusCode status) {
+        Arrays.fill(entryStatus, fromIndex, toIndex, status);
+        if (0 == numPendingEntries.addAndGet(fromIndex - toIndex)) {
+            sendRangeAddResponse();
+        }
+    }
+
+    private void sendRangeAddResponse() {
+        RangeAddResponse.Builder addResponse = RangeAddResponse.newBuilder()
+                .setLedgerId(ledgerId)
+                .setFirstEntryId(firstEntryId)
+                .setStatus(StatusCode.EOK)
+                .addAllEntryStatus(Arrays.asList(entryStatus));
+        for (StatusCode status : entryStatus) {
+            if (StatusCode.EOK != status) {
+                addResponse.setStatus(status);
+                break;
+            }
+        }
+        StatusCode status = addResponse.getStatus();
+        if (StatusCode.EOK == status) {
+            statsLogger.getOpStatsLogger(RANGE_ADD_ENTRY)
+                    .registerSuccessfulEvent(MathUtils.elapsedMicroSec(startTimeNanos));
+        } else {
+            statsLogger.getOpStatsLogger(RANGE_ADD_ENTRY)
+                    .registerFailedEvent(MathUtils.elapsedMicroSec(startTimeNanos));
+        }
+        Response.Builder response = Response.newBuilder()
+                .setHeader(getHeader())
+                .setStatus(status)
+                .setRangeAddResponse(addResponse);
+        sendResponse(status, statsLogger.getOpStatsLogger(RANGE_ADD_ENTRY_REQUEST), response.build());
+    }
+
+    /**
+     * Check that the bodies are the consecutive entries of the ledger announced by the request.
+     */
+    private boolean isValidRange(List<ByteBuffer> entries) {
+        for (int i = 0; i < entries.size(); i++) {
+            ByteBuffer entry = entries.get(i);
+            if (entry.remaining() < 16
+                    || entry.getLong(entry.position()) != ledgerId
+                    || entry.getLong(entry.position() + 8) != firstEntryId + i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void safeRun() {
+        final int numEntries = entryStatus.length;
+        if (!isVersionCompatible()) {
+            completeEntries(0, numEntries, StatusCode.EBADVERSION);
+            return;
+        }
+        if (bookie.isReadOnly()) {
+            logger.debug("BookieServer is running as readonly mode,"
+                    + " so rejecting the request from the client!");
+            completeEntries(0, numEntries, StatusCode.EREADONLY);
+            return;
+        }
+
+        RangeAddRequest addRequest = request.getRangeAddRequest();
+        List<ByteBuffer> entries = new ArrayList<ByteBuffer>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            if (isBodyFramed()) {
+                entries.add(requestBodies.get(i).toByteBuffer().slice());
+            } else {
+                entries.add(addRequest.getBody(i).asReadOnlyByteBuffer());
+            }
+        }
+        if (0 == numEntries || !isValidRange(entries)) {
+            logger.error("Invalid range add request of {} entries from entry {} of ledger {}",
+                         new Object[] { numEntries, firstEntryId, ledgerId });
+            Response.Builder response = Response.newBuilder()
+                    .setHeader(getHeader())
+                    .setStatus(StatusCode.EBADREQ);
+            sendResponse(StatusCode.EBADREQ, statsLogger.getOpStatsLogger(RANGE_ADD_ENTRY_REQUEST),
+                         response.build());
+            return;
+        }
+
+        WriteCallback wcb = new WriteCallback() {
+            @Override
+            public void writeComplete(int rc, long ledgerId, long entryId,
+                                      BookieSocketAddress addr, Object ctx) {
+                int index = (int) (entryId - firstEntryId);
+                completeEntries(index, index + 1, toStatusCode(rc));
+            }
+        };
+        int numAdded = 0;
+        StatusCode status;
+        byte[] masterKey = addRequest.getMasterKey().toByteArray();
+        boolean recoveryAdd = addRequest.hasFlag() && addRequest.getFlag().equals(AddRequest.Flag.RECOVERY_ADD);
+        try {
+            numAdded = bookie.addEntries(entries, recoveryAdd, wcb, channel, masterKey);
+            // the entries which couldn't be added failed with an I/O error
+            status = StatusCode.EIO;
+        } catch (IOException e) {
+            logger.error("Error writing entries from " + firstEntryId + " to ledger:" + ledgerId, e);
+            status = StatusCode.EIO;
+        } catch (BookieException.LedgerFencedException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Ledger fenced while writing entries from " + firstEntryId
+                        + " to ledger:" + ledgerId);
+            }
+            status = StatusCode.EFENCED;
+        } catch (BookieException e) {
+            logger.error("Unauthorized access to ledger:" + ledgerId
+                    + " while writing entries from " + firstEntryId);
+            status = StatusCode.EUA;
+        } catch (Throwable t) {
+            logger.error("Unexpected exception while writing entries from {}@{} : ",
+                    new Object[] { firstEntryId, ledgerId, t });
+            // some bad request which cause unexpected exception
+            status = StatusCode.EBADREQ;
+        }
+        if (numAdded < numEntries) {
+            completeEntries(numAdded, numEntries, status);
+        }
+    }
+}
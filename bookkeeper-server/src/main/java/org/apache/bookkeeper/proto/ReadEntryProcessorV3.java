@@ -2,6 +2,8 @@ package org.apache.bookkeeper.proto;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import com.google.common.base.Stopwatch;
@@ -19,7 +21,10 @@ import org.apache.bookkeeper.proto.BookkeeperProtocol.Response;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
 import org.apache.bookkeeper.stats.OpStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +39,9 @@ class ReadEntryProcessorV3 extends PacketProcessorBaseV3 {
 
     private SettableFuture<Boolean> fenceResult = null;
 
+    // body of the next response to send, when the responses are body framed
+    private ByteBuffer responseBody = null;
+
     protected final ReadRequest readRequest;
     protected final long ledgerId;
     protected final long entryId;
@@ -44,11 +52,12 @@ class ReadEntryProcessorV3 extends PacketProcessorBaseV3 {
     protected final OpStatsLogger reqStats;
 
     public ReadEntryProcessorV3(Request request,
+                                List<ChannelBuffer> requestBodies,
                                 Channel channel,
                                 Bookie bookie,
                                 ExecutorService fenceThreadPool,
                                 StatsLogger statsLogger) {
-        super(request, channel, bookie, statsLogger);
+        super(request, requestBodies, channel, bookie, statsLogger);
         this.readRequest = request.getReadRequest();
         this.ledgerId = readRequest.getLedgerId();
         this.entryId = readRequest.getEntryId();
@@ -59,6 +68,9 @@ class ReadEntryProcessorV3 extends PacketProcessorBaseV3 {
         } else if (readRequest.hasPreviousLAC()) {
             this.readStats = statsLogger.getOpStatsLogger(READ_ENTRY_LONG_POLL_READ);
             this.reqStats = statsLogger.getOpStatsLogger(READ_ENTRY_LONG_POLL_REQUEST);
+        } else if (readRequest.hasNumEntries()) {
+            this.readStats = statsLogger.getOpStatsLogger(READ_ENTRY);
+            this.reqStats = statsLogger.getOpStatsLogger(RANGE_READ_ENTRY_REQUEST);
         } else {
             this.readStats = statsLogger.getOpStatsLogger(READ_ENTRY);
             this.reqStats = statsLogger.getOpStatsLogger(READ_ENTRY_REQUEST);
@@ -162,7 +174,7 @@ class ReadEntryProcessorV3 extends PacketProcessorBaseV3 {
             handleReadResultForFenceRead(entryBody, readResponseBuilder, entryId, startTimeSw);
             return null;
         } else {
-            readResponseBuilder.setBody(ByteString.copyFrom(entryBody));
+            setBody(readResponseBuilder, entryBody);
             if (readLACPiggyBack) {
                 readResponseBuilder.setEntryId(entryId);
             } else {
@@ -176,6 +188,17 @@ class ReadEntryProcessorV3 extends PacketProcessorBaseV3 {
     }
 
     protected ReadResponse getReadResponse() {
+        return getReadResponse(entryId);
+    }
+
+    /**
+     * Read entry <i>entryId</i> of the ledger of the request.
+     *
+     * @param entryId
+     *          entry to read
+     * @return read response or null if it is a fence read operation.
+     */
+    protected ReadResponse getReadResponse(long entryId) {
         final Stopwatch startTimeSw = Stopwatch.createStarted();
 
         final ReadResponse.Builder readResponse = ReadResponse.newBuilder()
@@ -251,7 +274,7 @@ class ReadEntryProcessorV3 extends PacketProcessorBaseV3 {
             registerFailedEvent(statsLogger.getOpStatsLogger(READ_ENTRY_FENCE_WAIT), lastPhaseStartTime);
         } else {
             status = StatusCode.EOK;
-            readResponse.setBody(ByteString.copyFrom(entryBody));
+            setBody(readResponse, entryBody);
             registerSuccessfulEvent(statsLogger.getOpStatsLogger(READ_ENTRY_FENCE_WAIT), lastPhaseStartTime);
         }
         readResponse.setStatus(status);
@@ -278,12 +301,34 @@ class ReadEntryProcessorV3 extends PacketProcessorBaseV3 {
         return readResponseBuilder.build();
     }
 
-    protected void sendResponse(ReadResponse readResponse) {
+    /**
+     * Set the body of a read response. The body of a body framed response isn't copied
+     * into it, but kept to be sent along with it.
+     */
+    protected void setBody(ReadResponse.Builder readResponseBuilder, ByteBuffer entryBody) {
+        if (isBodyFramed()) {
+            responseBody = entryBody;
+        } else {
+            readResponseBuilder.setBody(ByteString.copyFrom(entryBody));
+        }
+    }
+
+    protected ChannelFuture sendResponse(ReadResponse readResponse) {
         Response.Builder response = Response.newBuilder()
             .setHeader(getHeader())
             .setStatus(readResponse.getStatus())
             .setReadResponse(readResponse);
-        sendResponse(response.getStatus(), reqStats, response.build());
+        if (isBodyFramed()) {
+            List<ChannelBuffer> bodies = Collections.emptyList();
+            if (null != responseBody && StatusCode.EOK == readResponse.getStatus()) {
+                bodies = Collections.singletonList(ChannelBuffers.wrappedBuffer(responseBody));
+            }
+            responseBody = null;
+            return sendResponse(response.getStatus(), reqStats,
+                    new BodyFramedMessage<Response>(response.build(), bodies));
+        } else {
+            return sendResponse(response.getStatus(), reqStats, response.build());
+        }
     }
 
     //
@@ -2,6 +2,7 @@ package org.apache.bookkeeper.proto;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.apache.bookkeeper.bookie.Bookie;
 import org.apache.bookkeeper.bookie.BookieException;
@@ -13,6 +14,7 @@ import org.apache.bookkeeper.proto.BookkeeperProtocol.Response;
 import org.apache.bookkeeper.proto.BookkeeperProtocol.StatusCode;
 import org.apache.bookkeeper.stats.StatsLogger;
 import org.apache.bookkeeper.util.MathUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,8 +24,9 @@ import static org.apache.bookkeeper.bookie.BookKeeperServerStats.*;
 class WriteEntryProcessorV3 extends PacketProcessorBaseV3 {
     private final static Logger logger = LoggerFactory.getLogger(WriteEntryProcessorV3.class);
 
-    public WriteEntryProcessorV3(Request request, Channel channel, Bookie bookie, StatsLogger statsLogger) {
-        super(request, channel, bookie, statsLogger);
+    public WriteEntryProcessorV3(Request request, List<ChannelBuffer> requestBodies, Channel channel, Bookie bookie,
+                                 StatsLogger statsLogger) {
+        super(request, requestBodies, channel, bookie, statsLogger);
     }
 
     // Returns null if there is no exception thrown
@@ -86,8 +89,14 @@ class WriteEntryProcessorV3 extends PacketProcessorBaseV3 {
         };
         StatusCode status = null;
         byte[] masterKey = addRequest.getMasterKey().toByteArray();
-        ByteBuffer entryToAdd = addRequest.getBody().asReadOnlyByteBuffer();
         try {
+            ByteBuffer entryToAdd;
+            if (isBodyFramed()) {
+                // a heap buffer slice is wrapped rather than copied
+                entryToAdd = requestBodies.get(0).toByteBuffer().slice();
+            } else {
+                entryToAdd = addRequest.getBody().asReadOnlyByteBuffer();
+            }
             if (addRequest.hasFlag() && addRequest.getFlag().equals(AddRequest.Flag.RECOVERY_ADD)) {
                 bookie.recoveryAddEntry(entryToAdd, wcb, channel, masterKey);
             } else {
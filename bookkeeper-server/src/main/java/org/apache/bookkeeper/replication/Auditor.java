@@ -23,7 +23,6 @@ package org.apache.bookkeeper.replication;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 import java.util.concurrent.Future;
@@ -270,7 +269,7 @@ public class Auditor {
         }
 
         // put exit cases here
-        Map<String, Set<Long>> ledgerDetails = generateBookie2LedgersIndex();
+        bookieLedgerIndexer.refresh();
         try {
             if (!ledgerUnderreplicationManager.isLedgerReplicationEnabled()) {
                 // TODO: discard this run will introduce more traffic to zookeeper, we should just wait.
@@ -291,23 +290,17 @@ public class Auditor {
         Set<String> lostBookies = new HashSet<String>();
 
         lostBookies.addAll(availableAndStaleBookies.getRight());
-        lostBookies.addAll(Sets.difference(ledgerDetails.keySet(), availableAndStaleBookies.getLeft()));
+        lostBookies.addAll(Sets.difference(bookieLedgerIndexer.getBookies(), availableAndStaleBookies.getLeft()));
 
         if (lostBookies.size() > 0) {
             LOG.info("Lost bookies : {}", lostBookies);
-            handleLostBookies(lostBookies, ledgerDetails);
+            handleLostBookies(lostBookies);
         } else {
             LOG.info("No bookie is suspected to be lost.");
         }
     }
 
-    private Map<String, Set<Long>> generateBookie2LedgersIndex()
-            throws BKAuditException {
-        return bookieLedgerIndexer.getBookieToLedgerIndex();
-    }
-
-    private void handleLostBookies(Collection<String> lostBookies,
-            Map<String, Set<Long>> ledgerDetails) throws BKAuditException,
+    private void handleLostBookies(Collection<String> lostBookies) throws BKAuditException,
             InterruptedException {
         LOG.info("Following are the failed bookies: " + lostBookies
                 + " and searching its ledgers for re-replication");
@@ -315,7 +308,7 @@ public class Auditor {
         for (String bookieIP : lostBookies) {
             // identify all the ledgers in bookieIP and publishing these ledgers
             // as under-replicated.
-            publishSuspectedLedgers(bookieIP, ledgerDetails.get(bookieIP));
+            publishSuspectedLedgers(bookieIP, bookieLedgerIndexer.getLedgersOfBookie(bookieIP));
         }
     }
 
@@ -498,6 +491,7 @@ public class Auditor {
                 LOG.warn("Executor not shutting down, interrupting");
                 executor.shutdownNow();
             }
+            bookieLedgerIndexer.close();
             admin.close();
             bkc.close();
         } catch (InterruptedException ie) {
@@ -19,6 +19,7 @@ package org.apache.bookkeeper.replication;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -32,28 +33,49 @@ import org.apache.bookkeeper.client.LedgerMetadata;
 import org.apache.bookkeeper.meta.LedgerManager;
 import org.apache.bookkeeper.net.BookieSocketAddress;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.LedgerMetadataListener;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.Processor;
 import org.apache.bookkeeper.replication.ReplicationException.BKAuditException;
+import org.apache.bookkeeper.util.ConcurrentLongHashMap;
+import org.apache.bookkeeper.util.ConcurrentLongHashSet;
 import org.apache.zookeeper.AsyncCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Preparing bookie vs its corresponding ledgers. This will always look up the
- * ledgermanager for ledger metadata and will generate indexes.
+ * Preparing bookie vs its corresponding ledgers.
+ *
+ * <p>
+ * The index is built once by reading the metadata of all the ledgers, and is kept
+ * current afterwards: a ledger metadata listener is registered on every indexed
+ * ledger to follow its ensemble changes, and each {@link #refresh()} only lists
+ * the ledgers to index the ledgers created and drop the ledgers deleted since the
+ * previous one, without reading the metadata of the ledgers already indexed. The
+ * metadata of a ledger is read once, by the registration of its listener.
+ * </p>
+ * <p>
+ * The index is kept in memory only: a new auditor has to read the metadata of
+ * every ledger anyway, to register the listeners following their changes.
+ * </p>
  */
-public class BookieLedgerIndexer {
+public class BookieLedgerIndexer implements LedgerMetadataListener {
 
     private static final Logger LOG = LoggerFactory.getLogger(BookieLedgerIndexer.class);
     private final LedgerManager ledgerManager;
 
+    // ledger vs its bookies
+    private final ConcurrentLongHashMap<Set<String>> ledger2bookiesMap =
+            new ConcurrentLongHashMap<Set<String>>();
+    // bookie vs its ledgers
+    private final ConcurrentHashMap<String, Set<Long>> bookie2ledgersMap =
+            new ConcurrentHashMap<String, Set<Long>>();
+
     public BookieLedgerIndexer(LedgerManager ledgerManager) {
         this.ledgerManager = ledgerManager;
     }
 
     /**
-     * Generating bookie vs its ledgers map by reading all the ledgers in each
-     * bookie and parsing its metadata.
+     * Bring the bookie vs its ledgers index up to date and return a copy of it.
      *
      * @return bookie2ledgersMap map of bookie vs ledgers
      * @throws BKAuditException
@@ -61,34 +83,55 @@ public class BookieLedgerIndexer {
      */
     public Map<String, Set<Long>> getBookieToLedgerIndex()
             throws BKAuditException {
-        // bookie vs ledgers map
-        final ConcurrentHashMap<String, Set<Long>> bookie2ledgersMap
-            = new ConcurrentHashMap<String, Set<Long>>();
-        final CountDownLatch ledgerCollectorLatch = new CountDownLatch(1);
-
-        LOG.info("Generating bookie to ledger index ...");
+        refresh();
+        Map<String, Set<Long>> index = new HashMap<String, Set<Long>>();
+        for (String bookie : getBookies()) {
+            Set<Long> ledgers = getLedgersOfBookie(bookie);
+            if (!ledgers.isEmpty()) {
+                index.put(bookie, ledgers);
+            }
+        }
+        return index;
+    }
 
+    /**
+     * Bring the index up to date with the ledgers created and deleted since the
+     * previous refresh. The first refresh builds the index by reading the metadata
+     * of all the ledgers.
+     *
+     * @throws BKAuditException
+     *             exception while listing the ledgers
+     */
+    public void refresh() throws BKAuditException {
+        final CountDownLatch ledgerCollectorLatch = new CountDownLatch(1);
+        final ConcurrentLongHashSet listedLedgers = new ConcurrentLongHashSet();
         final AtomicInteger numLedgers = new AtomicInteger(0);
+        final AtomicInteger numNewLedgers = new AtomicInteger(0);
+
+        LOG.info("Refreshing bookie to ledger index of {} ledgers ...", ledger2bookiesMap.size());
 
-        // TODO: avoid reading ledger metadata for closed ledger
         Processor<Long> ledgerProcessor = new Processor<Long>() {
             @Override
             public void process(final Long ledgerId,
                     final AsyncCallback.VoidCallback iterCallback) {
+                listedLedgers.add(ledgerId);
+                if (numLedgers.incrementAndGet() % 100000 == 0) {
+                    LOG.info("listed {} ledgers.", numLedgers.get());
+                }
+                if (ledger2bookiesMap.containsKey(ledgerId)) {
+                    // kept current by the metadata listener
+                    iterCallback.processResult(BKException.Code.OK, null, null);
+                    return;
+                }
                 GenericCallback<LedgerMetadata> genericCallback = new GenericCallback<LedgerMetadata>() {
                     @Override
                     public void operationComplete(final int rc,
                             LedgerMetadata ledgerMetadata) {
                         int rcToReturn = rc;
                         if (rc == BKException.Code.OK) {
-                            for (Map.Entry<Long, ArrayList<BookieSocketAddress>> ensemble : ledgerMetadata
-                                    .getEnsembles().entrySet()) {
-                                for (BookieSocketAddress bookie : ensemble
-                                        .getValue()) {
-                                    putLedger(bookie2ledgersMap,
-                                            bookie.toString(),
-                                            ledgerId);
-                                }
+                            updateLedger(ledgerId, ledgerMetadata, true);
+                            if (numNewLedgers.incrementAndGet() % 2000 == 0) {
+                                LOG.info("indexed {} ledgers.", numNewLedgers.get());
                             }
                         } else if (rc == BKException.Code.NoSuchLedgerExistsException) {
                             // ledger is deleted during indexing
@@ -97,15 +140,10 @@ public class BookieLedgerIndexer {
                             LOG.warn("Unable to read the ledger {}'s metadata : {}",
                                     ledgerId, BKException.getMessage(rc));
                         }
-
-                        if (numLedgers.incrementAndGet() % 2000 == 0) {
-                            LOG.info("indexed {} ledgers.", numLedgers.get());
-                        }
-
                         iterCallback.processResult(rcToReturn, null, null);
                     }
                 };
-                ledgerManager.readLedgerMetadata(ledgerId, genericCallback);
+                ledgerManager.registerLedgerMetadataListener(ledgerId, BookieLedgerIndexer.this, genericCallback);
             }
         };
         // Reading the result after processing all the ledgers
@@ -115,8 +153,8 @@ public class BookieLedgerIndexer {
 
                     @Override
                     public void processResult(int rc, String s, Object obj) {
-                        LOG.info("Indexer completed indexing {} ledgers : rc = {}", numLedgers.get(),
-                                BKException.getMessage(rc));
+                        LOG.info("Indexer completed listing {} ledgers, indexed {} new ledgers : rc = {}",
+                                new Object[] { numLedgers.get(), numNewLedgers.get(), BKException.getMessage(rc) });
                         resultCode.add(rc);
                         ledgerCollectorLatch.countDown();
                     }
@@ -133,20 +171,115 @@ public class BookieLedgerIndexer {
                     "Exception while getting the bookie-ledgers", BKException
                             .create(resultCode.get(0)));
         }
-        return bookie2ledgersMap;
+
+        // the ledgers not listed any more have been deleted
+        int numDeletedLedgers = 0;
+        for (long ledgerId : ledger2bookiesMap.keys()) {
+            if (!listedLedgers.contains(ledgerId)) {
+                removeLedger(ledgerId);
+                ++numDeletedLedgers;
+            }
+        }
+        if (numDeletedLedgers > 0) {
+            LOG.info("Removed {} deleted ledgers from bookie to ledger index.", numDeletedLedgers);
+        }
+    }
+
+    /**
+     * @return the bookies having ledgers in the index.
+     */
+    public Set<String> getBookies() {
+        return new HashSet<String>(bookie2ledgersMap.keySet());
+    }
+
+    /**
+     * @param bookie
+     *          bookie address
+     * @return a copy of the ledgers of <i>bookie</i> in the index.
+     */
+    public Set<Long> getLedgersOfBookie(String bookie) {
+        Set<Long> ledgers = bookie2ledgersMap.get(bookie);
+        if (null == ledgers) {
+            return Collections.emptySet();
+        }
+        synchronized (ledgers) {
+            return new HashSet<Long>(ledgers);
+        }
+    }
+
+    /**
+     * Stop following the ledgers of the index and clear it.
+     */
+    public synchronized void close() {
+        for (long ledgerId : ledger2bookiesMap.keys()) {
+            ledgerManager.unregisterLedgerMetadataListener(ledgerId, this);
+        }
+        ledger2bookiesMap.clear();
+        bookie2ledgersMap.clear();
     }
 
-    private void putLedger(ConcurrentHashMap<String, Set<Long>> bookie2ledgersMap,
-            String bookie, long ledgerId) {
+    @Override
+    public void onChanged(long ledgerId, LedgerMetadata metadata) {
+        updateLedger(ledgerId, metadata, false);
+    }
+
+    private synchronized void updateLedger(long ledgerId, LedgerMetadata metadata, boolean create) {
+        Set<String> oldBookies = ledger2bookiesMap.get(ledgerId);
+        if (null == oldBookies) {
+            if (!create) {
+                // the ledger has been removed from the index
+                return;
+            }
+            oldBookies = Collections.emptySet();
+        }
+        Set<String> newBookies = new HashSet<String>();
+        for (ArrayList<BookieSocketAddress> ensemble : metadata.getEnsembles().values()) {
+            for (BookieSocketAddress bookie : ensemble) {
+                newBookies.add(bookie.toString());
+            }
+        }
+        for (String bookie : oldBookies) {
+            if (!newBookies.contains(bookie)) {
+                removeLedgerFromBookie(bookie, ledgerId);
+            }
+        }
+        for (String bookie : newBookies) {
+            if (!oldBookies.contains(bookie)) {
+                putLedger(bookie, ledgerId);
+            }
+        }
+        ledger2bookiesMap.put(ledgerId, newBookies);
+    }
+
+    private synchronized void removeLedger(long ledgerId) {
+        Set<String> bookies = ledger2bookiesMap.remove(ledgerId);
+        if (null == bookies) {
+            return;
+        }
+        ledgerManager.unregisterLedgerMetadataListener(ledgerId, this);
+        for (String bookie : bookies) {
+            removeLedgerFromBookie(bookie, ledgerId);
+        }
+    }
+
+    private void putLedger(String bookie, long ledgerId) {
         Set<Long> ledgers = bookie2ledgersMap.get(bookie);
         // creates an empty list and add to bookie for keeping its ledgers
         if (ledgers == null) {
             ledgers = Collections.synchronizedSet(new HashSet<Long>());
-            Set<Long> oldLedgers = bookie2ledgersMap.putIfAbsent(bookie, ledgers);
-            if (oldLedgers != null) {
-                ledgers = oldLedgers;
-            }
+            bookie2ledgersMap.put(bookie, ledgers);
         }
         ledgers.add(ledgerId);
     }
+
+    private void removeLedgerFromBookie(String bookie, long ledgerId) {
+        Set<Long> ledgers = bookie2ledgersMap.get(bookie);
+        if (null == ledgers) {
+            return;
+        }
+        ledgers.remove(ledgerId);
+        if (ledgers.isEmpty()) {
+            bookie2ledgersMap.remove(bookie);
+        }
+    }
 }
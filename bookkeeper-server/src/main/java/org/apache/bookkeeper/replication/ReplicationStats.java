@@ -30,6 +30,11 @@ public interface ReplicationStats {
 
     public final static String REPLICATION_WORKER_SCOPE = "replication_worker";
     public final static String REREPLICATE_OP = "rereplicate";
+    public final static String REPLICATE_FRAGMENT_OP = "replicate_fragment";
+    public final static String REPLICATED_BYTES = "replicated_bytes";
+    public final static String INFLIGHT_LEDGERS = "inflight_ledgers";
+    public final static String INFLIGHT_FRAGMENTS = "inflight_fragments";
+    public final static String QUEUED_LEDGERS = "queued_ledgers";
 
     public final static String BK_CLIENT_SCOPE = "bk_client";
 
@@ -20,16 +20,35 @@
 package org.apache.bookkeeper.replication;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.SortedMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.bookkeeper.bookie.BookieThread;
 import org.apache.bookkeeper.client.BKException;
 import org.apache.bookkeeper.client.BKException.BKBookieHandleNotAvailableException;
@@ -49,6 +68,8 @@ import org.apache.bookkeeper.net.BookieSocketAddress;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
 import org.apache.bookkeeper.replication.ReplicationException.CompatibilityException;
 import org.apache.bookkeeper.replication.ReplicationException.UnavailableException;
+import org.apache.bookkeeper.stats.Counter;
+import org.apache.bookkeeper.stats.Gauge;
 import org.apache.bookkeeper.stats.NullStatsLogger;
 import org.apache.bookkeeper.stats.OpStatsLogger;
 import org.apache.bookkeeper.stats.StatsLogger;
@@ -58,11 +79,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.apache.bookkeeper.replication.ReplicationStats.BK_CLIENT_SCOPE;
+import static org.apache.bookkeeper.replication.ReplicationStats.INFLIGHT_FRAGMENTS;
+import static org.apache.bookkeeper.replication.ReplicationStats.INFLIGHT_LEDGERS;
+import static org.apache.bookkeeper.replication.ReplicationStats.QUEUED_LEDGERS;
+import static org.apache.bookkeeper.replication.ReplicationStats.REPLICATED_BYTES;
+import static org.apache.bookkeeper.replication.ReplicationStats.REPLICATE_FRAGMENT_OP;
 import static org.apache.bookkeeper.replication.ReplicationStats.REREPLICATE_OP;
 
 /**
- * ReplicationWorker will take the fragments one by one from
- * ZKLedgerUnderreplicationManager and replicates to it.
+ * ReplicationWorker will take the under replicated ledgers from
+ * ZKLedgerUnderreplicationManager and replicates their fragments to the local
+ * bookie.
+ *
+ * <p>
+ * The worker thread locks the under replicated ledgers and queues them, up to
+ * <i>replicationMaxInflightLedgers</i> + <i>replicationPrefetchLedgers</i>
+ * ledgers. Up to <i>replicationMaxInflightLedgers</i> of the queued ledgers are
+ * replicated at the same time, the ledgers having the fewest remaining replicas
+ * of a fragment first, and up to <i>replicationMaxInflightFragments</i>
+ * fragments of each ledger are replicated at the same time. The fragments of all
+ * the ledgers are replicated at the rate of <i>replicationRateByBytes</i>.
+ * </p>
  */
 public class ReplicationWorker implements Runnable {
     private static Logger LOG = LoggerFactory
@@ -77,9 +114,23 @@ public class ReplicationWorker implements Runnable {
     private final Thread workerThread;
     private final long openLedgerRereplicationGracePeriod;
     private final Timer pendingReplicationTimer;
+    private final int maxInflightFragments;
+    // bounds the ledgers locked by this worker
+    private final Semaphore ledgerPermits;
+    private final ThreadPoolExecutor ledgerExecutor;
+    private final ExecutorService fragmentExecutor;
+    // threads running a ledger replication task
+    private final Set<Thread> ledgerTaskThreads =
+            Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+    private final RateLimiter rateLimiter;
+    private final AtomicLong taskSequence = new AtomicLong(0);
+    private final AtomicInteger numInflightLedgers = new AtomicInteger(0);
+    private final AtomicInteger numInflightFragments = new AtomicInteger(0);
 
     // Expose Stats
     private final OpStatsLogger rereplicateOpStats;
+    private final OpStatsLogger replicateFragmentOpStats;
+    private final Counter replicatedBytesCounter;
 
     /**
      * Replication worker for replicating the ledger fragments from
@@ -130,8 +181,59 @@ public class ReplicationWorker implements Runnable {
                 .getOpenLedgerRereplicationGracePeriod();
         this.pendingReplicationTimer = new Timer("PendingReplicationTimer");
 
+        int maxInflightLedgers = Math.max(1, conf.getReplicationMaxInflightLedgers());
+        this.maxInflightFragments = Math.max(1, conf.getReplicationMaxInflightFragments());
+        this.ledgerPermits = new Semaphore(maxInflightLedgers + Math.max(0, conf.getReplicationPrefetchLedgers()));
+        // tasks are queued by priority, see LedgerReplicationTask#compareTo
+        this.ledgerExecutor = new ThreadPoolExecutor(maxInflightLedgers, maxInflightLedgers,
+                0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("ReplicationWorker-ledger-%d").build());
+        if (maxInflightFragments > 1) {
+            this.fragmentExecutor = Executors.newFixedThreadPool(maxInflightLedgers * maxInflightFragments,
+                    new ThreadFactoryBuilder().setNameFormat("ReplicationWorker-fragment-%d").build());
+        } else {
+            this.fragmentExecutor = null;
+        }
+        long replicationRate = conf.getReplicationRateByBytes();
+        this.rateLimiter = replicationRate > 0 ? RateLimiter.create(replicationRate) : null;
+
         // Expose Stats
         this.rereplicateOpStats = statsLogger.getOpStatsLogger(REREPLICATE_OP);
+        this.replicateFragmentOpStats = statsLogger.getOpStatsLogger(REPLICATE_FRAGMENT_OP);
+        this.replicatedBytesCounter = statsLogger.getCounter(REPLICATED_BYTES);
+        statsLogger.registerGauge(INFLIGHT_LEDGERS, new Gauge<Integer>() {
+            @Override
+            public Integer getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Integer getSample() {
+                return numInflightLedgers.get();
+            }
+        });
+        statsLogger.registerGauge(INFLIGHT_FRAGMENTS, new Gauge<Integer>() {
+            @Override
+            public Integer getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Integer getSample() {
+                return numInflightFragments.get();
+            }
+        });
+        statsLogger.registerGauge(QUEUED_LEDGERS, new Gauge<Integer>() {
+            @Override
+            public Integer getDefaultValue() {
+                return 0;
+            }
+
+            @Override
+            public Integer getSample() {
+                return ledgerExecutor.getQueue().size();
+            }
+        });
     }
 
     /** Start the replication worker */
@@ -166,30 +268,50 @@ public class ReplicationWorker implements Runnable {
     }
 
     /**
-     * Replicates the under replicated fragments from failed bookie ledger to
-     * targetBookie
+     * Takes an under replicated ledger and queues it for replicating its
+     * fragments to targetBookie
      */
     private void rereplicate() throws InterruptedException, BKException,
             UnavailableException {
-        long ledgerIdToReplicate = underreplicationManager
-                .getLedgerToRereplicate();
-
-        Stopwatch stopwatch = new Stopwatch().start();
-        boolean success = false;
+        ledgerPermits.acquire();
+        boolean queued = false;
         try {
-            success = rereplicate(ledgerIdToReplicate);
+            long ledgerIdToReplicate = underreplicationManager
+                    .getLedgerToRereplicate();
+
+            Stopwatch stopwatch = new Stopwatch().start();
+            LedgerReplicationTask task = null;
+            try {
+                task = prepareReplication(ledgerIdToReplicate, stopwatch);
+            } finally {
+                if (null == task) {
+                    rereplicateOpStats.registerFailedEvent(stopwatch.stop().elapsed(TimeUnit.MILLISECONDS));
+                }
+            }
+            if (null == task) {
+                return;
+            }
+            try {
+                ledgerExecutor.execute(task);
+                queued = true;
+            } catch (RejectedExecutionException ree) {
+                LOG.info("Replication worker is shutting down, releasing ledger {}.", ledgerIdToReplicate);
+                underreplicationManager.releaseUnderreplicatedLedger(ledgerIdToReplicate);
+            }
         } finally {
-            long latencyMillis = stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
-            if (success) {
-                rereplicateOpStats.registerSuccessfulEvent(latencyMillis);
-            } else {
-                rereplicateOpStats.registerFailedEvent(latencyMillis);
+            if (!queued) {
+                ledgerPermits.release();
             }
         }
     }
 
-    private boolean rereplicate(long ledgerIdToReplicate) throws InterruptedException, BKException,
-            UnavailableException {
+    /**
+     * Opens an under replicated ledger and finds its under replicated fragments.
+     *
+     * @return the task replicating the fragments, or null if there is nothing to replicate.
+     */
+    private LedgerReplicationTask prepareReplication(long ledgerIdToReplicate, Stopwatch stopwatch)
+            throws InterruptedException, BKException, UnavailableException {
         LOG.debug("Going to replicate the fragments of the ledger: {}", ledgerIdToReplicate);
         LedgerHandle lh;
         try {
@@ -201,7 +323,7 @@ public class ReplicationWorker implements Runnable {
                     + "might have deleted the ledger. "
                     + "So, no harm to continue", ledgerIdToReplicate);
             underreplicationManager.markLedgerReplicated(ledgerIdToReplicate);
-            return false;
+            return null;
         } catch (BKReadException e) {
             LOG.info("BKReadException while"
                     + " opening ledger {} for replication."
@@ -209,7 +331,7 @@ public class ReplicationWorker implements Runnable {
                     + "So, no harm to continue", ledgerIdToReplicate);
             underreplicationManager
                     .releaseUnderreplicatedLedger(ledgerIdToReplicate);
-            return false;
+            return null;
         } catch (BKBookieHandleNotAvailableException e) {
             LOG.info("BKBookieHandleNotAvailableException while"
                     + " opening ledger {} for replication."
@@ -217,37 +339,122 @@ public class ReplicationWorker implements Runnable {
                     + "So, no harm to continue", ledgerIdToReplicate);
             underreplicationManager
                     .releaseUnderreplicatedLedger(ledgerIdToReplicate);
-            return false;
+            return null;
         }
         Set<LedgerFragment> fragments = getUnderreplicatedFragments(lh);
         if (LOG.isDebugEnabled()) {
             LOG.debug("Founds fragments {} for replication from ledger: {}",
                     fragments, ledgerIdToReplicate);
         }
+        return new LedgerReplicationTask(lh, fragments, stopwatch);
+    }
+
+    /**
+     * Replication of the under replicated fragments of a ledger. Tasks are
+     * ordered by the fewest remaining replicas of any of their fragments, then
+     * by the order the ledgers were taken.
+     */
+    private class LedgerReplicationTask implements Runnable, Comparable<LedgerReplicationTask> {
+        final LedgerHandle lh;
+        final Set<LedgerFragment> fragments;
+        final Stopwatch stopwatch;
+        final int remainingReplicas;
+        final long sequence = taskSequence.getAndIncrement();
+
+        LedgerReplicationTask(LedgerHandle lh, Set<LedgerFragment> fragments, Stopwatch stopwatch) {
+            this.lh = lh;
+            this.fragments = fragments;
+            this.stopwatch = stopwatch;
+            int writeQuorumSize = admin.getLedgerMetadata(lh).getWriteQuorumSize();
+            int replicas = writeQuorumSize;
+            for (LedgerFragment fragment : fragments) {
+                replicas = Math.min(replicas, writeQuorumSize - fragment.getBookiesIndexes().size());
+            }
+            this.remainingReplicas = replicas;
+        }
+
+        @Override
+        public int compareTo(LedgerReplicationTask other) {
+            if (remainingReplicas != other.remainingReplicas) {
+                return remainingReplicas < other.remainingReplicas ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+
+        /**
+         * Release a task dropped from the queue on shutdown.
+         */
+        void abort() {
+            try {
+                underreplicationManager.releaseUnderreplicatedLedger(lh.getId());
+            } catch (UnavailableException e) {
+                LOG.warn("Could not release ledger " + lh.getId() + " on shutdown", e);
+            }
+            try {
+                lh.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.info("InterruptedException while closing ledger " + lh.getId(), e);
+            } catch (BKException e) {
+                LOG.warn("BKException while closing ledger " + lh.getId(), e);
+            }
+        }
+
+        @Override
+        public void run() {
+            numInflightLedgers.incrementAndGet();
+            ledgerTaskThreads.add(Thread.currentThread());
+            boolean success = false;
+            try {
+                success = rereplicate(this);
+            } catch (InterruptedException e) {
+                shutdown();
+                Thread.currentThread().interrupt();
+                LOG.info("InterruptedException "
+                        + "while replicating fragments", e);
+            } catch (BKException e) {
+                shutdown();
+                LOG.error("BKException while replicating fragments", e);
+            } catch (UnavailableException e) {
+                shutdown();
+                LOG.error("UnavailableException "
+                        + "while replicating fragments", e);
+            } finally {
+                ledgerTaskThreads.remove(Thread.currentThread());
+                numInflightLedgers.decrementAndGet();
+                ledgerPermits.release();
+                long latencyMillis = stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
+                if (success) {
+                    rereplicateOpStats.registerSuccessfulEvent(latencyMillis);
+                } else {
+                    rereplicateOpStats.registerFailedEvent(latencyMillis);
+                }
+            }
+        }
+    }
+
+    private boolean rereplicate(LedgerReplicationTask task) throws InterruptedException, BKException,
+            UnavailableException {
+        LedgerHandle lh = task.lh;
+        long ledgerIdToReplicate = lh.getId();
 
         boolean foundOpenFragments = false;
-        for (LedgerFragment ledgerFragment : fragments) {
+        List<LedgerFragment> closedFragments = new ArrayList<LedgerFragment>(task.fragments.size());
+        for (LedgerFragment ledgerFragment : task.fragments) {
             if (!ledgerFragment.isClosed()) {
                 foundOpenFragments = true;
-                continue;
-            }
-            try {
-                admin.replicateLedgerFragment(lh, ledgerFragment);
-            } catch (BKException.BKBookieHandleNotAvailableException e) {
-                LOG.warn("BKBookieHandleNotAvailableException "
-                        + "while replicating the fragment {}", ledgerFragment, e);
-            } catch (BKException.BKLedgerRecoveryException e) {
-                LOG.warn("BKLedgerRecoveryException "
-                        + "while replicating the fragment {}", ledgerFragment, e);
+            } else {
+                closedFragments.add(ledgerFragment);
             }
         }
+        replicateFragments(lh, closedFragments);
 
         if (foundOpenFragments || isLastSegmentOpenAndMissingBookies(lh)) {
             deferLedgerLockRelease(ledgerIdToReplicate);
             return false;
         }
 
-        fragments = getUnderreplicatedFragments(lh);
+        Set<LedgerFragment> fragments = getUnderreplicatedFragments(lh);
         if (fragments.size() == 0) {
             LOG.info("Ledger {} is replicated successfully.", ledgerIdToReplicate);
             underreplicationManager.markLedgerReplicated(ledgerIdToReplicate);
@@ -261,6 +468,93 @@ public class ReplicationWorker implements Runnable {
         }
     }
 
+    /**
+     * Replicates the fragments of a ledger, up to maxInflightFragments of them
+     * at the same time.
+     */
+    private void replicateFragments(final LedgerHandle lh, List<LedgerFragment> fragments)
+            throws InterruptedException, BKException {
+        if (null == fragmentExecutor || fragments.size() <= 1) {
+            for (LedgerFragment ledgerFragment : fragments) {
+                replicateFragment(lh, ledgerFragment);
+            }
+            return;
+        }
+        CompletionService<Void> completionService = new ExecutorCompletionService<Void>(fragmentExecutor);
+        Iterator<LedgerFragment> fragmentsIter = fragments.iterator();
+        int numOutstanding = 0;
+        while (fragmentsIter.hasNext() || numOutstanding > 0) {
+            while (fragmentsIter.hasNext() && numOutstanding < maxInflightFragments) {
+                final LedgerFragment ledgerFragment = fragmentsIter.next();
+                completionService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        replicateFragment(lh, ledgerFragment);
+                        return null;
+                    }
+                });
+                ++numOutstanding;
+            }
+            Future<Void> replicated = completionService.take();
+            --numOutstanding;
+            try {
+                replicated.get();
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof BKException) {
+                    throw (BKException) cause;
+                } else if (cause instanceof InterruptedException) {
+                    throw (InterruptedException) cause;
+                }
+                throw new RuntimeException("Unexpected exception while replicating fragments of ledger "
+                        + lh.getId(), cause);
+            }
+        }
+    }
+
+    private void replicateFragment(LedgerHandle lh, LedgerFragment ledgerFragment)
+            throws InterruptedException, BKException {
+        long numBytes = estimateFragmentBytes(lh, ledgerFragment);
+        if (null != rateLimiter && numBytes > 0) {
+            rateLimiter.acquire((int) Math.min(numBytes, Integer.MAX_VALUE));
+        }
+        numInflightFragments.incrementAndGet();
+        Stopwatch stopwatch = new Stopwatch().start();
+        boolean success = false;
+        try {
+            admin.replicateLedgerFragment(lh, ledgerFragment);
+            success = true;
+        } catch (BKException.BKBookieHandleNotAvailableException e) {
+            LOG.warn("BKBookieHandleNotAvailableException "
+                    + "while replicating the fragment {}", ledgerFragment, e);
+        } catch (BKException.BKLedgerRecoveryException e) {
+            LOG.warn("BKLedgerRecoveryException "
+                    + "while replicating the fragment {}", ledgerFragment, e);
+        } finally {
+            numInflightFragments.decrementAndGet();
+            long latencyMillis = stopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
+            if (success) {
+                replicateFragmentOpStats.registerSuccessfulEvent(latencyMillis);
+                replicatedBytesCounter.add(numBytes);
+            } else {
+                replicateFragmentOpStats.registerFailedEvent(latencyMillis);
+            }
+        }
+    }
+
+    /**
+     * Estimates the bytes copied to replicate a fragment from the average entry
+     * size of its ledger. Returns 0 if the ledger length is not known yet.
+     */
+    private static long estimateFragmentBytes(LedgerHandle lh, LedgerFragment ledgerFragment) {
+        long numLedgerEntries = lh.getLastAddConfirmed() + 1;
+        long numEntries = ledgerFragment.getLastStoredEntryId() - ledgerFragment.getFirstStoredEntryId() + 1;
+        if (numLedgerEntries <= 0 || numEntries <= 0) {
+            return 0;
+        }
+        return lh.getLength() / numLedgerEntries * numEntries * ledgerFragment.getBookiesIndexes().size();
+    }
+
     /**
      * When checking the fragments of a ledger, there is a corner case
      * where if the last segment/ensemble is open, but nothing has been written to
@@ -383,12 +677,54 @@ public class ReplicationWorker implements Runnable {
         }
         LOG.info("Shutting down ReplicationWorker");
         this.pendingReplicationTimer.cancel();
+        // the worker thread shutting down is already leaving its loop
+        if (Thread.currentThread() != workerThread) {
+            try {
+                this.workerThread.interrupt();
+                this.workerThread.join();
+            } catch (InterruptedException e) {
+                LOG.error("Interrupted during shutting down replication worker : ",
+                        e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        // interrupts the replication in progress, which may be this thread
+        List<Runnable> queuedTasks = ledgerExecutor.shutdownNow();
+        if (null != fragmentExecutor) {
+            fragmentExecutor.shutdownNow();
+        }
+        for (Runnable task : queuedTasks) {
+            ((LedgerReplicationTask) task).abort();
+        }
+        if (ledgerTaskThreads.contains(Thread.currentThread())) {
+            // a replication task can't wait for itself to complete
+            Thread closer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    awaitTasksAndClose();
+                }
+            }, "ReplicationWorker-shutdown");
+            closer.setDaemon(true);
+            closer.start();
+        } else {
+            awaitTasksAndClose();
+        }
+    }
+
+    /**
+     * Wait for the replication in progress to complete, before closing the
+     * clients it uses.
+     */
+    private void awaitTasksAndClose() {
         try {
-            this.workerThread.interrupt();
-            this.workerThread.join();
+            if (!ledgerExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOG.warn("Replication of ledgers still in progress after shutting down");
+            }
+            if (null != fragmentExecutor && !fragmentExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOG.warn("Replication of fragments still in progress after shutting down");
+            }
         } catch (InterruptedException e) {
-            LOG.error("Interrupted during shutting down replication worker : ",
-                    e);
+            LOG.warn("Interrupted while waiting for the replication in progress", e);
             Thread.currentThread().interrupt();
         }
         try {
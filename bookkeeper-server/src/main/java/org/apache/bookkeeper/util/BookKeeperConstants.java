@@ -49,6 +49,11 @@ public class BookKeeperConstants {
      */
     public final static long MAX_LOG_SIZE_LIMIT = 1 * 1024 * 1024 * 1024;
 
+    /**
+     * The max log size limit with the V2 entry location format, whose hard limit is 1TB.
+     */
+    public final static long MAX_LOG_SIZE_LIMIT_V2 = 512L * 1024 * 1024 * 1024;
+
     // BookKeeper Feature Keys
     @Deprecated public static final String FEATURE_REPP_DISABLE_DURABILITY_ENFORCEMENT = "repp_disable_durability_enforcement";
     @Deprecated public static final String FEATURE_DISABLE_ENSEMBLE_CHANGE = "disable_ensemble_change";
@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.base.Preconditions;
+
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.DELETED_KEY;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.EMPTY_KEY;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.alignToPowerOfTwo;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.hash;
+
+/**
+ * A concurrent hash map from primitive longs to objects.
+ *
+ * <p>
+ * The map is laid out as {@link ConcurrentLongLongHashMap}: sections of open
+ * addressing tables with linear probing, each one guarded by its own read/write
+ * lock. Keys are stored in a <code>long[]</code> and values in an
+ * <code>Object[]</code>, so neither a boxed key nor a node is allocated per
+ * mapping.
+ * </p>
+ *
+ * <p>
+ * Values can't be null. {@link Long#MIN_VALUE} and <code>Long.MIN_VALUE + 1</code>
+ * are reserved and cannot be used as keys.
+ * </p>
+ */
+public class ConcurrentLongHashMap<V> {
+
+    /**
+     * Processor of the mappings of a map.
+     */
+    public static interface EntryProcessor<V> {
+        void process(long key, V value);
+    }
+
+    static final float MAP_FILL_FACTOR = 0.66f;
+    static final int DEFAULT_EXPECTED_ITEMS = 256;
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final Section<V>[] sections;
+
+    public ConcurrentLongHashMap() {
+        this(DEFAULT_EXPECTED_ITEMS);
+    }
+
+    public ConcurrentLongHashMap(int expectedItems) {
+        this(expectedItems, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongHashMap(int expectedItems, int concurrencyLevel) {
+        Preconditions.checkArgument(expectedItems > 0, "Expected items should be positive");
+        Preconditions.checkArgument(concurrencyLevel > 0, "Concurrency level should be positive");
+        Preconditions.checkArgument(expectedItems >= concurrencyLevel,
+                "Expected items should be at least the concurrency level");
+        int numSections = alignToPowerOfTwo(concurrencyLevel);
+        int perSectionExpectedItems = expectedItems / numSections;
+        int perSectionCapacity = (int) (perSectionExpectedItems / MAP_FILL_FACTOR);
+        this.sections = new Section[numSections];
+        for (int i = 0; i < numSections; i++) {
+            sections[i] = new Section<V>(perSectionCapacity);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Section<V> s : sections) {
+            size += s.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Section<V> s : sections) {
+            if (s.size != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the value mapped to <i>key</i>, or null if there is none.
+     */
+    public V get(long key) {
+        checkKey(key);
+        long h = hash(key);
+        return getSection(h).get(key, (int) h);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Map <i>key</i> to <i>value</i>.
+     *
+     * @return the previous value of the key, or null if there was none.
+     */
+    public V put(long key, V value) {
+        checkKey(key);
+        Preconditions.checkNotNull(value);
+        long h = hash(key);
+        return getSection(h).put(key, value, (int) h, false);
+    }
+
+    /**
+     * Map <i>key</i> to <i>value</i> unless the key is already mapped.
+     *
+     * @return the current value of the key, or null if the value was put.
+     */
+    public V putIfAbsent(long key, V value) {
+        checkKey(key);
+        Preconditions.checkNotNull(value);
+        long h = hash(key);
+        return getSection(h).put(key, value, (int) h, true);
+    }
+
+    /**
+     * Remove the mapping of <i>key</i>.
+     *
+     * @return the removed value, or null if the key wasn't mapped.
+     */
+    public V remove(long key) {
+        checkKey(key);
+        long h = hash(key);
+        return getSection(h).remove(key, null, (int) h);
+    }
+
+    /**
+     * Remove the mapping of <i>key</i> only if it is mapped to <i>value</i>.
+     *
+     * @return true if the mapping was removed.
+     */
+    public boolean remove(long key, V value) {
+        checkKey(key);
+        Preconditions.checkNotNull(value);
+        long h = hash(key);
+        return null != getSection(h).remove(key, value, (int) h);
+    }
+
+    public void clear() {
+        for (Section<V> s : sections) {
+            s.clear();
+        }
+    }
+
+    /**
+     * Process all the mappings of the map. Each section is copied before it is
+     * processed, so the processor may update the map.
+     */
+    public void forEach(EntryProcessor<V> processor) {
+        for (Section<V> s : sections) {
+            s.forEach(processor);
+        }
+    }
+
+    /**
+     * @return the keys of the map.
+     */
+    public long[] keys() {
+        final long[] keys = new long[size()];
+        final int[] numKeys = new int[1];
+        forEach(new EntryProcessor<V>() {
+            @Override
+            public void process(long key, V value) {
+                if (numKeys[0] < keys.length) {
+                    keys[numKeys[0]++] = key;
+                }
+            }
+        });
+        return numKeys[0] == keys.length ? keys : Arrays.copyOf(keys, numKeys[0]);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        forEach(new EntryProcessor<V>() {
+            @Override
+            public void process(long key, V value) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(key).append('=').append(value);
+            }
+        });
+        return sb.append('}').toString();
+    }
+
+    private Section<V> getSection(long hash) {
+        // the upper bits of the hash pick the section, the lower bits the bucket
+        return sections[(int) (hash >>> 32) & (sections.length - 1)];
+    }
+
+    private static void checkKey(long key) {
+        Preconditions.checkArgument(key != EMPTY_KEY && key != DELETED_KEY, "Reserved key %s", key);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Section<V> extends ReentrantReadWriteLock {
+        private long[] keys;
+        private Object[] values;
+        private int capacity;
+        private volatile int size;
+        // buckets used by keys or by deleted markers
+        private int usedBuckets;
+        private int resizeThreshold;
+
+        Section(int capacity) {
+            this.capacity = alignToPowerOfTwo(Math.max(capacity, 2));
+            this.keys = newKeys(this.capacity);
+            this.values = new Object[this.capacity];
+            this.resizeThreshold = (int) (this.capacity * MAP_FILL_FACTOR);
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(long key, int keyHash) {
+            readLock().lock();
+            try {
+                int bucket = keyHash & (capacity - 1);
+                while (true) {
+                    long storedKey = keys[bucket];
+                    if (storedKey == key) {
+                        return (V) values[bucket];
+                    } else if (storedKey == EMPTY_KEY) {
+                        return null;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V put(long key, V value, int keyHash, boolean onlyIfAbsent) {
+            writeLock().lock();
+            try {
+                int bucket = keyHash & (capacity - 1);
+                int firstDeletedBucket = -1;
+                while (true) {
+                    long storedKey = keys[bucket];
+                    if (storedKey == key) {
+                        V storedValue = (V) values[bucket];
+                        if (!onlyIfAbsent) {
+                            values[bucket] = value;
+                        }
+                        return storedValue;
+                    } else if (storedKey == EMPTY_KEY) {
+                        insert(firstDeletedBucket, bucket, key, value);
+                        return null;
+                    } else if (storedKey == DELETED_KEY && firstDeletedBucket == -1) {
+                        firstDeletedBucket = bucket;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        private void insert(int deletedBucket, int emptyBucket, long key, V value) {
+            int bucket;
+            if (deletedBucket != -1) {
+                // reuse the deleted bucket found on the way
+                bucket = deletedBucket;
+            } else {
+                bucket = emptyBucket;
+                ++usedBuckets;
+            }
+            keys[bucket] = key;
+            values[bucket] = value;
+            ++size;
+            if (usedBuckets > resizeThreshold) {
+                // grow if the map is actually full, otherwise just drop the deleted markers
+                rehash(size > capacity / 2 ? capacity * 2 : capacity);
+            }
+        }
+
+        /**
+         * Remove the mapping of <i>key</i>, only if it is mapped to <i>expectedValue</i>
+         * unless the expected value is null.
+         */
+        @SuppressWarnings("unchecked")
+        V remove(long key, V expectedValue, int keyHash) {
+            writeLock().lock();
+            try {
+                int bucket = keyHash & (capacity - 1);
+                while (true) {
+                    long storedKey = keys[bucket];
+                    if (storedKey == key) {
+                        V storedValue = (V) values[bucket];
+                        if (null != expectedValue && !expectedValue.equals(storedValue)) {
+                            return null;
+                        }
+                        --size;
+                        values[bucket] = null;
+                        int nextBucket = (bucket + 1) & (capacity - 1);
+                        if (keys[nextBucket] == EMPTY_KEY) {
+                            // end of a probe chain: free the bucket and the deleted ones before it
+                            keys[bucket] = EMPTY_KEY;
+                            --usedBuckets;
+                            int prevBucket = (bucket - 1) & (capacity - 1);
+                            while (keys[prevBucket] == DELETED_KEY) {
+                                keys[prevBucket] = EMPTY_KEY;
+                                --usedBuckets;
+                                prevBucket = (prevBucket - 1) & (capacity - 1);
+                            }
+                        } else {
+                            keys[bucket] = DELETED_KEY;
+                        }
+                        return storedValue;
+                    } else if (storedKey == EMPTY_KEY) {
+                        return null;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        void clear() {
+            writeLock().lock();
+            try {
+                Arrays.fill(keys, EMPTY_KEY);
+                Arrays.fill(values, null);
+                size = 0;
+                usedBuckets = 0;
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(EntryProcessor<V> processor) {
+            long[] keysCopy;
+            Object[] valuesCopy;
+            readLock().lock();
+            try {
+                if (size == 0) {
+                    return;
+                }
+                keysCopy = keys.clone();
+                valuesCopy = values.clone();
+            } finally {
+                readLock().unlock();
+            }
+            for (int i = 0; i < keysCopy.length; i++) {
+                long key = keysCopy[i];
+                if (key != EMPTY_KEY && key != DELETED_KEY) {
+                    processor.process(key, (V) valuesCopy[i]);
+                }
+            }
+        }
+
+        private void rehash(int newCapacity) {
+            long[] newKeys = newKeys(newCapacity);
+            Object[] newValues = new Object[newCapacity];
+            for (int i = 0; i < keys.length; i++) {
+                long key = keys[i];
+                if (key != EMPTY_KEY && key != DELETED_KEY) {
+                    int bucket = (int) hash(key) & (newCapacity - 1);
+                    while (newKeys[bucket] != EMPTY_KEY) {
+                        bucket = (bucket + 1) & (newCapacity - 1);
+                    }
+                    newKeys[bucket] = key;
+                    newValues[bucket] = values[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+            capacity = newCapacity;
+            usedBuckets = size;
+            resizeThreshold = (int) (capacity * MAP_FILL_FACTOR);
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY_KEY);
+            return keys;
+        }
+    }
+}
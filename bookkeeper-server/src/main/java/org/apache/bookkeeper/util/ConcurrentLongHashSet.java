@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.util;
+
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.DEFAULT_CONCURRENCY_LEVEL;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.DEFAULT_EXPECTED_ITEMS;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.DELETED_KEY;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.EMPTY_KEY;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.MAP_FILL_FACTOR;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.alignToPowerOfTwo;
+import static org.apache.bookkeeper.util.ConcurrentLongLongHashMap.hash;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A concurrent hash set of primitive longs, laid out like
+ * {@link ConcurrentLongLongHashMap}: sections of open addressing tables,
+ * each one guarded by its own read/write lock.
+ *
+ * <p>
+ * {@link Long#MIN_VALUE} and <code>Long.MIN_VALUE + 1</code> are reserved and
+ * cannot be added to the set.
+ * </p>
+ */
+public class ConcurrentLongHashSet {
+
+    /**
+     * Processor of the items of a set.
+     */
+    public static interface ItemProcessor {
+        void process(long item);
+    }
+
+    private final Section[] sections;
+
+    public ConcurrentLongHashSet() {
+        this(DEFAULT_EXPECTED_ITEMS);
+    }
+
+    public ConcurrentLongHashSet(int expectedItems) {
+        this(expectedItems, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentLongHashSet(int expectedItems, int concurrencyLevel) {
+        Preconditions.checkArgument(expectedItems > 0, "Expected items should be positive");
+        Preconditions.checkArgument(concurrencyLevel > 0, "Concurrency level should be positive");
+        Preconditions.checkArgument(expectedItems >= concurrencyLevel,
+                "Expected items should be at least the concurrency level");
+        int numSections = alignToPowerOfTwo(concurrencyLevel);
+        int perSectionExpectedItems = expectedItems / numSections;
+        int perSectionCapacity = (int) (perSectionExpectedItems / MAP_FILL_FACTOR);
+        this.sections = new Section[numSections];
+        for (int i = 0; i < numSections; i++) {
+            sections[i] = new Section(perSectionCapacity);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Section s : sections) {
+            size += s.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Section s : sections) {
+            if (s.size != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of buckets allocated by the set.
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (Section s : sections) {
+            capacity += s.capacity;
+        }
+        return capacity;
+    }
+
+    public boolean contains(long item) {
+        checkItem(item);
+        long h = hash(item);
+        return getSection(h).contains(item, (int) h);
+    }
+
+    /**
+     * @return true if the item was added, false if it was already in the set.
+     */
+    public boolean add(long item) {
+        checkItem(item);
+        long h = hash(item);
+        return getSection(h).add(item, (int) h);
+    }
+
+    /**
+     * @return true if the item was removed, false if it wasn't in the set.
+     */
+    public boolean remove(long item) {
+        checkItem(item);
+        long h = hash(item);
+        return getSection(h).remove(item, (int) h);
+    }
+
+    public void clear() {
+        for (Section s : sections) {
+            s.clear();
+        }
+    }
+
+    /**
+     * Process all the items of the set. Each section is copied before it is
+     * processed, so the processor may update the set.
+     */
+    public void forEach(ItemProcessor processor) {
+        for (Section s : sections) {
+            s.forEach(processor);
+        }
+    }
+
+    /**
+     * @return the items of the set.
+     */
+    public long[] items() {
+        final long[] items = new long[size()];
+        final int[] numItems = new int[1];
+        forEach(new ItemProcessor() {
+            @Override
+            public void process(long item) {
+                if (numItems[0] < items.length) {
+                    items[numItems[0]++] = item;
+                }
+            }
+        });
+        return numItems[0] == items.length ? items : Arrays.copyOf(items, numItems[0]);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("[");
+        forEach(new ItemProcessor() {
+            @Override
+            public void process(long item) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(item);
+            }
+        });
+        return sb.append(']').toString();
+    }
+
+    private Section getSection(long hash) {
+        return sections[(int) (hash >>> 32) & (sections.length - 1)];
+    }
+
+    private static void checkItem(long item) {
+        Preconditions.checkArgument(item != EMPTY_KEY && item != DELETED_KEY, "Reserved item %s", item);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Section extends ReentrantReadWriteLock {
+        private long[] table;
+        private int capacity;
+        private volatile int size;
+        // buckets used by items or by deleted markers
+        private int usedBuckets;
+        private int resizeThreshold;
+
+        Section(int capacity) {
+            this.capacity = alignToPowerOfTwo(Math.max(capacity, 2));
+            this.table = newTable(this.capacity);
+            this.resizeThreshold = (int) (this.capacity * MAP_FILL_FACTOR);
+        }
+
+        boolean contains(long item, int itemHash) {
+            readLock().lock();
+            try {
+                int bucket = itemHash & (capacity - 1);
+                while (true) {
+                    long storedItem = table[bucket];
+                    if (storedItem == item) {
+                        return true;
+                    } else if (storedItem == EMPTY_KEY) {
+                        return false;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        boolean add(long item, int itemHash) {
+            writeLock().lock();
+            try {
+                int bucket = itemHash & (capacity - 1);
+                int firstDeletedBucket = -1;
+                while (true) {
+                    long storedItem = table[bucket];
+                    if (storedItem == item) {
+                        return false;
+                    } else if (storedItem == EMPTY_KEY) {
+                        if (firstDeletedBucket != -1) {
+                            bucket = firstDeletedBucket;
+                        } else {
+                            ++usedBuckets;
+                        }
+                        table[bucket] = item;
+                        ++size;
+                        if (usedBuckets > resizeThreshold) {
+                            rehash(size > capacity / 2 ? capacity * 2 : capacity);
+                        }
+                        return true;
+                    } else if (storedItem == DELETED_KEY && firstDeletedBucket == -1) {
+                        firstDeletedBucket = bucket;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        boolean remove(long item, int itemHash) {
+            writeLock().lock();
+            try {
+                int bucket = itemHash & (capacity - 1);
+                while (true) {
+                    long storedItem = table[bucket];
+                    if (storedItem == item) {
+                        --size;
+                        if (table[(bucket + 1) & (capacity - 1)] == EMPTY_KEY) {
+                            table[bucket] = EMPTY_KEY;
+                            --usedBuckets;
+                            int prevBucket = (bucket - 1) & (capacity - 1);
+                            while (table[prevBucket] == DELETED_KEY) {
+                                table[prevBucket] = EMPTY_KEY;
+                                --usedBuckets;
+                                prevBucket = (prevBucket - 1) & (capacity - 1);
+                            }
+                        } else {
+                            table[bucket] = DELETED_KEY;
+                        }
+                        return true;
+                    } else if (storedItem == EMPTY_KEY) {
+                        return false;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        void clear() {
+            writeLock().lock();
+            try {
+                Arrays.fill(table, EMPTY_KEY);
+                size = 0;
+                usedBuckets = 0;
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        void forEach(ItemProcessor processor) {
+            long[] copy;
+            readLock().lock();
+            try {
+                if (size == 0) {
+                    return;
+                }
+                copy = table.clone();
+            } finally {
+                readLock().unlock();
+            }
+            for (long item : copy) {
+                if (item != EMPTY_KEY && item != DELETED_KEY) {
+                    processor.process(item);
+                }
+            }
+        }
+
+        private void rehash(int newCapacity) {
+            long[] newTable = newTable(newCapacity);
+            for (long item : table) {
+                if (item != EMPTY_KEY && item != DELETED_KEY) {
+                    int bucket = (int) hash(item) & (newCapacity - 1);
+                    while (newTable[bucket] != EMPTY_KEY) {
+                        bucket = (bucket + 1) & (newCapacity - 1);
+                    }
+                    newTable[bucket] = item;
+                }
+            }
+            table = newTable;
+            capacity = newCapacity;
+            usedBuckets = size;
+            resizeThreshold = (int) (capacity * MAP_FILL_FACTOR);
+        }
+
+        private static long[] newTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, EMPTY_KEY);
+            return table;
+        }
+    }
+}
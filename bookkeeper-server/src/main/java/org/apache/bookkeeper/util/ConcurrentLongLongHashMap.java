@@ -0,0 +1,443 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A concurrent hash map from primitive longs to primitive longs.
+ *
+ * <p>
+ * The map is split in sections, each one an open addressing table with linear
+ * probing, guarded by its own read/write lock. Keys and values are stored
+ * inline in a single <code>long[]</code> per section, so no object is allocated
+ * per mapping, unlike a <code>ConcurrentHashMap&lt;Long, Long&gt;</code> which
+ * boxes both the key and the value and allocates a node for every mapping.
+ * </p>
+ *
+ * <p>
+ * Values must be non negative: <code>-1</code> is returned when a key is not
+ * found. {@link Long#MIN_VALUE} and <code>Long.MIN_VALUE + 1</code> are reserved
+ * and cannot be used as keys.
+ * </p>
+ */
+public class ConcurrentLongLongHashMap {
+
+    /**
+     * Value returned when a key is not in the map.
+     */
+    public static final long NO_VALUE = -1L;
+
+    /**
+     * Processor of the mappings of a map.
+     */
+    public static interface EntryProcessor {
+        void process(long key, long value);
+    }
+
+    static final long EMPTY_KEY = Long.MIN_VALUE;
+    static final long DELETED_KEY = Long.MIN_VALUE + 1;
+
+    static final float MAP_FILL_FACTOR = 0.66f;
+    static final int DEFAULT_EXPECTED_ITEMS = 256;
+    static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final Section[] sections;
+
+    public ConcurrentLongLongHashMap() {
+        this(DEFAULT_EXPECTED_ITEMS);
+    }
+
+    public ConcurrentLongLongHashMap(int expectedItems) {
+        this(expectedItems, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentLongLongHashMap(int expectedItems, int concurrencyLevel) {
+        Preconditions.checkArgument(expectedItems > 0, "Expected items should be positive");
+        Preconditions.checkArgument(concurrencyLevel > 0, "Concurrency level should be positive");
+        Preconditions.checkArgument(expectedItems >= concurrencyLevel,
+                "Expected items should be at least the concurrency level");
+        int numSections = alignToPowerOfTwo(concurrencyLevel);
+        int perSectionExpectedItems = expectedItems / numSections;
+        int perSectionCapacity = (int) (perSectionExpectedItems / MAP_FILL_FACTOR);
+        this.sections = new Section[numSections];
+        for (int i = 0; i < numSections; i++) {
+            sections[i] = new Section(perSectionCapacity);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Section s : sections) {
+            size += s.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Section s : sections) {
+            if (s.size != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of buckets allocated by the map.
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (Section s : sections) {
+            capacity += s.capacity;
+        }
+        return capacity;
+    }
+
+    /**
+     * @return the value mapped to <i>key</i>, or {@link #NO_VALUE} if there is none.
+     */
+    public long get(long key) {
+        checkKey(key);
+        long h = hash(key);
+        return getSection(h).get(key, (int) h);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Map <i>key</i> to <i>value</i>.
+     *
+     * @return the previous value of the key, or {@link #NO_VALUE} if there was none.
+     */
+    public long put(long key, long value) {
+        checkKey(key);
+        checkValue(value);
+        long h = hash(key);
+        return getSection(h).put(key, value, (int) h, false);
+    }
+
+    /**
+     * Map <i>key</i> to <i>value</i> unless the key is already mapped.
+     *
+     * @return the current value of the key, or {@link #NO_VALUE} if the value was put.
+     */
+    public long putIfAbsent(long key, long value) {
+        checkKey(key);
+        checkValue(value);
+        long h = hash(key);
+        return getSection(h).put(key, value, (int) h, true);
+    }
+
+    /**
+     * Add <i>delta</i> to the value of <i>key</i>, mapping the key to <i>delta</i>
+     * if it wasn't mapped.
+     *
+     * @return the new value of the key.
+     */
+    public long addAndGet(long key, long delta) {
+        checkKey(key);
+        long h = hash(key);
+        return getSection(h).addAndGet(key, delta, (int) h);
+    }
+
+    /**
+     * Remove the mapping of <i>key</i>.
+     *
+     * @return the removed value, or {@link #NO_VALUE} if the key wasn't mapped.
+     */
+    public long remove(long key) {
+        checkKey(key);
+        long h = hash(key);
+        return getSection(h).remove(key, (int) h);
+    }
+
+    public void clear() {
+        for (Section s : sections) {
+            s.clear();
+        }
+    }
+
+    /**
+     * Process all the mappings of the map. Each section is copied before it is
+     * processed, so the processor may update the map.
+     */
+    public void forEach(EntryProcessor processor) {
+        for (Section s : sections) {
+            s.forEach(processor);
+        }
+    }
+
+    /**
+     * @return the keys of the map.
+     */
+    public long[] keys() {
+        final long[] keys = new long[size()];
+        final int[] numKeys = new int[1];
+        forEach(new EntryProcessor() {
+            @Override
+            public void process(long key, long value) {
+                if (numKeys[0] < keys.length) {
+                    keys[numKeys[0]++] = key;
+                }
+            }
+        });
+        return numKeys[0] == keys.length ? keys : Arrays.copyOf(keys, numKeys[0]);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        forEach(new EntryProcessor() {
+            @Override
+            public void process(long key, long value) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(key).append('=').append(value);
+            }
+        });
+        return sb.append('}').toString();
+    }
+
+    private Section getSection(long hash) {
+        // the upper bits of the hash pick the section, the lower bits the bucket
+        return sections[(int) (hash >>> 32) & (sections.length - 1)];
+    }
+
+    private static void checkKey(long key) {
+        Preconditions.checkArgument(key != EMPTY_KEY && key != DELETED_KEY, "Reserved key %s", key);
+    }
+
+    private static void checkValue(long value) {
+        Preconditions.checkArgument(value >= 0, "Values should be non negative : %s", value);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Section extends ReentrantReadWriteLock {
+        // keys and values interleaved: key at 2 * bucket, value at 2 * bucket + 1
+        private long[] table;
+        private int capacity;
+        private volatile int size;
+        // buckets used by keys or by deleted markers
+        private int usedBuckets;
+        private int resizeThreshold;
+
+        Section(int capacity) {
+            this.capacity = alignToPowerOfTwo(Math.max(capacity, 2));
+            this.table = newTable(this.capacity);
+            this.resizeThreshold = (int) (this.capacity * MAP_FILL_FACTOR);
+        }
+
+        long get(long key, int keyHash) {
+            readLock().lock();
+            try {
+                int bucket = keyHash & (capacity - 1);
+                while (true) {
+                    long storedKey = table[2 * bucket];
+                    if (storedKey == key) {
+                        return table[2 * bucket + 1];
+                    } else if (storedKey == EMPTY_KEY) {
+                        return NO_VALUE;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        long put(long key, long value, int keyHash, boolean onlyIfAbsent) {
+            writeLock().lock();
+            try {
+                int bucket = keyHash & (capacity - 1);
+                int firstDeletedBucket = -1;
+                while (true) {
+                    long storedKey = table[2 * bucket];
+                    if (storedKey == key) {
+                        long storedValue = table[2 * bucket + 1];
+                        if (!onlyIfAbsent) {
+                            table[2 * bucket + 1] = value;
+                        }
+                        return storedValue;
+                    } else if (storedKey == EMPTY_KEY) {
+                        insert(firstDeletedBucket, bucket, key, value);
+                        return NO_VALUE;
+                    } else if (storedKey == DELETED_KEY && firstDeletedBucket == -1) {
+                        firstDeletedBucket = bucket;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        long addAndGet(long key, long delta, int keyHash) {
+            writeLock().lock();
+            try {
+                int bucket = keyHash & (capacity - 1);
+                int firstDeletedBucket = -1;
+                while (true) {
+                    long storedKey = table[2 * bucket];
+                    if (storedKey == key) {
+                        long newValue = table[2 * bucket + 1] + delta;
+                        checkValue(newValue);
+                        table[2 * bucket + 1] = newValue;
+                        return newValue;
+                    } else if (storedKey == EMPTY_KEY) {
+                        checkValue(delta);
+                        insert(firstDeletedBucket, bucket, key, delta);
+                        return delta;
+                    } else if (storedKey == DELETED_KEY && firstDeletedBucket == -1) {
+                        firstDeletedBucket = bucket;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        private void insert(int deletedBucket, int emptyBucket, long key, long value) {
+            int bucket;
+            if (deletedBucket != -1) {
+                // reuse the deleted bucket found on the way
+                bucket = deletedBucket;
+            } else {
+                bucket = emptyBucket;
+                ++usedBuckets;
+            }
+            table[2 * bucket] = key;
+            table[2 * bucket + 1] = value;
+            ++size;
+            if (usedBuckets > resizeThreshold) {
+                // grow if the map is actually full, otherwise just drop the deleted markers
+                rehash(size > capacity / 2 ? capacity * 2 : capacity);
+            }
+        }
+
+        long remove(long key, int keyHash) {
+            writeLock().lock();
+            try {
+                int bucket = keyHash & (capacity - 1);
+                while (true) {
+                    long storedKey = table[2 * bucket];
+                    if (storedKey == key) {
+                        long storedValue = table[2 * bucket + 1];
+                        --size;
+                        int nextBucket = (bucket + 1) & (capacity - 1);
+                        if (table[2 * nextBucket] == EMPTY_KEY) {
+                            // end of a probe chain: free the bucket and the deleted ones before it
+                            table[2 * bucket] = EMPTY_KEY;
+                            --usedBuckets;
+                            int prevBucket = (bucket - 1) & (capacity - 1);
+                            while (table[2 * prevBucket] == DELETED_KEY) {
+                                table[2 * prevBucket] = EMPTY_KEY;
+                                --usedBuckets;
+                                prevBucket = (prevBucket - 1) & (capacity - 1);
+                            }
+                        } else {
+                            table[2 * bucket] = DELETED_KEY;
+                        }
+                        return storedValue;
+                    } else if (storedKey == EMPTY_KEY) {
+                        return NO_VALUE;
+                    }
+                    bucket = (bucket + 1) & (capacity - 1);
+                }
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        void clear() {
+            writeLock().lock();
+            try {
+                Arrays.fill(table, EMPTY_KEY);
+                size = 0;
+                usedBuckets = 0;
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        void forEach(EntryProcessor processor) {
+            long[] copy;
+            readLock().lock();
+            try {
+                if (size == 0) {
+                    return;
+                }
+                copy = table.clone();
+            } finally {
+                readLock().unlock();
+            }
+            for (int i = 0; i < copy.length; i += 2) {
+                long key = copy[i];
+                if (key != EMPTY_KEY && key != DELETED_KEY) {
+                    processor.process(key, copy[i + 1]);
+                }
+            }
+        }
+
+        private void rehash(int newCapacity) {
+            long[] newTable = newTable(newCapacity);
+            for (int i = 0; i < table.length; i += 2) {
+                long key = table[i];
+                if (key != EMPTY_KEY && key != DELETED_KEY) {
+                    int bucket = (int) hash(key) & (newCapacity - 1);
+                    while (newTable[2 * bucket] != EMPTY_KEY) {
+                        bucket = (bucket + 1) & (newCapacity - 1);
+                    }
+                    newTable[2 * bucket] = key;
+                    newTable[2 * bucket + 1] = table[i + 1];
+                }
+            }
+            table = newTable;
+            capacity = newCapacity;
+            usedBuckets = size;
+            resizeThreshold = (int) (capacity * MAP_FILL_FACTOR);
+        }
+
+        private static long[] newTable(int capacity) {
+            long[] table = new long[2 * capacity];
+            Arrays.fill(table, EMPTY_KEY);
+            return table;
+        }
+    }
+
+    private static final long HASH_MIXER = 0xc6a4a7935bd1e995L;
+    private static final int R = 47;
+
+    static long hash(long key) {
+        long hash = key * HASH_MIXER;
+        hash ^= hash >>> R;
+        hash *= HASH_MIXER;
+        return hash;
+    }
+
+    static int alignToPowerOfTwo(int n) {
+        return (int) Math.pow(2, 32 - Integer.numberOfLeadingZeros(n - 1));
+    }
+}
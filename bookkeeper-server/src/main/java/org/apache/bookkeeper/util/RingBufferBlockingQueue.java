@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.util;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A bounded lock-free queue backed by a ring buffer.
+ *
+ * <p>
+ * Each slot of the ring carries a sequence number telling whether it is ready
+ * to be written or to be read, so producers and consumers only contend on a CAS
+ * of their own cursor and no node is allocated per element. Non-blocking
+ * operations ({@link #offer(Object)}, {@link #poll()}, {@link #drainTo(Collection)})
+ * are safe for any number of producers and consumers.
+ * </p>
+ * <p>
+ * Blocking operations park the calling thread. Only a single consumer thread may
+ * block in {@link #take()} or {@link #poll(long, TimeUnit)} at a time, which is the
+ * way the journal thread uses it. Producers blocked in {@link #put(Object)} on a full
+ * queue back off until space frees up.
+ * </p>
+ * <p>
+ * Iterators are weakly consistent: they walk the slots between the consumer and the
+ * producer cursors, skipping slots consumed in the meantime. Removing an arbitrary
+ * element leaves a tombstone in its slot, which consumers skip. Tombstones count in
+ * {@link #size()} until they are skipped.
+ * </p>
+ */
+public class RingBufferBlockingQueue<T> extends AbstractQueue<T> implements BlockingQueue<T> {
+
+    // back off time of producers when the queue is full
+    private static final long FULL_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final int capacity;
+    private final int mask;
+    // marks a slot whose element was removed before being consumed
+    private static final Object REMOVED = new Object();
+
+    private final AtomicReferenceArray<Object> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePos = new AtomicLong(0L);
+    private final AtomicLong dequeuePos = new AtomicLong(0L);
+    // consumer thread waiting for elements
+    private volatile Thread waiter = null;
+
+    /**
+     * Create a ring buffer queue.
+     *
+     * @param capacity
+     *          capacity of the queue, rounded up to the next power of two.
+     */
+    public RingBufferBlockingQueue(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && capacity <= (1 << 30),
+                "Invalid ring buffer capacity : %s", capacity);
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<Object>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(T e) {
+        Preconditions.checkNotNull(e);
+        while (true) {
+            long pos = enqueuePos.get();
+            int idx = (int) (pos & mask);
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (enqueuePos.compareAndSet(pos, pos + 1)) {
+                    elements.lazySet(idx, e);
+                    // publish the slot to the consumers
+                    sequences.set(idx, pos + 1);
+                    Thread w = waiter;
+                    if (null != w) {
+                        LockSupport.unpark(w);
+                    }
+                    return true;
+                }
+            } else if (diff < 0) {
+                // the slot hasn't been consumed yet, the queue is full
+                return false;
+            }
+            // another producer took the slot, retry
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        while (true) {
+            long pos = dequeuePos.get();
+            int idx = (int) (pos & mask);
+            long diff = sequences.get(idx) - (pos + 1);
+            if (diff == 0) {
+                if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                    // swap the element out, so a concurrent remove either wins or fails
+                    Object e = elements.getAndSet(idx, null);
+                    // release the slot for the next round of producers
+                    sequences.set(idx, pos + capacity);
+                    if (REMOVED != e) {
+                        return (T) e;
+                    }
+                }
+            } else if (diff < 0) {
+                // the slot hasn't been published yet, the queue is empty
+                return null;
+            }
+            // another consumer took the slot, or it held a removed element, retry
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        while (true) {
+            long pos = dequeuePos.get();
+            int idx = (int) (pos & mask);
+            if (sequences.get(idx) != pos + 1) {
+                return null;
+            }
+            Object e = elements.get(idx);
+            if (REMOVED == e) {
+                // consume the removed element so it doesn't hide the next one
+                if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                    elements.set(idx, null);
+                    sequences.set(idx, pos + capacity);
+                }
+            } else if (null != e) {
+                return (T) e;
+            }
+            // the slot was consumed meanwhile, retry
+        }
+    }
+
+    @Override
+    public void put(T e) throws InterruptedException {
+        while (!offer(e)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(FULL_BACKOFF_NANOS);
+        }
+    }
+
+    @Override
+    public boolean offer(T e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(Math.min(remaining, FULL_BACKOFF_NANOS));
+        }
+        return true;
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        T e = poll();
+        if (null != e) {
+            return e;
+        }
+        waiter = Thread.currentThread();
+        try {
+            while (null == (e = poll())) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return e;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        T e = poll();
+        if (null != e) {
+            return e;
+        }
+        long remaining = unit.toNanos(timeout);
+        if (remaining <= 0) {
+            return null;
+        }
+        long deadline = System.nanoTime() + remaining;
+        waiter = Thread.currentThread();
+        try {
+            while (null == (e = poll())) {
+                remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return e;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c, int maxElements) {
+        int n = 0;
+        T e;
+        while (n < maxElements && null != (e = poll())) {
+            c.add(e);
+            ++n;
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        // read dequeue position first so the size is never negative
+        long deqPos = dequeuePos.get();
+        long enqPos = enqueuePos.get();
+        return (int) Math.max(0L, Math.min(capacity, enqPos - deqPos));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return null == peek();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (null == o) {
+            return false;
+        }
+        for (long pos = dequeuePos.get(); ; ++pos) {
+            int idx = (int) (pos & mask);
+            long seq = sequences.get(idx);
+            if (seq < pos + 1) {
+                // reached the producer cursor
+                return false;
+            }
+            if (seq == pos + 1) {
+                Object e = elements.get(idx);
+                if (o.equals(e) && elements.compareAndSet(idx, e, REMOVED)) {
+                    return true;
+                }
+            } else {
+                // the slot was consumed meanwhile, continue from the consumer cursor
+                pos = Math.max(pos, dequeuePos.get() - 1);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Weakly consistent iterator over the elements between the consumer and the
+     * producer cursors.
+     */
+    private class Itr implements Iterator<T> {
+        // next position to look at
+        private long pos;
+        private T next;
+        private int nextIdx = -1;
+        private T lastRet;
+        private int lastRetIdx = -1;
+
+        Itr() {
+            pos = dequeuePos.get();
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (true) {
+                pos = Math.max(pos, dequeuePos.get());
+                int idx = (int) (pos & mask);
+                long seq = sequences.get(idx);
+                if (seq < pos + 1) {
+                    // reached the producer cursor
+                    return;
+                }
+                if (seq > pos + 1) {
+                    // the slot was consumed and reused, catch up with the consumer cursor
+                    continue;
+                }
+                Object e = elements.get(idx);
+                ++pos;
+                if (null != e && REMOVED != e) {
+                    next = (T) e;
+                    nextIdx = idx;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        public T next() {
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+            lastRet = next;
+            lastRetIdx = nextIdx;
+            advance();
+            return lastRet;
+        }
+
+        @Override
+        public void remove() {
+            if (null == lastRet) {
+                throw new IllegalStateException();
+            }
+            // nothing to do if the element was consumed already
+            elements.compareAndSet(lastRetIdx, lastRet, REMOVED);
+            lastRet = null;
+            lastRetIdx = -1;
+        }
+    }
+}
@@ -29,11 +29,16 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.bookkeeper.conf.ServerConfiguration;
 import org.apache.bookkeeper.client.ClientUtil;
 import org.apache.bookkeeper.client.LedgerHandle;
 import org.apache.bookkeeper.conf.TestBKConfiguration;
+import org.apache.bookkeeper.net.BookieSocketAddress;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
 import org.apache.bookkeeper.util.IOUtils;
 import org.apache.bookkeeper.util.ZeroBuffer;
 import org.apache.commons.io.FileUtils;
@@ -743,4 +748,269 @@ public class BookieJournalTest {
             // correct behaviour
         }
     }
+
+    /**
+     * Test that a bookie with multiple journals replays the journal of each
+     * journal directory, and dispatches new entries to journals by ledger id.
+     */
+    @Test
+    public void testMultipleJournals() throws Exception {
+        File journalDir0 = createTempDir("bookie", "journal0");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(journalDir0));
+        File journalDir1 = createTempDir("bookie", "journal1");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(journalDir1));
+
+        File ledgerDir = createTempDir("bookie", "ledger");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(ledgerDir));
+
+        // ledger 1 belongs to the second journal
+        writeV5Journal(Bookie.getCurrentDirectory(journalDir1), 100,
+                "testMultipleJournals".getBytes());
+
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration()
+            .setZkServers(null)
+            .setJournalDirsName(new String[] { journalDir0.getPath(), journalDir1.getPath() })
+            .setLedgerDirNames(new String[] { ledgerDir.getPath() });
+
+        Bookie b = newBookie(conf);
+        assertEquals(2, b.journals.size());
+        assertSame(b.journals.get(0), b.getJournal(0));
+        assertSame(b.journals.get(1), b.getJournal(1));
+        b.readJournal();
+        for (int i = 1; i <= 100; i++) {
+            b.readEntry(1, i);
+        }
+        assertTrue(b.handles.getHandle(1, "testMultipleJournals".getBytes()).isFenced());
+
+        // new entries go to the journal of their ledger
+        b.start();
+        try {
+            final int numEntries = 10;
+            final CountDownLatch latch = new CountDownLatch(2 * numEntries);
+            WriteCallback cb = new WriteCallback() {
+                @Override
+                public void writeComplete(int rc, long ledgerId, long entryId,
+                                          BookieSocketAddress addr, Object ctx) {
+                    if (0 == rc) {
+                        latch.countDown();
+                    }
+                }
+            };
+            byte[] data = new byte[1024];
+            for (long ledgerId = 2; ledgerId <= 3; ledgerId++) {
+                for (int i = 0; i < numEntries; i++) {
+                    ByteBuffer entry = ClientUtil.generatePacket(ledgerId, i, i - 1, i * 1024,
+                            data, 0, data.length).toByteBuffer();
+                    b.addEntry(entry, cb, null, "testMultipleJournals".getBytes());
+                }
+            }
+            assertTrue("Adds should complete", latch.await(10, TimeUnit.SECONDS));
+            assertEquals(numEntries, countJournalEntries(b.journals.get(0), 2));
+            assertEquals(0, countJournalEntries(b.journals.get(0), 3));
+            assertEquals(numEntries, countJournalEntries(b.journals.get(1), 3));
+            assertEquals(0, countJournalEntries(b.journals.get(1), 2));
+        } finally {
+            b.shutdown();
+        }
+    }
+
+    /**
+     * Test that entries added through the ring buffer journal queue, with
+     * pooled queue entries, are all journaled and acknowledged.
+     */
+    @Test
+    public void testRingBufferJournalQueue() throws Exception {
+        File journalDir = createTempDir("bookie", "journal");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(journalDir));
+        File ledgerDir = createTempDir("bookie", "ledger");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(ledgerDir));
+
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration()
+            .setZkServers(null)
+            .setJournalDirName(journalDir.getPath())
+            .setLedgerDirNames(new String[] { ledgerDir.getPath() })
+            .setJournalRingBufferQueueEnabled(true)
+            .setJournalRingBufferQueueCapacity(16)
+            .setJournalQueueEntryPoolSize(8);
+
+        Bookie b = newBookie(conf);
+        b.start();
+        try {
+            addEntries(b, 1, 200, false, "testRingBufferJournalQueue".getBytes());
+            assertEquals(200, countJournalEntries(b.journals.get(0), 1));
+        } finally {
+            b.shutdown();
+        }
+    }
+
+    /**
+     * Test that entries written with gathering writes, from both heap and
+     * direct buffers, are journaled and can be replayed.
+     */
+    @Test
+    public void testGatheringJournalWrites() throws Exception {
+        File journalDir = createTempDir("bookie", "journal");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(journalDir));
+        File ledgerDir = createTempDir("bookie", "ledger");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(ledgerDir));
+
+        // small write buffers so entries span several arena chunks
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration()
+            .setZkServers(null)
+            .setJournalDirName(journalDir.getPath())
+            .setLedgerDirNames(new String[] { ledgerDir.getPath() })
+            .setJournalGatheringWriteEnabled(true)
+            .setJournalWriteBufferSizeKB(1);
+
+        final int numEntries = 100;
+        Bookie b = newBookie(conf);
+        b.start();
+        try {
+            addEntries(b, 1, numEntries, false, "testGatheringJournalWrites".getBytes());
+            addEntries(b, 2, numEntries, true, "testGatheringJournalWrites".getBytes());
+            assertEquals(numEntries, countJournalEntries(b.journals.get(0), 1));
+            assertEquals(numEntries, countJournalEntries(b.journals.get(0), 2));
+        } finally {
+            b.shutdown();
+        }
+
+        // entries are replayed from the journal
+        b = newBookie(conf);
+        b.readJournal();
+        for (long ledgerId = 1; ledgerId <= 2; ledgerId++) {
+            for (int i = 0; i < numEntries; i++) {
+                ByteBuffer entry = b.readEntry(ledgerId, i);
+                assertEquals(ledgerId, entry.getLong());
+                assertEquals(i, entry.getLong());
+            }
+        }
+    }
+
+    /**
+     * Test that entries are journaled when group commit thresholds are
+     * adapted to the measured force write latency and arrival rate.
+     */
+    @Test
+    public void testAdaptiveGroupCommit() throws Exception {
+        File journalDir = createTempDir("bookie", "journal");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(journalDir));
+        File ledgerDir = createTempDir("bookie", "ledger");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(ledgerDir));
+
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration()
+            .setZkServers(null)
+            .setJournalDirName(journalDir.getPath())
+            .setLedgerDirNames(new String[] { ledgerDir.getPath() })
+            .setJournalAdaptiveGroupCommitEnabled(true)
+            .setJournalGroupCommitTargetLatencyMSec(5);
+
+        Bookie b = newBookie(conf);
+        b.start();
+        try {
+            addEntries(b, 1, 500, false, "testAdaptiveGroupCommit".getBytes());
+            assertEquals(500, countJournalEntries(b.journals.get(0), 1));
+        } finally {
+            b.shutdown();
+        }
+    }
+
+    /**
+     * Test that entries of several journals are replayed in parallel, with
+     * journal records spanning several read buffers.
+     */
+    @Test
+    public void testParallelJournalReplay() throws Exception {
+        File journalDir0 = createTempDir("bookie", "journal0");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(journalDir0));
+        File journalDir1 = createTempDir("bookie", "journal1");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(journalDir1));
+        File ledgerDir = createTempDir("bookie", "ledger");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(ledgerDir));
+
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration()
+            .setZkServers(null)
+            .setJournalDirsName(new String[] { journalDir0.getPath(), journalDir1.getPath() })
+            .setLedgerDirNames(new String[] { ledgerDir.getPath() });
+
+        final int numLedgers = 8;
+        final int numEntries = 200;
+        Bookie b = newBookie(conf);
+        b.start();
+        try {
+            for (long ledgerId = 1; ledgerId <= numLedgers; ledgerId++) {
+                addEntries(b, ledgerId, numEntries, false, "testParallelJournalReplay".getBytes());
+            }
+        } finally {
+            b.shutdown();
+        }
+
+        // replay the journals to empty ledger storage
+        File newLedgerDir = createTempDir("bookie", "ledger");
+        Bookie.checkDirectoryStructure(Bookie.getCurrentDirectory(newLedgerDir));
+        conf.setLedgerDirNames(new String[] { newLedgerDir.getPath() })
+            .setNumJournalReplayThreads(4)
+            .setJournalReadBufferSizeKB(4);
+        b = newBookie(conf);
+        try {
+            b.readJournal();
+            for (long ledgerId = 1; ledgerId <= numLedgers; ledgerId++) {
+                for (int i = 0; i < numEntries; i++) {
+                    ByteBuffer entry = b.readEntry(ledgerId, i);
+                    assertEquals(ledgerId, entry.getLong());
+                    assertEquals(i, entry.getLong());
+                }
+            }
+            // entries and master keys of all ledgers
+            assertEquals(numLedgers * (numEntries + 1), b.getJournalReplayEntries());
+        } finally {
+            b.shutdown();
+        }
+    }
+
+    private static void addEntries(Bookie b, long ledgerId, int numEntries,
+                                   boolean directBuffers, byte[] masterKey) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(numEntries);
+        WriteCallback cb = new WriteCallback() {
+            @Override
+            public void writeComplete(int rc, long ledgerId, long entryId,
+                                      BookieSocketAddress addr, Object ctx) {
+                if (0 == rc) {
+                    latch.countDown();
+                }
+            }
+        };
+        byte[] data = new byte[1024];
+        for (int i = 0; i < numEntries; i++) {
+            ByteBuffer entry = ClientUtil.generatePacket(ledgerId, i, i - 1, i * 1024,
+                    data, 0, data.length).toByteBuffer();
+            if (directBuffers) {
+                ByteBuffer directEntry = ByteBuffer.allocateDirect(entry.remaining());
+                directEntry.put(entry);
+                directEntry.flip();
+                entry = directEntry;
+            }
+            b.addEntry(entry, cb, null, masterKey);
+        }
+        assertTrue("Adds should complete", latch.await(10, TimeUnit.SECONDS));
+    }
+
+    private static int countJournalEntries(Journal journal, final long ledgerId) throws Exception {
+        final AtomicInteger numEntries = new AtomicInteger(0);
+        File[] journalFiles = journal.getJournalDirectory().listFiles();
+        for (File f : journalFiles) {
+            if (!f.getName().endsWith(".txn")) {
+                continue;
+            }
+            long journalId = Long.parseLong(f.getName().split("\\.")[0], 16);
+            journal.scanJournal(journalId, 0L, new Journal.JournalScanner() {
+                @Override
+                public void process(int journalVersion, long offset, ByteBuffer entry) {
+                    if (entry.getLong() == ledgerId && entry.getLong() >= 0) {
+                        numEntries.incrementAndGet();
+                    }
+                }
+            });
+        }
+        return numEntries.get();
+    }
 }
@@ -27,6 +27,7 @@ import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.base.Optional;
 import org.apache.bookkeeper.bookie.EntryLogMetadataManager.EntryLogMetadata;
@@ -34,6 +35,7 @@ import org.apache.bookkeeper.bookie.EntryLogger.ExtractionScanner;
 import org.apache.bookkeeper.conf.ServerConfiguration;
 import org.apache.bookkeeper.conf.TestBKConfiguration;
 import org.apache.bookkeeper.util.IOUtils;
+import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Assert;
@@ -197,9 +199,9 @@ public class EntryLogTest {
             }
             LOG.info("Extracted Meta From Entry Log {}", meta);
         }
-        assertNotNull(meta.ledgersMap.get(1L));
-        assertNull(meta.ledgersMap.get(2L));
-        assertNotNull(meta.ledgersMap.get(3L));
+        assertTrue(meta.ledgersMap.containsKey(1L));
+        assertFalse(meta.ledgersMap.containsKey(2L));
+        assertTrue(meta.ledgersMap.containsKey(3L));
     }
 
     private ByteBuffer generateEntry(long ledger, long entry) {
@@ -448,14 +450,239 @@ public class EntryLogTest {
         assertTrue(metaOptional.isPresent());
         EntryLogMetadata meta = metaOptional.get();
         LOG.info("Extracted Meta From Entry Log {}", meta);
-        assertEquals(60, meta.ledgersMap.get(1L).longValue());
-        assertEquals(30, meta.ledgersMap.get(2L).longValue());
-        assertEquals(30, meta.ledgersMap.get(3L).longValue());
-        assertNull(meta.ledgersMap.get(4L));
+        assertEquals(60, meta.ledgersMap.get(1L));
+        assertEquals(30, meta.ledgersMap.get(2L));
+        assertEquals(30, meta.ledgersMap.get(3L));
+        assertFalse(meta.ledgersMap.containsKey(4L));
         assertEquals(120, meta.getTotalSize());
         assertEquals(120, meta.getRemainingSize());
     }
 
+    @Test(timeout = 60000)
+    public void testEntryLogMetadataIndex() throws Exception {
+        File tmpDir = createTempDir("bkTest", ".dir");
+        File curDir = Bookie.getCurrentDirectory(tmpDir);
+        Bookie.checkDirectoryStructure(curDir);
+
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration();
+        conf.setLedgerDirNames(new String[] { tmpDir.toString() });
+        conf.setEntryLogMetadataIndexEnabled(true);
+        Bookie bookie = new Bookie(conf);
+        bookie.initialize();
+
+        // create some entries
+        EntryLogger logger = ((InterleavedLedgerStorage) bookie.ledgerStorage).entryLogger;
+        logger.addEntry(1, generateEntry(1, 1));
+        logger.addEntry(3, generateEntry(3, 1));
+        logger.addEntry(2, generateEntry(2, 1));
+        logger.addEntry(1, generateEntry(1, 2));
+        logger.rollLog();
+        logger.flush();
+        assertTrue(logger.getEntryLogMetadataManager().containsEntryLog(0L));
+        logger.shutdown();
+        assertTrue(new File(curDir, EntryLogMetadataIndex.INDEX_FILE).exists());
+
+        // the metadata of the rotated log is loaded without scanning it
+        logger = new EntryLogger(conf, bookie.getLedgerDirsManager());
+        EntryLogMetadata meta = logger.getEntryLogMetadataManager().getEntryLogMetadata(0L);
+        assertNotNull(meta);
+        assertEquals(60, meta.ledgersMap.get(1L));
+        assertEquals(30, meta.ledgersMap.get(2L));
+        assertEquals(30, meta.ledgersMap.get(3L));
+        assertEquals(120, meta.getTotalSize());
+        assertEquals(120, meta.getRemainingSize());
+        logger.shutdown();
+
+        // the metadata of removed entry logs is dropped
+        assertTrue(new File(curDir, "0.log").delete());
+        logger = new EntryLogger(conf, bookie.getLedgerDirsManager());
+        assertFalse(logger.getEntryLogMetadataManager().containsEntryLog(0L));
+        logger.shutdown();
+    }
+
+    @Test(timeout = 60000)
+    public void testEntryLogPerLedgerDir() throws Exception {
+        File ledgerDir1 = createTempDir("bkTest", ".dir");
+        File ledgerDir2 = createTempDir("bkTest", ".dir");
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration();
+        conf.setLedgerDirNames(new String[] { ledgerDir1.getAbsolutePath(),
+                ledgerDir2.getAbsolutePath() });
+        conf.setEntryLogPerLedgerDirEnabled(true);
+        Bookie bookie = newBookie(conf);
+        EntryLogger logger = new EntryLogger(conf, bookie.getLedgerDirsManager());
+
+        long[] locations = new long[4];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = logger.addEntry(i, generateEntry(i, 1));
+        }
+        // ledgers are mapped to one entry log per ledger directory
+        long logId1 = logger.logIdForOffset(locations[0]);
+        long logId2 = logger.logIdForOffset(locations[1]);
+        assertTrue(logId1 != logId2);
+        assertEquals(logId1, logger.logIdForOffset(locations[2]));
+        assertEquals(logId2, logger.logIdForOffset(locations[3]));
+        // entries are read from the write buffers of both entry logs
+        for (int i = 0; i < locations.length; i++) {
+            assertArrayEquals(generateEntry(i, 1).array(), logger.readEntry(i, 1, locations[i]));
+        }
+        assertTrue(logger.getLeastUnflushedLogId() <= Math.min(logId1, logId2));
+
+        // the active entry logs are rolled and flushed together
+        logger.rollLog();
+        logger.flush();
+        assertTrue(logger.getLeastUnflushedLogId() > Math.max(logId1, logId2));
+        assertTrue(new File(Bookie.getCurrentDirectory(ledgerDir1), Long.toHexString(logId1) + ".log").exists());
+        assertTrue(new File(Bookie.getCurrentDirectory(ledgerDir2), Long.toHexString(logId2) + ".log").exists());
+        for (int i = 0; i < locations.length; i++) {
+            assertArrayEquals(generateEntry(i, 1).array(), logger.readEntry(i, 1, locations[i]));
+        }
+        logger.shutdown();
+    }
+
+    @Test(timeout = 60000)
+    public void testEntryLocationFormatV2() throws Exception {
+        File tmpDir = createTempDir("bkTest", ".dir");
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration();
+        conf.setLedgerDirNames(new String[] { tmpDir.toString() });
+        conf.setEntryLogSizeLimit(4L * 1024 * 1024 * 1024);
+        try {
+            conf.validate();
+            fail("Entry logs larger than 2GB need the V2 entry location format");
+        } catch (ConfigurationException ce) {
+            // expected
+        }
+        conf.setEntryLocationFormatVersion(2);
+        conf.validate();
+
+        Bookie bookie = newBookie(conf);
+        EntryLogger logger = new EntryLogger(conf, bookie.getLedgerDirsManager());
+        assertEquals(4L * 1024 * 1024 * 1024, logger.logSizeLimit);
+        long[] locations = new long[10];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = logger.addEntry(1, generateEntry(1, i));
+            assertEquals(logger.logIdForOffset(locations[i]), locations[i] >>> 40);
+        }
+        logger.flush();
+        for (int i = 0; i < locations.length; i++) {
+            assertArrayEquals(generateEntry(1, i).array(), logger.readEntry(1, i, locations[i]));
+        }
+        logger.shutdown();
+
+        // locations are converted between formats as long as they fit
+        long location = EntryLocationFormat.V1.toLocation(123L, 4567L);
+        long converted = EntryLocationFormat.V1.convert(location, EntryLocationFormat.V2);
+        assertEquals(123L, EntryLocationFormat.V2.getLogId(converted));
+        assertEquals(4567L, EntryLocationFormat.V2.getOffset(converted));
+        assertEquals(location, EntryLocationFormat.V2.convert(converted, EntryLocationFormat.V1));
+        try {
+            EntryLocationFormat.V1.convert(EntryLocationFormat.V1.toLocation(1L << 24, 0L), EntryLocationFormat.V2);
+            fail("Entry log ids beyond 24 bits can't be converted to V2");
+        } catch (IOException ioe) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testMmapReadOfFlushedEntryLogs() throws Exception {
+        File tmpDir = createTempDir("bkTest", ".dir");
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration();
+        conf.setLedgerDirNames(new String[] { tmpDir.toString() });
+        conf.setEntryLogMmapReadEnabled(true);
+        conf.setEntryLogMmapRegionSize(256);
+        conf.setEntryLogMmapCacheSize(1024);
+        Bookie bookie = newBookie(conf);
+        EntryLogger logger = new EntryLogger(conf, bookie.getLedgerDirsManager());
+
+        long[] locations = new long[200];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = logger.addEntry(1, generateEntry(1, i));
+        }
+        // entries of the active entry log are read from its write buffer
+        ByteBuffer entry = logger.readEntryBuffer(1, 0, locations[0]);
+        assertFalse(entry.isDirect());
+        assertEquals(generateEntry(1, 0), entry);
+
+        logger.rollLog();
+        logger.flush();
+        int numMapped = 0;
+        for (int i = 0; i < locations.length; i++) {
+            entry = logger.readEntryBuffer(1, i, locations[i]);
+            assertEquals(generateEntry(1, i), entry);
+            // copies of mapped entries are read-only, unlike positional reads
+            if (entry.isReadOnly()) {
+                ++numMapped;
+            }
+        }
+        // only the entries spanning two regions are read with positional reads
+        assertTrue("Only " + numMapped + " entries were read from mapped regions",
+                numMapped > locations.length / 2);
+        try {
+            logger.readEntryBuffer(1, 1, locations[0]);
+            fail("Should fail reading an entry at the location of another entry");
+        } catch (IOException ioe) {
+            // expected
+        }
+
+        // removed entry logs are not read from their mapped regions anymore
+        assertTrue(logger.removeEntryLog(logger.logIdForOffset(locations[0])));
+        try {
+            logger.readEntryBuffer(1, 0, locations[0]);
+            fail("Should fail reading an entry of a removed entry log");
+        } catch (IOException ioe) {
+            // expected
+        }
+        logger.shutdown();
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentAddsWithEntryLogPerLedgerDir() throws Exception {
+        File ledgerDir1 = createTempDir("bkTest", ".dir");
+        File ledgerDir2 = createTempDir("bkTest", ".dir");
+        File ledgerDir3 = createTempDir("bkTest", ".dir");
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration();
+        conf.setLedgerDirNames(new String[] { ledgerDir1.getAbsolutePath(),
+                ledgerDir2.getAbsolutePath(), ledgerDir3.getAbsolutePath() });
+        conf.setEntryLogPerLedgerDirEnabled(true);
+        // roll the entry logs often
+        conf.setEntryLogSizeLimit(4096);
+        Bookie bookie = newBookie(conf);
+        final EntryLogger logger = new EntryLogger(conf, bookie.getLedgerDirsManager());
+
+        final int numLedgers = 6;
+        final int numEntries = 500;
+        final long[][] locations = new long[numLedgers][numEntries];
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[numLedgers];
+        for (int i = 0; i < numLedgers; i++) {
+            final int ledgerId = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int entryId = 0; entryId < numEntries; entryId++) {
+                            locations[ledgerId][entryId] = logger.addEntry(ledgerId, generateEntry(ledgerId, entryId));
+                        }
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get());
+        logger.flush();
+        for (int ledgerId = 0; ledgerId < numLedgers; ledgerId++) {
+            for (int entryId = 0; entryId < numEntries; entryId++) {
+                assertArrayEquals(generateEntry(ledgerId, entryId).array(),
+                        logger.readEntry(ledgerId, entryId, locations[ledgerId][entryId]));
+            }
+        }
+        logger.shutdown();
+    }
+
     @Test(timeout = 60000)
     public void testGetLedgersMapOnV0EntryLog() throws Exception {
         testGetLedgersMap(true, false, false, false, false);
@@ -545,10 +772,10 @@ public class EntryLogTest {
 
         EntryLogMetadata meta = logger.extractEntryLogMetadata(0L);
         LOG.info("Extracted Meta From Entry Log {}", meta);
-        assertEquals(60, meta.ledgersMap.get(1L).longValue());
-        assertEquals(30, meta.ledgersMap.get(2L).longValue());
-        assertEquals(30, meta.ledgersMap.get(3L).longValue());
-        assertNull(meta.ledgersMap.get(4L));
+        assertEquals(60, meta.ledgersMap.get(1L));
+        assertEquals(30, meta.ledgersMap.get(2L));
+        assertEquals(30, meta.ledgersMap.get(3L));
+        assertFalse(meta.ledgersMap.containsKey(4L));
         assertEquals(120, meta.getTotalSize());
         assertEquals(120, meta.getRemainingSize());
     }
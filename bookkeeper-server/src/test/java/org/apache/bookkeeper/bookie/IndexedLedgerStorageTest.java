@@ -0,0 +1,393 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import static org.apache.bookkeeper.util.BookKeeperConstants.CURRENT_DIR;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.meta.ActiveLedgerManager;
+import org.apache.bookkeeper.meta.LedgerManagerFactory;
+import org.apache.bookkeeper.proto.BookieProtocol;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.util.IOUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the indexed ledger storage and the conversion of ledger index files.
+ */
+public class IndexedLedgerStorageTest {
+
+    static final byte[] MASTER_KEY = "master".getBytes();
+
+    File journalDir;
+    File ledgerDir;
+    ServerConfiguration conf;
+    Bookie bookie;
+
+    @Before
+    public void setUp() throws Exception {
+        journalDir = IOUtils.createTempDir("indexedstorage", "journal");
+        ledgerDir = IOUtils.createTempDir("indexedstorage", "ledger");
+        new File(ledgerDir, CURRENT_DIR).mkdir();
+        conf = new ServerConfiguration();
+        conf.setZkServers(null);
+        conf.setJournalDirName(journalDir.getPath());
+        conf.setLedgerDirNames(new String[] { ledgerDir.getPath() });
+        conf.setIndexedLedgerStorageEnabled(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != bookie) {
+            bookie.ledgerStorage.shutdown();
+        }
+        FileUtils.deleteDirectory(journalDir);
+        FileUtils.deleteDirectory(ledgerDir);
+    }
+
+    private void restartBookie() throws Exception {
+        if (null != bookie) {
+            bookie.ledgerStorage.shutdown();
+        }
+        bookie = new Bookie(conf);
+        bookie.initialize();
+    }
+
+    private static ByteBuffer entry(long ledgerId, long entryId, long lac) {
+        ByteBuffer bb = ByteBuffer.allocate(8 + 8 + 8 + 16);
+        bb.putLong(ledgerId);
+        bb.putLong(entryId);
+        bb.putLong(lac);
+        bb.putLong(ledgerId * 31);
+        bb.putLong(entryId * 17);
+        bb.flip();
+        return bb;
+    }
+
+    private void addEntries(LedgerStorage storage, long ledgerId, int numEntries) throws Exception {
+        storage.setMasterKey(ledgerId, MASTER_KEY);
+        for (long entryId = 0; entryId < numEntries; entryId++) {
+            storage.addEntry(entry(ledgerId, entryId, entryId - 1));
+        }
+    }
+
+    private void assertEntries(LedgerStorage storage, long ledgerId, int numEntries) throws Exception {
+        assertTrue(storage.ledgerExists(ledgerId));
+        assertArrayEquals(MASTER_KEY, storage.readMasterKey(ledgerId));
+        for (long entryId = 0; entryId < numEntries; entryId++) {
+            assertEquals(entry(ledgerId, entryId, entryId - 1), storage.getEntry(ledgerId, entryId));
+        }
+        assertEquals(entry(ledgerId, numEntries - 1, numEntries - 2),
+                storage.getEntry(ledgerId, BookieProtocol.LAST_ADD_CONFIRMED));
+    }
+
+    @Test(timeout = 60000)
+    public void testAddReadAcrossRestarts() throws Exception {
+        restartBookie();
+        LedgerStorage storage = bookie.ledgerStorage;
+        assertTrue(storage instanceof IndexedLedgerStorage);
+        for (long ledgerId = 1; ledgerId <= 10; ledgerId++) {
+            addEntries(storage, ledgerId, 50);
+        }
+        assertTrue(storage.setFenced(3));
+        assertFalse(storage.setFenced(3));
+        assertEquals(48L, storage.getLastAddConfirmed(5));
+        storage.flush();
+        for (long ledgerId = 1; ledgerId <= 10; ledgerId++) {
+            assertEntries(storage, ledgerId, 50);
+        }
+        assertFalse(storage.ledgerExists(11));
+        try {
+            storage.getEntry(11, 0);
+            fail("Should fail reading an unknown ledger");
+        } catch (Bookie.NoLedgerException nle) {
+            // expected
+        }
+
+        restartBookie();
+        storage = bookie.ledgerStorage;
+        for (long ledgerId = 1; ledgerId <= 10; ledgerId++) {
+            assertEntries(storage, ledgerId, 50);
+        }
+        assertTrue(storage.isFenced(3));
+        assertFalse(storage.isFenced(4));
+        assertEquals(48L, storage.getLastAddConfirmed(5));
+
+        // a single index, no file per ledger
+        File currentDir = new File(ledgerDir, CURRENT_DIR);
+        assertTrue(new File(currentDir, IndexedLedgerCache.INDEX_DIR).isDirectory());
+        Collection<File> indexFiles = FileUtils.listFiles(currentDir, new String[] { "idx" }, true);
+        assertTrue("Unexpected index files " + indexFiles, indexFiles.isEmpty());
+    }
+
+    @Test(timeout = 60000)
+    public void testDeleteLedger() throws Exception {
+        restartBookie();
+        LedgerStorage storage = bookie.ledgerStorage;
+        addEntries(storage, 1, 10);
+        addEntries(storage, 2, 10);
+        storage.flush();
+
+        LedgerCache ledgerCache = ((InterleavedLedgerStorage) storage).ledgerCache;
+        ledgerCache.deleteLedger(1);
+        assertFalse(storage.ledgerExists(1));
+        try {
+            storage.getEntry(1, 0);
+            fail("Should fail reading a deleted ledger");
+        } catch (Bookie.NoLedgerException nle) {
+            // expected
+        }
+        try {
+            ledgerCache.putEntryOffset(1, 10, 1234L);
+            fail("Should fail adding entries to a deleted ledger");
+        } catch (Bookie.NoLedgerException nle) {
+            // expected
+        }
+        assertEntries(storage, 2, 10);
+    }
+
+    @Test(timeout = 60000)
+    public void testConvertIndexFiles() throws Exception {
+        conf.setIndexedLedgerStorageEnabled(false);
+        restartBookie();
+        LedgerStorage storage = bookie.ledgerStorage;
+        LedgerCache ledgerCache = ((InterleavedLedgerStorage) storage).ledgerCache;
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            addEntries(storage, ledgerId, 20);
+        }
+        storage.setFenced(2);
+        storage.flush();
+        Map<String, Long> offsets = new HashMap<String, Long>();
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            for (long entryId = 0; entryId < 20; entryId++) {
+                offsets.put(ledgerId + ":" + entryId, ledgerCache.getEntryOffset(ledgerId, entryId));
+            }
+        }
+        storage.shutdown();
+        bookie = null;
+
+        conf.setIndexedLedgerStorageEnabled(true);
+        FileSystemUpgrade.convertToIndexedLedgerStorage(conf);
+
+        LedgerManagerFactory ledgerManagerFactory = LedgerManagerFactory.newLedgerManagerFactory(conf, null);
+        ActiveLedgerManager activeLedgerManager = ledgerManagerFactory.newActiveLedgerManager();
+        IndexedLedgerCache indexedCache = new IndexedLedgerCache(conf, activeLedgerManager,
+                new LedgerDirsManager(conf, conf.getLedgerDirs()), NullStatsLogger.INSTANCE);
+        try {
+            for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+                assertTrue(activeLedgerManager.containsActiveLedger(ledgerId));
+                assertArrayEquals(MASTER_KEY, indexedCache.readMasterKey(ledgerId));
+                assertEquals(2 == ledgerId, indexedCache.isFenced(ledgerId));
+                assertEquals(19L, indexedCache.getLastEntry(ledgerId));
+                for (long entryId = 0; entryId < 20; entryId++) {
+                    assertEquals(offsets.get(ledgerId + ":" + entryId).longValue(),
+                            indexedCache.getEntryOffset(ledgerId, entryId));
+                }
+            }
+        } finally {
+            indexedCache.close();
+            activeLedgerManager.close();
+            ledgerManagerFactory.uninitialize();
+        }
+
+        restartBookie();
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            assertEntries(bookie.ledgerStorage, ledgerId, 20);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testConvertLocations() throws Exception {
+        conf.setIndexedLedgerStorageEnabled(false);
+        restartBookie();
+        LedgerStorage storage = bookie.ledgerStorage;
+        LedgerCache ledgerCache = ((InterleavedLedgerStorage) storage).ledgerCache;
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            addEntries(storage, ledgerId, 20);
+        }
+        storage.flush();
+        Map<String, Long> offsets = new HashMap<String, Long>();
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            for (long entryId = 0; entryId < 20; entryId++) {
+                offsets.put(ledgerId + ":" + entryId, ledgerCache.getEntryOffset(ledgerId, entryId));
+            }
+        }
+        storage.shutdown();
+        bookie = null;
+
+        // index files in the old format are refused
+        conf.setEntryLocationFormatVersion(2);
+        restartBookie();
+        try {
+            bookie.ledgerStorage.getEntry(1, 0);
+            fail("Should fail reading index files of another entry location format");
+        } catch (IOException ioe) {
+            // expected
+        }
+        bookie.ledgerStorage.shutdown();
+        bookie = null;
+
+        FileSystemUpgrade.convertLocations(conf);
+        // converting again is a no-op
+        FileSystemUpgrade.convertLocations(conf);
+
+        restartBookie();
+        ledgerCache = ((InterleavedLedgerStorage) bookie.ledgerStorage).ledgerCache;
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            assertEntries(bookie.ledgerStorage, ledgerId, 20);
+            for (long entryId = 0; entryId < 20; entryId++) {
+                long oldLocation = offsets.get(ledgerId + ":" + entryId);
+                long location = ledgerCache.getEntryOffset(ledgerId, entryId);
+                assertEquals(oldLocation >>> 32, location >>> 40);
+                assertEquals(oldLocation & 0xffffffffL, location & ((1L << 40) - 1));
+            }
+        }
+        // entries added after the conversion use the new format
+        addEntries(bookie.ledgerStorage, 6, 20);
+        assertEntries(bookie.ledgerStorage, 6, 20);
+    }
+
+    @Test(timeout = 60000)
+    public void testReadLocationsOfPreviousFormat() throws Exception {
+        restartBookie();
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            addEntries(bookie.ledgerStorage, ledgerId, 20);
+        }
+        bookie.ledgerStorage.flush();
+
+        // locations of the indexed ledger storage are converted when read
+        conf.setEntryLocationFormatVersion(2);
+        restartBookie();
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            assertEntries(bookie.ledgerStorage, ledgerId, 20);
+        }
+        addEntries(bookie.ledgerStorage, 6, 20);
+        bookie.ledgerStorage.flush();
+        restartBookie();
+        for (long ledgerId = 1; ledgerId <= 6; ledgerId++) {
+            assertEntries(bookie.ledgerStorage, ledgerId, 20);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testReadCache() throws Exception {
+        conf.setReadCacheSize(64 * 1024);
+        conf.setReadCacheSegmentSize(16 * 1024);
+        restartBookie();
+        IndexedLedgerStorage storage = (IndexedLedgerStorage) bookie.ledgerStorage;
+        assertNotNull(storage.readCache);
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            addEntries(storage, ledgerId, 20);
+        }
+        // entries are cached when flushed from the mem-table
+        assertEquals(0L, storage.readCache.count());
+        storage.flush();
+        assertEquals(100L, storage.readCache.count());
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            assertEntries(storage, ledgerId, 20);
+        }
+
+        // and when read from the entry logs after a restart
+        restartBookie();
+        storage = (IndexedLedgerStorage) bookie.ledgerStorage;
+        assertEquals(0L, storage.readCache.count());
+        assertEntries(storage, 1, 20);
+        assertEquals(20L, storage.readCache.count());
+        assertEntries(storage, 1, 20);
+        assertEquals(20L, storage.readCache.count());
+
+        // the cached entries of a deleted ledger are not served
+        storage.ledgerCache.deleteLedger(1);
+        try {
+            storage.getEntry(1, 0);
+            fail("Should fail reading a deleted ledger");
+        } catch (Bookie.NoLedgerException nle) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testReadAhead() throws Exception {
+        conf.setIndexedLedgerStorageEnabled(false);
+        conf.setReadCacheSize(64 * 1024);
+        conf.setReadCacheSegmentSize(16 * 1024);
+        conf.setReadAheadEntries(10);
+        restartBookie();
+        LedgerStorage storage = bookie.ledgerStorage;
+        storage.setMasterKey(1, MASTER_KEY);
+        storage.setMasterKey(2, MASTER_KEY);
+        // entries of both ledgers are interleaved in the entry log
+        for (long entryId = 0; entryId < 50; entryId++) {
+            storage.addEntry(entry(1, entryId, entryId - 1));
+            storage.addEntry(entry(2, entryId, entryId - 1));
+        }
+        storage.flush();
+
+        restartBookie();
+        InterleavedLedgerStorage interleavedStorage = (InterleavedLedgerStorage) bookie.ledgerStorage;
+        assertNotNull(interleavedStorage.readAhead);
+        // random reads don't read ahead
+        assertEquals(entry(1, 5, 4), interleavedStorage.getEntry(1, 5));
+        assertEquals(entry(1, 3, 2), interleavedStorage.getEntry(1, 3));
+        assertEquals(2L, interleavedStorage.readCache.count());
+        // the second read of a scan reads the next entries ahead
+        assertEquals(entry(1, 10, 9), interleavedStorage.getEntry(1, 10));
+        assertEquals(entry(1, 11, 10), interleavedStorage.getEntry(1, 11));
+        assertEquals(14L, interleavedStorage.readCache.count());
+        for (long entryId = 12; entryId < 50; entryId++) {
+            assertEquals(entry(1, entryId, entryId - 1), interleavedStorage.getEntry(1, entryId));
+        }
+        // the read ahead stops at the end of the ledger
+        assertEquals(42L, interleavedStorage.readCache.count());
+        assertEquals(entry(1, 49, 48), interleavedStorage.getEntry(1, BookieProtocol.LAST_ADD_CONFIRMED));
+        assertEntries(interleavedStorage, 2, 50);
+    }
+
+    @Test(timeout = 60000)
+    public void testReadLacOfEmptyLedgerWithReadAhead() throws Exception {
+        conf.setReadCacheSize(64 * 1024);
+        conf.setReadCacheSegmentSize(16 * 1024);
+        conf.setReadAheadEntries(10);
+        restartBookie();
+        IndexedLedgerStorage storage = (IndexedLedgerStorage) bookie.ledgerStorage;
+        assertNotNull(storage.readAhead);
+        storage.setMasterKey(1, MASTER_KEY);
+        try {
+            storage.getEntry(1, BookieProtocol.LAST_ADD_CONFIRMED);
+            fail("Should fail reading the last entry of an empty ledger");
+        } catch (Bookie.NoEntryException nee) {
+            // expected
+        }
+        addEntries(storage, 1, 5);
+        storage.flush();
+        assertEntries(storage, 1, 5);
+    }
+}
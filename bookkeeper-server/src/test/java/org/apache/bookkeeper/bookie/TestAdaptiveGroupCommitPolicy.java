@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestAdaptiveGroupCommitPolicy {
+
+    static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    static final long US = TimeUnit.MICROSECONDS.toNanos(1);
+
+    long now = 0L;
+
+    private void feed(AdaptiveGroupCommitPolicy policy, long forceWriteNanos,
+                      long interArrivalNanos, int entrySize, int numSamples) {
+        for (int i = 0; i < numSamples; i++) {
+            policy.recordForceWrite(forceWriteNanos);
+            policy.recordArrival(now, entrySize);
+            now += interArrivalNanos;
+        }
+        policy.update();
+    }
+
+    @Test(timeout = 60000)
+    public void testNoWaitBeforeMeasurements() {
+        AdaptiveGroupCommitPolicy policy = new AdaptiveGroupCommitPolicy(10 * MS, 200 * MS, 0, 512 * 1024);
+        policy.update();
+        assertEquals(0L, policy.getGroupWaitNanos());
+        assertEquals(1L, policy.getBufferedEntriesThreshold());
+        assertEquals(0L, policy.getArrivalRate());
+    }
+
+    @Test(timeout = 60000)
+    public void testWaitWithinTargetLatency() {
+        AdaptiveGroupCommitPolicy policy = new AdaptiveGroupCommitPolicy(10 * MS, 200 * MS, 0, 512 * 1024);
+        feed(policy, 2 * MS, 100 * US, 1024, 1000);
+
+        // the wait leaves room for the force write
+        long estimatedForceWrite = policy.getEstimatedForceWriteNanos();
+        assertTrue("Force write estimate should cover the samples : " + estimatedForceWrite,
+                estimatedForceWrite >= 2 * MS && estimatedForceWrite < 3 * MS);
+        assertEquals(10 * MS - estimatedForceWrite, policy.getGroupWaitNanos());
+        // group the entries expected to arrive during the wait
+        assertEquals(policy.getGroupWaitNanos() / (100 * US), policy.getBufferedEntriesThreshold());
+        assertEquals(policy.getBufferedEntriesThreshold() * (4 + 1024), policy.getBufferedWritesThreshold());
+        assertEquals(10000L, policy.getArrivalRate());
+    }
+
+    @Test(timeout = 60000)
+    public void testNoWaitWhenNothingToGroup() {
+        // entries arrive slower than the wait budget
+        AdaptiveGroupCommitPolicy policy = new AdaptiveGroupCommitPolicy(10 * MS, 200 * MS, 0, 512 * 1024);
+        feed(policy, 2 * MS, 50 * MS, 1024, 100);
+        assertEquals(0L, policy.getGroupWaitNanos());
+        assertEquals(1L, policy.getBufferedEntriesThreshold());
+
+        // force writes are slower than the target
+        policy = new AdaptiveGroupCommitPolicy(10 * MS, 200 * MS, 0, 512 * 1024);
+        feed(policy, 20 * MS, 10 * US, 1024, 100);
+        assertEquals(0L, policy.getGroupWaitNanos());
+    }
+
+    @Test(timeout = 60000)
+    public void testDecisionsBoundedByConfiguration() {
+        AdaptiveGroupCommitPolicy policy = new AdaptiveGroupCommitPolicy(10 * MS, 1 * MS, 10, 4096);
+        feed(policy, 100 * US, 10 * US, 1024, 1000);
+        assertEquals(1 * MS, policy.getGroupWaitNanos());
+        assertEquals(10L, policy.getBufferedEntriesThreshold());
+        assertEquals(4096L, policy.getBufferedWritesThreshold());
+    }
+
+    @Test(timeout = 60000)
+    public void testAdaptsToSlowerForceWrites() {
+        AdaptiveGroupCommitPolicy policy = new AdaptiveGroupCommitPolicy(10 * MS, 200 * MS, 0, 512 * 1024);
+        feed(policy, 1 * MS, 100 * US, 1024, 1000);
+        long fastWait = policy.getGroupWaitNanos();
+        feed(policy, 6 * MS, 100 * US, 1024, 1000);
+        long slowWait = policy.getGroupWaitNanos();
+        assertTrue("Wait should shrink when force writes get slower : " + fastWait + " vs " + slowWait,
+                slowWait < fastWait);
+        assertTrue(slowWait > 0);
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.apache.bookkeeper.util.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestEntryLogMappedReader {
+
+    File file;
+    FileChannel fc;
+
+    @Before
+    public void setUp() throws Exception {
+        file = IOUtils.createTempFileAndDeleteOnExit("mappedreader", ".log");
+        fc = new RandomAccessFile(file, "rw").getChannel();
+        // entries of 96 bytes, prefixed by their size, starting at offset 0
+        for (int i = 0; i < 10; i++) {
+            ByteBuffer bb = ByteBuffer.allocate(4 + 96);
+            bb.putInt(96);
+            while (bb.hasRemaining()) {
+                bb.put((byte) i);
+            }
+            bb.flip();
+            fc.write(bb);
+        }
+        fc.force(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        fc.close();
+        file.delete();
+    }
+
+    private static void assertEntry(int i, ByteBuffer entry) {
+        assertNotNull(entry);
+        assertEquals(96, entry.remaining());
+        while (entry.hasRemaining()) {
+            assertEquals((byte) i, entry.get());
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testReadAndEvictRegions() throws Exception {
+        EntryLogMappedReader reader = new EntryLogMappedReader(200, 400, NullStatsLogger.INSTANCE);
+        // two entries per region
+        assertEntry(0, reader.readEntry(1L, fc, 4));
+        assertEntry(1, reader.readEntry(1L, fc, 104));
+        assertEquals(1, reader.getNumRegions());
+        assertEquals(200L, reader.getMappedBytes());
+        assertEntry(2, reader.readEntry(1L, fc, 204));
+        assertEquals(2, reader.getNumRegions());
+        // the least recently used region is dropped beyond the cache size
+        assertEntry(0, reader.readEntry(1L, fc, 4));
+        assertEntry(4, reader.readEntry(1L, fc, 404));
+        assertEquals(2, reader.getNumRegions());
+        assertEquals(400L, reader.getMappedBytes());
+        // the oldest region is dropped again
+        assertEntry(9, reader.readEntry(1L, fc, 904));
+        assertEquals(400L, reader.getMappedBytes());
+
+        reader.removeEntryLog(2L);
+        assertEquals(2, reader.getNumRegions());
+        reader.removeEntryLog(1L);
+        assertEquals(0, reader.getNumRegions());
+        assertEquals(0L, reader.getMappedBytes());
+    }
+
+    @Test(timeout = 60000)
+    public void testEntriesSpanningRegions() throws Exception {
+        EntryLogMappedReader reader = new EntryLogMappedReader(150, 1024, NullStatsLogger.INSTANCE);
+        assertEntry(0, reader.readEntry(1L, fc, 4));
+        // the entry starts in the first region and ends in the second one
+        assertNull(reader.readEntry(1L, fc, 104));
+        // the size of the entry is split between two regions
+        EntryLogMappedReader reader2 = new EntryLogMappedReader(102, 1024, NullStatsLogger.INSTANCE);
+        assertNull(reader2.readEntry(1L, fc, 104));
+    }
+
+    @Test(timeout = 60000)
+    public void testRegionsOfClosedChannelsAreNotCached() throws Exception {
+        EntryLogMappedReader reader = new EntryLogMappedReader(200, 1024, NullStatsLogger.INSTANCE);
+        FileChannel otherFc = new RandomAccessFile(file, "r").getChannel();
+        otherFc.close();
+        try {
+            reader.readEntry(1L, otherFc, 4);
+            fail("Should fail mapping a closed channel");
+        } catch (IOException ioe) {
+            // expected
+        }
+        assertEquals(0, reader.getNumRegions());
+    }
+
+    @Test(timeout = 60000)
+    public void testEntriesBeyondMappedEnd() throws Exception {
+        EntryLogMappedReader reader = new EntryLogMappedReader(2000, 4096, NullStatsLogger.INSTANCE);
+        assertEntry(9, reader.readEntry(1L, fc, 904));
+        // past the end of the region, as mapped
+        assertNull(reader.readEntry(1L, fc, 1004));
+        // past the end of the entry log
+        assertNull(reader.readEntry(1L, fc, 2004));
+        assertEquals(1, reader.getNumRegions());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentReadsWithEvictions() throws Exception {
+        // a single region cached, so almost every read unmaps a region
+        final EntryLogMappedReader reader = new EntryLogMappedReader(100, 100, NullStatsLogger.INSTANCE);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            final int offset = t;
+            readers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int n = 0; n < 2000; n++) {
+                            int i = (n + offset) % 10;
+                            assertEntry(i, reader.readEntry(1L, fc, i * 100 + 4));
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            readers[t].start();
+        }
+        for (Thread t : readers) {
+            t.join();
+        }
+        assertNull("Concurrent reads failed : " + failure.get(), failure.get());
+        assertTrue(reader.getNumRegions() <= readers.length);
+
+        reader.close();
+        assertEquals(0, reader.getNumRegions());
+        assertEquals(0L, reader.getMappedBytes());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.bookkeeper.bookie.EntryLogMetadataManager.EntryLogMetadata;
+import org.apache.bookkeeper.util.IOUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Case for {@link org.apache.bookkeeper.bookie.EntryLogMetadataIndex}
+ */
+public class TestEntryLogMetadataIndex {
+
+    final List<File> tempDirs = new ArrayList<File>();
+
+    File createTempDir(String prefix, String suffix) throws Exception {
+        File dir = IOUtils.createTempDir(prefix, suffix);
+        tempDirs.add(dir);
+        return dir;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (File dir : tempDirs) {
+            FileUtils.deleteDirectory(dir);
+        }
+        tempDirs.clear();
+    }
+
+    private static EntryLogMetadata newMetadata(long entryLogId, int numLedgers) {
+        EntryLogMetadata metadata = new EntryLogMetadata(entryLogId);
+        for (long ledgerId = 0; ledgerId < numLedgers; ledgerId++) {
+            metadata.addLedgerSize(ledgerId, 100 * (ledgerId + 1));
+        }
+        return metadata;
+    }
+
+    @Test(timeout = 60000)
+    public void testAddRemoveReload() throws Exception {
+        File file = new File(createTempDir("bkTest", ".dir"), EntryLogMetadataIndex.INDEX_FILE);
+        EntryLogMetadataIndex index = new EntryLogMetadataIndex(file);
+        assertTrue(index.load().isEmpty());
+        index.addEntryLogMetadata(newMetadata(1L, 3));
+        index.addEntryLogMetadata(newMetadata(2L, 2));
+        index.addEntryLogMetadata(newMetadata(3L, 1));
+        index.removeEntryLogMetadata(2L);
+        // removing an unknown entry log doesn't append anything
+        long fileSize = index.getFileSize();
+        index.removeEntryLogMetadata(5L);
+        assertEquals(fileSize, index.getFileSize());
+
+        // deleted ledgers aren't kept, but the total size is
+        EntryLogMetadata metadata = newMetadata(3L, 2);
+        metadata.removeLedger(0L);
+        index.addEntryLogMetadata(metadata);
+        index.close();
+
+        index = new EntryLogMetadataIndex(file);
+        Map<Long, EntryLogMetadata> metadatas = index.load();
+        index.close();
+        assertEquals(2, metadatas.size());
+        EntryLogMetadata meta1 = metadatas.get(1L);
+        assertEquals(3, meta1.getTotalLedgers());
+        assertEquals(600L, meta1.getTotalSize());
+        assertEquals(600L, meta1.getRemainingSize());
+        assertEquals(300L, meta1.ledgersMap.get(2L));
+        assertNull(metadatas.get(2L));
+        EntryLogMetadata meta3 = metadatas.get(3L);
+        assertEquals(1, meta3.getTotalLedgers());
+        assertEquals(300L, meta3.getTotalSize());
+        assertEquals(200L, meta3.getRemainingSize());
+        assertFalse(meta3.containsLedger(0L));
+    }
+
+    @Test(timeout = 60000)
+    public void testTornRecord() throws Exception {
+        File file = new File(createTempDir("bkTest", ".dir"), EntryLogMetadataIndex.INDEX_FILE);
+        EntryLogMetadataIndex index = new EntryLogMetadataIndex(file);
+        index.load();
+        index.addEntryLogMetadata(newMetadata(1L, 3));
+        long validSize = index.getFileSize();
+        index.addEntryLogMetadata(newMetadata(2L, 3));
+        index.close();
+
+        // cut the last record in the middle
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() - 10);
+        } finally {
+            raf.close();
+        }
+
+        index = new EntryLogMetadataIndex(file);
+        Map<Long, EntryLogMetadata> metadatas = index.load();
+        assertEquals(1, metadatas.size());
+        assertTrue(metadatas.containsKey(1L));
+        assertEquals(validSize, index.getFileSize());
+        assertEquals(validSize, file.length());
+        // appending after the truncation works
+        index.addEntryLogMetadata(newMetadata(4L, 1));
+        index.close();
+
+        index = new EntryLogMetadataIndex(file);
+        metadatas = index.load();
+        index.close();
+        assertEquals(2, metadatas.size());
+        assertTrue(metadatas.containsKey(4L));
+    }
+
+    @Test(timeout = 60000)
+    public void testUnknownHeader() throws Exception {
+        File file = new File(createTempDir("bkTest", ".dir"), EntryLogMetadataIndex.INDEX_FILE);
+        FileUtils.writeByteArrayToFile(file, new byte[64]);
+        EntryLogMetadataIndex index = new EntryLogMetadataIndex(file);
+        assertTrue(index.load().isEmpty());
+        assertEquals(EntryLogMetadataIndex.HEADER_LENGTH, index.getFileSize());
+        index.addEntryLogMetadata(newMetadata(1L, 1));
+        index.close();
+
+        index = new EntryLogMetadataIndex(file);
+        assertTrue(index.load().containsKey(1L));
+        index.close();
+    }
+
+    @Test(timeout = 60000)
+    public void testRewrite() throws Exception {
+        File file = new File(createTempDir("bkTest", ".dir"), EntryLogMetadataIndex.INDEX_FILE);
+        EntryLogMetadataIndex index = new EntryLogMetadataIndex(file, 1024);
+        index.load();
+        List<EntryLogMetadata> live = new ArrayList<EntryLogMetadata>();
+        for (long logId = 0; logId < 100; logId++) {
+            EntryLogMetadata metadata = newMetadata(logId, 10);
+            index.addEntryLogMetadata(metadata);
+            if (logId % 10 == 0) {
+                live.add(metadata);
+            } else {
+                index.removeEntryLogMetadata(logId);
+            }
+        }
+        assertTrue(index.needsRewrite());
+        long sizeBeforeRewrite = index.getFileSize();
+        index.rewrite(live);
+        assertFalse(index.needsRewrite());
+        assertTrue(index.getFileSize() < sizeBeforeRewrite / 5);
+        index.addEntryLogMetadata(newMetadata(200L, 1));
+        index.close();
+
+        index = new EntryLogMetadataIndex(file);
+        Map<Long, EntryLogMetadata> metadatas = index.load();
+        index.close();
+        assertEquals(live.size() + 1, metadatas.size());
+        for (EntryLogMetadata metadata : live) {
+            assertEquals(metadata.getTotalSize(), metadatas.get(metadata.entryLogId).getTotalSize());
+        }
+        assertTrue(metadatas.containsKey(200L));
+    }
+}
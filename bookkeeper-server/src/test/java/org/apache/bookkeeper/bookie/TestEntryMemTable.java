@@ -26,17 +26,20 @@ import java.util.List;
 import java.util.HashSet;
 
 import org.apache.bookkeeper.bookie.Bookie.NoLedgerException;
+import org.apache.bookkeeper.conf.ServerConfiguration;
 import org.apache.bookkeeper.conf.TestBKConfiguration;
 import org.apache.bookkeeper.stats.NullStatsLogger;
 import org.junit.Test;
 import org.junit.Before;
 import java.nio.ByteBuffer;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TestEntryMemTable implements CacheCallback, SkipListFlusher, CheckpointSource {
 
-    private EntryMemTable memTable;
-    private final Random random = new Random();
+    EntryMemTable memTable;
+    final Random random = new Random();
     private TestCheckPoint curCheckpoint = new TestCheckPoint(0, 0);
 
     @Override
@@ -49,10 +52,13 @@ public class TestEntryMemTable implements CacheCallback, SkipListFlusher, Checkp
             throws IOException {
     }
 
+    EntryMemTable newMemTable(ServerConfiguration conf) {
+        return new EntryMemTable(conf, this, NullStatsLogger.INSTANCE);
+    }
+
     @Before
     public void setUp() throws Exception {
-        this.memTable = new EntryMemTable(TestBKConfiguration.newServerConfiguration(),
-                this, NullStatsLogger.INSTANCE);
+        this.memTable = newMemTable(TestBKConfiguration.newServerConfiguration());
     }
 
     @Test
@@ -129,7 +135,7 @@ public class TestEntryMemTable implements CacheCallback, SkipListFlusher, Checkp
         memTable.flush(this, Checkpoint.MAX);
     }
 
-    private class KVFLusher implements SkipListFlusher {
+    class KVFLusher implements SkipListFlusher {
         final HashSet<EntryKeyValue> keyValues;
 
         KVFLusher(final HashSet<EntryKeyValue> keyValues) {
@@ -138,8 +144,10 @@ public class TestEntryMemTable implements CacheCallback, SkipListFlusher, Checkp
 
         @Override
         public void process(long ledgerId, long entryId, ByteBuffer entry) throws IOException {
+            byte[] data = new byte[entry.remaining()];
+            entry.get(data);
             assertTrue(ledgerId + ":" + entryId + " is duplicate in store!",
-                    keyValues.add(new EntryKeyValue(ledgerId, entryId, entry.array())));
+                    keyValues.add(new EntryKeyValue(ledgerId, entryId, data)));
         }
     }
 
@@ -241,6 +249,127 @@ public class TestEntryMemTable implements CacheCallback, SkipListFlusher, Checkp
         memTable.flush(flusher, Checkpoint.MAX);
     }
 
+    /**
+     * Test that several snapshots wait for flush, are read and flushed oldest first.
+     * @throws IOException
+     */
+    @Test
+    public void testMultiplePendingSnapshots() throws IOException {
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration();
+        conf.setSkipListMaxPendingSnapshots(3);
+        memTable = newMemTable(conf);
+
+        byte[] data = new byte[10];
+        long ledgerId = 1;
+        for (long entryId = 1; entryId <= 4; entryId++) {
+            random.nextBytes(data);
+            memTable.addEntry(ledgerId, entryId, ByteBuffer.wrap(data), this);
+            if (entryId <= 3) {
+                assertNotNull(memTable.snapshot());
+            }
+        }
+        // too many pending snapshots
+        assertNull(memTable.snapshot());
+        assertEquals(3, memTable.snapshots.size());
+        for (long entryId = 1; entryId <= 4; entryId++) {
+            assertEquals(entryId, memTable.getEntry(ledgerId, entryId).getEntryId());
+        }
+        assertEquals(4L, memTable.getLastEntry(ledgerId).getEntryId());
+
+        HashSet<EntryKeyValue> flushedKVs = new HashSet<EntryKeyValue>();
+        KVFLusher flusher = new KVFLusher(flushedKVs);
+        assertTrue(0 < memTable.flushNextSnapshot(flusher));
+        assertEquals(1, flushedKVs.size());
+        assertTrue(flushedKVs.contains(new EntryKey(ledgerId, 1)));
+        assertEquals(2, memTable.snapshots.size());
+        assertNotNull(memTable.snapshot());
+
+        memTable.flush(flusher, Checkpoint.MAX);
+        assertEquals(4, flushedKVs.size());
+        assertTrue(memTable.isEmpty());
+        assertEquals(0, memTable.flushNextSnapshot(flusher));
+    }
+
+    /**
+     * Test that concurrent flushers flush each snapshot once.
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentSnapshotFlushes() throws Exception {
+        final int numSnapshots = 8;
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration();
+        conf.setSkipListMaxPendingSnapshots(numSnapshots);
+        memTable = newMemTable(conf);
+
+        byte[] data = new byte[10];
+        for (long ledgerId = 1; ledgerId <= numSnapshots; ledgerId++) {
+            for (long entryId = 1; entryId < 100; entryId++) {
+                random.nextBytes(data);
+                memTable.addEntry(ledgerId, entryId, ByteBuffer.wrap(data), this);
+            }
+            assertNotNull(memTable.snapshot());
+        }
+
+        final AtomicInteger numFlushed = new AtomicInteger(0);
+        final SkipListFlusher flusher = new SkipListFlusher() {
+            @Override
+            public void process(long ledgerId, long entryId, ByteBuffer entry) throws IOException {
+                numFlushed.incrementAndGet();
+            }
+        };
+        Thread[] flushers = new Thread[4];
+        for (int i = 0; i < flushers.length; i++) {
+            flushers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        while (memTable.flushNextSnapshot(flusher) > 0) {
+                            // flush next one
+                        }
+                    } catch (IOException ioe) {
+                        fail("Failed to flush : " + ioe);
+                    }
+                }
+            };
+            flushers[i].start();
+        }
+        for (Thread t : flushers) {
+            t.join();
+        }
+        memTable.flush(flusher, Checkpoint.MAX);
+        assertEquals(numSnapshots * 99, numFlushed.get());
+        assertTrue(memTable.isEmpty());
+    }
+
+    /**
+     * Test that writers are slowed down rather than blocked when the snapshots
+     * can't take more entries.
+     * @throws IOException
+     */
+    @Test
+    public void testThrottleWhenSnapshotsPending() throws IOException {
+        ServerConfiguration conf = TestBKConfiguration.newServerConfiguration();
+        conf.setSkipListSizeLimit(1024);
+        conf.setSkipListMaxPendingSnapshots(1);
+        memTable = newMemTable(conf);
+
+        byte[] data = new byte[512];
+        for (long entryId = 0; entryId < 4; entryId++) {
+            memTable.addEntry(1, entryId, ByteBuffer.wrap(data), this);
+        }
+        assertEquals(1, memTable.snapshots.size());
+        assertTrue(memTable.isSizeLimitReached());
+
+        // nothing flushes the pending snapshot
+        long startNanos = System.nanoTime();
+        memTable.addEntry(1, 4, ByteBuffer.wrap(data), this);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        assertTrue("Writer should not wait longer than the max throttle wait : " + elapsedNanos,
+                elapsedNanos < TimeUnit.SECONDS.toNanos(5));
+        assertNotNull(memTable.getEntry(1, 4));
+        memTable.flush(this, Checkpoint.MAX);
+    }
+
     private static class TestCheckPoint implements Checkpoint {
 
         LogMark mark;
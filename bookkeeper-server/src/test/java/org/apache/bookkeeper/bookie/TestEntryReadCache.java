@@ -0,0 +1,170 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestEntryReadCache {
+
+    private static ByteBuffer entry(long ledgerId, long entryId, int size) {
+        ByteBuffer bb = ByteBuffer.allocate(size);
+        bb.putLong(ledgerId);
+        bb.putLong(entryId);
+        while (bb.hasRemaining()) {
+            bb.put((byte) entryId);
+        }
+        bb.flip();
+        return bb;
+    }
+
+    @Test(timeout = 60000)
+    public void testPutGet() throws Exception {
+        EntryReadCache cache = new EntryReadCache(1024, 256, NullStatsLogger.INSTANCE);
+        assertNull(cache.get(1, 0));
+        ByteBuffer entry = entry(1, 0, 100);
+        assertTrue(cache.put(1, 0, entry));
+        // the buffer added is left untouched
+        assertEquals(100, entry.remaining());
+        assertFalse(cache.put(1, 0, entry));
+        assertEquals(entry(1, 0, 100), cache.get(1, 0));
+        assertNull(cache.get(1, 1));
+        assertNull(cache.get(2, 0));
+        assertEquals(1L, cache.count());
+        assertEquals(100L, cache.size());
+
+        // entries larger than a segment are not cached
+        assertFalse(cache.put(1, 1, entry(1, 1, 257)));
+        assertNull(cache.get(1, 1));
+    }
+
+    @Test(timeout = 60000)
+    public void testEvictSegments() throws Exception {
+        // 4 segments holding 2 entries each
+        EntryReadCache cache = new EntryReadCache(1024, 256, NullStatsLogger.INSTANCE);
+        for (long entryId = 0; entryId < 8; entryId++) {
+            assertTrue(cache.put(1, entryId, entry(1, entryId, 100)));
+        }
+        assertEquals(8L, cache.count());
+        for (long entryId = 0; entryId < 8; entryId++) {
+            assertEquals(entry(1, entryId, 100), cache.get(1, entryId));
+        }
+        // the oldest segment is evicted as a whole
+        assertTrue(cache.put(1, 8, entry(1, 8, 100)));
+        assertNull(cache.get(1, 0));
+        assertNull(cache.get(1, 1));
+        assertEquals(7L, cache.count());
+        for (long entryId = 2; entryId <= 8; entryId++) {
+            assertEquals(entry(1, entryId, 100), cache.get(1, entryId));
+        }
+        // evicted entries can be cached again
+        assertTrue(cache.put(1, 0, entry(1, 0, 100)));
+        assertEquals(entry(1, 0, 100), cache.get(1, 0));
+        assertEquals(8L, cache.count());
+        assertEquals(800L, cache.size());
+    }
+
+    @Test(timeout = 60000)
+    public void testMinimumSegments() throws Exception {
+        // a cache smaller than a segment still keeps two segments
+        EntryReadCache cache = new EntryReadCache(16, 256, NullStatsLogger.INSTANCE);
+        assertTrue(cache.put(1, 0, entry(1, 0, 200)));
+        assertTrue(cache.put(1, 1, entry(1, 1, 200)));
+        assertEquals(entry(1, 0, 200), cache.get(1, 0));
+        assertEquals(entry(1, 1, 200), cache.get(1, 1));
+        assertTrue(cache.put(1, 2, entry(1, 2, 200)));
+        assertNull(cache.get(1, 0));
+        assertEquals(entry(1, 1, 200), cache.get(1, 1));
+    }
+
+    @Test(timeout = 60000)
+    public void testEntriesOutliveEviction() throws Exception {
+        EntryReadCache cache = new EntryReadCache(512, 256, NullStatsLogger.INSTANCE);
+        assertTrue(cache.put(1, 0, entry(1, 0, 200)));
+        ByteBuffer cached = cache.get(1, 0);
+        // evict the segment of the entry read, and reuse it
+        for (long entryId = 1; entryId < 4; entryId++) {
+            assertTrue(cache.put(1, entryId, entry(1, entryId, 200)));
+        }
+        assertNull(cache.get(1, 0));
+        assertEquals(entry(1, 0, 200), cached);
+    }
+
+    @Test(timeout = 60000)
+    public void testInvalidateLedger() throws Exception {
+        EntryReadCache cache = new EntryReadCache(1024, 256, NullStatsLogger.INSTANCE);
+        for (long entryId = 0; entryId < 4; entryId++) {
+            assertTrue(cache.put(1, entryId, entry(1, entryId, 50)));
+            assertTrue(cache.put(2, entryId, entry(2, entryId, 50)));
+        }
+        long version = cache.getVersion();
+        cache.invalidateLedger(1);
+        for (long entryId = 0; entryId < 4; entryId++) {
+            assertNull(cache.get(1, entryId));
+            assertEquals(entry(2, entryId, 50), cache.get(2, entryId));
+        }
+        // entries read before the invalidation are not cached
+        assertFalse(cache.put(1, 4, entry(1, 4, 50), version));
+        assertFalse(cache.put(2, 4, entry(2, 4, 50), version));
+        assertTrue(cache.put(2, 4, entry(2, 4, 50), cache.getVersion()));
+        assertEquals(entry(2, 4, 50), cache.get(2, 4));
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentPutGetWithEvictions() throws Exception {
+        // small segments, evicted and reused all along
+        final EntryReadCache cache = new EntryReadCache(1024, 256, NullStatsLogger.INSTANCE);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long ledgerId = t + 1;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (long entryId = 0; entryId < 5000; entryId++) {
+                            cache.put(ledgerId, entryId, entry(ledgerId, entryId, 50));
+                            for (long e = Math.max(0, entryId - 10); e <= entryId; e++) {
+                                ByteBuffer cached = cache.get(ledgerId, e);
+                                if (null != cached) {
+                                    assertEquals(entry(ledgerId, e, 50), cached);
+                                }
+                            }
+                        }
+                    } catch (Throwable th) {
+                        failure.compareAndSet(null, th);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(cache.size() <= 1024);
+    }
+}
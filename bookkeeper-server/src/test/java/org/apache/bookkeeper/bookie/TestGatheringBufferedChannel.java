@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.bookie;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestGatheringBufferedChannel {
+
+    File file;
+    RandomAccessFile raf;
+    FileChannel fc;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("gathering", ".log");
+        file.deleteOnExit();
+        raf = new RandomAccessFile(file, "rw");
+        fc = raf.getChannel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        fc.close();
+        raf.close();
+        file.delete();
+    }
+
+    private static ByteBuffer fill(ByteBuffer buf, int start) {
+        for (int i = 0; buf.hasRemaining(); i++) {
+            buf.put((byte) (start + i));
+        }
+        buf.flip();
+        return buf;
+    }
+
+    @Test(timeout = 60000)
+    public void testGatheringWrites() throws Exception {
+        DirectBufferArena arena = new DirectBufferArena(64, 4);
+        GatheringBufferedChannel bc = new GatheringBufferedChannel(fc, 64, arena, 1024 * 1024,
+                NullStatsLogger.INSTANCE.getOpStatsLogger("write-calls"));
+
+        ByteBuffer expected = ByteBuffer.allocate(4 + 100 + 4 + 100);
+        // a heap buffer spanning several chunks is copied
+        ByteBuffer lenBuff = ByteBuffer.allocate(4);
+        lenBuff.putInt(100).flip();
+        ByteBuffer heapEntry = fill(ByteBuffer.allocate(100), 0);
+        expected.putInt(100).put(heapEntry.duplicate());
+        bc.write(lenBuff);
+        bc.writeRetained(heapEntry);
+        // a direct buffer is referenced
+        lenBuff.clear();
+        lenBuff.putInt(100).flip();
+        ByteBuffer directEntry = fill(ByteBuffer.allocateDirect(100), 100);
+        expected.putInt(100).put(directEntry.duplicate());
+        bc.write(lenBuff);
+        bc.writeRetained(directEntry);
+        expected.flip();
+
+        assertEquals(expected.remaining(), bc.position());
+        assertEquals(0L, fc.size());
+        assertEquals(4 + 100 + 4, bc.getNumCopiedBytes());
+
+        bc.flush(true);
+        assertEquals(1L, bc.getNumFlushes());
+        assertEquals(1L, bc.getNumWriteCalls());
+        assertEquals(expected.remaining(), fc.size());
+        assertEquals(fc.size(), bc.getFileChannelPosition());
+        assertEquals(2, arena.getNumPooledChunks());
+
+        ByteBuffer actual = ByteBuffer.allocate(expected.remaining());
+        fc.read(actual, 0);
+        actual.flip();
+        assertEquals(expected, actual);
+
+        // chunks are reused by the next batch
+        long allocatedChunks = arena.getNumAllocatedChunks();
+        bc.write(fill(ByteBuffer.allocate(100), 0));
+        bc.flush(false);
+        assertEquals(allocatedChunks, arena.getNumAllocatedChunks());
+        assertEquals(expected.remaining() + 100, fc.size());
+    }
+
+    @Test(timeout = 60000)
+    public void testFlushWhenPendingBytesExceeded() throws Exception {
+        DirectBufferArena arena = new DirectBufferArena(64, 4);
+        GatheringBufferedChannel bc = new GatheringBufferedChannel(fc, 64, arena, 128,
+                NullStatsLogger.INSTANCE.getOpStatsLogger("write-calls"));
+        assertEquals(0, bc.write(fill(ByteBuffer.allocate(100), 0)));
+        assertEquals(1, bc.write(fill(ByteBuffer.allocate(100), 0)));
+        assertEquals(200L, fc.size());
+        assertEquals(200L, bc.position());
+
+        // pending data is readable
+        bc.write(fill(ByteBuffer.allocate(10), 7));
+        ByteBuffer dest = ByteBuffer.allocate(10);
+        bc.read(dest, 200);
+        dest.flip();
+        assertEquals(fill(ByteBuffer.allocate(10), 7), dest);
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.bookkeeper.util.IOUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestLedgerIndex {
+
+    File dir;
+    LedgerIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = IOUtils.createTempDir("ledgerindex", "test");
+        index = newIndex(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        index.close();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private LedgerIndex newIndex(int maxRuns) throws IOException {
+        // small blocks and mem-table to exercise several blocks and runs
+        return new LedgerIndex(dir, 256, 64 * 1024, maxRuns, false);
+    }
+
+    private void reopen() throws IOException {
+        index.close();
+        index = newIndex(4);
+    }
+
+    private static byte[] value(long ledgerId, long entryId) {
+        return IndexedLedgerCache.encodeLocation(ledgerId * 1000 + entryId, EntryLocationFormat.V1);
+    }
+
+    private void assertEntries(long ledgerId, int numEntries) throws IOException {
+        for (long entryId = 0; entryId < numEntries; entryId++) {
+            assertArrayEquals(value(ledgerId, entryId), index.get(ledgerId, entryId));
+        }
+        assertNull(index.get(ledgerId, numEntries));
+        assertEquals(numEntries - 1, index.getLastEntryId(ledgerId));
+    }
+
+    @Test(timeout = 60000)
+    public void testPutGetAcrossRuns() throws Exception {
+        for (long ledgerId = 1; ledgerId <= 10; ledgerId++) {
+            for (long entryId = 0; entryId < 100; entryId++) {
+                index.put(ledgerId, entryId, value(ledgerId, entryId));
+            }
+            index.flush();
+        }
+        index.waitForMerges();
+        // merged down to the max number of runs
+        assertTrue("Too many runs : " + index.getNumRuns(), index.getNumRuns() <= 4);
+        // newer values hide older ones
+        index.put(5, 10, value(0, 0));
+        for (long ledgerId = 1; ledgerId <= 10; ledgerId++) {
+            if (5 != ledgerId) {
+                assertEntries(ledgerId, 100);
+            }
+        }
+        assertArrayEquals(value(0, 0), index.get(5, 10));
+        assertNull(index.get(11, 0));
+        assertEquals(-1L, index.getLastEntryId(11));
+
+        reopen();
+        assertArrayEquals(value(0, 0), index.get(5, 10));
+        assertEntries(10, 100);
+        assertEquals(99L, index.getLastEntryId(5));
+    }
+
+    @Test(timeout = 60000)
+    public void testMetadataScan() throws Exception {
+        for (long ledgerId = 1; ledgerId <= 5; ledgerId++) {
+            index.put(LedgerIndex.METADATA_LEDGER_ID, ledgerId, new byte[] { (byte) ledgerId });
+            index.put(ledgerId, 0, value(ledgerId, 0));
+            if (ledgerId == 3) {
+                index.flush();
+            }
+        }
+        final List<Long> ledgers = new ArrayList<Long>();
+        index.scan(LedgerIndex.METADATA_LEDGER_ID, 0L, LedgerIndex.METADATA_LEDGER_ID, Long.MAX_VALUE,
+                new LedgerIndex.Scanner() {
+                    @Override
+                    public void process(long ledgerId, long entryId, byte[] value) {
+                        assertEquals(LedgerIndex.METADATA_LEDGER_ID, ledgerId);
+                        assertEquals((byte) entryId, value[0]);
+                        ledgers.add(entryId);
+                    }
+                });
+        assertEquals(5, ledgers.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1L, (long) ledgers.get(i));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testDeleteLedger() throws Exception {
+        for (long ledgerId = 1; ledgerId <= 3; ledgerId++) {
+            index.put(LedgerIndex.METADATA_LEDGER_ID, ledgerId, new byte[1]);
+            for (long entryId = 0; entryId < 50; entryId++) {
+                index.put(ledgerId, entryId, value(ledgerId, entryId));
+            }
+            index.flush();
+        }
+        index.deleteLedger(2);
+        assertNull(index.get(2, 0));
+        assertNull(index.get(LedgerIndex.METADATA_LEDGER_ID, 2));
+        assertEquals(-1L, index.getLastEntryId(2));
+        index.flush();
+
+        // the deletion survives restarts until all the runs are merged
+        reopen();
+        assertNull(index.get(2, 0));
+        assertNull(index.get(LedgerIndex.METADATA_LEDGER_ID, 2));
+        assertEquals(1, index.getNumDeletedLedgers());
+        assertEntries(1, 50);
+        assertEntries(3, 50);
+
+        index.close();
+        index = newIndex(1);
+        index.flush();
+        index.waitForMerges();
+        assertEquals(1, index.getNumRuns());
+        assertEquals(0, index.getNumDeletedLedgers());
+        assertNull(index.get(2, 0));
+        assertEntries(1, 50);
+        assertEntries(3, 50);
+    }
+
+    @Test(timeout = 60000)
+    public void testBackgroundFlushAndMerge() throws Exception {
+        index.close();
+        index = newIndex(1);
+        // several times the mem-table size limit, flushed and merged in the background
+        for (long ledgerId = 1; ledgerId <= 20; ledgerId++) {
+            for (long entryId = 0; entryId < 200; entryId++) {
+                index.put(ledgerId, entryId, value(ledgerId, entryId));
+            }
+        }
+        for (long ledgerId = 1; ledgerId <= 20; ledgerId++) {
+            assertEntries(ledgerId, 200);
+        }
+        index.flush();
+        index.waitForMerges();
+        assertEquals(1, index.getNumRuns());
+        for (long ledgerId = 1; ledgerId <= 20; ledgerId++) {
+            assertEntries(ledgerId, 200);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testRecoverInterruptedMerge() throws Exception {
+        for (long ledgerId = 1; ledgerId <= 3; ledgerId++) {
+            for (long entryId = 0; entryId < 20; entryId++) {
+                index.put(ledgerId, entryId, value(ledgerId, entryId));
+            }
+            index.flush();
+        }
+        assertEquals(3, index.getNumRuns());
+        index.close();
+        // a merge which wrote its run, but crashed before deleting its inputs
+        File[] runs = dir.listFiles();
+        index = newIndex(1);
+        index.flush();
+        index.close();
+        for (File run : runs) {
+            FileUtils.writeByteArrayToFile(run, new byte[] { 1, 2, 3 });
+        }
+        FileUtils.writeByteArrayToFile(new File(dir, "10-10" + LedgerIndex.RUN_SUFFIX + LedgerIndex.TMP_SUFFIX),
+                new byte[] { 1 });
+
+        index = newIndex(4);
+        assertEquals(1, index.getNumRuns());
+        assertEquals(1, dir.listFiles().length);
+        for (long ledgerId = 1; ledgerId <= 3; ledgerId++) {
+            assertEntries(ledgerId, 20);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.bookkeeper.bookie;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.bookkeeper.bookie.CheckpointSource.Checkpoint;
+import org.apache.bookkeeper.conf.ServerConfiguration;
+import org.apache.bookkeeper.stats.NullStatsLogger;
+import org.junit.Test;
+
+/**
+ * Run the mem-table tests against the off heap mem-table, with slabs small
+ * enough to hold a few entries.
+ */
+public class TestOffHeapEntryMemTable extends TestEntryMemTable {
+
+    @Override
+    EntryMemTable newMemTable(ServerConfiguration conf) {
+        conf.setSkipListArenaChunkSize(1024);
+        conf.setProperty("skipListArenaMaxAllocSize", 256);
+        return new OffHeapEntryMemTable(conf, this, NullStatsLogger.INSTANCE);
+    }
+
+    /**
+     * Test that entries of any size are read back and flushed
+     * in order of ledger id and entry id.
+     */
+    @Test
+    public void testReadAndFlushOrder() throws IOException {
+        Map<String, byte[]> added = new HashMap<String, byte[]>();
+        List<Long> entryIds = new ArrayList<Long>();
+        for (long entryId = 0; entryId < 50; entryId++) {
+            entryIds.add(entryId);
+        }
+        Collections.shuffle(entryIds, random);
+        for (long entryId : entryIds) {
+            for (long ledgerId = 3; ledgerId > 0; ledgerId--) {
+                // some entries are larger than the max allocation and the slab size
+                byte[] data = new byte[random.nextInt(4) == 0 ? 2048 : random.nextInt(200) + 1];
+                random.nextBytes(data);
+                memTable.addEntry(ledgerId, entryId, ByteBuffer.wrap(data), this);
+                added.put(ledgerId + ":" + entryId, data);
+            }
+        }
+        // duplicates are ignored
+        assertEquals(0, memTable.addEntry(1, 0, ByteBuffer.wrap(new byte[10]), this));
+
+        for (long ledgerId = 1; ledgerId <= 3; ledgerId++) {
+            for (long entryId = 0; entryId < 50; entryId++) {
+                EntryKeyValue kv = memTable.getEntry(ledgerId, entryId);
+                ByteBuffer value = kv.getValueAsByteBuffer();
+                assertFalse("Entries should be copied out of the slabs", value.isDirect());
+                assertEquals(ByteBuffer.wrap(added.get(ledgerId + ":" + entryId)), value);
+                assertArrayEquals(added.get(ledgerId + ":" + entryId), kv.getBuffer());
+            }
+            assertEquals(49L, memTable.getLastEntry(ledgerId).getEntryId());
+        }
+        assertNull(memTable.getEntry(4, 0));
+        assertNull(memTable.getLastEntry(4));
+
+        final List<EntryKey> flushed = new ArrayList<EntryKey>();
+        assertNotNull(memTable.snapshot());
+        memTable.flush(new SkipListFlusher() {
+            @Override
+            public void process(long ledgerId, long entryId, ByteBuffer entry) throws IOException {
+                flushed.add(new EntryKey(ledgerId, entryId));
+            }
+        }, Checkpoint.MAX);
+        assertEquals(150, flushed.size());
+        for (int i = 1; i < flushed.size(); i++) {
+            assertTrue("Entries should be flushed in order",
+                    EntryKey.COMPARATOR.compare(flushed.get(i - 1), flushed.get(i)) < 0);
+        }
+        assertTrue(memTable.isEmpty());
+    }
+
+    /**
+     * Test that the slabs of flushed snapshots are reused by the next sets.
+     */
+    @Test
+    public void testSlabsAreReused() throws IOException {
+        DirectBufferArena slabPool = ((OffHeapEntryMemTable) memTable).getSlabPool();
+        SkipListFlusher flusher = new SkipListFlusher() {
+            @Override
+            public void process(long ledgerId, long entryId, ByteBuffer entry) throws IOException {
+            }
+        };
+        byte[] data = new byte[100];
+        for (long entryId = 0; entryId < 50; entryId++) {
+            memTable.addEntry(1, entryId, ByteBuffer.wrap(data), this);
+        }
+        // oversized entries get dedicated buffers, which aren't pooled
+        memTable.addEntry(1, 50, ByteBuffer.wrap(new byte[2048]), this);
+        assertNotNull(memTable.snapshot());
+        memTable.flush(flusher, Checkpoint.MAX);
+        long numAllocated = slabPool.getNumAllocatedChunks();
+        assertTrue(numAllocated > 1);
+        assertEquals(numAllocated, slabPool.getNumPooledChunks());
+
+        for (long entryId = 0; entryId < 50; entryId++) {
+            random.nextBytes(data);
+            memTable.addEntry(2, entryId, ByteBuffer.wrap(data), this);
+            assertArrayEquals(data, memTable.getEntry(2, entryId).getBuffer());
+        }
+        assertEquals("Slabs should be taken from the pool", numAllocated, slabPool.getNumAllocatedChunks());
+        assertNull(memTable.getEntry(1, 0));
+    }
+
+    /**
+     * Test the entry index across resizes.
+     */
+    @Test
+    public void testEntryIndex() {
+        OffHeapEntryMemTable.EntryIndex index = new OffHeapEntryMemTable.EntryIndex();
+        final int numLedgers = 100;
+        final int numEntries = 100;
+        for (long entryId = numEntries - 1; entryId >= 0; entryId--) {
+            for (long ledgerId = 0; ledgerId < numLedgers; ledgerId++) {
+                assertEquals(-1L, index.putIfAbsent(ledgerId, entryId, ledgerId * numEntries + entryId));
+            }
+        }
+        assertEquals(0L, index.putIfAbsent(0, 0, 5L));
+        index.putIfGreater(1, 0, 1L);
+        index.putIfGreater(1, 1, 5L);
+        assertEquals(numLedgers * numEntries, index.size());
+        assertEquals(0L, index.get(0, 0));
+        assertEquals(-1L, index.get(numLedgers, 0));
+        assertEquals(numEntries + 0L, index.get(1, 0));
+        assertEquals(numEntries + 1L, index.get(1, 1));
+        index.putIfGreater(1, 1, numEntries + 5L);
+        assertEquals(numEntries + 5L, index.get(1, 1));
+        index.putIfGreater(1, 1, numEntries + 1L);
+
+        long[] ledgerIds = new long[index.size()];
+        long[] entryIds = new long[index.size()];
+        long[] values = new long[index.size()];
+        assertEquals(values.length, index.sortedCopy(ledgerIds, entryIds, values));
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i == numEntries + 1 ? numEntries + 5L : (long) i, values[i]);
+            assertEquals(i / numEntries, ledgerIds[i]);
+            assertEquals(i % numEntries, entryIds[i]);
+        }
+    }
+
+    /**
+     * Test that entries added by concurrent threads are all read back while
+     * they are being added.
+     */
+    @Test(timeout = 60000)
+    public void testConcurrentAddsAndReads() throws Exception {
+        final int numThreads = 4;
+        final int numEntries = 2000;
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final long ledgerId = t + 1;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (long entryId = 0; entryId < numEntries; entryId++) {
+                            byte[] data = new byte[(int) (entryId % 300) + 8];
+                            ByteBuffer.wrap(data).putLong(ledgerId * numEntries + entryId);
+                            memTable.addEntry(ledgerId, entryId, ByteBuffer.wrap(data), TestOffHeapEntryMemTable.this);
+                            EntryKeyValue kv = memTable.getEntry(ledgerId, entryId / 2);
+                            assertEquals(ledgerId * numEntries + entryId / 2,
+                                    kv.getValueAsByteBuffer().getLong());
+                            assertTrue(memTable.getLastEntry(ledgerId).getEntryId() >= entryId);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            };
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get());
+        for (long ledgerId = 1; ledgerId <= numThreads; ledgerId++) {
+            for (long entryId = 0; entryId < numEntries; entryId++) {
+                assertEquals(ledgerId * numEntries + entryId,
+                        memTable.getEntry(ledgerId, entryId).getValueAsByteBuffer().getLong());
+            }
+            assertEquals(numEntries - 1L, memTable.getLastEntry(ledgerId).getEntryId());
+        }
+    }
+}
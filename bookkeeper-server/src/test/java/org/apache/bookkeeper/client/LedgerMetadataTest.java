@@ -0,0 +1,169 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.bookkeeper.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.meta.LedgerManager;
+import org.apache.bookkeeper.meta.ZkVersion;
+import org.apache.bookkeeper.net.BookieSocketAddress;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
+import org.apache.bookkeeper.test.BookKeeperClusterTestCase;
+import org.apache.bookkeeper.versioning.Version;
+import org.junit.Test;
+
+/**
+ * Tests the binary ledger metadata format and the ledger metadata cache.
+ */
+public class LedgerMetadataTest extends BookKeeperClusterTestCase {
+    private static final byte[] TEST_LEDGER_PASSWORD = "testpasswd".getBytes();
+
+    public LedgerMetadataTest() {
+        super(3);
+    }
+
+    private LedgerMetadata readMetadata(LedgerManager lm, long ledgerId) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger rcHolder = new AtomicInteger();
+        final AtomicReference<LedgerMetadata> metadataHolder = new AtomicReference<LedgerMetadata>();
+        lm.readLedgerMetadata(ledgerId, new GenericCallback<LedgerMetadata>() {
+            @Override
+            public void operationComplete(int rc, LedgerMetadata result) {
+                rcHolder.set(rc);
+                metadataHolder.set(result);
+                latch.countDown();
+            }
+        });
+        latch.await();
+        assertEquals(BKException.Code.OK, rcHolder.get());
+        return metadataHolder.get();
+    }
+
+    /**
+     * Tests that metadata serialized in the binary format parses back to the same
+     * metadata, and that the text formats are still read.
+     */
+    @Test(timeout = 60000)
+    public void testBinaryFormatRoundTrip() throws Exception {
+        LedgerMetadata metadata = new LedgerMetadata(3, 2, 2, BookKeeper.DigestType.CRC32, TEST_LEDGER_PASSWORD);
+        ArrayList<BookieSocketAddress> ensemble = new ArrayList<BookieSocketAddress>();
+        for (int i = 0; i < 3; i++) {
+            ensemble.add(new BookieSocketAddress("127.0.0.1", 3181 + i));
+        }
+        metadata.addEnsemble(0L, ensemble);
+        metadata.close(99L);
+
+        byte[] text = metadata.serialize();
+        metadata.setMetadataFormatVersion(LedgerMetadata.BINARY_METADATA_FORMAT_VERSION);
+        byte[] binary = metadata.serialize();
+        assertTrue("Binary metadata should be smaller than text metadata", binary.length < text.length);
+
+        LedgerMetadata fromText = LedgerMetadata.parseConfig(text, new ZkVersion(0));
+        LedgerMetadata fromBinary = LedgerMetadata.parseConfig(binary, new ZkVersion(0));
+        assertEquals(LedgerMetadata.CURRENT_METADATA_FORMAT_VERSION, fromText.getMetadataFormatVersion());
+        assertEquals(LedgerMetadata.BINARY_METADATA_FORMAT_VERSION, fromBinary.getMetadataFormatVersion());
+        for (LedgerMetadata parsed : Arrays.asList(fromText, fromBinary)) {
+            assertTrue(parsed.isClosed());
+            assertEquals(99L, parsed.getLastEntryId());
+            assertEquals(3, parsed.getEnsembleSize());
+            assertEquals(2, parsed.getWriteQuorumSize());
+            assertEquals(2, parsed.getAckQuorumSize());
+            assertEquals(BookKeeper.DigestType.CRC32, parsed.getDigestType());
+            assertTrue(Arrays.equals(TEST_LEDGER_PASSWORD, parsed.getPassword()));
+            assertEquals(metadata.getEnsembles(), parsed.getEnsembles());
+        }
+        assertTrue(Arrays.equals(binary, fromBinary.serialize()));
+    }
+
+    /**
+     * Tests that a ledger created with binary metadata is opened and read by a
+     * client using the default format.
+     */
+    @Test(timeout = 60000)
+    public void testOpenLedgerWithBinaryMetadata() throws Exception {
+        ClientConfiguration conf = new ClientConfiguration(baseClientConf);
+        conf.setLedgerMetadataFormatVersion(LedgerMetadata.BINARY_METADATA_FORMAT_VERSION);
+        BookKeeper bk = new BookKeeper(conf, zkc);
+        try {
+            LedgerHandle lh = bk.createLedger(3, 2, BookKeeper.DigestType.CRC32, TEST_LEDGER_PASSWORD);
+            for (int i = 0; i < 10; i++) {
+                lh.addEntry(("entry-" + i).getBytes());
+            }
+            lh.close();
+
+            LedgerMetadata metadata = readMetadata(bkc.getLedgerManager(), lh.getId());
+            assertEquals(LedgerMetadata.BINARY_METADATA_FORMAT_VERSION, metadata.getMetadataFormatVersion());
+
+            LedgerHandle readLh = bkc.openLedger(lh.getId(), BookKeeper.DigestType.CRC32, TEST_LEDGER_PASSWORD);
+            assertEquals(9L, readLh.getLastAddConfirmed());
+            Enumeration<LedgerEntry> entries = readLh.readEntries(0, 9);
+            int i = 0;
+            while (entries.hasMoreElements()) {
+                assertEquals("entry-" + i, new String(entries.nextElement().getEntry()));
+                ++i;
+            }
+            assertEquals(10, i);
+            readLh.close();
+        } finally {
+            bk.close();
+        }
+    }
+
+    /**
+     * Tests that the ledger manager hands out copies of the cached metadata and
+     * picks up metadata updated by another client.
+     */
+    @Test(timeout = 60000)
+    public void testMetadataCacheFollowsUpdates() throws Exception {
+        LedgerHandle lh = bkc.createLedger(3, 2, BookKeeper.DigestType.CRC32, TEST_LEDGER_PASSWORD);
+        lh.addEntry("entry".getBytes());
+
+        LedgerManager lm = bkc.getLedgerManager();
+        LedgerMetadata first = readMetadata(lm, lh.getId());
+        LedgerMetadata second = readMetadata(lm, lh.getId());
+        assertNotSame(first, second);
+        assertNotSame(first.getVersion(), second.getVersion());
+        assertEquals(Version.Occurred.CONCURRENTLY, first.getVersion().compare(second.getVersion()));
+        assertFalse(second.isClosed());
+
+        // modifying a metadata copy doesn't affect the cached metadata
+        first.close(0L);
+        assertFalse(readMetadata(lm, lh.getId()).isClosed());
+
+        // the ledger is closed through another client
+        BookKeeper bk = new BookKeeper(baseClientConf, zkc);
+        try {
+            bk.openLedger(lh.getId(), BookKeeper.DigestType.CRC32, TEST_LEDGER_PASSWORD).close();
+        } finally {
+            bk.close();
+        }
+        LedgerMetadata closed = readMetadata(lm, lh.getId());
+        assertTrue(closed.isClosed());
+        assertEquals(0L, closed.getLastEntryId());
+        assertEquals(Version.Occurred.AFTER, closed.getVersion().compare(second.getVersion()));
+    }
+}
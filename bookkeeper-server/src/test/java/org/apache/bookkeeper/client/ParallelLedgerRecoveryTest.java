@@ -116,6 +116,12 @@ public class ParallelLedgerRecoveryTest extends BookKeeperClusterTestCase {
             lm.registerLedgerMetadataListener(ledgerId, listener);
         }
 
+        @Override
+        public void registerLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener,
+                                                   GenericCallback<LedgerMetadata> readCb) {
+            lm.registerLedgerMetadataListener(ledgerId, listener, readCb);
+        }
+
         @Override
         public void unregisterLedgerMetadataListener(long ledgerId, LedgerMetadataListener listener) {
             lm.unregisterLedgerMetadataListener(ledgerId, listener);
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.client;
+
+import java.util.Enumeration;
+
+import org.apache.bookkeeper.client.BookKeeper.DigestType;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.test.BookKeeperClusterTestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test adding and reading entries with their bodies framed apart from the protocol messages.
+ */
+public class TestBodyFraming extends BookKeeperClusterTestCase {
+
+    final DigestType digestType = DigestType.CRC32;
+    final byte[] passwd = "body-framing".getBytes();
+
+    public TestBodyFraming() {
+        super(3);
+    }
+
+    private BookKeeper newBodyFramingClient(int rangeMaxEntries) throws Exception {
+        ClientConfiguration conf = new ClientConfiguration();
+        conf.addConfiguration(baseClientConf);
+        conf.setEnableBodyFraming(true);
+        conf.setRangeAddMaxEntries(rangeMaxEntries);
+        conf.setRangeReadMaxEntries(rangeMaxEntries);
+        return new BookKeeper(conf);
+    }
+
+    private void verifyEntries(LedgerHandle lh, int numEntries) throws Exception {
+        Enumeration<LedgerEntry> entries = lh.readEntries(0, numEntries - 1);
+        int i = 0;
+        while (entries.hasMoreElements()) {
+            LedgerEntry entry = entries.nextElement();
+            assertEquals(i, entry.getEntryId());
+            assertEquals("entry-" + i, new String(entry.getEntry()));
+            i++;
+        }
+        assertEquals(numEntries, i);
+    }
+
+    private void addAndRead(int rangeMaxEntries) throws Exception {
+        int numEntries = 50;
+        BookKeeper framingBkc = newBodyFramingClient(rangeMaxEntries);
+        try {
+            LedgerHandle lh = framingBkc.createLedger(3, 2, 2, digestType, passwd);
+            for (int i = 0; i < numEntries; i++) {
+                lh.addEntry(("entry-" + i).getBytes());
+            }
+            verifyEntries(lh, numEntries);
+
+            // recovering the ledger fences it and reads its last entries
+            LedgerHandle recoveredLh = framingBkc.openLedger(lh.getId(), digestType, passwd);
+            assertEquals(numEntries - 1, recoveredLh.getLastAddConfirmed());
+            verifyEntries(recoveredLh, numEntries);
+            recoveredLh.close();
+        } finally {
+            framingBkc.close();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testBodyFraming() throws Exception {
+        addAndRead(1);
+    }
+
+    @Test(timeout = 60000)
+    public void testBodyFramingOfRanges() throws Exception {
+        addAndRead(8);
+    }
+
+    @Test(timeout = 60000)
+    public void testBodyFramingInterop() throws Exception {
+        int numEntries = 20;
+        BookKeeper framingBkc = newBodyFramingClient(1);
+        try {
+            LedgerHandle lh = bkc.createLedger(3, 3, 3, digestType, passwd);
+            for (int i = 0; i < numEntries; i++) {
+                lh.addEntry(("entry-" + i).getBytes());
+            }
+            lh.close();
+            // entries added without body framing are read with it
+            LedgerHandle readLh = framingBkc.openLedger(lh.getId(), digestType, passwd);
+            verifyEntries(readLh, numEntries);
+            readLh.close();
+        } finally {
+            framingBkc.close();
+        }
+    }
+}
@@ -23,9 +23,12 @@ package org.apache.bookkeeper.client;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.bookkeeper.conf.ClientConfiguration;
 import org.apache.bookkeeper.net.BookieSocketAddress;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
 import org.apache.bookkeeper.test.BookKeeperClusterTestCase;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -479,6 +482,83 @@ public class TestLedgerChecker extends BookKeeperClusterTestCase {
         lh1.close();
     }
 
+    /**
+     * Tests that the LedgerChecker sampling the entries with existence checks
+     * detects a bookie missing an entry in the middle of a fragment, which
+     * reading the first and last entries of the fragment doesn't detect.
+     */
+    @Test(timeout = 60000)
+    public void testSampledCheckerDetectsMissingEntry() throws Exception {
+        final int numEntries = 10;
+        final long missingEntryId = 5;
+        LedgerHandle lh = bkc.createLedger(3, 3, BookKeeper.DigestType.CRC32,
+                TEST_LEDGER_PASSWORD);
+        ArrayList<BookieSocketAddress> ensemble = lh.getLedgerMetadata()
+                .getEnsembles().get(0L);
+        BookieSocketAddress bookieMissingEntry = ensemble.get(0);
+
+        // write the entries directly to the bookies, skipping an entry on the first bookie
+        final CountDownLatch latch = new CountDownLatch(numEntries * ensemble.size() - 1);
+        final AtomicInteger failures = new AtomicInteger(0);
+        WriteCallback wcb = new WriteCallback() {
+            @Override
+            public void writeComplete(int rc, long ledgerId, long entryId,
+                                      BookieSocketAddress addr, Object ctx) {
+                if (BKException.Code.OK != rc) {
+                    failures.incrementAndGet();
+                }
+                latch.countDown();
+            }
+        };
+        long length = 0;
+        for (long entryId = 0; entryId < numEntries; entryId++) {
+            length += TEST_LEDGER_ENTRY_DATA.length;
+            for (BookieSocketAddress addr : ensemble) {
+                if (entryId == missingEntryId && addr.equals(bookieMissingEntry)) {
+                    continue;
+                }
+                bkc.getBookieClient().addEntry(addr, lh.getId(), lh.getLedgerKey(), entryId,
+                        lh.getDigestManager().computeDigestAndPackageForSending(entryId, entryId - 1,
+                                length, TEST_LEDGER_ENTRY_DATA, 0, TEST_LEDGER_ENTRY_DATA.length),
+                        wcb, null, 0);
+            }
+        }
+        latch.await();
+        assertEquals("All the entries should be written", 0, failures.get());
+
+        // recover the ledger to close it with all its entries
+        bkc.openLedger(lh.getId(), BookKeeper.DigestType.CRC32, TEST_LEDGER_PASSWORD).close();
+        LedgerHandle lh1 = bkc.openLedgerNoRecovery(lh.getId(), BookKeeper.DigestType.CRC32,
+                TEST_LEDGER_PASSWORD);
+        assertEquals("Ledger should be closed with all its entries",
+                numEntries - 1, lh1.getLastAddConfirmed());
+
+        Set<LedgerFragment> result = getUnderReplicatedFragments(lh1);
+        assertNotNull("Result shouldn't be null", result);
+        assertEquals("Reading the first and last entries shouldn't detect the missing entry",
+                0, result.size());
+
+        ClientConfiguration conf = new ClientConfiguration(baseClientConf);
+        conf.setLedgerCheckEntrySamplingDensity(1.0);
+        BookKeeper bkSampling = new BookKeeper(conf);
+        try {
+            CheckerCallback cb = new CheckerCallback();
+            new LedgerChecker(bkSampling).checkLedger(lh1, cb);
+            result = cb.waitAndGetResult();
+        } finally {
+            bkSampling.close();
+        }
+        assertNotNull("Result shouldn't be null", result);
+        assertEquals("There should be 1 fragment. But returned fragments are "
+                + result, 1, result.size());
+        LedgerFragment lf = result.iterator().next();
+        assertEquals("There should be 1 failed bookie in the fragment " + lf,
+                1, lf.getBookiesIndexes().size());
+        assertEquals("Fragment should be missing from first replica",
+                bookieMissingEntry, lf.getAddress(lf.getBookiesIndexes().iterator().next()));
+        lh1.close();
+    }
+
     private Set<LedgerFragment> getUnderReplicatedFragments(LedgerHandle lh)
             throws InterruptedException {
         LedgerChecker checker = new LedgerChecker(bkc);
@@ -29,6 +29,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.CountDownLatch;
 
 import org.apache.bookkeeper.client.BookKeeper.DigestType;
+import org.apache.bookkeeper.conf.ClientConfiguration;
 import org.apache.bookkeeper.net.BookieSocketAddress;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
 import org.apache.bookkeeper.test.BookKeeperClusterTestCase;
@@ -125,6 +126,57 @@ public class TestLedgerFragmentReplication extends BookKeeperClusterTestCase {
         verifyRecoveredLedgers(lh, 0, 9);
     }
 
+    /**
+     * Tests that the failed bookie fragments are copied in bulk to the target
+     * bookie when bulk copy is enabled.
+     */
+    @Test
+    public void testBulkCopyFailedBookieFragmentsToTargetBookie()
+            throws Exception {
+        byte[] data = "TestLedgerFragmentReplication".getBytes();
+        LedgerHandle lh = bkc.createLedger(3, 3, TEST_DIGEST_TYPE,
+                TEST_PSSWD);
+
+        for (int i = 0; i < 25; i++) {
+            lh.addEntry(data);
+        }
+        BookieSocketAddress replicaToKill = lh.getLedgerMetadata().getEnsembles()
+                .get(0L).get(0);
+
+        LOG.info("Killing Bookie", replicaToKill);
+        killBookie(replicaToKill);
+
+        int startNewBookie = startNewBookie();
+        lh.addEntry(data);
+
+        BookieSocketAddress newBkAddr = new BookieSocketAddress(InetAddress
+                .getLocalHost().getHostAddress(), startNewBookie);
+        Set<LedgerFragment> result = getFragmentsToReplicate(lh);
+
+        ClientConfiguration conf = new ClientConfiguration(baseClientConf);
+        conf.setRereplicationBulkCopyEntries(4);
+        conf.setRereplicationBulkCopyOutstandingChunks(2);
+        BookKeeperAdmin admin = new BookKeeperAdmin(conf);
+        lh.close();
+        // 0-24 entries should be copied to new bookie in chunks
+        for (LedgerFragment lf : result) {
+            admin.replicateLedgerFragment(lh, lf);
+        }
+        admin.close();
+
+        // Killing all bookies except newly replicated bookie
+        for (ArrayList<BookieSocketAddress> bookies : lh.getLedgerMetadata().getEnsembles().values()) {
+            for (BookieSocketAddress bookie : bookies) {
+                if (newBkAddr.equals(bookie)) {
+                    continue;
+                }
+                killBookie(bookie);
+            }
+        }
+
+        verifyRecoveredLedgers(lh, 0, 24);
+    }
+
     /**
      * Tests that fragment re-replication fails on last unclosed ledger
      * fragments.
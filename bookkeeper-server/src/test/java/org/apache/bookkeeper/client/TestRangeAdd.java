@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.client;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.bookkeeper.client.AsyncCallback.AddCallback;
+import org.apache.bookkeeper.client.BookKeeper.DigestType;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.net.BookieSocketAddress;
+import org.apache.bookkeeper.proto.BookieProtocol;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
+import org.apache.bookkeeper.test.BookKeeperClusterTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test writing sequences of entries with range add requests.
+ */
+public class TestRangeAdd extends BookKeeperClusterTestCase {
+
+    final DigestType digestType = DigestType.CRC32;
+    final byte[] passwd = "range-add".getBytes();
+
+    public TestRangeAdd() {
+        super(3);
+    }
+
+    private void addAndVerify(int ensembleSize, int writeQuorumSize) throws Exception {
+        int numEntries = 100;
+        ClientConfiguration conf = new ClientConfiguration();
+        conf.addConfiguration(baseClientConf);
+        conf.setRangeAddMaxEntries(8);
+        BookKeeper newBkc = new BookKeeper(conf);
+        long ledgerId;
+        try {
+            LedgerHandle lh = newBkc.createLedger(ensembleSize, writeQuorumSize, writeQuorumSize,
+                                                  digestType, passwd);
+            final AtomicInteger rc = new AtomicInteger(BKException.Code.OK);
+            final CountDownLatch latch = new CountDownLatch(numEntries);
+            for (int i = 0; i < numEntries; i++) {
+                lh.asyncAddEntry(("entry-" + i).getBytes(), new AddCallback() {
+                    @Override
+                    public void addComplete(int addRc, LedgerHandle lh, long entryId, Object ctx) {
+                        rc.compareAndSet(BKException.Code.OK, addRc);
+                        latch.countDown();
+                    }
+                }, null);
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(BKException.Code.OK, rc.get());
+            assertEquals(numEntries - 1, lh.getLastAddConfirmed());
+            lh.close();
+            ledgerId = lh.getId();
+        } finally {
+            newBkc.close();
+        }
+
+        LedgerHandle readLh = bkc.openLedger(ledgerId, digestType, passwd);
+        Enumeration<LedgerEntry> entries = readLh.readEntries(0, numEntries - 1);
+        int i = 0;
+        while (entries.hasMoreElements()) {
+            LedgerEntry entry = entries.nextElement();
+            assertEquals(i, entry.getEntryId());
+            assertEquals("entry-" + i, new String(entry.getEntry()));
+            i++;
+        }
+        assertEquals(numEntries, i);
+        readLh.close();
+    }
+
+    @Test(timeout = 60000)
+    public void testRangeAdd() throws Exception {
+        addAndVerify(3, 3);
+    }
+
+    @Test(timeout = 60000)
+    public void testRangeAddStripedLedger() throws Exception {
+        addAndVerify(3, 2);
+    }
+
+    @Test(timeout = 60000)
+    public void testRangeAddOfNonConsecutiveEntries() throws Exception {
+        LedgerHandle lh = bkc.createLedger(3, 3, 3, digestType, passwd);
+        List<ChannelBuffer> toSend = new ArrayList<ChannelBuffer>();
+        for (long entryId : new long[] { 0, 1, 3 }) {
+            toSend.add(lh.macManager.computeDigestAndPackageForSending(
+                    entryId, -1, 0, new byte[0], 0, 0));
+        }
+
+        final ConcurrentMap<Long, Integer> results = new ConcurrentHashMap<Long, Integer>();
+        final CountDownLatch latch = new CountDownLatch(toSend.size());
+        // the bookie rejects the whole range, each entry fails
+        bkc.bookieClient.addEntries(getBookie(0), lh.getId(), lh.ledgerKey, 0, toSend, new WriteCallback() {
+            @Override
+            public void writeComplete(int rc, long ledgerId, long entryId, BookieSocketAddress addr, Object ctx) {
+                assertNull(results.put(entryId, rc));
+                latch.countDown();
+            }
+        }, null, BookieProtocol.FLAG_NONE);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (long entryId = 0; entryId < toSend.size(); entryId++) {
+            assertFalse("Entry " + entryId + " shouldn't be added",
+                        BKException.Code.OK == results.get(entryId));
+        }
+    }
+}
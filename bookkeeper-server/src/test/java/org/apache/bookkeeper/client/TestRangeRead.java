@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.client;
+
+import java.util.Enumeration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.bookkeeper.client.BookKeeper.DigestType;
+import org.apache.bookkeeper.conf.ClientConfiguration;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallback;
+import org.apache.bookkeeper.test.BookKeeperClusterTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test reading sequences of entries with range read requests.
+ */
+public class TestRangeRead extends BookKeeperClusterTestCase {
+
+    final DigestType digestType = DigestType.CRC32;
+    final byte[] passwd = "range-read".getBytes();
+
+    final int serverRangeReadMaxEntries = 20;
+
+    public TestRangeRead() {
+        super(3);
+        baseConf.setServerRangeReadMaxEntries(serverRangeReadMaxEntries);
+    }
+
+    private LedgerHandle createLedger(int ensembleSize, int writeQuorumSize, int numEntries) throws Exception {
+        LedgerHandle lh = bkc.createLedger(ensembleSize, writeQuorumSize, writeQuorumSize, digestType, passwd);
+        for (int i = 0; i < numEntries; i++) {
+            lh.addEntry(("entry-" + i).getBytes());
+        }
+        lh.close();
+        return lh;
+    }
+
+    private void readAndVerify(int ensembleSize, int writeQuorumSize) throws Exception {
+        int numEntries = 50;
+        LedgerHandle lh = createLedger(ensembleSize, writeQuorumSize, numEntries);
+
+        ClientConfiguration conf = new ClientConfiguration();
+        conf.addConfiguration(baseClientConf);
+        conf.setRangeReadMaxEntries(8);
+        BookKeeper newBkc = new BookKeeper(conf);
+        try {
+            LedgerHandle readLh = newBkc.openLedger(lh.getId(), digestType, passwd);
+            Enumeration<LedgerEntry> entries = readLh.readEntries(0, numEntries - 1);
+            int i = 0;
+            while (entries.hasMoreElements()) {
+                LedgerEntry entry = entries.nextElement();
+                assertEquals(i, entry.getEntryId());
+                assertEquals("entry-" + i, new String(entry.getEntry()));
+                i++;
+            }
+            assertEquals(numEntries, i);
+            readLh.close();
+        } finally {
+            newBkc.close();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testRangeRead() throws Exception {
+        readAndVerify(3, 3);
+    }
+
+    @Test(timeout = 60000)
+    public void testRangeReadStripedLedger() throws Exception {
+        readAndVerify(3, 2);
+    }
+
+    @Test(timeout = 60000)
+    public void testRangeReadBeyondLastEntry() throws Exception {
+        int numEntries = 10;
+        LedgerHandle lh = createLedger(3, 3, numEntries);
+
+        final ConcurrentMap<Long, Integer> results = new ConcurrentHashMap<Long, Integer>();
+        final CountDownLatch latch = new CountDownLatch(numEntries);
+        // the bookie stops streaming at the first missing entry, the following entries fail with it
+        bkc.bookieClient.readEntries(getBookie(0), lh.getId(), 5, numEntries, new ReadEntryCallback() {
+            @Override
+            public void readEntryComplete(int rc, long ledgerId, long entryId, ChannelBuffer buffer, Object ctx) {
+                assertNull(results.put(entryId, rc));
+                latch.countDown();
+            }
+        }, null);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (long entryId = 5; entryId < 5 + numEntries; entryId++) {
+            int expectedRc = entryId < numEntries ? BKException.Code.OK : BKException.Code.NoSuchEntryException;
+            assertEquals("Unexpected result for entry " + entryId, expectedRc, (int) results.get(entryId));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testRangeReadBeyondServerLimit() throws Exception {
+        int numEntries = 30;
+        LedgerHandle lh = createLedger(3, 3, numEntries);
+
+        final ConcurrentMap<Long, Integer> results = new ConcurrentHashMap<Long, Integer>();
+        final CountDownLatch latch = new CountDownLatch(serverRangeReadMaxEntries + 1);
+        // the bookie rejects the whole range
+        bkc.bookieClient.readEntries(getBookie(0), lh.getId(), 0, serverRangeReadMaxEntries + 1,
+                new ReadEntryCallback() {
+            @Override
+            public void readEntryComplete(int rc, long ledgerId, long entryId, ChannelBuffer buffer, Object ctx) {
+                assertNull(results.put(entryId, rc));
+                latch.countDown();
+            }
+        }, null);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (long entryId = 0; entryId <= serverRangeReadMaxEntries; entryId++) {
+            assertEquals("Unexpected result for entry " + entryId,
+                    BKException.Code.ReadException, (int) results.get(entryId));
+        }
+    }
+}
@@ -22,14 +22,20 @@ package org.apache.bookkeeper.proto;
  */
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Optional;
 
+import org.apache.bookkeeper.client.BKException;
 import org.apache.bookkeeper.conf.ClientConfiguration;
 import org.apache.bookkeeper.net.BookieSocketAddress;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.GenericCallback;
+import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.ReadEntryCallback;
 import org.apache.bookkeeper.proto.BookkeeperInternalCallbacks.WriteCallback;
 import org.apache.bookkeeper.proto.PerChannelBookieClient.ConnectionState;
 import org.apache.bookkeeper.stats.NullStatsLogger;
@@ -207,4 +213,69 @@ public class TestPerChannelBookieClient extends BookKeeperClusterTestCase {
         channelFactory.releaseExternalResources();
         executor.shutdown();
     }
+
+    /**
+     * Issue requests concurrently from several threads, so they are coalesced into
+     * shared writes, and check that every request gets its own response.
+     */
+    @Test(timeout=60000)
+    public void testCoalescedWritesToChannel() throws Exception {
+        ClientSocketChannelFactory channelFactory
+            = new NioClientSocketChannelFactory(Executors.newCachedThreadPool(),
+                                                Executors.newCachedThreadPool());
+        OrderedSafeExecutor executor = new OrderedSafeExecutor(4);
+        ClientConfiguration conf = new ClientConfiguration();
+        conf.setMaxRequestsPerFlush(16);
+
+        BookieSocketAddress addr = getBookie(0);
+        final PerChannelBookieClient client = new PerChannelBookieClient(
+            conf, executor, channelFactory, addr, null, NullStatsLogger.INSTANCE, Optional.<String>absent());
+        final CountDownLatch connectLatch = new CountDownLatch(1);
+        client.connectIfNeededAndDoOp(new GenericCallback<PerChannelBookieClient>() {
+            @Override
+            public void operationComplete(int rc, PerChannelBookieClient client) {
+                connectLatch.countDown();
+            }
+        });
+        assertTrue(connectLatch.await(10, TimeUnit.SECONDS));
+
+        final int numThreads = 4;
+        final int numReadsPerThread = 500;
+        final CountDownLatch readLatch = new CountDownLatch(numThreads * numReadsPerThread);
+        final ConcurrentMap<Long, Integer> results = new ConcurrentHashMap<Long, Integer>();
+        final ReadEntryCallback readCb = new ReadEntryCallback() {
+            @Override
+            public void readEntryComplete(int rc, long ledgerId, long entryId, ChannelBuffer buffer, Object ctx) {
+                results.put(ledgerId, rc);
+                readLatch.countDown();
+            }
+        };
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final long firstLedgerId = i * numReadsPerThread;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (long ledgerId = firstLedgerId; ledgerId < firstLedgerId + numReadsPerThread; ledgerId++) {
+                        client.readEntry(ledgerId, 0, readCb, null);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTrue(readLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(numThreads * numReadsPerThread, results.size());
+        for (int rc : results.values()) {
+            // none of the ledgers exist, the bookie answered each request
+            assertTrue("Unexpected rc " + rc, BKException.Code.NoSuchLedgerExistsException == rc
+                       || BKException.Code.NoSuchEntryException == rc);
+        }
+
+        client.close();
+        channelFactory.releaseExternalResources();
+        executor.shutdown();
+    }
 }
@@ -196,6 +196,57 @@ public class BookieLedgerIndexTest extends MultiLedgerManagerTestCase {
         }
     }
 
+    /**
+     * Verify the index follows ensemble changes and ledger creations and
+     * deletions after it is built
+     */
+    @Test
+    public void testIncrementalIndex() throws Exception {
+        LedgerHandle lh1 = createAndAddEntriesToLedger();
+        LedgerHandle lh2 = createAndAddEntriesToLedger();
+        lh2.close();
+
+        BookieLedgerIndexer bookieLedgerIndex = new BookieLedgerIndexer(
+                ledgerManager);
+        try {
+            bookieLedgerIndex.refresh();
+            assertEquals("Missed few bookies in the bookie-ledger mapping!", 3,
+                    bookieLedgerIndex.getBookies().size());
+
+            // ensemble change is picked up from the metadata notification
+            startNewBookie();
+            shutdownBookie(bs.size() - 2);
+            lh1.addEntry("entry".getBytes());
+            for (int i = 0; i < 100 && bookieLedgerIndex.getBookies().size() < 4; i++) {
+                Thread.sleep(100);
+            }
+            assertEquals("Ensemble change is not reflected in the index", 4,
+                    bookieLedgerIndex.getBookies().size());
+            lh1.close();
+
+            // ledger creation and deletion are picked up by a refresh
+            bkc.deleteLedger(lh2.getId());
+            LedgerHandle lh3 = createAndAddEntriesToLedger();
+            lh3.close();
+            bookieLedgerIndex.refresh();
+            for (String bookie : bookieLedgerIndex.getBookies()) {
+                Set<Long> ledgers = bookieLedgerIndex.getLedgersOfBookie(bookie);
+                assertFalse("Deleted ledger is still indexed", ledgers.contains(lh2.getId()));
+            }
+            Map<String, Set<Long>> bookieToLedgerIndex = bookieLedgerIndex
+                    .getBookieToLedgerIndex();
+            int numBookiesOfLh3 = 0;
+            for (Set<Long> ledgers : bookieToLedgerIndex.values()) {
+                if (ledgers.contains(lh3.getId())) {
+                    ++numBookiesOfLh3;
+                }
+            }
+            assertEquals("Created ledger is not indexed", 3, numBookiesOfLh3);
+        } finally {
+            bookieLedgerIndex.close();
+        }
+    }
+
     private void shutdownBookie(int bkShutdownIndex) throws IOException {
         bs.remove(bkShutdownIndex).shutdown();
         File f = tmpDirs.remove(bkShutdownIndex);
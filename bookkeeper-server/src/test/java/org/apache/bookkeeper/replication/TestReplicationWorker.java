@@ -366,6 +366,66 @@ public class TestReplicationWorker extends MultiLedgerManagerTestCase {
 
     }
 
+    /**
+     * Tests that ReplicationWorker replicates several ledgers at the same time,
+     * with a rate limit.
+     */
+    @Test(timeout = 60000)
+    public void testConcurrentReplicationOfMultipleLedgers() throws Exception {
+        List<LedgerHandle> lhs = new ArrayList<LedgerHandle>();
+        for (int i = 0; i < 4; i++) {
+            LedgerHandle lh = bkc.createLedger(3, 3, BookKeeper.DigestType.CRC32,
+                    TESTPASSWD);
+            for (int j = 0; j < 10; j++) {
+                lh.addEntry(data);
+            }
+            lhs.add(lh);
+        }
+        BookieSocketAddress replicaToKill = LedgerHandleAdapter
+                .getLedgerMetadata(lhs.get(0)).getEnsembles().get(0L).get(0);
+
+        LOG.info("Killing Bookie", replicaToKill);
+        killBookie(replicaToKill);
+        for (LedgerHandle lh : lhs) {
+            lh.close();
+        }
+
+        int startNewBookie = startNewBookie();
+
+        BookieSocketAddress newBkAddr = new BookieSocketAddress(InetAddress
+                .getLocalHost().getHostAddress(), startNewBookie);
+        LOG.info("New Bookie addr :" + newBkAddr);
+
+        ServerConfiguration conf = new ServerConfiguration(baseConf);
+        conf.setReplicationMaxInflightLedgers(2)
+            .setReplicationMaxInflightFragments(2)
+            .setReplicationPrefetchLedgers(2)
+            .setReplicationRateByBytes(1024 * 1024);
+        ReplicationWorker rw = new ReplicationWorker(zkc, conf);
+
+        rw.start();
+        try {
+            for (LedgerHandle lh : lhs) {
+                underReplicationManager.markLedgerUnderreplicated(lh.getId(),
+                        replicaToKill.toString());
+            }
+            for (LedgerHandle lh : lhs) {
+                while (isLedgerInUnderReplication(lh.getId(), basePath)) {
+                    Thread.sleep(100);
+                }
+            }
+
+            killAllBookies(lhs.get(0), newBkAddr);
+
+            // Should be able to read the entries from 0-9
+            for (LedgerHandle lh : lhs) {
+                verifyRecoveredLedgers(lh, 0, 9);
+            }
+        } finally {
+            rw.shutdown();
+        }
+    }
+
     /**
      * Tests that ReplicationWorker should fence the ledger and release ledger
      * lock after timeout. Then replication should happen normally.
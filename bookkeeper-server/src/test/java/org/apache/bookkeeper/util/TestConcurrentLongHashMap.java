@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestConcurrentLongHashMap {
+
+    @Test(timeout = 60000)
+    public void testPutGetRemove() {
+        ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<String>(16, 1);
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertNull(map.put(1, "one"));
+        assertEquals("one", map.put(1, "uno"));
+        assertEquals("uno", map.putIfAbsent(1, "eins"));
+        assertEquals("uno", map.get(1));
+        assertNull(map.putIfAbsent(2, "two"));
+        assertNull(map.put(3, "three"));
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey(3));
+        assertEquals("two", map.remove(2));
+        assertNull(map.remove(2));
+        assertFalse(map.containsKey(2));
+        assertFalse(map.remove(3, "tres"));
+        assertTrue(map.containsKey(3));
+        assertTrue(map.remove(3, "three"));
+        assertFalse(map.containsKey(3));
+        assertNull(map.put(3, "three"));
+        assertEquals(2, map.size());
+
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[] { 1L, 3L }, keys);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    @Test(timeout = 60000)
+    public void testInvalidKeysAndValues() {
+        ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<String>();
+        try {
+            map.put(Long.MIN_VALUE, "min");
+            fail("Should reject reserved keys");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+        try {
+            map.put(1, null);
+            fail("Should reject null values");
+        } catch (NullPointerException npe) {
+            // expected
+        }
+        assertNull(map.put(-1, "minus one"));
+        assertEquals("minus one", map.get(-1));
+    }
+
+    @Test(timeout = 60000)
+    public void testResizeAndDeletedBuckets() {
+        ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<Long>(4, 1);
+        Map<Long, Long> expected = new HashMap<Long, Long>();
+        Random r = new Random(1234);
+        for (int i = 0; i < 100000; i++) {
+            long key = r.nextInt(5000);
+            if (r.nextBoolean()) {
+                Long value = (long) r.nextInt(1000);
+                map.put(key, value);
+                expected.put(key, value);
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+        }
+        for (long key = 0; key < 5000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testForEachWhileRemoving() {
+        final ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<Long>();
+        for (long key = 0; key < 1000; key++) {
+            map.put(key, key * 2);
+        }
+        final List<Long> processed = new ArrayList<Long>();
+        map.forEach(new ConcurrentLongHashMap.EntryProcessor<Long>() {
+            @Override
+            public void process(long key, Long value) {
+                assertEquals(key * 2, value.longValue());
+                processed.add(key);
+                if (key % 2 == 0) {
+                    map.remove(key);
+                }
+            }
+        });
+        assertEquals(1000, processed.size());
+        assertEquals(500, map.size());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentRemoves() throws Exception {
+        final ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<Long>();
+        final int numThreads = 8;
+        final int numKeys = 10000;
+        for (long key = 0; key < numKeys; key++) {
+            map.put(key, key);
+        }
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicInteger numRemoved = new AtomicInteger(0);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (long key = 0; key < numKeys; key++) {
+                            if (null != map.remove(key)) {
+                                numRemoved.incrementAndGet();
+                            }
+                        }
+                    } catch (Throwable th) {
+                        failure.set(th);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        startLatch.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get());
+        // every mapping is removed by exactly one thread
+        assertEquals(numKeys, numRemoved.get());
+        assertTrue(map.isEmpty());
+    }
+}
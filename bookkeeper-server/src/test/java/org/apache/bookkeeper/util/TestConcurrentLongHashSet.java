@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestConcurrentLongHashSet {
+
+    @Test(timeout = 60000)
+    public void testAddRemove() {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(16, 1);
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(1));
+        assertFalse(set.add(1));
+        assertTrue(set.add(-3));
+        assertTrue(set.add(7));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(-3));
+        assertTrue(set.remove(-3));
+        assertFalse(set.remove(-3));
+        assertFalse(set.contains(-3));
+
+        long[] items = set.items();
+        Arrays.sort(items);
+        assertArrayEquals(new long[] { 1L, 7L }, items);
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+        try {
+            set.add(Long.MIN_VALUE);
+            fail("Should reject reserved items");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testRandomUpdates() {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(4, 1);
+        Set<Long> expected = new HashSet<Long>();
+        Random r = new Random(4321);
+        for (int i = 0; i < 100000; i++) {
+            long item = r.nextInt(5000);
+            if (r.nextBoolean()) {
+                assertEquals(expected.add(item), set.add(item));
+            } else {
+                assertEquals(expected.remove(item), set.remove(item));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (long item = 0; item < 5000; item++) {
+            assertEquals(expected.contains(item), set.contains(item));
+        }
+        final Set<Long> processed = new HashSet<Long>();
+        set.forEach(new ConcurrentLongHashSet.ItemProcessor() {
+            @Override
+            public void process(long item) {
+                processed.add(item);
+            }
+        });
+        assertEquals(expected, processed);
+    }
+}
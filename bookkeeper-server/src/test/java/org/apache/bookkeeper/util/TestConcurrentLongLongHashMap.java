@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestConcurrentLongLongHashMap {
+
+    @Test(timeout = 60000)
+    public void testPutGetRemove() {
+        ConcurrentLongLongHashMap map = new ConcurrentLongLongHashMap(16, 1);
+        assertTrue(map.isEmpty());
+        assertEquals(ConcurrentLongLongHashMap.NO_VALUE, map.get(1));
+        assertEquals(ConcurrentLongLongHashMap.NO_VALUE, map.put(1, 10));
+        assertEquals(10L, map.put(1, 11));
+        assertEquals(11L, map.putIfAbsent(1, 12));
+        assertEquals(11L, map.get(1));
+        assertEquals(ConcurrentLongLongHashMap.NO_VALUE, map.putIfAbsent(2, 20));
+        assertEquals(25L, map.addAndGet(2, 5));
+        assertEquals(7L, map.addAndGet(3, 7));
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey(3));
+        assertEquals(25L, map.remove(2));
+        assertEquals(ConcurrentLongLongHashMap.NO_VALUE, map.remove(2));
+        assertFalse(map.containsKey(2));
+        assertEquals(2, map.size());
+
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[] { 1L, 3L }, keys);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(ConcurrentLongLongHashMap.NO_VALUE, map.get(1));
+    }
+
+    @Test(timeout = 60000)
+    public void testInvalidKeysAndValues() {
+        ConcurrentLongLongHashMap map = new ConcurrentLongLongHashMap();
+        try {
+            map.put(Long.MIN_VALUE, 1);
+            fail("Should reject reserved keys");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+        try {
+            map.put(1, -1);
+            fail("Should reject negative values");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+        map.put(1, 1);
+        try {
+            map.addAndGet(1, -2);
+            fail("Should reject negative values");
+        } catch (IllegalArgumentException iae) {
+            // expected
+        }
+        assertEquals(1L, map.get(1));
+        // negative keys are fine
+        map.put(-1, 5);
+        assertEquals(5L, map.get(-1));
+    }
+
+    @Test(timeout = 60000)
+    public void testResizeAndDeletedBuckets() {
+        ConcurrentLongLongHashMap map = new ConcurrentLongLongHashMap(4, 1);
+        long initialCapacity = map.capacity();
+        Map<Long, Long> expected = new HashMap<Long, Long>();
+        Random r = new Random(1234);
+        for (int i = 0; i < 100000; i++) {
+            long key = r.nextInt(5000);
+            if (r.nextBoolean()) {
+                long value = r.nextInt(1000);
+                map.put(key, value);
+                expected.put(key, value);
+            } else {
+                Long value = expected.remove(key);
+                assertEquals(null == value ? ConcurrentLongLongHashMap.NO_VALUE : value.longValue(),
+                        map.remove(key));
+            }
+        }
+        assertTrue(map.capacity() > initialCapacity);
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            assertEquals(e.getValue().longValue(), map.get(e.getKey()));
+        }
+        for (long key = 0; key < 5000; key++) {
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+
+        // deleting everything and adding again doesn't grow the map
+        long capacity = map.capacity();
+        for (int round = 0; round < 10; round++) {
+            for (long key = 0; key < 5000; key++) {
+                map.remove(key);
+            }
+            assertTrue(map.isEmpty());
+            for (long key = 0; key < 1000; key++) {
+                map.put(key, key);
+            }
+        }
+        assertEquals(capacity, map.capacity());
+    }
+
+    @Test(timeout = 60000)
+    public void testForEachWhileRemoving() {
+        final ConcurrentLongLongHashMap map = new ConcurrentLongLongHashMap();
+        for (long key = 0; key < 1000; key++) {
+            map.put(key, key * 2);
+        }
+        final List<Long> processed = new ArrayList<Long>();
+        map.forEach(new ConcurrentLongLongHashMap.EntryProcessor() {
+            @Override
+            public void process(long key, long value) {
+                assertEquals(key * 2, value);
+                processed.add(key);
+                if (key % 2 == 0) {
+                    map.remove(key);
+                }
+            }
+        });
+        assertEquals(1000, processed.size());
+        assertEquals(500, map.size());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentUpdates() throws Exception {
+        final ConcurrentLongLongHashMap map = new ConcurrentLongLongHashMap();
+        final int numThreads = 8;
+        final int numKeys = 10000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (long key = 0; key < numKeys; key++) {
+                            map.addAndGet(key, 1);
+                        }
+                    } catch (Throwable th) {
+                        failure.set(th);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        startLatch.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get());
+        assertEquals(numKeys, map.size());
+        for (long key = 0; key < numKeys; key++) {
+            assertEquals(numThreads, map.get(key));
+        }
+    }
+}
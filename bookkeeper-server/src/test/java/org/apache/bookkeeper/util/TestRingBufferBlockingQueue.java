@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.bookkeeper.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestRingBufferBlockingQueue {
+
+    @Test(timeout = 60000)
+    public void testCapacityAndOrdering() throws Exception {
+        RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(5);
+        assertEquals(8, queue.capacity());
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse("Queue should be full", queue.offer(8));
+        assertEquals(8, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(Integer.valueOf(0), queue.peek());
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(8));
+
+        List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(3, queue.drainTo(drained, 3));
+        assertEquals(5, queue.drainTo(drained));
+        for (int i = 0; i < 8; i++) {
+            assertEquals(Integer.valueOf(i + 1), drained.get(i));
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 60000)
+    public void testBlockingTake() throws Exception {
+        final RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(4);
+        final CountDownLatch started = new CountDownLatch(1);
+        final List<Integer> taken = new ArrayList<Integer>();
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    taken.add(queue.take());
+                } catch (InterruptedException e) {
+                    // exit
+                }
+            }
+        };
+        consumer.start();
+        started.await();
+        queue.put(1);
+        consumer.join();
+        assertEquals(1, taken.size());
+        assertEquals(Integer.valueOf(1), taken.get(0));
+    }
+
+    @Test(timeout = 60000)
+    public void testMultipleProducers() throws Exception {
+        final int numProducers = 4;
+        final int numPerProducer = 100000;
+        final RingBufferBlockingQueue<Long> queue = new RingBufferBlockingQueue<Long>(128);
+        Thread[] producers = new Thread[numProducers];
+        for (int p = 0; p < numProducers; p++) {
+            final long producerId = p;
+            producers[p] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (long i = 0; i < numPerProducer; i++) {
+                            queue.put((producerId << 32) | i);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            producers[p].start();
+        }
+
+        // entries of each producer should be received in order
+        long[] nextExpected = new long[numProducers];
+        List<Long> batch = new ArrayList<Long>();
+        int received = 0;
+        while (received < numProducers * numPerProducer) {
+            batch.clear();
+            if (0 == queue.drainTo(batch)) {
+                batch.add(queue.take());
+            }
+            for (Long e : batch) {
+                int producerId = (int) (e >>> 32);
+                assertEquals(nextExpected[producerId], e & 0xFFFFFFFFL);
+                ++nextExpected[producerId];
+                ++received;
+            }
+        }
+        for (Thread t : producers) {
+            t.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 60000)
+    public void testInterruptWaitingConsumer() throws Exception {
+        final RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(4);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    queue.take();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        };
+        consumer.start();
+        consumer.interrupt();
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 60000)
+    public void testIterateAndRemove() throws Exception {
+        RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(4);
+        assertEquals("[]", queue.toString());
+        // wrap the cursors around the ring
+        for (int i = 0; i < 6; i++) {
+            queue.put(i);
+            queue.take();
+        }
+        for (int i = 0; i < 4; i++) {
+            queue.put(i);
+        }
+        assertEquals("[0, 1, 2, 3]", queue.toString());
+        assertTrue(queue.contains(2));
+        assertFalse(queue.contains(4));
+
+        assertTrue(queue.remove(Integer.valueOf(0)));
+        assertFalse(queue.remove(Integer.valueOf(0)));
+        Iterator<Integer> iter = queue.iterator();
+        assertEquals(Integer.valueOf(1), iter.next());
+        assertEquals(Integer.valueOf(2), iter.next());
+        iter.remove();
+        assertEquals("[1, 3]", queue.toString());
+        // removed elements are skipped by consumers
+        assertEquals(Integer.valueOf(1), queue.peek());
+        assertEquals(Integer.valueOf(1), queue.poll());
+        assertEquals(Integer.valueOf(3), queue.poll());
+        assertNull(queue.poll());
+
+        queue.put(5);
+        queue.put(6);
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.iterator().hasNext());
+    }
+}